@@ -2,11 +2,9 @@ package com.iflytek.astron.console.commons.aspect.space;
 
 import com.iflytek.astron.console.commons.annotation.space.EnterprisePreAuth;
 import com.iflytek.astron.console.commons.constant.ResponseEnum;
-import com.iflytek.astron.console.commons.entity.space.EnterprisePermission;
 import com.iflytek.astron.console.commons.entity.space.EnterpriseUser;
 import com.iflytek.astron.console.commons.enums.space.EnterpriseRoleEnum;
 import com.iflytek.astron.console.commons.response.ApiResult;
-import com.iflytek.astron.console.commons.service.space.EnterpriseSpaceService;
 import com.iflytek.astron.console.commons.util.RequestContextUtil;
 import com.iflytek.astron.console.commons.util.space.EnterpriseInfoUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -25,7 +23,10 @@ public class EnterpriseAuthAspect {
 
 
     @Autowired
-    private EnterpriseSpaceService enterpriseSpaceService;
+    private PermissionMatrix permissionMatrix;
+
+    @Autowired
+    private SpaceAuthCache spaceAuthCache;
 
     @Pointcut("@annotation(com.iflytek.astron.console.commons.annotation.space.EnterprisePreAuth)")
     public void annotatedMethod() {}
@@ -39,7 +40,7 @@ public class EnterpriseAuthAspect {
         }
         // 1) Check whether the user is in the current enterprise team
         String uid = RequestContextUtil.getUID();
-        EnterpriseUser enterpriseUser = enterpriseSpaceService.checkUserBelongEnterprise(enterpriseId, uid);
+        EnterpriseUser enterpriseUser = spaceAuthCache.getEnterpriseUser(enterpriseId, uid);
         if (enterpriseUser == null) {
             return ApiResult.error(ResponseEnum.PERMISSION_NOT_BELONG_ENTERPRISE);
         }
@@ -52,28 +53,20 @@ public class EnterpriseAuthAspect {
             return ApiResult.error(ResponseEnum.PERMISSION_NOT_SUPPORT_ENTERPRISE_ROLE);
         }
         // If configured in DB, DB takes precedence; otherwise use annotation settings
-        EnterprisePermission permission = enterpriseSpaceService.getEnterprisePermissionByKey(key);
-        if (permission == null) {
+        PermissionMatrix.Table permissions = permissionMatrix.enterprise();
+        int permission = permissions.indexOf(key);
+        if (permission < 0) {
             return ApiResult.error(ResponseEnum.PERMISSION_NO_ENTERPRISE_CONFIG);
         }
-        if (!checkAuth(roleEnum, permission)) {
+        if (!permissions.allows(permission, roleEnum.ordinal())) {
             return ApiResult.error(ResponseEnum.PERMISSION_DENIED);
         }
-        if (!permission.getAvailableExpired() && enterpriseSpaceService.checkEnterpriseExpired(enterpriseId)) {
+        if (!permissions.availableExpired(permission) && spaceAuthCache.isEnterpriseExpired(enterpriseId)) {
             return ApiResult.error(ResponseEnum.PERMISSION_PACKAGE_EXPIRED);
         }
         // Proceed with the original method
         return joinPoint.proceed();
     }
 
-    private boolean checkAuth(EnterpriseRoleEnum roleEnum, EnterprisePermission permission) {
-        return switch (roleEnum) {
-            case OFFICER -> permission.getOfficer();
-            case GOVERNOR -> permission.getGovernor();
-            case STAFF -> permission.getStaff();
-            default -> false;
-        };
-    }
-
 
 }
@@ -0,0 +1,150 @@
+package com.iflytek.astron.console.commons.aspect.space;
+
+import com.iflytek.astron.console.commons.entity.space.EnterprisePermission;
+import com.iflytek.astron.console.commons.entity.space.SpacePermission;
+import com.iflytek.astron.console.commons.enums.space.EnterpriseRoleEnum;
+import com.iflytek.astron.console.commons.enums.space.SpaceRoleEnum;
+import com.iflytek.astron.console.commons.service.space.EnterprisePermissionService;
+import com.iflytek.astron.console.commons.service.space.SpacePermissionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Space and enterprise team permissions compiled into immutable role x key bitsets.
+ * <p>
+ * The permission tables only change through configuration, so they are read in full once the
+ * application has started, after {@link PermissionValidator} checked every annotated key, and again on
+ * a fixed delay. Each reload swaps in a new table, so readers never see a half built one.
+ */
+@Slf4j
+@Component
+public class PermissionMatrix {
+
+    @Autowired
+    private SpacePermissionService spacePermissionService;
+
+    @Autowired
+    private EnterprisePermissionService enterprisePermissionService;
+
+    private volatile Table spaceTable = Table.EMPTY;
+
+    private volatile Table enterpriseTable = Table.EMPTY;
+
+    private volatile boolean loaded;
+
+    /**
+     * Space permissions, indexed by {@link SpaceRoleEnum#ordinal()}
+     */
+    public Table space() {
+        ensureLoaded();
+        return spaceTable;
+    }
+
+    /**
+     * Enterprise team permissions, indexed by {@link EnterpriseRoleEnum#ordinal()}
+     */
+    public Table enterprise() {
+        ensureLoaded();
+        return enterpriseTable;
+    }
+
+    /**
+     * Compile both permission tables from the database
+     */
+    @Scheduled(fixedDelayString = "${space.permission.reload-interval-ms:60000}", initialDelayString = "${space.permission.reload-interval-ms:60000}")
+    public void reload() {
+        try {
+            spaceTable = Table.compile(spacePermissionService.listAll(), SpacePermission::getPermissionKey,
+                    List.of(SpacePermission::getOwner, SpacePermission::getAdmin, SpacePermission::getMember),
+                    SpacePermission::getAvailableExpired);
+            enterpriseTable = Table.compile(enterprisePermissionService.listAll(), EnterprisePermission::getPermissionKey,
+                    List.of(EnterprisePermission::getOfficer, EnterprisePermission::getGovernor, EnterprisePermission::getStaff),
+                    EnterprisePermission::getAvailableExpired);
+            loaded = true;
+            log.debug("Permission matrix compiled, space keys: {}, enterprise keys: {}", spaceTable.size(), enterpriseTable.size());
+        } catch (Exception e) {
+            // Keep serving the last compiled tables
+            log.error("Failed to reload permission matrix", e);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    /**
+     * Permissions of one scope: a key index, one bitset per role and the keys available after expiry
+     */
+    public static final class Table {
+
+        static final Table EMPTY = new Table(Map.of(), new BitSet[0], new BitSet());
+
+        private final Map<String, Integer> index;
+        private final BitSet[] roles;
+        private final BitSet availableExpired;
+
+        private Table(Map<String, Integer> index, BitSet[] roles, BitSet availableExpired) {
+            this.index = index;
+            this.roles = roles;
+            this.availableExpired = availableExpired;
+        }
+
+        /**
+         * @param roleGrants Grant column of each role, in role ordinal order
+         */
+        static <T> Table compile(List<T> rows, Function<T, String> key, List<Function<T, Boolean>> roleGrants, Function<T, Boolean> availableExpired) {
+            Map<String, Integer> index = new HashMap<>(rows.size() * 2);
+            BitSet[] roles = new BitSet[roleGrants.size()];
+            for (int role = 0; role < roles.length; role++) {
+                roles[role] = new BitSet(rows.size());
+            }
+            BitSet expired = new BitSet(rows.size());
+            for (T row : rows) {
+                int i = index.size();
+                String permissionKey = key.apply(row);
+                if (permissionKey == null || index.putIfAbsent(permissionKey, i) != null) {
+                    continue;
+                }
+                for (int role = 0; role < roles.length; role++) {
+                    roles[role].set(i, Boolean.TRUE.equals(roleGrants.get(role).apply(row)));
+                }
+                expired.set(i, Boolean.TRUE.equals(availableExpired.apply(row)));
+            }
+            return new Table(Map.copyOf(index), roles, expired);
+        }
+
+        /**
+         * @return Index of a permission key, -1 when it is not configured
+         */
+        public int indexOf(String key) {
+            Integer i = key == null ? null : index.get(key);
+            return i == null ? -1 : i;
+        }
+
+        public boolean allows(int index, int roleOrdinal) {
+            return roleOrdinal < roles.length && roles[roleOrdinal].get(index);
+        }
+
+        public boolean availableExpired(int index) {
+            return availableExpired.get(index);
+        }
+
+        public int size() {
+            return index.size();
+        }
+    }
+}
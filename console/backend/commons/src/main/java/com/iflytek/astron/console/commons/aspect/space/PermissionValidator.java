@@ -31,6 +31,8 @@ public class PermissionValidator implements ApplicationListener<ContextRefreshed
     private SpacePermissionService spacePermissionService;
     @Autowired
     private ApplicationContext applicationContext;
+    @Autowired
+    private PermissionMatrix permissionMatrix;
 
     private static final boolean isInit = false;
 
@@ -39,6 +41,7 @@ public class PermissionValidator implements ApplicationListener<ContextRefreshed
     public void onApplicationEvent(ContextRefreshedEvent event) {
         validateSpacePermission();
         validateEnterprisePermission();
+        permissionMatrix.reload();
     }
 
     private void validateSpacePermission() {
@@ -5,10 +5,8 @@ import com.iflytek.astron.console.commons.constant.ResponseEnum;
 import com.iflytek.astron.console.commons.response.ApiResult;
 import com.iflytek.astron.console.commons.util.RequestContextUtil;
 import com.iflytek.astron.console.commons.annotation.space.SpacePreAuth;
-import com.iflytek.astron.console.commons.entity.space.SpacePermission;
 import com.iflytek.astron.console.commons.entity.space.SpaceUser;
 import com.iflytek.astron.console.commons.enums.space.SpaceRoleEnum;
-import com.iflytek.astron.console.commons.service.space.EnterpriseSpaceService;
 import com.iflytek.astron.console.commons.util.space.SpaceInfoUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -25,7 +23,10 @@ import org.springframework.stereotype.Component;
 public class SpaceAuthAspect {
 
     @Autowired
-    private EnterpriseSpaceService enterpriseSpaceService;
+    private PermissionMatrix permissionMatrix;
+
+    @Autowired
+    private SpaceAuthCache spaceAuthCache;
 
     @Pointcut("@annotation(com.iflytek.astron.console.commons.annotation.space.SpacePreAuth)")
     public void annotatedMethod() {}
@@ -39,7 +40,7 @@ public class SpaceAuthAspect {
         if (spaceId != null) {
             // 1) Check whether the user is in the current space
             String uid = RequestContextUtil.getUID();
-            SpaceUser spaceUser = enterpriseSpaceService.checkUserBelongSpace(spaceId, uid);
+            SpaceUser spaceUser = spaceAuthCache.getSpaceUser(spaceId, uid);
             if (spaceUser == null) {
                 return response(ResponseEnum.PERMISSION_NOT_BELONG_SPACE, signature);
             }
@@ -50,14 +51,15 @@ public class SpaceAuthAspect {
                 return response(ResponseEnum.PERMISSION_NOT_SUPPORT_SPACE_ROLE, signature);
             }
             // If configured in DB, DB takes precedence; otherwise use annotation settings
-            SpacePermission permission = enterpriseSpaceService.getSpacePermissionByKey(key);
-            if (permission == null) {
+            PermissionMatrix.Table permissions = permissionMatrix.space();
+            int permission = permissions.indexOf(key);
+            if (permission < 0) {
                 return response(ResponseEnum.PERMISSION_NO_SPACE_CONFIG, signature);
             }
-            if (!checkAuth(roleEnum, permission)) {
+            if (!permissions.allows(permission, roleEnum.ordinal())) {
                 return response(ResponseEnum.PERMISSION_DENIED, signature);
             }
-            if (!permission.getAvailableExpired() && enterpriseSpaceService.checkSpaceExpired(spaceId)) {
+            if (!permissions.availableExpired(permission) && spaceAuthCache.isSpaceExpired(spaceId)) {
                 return response(ResponseEnum.PERMISSION_PACKAGE_EXPIRED, signature);
             }
         } else if (annotation.requireSpaceId()) {
@@ -75,18 +77,4 @@ public class SpaceAuthAspect {
         return ApiResult.error(responseEnum);
     }
 
-    private boolean checkAuth(SpaceRoleEnum roleEnum, SpacePermission permission) {
-        switch (roleEnum) {
-            case SpaceRoleEnum.OWNER:
-                return permission.getOwner();
-            case SpaceRoleEnum.ADMIN:
-                return permission.getAdmin();
-            case SpaceRoleEnum.MEMBER:
-                return permission.getMember();
-            default:
-                return false;
-        }
-
-    }
-
 }
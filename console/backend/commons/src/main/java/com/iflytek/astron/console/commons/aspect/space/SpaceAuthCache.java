@@ -0,0 +1,164 @@
+package com.iflytek.astron.console.commons.aspect.space;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.commons.entity.space.EnterpriseUser;
+import com.iflytek.astron.console.commons.entity.space.SpaceUser;
+import com.iflytek.astron.console.commons.event.SpaceMembershipChangedEvent;
+import com.iflytek.astron.console.commons.service.space.EnterpriseSpaceService;
+import com.iflytek.astron.console.commons.service.space.EnterpriseUserService;
+import com.iflytek.astron.console.commons.service.space.SpaceUserService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-local cache of the membership and expiry lookups done by the space and enterprise
+ * authorization aspects.
+ * <p>
+ * Members are cached until they change: {@link SpaceMembershipChangedEvent}s are relayed to every node
+ * over a Redis topic once their transaction commits, and each node drops the affected entries. The TTL
+ * only bounds how long a change made outside the services can go unnoticed. Expiry depends on time and
+ * orders rather than on events, so it is only kept briefly.
+ */
+@Slf4j
+@Component
+public class SpaceAuthCache {
+
+    private static final char SEPARATOR = ':';
+
+    @Autowired
+    private SpaceUserService spaceUserService;
+
+    @Autowired
+    private EnterpriseUserService enterpriseUserService;
+
+    @Autowired
+    private EnterpriseSpaceService enterpriseSpaceService;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Value("${space.auth.cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${space.auth.cache.member-ttl-seconds:300}")
+    private long memberTtlSeconds;
+
+    @Value("${space.auth.cache.expired-ttl-seconds:10}")
+    private long expiredTtlSeconds;
+
+    private Cache<String, Optional<SpaceUser>> spaceUsers;
+    private Cache<String, Optional<EnterpriseUser>> enterpriseUsers;
+    private Cache<Long, Boolean> spaceExpired;
+    private Cache<Long, Boolean> enterpriseExpired;
+
+    private RTopic invalidateTopic;
+    private int invalidateListenerId;
+
+    @PostConstruct
+    public void init() {
+        spaceUsers = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(memberTtlSeconds, TimeUnit.SECONDS).build();
+        enterpriseUsers = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(memberTtlSeconds, TimeUnit.SECONDS).build();
+        spaceExpired = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(expiredTtlSeconds, TimeUnit.SECONDS).build();
+        enterpriseExpired = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(expiredTtlSeconds, TimeUnit.SECONDS).build();
+        try {
+            invalidateTopic = redissonClient.getTopic(RedisKeyConstant.SPACE_AUTH_INVALIDATE_TOPIC);
+            invalidateListenerId = invalidateTopic.addListener(String.class, (channel, msg) -> onInvalidate(msg));
+        } catch (Exception e) {
+            // Other nodes' changes are then only picked up when entries expire
+            log.error("Failed to subscribe to space auth invalidation topic", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (invalidateTopic != null) {
+            invalidateTopic.removeListener(invalidateListenerId);
+        }
+    }
+
+    /**
+     * @return Membership of the user in the space, null if not a member
+     */
+    public SpaceUser getSpaceUser(Long spaceId, String uid) {
+        return load(spaceUsers, spaceId + "_" + uid, () -> Optional.ofNullable(spaceUserService.getSpaceUserByUid(spaceId, uid))).orElse(null);
+    }
+
+    /**
+     * @return Membership of the user in the enterprise team, null if not a member
+     */
+    public EnterpriseUser getEnterpriseUser(Long enterpriseId, String uid) {
+        return load(enterpriseUsers, enterpriseId + "_" + uid, () -> Optional.ofNullable(enterpriseUserService.getEnterpriseUserByUid(enterpriseId, uid))).orElse(null);
+    }
+
+    public boolean isSpaceExpired(Long spaceId) {
+        return load(spaceExpired, spaceId, () -> enterpriseSpaceService.checkSpaceExpired(spaceId));
+    }
+
+    public boolean isEnterpriseExpired(Long enterpriseId) {
+        return load(enterpriseExpired, enterpriseId, () -> enterpriseSpaceService.checkEnterpriseExpired(enterpriseId));
+    }
+
+    /**
+     * Drop the affected entries here and tell the other nodes to do the same
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(SpaceMembershipChangedEvent event) {
+        String message = event.getScope().name() + SEPARATOR + (event.getScopeId() == null ? "" : event.getScopeId())
+                + SEPARATOR + (event.getUid() == null ? "" : event.getUid());
+        onInvalidate(message);
+        if (invalidateTopic == null) {
+            return;
+        }
+        try {
+            invalidateTopic.publish(message);
+        } catch (Exception e) {
+            log.error("Failed to publish space auth invalidation {}", message, e);
+        }
+    }
+
+    /**
+     * Handle {@code scope:scopeId:uid}, an empty scopeId or uid matching every entry
+     */
+    void onInvalidate(String message) {
+        String[] parts = message.split(String.valueOf(SEPARATOR), 3);
+        if (parts.length < 3) {
+            log.warn("Ignoring malformed space auth invalidation {}", message);
+            return;
+        }
+        Cache<String, ?> members = SpaceMembershipChangedEvent.Scope.ENTERPRISE.name().equals(parts[0]) ? enterpriseUsers : spaceUsers;
+        if (parts[1].isEmpty()) {
+            members.invalidateAll();
+        } else if (parts[2].isEmpty()) {
+            String prefix = parts[1] + "_";
+            members.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        } else {
+            members.invalidate(parts[1] + "_" + parts[2]);
+        }
+    }
+
+    private static <K, V> V load(Cache<K, V> cache, K key, Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -7,4 +7,85 @@ public class RedisKeyConstant {
 
     public static final String MAAS_WORKFLOW_EVENT_VALUE_TYPE = "maas_workflow_event_value_type_uid_{}_chatId{}";
     public static final String MAAS_WORKFLOW_EVENT_ID = "maas_workflow_eventId_uid_{}_chatId{}";
+
+    /**
+     * Node that owns a live SSE session, keyed by sseId
+     */
+    public static final String SSE_SESSION_OWNER = "sse_session_owner:{}";
+    /**
+     * Per-node topic receiving stop/cancel/close commands for its own SSE sessions
+     */
+    public static final String SSE_SESSION_COMMAND_TOPIC = "sse_session_cmd:{}";
+    /**
+     * Redis stream of the events sent on a chat stream, keyed by sseId, replayed on reconnect
+     */
+    public static final String SSE_REPLAY_LOG = "sse_replay_log:{}";
+    /**
+     * User a replayable chat stream belongs to, keyed by sseId
+     */
+    public static final String SSE_REPLAY_OWNER = "sse_replay_owner:{}";
+    /**
+     * Rolling context window of a bot chat, keyed by uid, chatId and whether asks carry knowledge
+     */
+    public static final String CHAT_CONTEXT_WINDOW = "chat_context:{}:{}:{}";
+    /**
+     * Topic telling every node to drop locally cached space and enterprise team members
+     */
+    public static final String SPACE_AUTH_INVALIDATE_TOPIC = "space_auth_invalidate";
+    /**
+     * Topic telling every node to drop entries of its local Spring cache tier
+     */
+    public static final String CACHE_INVALIDATE_TOPIC = "cache_invalidate";
+    /**
+     * Cached row count of a user database table, keyed by table id and environment
+     */
+    public static final String DB_TABLE_ROW_COUNT = "db_table_row_count:{}:{}";
+    /**
+     * Version stamp of a workflow's runtime descriptor, bumped whenever the workflow changes
+     */
+    public static final String WORKFLOW_RUNTIME_VERSION = "workflow_runtime_version:{}";
+    /**
+     * Tools of a tool square segment ranked by heat value, keyed by segment
+     */
+    public static final String TOOL_SQUARE_RANK = "tool_square_rank:{}";
+    /**
+     * Segments of the tool square currently held in the ranked index
+     */
+    public static final String TOOL_SQUARE_RANK_SEGMENTS = "tool_square_rank_segments";
+    /**
+     * Canvas sessions editing a workflow scored by their last heartbeat, keyed by flowId
+     */
+    public static final String FLOW_CANVAS_PRESENCE = "spark_bot:workflow:canvas_presence:{}";
+    /**
+     * Workflows with open canvas sessions scored by their oldest heartbeat
+     */
+    public static final String FLOW_CANVAS_ACTIVE_FLOWS = "spark_bot:workflow:canvas_active_flows";
+    /**
+     * Topic telling every node the new number of canvas sessions of workflows whose editors changed
+     */
+    public static final String FLOW_CANVAS_PRESENCE_TOPIC = "spark_bot:workflow:canvas_presence_changed";
+    /**
+     * Personal unread and total notification counts and read broadcasts of a user, keyed by uid
+     */
+    public static final String NOTIFICATION_COUNTER = "notification_counter:{}";
+    /**
+     * Marks a user whose counts changed while not loaded, so that a racing load is not cached
+     */
+    public static final String NOTIFICATION_COUNTER_STALE = "notification_counter_stale:{}";
+    /**
+     * Live broadcast notifications scored by creation time
+     */
+    public static final String NOTIFICATION_BROADCASTS = "notification_broadcasts";
+    /**
+     * Bumped whenever broadcasts leave {@link #NOTIFICATION_BROADCASTS}, so read broadcasts are recounted
+     */
+    public static final String NOTIFICATION_BROADCAST_GENERATION = "notification_broadcast_generation";
+    /**
+     * Personal notifications that expire, scored by expiry time
+     */
+    public static final String NOTIFICATION_EXPIRY = "notification_expiry";
+    /**
+     * Topic carrying new notifications and count changes to the nodes holding the users' push channels
+     */
+    public static final String NOTIFICATION_PUSH_TOPIC = "notification_push";
 }
@@ -3,6 +3,7 @@ package com.iflytek.astron.console.commons.entity.workflow;
 import com.baomidou.mybatisplus.annotation.IdType;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.util.Date;
@@ -47,4 +48,10 @@ public class Workflow {
 
     Long spaceId;
     Integer type;
+
+    /**
+     * List summary derived from data (ioInversion, hasQaNode), kept so lists never parse data
+     */
+    @JsonIgnore
+    String dataSummary;
 }
@@ -0,0 +1,34 @@
+package com.iflytek.astron.console.commons.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when the members or member roles of a space or enterprise team change
+ */
+@Getter
+public class SpaceMembershipChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Scope {
+        SPACE, ENTERPRISE
+    }
+
+    private final Scope scope;
+    /**
+     * Space or enterprise team ID, null when unknown
+     */
+    private final Long scopeId;
+    /**
+     * Affected user, null when the whole space or team changed
+     */
+    private final String uid;
+
+    public SpaceMembershipChangedEvent(Object source, Scope scope, Long scopeId, String uid) {
+        super(source);
+        this.scope = scope;
+        this.scopeId = scopeId;
+        this.uid = uid;
+    }
+}
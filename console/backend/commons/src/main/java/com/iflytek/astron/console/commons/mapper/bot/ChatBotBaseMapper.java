@@ -6,12 +6,21 @@ import com.iflytek.astron.console.commons.entity.bot.ChatBotBase;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
 public interface ChatBotBaseMapper extends BaseMapper<ChatBotBase> {
     BotDetail botDetail(Integer botId);
 
+    /**
+     * Batch query the name, description, avatar and market status of agents
+     *
+     * @param botIds Agent IDs
+     * @return Agent summaries, only id, botName, botDesc, avatar and botStatus are filled
+     */
+    List<BotDetail> botSummaries(@Param("botIds") Collection<Integer> botIds);
+
     List<ChatBotBase> selectByBotIds(@Param("botIds") List<Long> botIds);
 
     /**
@@ -3,6 +3,7 @@ package com.iflytek.astron.console.commons.service;
 import lombok.Getter;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -15,6 +16,12 @@ public class WssListenerService {
     @Autowired
     private RedissonClient redissonClient;
 
+    /**
+     * Minimum time between partial saves of a streamed answer, 0 to save it only at the end
+     */
+    @Value("${chat.stream.checkpoint-interval-ms:3000}")
+    private long checkpointIntervalMs;
+
     public ChatRecordModelService getChatRecordModelService() {
         return chatRecordModelService;
     }
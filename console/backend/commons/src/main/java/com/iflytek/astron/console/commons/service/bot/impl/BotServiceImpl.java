@@ -30,6 +30,8 @@ import com.iflytek.astron.console.commons.util.BotFileParamUtil;
 import com.iflytek.astron.console.commons.util.I18nUtil;
 import com.iflytek.astron.console.commons.util.MaasUtil;
 import com.iflytek.astron.console.commons.util.RequestContextUtil;
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -42,7 +44,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -109,14 +110,6 @@ public class BotServiceImpl implements BotService {
 
     public static final String BOT_INPUT_EXAMPLE_SPLIT = "%%split%%";
 
-    private final OkHttpClient httpClient = new OkHttpClient.Builder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .readTimeout(Duration.ofSeconds(30))
-            .writeTimeout(Duration.ofSeconds(30))
-            .connectionPool(new ConnectionPool(20, 5, java.util.concurrent.TimeUnit.MINUTES))
-            .retryOnConnectionFailure(true)
-            .build();
-
     @Override
     public List<BotTypeList> getBotTypeList() {
         List<BotTypeList> typeList = botTypeListService.getBotTypeList();
@@ -716,7 +709,7 @@ public class BotServiceImpl implements BotService {
                 .build();
 
         String response = null;
-        try (Response okResponse = httpClient.newCall(request).execute()) {
+        try (Response okResponse = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(request).execute()) {
             if (!okResponse.isSuccessful()) {
                 log.error("HTTP request failed: {}", okResponse.code());
                 return null;
@@ -751,7 +744,7 @@ public class BotServiceImpl implements BotService {
                 .get()
                 .build();
 
-        try (Response okResponse = httpClient.newCall(request).execute()) {
+        try (Response okResponse = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(request).execute()) {
             if (!okResponse.isSuccessful()) {
                 log.error("Workflow API request failed: {}, URL: {}", okResponse.code(), url);
                 return new JSONObject();
@@ -21,6 +21,9 @@ public interface ChatDataService {
     /** Create request record */
     ChatReqRecords createRequest(ChatReqRecords chatReqRecords);
 
+    /** Delete a request record that never got an answer */
+    void deleteRequest(Long id);
+
     /** Query response records by request ID */
     List<ChatRespRecords> findResponsesByReqId(Long reqId);
 
@@ -16,4 +16,6 @@ public interface EnterprisePermissionService {
 
     void insertBatch(List<EnterprisePermission> enterprisePermissions);
 
+    List<EnterprisePermission> listAll();
+
 }
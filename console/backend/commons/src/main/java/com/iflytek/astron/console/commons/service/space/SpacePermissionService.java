@@ -16,4 +16,6 @@ public interface SpacePermissionService {
 
     void insertBatch(List<SpacePermission> spacePermissions);
 
+    List<SpacePermission> listAll();
+
 }
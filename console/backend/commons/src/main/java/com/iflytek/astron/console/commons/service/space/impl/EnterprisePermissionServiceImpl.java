@@ -33,4 +33,9 @@ public class EnterprisePermissionServiceImpl extends ServiceImpl<EnterprisePermi
     public void insertBatch(List<EnterprisePermission> enterprisePermissions) {
         this.saveBatch(enterprisePermissions);
     }
+
+    @Override
+    public List<EnterprisePermission> listAll() {
+        return this.list();
+    }
 }
@@ -7,12 +7,14 @@ import com.iflytek.astron.console.commons.data.UserInfoDataService;
 import com.iflytek.astron.console.commons.dto.space.EnterpriseUserParam;
 import com.iflytek.astron.console.commons.entity.space.EnterpriseUser;
 import com.iflytek.astron.console.commons.entity.user.UserInfo;
+import com.iflytek.astron.console.commons.event.SpaceMembershipChangedEvent;
 import com.iflytek.astron.console.commons.enums.space.EnterpriseRoleEnum;
 import com.iflytek.astron.console.commons.mapper.space.EnterpriseUserMapper;
 import com.iflytek.astron.console.commons.service.space.EnterpriseUserService;
 import com.iflytek.astron.console.commons.util.space.EnterpriseInfoUtil;
 import com.iflytek.astron.console.commons.dto.space.EnterpriseUserVO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +27,8 @@ import java.util.List;
 public class EnterpriseUserServiceImpl extends ServiceImpl<EnterpriseUserMapper, EnterpriseUser> implements EnterpriseUserService {
     @Autowired
     private UserInfoDataService userInfoDataService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
     public EnterpriseUser getEnterpriseUserByUid(Long enterpriseId, String uid) {
@@ -52,12 +56,14 @@ public class EnterpriseUserServiceImpl extends ServiceImpl<EnterpriseUserMapper,
             return true;
         }
         UserInfo userInfo = userInfoDataService.findByUid(uid).orElseThrow();
-        return this.save(EnterpriseUser.builder()
+        boolean saved = this.save(EnterpriseUser.builder()
                 .enterpriseId(enterpriseId)
                 .uid(uid)
                 .nickname(userInfo.getNickname())
                 .role(roleEnum.getCode())
                 .build());
+        publishChanged(enterpriseId, uid);
+        return saved;
     }
 
     @Override
@@ -93,11 +99,23 @@ public class EnterpriseUserServiceImpl extends ServiceImpl<EnterpriseUserMapper,
 
     @Override
     public boolean removeById(EnterpriseUser entity) {
-        return super.removeById(entity);
+        boolean removed = super.removeById(entity);
+        if (removed) {
+            publishChanged(entity.getEnterpriseId(), entity.getUid());
+        }
+        return removed;
     }
 
     @Override
     public boolean updateById(EnterpriseUser entity) {
-        return super.updateById(entity);
+        boolean updated = super.updateById(entity);
+        if (updated) {
+            publishChanged(entity.getEnterpriseId(), entity.getUid());
+        }
+        return updated;
+    }
+
+    private void publishChanged(Long enterpriseId, String uid) {
+        eventPublisher.publishEvent(new SpaceMembershipChangedEvent(this, SpaceMembershipChangedEvent.Scope.ENTERPRISE, enterpriseId, uid));
     }
 }
@@ -32,4 +32,9 @@ public class SpacePermissionServiceImpl extends ServiceImpl<SpacePermissionMappe
     public void insertBatch(List<SpacePermission> spacePermissions) {
         this.saveBatch(spacePermissions);
     }
+
+    @Override
+    public List<SpacePermission> listAll() {
+        return this.list();
+    }
 }
@@ -9,6 +9,7 @@ import com.iflytek.astron.console.commons.data.UserInfoDataService;
 import com.iflytek.astron.console.commons.entity.space.Space;
 import com.iflytek.astron.console.commons.entity.space.SpaceUser;
 import com.iflytek.astron.console.commons.entity.user.UserInfo;
+import com.iflytek.astron.console.commons.event.SpaceMembershipChangedEvent;
 import com.iflytek.astron.console.commons.mapper.space.SpaceMapper;
 import com.iflytek.astron.console.commons.util.RequestContextUtil;
 import com.iflytek.astron.console.commons.enums.space.SpaceRoleEnum;
@@ -22,6 +23,7 @@ import com.iflytek.astron.console.commons.dto.space.EnterpriseSpaceCountVO;
 import com.iflytek.astron.console.commons.dto.space.SpaceVO;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -47,6 +49,8 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space> implements
     private RedissonClient redissonClient;
     @Autowired
     private EnterpriseService enterpriseService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<SpaceVO> recentVisitList() {
@@ -249,7 +253,10 @@ public class SpaceServiceImpl extends ServiceImpl<SpaceMapper, Space> implements
 
     @Override
     public boolean removeById(Long id) {
-        return super.removeById(id);
+        boolean removed = super.removeById(id);
+        // Members of a deleted space no longer belong to it
+        eventPublisher.publishEvent(new SpaceMembershipChangedEvent(this, SpaceMembershipChangedEvent.Scope.SPACE, id, null));
+        return removed;
     }
 
     @Override
@@ -7,6 +7,7 @@ import com.iflytek.astron.console.commons.data.UserInfoDataService;
 import com.iflytek.astron.console.commons.dto.space.SpaceUserParam;
 import com.iflytek.astron.console.commons.entity.space.SpaceUser;
 import com.iflytek.astron.console.commons.entity.user.UserInfo;
+import com.iflytek.astron.console.commons.event.SpaceMembershipChangedEvent;
 import com.iflytek.astron.console.commons.enums.space.SpaceRoleEnum;
 import com.iflytek.astron.console.commons.enums.space.SpaceTypeEnum;
 import com.iflytek.astron.console.commons.mapper.space.SpaceUserMapper;
@@ -14,6 +15,7 @@ import com.iflytek.astron.console.commons.service.space.SpaceUserService;
 import com.iflytek.astron.console.commons.util.space.SpaceInfoUtil;
 import com.iflytek.astron.console.commons.dto.space.SpaceUserVO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +32,9 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
     @Autowired
     private UserInfoDataService userInfoDataService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     @Transactional
     public boolean addSpaceUser(Long spaceId, String uid, SpaceRoleEnum roleEnum) {
@@ -88,9 +93,11 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
 
     @Override
     public boolean removeByUid(Collection<Long> spaceIds, String uid) {
-        return this.remove(Wrappers.<SpaceUser>lambdaUpdate()
+        boolean removed = this.remove(Wrappers.<SpaceUser>lambdaUpdate()
                 .eq(SpaceUser::getUid, uid)
                 .in(SpaceUser::getSpaceId, spaceIds));
+        spaceIds.forEach(spaceId -> publishChanged(spaceId, uid));
+        return removed;
     }
 
     @Override
@@ -137,22 +144,30 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
 
     @Override
     public boolean save(SpaceUser entity) {
-        return super.save(entity);
+        boolean saved = super.save(entity);
+        publishChanged(entity.getSpaceId(), entity.getUid());
+        return saved;
     }
 
     @Override
     public boolean updateById(SpaceUser entity) {
-        return super.updateById(entity);
+        boolean updated = super.updateById(entity);
+        publishChanged(entity.getSpaceId(), entity.getUid());
+        return updated;
     }
 
     @Override
     public boolean updateBatchById(Collection<SpaceUser> entityList) {
-        return super.updateBatchById(entityList);
+        boolean updated = super.updateBatchById(entityList);
+        entityList.forEach(entity -> publishChanged(entity.getSpaceId(), entity.getUid()));
+        return updated;
     }
 
     @Override
     public boolean removeById(SpaceUser spaceUser) {
-        return super.removeById(spaceUser);
+        boolean removed = super.removeById(spaceUser);
+        publishChanged(spaceUser.getSpaceId(), spaceUser.getUid());
+        return removed;
     }
 
     /**
@@ -170,4 +185,8 @@ public class SpaceUserServiceImpl extends ServiceImpl<SpaceUserMapper, SpaceUser
         }
         return SpaceRoleEnum.getByCode(spaceUser.getRole());
     }
+
+    private void publishChanged(Long spaceId, String uid) {
+        eventPublisher.publishEvent(new SpaceMembershipChangedEvent(this, SpaceMembershipChangedEvent.Scope.SPACE, spaceId, uid));
+    }
 }
@@ -21,6 +21,8 @@ import com.iflytek.astron.console.commons.mapper.bot.ChatBotBaseMapper;
 import com.iflytek.astron.console.commons.service.bot.ChatBotTagService;
 import com.iflytek.astron.console.commons.service.data.UserLangChainDataService;
 import com.iflytek.astron.console.commons.service.workflow.impl.WorkflowBotParamServiceImpl;
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import com.iflytek.astron.console.commons.util.space.SpaceInfoUtil;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.Cookie;
@@ -43,13 +45,6 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 public class MaasUtil {
-    private static final OkHttpClient HTTP_CLIENT = new OkHttpClient.Builder()
-            .connectTimeout(Duration.ofSeconds(10))
-            .readTimeout(Duration.ofSeconds(30))
-            .writeTimeout(Duration.ofSeconds(30))
-            .retryOnConnectionFailure(true)
-            .build();
-
     @Resource
     private ChatBotBaseMapper chatBotBaseMapper;
 
@@ -101,8 +96,6 @@ public class MaasUtil {
     private static final String X_AUTH_SOURCE_HEADER = "x-auth-source";
     private static final String X_AUTH_SOURCE_VALUE = "xfyun";
 
-    private final OkHttpClient client = new OkHttpClient();
-
     public static final List<String> NO_SUPPORT_TYPE = ListUtil.of("string", "integer", "boolean", "number",
             "object", "array-string", "array-integer",
             "array-boolean", "array-number", "array-object");
@@ -147,7 +140,7 @@ public class MaasUtil {
                 .build();
 
         String response;
-        try (Response httpResponse = HTTP_CLIENT.newCall(deleteRequest).execute()) {
+        try (Response httpResponse = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(deleteRequest).execute()) {
             ResponseBody responseBody = httpResponse.body();
             if (responseBody != null) {
                 response = responseBody.string();
@@ -220,7 +213,7 @@ public class MaasUtil {
         Request synchronizeRequest = requestBuilder.build();
 
         String response;
-        try (Response httpResponse = HTTP_CLIENT.newCall(synchronizeRequest).execute()) {
+        try (Response httpResponse = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(synchronizeRequest).execute()) {
             ResponseBody responseBody = httpResponse.body();
             if (responseBody != null) {
                 response = responseBody.string();
@@ -432,7 +425,7 @@ public class MaasUtil {
                 .addHeader(X_AUTH_SOURCE_HEADER, X_AUTH_SOURCE_VALUE)
                 .build();
         log.info("MaasUtil executeRequest url: {} request: {}, header: {}", request.url(), request, request.headers());
-        try (Response httpResponse = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response httpResponse = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(request).execute()) {
             ResponseBody responseBody = httpResponse.body();
             if (responseBody != null) {
                 return responseBody.string();
@@ -484,7 +477,7 @@ public class MaasUtil {
                 .get()
                 .build();
         String responseBody;
-        try (Response response = client.newCall(httpRequest).execute()) {
+        try (Response response = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(httpRequest).execute()) {
             if (!response.isSuccessful()) {
                 // Handle request failure
                 throw new IOException("Unexpected code " + response);
@@ -525,7 +518,7 @@ public class MaasUtil {
                 .build();
 
         String response;
-        try (Response httpResponse = HTTP_CLIENT.newCall(getInputsRequest).execute()) {
+        try (Response httpResponse = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(getInputsRequest).execute()) {
             ResponseBody responseBody = httpResponse.body();
             if (responseBody != null) {
                 response = responseBody.string();
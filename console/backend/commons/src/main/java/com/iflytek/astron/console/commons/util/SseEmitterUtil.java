@@ -1,6 +1,5 @@
 package com.iflytek.astron.console.commons.util;
 
-import cn.hutool.core.thread.ThreadUtil;
 import com.alibaba.fastjson2.JSON;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -42,43 +41,66 @@ public class SseEmitterUtil {
 
     public static final Map<String, EventSource> EVENTSOURCE_MAP = new ConcurrentHashMap<>(256);
 
+    /**
+     * Cluster registry recording node ownership of sessions, bound once the Spring context is up
+     */
+    private static volatile SseSessionRegistry sessionRegistry;
+
+    static void bindSessionRegistry(SseSessionRegistry registry) {
+        sessionRegistry = registry;
+    }
+
     public static SseEmitter get(String sseId) {
         return SESSION_MAP.get(sseId);
     }
 
+    /**
+     * Number of emitters currently held by this node
+     */
+    public static int sessionCount() {
+        return SESSION_MAP.size();
+    }
+
+    /**
+     * Number of upstream event sources currently held by this node
+     */
+    public static int eventSourceCount() {
+        return EVENTSOURCE_MAP.size();
+    }
+
     public static boolean exist(String sseId) {
         return get(sseId) != null;
     }
 
     /**
-     * SSE response
+     * SSE response, character by character. Pacing is handed to {@link TypewriterPacer}, so the
+     * calling thread returns immediately.
      */
     public static void sendMsgLikeTypeWriter(String content, String sseId, Long interval) {
-        try {
-            // String contains no English letters, output character by character
-            for (int j = 0; j < content.length(); j++) {
-                // Send character by character through SSE
-                SseEmitterUtil.sendMessage(sseId, Base64Util.encode(String.valueOf(content.charAt(j))));
-                char codePoint = content.charAt(j);
-                if ((codePoint >= 65 && codePoint <= 90)
-                        || (codePoint >= 97 && codePoint <= 122)) {
-                    ThreadUtil.sleep(1);
-                } else {
-                    if (interval > 0) {
-                        ThreadUtil.sleep(interval);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // Close WS
-            if (e instanceof IllegalStateException) {
-                log.error("Expired send content, SSE already closed");
-            } else {
-                log.error("SSE send exception", e);
-            }
+        if (content == null) {
+            return;
+        }
+        long pause = interval == null ? 0L : interval;
+        for (int j = 0; j < content.length(); j++) {
+            char ch = content.charAt(j);
+            TypewriterPacer.send(sseId, Base64Util.encode(String.valueOf(ch)), typewriterPause(ch, pause));
         }
     }
 
+    /**
+     * Pause after a typewriter character: English letters are typed faster than other characters
+     *
+     * @param ch Character just sent
+     * @param interval Pause for non-letter characters in milliseconds
+     * @return Pause in milliseconds
+     */
+    public static long typewriterPause(char ch, long interval) {
+        if ((ch >= 'A' && ch <= 'Z') || (ch >= 'a' && ch <= 'z')) {
+            return 1L;
+        }
+        return Math.max(interval, 0L);
+    }
+
     /**
      * Create user connection and return SseEmitter
      *
@@ -91,6 +113,7 @@ public class SseEmitterUtil {
         sseEmitter.onError(errorCallBack(sseId));
         sseEmitter.onTimeout(timeoutCallBack(sseId));
         SESSION_MAP.put(sseId, sseEmitter);
+        registerSession(sseId);
         return sseEmitter;
     }
 
@@ -108,6 +131,7 @@ public class SseEmitterUtil {
         sseEmitter.onError(errorCallBack(sseId));
         sseEmitter.onTimeout(timeoutCallBack(sseId));
         SESSION_MAP.put(sseId, sseEmitter);
+        registerSession(sseId);
         return sseEmitter;
     }
 
@@ -139,7 +163,7 @@ public class SseEmitterUtil {
             if (sseEmitter != null) {
                 // Close SSE
                 sseEmitter.complete();
-                SESSION_MAP.remove(sseId);
+                removeSession(sseId);
             }
         } catch (IllegalStateException e) {
             log.info("SSE already closed: {}", e.getMessage());
@@ -158,7 +182,7 @@ public class SseEmitterUtil {
             if (sseEmitter != null) {
                 // Close SSE
                 sseEmitter.completeWithError(t);
-                SESSION_MAP.remove(sseId);
+                removeSession(sseId);
             }
         } catch (IllegalStateException e) {
             log.info("SSE already closed: {}", e.getMessage());
@@ -175,15 +199,39 @@ public class SseEmitterUtil {
         return () -> {
             log.info("SSE[{}] completionCallBack", sseId);
             close(sseId);
-
-            EventSource eventSource = EVENTSOURCE_MAP.get(sseId);
-            if (eventSource != null) {
-                eventSource.cancel();
-                EVENTSOURCE_MAP.remove(sseId);
-            }
+            cancel(sseId);
         };
     }
 
+    /**
+     * Cancel the upstream event source feeding a session
+     *
+     * @param sseId SSE connection ID
+     */
+    public static void cancel(String sseId) {
+        EventSource eventSource = EVENTSOURCE_MAP.remove(sseId);
+        if (eventSource != null) {
+            eventSource.cancel();
+        }
+    }
+
+    private static void registerSession(String sseId) {
+        SseSessionRegistry registry = sessionRegistry;
+        if (registry != null) {
+            registry.register(sseId, SseSessionRegistry.StreamType.TOOLKIT);
+        }
+    }
+
+    private static void removeSession(String sseId) {
+        SESSION_MAP.remove(sseId);
+        // Typewriter output still queued has nobody left to go to
+        TypewriterPacer.discard(sseId);
+        SseSessionRegistry registry = sessionRegistry;
+        if (registry != null) {
+            registry.unregister(sseId);
+        }
+    }
+
     /**
      * Generate a timeout callback function
      *
@@ -244,7 +292,7 @@ public class SseEmitterUtil {
                 } catch (Exception ex) {
                     log.warn("SSE[{}] completeWithError exception: {}", sseId, ex.getMessage(), ex);
                 }
-                SESSION_MAP.remove(sseId);
+                removeSession(sseId);
             }
         } else {
             log.warn("SSE[{}] does not exist, cannot send error message", sseId);
@@ -282,6 +330,7 @@ public class SseEmitterUtil {
     public static void stopStream(String streamId) {
         if (streamId != null) {
             streamStopSignalSet.put(streamId, true);
+            TypewriterPacer.discard(streamId);
             log.debug("Stream stop signal set for streamId: {}", streamId);
         }
     }
@@ -0,0 +1,233 @@
+package com.iflytek.astron.console.commons.util;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONReader;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * The few fields a streaming relay needs from one upstream LLM or workflow frame, read in a single
+ * pass over the frame text without building a JSON tree.
+ * <p>
+ * Only top-level {@code id}, {@code sid}, {@code code}, {@code message} and {@code error.message},
+ * the delta and finish reason of the first choice, whether any choice carries tool calls, and the id
+ * and finish reason of {@code workflow_step.node} are kept; everything else is skipped. The frame
+ * text itself is kept as received, so it can be forwarded with {@link SseFrameRelay#forward} as is.
+ * Relays that have to change a frame, or need more of it, fall back to {@link #toJSONObject()}.
+ */
+@Getter
+public final class SseFrame {
+
+    /** Frame text as received */
+    private final String data;
+
+    private String id;
+    private String sid;
+    private Integer code;
+    private String message;
+    @Getter(AccessLevel.NONE)
+    private boolean error;
+    private String errorMessage;
+    @Getter(AccessLevel.NONE)
+    private boolean choices;
+    /** {@code choices[0].delta.content} */
+    private String content;
+    /** {@code choices[0].delta.reasoning_content} */
+    private String reasoningContent;
+    /** {@code choices[0].finish_reason} */
+    private String finishReason;
+    @Getter(AccessLevel.NONE)
+    private boolean toolCalls;
+    /** {@code workflow_step.node.id} */
+    private String nodeId;
+    /** {@code workflow_step.node.finish_reason} */
+    private String nodeFinishReason;
+
+    @Getter(AccessLevel.NONE)
+    private JSONObject parsed;
+
+    private SseFrame(String data) {
+        this.data = data;
+    }
+
+    /**
+     * Read the relayed fields of a frame
+     *
+     * @param data frame text, a JSON object
+     * @return fields of the frame
+     * @throws JSONException when the frame is not a JSON object
+     */
+    public static SseFrame scan(String data) {
+        SseFrame frame = new SseFrame(data);
+        try (JSONReader reader = JSONReader.of(data)) {
+            if (!reader.nextIfObjectStart()) {
+                throw new JSONException("SSE frame is not a JSON object");
+            }
+            while (!reader.nextIfObjectEnd()) {
+                String name = reader.readFieldName();
+                if (name == null) {
+                    throw new JSONException(reader.info("illegal SSE frame"));
+                }
+                switch (name) {
+                    case "id" -> frame.id = readText(reader);
+                    case "sid" -> frame.sid = readText(reader);
+                    case "code" -> frame.code = reader.readInt32();
+                    case "message" -> frame.message = readText(reader);
+                    case "error" -> frame.readError(reader);
+                    case "choices" -> frame.readChoices(reader);
+                    case "workflow_step" -> frame.readWorkflowStep(reader);
+                    default -> reader.skipValue();
+                }
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * Whether the frame has an {@code error} object
+     */
+    public boolean hasError() {
+        return error;
+    }
+
+    /**
+     * Whether {@code choices} has at least one element
+     */
+    public boolean hasChoices() {
+        return choices;
+    }
+
+    /**
+     * Whether the delta of any choice has {@code tool_calls}
+     */
+    public boolean hasToolCalls() {
+        return toolCalls;
+    }
+
+    /**
+     * The whole frame as a JSON object, parsed on first call; changes to it are not seen by
+     * {@link #getData()}
+     */
+    public JSONObject toJSONObject() {
+        if (parsed == null) {
+            parsed = JSON.parseObject(data);
+        }
+        return parsed;
+    }
+
+    private void readError(JSONReader reader) {
+        if (!enterObject(reader)) {
+            return;
+        }
+        error = true;
+        while (!reader.nextIfObjectEnd()) {
+            if ("message".equals(reader.readFieldName())) {
+                errorMessage = readText(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+    }
+
+    private void readChoices(JSONReader reader) {
+        if (reader.nextIfNull()) {
+            return;
+        }
+        if (!reader.nextIfArrayStart()) {
+            reader.skipValue();
+            return;
+        }
+        int index = 0;
+        while (!reader.nextIfArrayEnd()) {
+            choices = true;
+            readChoice(reader, index++ == 0);
+        }
+    }
+
+    private void readChoice(JSONReader reader, boolean first) {
+        if (!enterObject(reader)) {
+            return;
+        }
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            if ("delta".equals(name)) {
+                readDelta(reader, first);
+            } else if (first && "finish_reason".equals(name)) {
+                finishReason = readText(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+    }
+
+    private void readDelta(JSONReader reader, boolean first) {
+        if (!enterObject(reader)) {
+            return;
+        }
+        while (!reader.nextIfObjectEnd()) {
+            String name = reader.readFieldName();
+            if (first && "content".equals(name)) {
+                content = readText(reader);
+            } else if (first && "reasoning_content".equals(name)) {
+                reasoningContent = readText(reader);
+            } else if ("tool_calls".equals(name)) {
+                if (!reader.nextIfNull()) {
+                    toolCalls = true;
+                    reader.skipValue();
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+    }
+
+    private void readWorkflowStep(JSONReader reader) {
+        if (!enterObject(reader)) {
+            return;
+        }
+        while (!reader.nextIfObjectEnd()) {
+            if (!"node".equals(reader.readFieldName())) {
+                reader.skipValue();
+                continue;
+            }
+            if (!enterObject(reader)) {
+                continue;
+            }
+            while (!reader.nextIfObjectEnd()) {
+                String name = reader.readFieldName();
+                if ("id".equals(name)) {
+                    nodeId = readText(reader);
+                } else if ("finish_reason".equals(name)) {
+                    nodeFinishReason = readText(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Step into an object value; any other value is consumed and false returned
+     */
+    private static boolean enterObject(JSONReader reader) {
+        if (reader.nextIfObjectStart()) {
+            return true;
+        }
+        if (!reader.nextIfNull()) {
+            reader.skipValue();
+        }
+        return false;
+    }
+
+    /**
+     * A value as {@link JSONObject#getString} would return it
+     */
+    private static String readText(JSONReader reader) {
+        if (reader.isObject() || reader.isArray()) {
+            return JSON.toJSONString(reader.readAny());
+        }
+        return reader.readString();
+    }
+}
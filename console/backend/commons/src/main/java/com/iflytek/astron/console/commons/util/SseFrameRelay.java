@@ -0,0 +1,141 @@
+package com.iflytek.astron.console.commons.util;
+
+import com.alibaba.fastjson2.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Forwarding of upstream stream frames to the client, shared by the chat and workflow relays.
+ * <p>
+ * Frames are sent as the text received from upstream, so a frame the relay does not change is never
+ * parsed into a JSON tree and serialized again; the fields the relay itself needs are read with
+ * {@link SseFrame#scan}. On streams opened in the {@link StreamReplayLog}, every event is appended to
+ * the log before it is sent and carries its log ID as SSE event id.
+ */
+@Slf4j
+public final class SseFrameRelay {
+
+    /**
+     * Replay log of chat streams, bound once the Spring context is up
+     */
+    private static volatile StreamReplayLog replayLog;
+
+    private SseFrameRelay() {}
+
+    static void bindReplayLog(StreamReplayLog log) {
+        replayLog = log;
+    }
+
+    /**
+     * Try to send a frame as a {@code data} event, detecting whether the client is still connected
+     *
+     * @param emitter SseEmitter object
+     * @param data Frame text to send
+     * @param streamId Stream identifier
+     * @return true if client is still connected, false if client has disconnected
+     */
+    public static boolean forward(SseEmitter emitter, String data, String streamId) {
+        try {
+            send(emitter, "data", data, streamId);
+            return emitter != null;
+        } catch (AsyncRequestNotUsableException e) {
+            log.warn("Client connection disconnected, streamId: {}, continue background data processing", streamId);
+            return false;
+        } catch (IOException e) {
+            log.error("Failed to send SSE data, streamId: {}, error: {}", streamId, e.getMessage());
+            return false;
+        } catch (IllegalStateException e) {
+            log.debug("SseEmitter completed, streamId: {}", streamId);
+            return false;
+        } catch (Exception e) {
+            log.error("Unexpected error occurred while sending SSE data, streamId: {}", streamId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Send an event, appending it to the replay log of the stream first, so it is kept even when the
+     * client has gone
+     *
+     * @param emitter SseEmitter object, may be null
+     * @param name Event name
+     * @param data Event data
+     * @param streamId Stream identifier
+     * @throws IOException when sending fails
+     */
+    public static void send(SseEmitter emitter, String name, String data, String streamId) throws IOException {
+        StreamReplayLog current = replayLog;
+        String eventId = current == null ? null : current.append(streamId, name, data);
+        if (emitter == null) {
+            log.warn("SseEmitter is null, cannot send {}, streamId: {}", name, streamId);
+            return;
+        }
+        SseEmitter.SseEventBuilder event = SseEmitter.event().name(name).data(data);
+        if (eventId != null) {
+            event.id(eventId);
+        }
+        emitter.send(event);
+    }
+
+    /**
+     * End a stream on an error. The error is sent as {@link SseEmitterUtil#completeWithError} sends it,
+     * followed by the end event, and both are appended to the replay log, so a client replaying the
+     * stream learns why it ended instead of waiting for more events.
+     *
+     * @param emitter SseEmitter object, may be null
+     * @param errorMessage Error message, may be null
+     * @param streamId Stream identifier
+     */
+    public static void completeWithError(SseEmitter emitter, String errorMessage, String streamId) {
+        // Each event is logged before it is sent, so both are logged even when the client has gone
+        sendError(emitter, errorMessage, streamId);
+        sendQuietly(emitter, StreamReplayLog.END_EVENT, "{\"end\":true,\"timestamp\":" + System.currentTimeMillis() + "}", streamId);
+        try {
+            if (emitter != null) {
+                emitter.complete();
+            }
+        } catch (Exception e) {
+            log.debug("SseEmitter completed, streamId: {}", streamId);
+        }
+        finish(streamId);
+    }
+
+    /**
+     * Send an error event and append it to the replay log, leaving the stream open for the caller to end
+     *
+     * @param emitter SseEmitter object, may be null
+     * @param errorMessage Error message, may be null
+     * @param streamId Stream identifier
+     */
+    public static void sendError(SseEmitter emitter, String errorMessage, String streamId) {
+        Map<String, Object> errorData = Map.of(
+                "error", true,
+                "message", errorMessage != null ? errorMessage : "Unknown error",
+                "timestamp", System.currentTimeMillis());
+        sendQuietly(emitter, "error", JSON.toJSONString(errorData), streamId);
+    }
+
+    private static void sendQuietly(SseEmitter emitter, String name, String data, String streamId) {
+        try {
+            send(emitter, name, data, streamId);
+        } catch (Exception e) {
+            log.debug("Failed to send {} to client, streamId: {}, error: {}", name, streamId, e.getMessage());
+        }
+    }
+
+    /**
+     * Stop logging a stream once its last event has been sent
+     *
+     * @param streamId Stream identifier
+     */
+    public static void finish(String streamId) {
+        StreamReplayLog current = replayLog;
+        if (current != null) {
+            current.close(streamId);
+        }
+    }
+}
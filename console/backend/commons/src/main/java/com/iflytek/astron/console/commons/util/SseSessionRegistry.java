@@ -0,0 +1,280 @@
+package com.iflytek.astron.console.commons.util;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster-wide registry of live SSE sessions.
+ * <p>
+ * Every session records the node that owns its emitter and upstream source in Redis, so that
+ * stop/cancel/close requests arriving on any replica are routed to the owning node only, via that
+ * node's command topic, instead of being broadcast to every node.
+ */
+@Slf4j
+@Component
+public class SseSessionRegistry {
+
+    /**
+     * Legacy broadcast channel for hub stop signals, still consumed for mixed-version rollouts
+     */
+    public static final String STOP_GENERATE_SUBSCRIBE_PUBLISH_CHANNEL = "stop_generate_sub_pub";
+
+    /**
+     * Upper bound of an owner record; sessions are unregistered explicitly long before this
+     */
+    private static final Duration OWNER_TTL = Duration.ofMinutes(40);
+
+    private static final char COMMAND_SEPARATOR = ':';
+
+    /**
+     * Stream categories tracked by the registry
+     */
+    public enum StreamType {
+        HUB_CHAT, HUB_WORKFLOW, TOOLKIT
+    }
+
+    /**
+     * Commands that can be routed to the owner of a session
+     */
+    public enum Command {
+        /**
+         * Raise the stop signal checked by stream readers
+         */
+        STOP,
+        /**
+         * Cancel the upstream event source
+         */
+        CANCEL,
+        /**
+         * Stop, cancel upstream and complete the emitter
+         */
+        CLOSE
+    }
+
+    private final RedissonClient redissonClient;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final String nodeId;
+    private final Map<String, StreamType> localSessions = new ConcurrentHashMap<>(256);
+
+    private RTopic commandTopic;
+    private int commandListenerId;
+
+    public SseSessionRegistry(RedissonClient redissonClient, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.redissonClient = redissonClient;
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.nodeId = resolveNodeId();
+    }
+
+    @PostConstruct
+    public void init() {
+        commandTopic = redissonClient.getTopic(StrUtil.format(RedisKeyConstant.SSE_SESSION_COMMAND_TOPIC, nodeId));
+        commandListenerId = commandTopic.addListener(String.class, (channel, msg) -> onCommand(msg));
+        RTopic legacyTopic = redissonClient.getTopic(STOP_GENERATE_SUBSCRIBE_PUBLISH_CHANNEL);
+        legacyTopic.addListener(String.class, (channel, msg) -> SseEmitterUtil.stopStream(msg));
+        SseEmitterUtil.bindSessionRegistry(this);
+        bindMetrics();
+        log.info("SSE session registry started, nodeId: {}", nodeId);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        SseEmitterUtil.bindSessionRegistry(null);
+        if (commandTopic != null) {
+            commandTopic.removeListener(commandListenerId);
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Record this node as the owner of a session
+     *
+     * @param sseId Session ID
+     * @param type Stream type
+     */
+    public void register(String sseId, StreamType type) {
+        if (StrUtil.isBlank(sseId)) {
+            return;
+        }
+        localSessions.put(sseId, type);
+        ownerBucket(sseId).setAsync(nodeId, OWNER_TTL);
+    }
+
+    /**
+     * Register a session whose emitter is not managed by {@link SseEmitterUtil} and release it when
+     * the emitter completes, errors or times out
+     *
+     * @param sseId Session ID
+     * @param type Stream type
+     * @param emitter Emitter serving the session
+     */
+    public void bind(String sseId, StreamType type, SseEmitter emitter) {
+        register(sseId, type);
+        emitter.onCompletion(() -> unregister(sseId));
+        emitter.onTimeout(() -> unregister(sseId));
+        emitter.onError(t -> unregister(sseId));
+    }
+
+    /**
+     * Release ownership of a session held by this node
+     *
+     * @param sseId Session ID
+     */
+    public void unregister(String sseId) {
+        if (sseId == null || localSessions.remove(sseId) == null) {
+            return;
+        }
+        // Only clear the record if no other node has taken the same ID over in the meantime
+        ownerBucket(sseId).compareAndSetAsync(nodeId, null);
+    }
+
+    /**
+     * Get the node owning a session
+     *
+     * @param sseId Session ID
+     * @return Owner node ID, or null if the session is unknown
+     */
+    public String ownerOf(String sseId) {
+        if (localSessions.containsKey(sseId)) {
+            return nodeId;
+        }
+        return ownerBucket(sseId).get();
+    }
+
+    public boolean stop(String sseId) {
+        return dispatch(sseId, Command.STOP);
+    }
+
+    public boolean cancel(String sseId) {
+        return dispatch(sseId, Command.CANCEL);
+    }
+
+    public boolean close(String sseId) {
+        return dispatch(sseId, Command.CLOSE);
+    }
+
+    /**
+     * Route a command to the node owning the session
+     *
+     * @param sseId Session ID
+     * @param command Command to execute
+     * @return true if the owning node received the command
+     */
+    public boolean dispatch(String sseId, Command command) {
+        if (StrUtil.isBlank(sseId)) {
+            return false;
+        }
+        String owner = ownerOf(sseId);
+        if (owner == null) {
+            // Unknown or finished session; a local signal is harmless and covers unregistered emitters
+            log.info("SSE[{}] has no registered owner, applying {} locally", sseId, command);
+            apply(sseId, command);
+            return false;
+        }
+        if (nodeId.equals(owner)) {
+            apply(sseId, command);
+            return true;
+        }
+        RTopic ownerTopic = redissonClient.getTopic(StrUtil.format(RedisKeyConstant.SSE_SESSION_COMMAND_TOPIC, owner));
+        long receivers = ownerTopic.publish(command.name() + COMMAND_SEPARATOR + sseId);
+        if (receivers == 0) {
+            log.warn("SSE[{}] owner node {} is gone, dropping stale owner record", sseId, owner);
+            ownerBucket(sseId).compareAndSet(owner, null);
+            return false;
+        }
+        log.info("SSE[{}] {} routed to owner node {}", sseId, command, owner);
+        return true;
+    }
+
+    /**
+     * Count sessions owned by this node
+     *
+     * @param type Stream type
+     * @return Number of live sessions of that type
+     */
+    public long localSessionCount(StreamType type) {
+        return localSessions.values().stream().filter(type::equals).count();
+    }
+
+    private void onCommand(String msg) {
+        int idx = msg == null ? -1 : msg.indexOf(COMMAND_SEPARATOR);
+        if (idx <= 0) {
+            log.warn("Ignoring malformed SSE session command: {}", msg);
+            return;
+        }
+        try {
+            apply(msg.substring(idx + 1), Command.valueOf(msg.substring(0, idx)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring unknown SSE session command: {}", msg);
+        }
+    }
+
+    private void apply(String sseId, Command command) {
+        switch (command) {
+            case STOP -> SseEmitterUtil.stopStream(sseId);
+            case CANCEL -> SseEmitterUtil.cancel(sseId);
+            case CLOSE -> {
+                SseEmitterUtil.stopStream(sseId);
+                SseEmitterUtil.cancel(sseId);
+                SseEmitterUtil.close(sseId);
+                unregister(sseId);
+            }
+            default -> log.warn("Unsupported SSE session command: {}", command);
+        }
+    }
+
+    private RBucket<String> ownerBucket(String sseId) {
+        return redissonClient.getBucket(StrUtil.format(RedisKeyConstant.SSE_SESSION_OWNER, sseId));
+    }
+
+    private void bindMetrics() {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        for (StreamType type : StreamType.values()) {
+            Gauge.builder("sse.sessions.active", this, r -> r.localSessionCount(type))
+                    .description("Live SSE sessions owned by this node")
+                    .tag("node", nodeId)
+                    .tag("type", type.name())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("sse.emitters.active", SseEmitterUtil::sessionCount)
+                .description("Live SSE emitters held by this node")
+                .tag("node", nodeId)
+                .register(meterRegistry);
+        Gauge.builder("sse.upstream.sources.active", SseEmitterUtil::eventSourceCount)
+                .description("Open upstream event sources held by this node")
+                .tag("node", nodeId)
+                .register(meterRegistry);
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + IdUtil.fastSimpleUUID().substring(0, 8);
+    }
+}
@@ -0,0 +1,52 @@
+package com.iflytek.astron.console.commons.util;
+
+/**
+ * Pace of partial saves of an answer while it is still streamed, so that a node restart or a client
+ * that never comes back loses at most one interval of it.
+ * <p>
+ * One instance per stream, used from the thread reading the stream. Once a partial answer has been
+ * saved, later saves of the same answer, the final one included, must update that record instead of
+ * creating another.
+ */
+public final class StreamCheckpoint {
+
+    private final long intervalMs;
+    private long lastSavedAt;
+    private int lastSavedLength;
+    private boolean saved;
+
+    /**
+     * @param intervalMs Minimum time between partial saves, 0 or less to never save partially
+     */
+    public StreamCheckpoint(long intervalMs) {
+        this.intervalMs = intervalMs;
+        this.lastSavedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Whether the answer should be saved now
+     *
+     * @param length Current length of the answer
+     */
+    public boolean due(int length) {
+        return intervalMs > 0 && length > lastSavedLength && System.currentTimeMillis() - lastSavedAt >= intervalMs;
+    }
+
+    /**
+     * Record that the answer was saved
+     *
+     * @param length Length of the answer saved
+     */
+    public void saved(int length) {
+        lastSavedAt = System.currentTimeMillis();
+        lastSavedLength = length;
+        saved = true;
+    }
+
+    /**
+     * Whether a partial answer has been saved, so that the record already exists
+     */
+    public boolean isSaved() {
+        return saved;
+    }
+}
@@ -0,0 +1,255 @@
+package com.iflytek.astron.console.commons.util;
+
+import cn.hutool.core.util.StrUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of the events sent on a chat stream, kept in a Redis stream per sseId so that a
+ * client reconnecting to any node can replay what it missed and follow the rest.
+ * <p>
+ * Only streams {@link #open opened} on this node are logged; every event {@link SseFrameRelay} sends
+ * on them is appended before it is sent, also after the client has gone. Each log is capped at
+ * {@code chat.stream.replay.max-len} events and expires {@code chat.stream.replay.ttl-minutes} after
+ * its first event. The ids Redis gives the events are sent to the client as SSE event ids, which the
+ * client hands back as Last-Event-ID. Which streams are open is held in a bounded local cache, so a
+ * node with thousands of open streams keeps no more than their ids. Without Redis a stream is relayed
+ * as before, just not replayable.
+ */
+@Slf4j
+@Component
+public class StreamReplayLog {
+
+    /**
+     * Last event of a stream that ended, normally or not
+     */
+    public static final String END_EVENT = "end";
+
+    private static final String EVENT_FIELD = "event";
+    private static final String DATA_FIELD = "data";
+
+    private final RedissonClient redissonClient;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${chat.stream.replay.max-len:4096}")
+    private int maxLen = 4096;
+    @Value("${chat.stream.replay.ttl-minutes:30}")
+    private long ttlMinutes = 30;
+    @Value("${chat.stream.replay.max-open-streams:20000}")
+    private long maxOpenStreams = 20_000;
+
+    /** Streams logged by this node; the value tells whether the log already has its expiry */
+    private Cache<String, Boolean> openStreams;
+
+    private Counter appended;
+    private Counter failed;
+
+    public StreamReplayLog(RedissonClient redissonClient, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.redissonClient = redissonClient;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @PostConstruct
+    public void init() {
+        openStreams = CacheBuilder.newBuilder()
+                .maximumSize(maxOpenStreams)
+                .expireAfterAccess(ttlMinutes, TimeUnit.MINUTES)
+                .build();
+        bindMetrics();
+        SseFrameRelay.bindReplayLog(this);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        SseFrameRelay.bindReplayLog(null);
+    }
+
+    /**
+     * Start logging the events of a stream
+     *
+     * @param streamId Stream ID
+     * @param uid User the stream belongs to; only they can replay it
+     */
+    public void open(String streamId, String uid) {
+        if (StrUtil.isBlank(streamId) || StrUtil.isBlank(uid)) {
+            return;
+        }
+        try {
+            redissonClient.<String>getBucket(ownerKey(streamId), StringCodec.INSTANCE).set(uid, Duration.ofMinutes(ttlMinutes));
+            openStreams.put(streamId, Boolean.FALSE);
+        } catch (Exception e) {
+            log.warn("Failed to open replay log, streamId: {}, error: {}", streamId, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether this node logs the events of a stream
+     */
+    public boolean isOpen(String streamId) {
+        return streamId != null && openStreams.getIfPresent(streamId) != null;
+    }
+
+    /**
+     * Append an event to the log of an open stream
+     *
+     * @param streamId Stream ID
+     * @param event Event name
+     * @param data Event data
+     * @return ID of the event in the log, null if the stream is not logged or Redis failed
+     */
+    public String append(String streamId, String event, String data) {
+        Boolean expirySet = streamId == null ? null : openStreams.getIfPresent(streamId);
+        if (expirySet == null) {
+            return null;
+        }
+        try {
+            RStream<String, String> stream = stream(streamId);
+            StreamMessageId id = stream.add(StreamAddArgs.entries(EVENT_FIELD, event, DATA_FIELD, data == null ? "" : data)
+                    .trimNonStrict().maxLen(maxLen).noLimit());
+            if (!expirySet) {
+                stream.expire(Duration.ofMinutes(ttlMinutes));
+                openStreams.put(streamId, Boolean.TRUE);
+            }
+            count(appended);
+            return id.toString();
+        } catch (Exception e) {
+            count(failed);
+            log.warn("Failed to append to replay log, streamId: {}, event: {}, error: {}", streamId, event, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stop logging a stream on this node; its log stays readable until it expires
+     */
+    public void close(String streamId) {
+        if (streamId != null) {
+            openStreams.invalidate(streamId);
+        }
+    }
+
+    /**
+     * Events logged after an event, oldest first
+     *
+     * @param streamId Stream ID
+     * @param lastEventId ID of the last event the client has, null or blank for all
+     * @param limit Maximum number of events to return
+     * @return Logged events
+     */
+    public List<Entry> readAfter(String streamId, String lastEventId, int limit) {
+        StreamMessageId from = next(parseId(lastEventId));
+        Map<StreamMessageId, Map<String, String>> range = stream(streamId).range(limit, from, StreamMessageId.MAX);
+        List<Entry> entries = new ArrayList<>(range.size());
+        range.forEach((id, fields) -> entries.add(new Entry(id.toString(), fields.get(EVENT_FIELD), fields.get(DATA_FIELD))));
+        return entries;
+    }
+
+    /**
+     * User a stream belongs to, null if it was never opened or its log expired
+     */
+    public String ownerOf(String streamId) {
+        return redissonClient.<String>getBucket(ownerKey(streamId), StringCodec.INSTANCE).get();
+    }
+
+    /**
+     * Number of streams this node logs
+     */
+    public long openCount() {
+        openStreams.cleanUp();
+        return openStreams.size();
+    }
+
+    /**
+     * Time an event was logged at, as carried in its ID, 0 if the ID is not an event ID
+     */
+    public static long timestampOf(String eventId) {
+        StreamMessageId id = parseId(eventId);
+        return id == null ? 0L : id.getId0();
+    }
+
+    private static StreamMessageId parseId(String eventId) {
+        if (StrUtil.isBlank(eventId)) {
+            return null;
+        }
+        int separator = eventId.indexOf('-');
+        try {
+            if (separator < 0) {
+                return new StreamMessageId(Long.parseLong(eventId.trim()), 0);
+            }
+            return new StreamMessageId(Long.parseLong(eventId.substring(0, separator).trim()),
+                    Long.parseLong(eventId.substring(separator + 1).trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Smallest ID after the given one, so that a range starting there leaves it out
+     */
+    private static StreamMessageId next(StreamMessageId id) {
+        if (id == null) {
+            return StreamMessageId.MIN;
+        }
+        return id.getId1() == Long.MAX_VALUE ? new StreamMessageId(id.getId0() + 1, 0) : new StreamMessageId(id.getId0(), id.getId1() + 1);
+    }
+
+    private RStream<String, String> stream(String streamId) {
+        return redissonClient.getStream(StrUtil.format(RedisKeyConstant.SSE_REPLAY_LOG, streamId), StringCodec.INSTANCE);
+    }
+
+    private static String ownerKey(String streamId) {
+        return StrUtil.format(RedisKeyConstant.SSE_REPLAY_OWNER, streamId);
+    }
+
+    private static void count(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private void bindMetrics() {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        appended = Counter.builder("sse.replay.appends").tag("result", "ok")
+                .description("Events appended to chat stream replay logs")
+                .register(meterRegistry);
+        failed = Counter.builder("sse.replay.appends").tag("result", "failed")
+                .description("Events appended to chat stream replay logs")
+                .register(meterRegistry);
+        Gauge.builder("sse.replay.streams.open", this, StreamReplayLog::openCount)
+                .description("Chat streams logged for replay by this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * One logged event
+     *
+     * @param id Event ID, sent to the client as the SSE event id
+     * @param event Event name
+     * @param data Event data
+     */
+    public record Entry(String id, String event, String data) {}
+}
@@ -0,0 +1,205 @@
+package com.iflytek.astron.console.commons.util;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared, non-blocking pacing engine for typewriter-style SSE output.
+ * <p>
+ * Upstream readers enqueue ready-to-send chunks together with the pause that should follow each
+ * one and return immediately; a small shared scheduler meters every session's queue by time
+ * budget, so no upstream thread ever sleeps per character. Each session has at most one pending
+ * drain task, which keeps its chunks strictly ordered. The per-session backlog is bounded: once it
+ * is full the queued chunks are flushed without pauses, trading the typing effect for memory.
+ */
+@Slf4j
+public final class TypewriterPacer {
+
+    /**
+     * Maximum number of chunks waiting to be paced per session
+     */
+    public static final int DEFAULT_MAX_BACKLOG = 4096;
+
+    private static final int DRIVER_THREADS = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static final ScheduledThreadPoolExecutor DRIVER = new ScheduledThreadPoolExecutor(DRIVER_THREADS,
+            ThreadFactoryBuilder.create().setNamePrefix("sse-typewriter-").setDaemon(true).build());
+
+    private static final Map<String, PacedSession> SESSIONS = new ConcurrentHashMap<>(256);
+
+    static {
+        DRIVER.setRemoveOnCancelPolicy(true);
+    }
+
+    private TypewriterPacer() {}
+
+    /**
+     * Queue a chunk to be sent to a session, followed by a pause
+     *
+     * @param sseId SSE connection ID
+     * @param payload Pre-serialized chunk to send through {@link SseEmitterUtil#sendMessage}
+     * @param pauseMs Pause after this chunk before the next one is sent
+     */
+    public static void send(String sseId, Object payload, long pauseMs) {
+        enqueue(sseId, () -> SseEmitterUtil.sendMessage(sseId, payload), pauseMs);
+    }
+
+    /**
+     * Run an action once every chunk queued before it has been sent, e.g. closing the emitter
+     *
+     * @param sseId SSE connection ID
+     * @param action Action to run in order with the session's chunks
+     */
+    public static void then(String sseId, Runnable action) {
+        enqueue(sseId, action, 0L);
+    }
+
+    /**
+     * Drop everything still queued for a session
+     *
+     * @param sseId SSE connection ID
+     */
+    public static void discard(String sseId) {
+        PacedSession session = SESSIONS.remove(sseId);
+        if (session != null) {
+            session.clear();
+        }
+    }
+
+    /**
+     * Number of chunks waiting to be sent to a session
+     */
+    public static int backlog(String sseId) {
+        PacedSession session = SESSIONS.get(sseId);
+        return session == null ? 0 : session.size();
+    }
+
+    /**
+     * Number of sessions with pending chunks on this node
+     */
+    public static int activeSessions() {
+        return SESSIONS.size();
+    }
+
+    private static void enqueue(String sseId, Runnable action, long pauseMs) {
+        if (sseId == null || action == null) {
+            return;
+        }
+        Chunk chunk = new Chunk(action, Math.max(0L, pauseMs));
+        // Only queue bookkeeping runs under the map's bin lock; an overflowing backlog is taken out
+        // there and sent below, so no emitter send blocks other sessions hashed to the same bin
+        List<Chunk> overflow = new ArrayList<>(0);
+        PacedSession paced = SESSIONS.compute(sseId, (id, session) -> {
+            if (session != null && session.add(chunk, overflow)) {
+                return session;
+            }
+            PacedSession fresh = new PacedSession(id, DEFAULT_MAX_BACKLOG);
+            fresh.add(chunk, overflow);
+            return fresh;
+        });
+        if (!overflow.isEmpty()) {
+            paced.flush(overflow);
+        }
+    }
+
+    private record Chunk(Runnable action, long pauseMs) {}
+
+    private static final class PacedSession {
+        private final String sseId;
+        private final int maxBacklog;
+        private final ArrayDeque<Chunk> queue = new ArrayDeque<>();
+        /**
+         * Held while chunks are sent, and by the driver from taking a chunk until it is sent, so the
+         * chunk in flight and a flushed backlog go out in queue order
+         */
+        private final Object sendLock = new Object();
+        private boolean scheduled;
+        private boolean retired;
+
+        private PacedSession(String sseId, int maxBacklog) {
+            this.sseId = sseId;
+            this.maxBacklog = maxBacklog;
+        }
+
+        synchronized int size() {
+            return queue.size();
+        }
+
+        synchronized void clear() {
+            queue.clear();
+        }
+
+        /**
+         * @param overflow Receives the backlog and the chunk when the backlog is full, to be sent by
+         *        the caller through {@link #flush} without pacing
+         * @return false if the session already drained and retired, so a fresh one must be used
+         */
+        synchronized boolean add(Chunk chunk, List<Chunk> overflow) {
+            if (retired) {
+                return false;
+            }
+            if (queue.size() >= maxBacklog) {
+                log.warn("SSE[{}] typewriter backlog reached {}, flushing without pacing", sseId, maxBacklog);
+                overflow.addAll(queue);
+                overflow.add(chunk);
+                queue.clear();
+                return true;
+            }
+            queue.add(chunk);
+            if (!scheduled) {
+                scheduled = true;
+                DRIVER.execute(this::drainNext);
+            }
+            return true;
+        }
+
+        void flush(List<Chunk> chunks) {
+            synchronized (sendLock) {
+                chunks.forEach(this::run);
+            }
+        }
+
+        /**
+         * Send the head chunk and schedule the next one after its pause; runs on the driver only.
+         */
+        private void drainNext() {
+            Chunk chunk;
+            synchronized (sendLock) {
+                synchronized (this) {
+                    chunk = queue.poll();
+                    if (chunk == null) {
+                        scheduled = false;
+                        retired = true;
+                    }
+                }
+                if (chunk != null) {
+                    run(chunk);
+                }
+            }
+            if (chunk == null) {
+                // Never touch the map while holding the session lock: enqueue locks in the other order
+                SESSIONS.remove(sseId, this);
+                return;
+            }
+            // Nobody is listening any more: let the rest of the backlog run through
+            long pauseMs = SseEmitterUtil.exist(sseId) ? chunk.pauseMs() : 0L;
+            DRIVER.schedule(this::drainNext, pauseMs, TimeUnit.MILLISECONDS);
+        }
+
+        private void run(Chunk chunk) {
+            try {
+                chunk.action().run();
+            } catch (Exception e) {
+                log.error("SSE[{}] typewriter send failed", sseId, e);
+            }
+        }
+    }
+}
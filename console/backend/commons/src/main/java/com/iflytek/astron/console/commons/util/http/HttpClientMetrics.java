@@ -0,0 +1,200 @@
+package com.iflytek.astron.console.commons.util.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per profile and host: calls in flight, time spent queued in the dispatcher before the call ran, and
+ * call duration by outcome.
+ * <p>
+ * Installed both as the event listener factory, which sees a call from its start to its end, and as
+ * the first application interceptor, which runs once the dispatcher lets the call go. okhttp-sse runs
+ * event source calls with {@link EventListener#NONE} instead of the factory's listener, so for a call
+ * the listener did not start the interceptor measures it, from dispatch until its body is done, and
+ * takes the queue wait from the {@link Enqueued} tag set by {@link HttpClientRegistry#newEventSource}.
+ */
+class HttpClientMetrics implements EventListener.Factory, Interceptor {
+
+    private final String profile;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<Call, Long> startedAt = new ConcurrentHashMap<>();
+
+    HttpClientMetrics(HttpClientProfile profile, MeterRegistry meterRegistry) {
+        this.profile = profile.name().toLowerCase();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener();
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Long start = startedAt.remove(chain.call());
+        if (start != null) {
+            recordQueueWait(request, start);
+            return chain.proceed(request);
+        }
+        Enqueued enqueued = request.tag(Enqueued.class);
+        if (enqueued != null) {
+            recordQueueWait(request, enqueued.nanos());
+        }
+        return measure(chain);
+    }
+
+    /**
+     * Measure a call without listener until its body is read to the end or closed
+     */
+    private Response measure(Chain chain) throws IOException {
+        Call call = chain.call();
+        Measurement measurement = new Measurement(chain.request().url().host());
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException | RuntimeException e) {
+            measurement.finish(failure(call));
+            throw e;
+        }
+        ResponseBody body = response.body();
+        if (body == null) {
+            measurement.finish("success");
+            return response;
+        }
+        ForwardingSource source = new ForwardingSource(body.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                try {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1) {
+                        measurement.finish("success");
+                    }
+                    return read;
+                } catch (IOException e) {
+                    measurement.finish(failure(call));
+                    throw e;
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    measurement.finish(call.isCanceled() ? "canceled" : "success");
+                }
+            }
+        };
+        return response.newBuilder()
+                .body(ResponseBody.create(Okio.buffer(source), body.contentType(), body.contentLength()))
+                .build();
+    }
+
+    private void recordQueueWait(Request request, long start) {
+        Timer.builder("http.upstream.queue_wait")
+                .description("Time an upstream call waited for the dispatcher")
+                .tag("profile", profile)
+                .tag("host", request.url().host())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String failure(Call call) {
+        return call.isCanceled() ? "canceled" : "error";
+    }
+
+    private AtomicInteger inFlight(String host) {
+        return inFlight.computeIfAbsent(host, key -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder("http.upstream.in_flight", count, AtomicInteger::get)
+                    .description("Upstream calls started and not yet finished")
+                    .tag("profile", profile)
+                    .tag("host", key)
+                    .register(meterRegistry);
+            return count;
+        });
+    }
+
+    private class CallListener extends EventListener {
+
+        private Measurement measurement;
+
+        @Override
+        public void callStart(Call call) {
+            measurement = new Measurement(call.request().url().host());
+            startedAt.put(call, measurement.start);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            finish(call, "success");
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            finish(call, failure(call));
+        }
+
+        private void finish(Call call, String outcome) {
+            if (measurement != null) {
+                startedAt.remove(call);
+                measurement.finish(outcome);
+            }
+        }
+    }
+
+    /**
+     * One call in flight, counted from its creation until it is finished once
+     */
+    private class Measurement {
+
+        private final long start = System.nanoTime();
+        private final String host;
+        private boolean finished;
+
+        Measurement(String host) {
+            this.host = host;
+            inFlight(host).incrementAndGet();
+        }
+
+        synchronized void finish(String outcome) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            inFlight(host).decrementAndGet();
+            Timer.builder("http.upstream.duration")
+                    .description("Duration of upstream calls, including streamed bodies")
+                    .tag("profile", profile)
+                    .tag("host", host)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Request tag with the time an event source call was enqueued
+     *
+     * @param nanos {@link System#nanoTime()} at enqueue
+     */
+    record Enqueued(long nanos) {}
+}
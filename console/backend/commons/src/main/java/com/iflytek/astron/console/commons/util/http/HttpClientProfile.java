@@ -0,0 +1,52 @@
+package com.iflytek.astron.console.commons.util.http;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Kinds of upstream calls, each served by its own {@link okhttp3.OkHttpClient} from
+ * {@link HttpClientRegistry}. Timeouts and limits below are defaults, overridable through
+ * {@link HttpClientProperties}.
+ */
+@Getter
+public enum HttpClientProfile {
+
+    /**
+     * Request/response JSON calls to platform services: tenant, release management, MaaS, bot APIs
+     */
+    UNARY(Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofSeconds(60), Duration.ZERO, 256, 64),
+
+    /**
+     * Slow request/response calls, such as knowledge and file processing done through OkHttpUtil
+     */
+    LONG_RUNNING(Duration.ofSeconds(30), Duration.ofSeconds(600), Duration.ofSeconds(600), Duration.ofSeconds(600), 100, 50),
+
+    /**
+     * SSE and WebSocket streams from workflow and LLM services, held open for the whole answer
+     */
+    STREAMING(Duration.ofSeconds(30), Duration.ofSeconds(180), Duration.ofSeconds(180), Duration.ZERO, 2048, 1024);
+
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Duration writeTimeout;
+    /**
+     * Zero for no limit on the whole call
+     */
+    private final Duration callTimeout;
+    /**
+     * Limits on asynchronous calls, which is how SSE and WebSocket connections are made
+     */
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+
+    HttpClientProfile(Duration connectTimeout, Duration readTimeout, Duration writeTimeout, Duration callTimeout,
+            int maxRequests, int maxRequestsPerHost) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.writeTimeout = writeTimeout;
+        this.callTimeout = callTimeout;
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+    }
+}
@@ -0,0 +1,34 @@
+package com.iflytek.astron.console.commons.util.http;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Overrides of the {@link HttpClientProfile} defaults, e.g.
+ * {@code http.client.profiles.streaming.max-requests-per-host=2048}
+ */
+@ConfigurationProperties(prefix = "http.client")
+@Data
+@Component
+public class HttpClientProperties {
+
+    private Map<HttpClientProfile, Settings> profiles = new EnumMap<>(HttpClientProfile.class);
+
+    /**
+     * Unset values keep the profile default
+     */
+    @Data
+    public static class Settings {
+        private Duration connectTimeout;
+        private Duration readTimeout;
+        private Duration writeTimeout;
+        private Duration callTimeout;
+        private Integer maxRequests;
+        private Integer maxRequestsPerHost;
+    }
+}
@@ -0,0 +1,101 @@
+package com.iflytek.astron.console.commons.util.http;
+
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.internal.sse.RealEventSource;
+import okhttp3.sse.EventSource;
+import okhttp3.sse.EventSourceListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The process wide {@link OkHttpClient}s, one per {@link HttpClientProfile}.
+ * <p>
+ * All profiles share one connection pool, so connections to an upstream are reused whichever profile
+ * made them, while each profile has its own dispatcher, so long lived streams cannot use up the
+ * asynchronous call slots of request/response calls. HTTP/2 is negotiated with upstreams that offer it
+ * over TLS. Callers needing other timeouts derive a client with {@code get(profile).newBuilder()}, which
+ * keeps the pool, dispatcher and metrics.
+ * <p>
+ * Clients are static so that utilities outside the Spring context can use them; once the context
+ * starts, {@link HttpClientProperties} overrides are applied. Look the client up on each use rather
+ * than keeping it, so the overrides take effect.
+ */
+@Slf4j
+@Component
+public class HttpClientRegistry {
+
+    private static final ConnectionPool CONNECTION_POOL = new ConnectionPool(256, 5, TimeUnit.MINUTES);
+    private static final Map<HttpClientProfile, Dispatcher> DISPATCHERS = new EnumMap<>(HttpClientProfile.class);
+    private static final Map<HttpClientProfile, HttpClientMetrics> METRICS = new EnumMap<>(HttpClientProfile.class);
+    private static final Map<HttpClientProfile, OkHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    static {
+        for (HttpClientProfile profile : HttpClientProfile.values()) {
+            DISPATCHERS.put(profile, new Dispatcher());
+            METRICS.put(profile, new HttpClientMetrics(profile, Metrics.globalRegistry));
+            configure(profile, new HttpClientProperties.Settings());
+        }
+    }
+
+    @Autowired
+    private HttpClientProperties httpClientProperties;
+
+    public static OkHttpClient get(HttpClientProfile profile) {
+        return CLIENTS.get(profile);
+    }
+
+    /**
+     * Open an event source on a client of this registry. Use this rather than
+     * {@code EventSources.createFactory}: okhttp-sse drops the client's event listener, and the request
+     * is tagged here so that the time the call waits for the dispatcher is still recorded.
+     */
+    public static EventSource newEventSource(OkHttpClient client, Request request, EventSourceListener listener) {
+        Request tagged = request.newBuilder()
+                .tag(HttpClientMetrics.Enqueued.class, new HttpClientMetrics.Enqueued(System.nanoTime()))
+                .build();
+        RealEventSource eventSource = new RealEventSource(tagged, listener);
+        eventSource.connect(client);
+        return eventSource;
+    }
+
+    @PostConstruct
+    public void applyProperties() {
+        httpClientProperties.getProfiles().forEach(HttpClientRegistry::configure);
+    }
+
+    /**
+     * Rebuild the client of a profile, keeping its pool and dispatcher
+     */
+    static void configure(HttpClientProfile profile, HttpClientProperties.Settings settings) {
+        Dispatcher dispatcher = DISPATCHERS.get(profile);
+        dispatcher.setMaxRequests(orDefault(settings.getMaxRequests(), profile.getMaxRequests()));
+        dispatcher.setMaxRequestsPerHost(orDefault(settings.getMaxRequestsPerHost(), profile.getMaxRequestsPerHost()));
+        HttpClientMetrics metrics = METRICS.get(profile);
+        CLIENTS.put(profile, new OkHttpClient.Builder()
+                .connectionPool(CONNECTION_POOL)
+                .dispatcher(dispatcher)
+                .connectTimeout(orDefault(settings.getConnectTimeout(), profile.getConnectTimeout()))
+                .readTimeout(orDefault(settings.getReadTimeout(), profile.getReadTimeout()))
+                .writeTimeout(orDefault(settings.getWriteTimeout(), profile.getWriteTimeout()))
+                .callTimeout(orDefault(settings.getCallTimeout(), profile.getCallTimeout()))
+                .eventListenerFactory(metrics)
+                .addInterceptor(metrics)
+                .build());
+        log.debug("HTTP client profile {} configured with {}", profile, settings);
+    }
+
+    private static <T> T orDefault(T value, T defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+}
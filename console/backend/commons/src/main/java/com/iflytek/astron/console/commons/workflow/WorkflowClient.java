@@ -1,15 +1,15 @@
 package com.iflytek.astron.console.commons.workflow;
 
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.sse.EventSource;
 import okhttp3.sse.EventSourceListener;
-import okhttp3.sse.EventSources;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
 
 /**
  * @author mingsuiyongheng
@@ -31,13 +31,10 @@ public class WorkflowClient {
 
     private EventSource eventSource;
 
-    private static final OkHttpClient okHttpClient = new OkHttpClient.Builder()
-            .connectTimeout(180, TimeUnit.SECONDS)
-            .readTimeout(180, TimeUnit.SECONDS)
-            .writeTimeout(180, TimeUnit.SECONDS)
-            .callTimeout(420, TimeUnit.SECONDS)
-            .connectionPool(new ConnectionPool(1000, 10, TimeUnit.MINUTES))
-            .build();
+    /**
+     * A workflow answer is cut off after this long, however it streams
+     */
+    private static final Duration CALL_TIMEOUT = Duration.ofSeconds(420);
 
     public WorkflowClient(String chatUrl, String appId, String appKey, String appSecret, RequestBody requestBody) {
         this.chatUrl = chatUrl;
@@ -70,8 +67,10 @@ public class WorkflowClient {
      * @param listener EventSourceListener object for handling events
      */
     private void newSSE(EventSourceListener listener) {
-        EventSource.Factory factory = EventSources.createFactory(okHttpClient);
-        eventSource = factory.newEventSource(request, listener);
+        OkHttpClient client = HttpClientRegistry.get(HttpClientProfile.STREAMING).newBuilder()
+                .callTimeout(CALL_TIMEOUT)
+                .build();
+        eventSource = HttpClientRegistry.newEventSource(client, request, listener);
     }
 
     /**
@@ -2,13 +2,15 @@ package com.iflytek.astron.console.commons.workflow;
 
 import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
-import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
 import com.iflytek.astron.console.commons.dto.workflow.WorkflowEventData;
 import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
 import com.iflytek.astron.console.commons.service.WssListenerService;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.SseFrame;
+import com.iflytek.astron.console.commons.util.SseFrameRelay;
+import com.iflytek.astron.console.commons.util.StreamCheckpoint;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Response;
@@ -18,10 +20,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
 import java.time.Duration;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -39,6 +39,7 @@ public class WorkflowListener extends EventSourceListener {
     private String sid;
     private boolean isDebug = false;
     private SseEmitter emitter;
+    private StreamCheckpoint checkpoint = new StreamCheckpoint(0);
 
     public WorkflowListener(WorkflowClient chainClient, ChatReqRecords records, String sseId,
             WssListenerService wssListenerService,
@@ -49,6 +50,7 @@ public class WorkflowListener extends EventSourceListener {
         this.wssListenerService = wssListenerService;
         this.isDebug = isDebug;
         this.emitter = emitter;
+        this.checkpoint = new StreamCheckpoint(wssListenerService.getCheckpointIntervalMs());
     }
 
     /**
@@ -67,7 +69,7 @@ public class WorkflowListener extends EventSourceListener {
             // Already started thinking, so record the generated thinking text to chat_reason table
             wssListenerService.getChatRecordModelService().saveThinkingResult(chatReqRecords, thinkingResult, false);
             // Already started outputting, so record the output text to resp table
-            wssListenerService.getChatRecordModelService().saveChatResponse(chatReqRecords, finalResult, new StringBuffer(sid), false, 2);
+            wssListenerService.getChatRecordModelService().saveChatResponse(chatReqRecords, finalResult, new StringBuffer(sid), checkpoint.isSaved(), 2);
             // Build interruption completion data and attempt to send to client (if still connected)
             JSONObject interruptedData = buildCompleteData(finalResult, thinkingResult, chatReqRecords);
             interruptedData.put("interrupted", true);
@@ -76,33 +78,31 @@ public class WorkflowListener extends EventSourceListener {
             return;
         }
 
-        JSONObject jsonObject = JSONObject.parseObject(data);
+        SseFrame frame = SseFrame.scan(data);
         // Try to send data, continue processing data even if client disconnects
-        boolean clientConnected = tryServeSSEData(emitter, jsonObject, sseId);
-        this.sid = jsonObject.getString("id");
-        Integer code = jsonObject.getInteger("code");
+        boolean clientConnected = SseFrameRelay.forward(emitter, data, sseId);
+        this.sid = frame.getId();
+        Integer code = frame.getCode();
 
         if (!clientConnected) {
             log.info("Client disconnected, but continue processing data to ensure integrity, sseId: {}", sseId);
         }
 
         // Get output
-        JSONArray choices = jsonObject.getJSONArray("choices");
-        if (Objects.isNull(choices) || choices.isEmpty()) {
+        if (!frame.hasChoices()) {
             return;
         }
-        JSONObject choice = choices.getJSONObject(0);
-        String content = choice.getJSONObject("delta").getString("content");
+        String content = frame.getContent();
         // Record main content
         if (StringUtils.isNotBlank(content)) {
             finalResult.append(content);
         }
         // Record thinking process
-        String reasoningContent = choice.getJSONObject("delta").getString("reasoning_content");
+        String reasoningContent = frame.getReasoningContent();
         if (StringUtils.isNotBlank(reasoningContent)) {
-            thinkingResult.append(content);
+            thinkingResult.append(reasoningContent);
         }
-        processDeBugWorkFlow(jsonObject);
+        processDeBugWorkFlow(frame);
 
         // Handle error code cases
         if (code != null && code != 0) {
@@ -111,7 +111,7 @@ public class WorkflowListener extends EventSourceListener {
             finalResult.append(fallbackMessage);
         }
 
-        String finishReason = choice.getString("finish_reason");
+        String finishReason = frame.getFinishReason();
         // End frame processing
         if ("stop".equals(finishReason) || "interrupt".equals(finishReason)) {
             // Record thinking text
@@ -121,54 +121,38 @@ public class WorkflowListener extends EventSourceListener {
             String finalResultStr = finalResult.toString();
             try {
                 if (WorkflowEventData.WorkflowOperation.INTERRUPT.getOperation().equals(finishReason)) {
-                    finalResultStr = processWorkFlowInterrupt(jsonObject, finalResultStr);
+                    finalResultStr = processWorkFlowInterrupt(frame.toJSONObject(), finalResultStr);
                     answerType = 41;
                     log.debug("workflow api format response, sseId:{}, uid:{}, data:{}", sseId, chatReqRecords.getUid(), finalResultStr);
                 } else if (WorkflowEventData.WorkflowOperation.STOP.getOperation().equals(finishReason)) {
                     wssListenerService.getRedissonClient().getBucket(StrUtil.format(RedisKeyConstant.MAAS_WORKFLOW_EVENT_ID, chatReqRecords.getUid(), chatReqRecords.getChatId())).delete();
                     wssListenerService.getRedissonClient().getBucket(StrUtil.format(RedisKeyConstant.MAAS_WORKFLOW_EVENT_VALUE_TYPE, chatReqRecords.getUid(), chatReqRecords.getChatId())).delete();
                 }
-                wssListenerService.getChatRecordModelService().saveChatResponse(chatReqRecords, new StringBuffer(finalResultStr), new StringBuffer(sid), false, answerType);
+                wssListenerService.getChatRecordModelService().saveChatResponse(chatReqRecords, new StringBuffer(finalResultStr), new StringBuffer(sid), checkpoint.isSaved(), answerType);
                 trySendCompleteAndEnd(emitter, buildCompleteData(new StringBuffer(finalResultStr), thinkingResult, chatReqRecords), sseId);
             } catch (Exception e) {
                 log.error("Current return character count: {}, sseId: {}, uid: {}", finalResultStr.length(), sseId, chatReqRecords.getUid());
                 log.error("Exception occurred while storing model data return in database, sseId: {}, uid: {}", sseId, chatReqRecords.getUid(), e);
                 trySendCompleteAndEnd(emitter, createErrorResponse(e), sseId);
             }
+        } else {
+            saveCheckpoint();
         }
 
     }
 
     /**
-     * Try to send SSE data, detect client connection status
-     *
-     * @param emitter SseEmitter object
-     * @param dataObj Data object to send
-     * @param streamId Stream identifier
-     * @return true if client is still connected, false if client is disconnected
+     * Save the answer received so far when a checkpoint is due, so that it survives a lost stream
      */
-    private boolean tryServeSSEData(SseEmitter emitter, JSONObject dataObj, String streamId) {
-        if (emitter == null) {
-            log.warn("SseEmitter is null, unable to send data, streamId: {}", streamId);
-            return false;
+    private void saveCheckpoint() {
+        if (!checkpoint.due(finalResult.length())) {
+            return;
         }
-
         try {
-            String jsonData = dataObj.toJSONString();
-            emitter.send(SseEmitter.event().name("data").data(jsonData));
-            return true;
-        } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
-            log.warn("Client connection disconnected, streamId: {}, continue background data processing", streamId);
-            return false;
-        } catch (IOException e) {
-            log.error("Failed to send SSE data, streamId: {}, error: {}", streamId, e.getMessage());
-            return false;
-        } catch (IllegalStateException e) {
-            log.debug("SseEmitter completed, streamId: {}", streamId);
-            return false;
+            wssListenerService.getChatRecordModelService().saveChatResponse(chatReqRecords, finalResult, new StringBuffer(StringUtils.defaultString(sid)), checkpoint.isSaved(), 2);
+            checkpoint.saved(finalResult.length());
         } catch (Exception e) {
-            log.error("Unexpected error occurred while sending SSE data, streamId: {}", streamId, e);
-            return false;
+            log.warn("Failed to save partial answer, sseId: {}, error: {}", sseId, e.getMessage());
         }
     }
 
@@ -223,7 +207,7 @@ public class WorkflowListener extends EventSourceListener {
 
         try {
             // Try to send completion data
-            emitter.send(SseEmitter.event().name("complete").data(completeData.toJSONString()));
+            SseFrameRelay.send(emitter, "complete", completeData.toJSONString(), streamId);
             log.debug("Completion data sent successfully, streamId: {}", streamId);
         } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
             log.info("Client connection disconnected, unable to send completion data, but data has been saved, streamId: {}", streamId);
@@ -234,7 +218,7 @@ public class WorkflowListener extends EventSourceListener {
         try {
             // Try to send end signal and complete connection
             String endData = "{\"end\":true,\"timestamp\":" + System.currentTimeMillis() + "}";
-            emitter.send(SseEmitter.event().name("end").data(endData));
+            SseFrameRelay.send(emitter, "end", endData, streamId);
             emitter.complete();
             log.debug("SSE connection ended normally, streamId: {}", streamId);
         } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
@@ -244,27 +228,32 @@ public class WorkflowListener extends EventSourceListener {
         } catch (Exception e) {
             log.warn("Exception occurred while ending SSE connection, streamId: {}, error: {}", streamId, e.getMessage());
         }
+        SseFrameRelay.finish(streamId);
     }
 
     /**
      * Function to handle debug workflow
      *
-     * @param jsonObject Input JSON object
+     * @param frame Input frame
      */
-    private void processDeBugWorkFlow(JSONObject jsonObject) {
+    private void processDeBugWorkFlow(SseFrame frame) {
         // debug url has special handling for end frames, for detailed processing please consult Institute
         if (isDebug) {
-            JSONObject node = Optional.ofNullable(jsonObject)
+            // Only the stop frame of an end node is read in full
+            if (!"stop".equals(frame.getNodeFinishReason())) {
+                return;
+            }
+            String nodeId = frame.getNodeId();
+            if (StringUtils.isBlank(nodeId) || !nodeId.startsWith("node-end")) {
+                return;
+            }
+            JSONObject node = Optional.ofNullable(frame.toJSONObject())
                     .map(obj -> obj.getJSONObject("workflow_step"))
                     .map(step -> step.getJSONObject("node"))
                     .orElse(null);
             if (node == null) {
                 return;
             }
-            String nodeFinishReason = node.getString("finish_reason");
-            if (!"stop".equals(nodeFinishReason)) {
-                return;
-            }
             JSONObject ext = node.getJSONObject("ext");
             if (ext == null) {
                 return;
@@ -273,10 +262,6 @@ public class WorkflowListener extends EventSourceListener {
             if (!Integer.valueOf(0).equals(answerMode)) {
                 return;
             }
-            String nodeId = node.getString("id");
-            if (StringUtils.isBlank(nodeId) || !nodeId.startsWith("node-end")) {
-                return;
-            }
             JSONObject outputs = node.getJSONObject("outputs");
             if (outputs == null) {
                 return;
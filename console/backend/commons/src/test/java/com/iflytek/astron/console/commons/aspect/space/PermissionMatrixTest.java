@@ -0,0 +1,103 @@
+package com.iflytek.astron.console.commons.aspect.space;
+
+import com.iflytek.astron.console.commons.entity.space.EnterprisePermission;
+import com.iflytek.astron.console.commons.entity.space.SpacePermission;
+import com.iflytek.astron.console.commons.enums.space.EnterpriseRoleEnum;
+import com.iflytek.astron.console.commons.enums.space.SpaceRoleEnum;
+import com.iflytek.astron.console.commons.service.space.EnterprisePermissionService;
+import com.iflytek.astron.console.commons.service.space.SpacePermissionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionMatrixTest {
+
+    @Mock
+    private SpacePermissionService spacePermissionService;
+
+    @Mock
+    private EnterprisePermissionService enterprisePermissionService;
+
+    @InjectMocks
+    private PermissionMatrix permissionMatrix;
+
+    private static SpacePermission spacePermission(String key, Boolean owner, Boolean admin, Boolean member, Boolean availableExpired) {
+        return SpacePermission.builder().permissionKey(key).owner(owner).admin(admin).member(member).availableExpired(availableExpired).build();
+    }
+
+    @Test
+    void space_compilesGrantsPerRoleAndKey() {
+        when(spacePermissionService.listAll()).thenReturn(List.of(
+                spacePermission("BotController_delete_DELETE", true, true, false, false),
+                spacePermission("BotController_list_GET", true, true, true, true),
+                spacePermission("BotController_share_POST", true, null, false, null)));
+        when(enterprisePermissionService.listAll()).thenReturn(List.of());
+
+        PermissionMatrix.Table table = permissionMatrix.space();
+
+        int delete = table.indexOf("BotController_delete_DELETE");
+        assertTrue(table.allows(delete, SpaceRoleEnum.ADMIN.ordinal()));
+        assertFalse(table.allows(delete, SpaceRoleEnum.MEMBER.ordinal()));
+        assertFalse(table.availableExpired(delete));
+        int list = table.indexOf("BotController_list_GET");
+        assertTrue(table.allows(list, SpaceRoleEnum.MEMBER.ordinal()));
+        assertTrue(table.availableExpired(list));
+        // Unset columns grant nothing
+        int share = table.indexOf("BotController_share_POST");
+        assertTrue(table.allows(share, SpaceRoleEnum.OWNER.ordinal()));
+        assertFalse(table.allows(share, SpaceRoleEnum.ADMIN.ordinal()));
+        assertFalse(table.availableExpired(share));
+        assertEquals(-1, table.indexOf("Unknown_key_GET"));
+    }
+
+    @Test
+    void enterprise_compilesGrantsPerRoleAndKey() {
+        when(spacePermissionService.listAll()).thenReturn(List.of());
+        when(enterprisePermissionService.listAll()).thenReturn(List.of(EnterprisePermission.builder()
+                .permissionKey("EnterpriseController_update_POST").officer(true).governor(false).staff(false).availableExpired(false).build()));
+
+        PermissionMatrix.Table table = permissionMatrix.enterprise();
+
+        int update = table.indexOf("EnterpriseController_update_POST");
+        assertTrue(table.allows(update, EnterpriseRoleEnum.OFFICER.ordinal()));
+        assertFalse(table.allows(update, EnterpriseRoleEnum.GOVERNOR.ordinal()));
+        assertFalse(table.allows(update, EnterpriseRoleEnum.STAFF.ordinal()));
+    }
+
+    @Test
+    void lookups_readDatabaseOnlyOnReload() {
+        when(spacePermissionService.listAll()).thenReturn(List.of(spacePermission("A_get_GET", true, false, false, false)));
+        when(enterprisePermissionService.listAll()).thenReturn(List.of());
+
+        permissionMatrix.space();
+        permissionMatrix.space();
+        permissionMatrix.enterprise();
+        verify(spacePermissionService, times(1)).listAll();
+
+        when(spacePermissionService.listAll()).thenReturn(List.of(spacePermission("A_get_GET", true, true, false, false)));
+        permissionMatrix.reload();
+
+        PermissionMatrix.Table table = permissionMatrix.space();
+        assertTrue(table.allows(table.indexOf("A_get_GET"), SpaceRoleEnum.ADMIN.ordinal()));
+    }
+
+    @Test
+    void reload_failure_keepsLastCompiledTable() {
+        when(spacePermissionService.listAll()).thenReturn(List.of(spacePermission("A_get_GET", true, false, false, false)));
+        when(enterprisePermissionService.listAll()).thenReturn(List.of());
+        permissionMatrix.reload();
+
+        when(spacePermissionService.listAll()).thenThrow(new RuntimeException("database unavailable"));
+        permissionMatrix.reload();
+
+        assertEquals(0, permissionMatrix.space().indexOf("A_get_GET"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.iflytek.astron.console.commons.aspect.space;
+
+import com.iflytek.astron.console.commons.entity.space.EnterpriseUser;
+import com.iflytek.astron.console.commons.entity.space.SpaceUser;
+import com.iflytek.astron.console.commons.event.SpaceMembershipChangedEvent;
+import com.iflytek.astron.console.commons.service.space.EnterpriseSpaceService;
+import com.iflytek.astron.console.commons.service.space.EnterpriseUserService;
+import com.iflytek.astron.console.commons.service.space.SpaceUserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SpaceAuthCacheTest {
+
+    @Mock
+    private SpaceUserService spaceUserService;
+
+    @Mock
+    private EnterpriseUserService enterpriseUserService;
+
+    @Mock
+    private EnterpriseSpaceService enterpriseSpaceService;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RTopic topic;
+
+    @InjectMocks
+    private SpaceAuthCache spaceAuthCache;
+
+    private MessageListener<String> topicListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(spaceAuthCache, "maxSize", 1000L);
+        ReflectionTestUtils.setField(spaceAuthCache, "memberTtlSeconds", 300L);
+        ReflectionTestUtils.setField(spaceAuthCache, "expiredTtlSeconds", 10L);
+        when(redissonClient.getTopic("space_auth_invalidate")).thenReturn(topic);
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        when(topic.addListener(eq(String.class), listener.capture())).thenReturn(1);
+        spaceAuthCache.init();
+        topicListener = listener.getValue();
+    }
+
+    private static SpaceUser spaceUser(Long spaceId, String uid) {
+        SpaceUser spaceUser = new SpaceUser();
+        spaceUser.setSpaceId(spaceId);
+        spaceUser.setUid(uid);
+        return spaceUser;
+    }
+
+    @Test
+    void getSpaceUser_cachesMembersAndNonMembers() {
+        when(spaceUserService.getSpaceUserByUid(1L, "member")).thenReturn(spaceUser(1L, "member"));
+
+        assertNotNull(spaceAuthCache.getSpaceUser(1L, "member"));
+        assertNotNull(spaceAuthCache.getSpaceUser(1L, "member"));
+        assertNull(spaceAuthCache.getSpaceUser(1L, "stranger"));
+        assertNull(spaceAuthCache.getSpaceUser(1L, "stranger"));
+
+        verify(spaceUserService, times(1)).getSpaceUserByUid(1L, "member");
+        verify(spaceUserService, times(1)).getSpaceUserByUid(1L, "stranger");
+    }
+
+    @Test
+    void onMembershipChanged_dropsEntryLocallyAndRelaysToOtherNodes() {
+        when(spaceUserService.getSpaceUserByUid(1L, "member")).thenReturn(spaceUser(1L, "member"));
+        spaceAuthCache.getSpaceUser(1L, "member");
+
+        when(spaceUserService.getSpaceUserByUid(1L, "member")).thenReturn(null);
+        spaceAuthCache.onMembershipChanged(new SpaceMembershipChangedEvent(this, SpaceMembershipChangedEvent.Scope.SPACE, 1L, "member"));
+
+        assertNull(spaceAuthCache.getSpaceUser(1L, "member"));
+        verify(topic).publish("SPACE:1:member");
+    }
+
+    @Test
+    void topicMessage_withoutUid_dropsWholeSpaceOnly() {
+        when(spaceUserService.getSpaceUserByUid(anyLong(), anyString())).thenAnswer(inv -> spaceUser(inv.getArgument(0), inv.getArgument(1)));
+        spaceAuthCache.getSpaceUser(1L, "a");
+        spaceAuthCache.getSpaceUser(1L, "b");
+        spaceAuthCache.getSpaceUser(11L, "a");
+
+        topicListener.onMessage("space_auth_invalidate", "SPACE:1:");
+        spaceAuthCache.getSpaceUser(1L, "a");
+        spaceAuthCache.getSpaceUser(1L, "b");
+        spaceAuthCache.getSpaceUser(11L, "a");
+
+        verify(spaceUserService, times(2)).getSpaceUserByUid(1L, "a");
+        verify(spaceUserService, times(2)).getSpaceUserByUid(1L, "b");
+        verify(spaceUserService, times(1)).getSpaceUserByUid(11L, "a");
+    }
+
+    @Test
+    void topicMessage_enterpriseScope_leavesSpaceMembers() {
+        when(spaceUserService.getSpaceUserByUid(1L, "a")).thenReturn(spaceUser(1L, "a"));
+        when(enterpriseUserService.getEnterpriseUserByUid(1L, "a")).thenReturn(new EnterpriseUser());
+        spaceAuthCache.getSpaceUser(1L, "a");
+        spaceAuthCache.getEnterpriseUser(1L, "a");
+
+        topicListener.onMessage("space_auth_invalidate", "ENTERPRISE:1:a");
+        spaceAuthCache.getSpaceUser(1L, "a");
+        spaceAuthCache.getEnterpriseUser(1L, "a");
+
+        verify(spaceUserService, times(1)).getSpaceUserByUid(1L, "a");
+        verify(enterpriseUserService, times(2)).getEnterpriseUserByUid(1L, "a");
+    }
+
+    @Test
+    void isSpaceExpired_cachesWithinTtl() {
+        when(enterpriseSpaceService.checkSpaceExpired(1L)).thenReturn(true);
+
+        assertTrue(spaceAuthCache.isSpaceExpired(1L));
+        assertTrue(spaceAuthCache.isSpaceExpired(1L));
+
+        verify(enterpriseSpaceService, times(1)).checkSpaceExpired(1L);
+    }
+
+    @Test
+    void getSpaceUser_loaderFailure_propagatesAndCachesNothing() {
+        when(spaceUserService.getSpaceUserByUid(1L, "a")).thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(spaceUser(1L, "a"));
+
+        assertThrows(IllegalStateException.class, () -> spaceAuthCache.getSpaceUser(1L, "a"));
+        assertNotNull(spaceAuthCache.getSpaceUser(1L, "a"));
+    }
+}
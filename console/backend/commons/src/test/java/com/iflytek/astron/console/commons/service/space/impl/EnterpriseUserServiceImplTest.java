@@ -21,6 +21,7 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import org.springframework.context.ApplicationEventPublisher;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -41,6 +42,9 @@ class EnterpriseUserServiceImplTest {
     @Mock
     private UserInfoDataService userInfoDataService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private EnterpriseUserServiceImpl enterpriseUserService;
 
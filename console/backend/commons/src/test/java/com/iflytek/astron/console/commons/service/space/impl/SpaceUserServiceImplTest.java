@@ -8,6 +8,7 @@ import com.iflytek.astron.console.commons.dto.space.SpaceUserParam;
 import com.iflytek.astron.console.commons.dto.space.SpaceUserVO;
 import com.iflytek.astron.console.commons.entity.space.SpaceUser;
 import com.iflytek.astron.console.commons.entity.user.UserInfo;
+import com.iflytek.astron.console.commons.event.SpaceMembershipChangedEvent;
 import com.iflytek.astron.console.commons.enums.space.SpaceRoleEnum;
 import com.iflytek.astron.console.commons.enums.space.SpaceTypeEnum;
 import com.iflytek.astron.console.commons.mapper.space.SpaceUserMapper;
@@ -22,6 +23,7 @@ import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import org.springframework.context.ApplicationEventPublisher;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -42,6 +44,9 @@ class SpaceUserServiceImplTest {
     @Mock
     private UserInfoDataService userInfoDataService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private SpaceUserServiceImpl spaceUserService;
 
@@ -363,6 +368,7 @@ class SpaceUserServiceImplTest {
         // Then
         assertTrue(result);
         verify(spaceUserMapper).delete(any(LambdaUpdateWrapper.class));
+        verify(eventPublisher, times(3)).publishEvent(any(SpaceMembershipChangedEvent.class));
     }
 
     @Test
@@ -557,6 +563,8 @@ class SpaceUserServiceImplTest {
         // Then
         assertTrue(result);
         verify(spaceUserMapper).updateById(any(SpaceUser.class));
+        verify(eventPublisher).publishEvent(argThat((SpaceMembershipChangedEvent event) -> event.getScope() == SpaceMembershipChangedEvent.Scope.SPACE
+                && mockSpaceUser.getSpaceId().equals(event.getScopeId()) && mockSpaceUser.getUid().equals(event.getUid())));
     }
 
     @Test
@@ -0,0 +1,107 @@
+package com.iflytek.astron.console.commons.util;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CPU time and heap allocated relaying a stream of Spark token frames: the relay as it was, parsing
+ * every frame into a JSON tree, reading its fields from the tree and sending it serialized again,
+ * against scanning the fields and forwarding the frame text as received.
+ */
+@Slf4j
+class SseFrameRelayLoadTest {
+
+    private static final int WARMUP_FRAMES = 20_000;
+    private static final int FRAMES = 100_000;
+
+    private final String[] frames = new String[64];
+
+    private final SseEmitter emitter = new SseEmitter() {
+        @Override
+        public void send(SseEventBuilder builder) {
+            // The client side costs the same on both paths
+        }
+    };
+
+    /** Keeps the JIT from dropping the reads */
+    private long sink;
+
+    SseFrameRelayLoadTest() {
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = "{\"code\":0,\"message\":\"Success\",\"sid\":\"cht000b1234@dx19a0c0f2b9eb8f2540\",\"id\":\"cht000b1234\","
+                    + "\"created\":1760000000,\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"token " + i
+                    + " of the answer, with \\\"quotes\\\" and 中文\",\"reasoning_content\":\"\"},\"finish_reason\":null}],"
+                    + "\"usage\":{\"prompt_tokens\":812,\"completion_tokens\":" + i + ",\"total_tokens\":" + (812 + i) + "}}";
+        }
+    }
+
+    @Test
+    void forwardingScannedFrames_costsLessThanReserializing() {
+        SseFrameRelay.bindReplayLog(null);
+        relayParsed(WARMUP_FRAMES);
+        relayScanned(WARMUP_FRAMES);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long cpu = threads.getCurrentThreadCpuTime();
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        relayParsed(FRAMES);
+        long parsedCpu = threads.getCurrentThreadCpuTime() - cpu;
+        long parsedAllocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+        cpu = threads.getCurrentThreadCpuTime();
+        allocated = threads.getCurrentThreadAllocatedBytes();
+        relayScanned(FRAMES);
+        long scannedCpu = threads.getCurrentThreadCpuTime() - cpu;
+        long scannedAllocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+        log.info("Per frame: parse and serialize {} ns, {} bytes; scan and forward {} ns, {} bytes",
+                parsedCpu / FRAMES, parsedAllocated / FRAMES, scannedCpu / FRAMES, scannedAllocated / FRAMES);
+        assertTrue(sink != 0);
+        assertTrue(scannedAllocated < parsedAllocated / 2,
+                "scan and forward allocated " + scannedAllocated + " bytes, parse and serialize " + parsedAllocated);
+        assertTrue(scannedCpu < parsedCpu,
+                "scan and forward took " + scannedCpu + " ns CPU, parse and serialize " + parsedCpu);
+    }
+
+    /**
+     * The relay before frames were forwarded as received
+     */
+    private void relayParsed(int count) {
+        for (int i = 0; i < count; i++) {
+            JSONObject dataObj = JSON.parseObject(frames[i % frames.length]);
+            if (dataObj.getInteger("code") != 0) {
+                fail();
+            }
+            String sid = dataObj.containsKey("sid") ? dataObj.getString("sid") : "";
+            JSONArray choices = dataObj.getJSONArray("choices");
+            JSONObject delta = choices.getJSONObject(0).getJSONObject("delta");
+            String content = delta.getString("content");
+            String reasoning = delta.getString("reasoning_content");
+            try {
+                emitter.send(SseEmitter.event().name("data").data(dataObj.toJSONString()));
+            } catch (Exception e) {
+                fail(e);
+            }
+            sink += sid.length() + content.length() + reasoning.length();
+        }
+    }
+
+    private void relayScanned(int count) {
+        for (int i = 0; i < count; i++) {
+            SseFrame frame = SseFrame.scan(frames[i % frames.length]);
+            if (frame.getCode() != 0) {
+                fail();
+            }
+            assertTrue(SseFrameRelay.forward(emitter, frame.getData(), "stream-1"));
+            sink += frame.getSid().length() + frame.getContent().length() + frame.getReasoningContent().length();
+        }
+    }
+}
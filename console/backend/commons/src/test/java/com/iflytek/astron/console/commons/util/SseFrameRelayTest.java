@@ -0,0 +1,79 @@
+package com.iflytek.astron.console.commons.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SseFrameRelayTest {
+
+    @Mock
+    private StreamReplayLog replayLog;
+
+    @Mock
+    private SseEmitter emitter;
+
+    @BeforeEach
+    void setUp() {
+        when(replayLog.append(anyString(), anyString(), anyString())).thenReturn("1-0");
+        SseFrameRelay.bindReplayLog(replayLog);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SseFrameRelay.bindReplayLog(null);
+    }
+
+    @Test
+    void completeWithError_logsErrorThenEndAndClosesLog() throws Exception {
+        SseFrameRelay.completeWithError(emitter, "Connection failed: timeout", "s1");
+
+        InOrder order = inOrder(replayLog, emitter);
+        order.verify(replayLog).append(eq("s1"), eq("error"), contains("Connection failed: timeout"));
+        order.verify(replayLog).append(eq("s1"), eq(StreamReplayLog.END_EVENT), contains("\"end\":true"));
+        order.verify(emitter).complete();
+        order.verify(replayLog).close("s1");
+        verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void completeWithError_clientGone_stillEndsLog() throws Exception {
+        doThrow(new AsyncRequestNotUsableException("Broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+        SseFrameRelay.completeWithError(emitter, "Request failed", "s1");
+
+        verify(replayLog).append(eq("s1"), eq("error"), contains("Request failed"));
+        verify(replayLog).append(eq("s1"), eq(StreamReplayLog.END_EVENT), anyString());
+        verify(replayLog).close("s1");
+    }
+
+    @Test
+    void completeWithError_withoutEmitter_endsLog() {
+        SseFrameRelay.completeWithError(null, null, "s1");
+
+        verify(replayLog).append(eq("s1"), eq("error"), contains("Unknown error"));
+        verify(replayLog).append(eq("s1"), eq(StreamReplayLog.END_EVENT), anyString());
+        verify(replayLog).close("s1");
+    }
+
+    @Test
+    void sendError_leavesLogOpen() {
+        SseFrameRelay.sendError(emitter, "Data reading exception", "s1");
+
+        verify(replayLog).append(eq("s1"), eq("error"), contains("Data reading exception"));
+        verify(replayLog, never()).close(anyString());
+        verifyNoMoreInteractions(replayLog);
+    }
+}
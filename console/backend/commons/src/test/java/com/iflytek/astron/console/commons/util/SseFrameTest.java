@@ -0,0 +1,103 @@
+package com.iflytek.astron.console.commons.util;
+
+import com.alibaba.fastjson2.JSONException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SseFrameTest {
+
+    @Test
+    void scan_readsTokenFrameFields() {
+        SseFrame frame = SseFrame.scan("{\"code\":0,\"message\":\"Success\",\"sid\":\"s-1\",\"id\":\"i-1\","
+                + "\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"He said \\\"hi\\\"\",\"reasoning_content\":\"think\"},"
+                + "\"finish_reason\":null}],\"usage\":{\"total_tokens\":3}}");
+
+        assertEquals(0, frame.getCode());
+        assertEquals("Success", frame.getMessage());
+        assertEquals("s-1", frame.getSid());
+        assertEquals("i-1", frame.getId());
+        assertTrue(frame.hasChoices());
+        assertEquals("He said \"hi\"", frame.getContent());
+        assertEquals("think", frame.getReasoningContent());
+        assertNull(frame.getFinishReason());
+        assertFalse(frame.hasToolCalls());
+        assertFalse(frame.hasError());
+    }
+
+    @Test
+    void scan_readsOnlyTheFirstChoiceButToolCallsOfAny() {
+        SseFrame frame = SseFrame.scan("{\"choices\":[{\"delta\":{\"content\":\"Answer\"},\"finish_reason\":\"stop\"},"
+                + "{\"delta\":{\"content\":\"other\",\"tool_calls\":[{\"type\":\"web_search\"}]}}]}");
+
+        assertEquals("Answer", frame.getContent());
+        assertEquals("stop", frame.getFinishReason());
+        assertTrue(frame.hasToolCalls());
+    }
+
+    @Test
+    void scan_ignoresNullToolCallsAndEmptyChoices() {
+        assertFalse(SseFrame.scan("{\"choices\":[{\"delta\":{\"tool_calls\":null}}]}").hasToolCalls());
+        assertFalse(SseFrame.scan("{\"choices\":[]}").hasChoices());
+        assertFalse(SseFrame.scan("{\"choices\":null}").hasChoices());
+        assertNull(SseFrame.scan("{\"choices\":[{\"delta\":null}]}").getContent());
+    }
+
+    @Test
+    void scan_readsErrorAndWorkflowNode() {
+        SseFrame error = SseFrame.scan("{\"error\":{\"message\":\"quota exceeded\",\"type\":\"limit\"}}");
+        assertTrue(error.hasError());
+        assertEquals("quota exceeded", error.getErrorMessage());
+
+        SseFrame step = SseFrame.scan("{\"code\":\"0\",\"workflow_step\":{\"seq\":3,\"node\":{\"id\":\"node-end::1\","
+                + "\"finish_reason\":\"stop\",\"outputs\":{\"output\":\"done\"}}}}");
+        assertEquals(0, step.getCode());
+        assertEquals("node-end::1", step.getNodeId());
+        assertEquals("stop", step.getNodeFinishReason());
+        assertEquals("done", step.toJSONObject().getJSONObject("workflow_step").getJSONObject("node")
+                .getJSONObject("outputs").getString("output"));
+    }
+
+    @Test
+    void scan_rendersNestedValuesAsJsonText() {
+        SseFrame frame = SseFrame.scan("{\"id\":12,\"choices\":[{\"delta\":{\"content\":{\"a\":1}}}]}");
+
+        assertEquals("12", frame.getId());
+        assertEquals("{\"a\":1}", frame.getContent());
+    }
+
+    @Test
+    void scan_rejectsFramesThatAreNotObjects() {
+        assertThrows(JSONException.class, () -> SseFrame.scan("{invalid json"));
+        assertThrows(JSONException.class, () -> SseFrame.scan("[1,2]"));
+    }
+
+    @Test
+    void forward_sendsFrameTextAsReceived() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        String data = "{\"b\":1,  \"a\":{\"z\":null}}";
+
+        assertTrue(SseFrameRelay.forward(emitter, data, "stream-1"));
+
+        ArgumentCaptor<SseEmitter.SseEventBuilder> event = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter).send(event.capture());
+        String sent = event.getValue().build().stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining());
+        assertEquals("event:data\ndata:" + data + "\n\n", sent);
+    }
+
+    @Test
+    void forward_reportsDisconnectedClient() throws Exception {
+        SseEmitter emitter = mock(SseEmitter.class);
+        doThrow(new AsyncRequestNotUsableException("gone")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+        assertFalse(SseFrameRelay.forward(emitter, "{}", "stream-1"));
+        assertFalse(SseFrameRelay.forward(null, "{}", "stream-1"));
+    }
+}
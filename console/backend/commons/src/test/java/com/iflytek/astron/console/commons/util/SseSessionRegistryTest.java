@@ -0,0 +1,169 @@
+package com.iflytek.astron.console.commons.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.sse.EventSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RBucket;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SseSessionRegistryTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Mock
+    private RBucket<Object> ownerBucket;
+
+    @Mock
+    private RTopic ownTopic;
+
+    @Mock
+    private RTopic legacyTopic;
+
+    @Mock
+    private RTopic remoteTopic;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SseSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        when(redissonClient.getBucket(anyString())).thenReturn(ownerBucket);
+        registry = new SseSessionRegistry(redissonClient, meterRegistryProvider);
+        when(redissonClient.getTopic(anyString())).thenReturn(remoteTopic);
+        when(redissonClient.getTopic("sse_session_cmd:" + registry.getNodeId())).thenReturn(ownTopic);
+        when(redissonClient.getTopic(SseSessionRegistry.STOP_GENERATE_SUBSCRIBE_PUBLISH_CHANNEL)).thenReturn(legacyTopic);
+        registry.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        registry.destroy();
+        SseEmitterUtil.close("toolkit-1");
+        SseEmitterUtil.EVENTSOURCE_MAP.clear();
+    }
+
+    @Test
+    void register_recordsOwnershipInRedisAndLocally() {
+        registry.register("hub-1", SseSessionRegistry.StreamType.HUB_CHAT);
+
+        verify(redissonClient).getBucket("sse_session_owner:hub-1");
+        verify(ownerBucket).setAsync(eq(registry.getNodeId()), any(Duration.class));
+        assertEquals(registry.getNodeId(), registry.ownerOf("hub-1"));
+        assertEquals(1, registry.localSessionCount(SseSessionRegistry.StreamType.HUB_CHAT));
+    }
+
+    @Test
+    void unregister_onlyClearsRecordOwnedByThisNode() {
+        registry.register("hub-1", SseSessionRegistry.StreamType.HUB_CHAT);
+
+        registry.unregister("hub-1");
+        registry.unregister("hub-1");
+
+        verify(ownerBucket, times(1)).compareAndSetAsync(registry.getNodeId(), null);
+        assertEquals(0, registry.localSessionCount(SseSessionRegistry.StreamType.HUB_CHAT));
+    }
+
+    @Test
+    void bind_releasesSessionWhenEmitterCompletes() {
+        SseEmitter emitter = mock(SseEmitter.class);
+        registry.bind("hub-2", SseSessionRegistry.StreamType.HUB_WORKFLOW, emitter);
+
+        ArgumentCaptor<Runnable> completion = ArgumentCaptor.forClass(Runnable.class);
+        verify(emitter).onCompletion(completion.capture());
+        completion.getValue().run();
+
+        assertEquals(0, registry.localSessionCount(SseSessionRegistry.StreamType.HUB_WORKFLOW));
+    }
+
+    @Test
+    void createThroughSseEmitterUtil_registersToolkitSession() {
+        SseEmitterUtil.create("toolkit-1", 1000L);
+
+        assertEquals(1, registry.localSessionCount(SseSessionRegistry.StreamType.TOOLKIT));
+        assertEquals(1.0, meterRegistry.get("sse.emitters.active").gauge().value());
+
+        SseEmitterUtil.close("toolkit-1");
+        assertEquals(0, registry.localSessionCount(SseSessionRegistry.StreamType.TOOLKIT));
+    }
+
+    @Test
+    void dispatch_localOwner_appliesWithoutPublishing() {
+        EventSource eventSource = mock(EventSource.class);
+        registry.register("local-1", SseSessionRegistry.StreamType.TOOLKIT);
+        SseEmitterUtil.EVENTSOURCE_MAP.put("local-1", eventSource);
+
+        assertTrue(registry.cancel("local-1"));
+
+        verify(eventSource).cancel();
+        verifyNoInteractions(remoteTopic);
+    }
+
+    @Test
+    void dispatch_remoteOwner_publishesToOwnerTopicOnly() {
+        when(ownerBucket.get()).thenReturn("other-node");
+        when(remoteTopic.publish(anyString())).thenReturn(1L);
+
+        assertTrue(registry.stop("remote-1"));
+
+        verify(redissonClient).getTopic("sse_session_cmd:other-node");
+        verify(remoteTopic).publish("STOP:remote-1");
+        verify(legacyTopic, never()).publish(any());
+    }
+
+    @Test
+    void dispatch_deadOwner_dropsStaleRecord() {
+        when(ownerBucket.get()).thenReturn("dead-node");
+        when(remoteTopic.publish(anyString())).thenReturn(0L);
+
+        assertFalse(registry.close("remote-2"));
+
+        verify(ownerBucket).compareAndSet("dead-node", null);
+    }
+
+    @Test
+    void dispatch_unknownSession_raisesLocalStopSignal() {
+        assertFalse(registry.stop("unknown-1"));
+
+        assertTrue(SseEmitterUtil.isStreamStopped("unknown-1"));
+        verifyNoInteractions(remoteTopic);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void commandTopic_appliesRoutedCommands() {
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(ownTopic).addListener(eq(String.class), listener.capture());
+
+        listener.getValue().onMessage("sse_session_cmd:" + registry.getNodeId(), "STOP:routed-1");
+        listener.getValue().onMessage("sse_session_cmd:" + registry.getNodeId(), "garbage");
+
+        assertTrue(SseEmitterUtil.isStreamStopped("routed-1"));
+    }
+}
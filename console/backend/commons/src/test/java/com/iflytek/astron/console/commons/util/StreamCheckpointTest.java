@@ -0,0 +1,41 @@
+package com.iflytek.astron.console.commons.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamCheckpointTest {
+
+    @Test
+    void due_afterIntervalWithNewContent() throws InterruptedException {
+        StreamCheckpoint checkpoint = new StreamCheckpoint(20);
+
+        assertFalse(checkpoint.due(10));
+        Thread.sleep(25);
+        assertTrue(checkpoint.due(10));
+        assertFalse(checkpoint.isSaved());
+    }
+
+    @Test
+    void saved_restartsIntervalAndNeedsNewContent() throws InterruptedException {
+        StreamCheckpoint checkpoint = new StreamCheckpoint(20);
+        Thread.sleep(25);
+
+        checkpoint.saved(10);
+
+        assertTrue(checkpoint.isSaved());
+        assertFalse(checkpoint.due(15));
+        Thread.sleep(25);
+        assertFalse(checkpoint.due(10));
+        assertTrue(checkpoint.due(15));
+    }
+
+    @Test
+    void nonPositiveInterval_neverDue() throws InterruptedException {
+        StreamCheckpoint checkpoint = new StreamCheckpoint(0);
+        Thread.sleep(5);
+
+        assertFalse(checkpoint.due(100));
+        assertFalse(new StreamCheckpoint(-1).due(100));
+    }
+}
@@ -0,0 +1,189 @@
+package com.iflytek.astron.console.commons.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RBucket;
+import org.redisson.api.RStream;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.client.codec.Codec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StreamReplayLogTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Mock
+    private RStream<String, String> stream;
+
+    @Mock
+    private RBucket<String> ownerBucket;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StreamReplayLog replayLog;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        when(redissonClient.<String, String>getStream(anyString(), any(Codec.class))).thenReturn(stream);
+        when(redissonClient.<String>getBucket(anyString(), any(Codec.class))).thenReturn(ownerBucket);
+        replayLog = new StreamReplayLog(redissonClient, meterRegistryProvider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replayLog.destroy();
+    }
+
+    @Test
+    void append_ignoresStreamsNotOpened() {
+        replayLog.init();
+
+        assertNull(replayLog.append("s1", "data", "{}"));
+        verify(redissonClient, never()).getStream(anyString(), any(Codec.class));
+    }
+
+    @Test
+    void append_logsOpenedStreamAndSetsExpiryOnce() {
+        replayLog.init();
+        when(stream.add(any(StreamAddArgs.class))).thenReturn(new StreamMessageId(1700, 0), new StreamMessageId(1700, 1));
+
+        replayLog.open("s1", "u1");
+        String first = replayLog.append("s1", "data", "{\"a\":1}");
+        String second = replayLog.append("s1", "data", "{\"a\":2}");
+
+        assertEquals("1700-0", first);
+        assertEquals("1700-1", second);
+        verify(ownerBucket).set(eq("u1"), any(Duration.class));
+        verify(redissonClient, atLeastOnce()).getStream(eq("sse_replay_log:s1"), any(Codec.class));
+        verify(stream, times(1)).expire(any(Duration.class));
+        assertEquals(2.0, meterRegistry.get("sse.replay.appends").tag("result", "ok").counter().count());
+    }
+
+    @Test
+    void append_returnsNullWhenRedisFails() {
+        replayLog.init();
+        when(stream.add(any(StreamAddArgs.class))).thenThrow(new IllegalStateException("down"));
+
+        replayLog.open("s1", "u1");
+
+        assertNull(replayLog.append("s1", "data", "{}"));
+        assertEquals(1.0, meterRegistry.get("sse.replay.appends").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void close_stopsLogging() {
+        replayLog.init();
+        replayLog.open("s1", "u1");
+
+        replayLog.close("s1");
+
+        assertFalse(replayLog.isOpen("s1"));
+        assertNull(replayLog.append("s1", "end", "{}"));
+    }
+
+    @Test
+    void readAfter_startsAfterLastEventId() {
+        replayLog.init();
+        Map<StreamMessageId, Map<String, String>> range = new LinkedHashMap<>();
+        range.put(new StreamMessageId(1700, 4), Map.of("event", "data", "data", "{\"a\":4}"));
+        range.put(new StreamMessageId(1701, 0), Map.of("event", "end", "data", "{}"));
+        when(stream.range(anyInt(), any(StreamMessageId.class), any(StreamMessageId.class))).thenReturn(range);
+
+        List<StreamReplayLog.Entry> entries = replayLog.readAfter("s1", "1700-3", 10);
+
+        ArgumentCaptor<StreamMessageId> from = ArgumentCaptor.forClass(StreamMessageId.class);
+        verify(stream).range(eq(10), from.capture(), eq(StreamMessageId.MAX));
+        assertEquals(new StreamMessageId(1700, 4), from.getValue());
+        assertEquals(List.of(new StreamReplayLog.Entry("1700-4", "data", "{\"a\":4}"), new StreamReplayLog.Entry("1701-0", "end", "{}")), entries);
+    }
+
+    @Test
+    void readAfter_readsFromStartWithoutLastEventId() {
+        replayLog.init();
+        when(stream.range(anyInt(), any(StreamMessageId.class), any(StreamMessageId.class))).thenReturn(Map.of());
+
+        replayLog.readAfter("s1", null, 10);
+        replayLog.readAfter("s1", "not-an-id", 10);
+
+        verify(stream, times(2)).range(10, StreamMessageId.MIN, StreamMessageId.MAX);
+    }
+
+    @Test
+    void openStreams_areBoundedOnThisNode() {
+        ReflectionTestUtils.setField(replayLog, "maxOpenStreams", 100L);
+        replayLog.init();
+
+        for (int i = 0; i < 5000; i++) {
+            replayLog.open("s" + i, "u1");
+        }
+
+        assertTrue(replayLog.openCount() <= 100);
+        assertEquals((double) replayLog.openCount(), meterRegistry.get("sse.replay.streams.open").gauge().value());
+    }
+
+    @Test
+    void timestampOf_readsEventIdTime() {
+        assertEquals(1700L, StreamReplayLog.timestampOf("1700-3"));
+        assertEquals(0L, StreamReplayLog.timestampOf(null));
+        assertEquals(0L, StreamReplayLog.timestampOf("abc"));
+    }
+
+    @Test
+    void relay_sendsLoggedEventsWithTheirId() throws Exception {
+        replayLog.init();
+        when(stream.add(any(StreamAddArgs.class))).thenReturn(new StreamMessageId(1700, 0));
+        replayLog.open("s1", "u1");
+        SseEmitter emitter = mock(SseEmitter.class);
+
+        assertTrue(SseFrameRelay.forward(emitter, "{\"a\":1}", "s1"));
+
+        ArgumentCaptor<SseEmitter.SseEventBuilder> event = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter).send(event.capture());
+        String sent = event.getValue().build().stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining());
+        assertTrue(sent.contains("id:1700-0\n"));
+        assertTrue(sent.contains("data:{\"a\":1}"));
+    }
+
+    @Test
+    void relay_logsEventsAfterClientHasGone() throws Exception {
+        replayLog.init();
+        when(stream.add(any(StreamAddArgs.class))).thenReturn(new StreamMessageId(1700, 0));
+        replayLog.open("s1", "u1");
+
+        SseFrameRelay.send(null, "end", "{}", "s1");
+        SseFrameRelay.finish("s1");
+
+        verify(stream).add(any(StreamAddArgs.class));
+        assertFalse(replayLog.isOpen("s1"));
+    }
+}
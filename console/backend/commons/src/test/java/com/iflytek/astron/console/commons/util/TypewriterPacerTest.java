@@ -0,0 +1,186 @@
+package com.iflytek.astron.console.commons.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TypewriterPacerTest {
+
+    private static final String SSE_ID = "typewriter-test";
+
+    @AfterEach
+    void tearDown() {
+        TypewriterPacer.discard(SSE_ID);
+        SseEmitterUtil.close(SSE_ID);
+    }
+
+    private List<Object> captureSends() throws Exception {
+        List<Object> sent = new CopyOnWriteArrayList<>();
+        SseEmitter emitter = mock(SseEmitter.class);
+        doAnswer(inv -> sent.add(inv.getArgument(0))).when(emitter).send(any(Object.class));
+        @SuppressWarnings("unchecked")
+        Map<String, SseEmitter> sessions = (Map<String, SseEmitter>) ReflectionTestUtils.getField(SseEmitterUtil.class, "SESSION_MAP");
+        sessions.put(SSE_ID, emitter);
+        return sent;
+    }
+
+    @Test
+    void send_returnsImmediatelyAndKeepsOrder() throws Exception {
+        List<Object> sent = captureSends();
+        CountDownLatch done = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            TypewriterPacer.send(SSE_ID, "c" + i, 20L);
+        }
+        TypewriterPacer.then(SSE_ID, done::countDown);
+        long enqueueMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 20 chunks x 20ms would block for ~400ms if paced on the caller thread
+        assertTrue(enqueueMs < 100, "enqueue took " + enqueueMs + "ms");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(20, sent.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("c" + i, sent.get(i));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 19 * 20);
+    }
+
+    @Test
+    void send_backlogFull_flushesWithoutPacing() throws Exception {
+        List<Object> sent = captureSends();
+
+        for (int i = 0; i <= TypewriterPacer.DEFAULT_MAX_BACKLOG + 1; i++) {
+            TypewriterPacer.send(SSE_ID, i, 1_000L);
+        }
+
+        assertTrue(TypewriterPacer.backlog(SSE_ID) <= TypewriterPacer.DEFAULT_MAX_BACKLOG);
+        assertTrue(sent.size() >= TypewriterPacer.DEFAULT_MAX_BACKLOG - 1);
+        for (int i = 0; i < sent.size(); i++) {
+            assertEquals(i, sent.get(i));
+        }
+    }
+
+    @Test
+    void send_backlogFlush_leavesOtherProducersUnblocked() throws Exception {
+        List<Object> sent = new CopyOnWriteArrayList<>();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter emitter = mock(SseEmitter.class);
+        doAnswer(inv -> {
+            if ("slow".equals(inv.getArgument(0))) {
+                sending.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return sent.add(inv.getArgument(0));
+        }).when(emitter).send(any(Object.class));
+        @SuppressWarnings("unchecked")
+        Map<String, SseEmitter> sessions = (Map<String, SseEmitter>) ReflectionTestUtils.getField(SseEmitterUtil.class, "SESSION_MAP");
+        sessions.put(SSE_ID, emitter);
+
+        // The driver is stuck sending to a slow client
+        TypewriterPacer.send(SSE_ID, "slow", 1_000L);
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        AtomicInteger queued = new AtomicInteger();
+        try {
+            Future<?> overflowing = producer.submit(() -> {
+                for (int i = 0; i <= TypewriterPacer.DEFAULT_MAX_BACKLOG; i++) {
+                    queued.incrementAndGet();
+                    TypewriterPacer.send(SSE_ID, i, 1_000L);
+                }
+            });
+            while (queued.get() <= TypewriterPacer.DEFAULT_MAX_BACKLOG) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(100);
+            assertFalse(overflowing.isDone());
+
+            // The overflowing producer waits for the slow send outside the map, so enqueueing still returns at once
+            long start = System.nanoTime();
+            TypewriterPacer.send(SSE_ID, "late", 0L);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+
+            release.countDown();
+            overflowing.get(5, TimeUnit.SECONDS);
+        } finally {
+            producer.shutdownNow();
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        TypewriterPacer.then(SSE_ID, done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(TypewriterPacer.DEFAULT_MAX_BACKLOG + 3, sent.size());
+        assertEquals("slow", sent.get(0));
+        for (int i = 0; i <= TypewriterPacer.DEFAULT_MAX_BACKLOG; i++) {
+            assertEquals(i, sent.get(i + 1));
+        }
+        assertEquals("late", sent.get(sent.size() - 1));
+    }
+
+    @Test
+    void close_dropsPendingChunks() throws Exception {
+        List<Object> sent = captureSends();
+        TypewriterPacer.send(SSE_ID, "first", 500L);
+        TypewriterPacer.send(SSE_ID, "second", 0L);
+
+        SseEmitterUtil.close(SSE_ID);
+
+        assertEquals(0, TypewriterPacer.backlog(SSE_ID));
+        Thread.sleep(700);
+        assertFalse(sent.contains("second"));
+    }
+
+    @Test
+    void send_emitterGone_drainsWithoutWaiting() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 0; i < 50; i++) {
+            TypewriterPacer.send(SSE_ID, "c" + i, 1_000L);
+        }
+        TypewriterPacer.then(SSE_ID, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void discard_dropsPendingChunks() throws Exception {
+        List<Object> sent = captureSends();
+        CountDownLatch done = new CountDownLatch(1);
+        TypewriterPacer.send(SSE_ID, "first", 500L);
+        TypewriterPacer.send(SSE_ID, "second", 0L);
+
+        TypewriterPacer.discard(SSE_ID);
+        TypewriterPacer.then(SSE_ID, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(sent.contains("second"));
+    }
+
+    @Test
+    void sendMsgLikeTypeWriter_queuesOneChunkPerCharacter() throws Exception {
+        List<Object> sent = captureSends();
+        CountDownLatch done = new CountDownLatch(1);
+
+        SseEmitterUtil.sendMsgLikeTypeWriter("ab你", SSE_ID, 5L);
+        TypewriterPacer.then(SSE_ID, done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, sent.size());
+        assertEquals(1L, SseEmitterUtil.typewriterPause('a', 5L));
+        assertEquals(5L, SseEmitterUtil.typewriterPause('你', 5L));
+    }
+}
@@ -0,0 +1,172 @@
+package com.iflytek.astron.console.commons.util.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.sse.EventSource;
+import okhttp3.sse.EventSourceListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientRegistryTest {
+
+    private HttpServer server;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private String url;
+
+    private final CountDownLatch streamRelease = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ping", exchange -> {
+            byte[] body = "pong".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/stream", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("data: first\n\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                streamRelease.await(10, TimeUnit.SECONDS);
+                out.write("data: second\n\n".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/ping";
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        Metrics.removeRegistry(meterRegistry);
+        for (HttpClientProfile profile : HttpClientProfile.values()) {
+            HttpClientRegistry.configure(profile, new HttpClientProperties.Settings());
+        }
+    }
+
+    @Test
+    void profiles_shareConnectionPoolButNotDispatcher() {
+        OkHttpClient unary = HttpClientRegistry.get(HttpClientProfile.UNARY);
+        OkHttpClient streaming = HttpClientRegistry.get(HttpClientProfile.STREAMING);
+
+        assertSame(unary.connectionPool(), streaming.connectionPool());
+        assertNotSame(unary.dispatcher(), streaming.dispatcher());
+        assertEquals(HttpClientProfile.STREAMING.getMaxRequestsPerHost(), streaming.dispatcher().getMaxRequestsPerHost());
+        assertEquals(60_000, unary.readTimeoutMillis());
+        assertEquals(0, streaming.callTimeoutMillis());
+    }
+
+    @Test
+    void configure_overridesOnlySetValuesAndKeepsPool() {
+        OkHttpClient before = HttpClientRegistry.get(HttpClientProfile.UNARY);
+        HttpClientProperties.Settings settings = new HttpClientProperties.Settings();
+        settings.setReadTimeout(Duration.ofSeconds(5));
+        settings.setMaxRequestsPerHost(8);
+
+        HttpClientRegistry.configure(HttpClientProfile.UNARY, settings);
+
+        OkHttpClient after = HttpClientRegistry.get(HttpClientProfile.UNARY);
+        assertEquals(5_000, after.readTimeoutMillis());
+        assertEquals(10_000, after.connectTimeoutMillis());
+        assertEquals(8, after.dispatcher().getMaxRequestsPerHost());
+        assertSame(before.connectionPool(), after.connectionPool());
+        assertSame(before.dispatcher(), after.dispatcher());
+    }
+
+    @Test
+    void calls_recordDurationQueueWaitAndInFlight() throws Exception {
+        try (Response response = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(new Request.Builder().url(url).build()).execute()) {
+            assertEquals("pong", response.body().string());
+        }
+        CompletableFuture<Void> async = new CompletableFuture<>();
+        // Derived clients keep the metrics of their profile
+        HttpClientRegistry.get(HttpClientProfile.STREAMING).newBuilder().build()
+                .newCall(new Request.Builder().url(url).build()).enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        async.completeExceptionally(e);
+                    }
+
+                    @Override
+                    public void onResponse(Call call, Response response) {
+                        response.close();
+                        async.complete(null);
+                    }
+                });
+        async.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, meterRegistry.get("http.upstream.duration").tag("profile", "unary").tag("host", "127.0.0.1")
+                .tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("http.upstream.queue_wait").tag("profile", "streaming").timer().count());
+        assertEquals(0, meterRegistry.get("http.upstream.in_flight").tag("profile", "unary").gauge().value());
+    }
+
+    @Test
+    void eventSources_recordDurationQueueWaitAndInFlight() throws Exception {
+        String streamUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/stream";
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        EventSource eventSource = HttpClientRegistry.newEventSource(HttpClientRegistry.get(HttpClientProfile.STREAMING).newBuilder().build(),
+                new Request.Builder().url(streamUrl).build(), new EventSourceListener() {
+                    @Override
+                    public void onEvent(EventSource eventSource, String id, String type, String data) {
+                        first.complete(null);
+                    }
+
+                    @Override
+                    public void onClosed(EventSource eventSource) {
+                        closed.complete(null);
+                    }
+
+                    @Override
+                    public void onFailure(EventSource eventSource, Throwable t, Response response) {
+                        first.completeExceptionally(t);
+                        closed.completeExceptionally(t);
+                    }
+                });
+        try {
+            first.get(10, TimeUnit.SECONDS);
+            // The stream is open: okhttp-sse runs it without the client's event listener
+            assertEquals(1, meterRegistry.get("http.upstream.in_flight").tag("profile", "streaming").gauge().value());
+            streamRelease.countDown();
+            closed.get(10, TimeUnit.SECONDS);
+        } finally {
+            eventSource.cancel();
+        }
+
+        assertEquals(0, meterRegistry.get("http.upstream.in_flight").tag("profile", "streaming").gauge().value());
+        assertEquals(1, meterRegistry.get("http.upstream.duration").tag("profile", "streaming").tag("host", "127.0.0.1")
+                .tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("http.upstream.queue_wait").tag("profile", "streaming").timer().count());
+    }
+}
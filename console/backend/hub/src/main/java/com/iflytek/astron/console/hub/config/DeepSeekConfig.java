@@ -1,5 +1,7 @@
 package com.iflytek.astron.console.hub.config;
 
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import lombok.Data;
 import okhttp3.OkHttpClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -22,7 +24,7 @@ public class DeepSeekConfig {
 
     @Bean("deepSeekHttpClient")
     public OkHttpClient deepSeekHttpClient() {
-        return new OkHttpClient.Builder()
+        return HttpClientRegistry.get(HttpClientProfile.STREAMING).newBuilder()
                 .connectTimeout(connectTimeout)
                 .readTimeout(readTimeout)
                 .writeTimeout(writeTimeout)
@@ -3,7 +3,15 @@ package com.iflytek.astron.console.hub.config;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.hub.config.cache.TwoLevelCacheManager;
+import com.iflytek.astron.console.hub.properties.LocalCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -28,40 +36,57 @@ import java.time.Duration;
 public class RedisCacheConfig implements CachingConfigurer {
 
     private final ObjectMapper objectMapper;
+    private final LocalCacheProperties localCacheProperties;
+    private final ObjectProvider<RedissonClient> redissonClientProvider;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
 
-    public RedisCacheConfig(ObjectMapper objectMapper) {
+    public RedisCacheConfig(ObjectMapper objectMapper, LocalCacheProperties localCacheProperties,
+            ObjectProvider<RedissonClient> redissonClientProvider, ObjectProvider<MeterRegistry> meterRegistryProvider) {
         this.objectMapper = objectMapper;
+        this.localCacheProperties = localCacheProperties;
+        this.redissonClientProvider = redissonClientProvider;
+        this.meterRegistryProvider = meterRegistryProvider;
     }
 
     @Bean
     @Primary
     public CacheManager cacheManagerDefault(RedisConnectionFactory redisConnectionFactory) {
-        RedisCacheConfiguration config = createBaseCacheConfiguration(Duration.ofMinutes(5));
-        return RedisCacheManager.builder(redisConnectionFactory).cacheDefaults(config).build();
+        return createCacheManager("cacheManagerDefault", redisConnectionFactory, Duration.ofMinutes(5));
     }
 
     @Bean("cacheManager10s")
     public CacheManager cacheManager10s(RedisConnectionFactory redisConnectionFactory) {
-        RedisCacheConfiguration config = createBaseCacheConfiguration(Duration.ofSeconds(10));
-        return RedisCacheManager.builder(redisConnectionFactory).cacheDefaults(config).build();
+        return createCacheManager("cacheManager10s", redisConnectionFactory, Duration.ofSeconds(10));
     }
 
     @Bean("cacheManager5min")
     public CacheManager cacheManager5min(RedisConnectionFactory redisConnectionFactory) {
-        RedisCacheConfiguration config = createBaseCacheConfiguration(Duration.ofMinutes(5));
-        return RedisCacheManager.builder(redisConnectionFactory).cacheDefaults(config).build();
+        return createCacheManager("cacheManager5min", redisConnectionFactory, Duration.ofMinutes(5));
     }
 
     @Bean("cacheManager30min")
     public CacheManager cacheManager30min(RedisConnectionFactory redisConnectionFactory) {
-        RedisCacheConfiguration config = createBaseCacheConfiguration(Duration.ofMinutes(30));
-        return RedisCacheManager.builder(redisConnectionFactory).cacheDefaults(config).build();
+        return createCacheManager("cacheManager30min", redisConnectionFactory, Duration.ofMinutes(30));
     }
 
     @Bean("cacheManager1h")
     public CacheManager cacheManager1h(RedisConnectionFactory redisConnectionFactory) {
-        RedisCacheConfiguration config = createBaseCacheConfiguration(Duration.ofHours(1));
-        return RedisCacheManager.builder(redisConnectionFactory).cacheDefaults(config).build();
+        return createCacheManager("cacheManager1h", redisConnectionFactory, Duration.ofHours(1));
+    }
+
+    /**
+     * Redis cache manager, fronted by the local tier for the caches listed in {@link LocalCacheProperties}
+     */
+    private CacheManager createCacheManager(String name, RedisConnectionFactory redisConnectionFactory, Duration ttl) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(createBaseCacheConfiguration(ttl))
+                .build();
+        if (!localCacheProperties.isEnabled()) {
+            return redisCacheManager;
+        }
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        RTopic topic = redissonClient == null ? null : redissonClient.getTopic(RedisKeyConstant.CACHE_INVALIDATE_TOPIC, StringCodec.INSTANCE);
+        return new TwoLevelCacheManager(name, redisCacheManager, ttl, localCacheProperties, topic, meterRegistryProvider.getIfAvailable());
     }
 
     private RedisCacheConfiguration createBaseCacheConfiguration(Duration ttl) {
@@ -0,0 +1,241 @@
+package com.iflytek.astron.console.hub.config.cache;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A Redis backed cache with a bounded in-process copy in front of it.
+ * <p>
+ * Reads are served locally while the entry is younger than the local TTL; hits on entries older than
+ * the refresh age re-read Redis in the background. Writes and evictions go to Redis first, then to the
+ * local copy, and are broadcast so that other nodes drop their own copy of the key.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final Cache remote;
+    private final com.google.common.cache.Cache<String, Entry> local;
+    private final long refreshAfterNanos;
+    private final Ticker ticker;
+    private final Executor refreshExecutor;
+    private final Consumer<String> broadcaster;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    /**
+     * Bumped on every invalidation, so a Redis read racing with one is not kept locally
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Timer remoteLoad;
+
+    private record Entry(ValueWrapper value, long loadedAt) {
+    }
+
+    /**
+     * @param broadcaster Tells other nodes to drop a key, null meaning the whole cache
+     * @param meterRegistry Null to skip metrics
+     */
+    public TwoLevelCache(String name, Cache remote, long maximumSize, Duration ttl, Duration refreshAfter,
+            Ticker ticker, Executor refreshExecutor, Consumer<String> broadcaster, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.remote = remote;
+        this.local = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+                .ticker(ticker)
+                .build();
+        this.refreshAfterNanos = refreshAfter.isZero() || refreshAfter.compareTo(ttl) >= 0 ? 0 : refreshAfter.toNanos();
+        this.ticker = ticker;
+        this.refreshExecutor = refreshExecutor;
+        this.broadcaster = broadcaster;
+        this.localHits = counter(meterRegistry, "local", "hit");
+        this.localMisses = counter(meterRegistry, "local", "miss");
+        this.remoteHits = counter(meterRegistry, "remote", "hit");
+        this.remoteMisses = counter(meterRegistry, "remote", "miss");
+        this.remoteLoad = meterRegistry == null ? null
+                : Timer.builder("cache.two_level.remote.load")
+                        .description("Latency of reading Redis after a local cache miss")
+                        .tag("cache", name)
+                        .register(meterRegistry);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        if (meterRegistry == null) {
+            return null;
+        }
+        return Counter.builder("cache.two_level.gets")
+                .description("Cache lookups per tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    /**
+     * Redis keys are strings too, which lets other nodes name the entry to drop
+     */
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Entry entry = local.getIfPresent(localKey(key));
+        if (entry != null) {
+            increment(localHits);
+            refreshIfStale(key, entry);
+            return entry.value();
+        }
+        increment(localMisses);
+        long generation = invalidations.get();
+        long start = System.nanoTime();
+        ValueWrapper value = remote.get(key);
+        if (remoteLoad != null) {
+            remoteLoad.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        if (value == null) {
+            increment(remoteMisses);
+            return null;
+        }
+        increment(remoteHits);
+        keep(key, value, generation);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object stored = value == null ? null : value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        long generation = invalidations.get();
+        T value = remote.get(key, valueLoader);
+        if (value != null) {
+            keep(key, new SimpleValueWrapper(value), generation);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        invalidations.incrementAndGet();
+        local.put(localKey(key), new Entry(new SimpleValueWrapper(value), ticker.read()));
+        broadcaster.accept(localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        invalidateLocal(localKey(key));
+        broadcaster.accept(localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = remote.evictIfPresent(key);
+        invalidateLocal(localKey(key));
+        broadcaster.accept(localKey(key));
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        invalidateLocal(null);
+        broadcaster.accept(null);
+    }
+
+    /**
+     * Drop a key from this node only, null meaning the whole cache
+     */
+    void invalidateLocal(String key) {
+        invalidations.incrementAndGet();
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    private void keep(Object key, ValueWrapper value, long generation) {
+        if (invalidations.get() == generation) {
+            local.put(localKey(key), new Entry(value, ticker.read()));
+        }
+    }
+
+    private void refreshIfStale(Object key, Entry entry) {
+        if (refreshAfterNanos == 0 || ticker.read() - entry.loadedAt() < refreshAfterNanos || !refreshing.add(localKey(key))) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> refresh(key, entry));
+        } catch (Exception e) {
+            refreshing.remove(localKey(key));
+            log.warn("Cache [{}] refresh of key {} not scheduled", name, key, e);
+        }
+    }
+
+    private void refresh(Object key, Entry entry) {
+        try {
+            ValueWrapper value = remote.get(key);
+            // Only replace the entry that triggered the refresh, an invalidation since wins
+            if (value == null) {
+                local.asMap().remove(localKey(key), entry);
+            } else {
+                local.asMap().replace(localKey(key), entry, new Entry(value, ticker.read()));
+            }
+        } catch (Exception e) {
+            log.warn("Cache [{}] refresh of key {} failed", name, key, e);
+        } finally {
+            refreshing.remove(localKey(key));
+        }
+    }
+}
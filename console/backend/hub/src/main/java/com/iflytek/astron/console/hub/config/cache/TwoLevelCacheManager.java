@@ -0,0 +1,143 @@
+package com.iflytek.astron.console.hub.config.cache;
+
+import com.alibaba.fastjson2.JSON;
+import com.google.common.base.Ticker;
+import com.iflytek.astron.console.hub.properties.LocalCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Wraps a Redis {@link CacheManager}, serving the caches named in {@link LocalCacheProperties} through a
+ * {@link TwoLevelCache}.
+ * <p>
+ * Every node publishes the keys it writes or evicts on a shared Redis topic and drops the keys other
+ * nodes publish, so the local tier stays in step with Redis across the cluster.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, InitializingBean, DisposableBean {
+
+    private static final String NODE_ID = UUID.randomUUID().toString();
+
+    private final String name;
+    private final CacheManager remote;
+    private final Duration remoteTtl;
+    private final LocalCacheProperties properties;
+    private final RTopic topic;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private Integer listenerId;
+
+    /**
+     * Invalidation of one key, or of the whole cache when the key is null
+     */
+    record Invalidation(String origin, String manager, String cache, String key) {
+    }
+
+    /**
+     * @param name Distinguishes managers sharing the topic, as the same cache name may live in several
+     * @param remoteTtl TTL of the Redis entries, the local tier never outlives it
+     * @param topic Null to only invalidate this node
+     * @param meterRegistry Null to skip metrics
+     */
+    public TwoLevelCacheManager(String name, CacheManager remote, Duration remoteTtl, LocalCacheProperties properties,
+            RTopic topic, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.remote = remote;
+        this.remoteTtl = remoteTtl;
+        this.properties = properties;
+        this.topic = topic;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (remote instanceof InitializingBean initializingBean) {
+            try {
+                initializingBean.afterPropertiesSet();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to initialize cache manager " + name, e);
+            }
+        }
+        if (topic == null) {
+            return;
+        }
+        try {
+            listenerId = topic.addListener(String.class, (channel, message) -> onInvalidation(message));
+        } catch (Exception e) {
+            // Other nodes' writes are then only picked up when local entries expire
+            log.error("Cache manager {} failed to subscribe to invalidations", name, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (listenerId != null) {
+            topic.removeListener(listenerId);
+        }
+        refreshExecutor.shutdownNow();
+    }
+
+    @Override
+    public Cache getCache(String cacheName) {
+        Cache cache = caches.get(cacheName);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(cacheName);
+        if (remoteCache == null || !properties.getNames().contains(cacheName)) {
+            return remoteCache;
+        }
+        return caches.computeIfAbsent(cacheName, key -> {
+            Duration ttl = properties.ttl(cacheName);
+            return new TwoLevelCache(cacheName, remoteCache, properties.maximumSize(cacheName),
+                    ttl.compareTo(remoteTtl) > 0 ? remoteTtl : ttl, properties.refreshAfter(cacheName),
+                    Ticker.systemTicker(), refreshExecutor, changedKey -> publish(cacheName, changedKey), meterRegistry);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    private void publish(String cacheName, String key) {
+        if (topic == null) {
+            return;
+        }
+        try {
+            topic.publish(JSON.toJSONString(new Invalidation(NODE_ID, name, cacheName, key)));
+        } catch (Exception e) {
+            log.error("Cache [{}] failed to broadcast invalidation of key {}", cacheName, key, e);
+        }
+    }
+
+    void onInvalidation(String message) {
+        Invalidation invalidation;
+        try {
+            invalidation = JSON.parseObject(message, Invalidation.class);
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cache invalidation {}", message);
+            return;
+        }
+        if (invalidation == null || NODE_ID.equals(invalidation.origin()) || !name.equals(invalidation.manager())) {
+            return;
+        }
+        if (caches.get(invalidation.cache()) instanceof TwoLevelCache cache) {
+            cache.invalidateLocal(invalidation.key());
+        }
+    }
+}
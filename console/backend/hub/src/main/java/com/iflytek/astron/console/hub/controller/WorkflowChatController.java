@@ -2,7 +2,7 @@ package com.iflytek.astron.console.hub.controller;
 
 import com.iflytek.astron.console.commons.dto.workflow.WorkflowChatRequest;
 import com.iflytek.astron.console.commons.dto.workflow.WorkflowResumeReq;
-import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.SseSessionRegistry;
 import com.iflytek.astron.console.hub.service.WorkflowChatService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -29,6 +29,8 @@ public class WorkflowChatController {
 
     private final WorkflowChatService workflowChatService;
 
+    private final SseSessionRegistry sseSessionRegistry;
+
     /**
      * Start workflow chat stream
      *
@@ -71,7 +73,7 @@ public class WorkflowChatController {
             @PathVariable String streamId) {
         log.info("Stopping workflow chat stream, streamId: {}", streamId);
 
-        SseEmitterUtil.stopStream(streamId);
+        sseSessionRegistry.stop(streamId);
     }
 
     /**
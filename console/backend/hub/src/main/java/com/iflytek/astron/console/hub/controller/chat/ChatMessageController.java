@@ -12,6 +12,9 @@ import com.iflytek.astron.console.commons.service.bot.ChatBotDataService;
 import com.iflytek.astron.console.commons.service.data.ChatDataService;
 import com.iflytek.astron.console.commons.service.data.ChatListDataService;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.SseFrameRelay;
+import com.iflytek.astron.console.commons.util.SseSessionRegistry;
+import com.iflytek.astron.console.commons.util.StreamReplayLog;
 import com.iflytek.astron.console.hub.dto.chat.BotDebugRequest;
 import com.iflytek.astron.console.commons.dto.bot.ChatBotReqDto;
 import com.iflytek.astron.console.hub.dto.chat.StopStreamResponse;
@@ -19,15 +22,13 @@ import com.iflytek.astron.console.commons.entity.chat.ChatList;
 import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
 import com.iflytek.astron.console.commons.entity.chat.ChatTreeIndex;
 import com.iflytek.astron.console.hub.service.chat.BotChatService;
+import com.iflytek.astron.console.hub.service.chat.StreamResumeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.redisson.api.RTopic;
-import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -56,9 +57,13 @@ public class ChatMessageController {
     private ChatDataService chatDataService;
 
     @Autowired
-    private RedissonClient redissonClient;
+    private SseSessionRegistry sseSessionRegistry;
 
-    public static final String STOP_GENERATE_SUBSCRIBE_PUBLISH_CHANNEL = "stop_generate_sub_pub";
+    @Autowired
+    private StreamReplayLog streamReplayLog;
+
+    @Autowired
+    private StreamResumeService streamResumeService;
 
     /**
      * Conduct chat session based on chatId
@@ -72,6 +77,7 @@ public class ChatMessageController {
             @RequestParam(required = false) String workflowVersion) {
         String sseId = RandomUtil.randomString(8);
         SseEmitter sseEmitter = SseEmitterUtil.createSseEmitter();
+        sseSessionRegistry.bind(sseId, SseSessionRegistry.StreamType.HUB_CHAT, sseEmitter);
 
         log.info("Establishing SSE connection, sseId: {}, chatId: {}", sseId, chatId);
 
@@ -191,12 +197,13 @@ public class ChatMessageController {
         ChatBotReqDto chatBotReqDto = buildChatBotRequest(chatContext, text, fileUrl);
 
         try {
+            streamReplayLog.open(sseId, chatContext.uid());
             sendStartSignal(sseEmitter, sseId, chatContext);
             botChatService.chatMessageBot(chatBotReqDto, sseEmitter, sseId, workflowOperation, workflowVersion);
             return sseEmitter;
         } catch (Exception e) {
             log.error("Bot chat error, sseId: {}, uid: {}, chatId: {}, botId: {}", sseId, chatContext.uid(), chatContext.chatId(), chatContext.botId(), e);
-            SseEmitterUtil.completeWithError(sseEmitter, "Chat service exception: " + e.getMessage());
+            SseFrameRelay.completeWithError(sseEmitter, "Chat service exception: " + e.getMessage(), sseId);
             return sseEmitter;
         }
     }
@@ -259,20 +266,22 @@ public class ChatMessageController {
     @Operation(summary = "Stop generation")
     public StopStreamResponse stopStream(@RequestParam String streamId) {
         log.info("Stopping SSE stream, sseId: {}", streamId);
-        RTopic topic = redissonClient.getTopic(STOP_GENERATE_SUBSCRIBE_PUBLISH_CHANNEL);
-        topic.publish(streamId);
+        sseSessionRegistry.stop(streamId);
         return StopStreamResponse.success(streamId);
     }
 
     /**
-     * Subscribe method, used to subscribe to specified publish channel messages
+     * Reconnect to a chat stream, replaying the events after the last one received
      */
-    @PostConstruct
-    public void subscribe() {
-        RTopic topic = redissonClient.getTopic(STOP_GENERATE_SUBSCRIBE_PUBLISH_CHANNEL);
-        topic.addListener(String.class, (channel, msg) -> {
-            SseEmitterUtil.stopStream(msg);
-        });
+    @GetMapping(path = "/reconnect", produces = "text/event-stream;charset=UTF-8")
+    @Operation(summary = "Reconnect to chat stream")
+    public SseEmitter reconnect(@RequestParam String streamId,
+            @RequestParam(required = false) String lastEventId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader) {
+        String uid = RequestContextUtil.getUID();
+        String resumeFrom = StringUtils.isNotBlank(lastEventIdHeader) ? lastEventIdHeader : lastEventId;
+        log.info("Reconnecting SSE stream, sseId: {}, lastEventId: {}", streamId, resumeFrom);
+        return streamResumeService.resume(streamId, resumeFrom, uid);
     }
 
     /**
@@ -283,6 +292,7 @@ public class ChatMessageController {
     public SseEmitter reAnswer(@RequestParam Long chatId, @RequestParam Long requestId) {
         String sseId = RandomUtil.randomString(8);
         SseEmitter sseEmitter = SseEmitterUtil.createSseEmitter();
+        sseSessionRegistry.bind(sseId, SseSessionRegistry.StreamType.HUB_CHAT, sseEmitter);
 
         log.info("Establishing SSE connection, sseId: {}, chatId: {}", sseId, chatId);
 
@@ -352,12 +362,13 @@ public class ChatMessageController {
                 sseId, requestId);
 
         try {
+            streamReplayLog.open(sseId, chatContext.uid());
             sendStartSignal(sseEmitter, sseId, chatContext);
             botChatService.reAnswerMessageBot(requestId, chatContext.botId, sseEmitter, sseId);
             return sseEmitter;
         } catch (Exception e) {
             log.error("Bot chat error, sseId: {}, uid: {}, chatId: {}, botId: {}", sseId, chatContext.uid(), chatContext.chatId(), chatContext.botId(), e);
-            SseEmitterUtil.completeWithError(sseEmitter, "Chat service exception: " + e.getMessage());
+            SseFrameRelay.completeWithError(sseEmitter, "Chat service exception: " + e.getMessage(), sseId);
             return sseEmitter;
         }
     }
@@ -371,6 +382,7 @@ public class ChatMessageController {
         String uid = RequestContextUtil.getUID();
         String sseId = RandomUtil.randomString(6);
         SseEmitter sseEmitter = SseEmitterUtil.createSseEmitter();
+        sseSessionRegistry.bind(sseId, SseSessionRegistry.StreamType.HUB_CHAT, sseEmitter);
 
         log.info("Debug interface establishing SSE connection, sseId: {}", sseId);
         // Check if multi-turn conversation is selected
@@ -12,7 +12,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/notifications")
@@ -51,6 +53,15 @@ public class NotificationController {
         return ApiResult.success(unreadCount);
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to current user's notifications", description = "Stream new notifications and unread count changes of current user")
+    public SseEmitter subscribeNotifications() {
+        String currentUserUid = RequestContextUtil.getUID();
+        log.debug("Subscribe user notifications: uid={}", currentUserUid);
+
+        return notificationService.subscribeNotifications(currentUserUid);
+    }
+
     @PostMapping("/mark-read")
     @Operation(summary = "Mark notifications as read", description = "Mark specified notification messages as read status")
     public ApiResult<Boolean> markNotificationsAsRead(@Valid @RequestBody MarkReadRequest request) {
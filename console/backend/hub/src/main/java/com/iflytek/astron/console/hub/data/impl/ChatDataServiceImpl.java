@@ -115,6 +115,11 @@ public class ChatDataServiceImpl implements ChatDataService {
         return chatReqRecords;
     }
 
+    @Override
+    public void deleteRequest(Long id) {
+        chatReqRecordsMapper.deleteById(id);
+    }
+
     @Override
     public List<ChatRespRecords> findResponsesByReqId(Long reqId) {
         LambdaQueryWrapper<ChatRespRecords> wrapper = new LambdaQueryWrapper<>();
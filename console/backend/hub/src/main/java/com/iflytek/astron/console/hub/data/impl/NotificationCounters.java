@@ -0,0 +1,466 @@
+package com.iflytek.astron.console.hub.data.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.google.common.collect.Lists;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.commons.data.UserInfoDataService;
+import com.iflytek.astron.console.commons.entity.user.UserInfo;
+import com.iflytek.astron.console.hub.entity.notification.Notification;
+import com.iflytek.astron.console.hub.entity.notification.UserNotification;
+import com.iflytek.astron.console.hub.enums.NotificationType;
+import com.iflytek.astron.console.hub.event.NotificationCountsChangedEvent;
+import com.iflytek.astron.console.hub.mapper.notification.NotificationMapper;
+import com.iflytek.astron.console.hub.mapper.notification.UserBroadcastReadMapper;
+import com.iflytek.astron.console.hub.mapper.notification.UserNotificationMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unread and total notification counts of every user, kept in Redis and moved by each write instead of
+ * being counted in the database on every read.
+ * <p>
+ * A user's hash holds the personal unread and total counts and the number of broadcasts read. It is
+ * loaded from the database on the first read and moved with HINCRBY by every write, inside the
+ * writing transaction and undone if that rolls back. A write finding no hash leaves a short-lived
+ * marker, so that a load racing the write is not cached. The hash expires, which reconciles each
+ * active user against the database periodically.
+ * <p>
+ * Broadcasts are not fanned out: live broadcasts sit in one sorted set scored by creation time, and a
+ * user sees those created since registering. The reconciler, run by one node at a time, rebuilds that
+ * set from the database, and drops the counts of the receivers of expired personal notifications.
+ */
+@Slf4j
+@Component
+public class NotificationCounters {
+
+    private static final String RECONCILE_LOCK_KEY = "cron:notification:counters:reconcile:lock";
+    private static final int BATCH_SIZE = 500;
+    /** Broadcasts younger than this are kept in the set even if the database did not list them yet */
+    private static final long BROADCAST_GRACE_MS = 60_000;
+
+    /**
+     * KEYS: counter hash, live broadcasts, broadcast generation. Returns personal unread, personal
+     * total, broadcasts read and broadcasts visible, or nil when the user must be loaded.
+     */
+    @SuppressWarnings("rawtypes")
+    static final DefaultRedisScript<List> READ = new DefaultRedisScript<>(
+            "local v = redis.call('HMGET', KEYS[1], 'unread', 'total', 'broadcast_read', 'since', 'gen') "
+                    + "if not v[1] or not v[5] then return false end "
+                    + "if v[5] ~= (redis.call('GET', KEYS[3]) or '0') then return false end "
+                    + "local visible = 0 "
+                    + "if tonumber(v[4]) >= 0 then visible = redis.call('ZCOUNT', KEYS[2], v[4], '+inf') end "
+                    + "return {tonumber(v[1]), tonumber(v[2]), tonumber(v[3]), visible}",
+            List.class);
+
+    /**
+     * KEYS: counter hash, stale marker, broadcast generation. ARGV: personal unread, personal total,
+     * broadcasts read, registration time, generation read before loading, TTL in ms. Caches the loaded
+     * counts unless they were loaded already, changed meanwhile or broadcasts left the set meanwhile.
+     */
+    static final DefaultRedisScript<Long> INIT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 or redis.call('EXISTS', KEYS[2]) == 1 then return 0 end "
+                    + "if (redis.call('GET', KEYS[3]) or '0') ~= ARGV[5] then return 0 end "
+                    + "redis.call('HSET', KEYS[1], 'unread', ARGV[1], 'total', ARGV[2], 'broadcast_read', ARGV[3], "
+                    + "'since', ARGV[4], 'gen', ARGV[5]) "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[6]) "
+                    + "return 1",
+            Long.class);
+
+    /**
+     * KEYS: counter hash and stale marker of each user. ARGV: marker TTL in ms, then the unread, total
+     * and broadcasts read deltas of each user. Users without a hash get the marker instead.
+     */
+    static final DefaultRedisScript<Long> DELTA = new DefaultRedisScript<>(
+            "for i = 1, #KEYS, 2 do "
+                    + "  local a = 1 + (i - 1) / 2 * 3 "
+                    + "  if redis.call('EXISTS', KEYS[i]) == 1 then "
+                    + "    if ARGV[a + 1] ~= '0' then redis.call('HINCRBY', KEYS[i], 'unread', ARGV[a + 1]) end "
+                    + "    if ARGV[a + 2] ~= '0' then redis.call('HINCRBY', KEYS[i], 'total', ARGV[a + 2]) end "
+                    + "    if ARGV[a + 3] ~= '0' then redis.call('HINCRBY', KEYS[i], 'broadcast_read', ARGV[a + 3]) end "
+                    + "  else redis.call('SET', KEYS[i + 1], '1', 'PX', ARGV[1]) end "
+                    + "end "
+                    + "return #KEYS / 2",
+            Long.class);
+
+    /**
+     * KEYS: counter hash and stale marker of each user. ARGV: marker TTL in ms.
+     */
+    static final DefaultRedisScript<Long> INVALIDATE = new DefaultRedisScript<>(
+            "for i = 1, #KEYS, 2 do "
+                    + "  redis.call('DEL', KEYS[i]) "
+                    + "  redis.call('SET', KEYS[i + 1], '1', 'PX', ARGV[1]) "
+                    + "end "
+                    + "return #KEYS / 2",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedissonClient redissonClient;
+    @Autowired
+    private NotificationMapper notificationMapper;
+    @Autowired
+    private UserNotificationMapper userNotificationMapper;
+    @Autowired
+    private UserBroadcastReadMapper userBroadcastReadMapper;
+    @Autowired
+    private UserInfoDataService userInfoDataService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /** How long loaded counts are trusted before being reloaded from the database */
+    @Value("${notification.counter.ttl-seconds:1800}")
+    private long ttlSeconds = 1800;
+    /** Longer than any transaction writing notifications */
+    @Value("${notification.counter.stale-marker-ms:30000}")
+    private long staleMarkerMs = 30_000;
+
+    /**
+     * @return Counts of the user, loaded from the database if Redis does not hold them
+     */
+    public Counts get(String uid) {
+        try {
+            List<?> cached = stringRedisTemplate.execute(READ, List.of(counterKey(uid), RedisKeyConstant.NOTIFICATION_BROADCASTS,
+                    RedisKeyConstant.NOTIFICATION_BROADCAST_GENERATION));
+            if (cached != null && cached.size() == 4) {
+                return new Counts(longAt(cached, 0), longAt(cached, 1), longAt(cached, 2), longAt(cached, 3));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read notification counts for user: {}, error: {}", uid, e.getMessage());
+            return load(uid, false);
+        }
+        return load(uid, true);
+    }
+
+    /**
+     * Count personal notifications just inserted for their receivers
+     */
+    public void personalAdded(Collection<UserNotification> userNotifications) {
+        Map<String, long[]> deltas = new LinkedHashMap<>();
+        for (UserNotification userNotification : userNotifications) {
+            long[] delta = deltas.computeIfAbsent(userNotification.getReceiverUid(), uid -> new long[3]);
+            delta[1]++;
+            if (!Boolean.TRUE.equals(userNotification.getIsRead())) {
+                delta[0]++;
+            }
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Count personal notifications of a user just marked as read
+     */
+    public void personalRead(String uid, long count) {
+        if (count > 0) {
+            apply(Map.of(uid, new long[] {-count, 0, 0}));
+        }
+    }
+
+    /**
+     * Count broadcasts of a user just marked as read
+     */
+    public void broadcastsRead(String uid, long count) {
+        if (count > 0) {
+            apply(Map.of(uid, new long[] {0, 0, count}));
+        }
+    }
+
+    /**
+     * Drop the counts of users whose change cannot be counted, so they are loaded again
+     */
+    public void invalidate(Collection<String> uids) {
+        if (uids.isEmpty()) {
+            return;
+        }
+        try {
+            for (List<String> batch : Lists.partition(new ArrayList<>(new LinkedHashSet<>(uids)), BATCH_SIZE)) {
+                stringRedisTemplate.execute(INVALIDATE, userKeys(batch), String.valueOf(staleMarkerMs));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to invalidate notification counts for {} users, error: {}", uids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Track a notification once its transaction commits: a broadcast joins the live broadcasts, a
+     * personal notification that expires is remembered so its receivers are recounted then
+     */
+    public void notificationCreated(Notification notification) {
+        afterCommit(() -> {
+            try {
+                if (NotificationType.BROADCAST.getCode().equals(notification.getType())) {
+                    if (notification.getExpireAt() == null || notification.getExpireAt().isAfter(LocalDateTime.now())) {
+                        stringRedisTemplate.opsForZSet().add(RedisKeyConstant.NOTIFICATION_BROADCASTS,
+                                String.valueOf(notification.getId()), epochMillis(notification.getCreatedAt()));
+                    }
+                } else if (notification.getExpireAt() != null) {
+                    stringRedisTemplate.opsForZSet().add(RedisKeyConstant.NOTIFICATION_EXPIRY,
+                            String.valueOf(notification.getId()), epochMillis(notification.getExpireAt()));
+                }
+            } catch (Exception e) {
+                // The reconciler adds broadcasts; personal expiry is then caught by the counts TTL
+                log.warn("Failed to track notification: {}, error: {}", notification.getId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Rebuild the live broadcasts and recount the receivers of expired notifications, on one node at
+     * a time
+     */
+    @Scheduled(fixedDelayString = "${notification.counter.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        RLock lock = redissonClient.getLock(RECONCILE_LOCK_KEY);
+        try {
+            if (!lock.tryLock(0, 5, TimeUnit.MINUTES)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            syncBroadcasts(System.currentTimeMillis());
+            expireNotifications(System.currentTimeMillis());
+        } catch (Exception e) {
+            log.warn("Failed to reconcile notification counts: {}", e.getMessage());
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Make the live broadcasts match the database. When broadcasts leave, the generation is bumped so
+     * every user's read broadcasts are recounted on their next read.
+     *
+     * @return Number of broadcasts added or removed
+     */
+    int syncBroadcasts(long now) {
+        Map<String, Double> live = new HashMap<>();
+        List<Notification> page;
+        int offset = 0;
+        do {
+            page = notificationMapper.selectByType(NotificationType.BROADCAST.getCode(), offset, BATCH_SIZE);
+            page.forEach(broadcast -> live.put(String.valueOf(broadcast.getId()), (double) epochMillis(broadcast.getCreatedAt())));
+            offset += BATCH_SIZE;
+        } while (page.size() == BATCH_SIZE);
+
+        Map<String, Double> current = new HashMap<>();
+        Set<TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet().rangeWithScores(RedisKeyConstant.NOTIFICATION_BROADCASTS, 0, -1);
+        if (tuples != null) {
+            tuples.forEach(tuple -> current.put(tuple.getValue(), tuple.getScore()));
+        }
+        Set<TypedTuple<String>> added = new HashSet<>();
+        live.forEach((id, createdAt) -> {
+            if (!createdAt.equals(current.get(id))) {
+                added.add(TypedTuple.of(id, createdAt));
+            }
+        });
+        List<String> removed = current.entrySet().stream()
+                .filter(entry -> !live.containsKey(entry.getKey()) && entry.getValue() < now - BROADCAST_GRACE_MS)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        if (!added.isEmpty()) {
+            stringRedisTemplate.opsForZSet().add(RedisKeyConstant.NOTIFICATION_BROADCASTS, added);
+        }
+        if (!removed.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(RedisKeyConstant.NOTIFICATION_BROADCASTS, removed.toArray());
+        }
+        if (!removed.isEmpty() || !Boolean.TRUE.equals(stringRedisTemplate.hasKey(RedisKeyConstant.NOTIFICATION_BROADCAST_GENERATION))) {
+            stringRedisTemplate.opsForValue().increment(RedisKeyConstant.NOTIFICATION_BROADCAST_GENERATION);
+        }
+        if (!removed.isEmpty()) {
+            log.info("Broadcasts left the live set: {}", removed);
+        }
+        return added.size() + removed.size();
+    }
+
+    /**
+     * Recount the receivers of personal notifications that expired
+     *
+     * @return Number of users recounted
+     */
+    int expireNotifications(long now) {
+        Set<String> recounted = new LinkedHashSet<>();
+        while (true) {
+            Set<String> expired = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(RedisKeyConstant.NOTIFICATION_EXPIRY, Double.NEGATIVE_INFINITY, now, 0, BATCH_SIZE);
+            if (expired == null || expired.isEmpty()) {
+                break;
+            }
+            List<String> receivers = userNotificationMapper.selectList(new QueryWrapper<UserNotification>()
+                    .select("DISTINCT receiver_uid")
+                    .in("notification_id", expired.stream().map(Long::valueOf).toList()))
+                    .stream()
+                    .map(UserNotification::getReceiverUid)
+                    .filter(StrUtil::isNotBlank)
+                    .toList();
+            invalidate(receivers);
+            recounted.addAll(receivers);
+            stringRedisTemplate.opsForZSet().remove(RedisKeyConstant.NOTIFICATION_EXPIRY, expired.toArray());
+            if (expired.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+        if (!recounted.isEmpty()) {
+            eventPublisher.publishEvent(new NotificationCountsChangedEvent(this, recounted));
+        }
+        return recounted.size();
+    }
+
+    private Counts load(String uid, boolean cache) {
+        String generation = null;
+        if (cache) {
+            try {
+                generation = stringRedisTemplate.opsForValue().get(RedisKeyConstant.NOTIFICATION_BROADCAST_GENERATION);
+            } catch (Exception e) {
+                log.warn("Failed to read broadcast generation: {}", e.getMessage());
+            }
+        }
+
+        long personalUnread = userNotificationMapper.countUnreadByUid(uid);
+        long personalTotal = userNotificationMapper.selectCount(new QueryWrapper<UserNotification>().eq("receiver_uid", uid));
+        LocalDateTime registeredAt = userInfoDataService.findByUid(uid).map(UserInfo::getCreateTime).orElse(null);
+        if (registeredAt == null) {
+            log.warn("User or user create time not found for uid: {}", uid);
+        }
+        long since = registeredAt == null ? -1 : epochMillis(registeredAt);
+        long broadcastsRead = since < 0 ? 0 : userBroadcastReadMapper.countUserReadBroadcastMessages(uid);
+
+        long broadcastsVisible = since < 0 ? 0 : -1;
+        if (generation != null) {
+            try {
+                if (broadcastsVisible < 0) {
+                    Long visible = stringRedisTemplate.opsForZSet().count(RedisKeyConstant.NOTIFICATION_BROADCASTS, since, Double.POSITIVE_INFINITY);
+                    broadcastsVisible = visible == null ? 0 : visible;
+                }
+                stringRedisTemplate.execute(INIT, List.of(counterKey(uid), staleKey(uid), RedisKeyConstant.NOTIFICATION_BROADCAST_GENERATION),
+                        String.valueOf(personalUnread), String.valueOf(personalTotal), String.valueOf(broadcastsRead),
+                        String.valueOf(since), generation, String.valueOf(TimeUnit.SECONDS.toMillis(ttlSeconds)));
+            } catch (Exception e) {
+                log.warn("Failed to cache notification counts for user: {}, error: {}", uid, e.getMessage());
+            }
+        }
+        if (broadcastsVisible < 0) {
+            // Live broadcasts not in Redis yet
+            broadcastsVisible = notificationMapper.countBroadcastMessagesAfter(registeredAt);
+        }
+        return new Counts(personalUnread, personalTotal, broadcastsRead, broadcastsVisible);
+    }
+
+    /**
+     * Move counts now and move them back if the surrounding transaction rolls back, so that a load
+     * racing the transaction either sees the change in both places or is not cached
+     */
+    private void apply(Map<String, long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        runDelta(deltas, 1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        runDelta(deltas, -1);
+                    }
+                }
+            });
+        }
+    }
+
+    private void runDelta(Map<String, long[]> deltas, int sign) {
+        try {
+            for (List<String> batch : Lists.partition(new ArrayList<>(deltas.keySet()), BATCH_SIZE)) {
+                List<String> args = new ArrayList<>(batch.size() * 3 + 1);
+                args.add(String.valueOf(staleMarkerMs));
+                for (String uid : batch) {
+                    for (long delta : deltas.get(uid)) {
+                        args.add(String.valueOf(sign * delta));
+                    }
+                }
+                stringRedisTemplate.execute(DELTA, userKeys(batch), args.toArray());
+            }
+        } catch (Exception e) {
+            // Counts of these users stay off until their hash expires
+            log.warn("Failed to update notification counts for {} users, error: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static List<String> userKeys(List<String> uids) {
+        List<String> keys = new ArrayList<>(uids.size() * 2);
+        for (String uid : uids) {
+            keys.add(counterKey(uid));
+            keys.add(staleKey(uid));
+        }
+        return keys;
+    }
+
+    private static long longAt(List<?> values, int index) {
+        return values.get(index) instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time == null ? 0L : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static String counterKey(String uid) {
+        return StrUtil.format(RedisKeyConstant.NOTIFICATION_COUNTER, uid);
+    }
+
+    static String staleKey(String uid) {
+        return StrUtil.format(RedisKeyConstant.NOTIFICATION_COUNTER_STALE, uid);
+    }
+
+    /**
+     * Notification counts of a user
+     *
+     * @param personalUnread Unread personal notifications
+     * @param personalTotal All personal notifications
+     * @param broadcastsRead Broadcasts the user read
+     * @param broadcastsVisible Live broadcasts created since the user registered
+     */
+    public record Counts(long personalUnread, long personalTotal, long broadcastsRead, long broadcastsVisible) {
+
+        public long unread() {
+            return Math.max(0, personalUnread) + Math.max(0, broadcastsVisible - broadcastsRead);
+        }
+
+        public long total() {
+            return personalTotal + broadcastsVisible;
+        }
+    }
+}
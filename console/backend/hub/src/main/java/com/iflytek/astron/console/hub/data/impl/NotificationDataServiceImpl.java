@@ -1,9 +1,6 @@
 package com.iflytek.astron.console.hub.data.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.baomidou.mybatisplus.core.toolkit.Wrappers;
-import com.iflytek.astron.console.commons.data.UserInfoDataService;
 import com.iflytek.astron.console.hub.data.NotificationDataService;
 import com.iflytek.astron.console.hub.dto.notification.NotificationDto;
 import com.iflytek.astron.console.hub.dto.notification.NotificationQueryRequest;
@@ -16,49 +13,34 @@ import com.iflytek.astron.console.hub.mapper.notification.UserBroadcastReadMappe
 import com.iflytek.astron.console.hub.mapper.notification.UserNotificationMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.CacheManager;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class NotificationDataServiceImpl implements NotificationDataService {
-    // Cache key constants
-    private static final String USER_UNREAD_COUNT_CACHE = "user_unread_count";
-    private static final String USER_TOTAL_COUNT_CACHE = "user_total_count";
-    private static final String BROADCAST_COUNT_INTERNAL_CACHE = "broadcast_count_internal";
-    private static final String USER_VISIBLE_BROADCAST_COUNT_CACHE = "user_visible_broadcast_count";
 
     private final NotificationMapper notificationMapper;
     private final UserNotificationMapper userNotificationMapper;
     private final UserBroadcastReadMapper userBroadcastReadMapper;
-    private final CacheManager cacheManager;
-    private final UserInfoDataService userInfoDataService;
-
-    // Inject self proxy to solve @Cacheable internal call failure problem
-    @Lazy
-    private final NotificationDataService self;
+    // Counts are moved by every write below instead of being recounted on read
+    private final NotificationCounters notificationCounters;
 
     public NotificationDataServiceImpl(
             NotificationMapper notificationMapper,
             UserNotificationMapper userNotificationMapper,
             UserBroadcastReadMapper userBroadcastReadMapper,
-            @Qualifier("cacheManager5min") CacheManager cacheManager,
-            UserInfoDataService userInfoDataService,
-            @Lazy NotificationDataService self) {
+            NotificationCounters notificationCounters) {
         this.notificationMapper = notificationMapper;
         this.userNotificationMapper = userNotificationMapper;
         this.userBroadcastReadMapper = userBroadcastReadMapper;
-        this.cacheManager = cacheManager;
-        this.userInfoDataService = userInfoDataService;
-        this.self = self;
+        this.notificationCounters = notificationCounters;
     }
 
     @Override
@@ -71,13 +53,11 @@ public class NotificationDataServiceImpl implements NotificationDataService {
         notification.setCreatedAt(LocalDateTime.now());
         notificationMapper.insert(notification);
 
-        // Determine cache eviction strategy based on message type
+        // Broadcasts are counted once committed; personal messages are counted when sent to specific users
+        notificationCounters.notificationCreated(notification);
         if (notification.getType() != null && NotificationType.BROADCAST.getCode().equals(notification.getType())) {
-            // Broadcast message: evict internal broadcast count cache
-            evictBroadcastCountInternalCache();
             log.debug("Created broadcast notification: {}", notification.getId());
         }
-        // Personal messages do not evict cache here, evict when sent to specific users
 
         return notification;
     }
@@ -95,11 +75,7 @@ public class NotificationDataServiceImpl implements NotificationDataService {
                 throw new IllegalStateException("Batch insert of user notifications incomplete");
             }
 
-            // Precisely evict cache for affected users
-            userNotifications.stream()
-                    .map(UserNotification::getReceiverUid)
-                    .distinct()
-                    .forEach(this::evictUserCountCaches);
+            notificationCounters.personalAdded(userNotifications);
 
             log.debug("Batch created {} user notifications successfully", userNotifications.size());
             return result;
@@ -124,11 +100,15 @@ public class NotificationDataServiceImpl implements NotificationDataService {
         readRecords.forEach(r -> r.setReadAt(LocalDateTime.now()));
         int batchInsertCount = userBroadcastReadMapper.batchInsert(readRecords);
 
-        // Precisely evict unread count cache for affected users
-        readRecords.stream()
+        // INSERT IGNORE only counts broadcasts not read before, but not per user
+        Set<String> receiverUids = readRecords.stream()
                 .map(UserBroadcastRead::getReceiverUid)
-                .distinct()
-                .forEach(this::evictUserUnreadCountCache);
+                .collect(Collectors.toSet());
+        if (receiverUids.size() == 1) {
+            notificationCounters.broadcastsRead(receiverUids.iterator().next(), batchInsertCount);
+        } else if (batchInsertCount > 0) {
+            notificationCounters.invalidate(receiverUids);
+        }
 
         return batchInsertCount;
     }
@@ -159,24 +139,9 @@ public class NotificationDataServiceImpl implements NotificationDataService {
     }
 
     @Override
-    @Cacheable(value = USER_UNREAD_COUNT_CACHE, key = "#receiverUid", cacheManager = "cacheManager5min")
     public long countUserUnreadNotifications(String receiverUid) {
         try {
-            // Count personal unread messages
-            int unreadPersonalCount = userNotificationMapper.countUnreadByUid(receiverUid);
-
-            // Get total visible broadcast messages for user (broadcast messages after registration)
-            // Call through self proxy to enable caching
-            long userVisibleBroadcastCount = self.getUserVisibleBroadcastCount(receiverUid);
-            if (userVisibleBroadcastCount == 0) {
-                return unreadPersonalCount;
-            }
-
-            // Count user's read broadcast messages
-            long readBroadcastCount = userBroadcastReadMapper.countUserReadBroadcastMessages(receiverUid);
-            long unreadBroadcastCount = Math.max(0, userVisibleBroadcastCount - readBroadcastCount);
-
-            return unreadPersonalCount + unreadBroadcastCount;
+            return notificationCounters.get(receiverUid).unread();
         } catch (Exception e) {
             log.error("Failed to count unread notifications for user: {}", receiverUid, e);
             throw e;
@@ -184,21 +149,21 @@ public class NotificationDataServiceImpl implements NotificationDataService {
     }
 
     @Override
-    @Cacheable(value = USER_TOTAL_COUNT_CACHE, key = "#receiverUid", cacheManager = "cacheManager5min")
     public long countUserAllNotifications(String receiverUid) {
-        // Count total personal messages
-        long personalCount = userNotificationMapper.selectCount(
-                new QueryWrapper<UserNotification>().eq("receiver_uid", receiverUid));
-
-        // Get total visible broadcast messages for user (broadcast messages after registration)
-        // Call through self proxy to enable caching
-        long userVisibleBroadcastCount = self.getUserVisibleBroadcastCount(receiverUid);
-
-        long totalCount = personalCount + userVisibleBroadcastCount;
+        NotificationCounters.Counts counts = notificationCounters.get(receiverUid);
         log.debug("Counted all notifications for user {}: personal={}, visible_broadcast={}, total={}",
-                receiverUid, personalCount, userVisibleBroadcastCount, totalCount);
+                receiverUid, counts.personalTotal(), counts.broadcastsVisible(), counts.total());
+        return counts.total();
+    }
 
-        return totalCount;
+    @Override
+    public long getUserVisibleBroadcastCount(String receiverUid) {
+        try {
+            return notificationCounters.get(receiverUid).broadcastsVisible();
+        } catch (Exception e) {
+            log.error("Failed to get user visible broadcast count for user: {}", receiverUid, e);
+            return 0L;
+        }
     }
 
     @Override
@@ -230,29 +195,21 @@ public class NotificationDataServiceImpl implements NotificationDataService {
     @Override
     public int markUserNotificationsAsRead(String receiverUid, List<Long> notificationIds) {
         int result = userNotificationMapper.batchMarkAsRead(receiverUid, notificationIds);
-        if (result > 0) {
-            evictUserUnreadCountCache(receiverUid);
-        }
+        notificationCounters.personalRead(receiverUid, result);
         return result;
     }
 
     @Override
     public int markAllUserNotificationsAsRead(String receiverUid) {
         int result = userNotificationMapper.markAllAsRead(receiverUid);
-        if (result > 0) {
-            evictUserUnreadCountCache(receiverUid);
-        }
+        notificationCounters.personalRead(receiverUid, result);
         return result;
     }
 
     @Override
     public int deleteExpiredNotifications(LocalDateTime expireTime) {
-        int result = notificationMapper.deleteExpiredMessages(expireTime);
-        if (result > 0) {
-            // Expiry deletion affects all caches, but frequency is low
-            evictAllCaches();
-        }
-        return result;
+        // Expired messages are no longer counted, the counter reconciler recounted their receivers
+        return notificationMapper.deleteExpiredMessages(expireTime);
     }
 
     @Override
@@ -262,7 +219,8 @@ public class NotificationDataServiceImpl implements NotificationDataService {
                 .eq("notification_id", notificationId);
         int result = userNotificationMapper.delete(queryWrapper);
         if (result > 0) {
-            evictUserCountCaches(receiverUid);
+            // Whether the deleted message was unread is not known, count the user again
+            notificationCounters.invalidate(List.of(receiverUid));
         }
         return result;
     }
@@ -338,157 +296,4 @@ public class NotificationDataServiceImpl implements NotificationDataService {
         }
         return result;
     }
-
-    /**
-     * Generic method for creating broadcast message query conditions
-     */
-    private LambdaQueryWrapper<Notification> createBroadcastQueryWrapper() {
-        // SELECT * FROM notifications
-        // WHERE type = 'broadcast'
-        // AND (expire_at IS NULL OR expire_at > NOW())
-        return Wrappers.lambdaQuery(Notification.class)
-                .eq(Notification::getType, NotificationType.BROADCAST.getCode())
-                .and(wrapper -> wrapper.isNull(Notification::getExpireAt).or().gt(Notification::getExpireAt, LocalDateTime.now()));
-    }
-
-    // ==================== Cache Eviction Helper Methods ====================
-
-    /**
-     * Internal broadcast message count cache method - not exposed publicly, for internal use only to
-     * improve performance
-     */
-    @Cacheable(value = BROADCAST_COUNT_INTERNAL_CACHE, key = "'total'", cacheManager = "cacheManager5min")
-    public long getBroadcastCountInternal() {
-        return notificationMapper.selectCount(createBroadcastQueryWrapper());
-    }
-
-    /**
-     * Get count of broadcast messages visible to user (broadcast messages after user registration) -
-     * based on user-level cache
-     */
-    @Cacheable(value = USER_VISIBLE_BROADCAST_COUNT_CACHE, key = "#receiverUid", cacheManager = "cacheManager5min")
-    public long getUserVisibleBroadcastCount(String receiverUid) {
-        try {
-            // Get user creation time
-            var userInfoOpt = userInfoDataService.findByUid(receiverUid);
-            if (userInfoOpt.isEmpty()) {
-                log.warn("User not found for uid: {}", receiverUid);
-                return 0L;
-            }
-
-            LocalDateTime userCreateTime = userInfoOpt.get().getCreateTime();
-            if (userCreateTime == null) {
-                log.warn("User create time is null for uid: {}", receiverUid);
-                return 0L;
-            }
-
-            // Count broadcast messages after user registration
-            long count = notificationMapper.countBroadcastMessagesAfter(userCreateTime);
-            log.debug("User {} can see {} broadcast messages (created after {})",
-                    receiverUid, count, userCreateTime);
-            return count;
-        } catch (Exception e) {
-            log.error("Failed to get user visible broadcast count for user: {}", receiverUid, e);
-            return 0L;
-        }
-    }
-
-    /**
-     * Evict user unread count cache
-     */
-    private void evictUserUnreadCountCache(String userId) {
-        try {
-            var cache = cacheManager.getCache(USER_UNREAD_COUNT_CACHE);
-            if (cache != null) {
-                cache.evict(userId);
-                log.debug("Evicted user unread count cache for user: {}", userId);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to evict user unread count cache for user: {}", userId, e);
-        }
-    }
-
-    /**
-     * Evict all user count caches
-     */
-    private void evictUserCountCaches(String userId) {
-        evictUserUnreadCountCache(userId);
-        evictUserTotalCountCache(userId);
-        evictUserVisibleBroadcastCountCache(userId);
-    }
-
-    /**
-     * Evict user total count cache
-     */
-    private void evictUserTotalCountCache(String userId) {
-        try {
-            var cache = cacheManager.getCache(USER_TOTAL_COUNT_CACHE);
-            if (cache != null) {
-                cache.evict(userId);
-                log.debug("Evicted user total count cache for user: {}", userId);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to evict user total count cache for user: {}", userId, e);
-        }
-    }
-
-    /**
-     * Evict user visible broadcast count cache
-     */
-    private void evictUserVisibleBroadcastCountCache(String userId) {
-        try {
-            var cache = cacheManager.getCache(USER_VISIBLE_BROADCAST_COUNT_CACHE);
-            if (cache != null) {
-                cache.evict(userId);
-                log.debug("Evicted user visible broadcast count cache for user: {}", userId);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to evict user visible broadcast count cache for user: {}", userId, e);
-        }
-    }
-
-    /**
-     * Evict internal broadcast count cache
-     */
-    private void evictBroadcastCountInternalCache() {
-        try {
-            var cache = cacheManager.getCache(BROADCAST_COUNT_INTERNAL_CACHE);
-            if (cache != null) {
-                cache.evict("total");
-                log.debug("Evicted internal broadcast count cache");
-            }
-        } catch (Exception e) {
-            log.warn("Failed to evict internal broadcast count cache", e);
-        }
-    }
-
-    /**
-     * Evict all caches (for batch operations such as expiry cleanup)
-     */
-    private void evictAllCaches() {
-        try {
-            // Clear all user-related caches
-            var unreadCache = cacheManager.getCache(USER_UNREAD_COUNT_CACHE);
-            if (unreadCache != null) {
-                unreadCache.clear();
-            }
-
-            var totalCache = cacheManager.getCache(USER_TOTAL_COUNT_CACHE);
-            if (totalCache != null) {
-                totalCache.clear();
-            }
-
-            var visibleBroadcastCache = cacheManager.getCache(USER_VISIBLE_BROADCAST_COUNT_CACHE);
-            if (visibleBroadcastCache != null) {
-                visibleBroadcastCache.clear();
-            }
-
-            // Clear internal broadcast count cache
-            evictBroadcastCountInternalCache();
-
-            log.info("Evicted all notification caches");
-        } catch (Exception e) {
-            log.warn("Failed to evict all notification caches", e);
-        }
-    }
 }
@@ -0,0 +1,36 @@
+package com.iflytek.astron.console.hub.event;
+
+import lombok.Getter;
+import lombok.EqualsAndHashCode;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Set;
+
+/**
+ * Notification Counts Changed Event
+ *
+ * Triggered when notification counts of users change without a request of theirs, such as when
+ * notifications expire, so that their unread badges can be refreshed
+ */
+@Getter
+@EqualsAndHashCode(callSuper = false)
+public class NotificationCountsChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * User IDs whose counts changed
+     */
+    private final Set<String> uids;
+
+    /**
+     * Construct notification counts changed event
+     *
+     * @param source Event source
+     * @param uids User IDs whose counts changed
+     */
+    public NotificationCountsChangedEvent(Object source, Set<String> uids) {
+        super(source);
+        this.uids = Set.copyOf(uids);
+    }
+}
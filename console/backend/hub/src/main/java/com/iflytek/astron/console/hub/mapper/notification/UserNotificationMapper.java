@@ -45,13 +45,17 @@ public interface UserNotificationMapper extends BaseMapper<UserNotification> {
     int countUnreadByUid(@Param("receiverUid") String receiverUid);
 
     /**
-     * Batch mark messages as read
+     * Batch mark unread, unexpired messages as read
+     *
+     * @return Number of messages that turned read
      */
     int batchMarkAsRead(@Param("receiverUid") String receiverUid,
             @Param("notificationIds") List<Long> notificationIds);
 
     /**
-     * Mark all messages as read
+     * Mark all unread, unexpired messages as read
+     *
+     * @return Number of messages that turned read
      */
     int markAllAsRead(@Param("receiverUid") String receiverUid);
 
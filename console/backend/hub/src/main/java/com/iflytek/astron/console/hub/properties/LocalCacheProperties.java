@@ -0,0 +1,68 @@
+package com.iflytek.astron.console.hub.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process tier kept in front of the Redis cache managers
+ */
+@ConfigurationProperties(prefix = "cache.local")
+@Data
+@Component
+public class LocalCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Caches served from the local tier, every other cache goes straight to Redis. None by default: a hit
+     * hands out the cached instance itself, so only caches whose values are immutable or never modified by
+     * callers should be listed.
+     */
+    private Set<String> names = new HashSet<>();
+
+    private long maximumSize = 10000;
+
+    /**
+     * Capped by the TTL of the Redis cache manager below
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /**
+     * Age after which a hit re-reads Redis in the background, zero to disable
+     */
+    private Duration refreshAfter = Duration.ofSeconds(30);
+
+    /**
+     * Per cache overrides of the settings above
+     */
+    private Map<String, Spec> specs = new HashMap<>();
+
+    @Data
+    public static class Spec {
+        private Long maximumSize;
+        private Duration ttl;
+        private Duration refreshAfter;
+    }
+
+    public long maximumSize(String name) {
+        Spec spec = specs.get(name);
+        return spec != null && spec.getMaximumSize() != null ? spec.getMaximumSize() : maximumSize;
+    }
+
+    public Duration ttl(String name) {
+        Spec spec = specs.get(name);
+        return spec != null && spec.getTtl() != null ? spec.getTtl() : ttl;
+    }
+
+    public Duration refreshAfter(String name) {
+        Spec spec = specs.get(name);
+        return spec != null && spec.getRefreshAfter() != null ? spec.getRefreshAfter() : refreshAfter;
+    }
+}
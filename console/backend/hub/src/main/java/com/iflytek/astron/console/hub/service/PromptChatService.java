@@ -4,14 +4,19 @@ import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
 import com.iflytek.astron.console.commons.service.data.ChatDataService;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.SseFrame;
+import com.iflytek.astron.console.commons.util.SseFrameRelay;
+import com.iflytek.astron.console.commons.util.StreamCheckpoint;
 import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
 import com.iflytek.astron.console.commons.entity.chat.ChatTraceSource;
 import com.iflytek.astron.console.commons.service.ChatRecordModelService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import okio.BufferedSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
@@ -27,12 +32,18 @@ public class PromptChatService {
 
     private final OkHttpClient httpClient;
 
+    @Value("${chat.stream.checkpoint-interval-ms:3000}")
+    private long checkpointIntervalMs;
+
     @Autowired
     private ChatDataService chatDataService;
 
     @Autowired
     private ChatRecordModelService chatRecordModelService;
 
+    @Autowired
+    private ChatContextCacheService chatContextCacheService;
+
     /**
      * Function to handle chat stream requests
      *
@@ -43,7 +54,7 @@ public class PromptChatService {
      */
     public void chatStream(JSONObject request, SseEmitter emitter, String streamId, ChatReqRecords chatReqRecords, boolean edit, boolean isDebug) {
         if (!isDebug && (chatReqRecords == null || chatReqRecords.getUid() == null || chatReqRecords.getChatId() == null)) {
-            SseEmitterUtil.completeWithError(emitter, "Message is empty");
+            SseFrameRelay.completeWithError(emitter, "Message is empty", streamId);
             return;
         }
 
@@ -51,7 +62,7 @@ public class PromptChatService {
             performChatRequest(request, emitter, streamId, chatReqRecords, edit, isDebug);
         } catch (Exception e) {
             log.error("Exception occurred while creating Prompt chat stream, streamId: {}", streamId, e);
-            SseEmitterUtil.completeWithError(emitter, "Failed to create chat stream: " + e.getMessage());
+            SseFrameRelay.completeWithError(emitter, "Failed to create chat stream: " + e.getMessage(), streamId);
         }
     }
 
@@ -91,7 +102,7 @@ public class PromptChatService {
             @Override
             public void onFailure(Call call, IOException e) {
                 log.error("SSE connection failed, streamId: {}, error: {}", streamId, e.getMessage());
-                SseEmitterUtil.completeWithError(emitter, "Connection failed: " + e.getMessage());
+                SseFrameRelay.completeWithError(emitter, "Connection failed: " + e.getMessage(), streamId);
             }
 
             /**
@@ -104,7 +115,7 @@ public class PromptChatService {
             public void onResponse(Call call, Response response) {
                 if (!response.isSuccessful()) {
                     log.error("Request failed, streamId: {}, status code: {}, reason: {}", streamId, response.code(), response.message());
-                    SseEmitterUtil.completeWithError(emitter, "Request failed: " + response.message());
+                    SseFrameRelay.completeWithError(emitter, "Request failed: " + response.message(), streamId);
                     return;
                 }
 
@@ -112,7 +123,7 @@ public class PromptChatService {
                 if (body != null) {
                     processSSEStream(body, emitter, streamId, chatReqRecords, edit, isDebug);
                 } else {
-                    SseEmitterUtil.completeWithError(emitter, "Response body is empty");
+                    SseFrameRelay.completeWithError(emitter, "Response body is empty", streamId);
                 }
             }
         });
@@ -132,6 +143,7 @@ public class PromptChatService {
         StringBuffer thinkingResult = new StringBuffer();
         StringBuffer sid = new StringBuffer();
         StringBuffer traceResult = new StringBuffer();
+        StreamCheckpoint checkpoint = new StreamCheckpoint(checkpointIntervalMs);
 
         try (body) {
             try {
@@ -139,7 +151,7 @@ public class PromptChatService {
                     // Check if stop signal is received
                     if (SseEmitterUtil.isStreamStopped(streamId)) {
                         log.info("Stop signal detected, saving collected data, streamId: {}", streamId);
-                        handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
+                        handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
                         break;
                     }
 
@@ -150,17 +162,18 @@ public class PromptChatService {
 
                     if (line.startsWith("data:")) {
                         if (line.contains("[DONE]")) {
-                            handleStreamComplete(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
+                            handleStreamComplete(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
                             break;
                         }
 
                         String data = line.substring(5).trim();
                         parseSSEContent(data, emitter, streamId, finalResult, thinkingResult, sid, traceResult);
+                        saveCheckpoint(chatReqRecords, finalResult, sid, edit, isDebug, checkpoint, streamId);
 
                         // Check stop signal again after processing each data
                         if (SseEmitterUtil.isStreamStopped(streamId)) {
                             log.info("Stop signal detected after processing data, saving collected data, streamId: {}", streamId);
-                            handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
+                            handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
                             break;
                         }
                     }
@@ -168,13 +181,13 @@ public class PromptChatService {
             } catch (IOException e) {
                 log.error("Exception reading SSE stream data, saving collected data, streamId: {}", streamId, e);
                 // Save collected data even when exception occurs
-                handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
-                SseEmitterUtil.completeWithError(emitter, "Data reading exception: " + e.getMessage());
+                SseFrameRelay.sendError(emitter, "Data reading exception: " + e.getMessage(), streamId);
+                handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
             }
         } catch (Exception e) {
             log.warn("Exception closing response body, streamId: {}", streamId, e);
             // Save collected data when exception occurs
-            handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
+            handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
         }
     }
 
@@ -193,21 +206,20 @@ public class PromptChatService {
         log.debug("SSE data streamId: {} ==> {}", streamId, data);
 
         try {
-            JSONObject dataObj = JSON.parseObject(data);
+            SseFrame frame = SseFrame.scan(data);
 
-            if (dataObj.containsKey("error")) {
-                JSONObject error = dataObj.getJSONObject("error");
-                String errorMessage = error.getString("message");
+            if (frame.hasError()) {
+                String errorMessage = frame.getErrorMessage();
                 log.error("SSE data contains error, streamId: {}, message: {}", streamId, errorMessage);
                 finalResult.append(errorMessage);
             }
 
             // Try to send data, continue processing data even if client disconnects
-            boolean clientConnected = tryServeSSEData(emitter, dataObj, streamId);
+            boolean clientConnected = SseFrameRelay.forward(emitter, data, streamId);
 
             // Process and save data regardless of client connection status
-            processSidValue(dataObj, sid, streamId);
-            processChoicesData(dataObj, finalResult, thinkingResult, traceResult, streamId);
+            processSidValue(frame, sid, streamId);
+            processFirstChoice(frame, finalResult, thinkingResult);
 
             if (!clientConnected) {
                 log.info("Client disconnected, but continue processing data to ensure completeness, streamId: {}", streamId);
@@ -217,49 +229,16 @@ public class PromptChatService {
         }
     }
 
-    /**
-     * Try to send SSE data, detect client connection status
-     *
-     * @param emitter SseEmitter object
-     * @param dataObj Data object to be sent
-     * @param streamId Stream identifier
-     * @return true if client is still connected, false if client has disconnected
-     */
-    private boolean tryServeSSEData(SseEmitter emitter, JSONObject dataObj, String streamId) {
-        if (emitter == null) {
-            log.warn("SseEmitter is null, cannot send data, streamId: {}", streamId);
-            return false;
-        }
-
-        try {
-            String jsonData = dataObj.toJSONString();
-            emitter.send(SseEmitter.event().name("data").data(jsonData));
-            return true;
-        } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
-            log.warn("Client connection disconnected, streamId: {}, continue background data processing", streamId);
-            return false;
-        } catch (IOException e) {
-            log.error("Failed to send SSE data, streamId: {}, error: {}", streamId, e.getMessage());
-            return false;
-        } catch (IllegalStateException e) {
-            log.debug("SseEmitter completed, streamId: {}", streamId);
-            return false;
-        } catch (Exception e) {
-            log.error("Unexpected error occurred while sending SSE data, streamId: {}", streamId, e);
-            return false;
-        }
-    }
-
     /**
      * Function to process SID value
      *
-     * @param dataObj JSON object containing SID
+     * @param frame Frame containing SID
      * @param sid StringBuffer for storing SID
      * @param streamId Stream ID
      */
-    private void processSidValue(JSONObject dataObj, StringBuffer sid, String streamId) {
-        if (sid.isEmpty() && dataObj.containsKey("id")) {
-            String sidValue = dataObj.getString("id");
+    private void processSidValue(SseFrame frame, StringBuffer sid, String streamId) {
+        if (sid.isEmpty()) {
+            String sidValue = frame.getId();
             if (sidValue != null && !sidValue.trim().isEmpty()) {
                 sid.append(sidValue);
                 log.debug("Set sid: {}, streamId: {}", sidValue, streamId);
@@ -268,46 +247,41 @@ public class PromptChatService {
     }
 
     /**
-     * Function to process choices
+     * Process output and thinking results of the first choice
      *
-     * @param dataObj JSON object containing choices
-     * @param finalResult StringBuffer for storing final result
-     * @param thinkingResult StringBuffer for storing thinking process
-     * @param traceResult StringBuffer for storing trace information
-     * @param streamId ID for identifying the stream
+     * @param frame Frame containing choices
+     * @param finalResult StringBuffer object for storing final result
+     * @param thinkingResult StringBuffer object for storing thinking process result
      */
-    private void processChoicesData(JSONObject dataObj, StringBuffer finalResult, StringBuffer thinkingResult, StringBuffer traceResult, String streamId) {
-        if (!dataObj.containsKey("choices")) {
-            return;
+    private void processFirstChoice(SseFrame frame, StringBuffer finalResult, StringBuffer thinkingResult) {
+        if (frame.getContent() != null) {
+            finalResult.append(frame.getContent());
         }
-
-        com.alibaba.fastjson2.JSONArray choices = dataObj.getJSONArray("choices");
-        if (choices.isEmpty()) {
-            return;
+        if (frame.getReasoningContent() != null) {
+            thinkingResult.append(frame.getReasoningContent());
         }
-
-        processFirstChoice(choices, finalResult, thinkingResult);
     }
 
     /**
-     * Process output and thinking results
+     * Save the answer received so far when a checkpoint is due, so that it survives a lost stream
      *
-     * @param choices JSONArray object representing collection of choices
-     * @param finalResult StringBuffer object for storing final result
-     * @param thinkingResult StringBuffer object for storing thinking process result
+     * @param chatReqRecords Chat request records object
+     * @param finalResult StringBuffer of final result
+     * @param sid StringBuffer of session ID
+     * @param edit Whether in edit mode
+     * @param isDebug Whether in debug mode
+     * @param checkpoint Partial saves of this stream
+     * @param streamId Stream identifier
      */
-    private void processFirstChoice(com.alibaba.fastjson2.JSONArray choices, StringBuffer finalResult, StringBuffer thinkingResult) {
-        JSONObject firstChoice = choices.getJSONObject(0);
-        if (!firstChoice.containsKey("delta")) {
+    private void saveCheckpoint(ChatReqRecords chatReqRecords, StringBuffer finalResult, StringBuffer sid, boolean edit, boolean isDebug, StreamCheckpoint checkpoint, String streamId) {
+        if (isDebug || chatReqRecords == null || !checkpoint.due(finalResult.length())) {
             return;
         }
-
-        JSONObject delta = firstChoice.getJSONObject("delta");
-        if (delta.containsKey("content")) {
-            finalResult.append(delta.getString("content"));
-        }
-        if (delta.containsKey("reasoning_content")) {
-            thinkingResult.append(delta.getString("reasoning_content"));
+        try {
+            chatRecordModelService.saveChatResponse(chatReqRecords, finalResult, sid, edit || checkpoint.isSaved(), 2);
+            checkpoint.saved(finalResult.length());
+        } catch (Exception e) {
+            log.warn("Failed to save partial answer, streamId: {}, error: {}", streamId, e.getMessage());
         }
     }
 
@@ -324,7 +298,7 @@ public class PromptChatService {
         log.error("Exception data: {}", data);
 
         JSONObject errorResponse = createErrorResponse(e);
-        tryServeSSEData(emitter, errorResponse, streamId);
+        SseFrameRelay.forward(emitter, errorResponse.toJSONString(), streamId);
     }
 
     /**
@@ -351,12 +325,12 @@ public class PromptChatService {
      * @param sid StringBuffer object of session ID
      * @param traceResult StringBuffer object of trace result
      */
-    private void handleStreamComplete(SseEmitter emitter, String streamId, StringBuffer finalResult, StringBuffer thinkingResult, ChatReqRecords chatReqRecords, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean isDebug) {
+    private void handleStreamComplete(SseEmitter emitter, String streamId, StringBuffer finalResult, StringBuffer thinkingResult, ChatReqRecords chatReqRecords, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean isDebug, StreamCheckpoint checkpoint) {
         log.info("Stream completed for streamId: {}", streamId);
 
         // Save data to database first to ensure data is not lost
         if (!isDebug) {
-            saveStreamResultsToDatabase(chatReqRecords, finalResult, thinkingResult, sid, traceResult, edit);
+            saveStreamResultsToDatabase(chatReqRecords, finalResult, thinkingResult, sid, traceResult, edit, checkpoint.isSaved());
         }
 
         // Build completion data and try to send to client (if still connected)
@@ -375,12 +349,12 @@ public class PromptChatService {
      * @param sid StringBuffer object of session ID
      * @param traceResult StringBuffer object of trace result
      */
-    private void handleStreamInterrupted(SseEmitter emitter, String streamId, StringBuffer finalResult, StringBuffer thinkingResult, ChatReqRecords chatReqRecords, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean isDebug) {
+    private void handleStreamInterrupted(SseEmitter emitter, String streamId, StringBuffer finalResult, StringBuffer thinkingResult, ChatReqRecords chatReqRecords, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean isDebug, StreamCheckpoint checkpoint) {
         log.info("Stream interrupted for streamId: {}, saving collected data", streamId);
 
         // Save collected data to database first to ensure data is not lost
         if (!isDebug) {
-            saveStreamResultsToDatabase(chatReqRecords, finalResult, thinkingResult, sid, traceResult, edit);
+            saveStreamResultsToDatabase(chatReqRecords, finalResult, thinkingResult, sid, traceResult, edit, checkpoint.isSaved());
         }
 
         // Build interrupted completion data and try to send to client (if still connected)
@@ -409,7 +383,7 @@ public class PromptChatService {
 
         try {
             // Try to send completion data
-            emitter.send(SseEmitter.event().name("complete").data(completeData.toJSONString()));
+            SseFrameRelay.send(emitter, "complete", completeData.toJSONString(), streamId);
             log.debug("Successfully sent completion data, streamId: {}", streamId);
         } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
             log.info("Client connection disconnected, cannot send completion data, but data has been saved, streamId: {}", streamId);
@@ -420,7 +394,7 @@ public class PromptChatService {
         try {
             // Try to send end signal and complete connection
             String endData = "{\"end\":true,\"timestamp\":" + System.currentTimeMillis() + "}";
-            emitter.send(SseEmitter.event().name("end").data(endData));
+            SseFrameRelay.send(emitter, "end", endData, streamId);
             emitter.complete();
             log.debug("SSE connection ended normally, streamId: {}", streamId);
         } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
@@ -430,6 +404,7 @@ public class PromptChatService {
         } catch (Exception e) {
             log.warn("Exception occurred while ending SSE connection, streamId: {}, error: {}", streamId, e.getMessage());
         }
+        SseFrameRelay.finish(streamId);
     }
 
     /**
@@ -464,13 +439,19 @@ public class PromptChatService {
      * @param thinkingResult StringBuffer of thinking process
      * @param sid StringBuffer of session ID
      * @param traceResult StringBuffer of trace result
+     * @param responseSaved Whether a partial answer was already saved, so the response record exists
      */
-    private void saveStreamResultsToDatabase(ChatReqRecords chatReqRecords, StringBuffer finalResult, StringBuffer thinkingResult, StringBuffer sid, StringBuffer traceResult, boolean edit) {
+    private void saveStreamResultsToDatabase(ChatReqRecords chatReqRecords, StringBuffer finalResult, StringBuffer thinkingResult, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean responseSaved) {
         if (chatReqRecords == null) {
             return;
         }
 
-        chatRecordModelService.saveChatResponse(chatReqRecords, finalResult, sid, edit, 2);
+        chatRecordModelService.saveChatResponse(chatReqRecords, finalResult, sid, edit || responseSaved, 2);
+        if (edit) {
+            chatContextCacheService.invalidate(chatReqRecords.getUid(), chatReqRecords.getChatId());
+        } else {
+            chatContextCacheService.appendAnswer(chatReqRecords, finalResult.toString());
+        }
         chatRecordModelService.saveThinkingResult(chatReqRecords, thinkingResult, edit);
         saveTraceResult(chatReqRecords, traceResult, edit);
     }
@@ -6,7 +6,6 @@ import cn.xfyun.model.sparkmodel.RoleContent;
 import cn.xfyun.model.sparkmodel.SparkChatParam;
 import cn.xfyun.model.sparkmodel.WebSearch;
 import cn.xfyun.model.sparkmodel.response.SparkChatResponse;
-import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.iflytek.astron.console.commons.service.data.ChatDataService;
@@ -14,7 +13,11 @@ import com.iflytek.astron.console.commons.dto.llm.SparkChatRequest;
 import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
 import com.iflytek.astron.console.commons.entity.chat.ChatTraceSource;
 import com.iflytek.astron.console.commons.service.ChatRecordModelService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.SseFrame;
+import com.iflytek.astron.console.commons.util.SseFrameRelay;
+import com.iflytek.astron.console.commons.util.StreamCheckpoint;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -39,12 +42,18 @@ public class SparkChatService {
     @Value("${spark.api.password}")
     private String apiPassword;
 
+    @Value("${chat.stream.checkpoint-interval-ms:3000}")
+    private long checkpointIntervalMs;
+
     @Autowired
     private ChatDataService chatDataService;
 
     @Autowired
     private ChatRecordModelService chatRecordModelService;
 
+    @Autowired
+    private ChatContextCacheService chatContextCacheService;
+
     /**
      * Create and return an SseEmitter object for handling chat room streaming requests
      *
@@ -68,7 +77,7 @@ public class SparkChatService {
      */
     public void chatStream(SparkChatRequest request, SseEmitter emitter, String streamId, ChatReqRecords chatReqRecords, boolean edit, boolean isDebug) {
         if (!isDebug && (chatReqRecords == null || chatReqRecords.getUid() == null || chatReqRecords.getChatId() == null)) {
-            SseEmitterUtil.completeWithError(emitter, "Message is empty");
+            SseFrameRelay.completeWithError(emitter, "Message is empty", streamId);
             return;
         }
         try {
@@ -88,7 +97,7 @@ public class SparkChatService {
                 @Override
                 public void onFailure(Call call, IOException e) {
                     log.error("SSE connection failed, streamId: {}, error: {}", streamId, e.getMessage());
-                    SseEmitterUtil.completeWithError(emitter, "Connection failed: " + e.getMessage());
+                    SseFrameRelay.completeWithError(emitter, "Connection failed: " + e.getMessage(), streamId);
                 }
 
                 /**
@@ -101,7 +110,7 @@ public class SparkChatService {
                 public void onResponse(Call call, Response response) {
                     if (!response.isSuccessful()) {
                         log.error("Request failed, streamId: {}, status code: {}, reason: {}", streamId, response.code(), response.message());
-                        SseEmitterUtil.completeWithError(emitter, "Request failed: " + response.message());
+                        SseFrameRelay.completeWithError(emitter, "Request failed: " + response.message(), streamId);
                         return;
                     }
 
@@ -109,14 +118,14 @@ public class SparkChatService {
                     if (body != null) {
                         processSSEStream(body, emitter, streamId, chatReqRecords, edit, isDebug);
                     } else {
-                        SseEmitterUtil.completeWithError(emitter, "Response body is empty");
+                        SseFrameRelay.completeWithError(emitter, "Response body is empty", streamId);
                     }
                 }
             });
 
         } catch (Exception e) {
             log.error("Exception occurred while creating Spark chat stream, streamId: {}", streamId, e);
-            SseEmitterUtil.completeWithError(emitter, "Failed to create chat stream: " + e.getMessage());
+            SseFrameRelay.completeWithError(emitter, "Failed to create chat stream: " + e.getMessage(), streamId);
         }
     }
 
@@ -182,6 +191,7 @@ public class SparkChatService {
         // Use StringBuffer as mutable container, ensure assignment only once
         StringBuffer sid = new StringBuffer();
         StringBuffer traceResult = new StringBuffer();
+        StreamCheckpoint checkpoint = new StreamCheckpoint(checkpointIntervalMs);
 
         try (body) {
             try {
@@ -189,7 +199,7 @@ public class SparkChatService {
                     // Check if stop signal is received
                     if (SseEmitterUtil.isStreamStopped(streamId)) {
                         log.info("Stop signal detected, saving collected data, streamId: {}", streamId);
-                        handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
+                        handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
                         break;
                     }
 
@@ -200,17 +210,18 @@ public class SparkChatService {
 
                     if (line.startsWith("data:")) {
                         if (line.contains("[DONE]")) {
-                            handleStreamComplete(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
+                            handleStreamComplete(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
                             break;
                         }
 
                         String data = line.substring(5).trim();
                         parseSSEContent(data, emitter, streamId, finalResult, thinkingResult, sid, traceResult);
+                        saveCheckpoint(chatReqRecords, finalResult, sid, edit, isDebug, checkpoint, streamId);
 
                         // Check stop signal again after processing each data
                         if (SseEmitterUtil.isStreamStopped(streamId)) {
                             log.info("Stop signal detected after processing data, saving collected data, streamId: {}", streamId);
-                            handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
+                            handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
                             break;
                         }
                     }
@@ -218,13 +229,13 @@ public class SparkChatService {
             } catch (IOException e) {
                 log.error("Exception reading SSE stream data, saving collected data, streamId: {}", streamId, e);
                 // Save collected data even when exception occurs
-                handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
-                SseEmitterUtil.completeWithError(emitter, "Data reading exception: " + e.getMessage());
+                SseFrameRelay.sendError(emitter, "Data reading exception: " + e.getMessage(), streamId);
+                handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
             }
         } catch (Exception e) {
             log.warn("Exception closing response body, streamId: {}", streamId, e);
             // Save collected data when exception occurs
-            handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug);
+            handleStreamInterrupted(emitter, streamId, finalResult, thinkingResult, chatReqRecords, sid, traceResult, edit, isDebug, checkpoint);
         }
     }
 
@@ -243,37 +254,49 @@ public class SparkChatService {
         log.debug("SSE data streamId: {} ==> {}", streamId, data);
 
         try {
-            JSONObject dataObj = JSON.parseObject(data);
+            SseFrame frame = SseFrame.scan(data);
+            boolean replaceContent = shouldReplaceContent(frame.getCode());
+            String fallbackMessage = null;
 
-            if (dataObj.getInteger("code") != 0) {
-                Integer code = dataObj.getInteger("code");
-                log.error("SSE data contains error code, streamId: {}, code: {}, message: {}", streamId, code, dataObj.getString("message"));
-                String fallbackMessage = getFallbackMessage(code);
+            if (frame.getCode() != 0) {
+                Integer code = frame.getCode();
+                log.error("SSE data contains error code, streamId: {}, code: {}, message: {}", streamId, code, frame.getMessage());
+                fallbackMessage = getFallbackMessage(code);
 
                 // For specific error codes, replace all content with fallback message
-                if (shouldReplaceContent(code)) {
+                if (replaceContent) {
                     finalResult.setLength(0); // Clear existing content
                     thinkingResult.setLength(0); // Clear thinking content
                     finalResult.append(fallbackMessage);
-                    dataObj.put("message", fallbackMessage);
-
-                    // Modify the response data to send fallback message to client
-                    modifyResponseDataForFallback(dataObj, fallbackMessage);
                 } else {
                     finalResult.append(fallbackMessage);
                 }
             }
 
-            // Add deskToolName field for Web search tool calls
-            addDeskToolNameForWebSearch(dataObj);
+            // Frames that are changed before sending, or whose tool calls are traced, are parsed in full;
+            // all others are sent as received
+            JSONObject dataObj = null;
+            if (replaceContent || frame.hasToolCalls()) {
+                dataObj = frame.toJSONObject();
+                if (replaceContent) {
+                    dataObj.put("message", fallbackMessage);
+                    // Modify the response data to send fallback message to client
+                    modifyResponseDataForFallback(dataObj, fallbackMessage);
+                }
+                // Add deskToolName field for Web search tool calls
+                addDeskToolNameForWebSearch(dataObj);
+            }
 
             // Try to send data, continue processing data even if client disconnects
-            boolean clientConnected = tryServeSSEData(emitter, dataObj, streamId);
+            boolean clientConnected = SseFrameRelay.forward(emitter, dataObj == null ? data : dataObj.toJSONString(), streamId);
 
             // Process and save data regardless of client connection status (skip if content replaced)
-            processSidValue(dataObj, sid, streamId);
-            if (!shouldReplaceContent(dataObj.getInteger("code"))) {
-                processChoicesData(dataObj, finalResult, thinkingResult, traceResult, streamId);
+            processSidValue(frame, sid, streamId);
+            if (!replaceContent) {
+                processFirstChoice(frame, finalResult, thinkingResult);
+                if (dataObj != null) {
+                    processSecondChoiceForTracing(dataObj, traceResult, streamId);
+                }
             }
 
             if (!clientConnected) {
@@ -284,39 +307,6 @@ public class SparkChatService {
         }
     }
 
-    /**
-     * Try to send SSE data, detect client connection status
-     *
-     * @param emitter SseEmitter object
-     * @param dataObj Data object to be sent
-     * @param streamId Stream identifier
-     * @return true if client is still connected, false if client has disconnected
-     */
-    private boolean tryServeSSEData(SseEmitter emitter, JSONObject dataObj, String streamId) {
-        if (emitter == null) {
-            log.warn("SseEmitter is null, cannot send data, streamId: {}", streamId);
-            return false;
-        }
-
-        try {
-            String jsonData = dataObj.toJSONString();
-            emitter.send(SseEmitter.event().name("data").data(jsonData));
-            return true;
-        } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
-            log.warn("Client connection disconnected, streamId: {}, continue background data processing", streamId);
-            return false;
-        } catch (IOException e) {
-            log.error("Failed to send SSE data, streamId: {}, error: {}", streamId, e.getMessage());
-            return false;
-        } catch (IllegalStateException e) {
-            log.debug("SseEmitter completed, streamId: {}", streamId);
-            return false;
-        } catch (Exception e) {
-            log.error("Unexpected error occurred while sending SSE data, streamId: {}", streamId, e);
-            return false;
-        }
-    }
-
     /**
      * Add deskToolName field for Web search tool calls
      *
@@ -354,13 +344,13 @@ public class SparkChatService {
     /**
      * Function to process SID value
      *
-     * @param dataObj JSON object containing SID
+     * @param frame Frame containing SID
      * @param sid StringBuffer for storing SID
      * @param streamId Stream ID
      */
-    private void processSidValue(JSONObject dataObj, StringBuffer sid, String streamId) {
-        if (sid.isEmpty() && dataObj.containsKey("sid")) {
-            String sidValue = dataObj.getString("sid");
+    private void processSidValue(SseFrame frame, StringBuffer sid, String streamId) {
+        if (sid.isEmpty()) {
+            String sidValue = frame.getSid();
             if (sidValue != null && !sidValue.trim().isEmpty()) {
                 sid.append(sidValue);
                 log.debug("Set sid: {}, streamId: {}", sidValue, streamId);
@@ -369,59 +359,31 @@ public class SparkChatService {
     }
 
     /**
-     * Function to process choices
-     *
-     * @param dataObj JSON object containing choices
-     * @param finalResult StringBuffer for storing final result
-     * @param thinkingResult StringBuffer for storing thinking process
-     * @param traceResult StringBuffer for storing trace information
-     * @param streamId ID for identifying the stream
-     */
-    private void processChoicesData(JSONObject dataObj, StringBuffer finalResult, StringBuffer thinkingResult, StringBuffer traceResult, String streamId) {
-        if (!dataObj.containsKey("choices")) {
-            return;
-        }
-
-        JSONArray choices = dataObj.getJSONArray("choices");
-        if (choices.isEmpty()) {
-            return;
-        }
-
-        processFirstChoice(choices, finalResult, thinkingResult);
-        processSecondChoiceForTracing(choices, traceResult, streamId);
-    }
-
-    /**
-     * Process output and thinking results
+     * Process output and thinking results of the first choice
      *
-     * @param choices JSONArray object representing collection of choices
+     * @param frame Frame containing choices
      * @param finalResult StringBuffer object for storing final result
      * @param thinkingResult StringBuffer object for storing thinking process result
      */
-    private void processFirstChoice(JSONArray choices, StringBuffer finalResult, StringBuffer thinkingResult) {
-        JSONObject firstChoice = choices.getJSONObject(0);
-        if (!firstChoice.containsKey("delta")) {
-            return;
-        }
-
-        JSONObject delta = firstChoice.getJSONObject("delta");
-        if (delta.containsKey("content")) {
-            finalResult.append(delta.getString("content"));
+    private void processFirstChoice(SseFrame frame, StringBuffer finalResult, StringBuffer thinkingResult) {
+        if (frame.getContent() != null) {
+            finalResult.append(frame.getContent());
         }
-        if (delta.containsKey("reasoning_content")) {
-            thinkingResult.append(delta.getString("reasoning_content"));
+        if (frame.getReasoningContent() != null) {
+            thinkingResult.append(frame.getReasoningContent());
         }
     }
 
     /**
      * Process trace results
      *
-     * @param choices JSONArray object containing multiple choice items
+     * @param dataObj JSON object containing multiple choice items
      * @param traceResult StringBuffer object for storing trace results
      * @param streamId String representing stream ID
      */
-    private void processSecondChoiceForTracing(JSONArray choices, StringBuffer traceResult, String streamId) {
-        if (choices.size() <= 1) {
+    private void processSecondChoiceForTracing(JSONObject dataObj, StringBuffer traceResult, String streamId) {
+        JSONArray choices = dataObj.getJSONArray("choices");
+        if (choices == null || choices.size() <= 1) {
             return;
         }
 
@@ -470,6 +432,29 @@ public class SparkChatService {
         return "web_search".equals(toolCall.getString("type")) && toolCall.containsKey("web_search");
     }
 
+    /**
+     * Save the answer received so far when a checkpoint is due, so that it survives a lost stream
+     *
+     * @param chatReqRecords Chat request records object
+     * @param finalResult StringBuffer of final result
+     * @param sid StringBuffer of session ID
+     * @param edit Whether in edit mode
+     * @param isDebug Whether in debug mode
+     * @param checkpoint Partial saves of this stream
+     * @param streamId Stream identifier
+     */
+    private void saveCheckpoint(ChatReqRecords chatReqRecords, StringBuffer finalResult, StringBuffer sid, boolean edit, boolean isDebug, StreamCheckpoint checkpoint, String streamId) {
+        if (isDebug || chatReqRecords == null || !checkpoint.due(finalResult.length())) {
+            return;
+        }
+        try {
+            chatRecordModelService.saveChatResponse(chatReqRecords, finalResult, sid, edit || checkpoint.isSaved(), 2);
+            checkpoint.saved(finalResult.length());
+        } catch (Exception e) {
+            log.warn("Failed to save partial answer, streamId: {}, error: {}", streamId, e.getMessage());
+        }
+    }
+
     /**
      * Method to handle parsing errors
      *
@@ -576,12 +561,12 @@ public class SparkChatService {
      * @param sid StringBuffer object of session ID
      * @param traceResult StringBuffer object of trace result
      */
-    private void handleStreamComplete(SseEmitter emitter, String streamId, StringBuffer finalResult, StringBuffer thinkingResult, ChatReqRecords chatReqRecords, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean isDebug) {
+    private void handleStreamComplete(SseEmitter emitter, String streamId, StringBuffer finalResult, StringBuffer thinkingResult, ChatReqRecords chatReqRecords, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean isDebug, StreamCheckpoint checkpoint) {
         log.info("Stream completed for streamId: {}", streamId);
 
         // Save data to database first to ensure data is not lost
         if (!isDebug) {
-            saveStreamResultsToDatabase(chatReqRecords, finalResult, thinkingResult, sid, traceResult, edit);
+            saveStreamResultsToDatabase(chatReqRecords, finalResult, thinkingResult, sid, traceResult, edit, checkpoint.isSaved());
         }
 
         // Build completion data and try to send to client (if still connected)
@@ -600,12 +585,12 @@ public class SparkChatService {
      * @param sid StringBuffer object of session ID
      * @param traceResult StringBuffer object of trace result
      */
-    private void handleStreamInterrupted(SseEmitter emitter, String streamId, StringBuffer finalResult, StringBuffer thinkingResult, ChatReqRecords chatReqRecords, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean isDebug) {
+    private void handleStreamInterrupted(SseEmitter emitter, String streamId, StringBuffer finalResult, StringBuffer thinkingResult, ChatReqRecords chatReqRecords, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean isDebug, StreamCheckpoint checkpoint) {
         log.info("Stream interrupted for streamId: {}, saving collected data", streamId);
 
         // Save collected data to database first to ensure data is not lost
         if (!isDebug) {
-            saveStreamResultsToDatabase(chatReqRecords, finalResult, thinkingResult, sid, traceResult, edit);
+            saveStreamResultsToDatabase(chatReqRecords, finalResult, thinkingResult, sid, traceResult, edit, checkpoint.isSaved());
         }
 
         // Build interrupted completion data and try to send to client (if still connected)
@@ -634,7 +619,7 @@ public class SparkChatService {
 
         try {
             // Try to send completion data
-            emitter.send(SseEmitter.event().name("complete").data(completeData.toJSONString()));
+            SseFrameRelay.send(emitter, "complete", completeData.toJSONString(), streamId);
             log.debug("Successfully sent completion data, streamId: {}", streamId);
         } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
             log.info("Client connection disconnected, cannot send completion data, but data has been saved, streamId: {}", streamId);
@@ -645,7 +630,7 @@ public class SparkChatService {
         try {
             // Try to send end signal and complete connection
             String endData = "{\"end\":true,\"timestamp\":" + System.currentTimeMillis() + "}";
-            emitter.send(SseEmitter.event().name("end").data(endData));
+            SseFrameRelay.send(emitter, "end", endData, streamId);
             emitter.complete();
             log.debug("SSE connection ended normally, streamId: {}", streamId);
         } catch (org.springframework.web.context.request.async.AsyncRequestNotUsableException e) {
@@ -655,6 +640,7 @@ public class SparkChatService {
         } catch (Exception e) {
             log.warn("Exception occurred while ending SSE connection, streamId: {}, error: {}", streamId, e.getMessage());
         }
+        SseFrameRelay.finish(streamId);
     }
 
     /**
@@ -689,13 +675,19 @@ public class SparkChatService {
      * @param thinkingResult StringBuffer of thinking process
      * @param sid StringBuffer of session ID
      * @param traceResult StringBuffer of trace result
+     * @param responseSaved Whether a partial answer was already saved, so the response record exists
      */
-    private void saveStreamResultsToDatabase(ChatReqRecords chatReqRecords, StringBuffer finalResult, StringBuffer thinkingResult, StringBuffer sid, StringBuffer traceResult, boolean edit) {
+    private void saveStreamResultsToDatabase(ChatReqRecords chatReqRecords, StringBuffer finalResult, StringBuffer thinkingResult, StringBuffer sid, StringBuffer traceResult, boolean edit, boolean responseSaved) {
         if (chatReqRecords == null) {
             return;
         }
 
-        chatRecordModelService.saveChatResponse(chatReqRecords, finalResult, sid, edit, 2);
+        chatRecordModelService.saveChatResponse(chatReqRecords, finalResult, sid, edit || responseSaved, 2);
+        if (edit) {
+            chatContextCacheService.invalidate(chatReqRecords.getUid(), chatReqRecords.getChatId());
+        } else {
+            chatContextCacheService.appendAnswer(chatReqRecords, finalResult.toString());
+        }
         chatRecordModelService.saveThinkingResult(chatReqRecords, thinkingResult, edit);
         saveTraceResult(chatReqRecords, traceResult, edit);
     }
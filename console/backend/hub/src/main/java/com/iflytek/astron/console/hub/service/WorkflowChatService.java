@@ -12,6 +12,7 @@ import com.iflytek.astron.console.commons.dto.workflow.WorkflowEventData;
 import com.iflytek.astron.console.commons.dto.workflow.WorkflowResumeReq;
 import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.SseSessionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Call;
@@ -43,6 +44,8 @@ public class WorkflowChatService {
 
     private final ChatDataService chatDataService;
 
+    private final SseSessionRegistry sseSessionRegistry;
+
     /**
      * Create workflow conversation stream
      *
@@ -52,6 +55,7 @@ public class WorkflowChatService {
     public SseEmitter workflowChatStream(WorkflowChatRequest request) {
         SseEmitter emitter = SseEmitterUtil.createSseEmitter();
         String streamId = request.getChatId() + "_" + request.getUserId() + "_" + System.currentTimeMillis();
+        sseSessionRegistry.bind(streamId, SseSessionRegistry.StreamType.HUB_WORKFLOW, emitter);
 
         workflowChatStream(request, emitter, streamId, null, false);
         return emitter;
@@ -99,6 +103,7 @@ public class WorkflowChatService {
     public SseEmitter resumeWorkflow(WorkflowResumeReq request) {
         SseEmitter emitter = SseEmitterUtil.createSseEmitter();
         String streamId = request.getChatId() + "_resume_" + System.currentTimeMillis();
+        sseSessionRegistry.bind(streamId, SseSessionRegistry.StreamType.HUB_WORKFLOW, emitter);
 
         try {
             // Create AgentClient
@@ -0,0 +1,98 @@
+package com.iflytek.astron.console.hub.service.chat;
+
+import com.iflytek.astron.console.commons.dto.llm.SparkChatRequest;
+import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Rolling per-chat context window used to build bot conversation history
+ */
+public interface ChatContextCacheService {
+
+    /**
+     * Get the newest turns before a request that fit into a token budget
+     *
+     * @param uid User ID
+     * @param chatId Chat ID
+     * @param reqId Current request ID, only earlier turns are returned
+     * @param supportDocument Whether asks are enhanced with their knowledge records
+     * @param maxTokens Token budget for the history
+     * @return History messages in chronological order with their estimated token total
+     */
+    ContextWindow getHistory(String uid, Long chatId, Long reqId, boolean supportDocument, int maxTokens);
+
+    /**
+     * Append a user ask to the cached window of a chat
+     *
+     * @param uid User ID
+     * @param chatId Chat ID
+     * @param reqId Request ID
+     * @param ask Original ask
+     * @param knowledge Knowledge stored for the ask, null if none
+     */
+    void appendAsk(String uid, Long chatId, Long reqId, String ask, String knowledge);
+
+    /**
+     * Append a persisted answer to the cached window of its chat
+     *
+     * @param chatReqRecords Request the answer belongs to
+     * @param answer Answer text
+     */
+    void appendAnswer(ChatReqRecords chatReqRecords, String answer);
+
+    /**
+     * Drop the cached window of a chat, the next read rebuilds it from the database
+     *
+     * @param uid User ID
+     * @param chatId Chat ID
+     */
+    void invalidate(String uid, Long chatId);
+
+    /**
+     * History messages in chronological order with the estimated token count of each
+     */
+    record ContextWindow(List<SparkChatRequest.MessageDto> messages, List<Integer> messageTokens) {
+
+        public static ContextWindow empty() {
+            return new ContextWindow(new ArrayList<>(), new ArrayList<>());
+        }
+
+        /**
+         * Newest messages that fit into a budget, counted newest first so that messages older than the
+         * first one over the budget are never counted
+         */
+        public static ContextWindow ofNewest(List<SparkChatRequest.MessageDto> messages, ToIntFunction<String> counter, int maxTokens) {
+            List<Integer> counts = new ArrayList<>();
+            int tokens = 0;
+            int from = messages.size();
+            while (from > 0 && tokens <= maxTokens) {
+                int count = counter.applyAsInt(messages.get(--from).getContent());
+                counts.add(count);
+                tokens += count;
+            }
+            Collections.reverse(counts);
+            return new ContextWindow(messages.subList(from, messages.size()), counts).fit(maxTokens);
+        }
+
+        public int tokens() {
+            return messageTokens.stream().mapToInt(Integer::intValue).sum();
+        }
+
+        /**
+         * Keep the newest messages that fit into a smaller budget
+         */
+        public ContextWindow fit(int maxTokens) {
+            int tokens = 0;
+            int from = messages.size();
+            while (from > 0 && tokens + messageTokens.get(from - 1) <= maxTokens) {
+                tokens += messageTokens.get(--from);
+            }
+            return new ContextWindow(new ArrayList<>(messages.subList(from, messages.size())),
+                    new ArrayList<>(messageTokens.subList(from, messageTokens.size())));
+        }
+    }
+}
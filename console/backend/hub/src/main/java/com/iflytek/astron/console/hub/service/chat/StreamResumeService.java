@@ -0,0 +1,20 @@
+package com.iflytek.astron.console.hub.service.chat;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Resumption of a chat stream by a client that lost its connection
+ */
+public interface StreamResumeService {
+
+    /**
+     * Replay the events of a stream after the last one the client received, then follow the stream
+     * until it ends, whichever node is generating it
+     *
+     * @param streamId sseId of the stream
+     * @param lastEventId ID of the last event the client received, null or blank to replay all
+     * @param uid User resuming the stream
+     * @return Emitter serving the resumed stream
+     */
+    SseEmitter resume(String streamId, String lastEventId, String uid);
+}
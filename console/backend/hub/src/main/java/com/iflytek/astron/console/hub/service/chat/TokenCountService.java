@@ -0,0 +1,15 @@
+package com.iflytek.astron.console.hub.service.chat;
+
+/**
+ * Token counting for chat context budgets
+ */
+public interface TokenCountService {
+
+    /**
+     * Count tokens of a message
+     *
+     * @param text Message content
+     * @return Token count, 0 for blank text
+     */
+    int count(String text);
+}
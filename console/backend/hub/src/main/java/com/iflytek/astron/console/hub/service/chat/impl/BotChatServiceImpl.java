@@ -23,14 +23,18 @@ import com.iflytek.astron.console.commons.service.data.ChatListDataService;
 import com.iflytek.astron.console.commons.service.workflow.WorkflowBotChatService;
 import com.iflytek.astron.console.commons.util.I18nUtil;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.SseFrameRelay;
 import com.iflytek.astron.console.commons.util.space.SpaceInfoUtil;
 import com.iflytek.astron.console.hub.data.ReqKnowledgeRecordsDataService;
 import com.iflytek.astron.console.hub.entity.ReqKnowledgeRecords;
 import com.iflytek.astron.console.hub.service.PromptChatService;
 import com.iflytek.astron.console.hub.service.SparkChatService;
 import com.iflytek.astron.console.hub.service.chat.BotChatService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
 import com.iflytek.astron.console.hub.service.chat.ChatListService;
+import com.iflytek.astron.console.hub.service.chat.TokenCountService;
 import com.iflytek.astron.console.hub.service.knowledge.KnowledgeService;
+import com.iflytek.astron.console.hub.util.ChatPreflightExecutor;
 import com.iflytek.astron.console.toolkit.entity.vo.CategoryTreeVO;
 import com.iflytek.astron.console.toolkit.entity.vo.LLMInfoVo;
 import com.iflytek.astron.console.toolkit.service.model.LLMService;
@@ -43,10 +47,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author mingsuiyongheng
@@ -94,6 +101,24 @@ public class BotChatServiceImpl implements BotChatService {
     @Autowired
     private ReqKnowledgeRecordsDataService reqKnowledgeRecordsDataService;
 
+    @Autowired
+    private ChatContextCacheService chatContextCacheService;
+
+    @Autowired
+    private ChatPreflightExecutor chatPreflightExecutor;
+
+    @Autowired
+    private TokenCountService tokenCountService;
+
+    @Value("${spark.chat.preflight.timeout.ms:5000}")
+    private long preflightTimeoutMs;
+
+    @Value("${spark.chat.preflight.knowledge.timeout.ms:3000}")
+    private long knowledgeTimeoutMs;
+
+    @Value("${spark.chat.preflight.history.timeout.ms:1000}")
+    private long historyTimeoutMs;
+
     /**
      * Function to handle chat messages
      *
@@ -112,22 +137,30 @@ public class BotChatServiceImpl implements BotChatService {
             if (botConfig.version.equals(BotTypeEnum.WORKFLOW_BOT.getType())) {
                 workflowBotChatService.chatWorkflowBot(chatBotReqDto, sseEmitter, sseId, workflowOperation, workflowVersion);
             } else {
-                int maxInputTokens = this.maxInputTokens;
-                ChatReqRecords chatReqRecords = createChatRequest(chatBotReqDto);
+                // The request record is written while the model, knowledge and history stages run. It is
+                // awaited rather than written behind: its auto-increment ID bounds the history and keys the answer
+                PendingRequest pending = new PendingRequest();
+                CompletableFuture<ChatReqRecords> request = chatPreflightExecutor.stage("request", () -> pending.written(createChatRequest(chatBotReqDto)));
+                Preflight preflight;
+                try {
+                    preflight = runPreflight(chatBotReqDto, botConfig, request, sseEmitter);
+                } catch (RuntimeException e) {
+                    pending.abandon();
+                    throw e;
+                }
+                ChatReqRecords chatReqRecords = preflight.chatReqRecords();
+                List<SparkChatRequest.MessageDto> messages = buildMessageList(chatBotReqDto, botConfig, preflight);
                 if (botConfig.modelId == null) {
-                    List<SparkChatRequest.MessageDto> messages = buildMessageList(chatBotReqDto, botConfig.supportContext, botConfig.supportDocument, botConfig.prompt, maxInputTokens, chatReqRecords.getId());
                     SparkChatRequest sparkChatRequest = buildSparkChatRequest(chatBotReqDto, botConfig, messages);
                     sparkChatService.chatStream(sparkChatRequest, sseEmitter, sseId, chatReqRecords, false, false);
                 } else {
-                    ModelConfigResult modelConfig = getModelConfiguration(botConfig.modelId, sseEmitter);
-                    List<SparkChatRequest.MessageDto> messages = buildMessageList(chatBotReqDto, botConfig.supportContext, botConfig.supportDocument, botConfig.prompt, modelConfig.maxInputTokens(), chatReqRecords.getId());
-                    JSONObject jsonObject = buildPromptChatRequest(modelConfig.llmInfoVo(), messages);
+                    JSONObject jsonObject = buildPromptChatRequest(preflight.modelConfig().llmInfoVo(), messages);
                     promptChatService.chatStream(jsonObject, sseEmitter, sseId, chatReqRecords, false, false);
                 }
             }
         } catch (Exception e) {
             log.error("Bot chat error for sseId: {}, chatId: {}, uid: {}", sseId, chatBotReqDto.getChatId(), chatBotReqDto.getUid(), e);
-            SseEmitterUtil.completeWithError(sseEmitter, "Failed to process chat request: " + e.getMessage());
+            SseFrameRelay.completeWithError(sseEmitter, "Failed to process chat request: " + e.getMessage(), sseId);
         }
     }
 
@@ -152,20 +185,18 @@ public class BotChatServiceImpl implements BotChatService {
             chatBotReqDto.setUid(chatReqRecords.getUid());
             chatBotReqDto.setAsk(chatReqRecords.getMessage());
             chatBotReqDto.setEdit(true);
-            int maxInputTokens = this.maxInputTokens;
+            Preflight preflight = runPreflight(chatBotReqDto, botConfig, CompletableFuture.completedFuture(chatReqRecords), sseEmitter);
+            List<SparkChatRequest.MessageDto> messages = buildMessageList(chatBotReqDto, botConfig, preflight);
             if (botConfig.modelId == null) {
-                List<SparkChatRequest.MessageDto> messages = buildMessageList(chatBotReqDto, botConfig.supportContext, botConfig.supportDocument, botConfig.prompt, maxInputTokens, chatReqRecords.getId());
                 SparkChatRequest sparkChatRequest = buildSparkChatRequest(chatBotReqDto, botConfig, messages);
                 sparkChatService.chatStream(sparkChatRequest, sseEmitter, sseId, chatReqRecords, true, false);
             } else {
-                ModelConfigResult modelConfig = getModelConfiguration(botConfig.modelId, sseEmitter);
-                List<SparkChatRequest.MessageDto> messages = buildMessageList(chatBotReqDto, botConfig.supportContext, botConfig.supportDocument, botConfig.prompt, modelConfig.maxInputTokens(), chatReqRecords.getId());
-                JSONObject jsonObject = buildPromptChatRequest(modelConfig.llmInfoVo, messages);
+                JSONObject jsonObject = buildPromptChatRequest(preflight.modelConfig().llmInfoVo(), messages);
                 promptChatService.chatStream(jsonObject, sseEmitter, sseId, chatReqRecords, false, false);
             }
         } catch (Exception e) {
             log.error("Bot reAnswer error for sseId: {}, requestId: {}", sseId, requestId, e);
-            SseEmitterUtil.completeWithError(sseEmitter, "Failed to process re-answer request: " + e.getMessage());
+            SseFrameRelay.completeWithError(sseEmitter, "Failed to process re-answer request: " + e.getMessage(), sseId);
         }
     }
 
@@ -243,6 +274,7 @@ public class BotChatServiceImpl implements BotChatService {
         }
         // Delete window
         chatListService.logicDeleteChatList(chatId, uid);
+        chatContextCacheService.invalidate(uid, chatId);
         // Add new window based on botId
         ChatListCreateResponse chatListCreateResponse = chatListService.createRestartChat(uid, "", botId);
         // Add assistant to user's chat_bot_list
@@ -332,32 +364,52 @@ public class BotChatServiceImpl implements BotChatService {
     }
 
     /**
-     * Get historical conversation messages
+     * Run the pre-flight stages of a turn concurrently and wait for their results.
+     * <p>
+     * Model lookup, knowledge retrieval and the request record do not depend on each other. History
+     * only needs the request ID and the model's context size, so it is fetched against the budget
+     * left by the prompt and the plain ask, and cut to the final budget once the knowledge is known.
+     * Knowledge and history degrade to empty when they are late; the request and the model are
+     * required.
      *
      * @param chatBotReqDto Chat bot request data transfer object
-     * @param supportContext Whether to support context
-     * @param availableTokens Available token count for history messages
-     * @return List of historical message data transfer objects
+     * @param botConfig Bot configuration
+     * @param request Stage producing the request record of this turn
+     * @param sseEmitter SSE emitter for error handling
+     * @return Results of all pre-flight stages
      */
-    private List<SparkChatRequest.MessageDto> getHistoryMessages(ChatBotReqDto chatBotReqDto, boolean supportContext, boolean supportDocument, int availableTokens) {
-        if (!supportContext || availableTokens <= 0) {
-            return new ArrayList<>();
+    private Preflight runPreflight(ChatBotReqDto chatBotReqDto, BotConfiguration botConfig, CompletableFuture<ChatReqRecords> request, SseEmitter sseEmitter) {
+        long start = System.nanoTime();
+        CompletableFuture<ModelConfigResult> model = botConfig.modelId == null
+                ? CompletableFuture.completedFuture(new ModelConfigResult(null, this.maxInputTokens))
+                : chatPreflightExecutor.stage("model", () -> getModelConfiguration(botConfig.modelId, sseEmitter));
+        CompletableFuture<List<String>> knowledge = botConfig.supportDocument
+                ? chatPreflightExecutor.stage("knowledge", () -> knowledgeService.getChuncksByBotId(chatBotReqDto.getBotId(), chatBotReqDto.getAsk(), 3))
+                : CompletableFuture.completedFuture(null);
+        CompletableFuture<ChatContextCacheService.ContextWindow> history = CompletableFuture.completedFuture(ChatContextCacheService.ContextWindow.empty());
+        if (botConfig.supportContext) {
+            int plainTokens = tokenCountService.count(botConfig.prompt) + tokenCountService.count(chatBotReqDto.getAsk());
+            // Only turns before the current request, so a re-answer never sees itself or later turns
+            history = request.thenCombine(model, (chatReqRecords, modelConfig) -> chatPreflightExecutor.stage("history",
+                    () -> chatContextCacheService.getHistory(chatBotReqDto.getUid(), chatBotReqDto.getChatId(), chatReqRecords.getId(),
+                            botConfig.supportDocument, modelConfig.maxInputTokens() - plainTokens)))
+                    .thenCompose(stage -> stage);
         }
 
-        List<SparkChatRequest.MessageDto> historyMessages = chatHistoryService.getSystemBotHistory(chatBotReqDto.getUid(), chatBotReqDto.getChatId(), supportDocument);
+        ChatReqRecords chatReqRecords = chatPreflightExecutor.await("request", request, remaining(start, preflightTimeoutMs));
+        ModelConfigResult modelConfig = chatPreflightExecutor.await("model", model, remaining(start, preflightTimeoutMs));
+        List<String> knowledgeList = botConfig.supportDocument
+                ? chatPreflightExecutor.awaitOrDefault("knowledge", knowledge, remaining(start, knowledgeTimeoutMs), new ArrayList<>())
+                : null;
+        ChatContextCacheService.ContextWindow window = chatPreflightExecutor.awaitOrDefault("history", history,
+                remaining(start, Math.max(preflightTimeoutMs, knowledgeTimeoutMs) + historyTimeoutMs), ChatContextCacheService.ContextWindow.empty());
+        log.debug("Chat pre-flight completed in {}ms, history messages: {}", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), window.messages().size());
 
-        // delete current ask
-        historyMessages.removeLast();
-        // If it's a re-answer request, need to remove the last Q&A pair
-        if (chatBotReqDto.getEdit()) {
-            historyMessages.removeLast();
-        }
-
-        List<SparkChatRequest.MessageDto> truncatedHistory = truncateHistoryByTokens(historyMessages, availableTokens);
-        log.debug("History message truncation completed - Original count: {}, After truncation: {}",
-                historyMessages.size(), truncatedHistory.size());
+        return new Preflight(chatReqRecords, modelConfig, knowledgeList, window);
+    }
 
-        return truncatedHistory;
+    private static Duration remaining(long startNanos, long timeoutMs) {
+        return Duration.ofNanos(Math.max(0L, startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs) - System.nanoTime()));
     }
 
     /**
@@ -368,8 +420,8 @@ public class BotChatServiceImpl implements BotChatService {
      * @return TokenStatistics object containing token counts
      */
     private TokenStatistics calculateTokenStatistics(String prompt, String userMessage, int maxInputTokens) {
-        int systemTokens = estimateTokenCount(prompt);
-        int currentUserTokens = estimateTokenCount(userMessage);
+        int systemTokens = tokenCountService.count(prompt);
+        int currentUserTokens = tokenCountService.count(userMessage);
         int reservedTokens = systemTokens + currentUserTokens;
         int availableTokens = Math.max(0, maxInputTokens - reservedTokens);
 
@@ -383,34 +435,38 @@ public class BotChatServiceImpl implements BotChatService {
      * Build message list, truncate historical conversation data based on maximum input tokens
      *
      * @param chatBotReqDto Chat bot request data transfer object
-     * @param supportContext Whether to support context
-     * @param prompt Prompt text
+     * @param botConfig Bot configuration
+     * @param preflight Results of the pre-flight stages
      * @return List of message data transfer objects
      */
-    private List<SparkChatRequest.MessageDto> buildMessageList(ChatBotReqDto chatBotReqDto, boolean supportContext, boolean supportDocument, String prompt, int maxInputTokens, Long reqId) {
+    private List<SparkChatRequest.MessageDto> buildMessageList(ChatBotReqDto chatBotReqDto, BotConfiguration botConfig, Preflight preflight) {
         List<SparkChatRequest.MessageDto> messageDtoList = new ArrayList<>();
+        Long reqId = preflight.chatReqRecords().getId();
+        int maxInputTokens = preflight.modelConfig().maxInputTokens();
 
         SparkChatRequest.MessageDto systemMessage = new SparkChatRequest.MessageDto();
         systemMessage.setRole("system");
-        systemMessage.setContent(prompt);
+        systemMessage.setContent(botConfig.prompt);
 
 
         SparkChatRequest.MessageDto queryMessage = new SparkChatRequest.MessageDto();
         StringBuilder askBuilder = new StringBuilder();
-        if (supportDocument) {
-            // Parse knowledge string (it's stored as a string representation of a list)
-            List<String> knowledgeList = knowledgeService.getChuncksByBotId(chatBotReqDto.getBotId(), chatBotReqDto.getAsk(), 3);
+        String storedKnowledge = null;
+        if (botConfig.supportDocument) {
             askBuilder.append(I18nUtil.getMessage("loose.prefix.prompt"));
 
             // Insert knowledge content into the placeholder
-            String knowledgeStr = knowledgeList.toString();
-            reqKnowledgeRecordsDataService.create(ReqKnowledgeRecords.builder()
+            String knowledgeStr = preflight.knowledge().toString();
+            storedKnowledge = knowledgeStr.substring(0, Math.min(3900, knowledgeStr.length()));
+            ReqKnowledgeRecords knowledgeRecord = ReqKnowledgeRecords.builder()
                     .uid(chatBotReqDto.getUid())
                     .chatId(chatBotReqDto.getChatId())
                     .reqId(reqId)
                     .reqMessage(chatBotReqDto.getAsk())
-                    .knowledge(knowledgeStr.substring(0, Math.min(3900, knowledgeStr.length())))
-                    .build());
+                    .knowledge(storedKnowledge)
+                    .build();
+            // Only read back when history is rebuilt from the database, nothing on this turn waits for it
+            chatPreflightExecutor.writeBehind("knowledge_record", () -> reqKnowledgeRecordsDataService.create(knowledgeRecord));
             askBuilder.insert(askBuilder.indexOf("[") + 1, knowledgeStr);
             askBuilder.append(I18nUtil.getMessage("loose.suffix.prompt"));
             askBuilder.insert(askBuilder.indexOf("{{") + 2, chatBotReqDto.getAsk());
@@ -420,17 +476,23 @@ public class BotChatServiceImpl implements BotChatService {
         queryMessage.setRole("user");
         queryMessage.setContent(askBuilder.toString());
 
-        TokenStatistics tokenStats = calculateTokenStatistics(prompt, askBuilder.toString(), maxInputTokens);
+        TokenStatistics tokenStats = calculateTokenStatistics(botConfig.prompt, askBuilder.toString(), maxInputTokens);
 
         messageDtoList.add(systemMessage);
 
-        List<SparkChatRequest.MessageDto> historyMessages = getHistoryMessages(chatBotReqDto, supportContext, supportDocument, tokenStats.availableTokens());
-        messageDtoList.addAll(historyMessages);
+        // A re-answer keeps its turn where it is, the window is refreshed once the answer is saved
+        if (!Boolean.TRUE.equals(chatBotReqDto.getEdit())) {
+            chatContextCacheService.appendAsk(chatBotReqDto.getUid(), chatBotReqDto.getChatId(), reqId, chatBotReqDto.getAsk(), storedKnowledge);
+        }
+        ChatContextCacheService.ContextWindow history = botConfig.supportContext
+                ? preflight.history().fit(tokenStats.availableTokens())
+                : ChatContextCacheService.ContextWindow.empty();
+        log.debug("History message window loaded - Messages: {}, Tokens: {}, Limit: {}",
+                history.messages().size(), history.tokens(), tokenStats.availableTokens());
+        messageDtoList.addAll(history.messages());
         messageDtoList.add(queryMessage);
 
-        int totalTokens = messageDtoList.stream()
-                .mapToInt(msg -> estimateTokenCount(msg.getContent()))
-                .sum();
+        int totalTokens = tokenStats.reservedTokens() + history.tokens();
 
         log.info("Message list build completed - Total messages: {}, Estimated total tokens: {}, Maximum limit: {}",
                 messageDtoList.size(), totalTokens, maxInputTokens);
@@ -473,6 +535,7 @@ public class BotChatServiceImpl implements BotChatService {
 
         messageDtoList.add(systemMessage);
 
+        int historyTokens = 0;
         if (tokenStats.availableTokens() > 0 && !messages.isEmpty()) {
             List<SparkChatRequest.MessageDto> historyMessages = convertStringMessagesToDto(messages);
             // MaaS dataset processing
@@ -493,18 +556,17 @@ public class BotChatServiceImpl implements BotChatService {
                     messageDto.setContent(builder.toString());
                 }
             }
-            List<SparkChatRequest.MessageDto> truncatedHistory = truncateHistoryByTokens(historyMessages, tokenStats.availableTokens());
-            messageDtoList.addAll(truncatedHistory);
+            ChatContextCacheService.ContextWindow truncatedHistory = truncateHistoryByTokens(historyMessages, tokenStats.availableTokens());
+            messageDtoList.addAll(truncatedHistory.messages());
+            historyTokens = truncatedHistory.tokens();
 
             log.debug("Debug history message truncation completed - Original count: {}, After truncation: {}",
-                    historyMessages.size(), truncatedHistory.size());
+                    historyMessages.size(), truncatedHistory.messages().size());
         }
 
         messageDtoList.add(queryMessage);
 
-        int totalTokens = messageDtoList.stream()
-                .mapToInt(msg -> estimateTokenCount(msg.getContent()))
-                .sum();
+        int totalTokens = tokenStats.systemTokens() + tokenCountService.count(queryMessage.getContent()) + historyTokens;
 
         log.info("Debug message list build completed - Total messages: {}, Estimated total tokens: {}, Maximum limit: {}",
                 messageDtoList.size(), totalTokens, maxInputTokens);
@@ -534,66 +596,11 @@ public class BotChatServiceImpl implements BotChatService {
      *
      * @param historyMessages History message list
      * @param maxHistoryTokens Maximum token count for history messages
-     * @return Truncated history message list
-     */
-    private List<SparkChatRequest.MessageDto> truncateHistoryByTokens(List<SparkChatRequest.MessageDto> historyMessages, int maxHistoryTokens) {
-        List<SparkChatRequest.MessageDto> result = new ArrayList<>();
-        int currentTokens = 0;
-
-        // Traverse from back to front (keep the newest conversations)
-        for (int i = historyMessages.size() - 1; i >= 0; i--) {
-            SparkChatRequest.MessageDto message = historyMessages.get(i);
-            int messageTokens = estimateTokenCount(message.getContent());
-
-            // Check if token limit is exceeded
-            if (currentTokens + messageTokens > maxHistoryTokens) {
-                log.debug("History message truncation - Stopped at index {}, current tokens: {}, message tokens: {}, limit: {}",
-                        i, currentTokens, messageTokens, maxHistoryTokens);
-                break;
-            }
-
-            currentTokens += messageTokens;
-            // Add to the beginning of the list, maintain time order
-            result.addFirst(message);
-        }
-
-        return result;
-    }
-
-    /**
-     * Estimate token count for text (simple estimation: Chinese characters * 1.5, English words * 1.3)
-     *
-     * @param text Text content
-     * @return Estimated token count
+     * @return Newest history messages that fit, in time order, with their token counts
      */
-    private int estimateTokenCount(String text) {
-        if (StringUtils.isBlank(text)) {
-            return 0;
-        }
-
-        // Simple estimation method:
-        // - Chinese characters calculated as 1.5 tokens
-        // - English characters calculated as 1.3 tokens (considering word segmentation)
-        int chineseChars = 0;
-        int englishChars = 0;
-
-        for (char c : text.toCharArray()) {
-            if (c >= 0x4e00 && c <= 0x9fff) {
-                // Chinese character range
-                chineseChars++;
-            } else if (Character.isLetterOrDigit(c)) {
-                // English characters and numbers
-                englishChars++;
-            }
-        }
-
-        int estimatedTokens = (int) (chineseChars * 1.5 + englishChars * 1.3);
-
-        log.trace("Token estimation - Chinese characters: {}, English characters: {}, Estimated tokens: {}",
-                chineseChars, englishChars, estimatedTokens);
-
-        // At least 1 token
-        return Math.max(estimatedTokens, 1);
+    private ChatContextCacheService.ContextWindow truncateHistoryByTokens(List<SparkChatRequest.MessageDto> historyMessages, int maxHistoryTokens) {
+        // Keeps the newest conversations
+        return ChatContextCacheService.ContextWindow.ofNewest(historyMessages, tokenCountService::count, maxHistoryTokens);
     }
 
     /**
@@ -668,6 +675,48 @@ public class BotChatServiceImpl implements BotChatService {
 
     private record ModelConfigResult(LLMInfoVo llmInfoVo, int maxInputTokens) {}
 
+    private record Preflight(ChatReqRecords chatReqRecords, ModelConfigResult modelConfig, List<String> knowledge, ChatContextCacheService.ContextWindow history) {}
+
+    /**
+     * Request record of a turn, deleted again when the turn is dropped before the model is called, so no
+     * question is left without an answer. The insert may outlive a timed out wait, so whichever of the
+     * insert and the drop comes second deletes it.
+     */
+    private final class PendingRequest {
+        private ChatReqRecords record;
+        private boolean abandoned;
+
+        ChatReqRecords written(ChatReqRecords chatReqRecords) {
+            synchronized (this) {
+                if (!abandoned) {
+                    record = chatReqRecords;
+                    return chatReqRecords;
+                }
+            }
+            delete(chatReqRecords);
+            return chatReqRecords;
+        }
+
+        void abandon() {
+            ChatReqRecords written;
+            synchronized (this) {
+                abandoned = true;
+                written = record;
+            }
+            if (written != null) {
+                delete(written);
+            }
+        }
+
+        private void delete(ChatReqRecords chatReqRecords) {
+            try {
+                chatDataService.deleteRequest(chatReqRecords.getId());
+            } catch (Exception e) {
+                log.error("Failed to delete request record of a dropped turn, reqId: {}", chatReqRecords.getId(), e);
+            }
+        }
+    }
+
     /**
      * Determine whether to enable web search
      */
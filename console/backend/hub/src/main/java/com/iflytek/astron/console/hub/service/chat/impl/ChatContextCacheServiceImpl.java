@@ -0,0 +1,268 @@
+package com.iflytek.astron.console.hub.service.chat.impl;
+
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson2.JSON;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.commons.dto.chat.ChatReqModelDto;
+import com.iflytek.astron.console.commons.dto.chat.ChatRespModelDto;
+import com.iflytek.astron.console.commons.dto.llm.SparkChatRequest;
+import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
+import com.iflytek.astron.console.commons.service.data.ChatDataService;
+import com.iflytek.astron.console.hub.data.ReqKnowledgeRecordsDataService;
+import com.iflytek.astron.console.hub.entity.ReqKnowledgeRecords;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
+import com.iflytek.astron.console.hub.service.chat.TokenCountService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RList;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Context window cache backed by one Redis list per chat.
+ * <p>
+ * Each list entry is a single message with its token count estimated once when it is written. Asks
+ * and answers are appended as they are persisted, and only while the list exists, so a dropped or
+ * expired window is rebuilt from the database on the next read instead of being left half filled.
+ * Reads fetch the tail of the list sized by how many entries the previous window of the chat used,
+ * so a turn normally only pulls that window plus what is new.
+ *
+ * @author mingsuiyongheng
+ */
+@Service
+@Slf4j
+public class ChatContextCacheServiceImpl implements ChatContextCacheService {
+
+    /**
+     * Maximum number of messages kept per chat, matching the request history read from the database
+     */
+    static final int MAX_ENTRIES = 1000;
+
+    static final Duration TTL = Duration.ofDays(1);
+
+    private static final int MIN_FETCH = 16;
+
+    private static final String ROLE_USER = "user";
+    private static final String ROLE_ASSISTANT = "assistant";
+
+    /**
+     * Number of list entries the last window of each chat was built from
+     */
+    private final Cache<String, Integer> windowSizeHint = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private ChatDataService chatDataService;
+
+    @Autowired
+    private ReqKnowledgeRecordsDataService reqKnowledgeRecordsDataService;
+
+    @Autowired
+    private TokenCountService tokenCountService;
+
+    @Override
+    public ContextWindow getHistory(String uid, Long chatId, Long reqId, boolean supportDocument, int maxTokens) {
+        if (maxTokens <= 0) {
+            return ContextWindow.empty();
+        }
+        String key = key(uid, chatId, supportDocument);
+        try {
+            RList<String> list = redissonClient.getList(key, StringCodec.INSTANCE);
+            if (!list.isExists()) {
+                List<ContextEntry> entries = loadFromDatabase(uid, chatId, supportDocument);
+                if (!entries.isEmpty() && !list.isExists()) {
+                    list.addAll(entries.stream().map(JSON::toJSONString).toList());
+                    list.expire(TTL);
+                }
+                return window(key, entries, reqId, maxTokens, true);
+            }
+            int fetch = Math.max(MIN_FETCH, Optional.ofNullable(windowSizeHint.getIfPresent(key)).orElse(0) + 4);
+            while (true) {
+                List<String> raw = list.range(-fetch, -1);
+                boolean complete = raw.size() < fetch;
+                ContextWindow window = window(key, parse(raw), reqId, maxTokens, complete);
+                if (window != null) {
+                    return window;
+                }
+                fetch *= 2;
+            }
+        } catch (Exception e) {
+            log.warn("Chat context cache unavailable, falling back to database, chatId: {}, error: {}", chatId, e.getMessage());
+            return window(key, loadFromDatabase(uid, chatId, supportDocument), reqId, maxTokens, true);
+        }
+    }
+
+    @Override
+    public void appendAsk(String uid, Long chatId, Long reqId, String ask, String knowledge) {
+        if (reqId == null || ask == null) {
+            return;
+        }
+        append(key(uid, chatId, false), new ContextEntry(reqId, ROLE_USER, ask, tokenCountService.count(ask)));
+        String enhanced = StringUtils.isAnyBlank(ask, knowledge) ? ask : ChatHistoryServiceImpl.enhanceAskWithKnowledge(ask, knowledge, reqId);
+        append(key(uid, chatId, true), new ContextEntry(reqId, ROLE_USER, enhanced, tokenCountService.count(enhanced)));
+    }
+
+    @Override
+    public void appendAnswer(ChatReqRecords chatReqRecords, String answer) {
+        if (chatReqRecords == null || chatReqRecords.getId() == null || StringUtils.isBlank(answer)) {
+            return;
+        }
+        ContextEntry entry = new ContextEntry(chatReqRecords.getId(), ROLE_ASSISTANT, answer, tokenCountService.count(answer));
+        append(key(chatReqRecords.getUid(), chatReqRecords.getChatId(), false), entry);
+        append(key(chatReqRecords.getUid(), chatReqRecords.getChatId(), true), entry);
+    }
+
+    @Override
+    public void invalidate(String uid, Long chatId) {
+        for (boolean supportDocument : new boolean[] {false, true}) {
+            String key = key(uid, chatId, supportDocument);
+            windowSizeHint.invalidate(key);
+            try {
+                redissonClient.getList(key, StringCodec.INSTANCE).delete();
+            } catch (Exception e) {
+                log.error("Failed to invalidate chat context cache, chatId: {}", chatId, e);
+            }
+        }
+    }
+
+    private void append(String key, ContextEntry entry) {
+        try {
+            int size = redissonClient.<String>getDeque(key, StringCodec.INSTANCE).addLastIfExists(JSON.toJSONString(entry));
+            if (size == 0) {
+                return;
+            }
+            RList<String> list = redissonClient.getList(key, StringCodec.INSTANCE);
+            if (size > MAX_ENTRIES) {
+                list.trim(-MAX_ENTRIES, -1);
+            }
+            list.expire(TTL);
+        } catch (Exception e) {
+            // A window missing this entry would be served until it expires, drop it instead
+            log.warn("Failed to append to chat context cache, key: {}, error: {}", key, e.getMessage());
+            try {
+                redissonClient.getList(key, StringCodec.INSTANCE).delete();
+            } catch (Exception ignored) {
+                // Nothing more can be done while Redis is unavailable
+            }
+        }
+    }
+
+    /**
+     * Cut the newest turns before a request that fit into the budget out of entries in write order
+     *
+     * @param complete Whether the entries reach back to the start of the chat
+     * @return The window, or null when the entries ran out before the budget did and more are available
+     */
+    private ContextWindow window(String key, List<ContextEntry> entries, Long reqId, int maxTokens, boolean complete) {
+        // Later writes for the same message win, e.g. a re-generated answer
+        Map<String, ContextEntry> latest = new LinkedHashMap<>();
+        // The oldest turn of a partial tail may be missing its ask
+        Long partial = complete || entries.isEmpty() ? null : entries.getFirst().reqId();
+        for (ContextEntry entry : entries) {
+            if ((reqId == null || entry.reqId() < reqId) && !entry.reqId().equals(partial)) {
+                latest.put(entry.reqId() + ":" + entry.role(), entry);
+            }
+        }
+        List<ContextEntry> ordered = new ArrayList<>(latest.values());
+        ordered.sort(Comparator.comparingLong(ContextEntry::reqId)
+                .thenComparing(entry -> ROLE_USER.equals(entry.role()) ? 0 : 1));
+
+        LinkedList<SparkChatRequest.MessageDto> messages = new LinkedList<>();
+        LinkedList<Integer> messageTokens = new LinkedList<>();
+        int tokens = 0;
+        long oldest = Long.MAX_VALUE;
+        boolean exhausted = true;
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            ContextEntry entry = ordered.get(i);
+            if (tokens + entry.tokens() > maxTokens) {
+                exhausted = false;
+                break;
+            }
+            tokens += entry.tokens();
+            oldest = entry.reqId();
+            SparkChatRequest.MessageDto message = new SparkChatRequest.MessageDto();
+            message.setRole(entry.role());
+            message.setContent(entry.content());
+            messages.addFirst(message);
+            messageTokens.addFirst(entry.tokens());
+        }
+        if (exhausted && !complete) {
+            return null;
+        }
+        long from = oldest;
+        windowSizeHint.put(key, (int) entries.stream().filter(entry -> entry.reqId() >= from).count());
+        return new ContextWindow(new ArrayList<>(messages), new ArrayList<>(messageTokens));
+    }
+
+    private List<ContextEntry> parse(List<String> raw) {
+        List<ContextEntry> entries = new ArrayList<>(raw.size());
+        for (String item : raw) {
+            ContextEntry entry = JSON.parseObject(item, ContextEntry.class);
+            if (entry != null && entry.reqId() != null && entry.content() != null) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Build the entries of a chat from the database in write order, same content as
+     * {@link ChatHistoryServiceImpl#getSystemBotHistory}
+     */
+    private List<ContextEntry> loadFromDatabase(String uid, Long chatId, boolean supportDocument) {
+        List<ChatReqModelDto> reqList = chatDataService.getReqModelBotHistoryByChatId(uid, chatId);
+        List<ContextEntry> entries = new ArrayList<>();
+        if (CollectionUtils.isEmpty(reqList)) {
+            return entries;
+        }
+        List<Long> reqIds = reqList.stream().map(ChatReqModelDto::getId).collect(Collectors.toList());
+        List<ChatRespModelDto> respList = chatDataService.getChatRespModelBotHistoryByChatId(uid, chatId, reqIds);
+        Map<Long, ChatRespModelDto> respMap = new HashMap<>();
+        if (!CollectionUtils.isEmpty(respList)) {
+            for (ChatRespModelDto respDto : respList) {
+                respMap.put(respDto.getReqId(), respDto);
+            }
+        }
+        Map<Long, ReqKnowledgeRecords> knowledgeMap = supportDocument ? reqKnowledgeRecordsDataService.findByReqIds(reqIds) : Map.of();
+
+        for (int i = reqList.size() - 1; i >= 0; i--) {
+            ChatReqModelDto reqDto = reqList.get(i);
+            if (reqDto.getMessage() == null) {
+                continue;
+            }
+            String ask = reqDto.getMessage();
+            ReqKnowledgeRecords knowledgeRecord = knowledgeMap == null ? null : knowledgeMap.get(reqDto.getId());
+            if (supportDocument && knowledgeRecord != null && StringUtils.isNoneBlank(ask, knowledgeRecord.getKnowledge())) {
+                ask = ChatHistoryServiceImpl.enhanceAskWithKnowledge(ask, knowledgeRecord.getKnowledge(), reqDto.getId());
+            }
+            entries.add(new ContextEntry(reqDto.getId(), ROLE_USER, ask, tokenCountService.count(ask)));
+
+            ChatRespModelDto respDto = respMap.get(reqDto.getId());
+            if (respDto != null && StringUtils.isNotBlank(respDto.getMessage())) {
+                entries.add(new ContextEntry(reqDto.getId(), ROLE_ASSISTANT, respDto.getMessage(), tokenCountService.count(respDto.getMessage())));
+            }
+        }
+        return entries;
+    }
+
+    private static String key(String uid, Long chatId, boolean supportDocument) {
+        return StrUtil.format(RedisKeyConstant.CHAT_CONTEXT_WINDOW, uid, chatId, supportDocument ? 1 : 0);
+    }
+
+    record ContextEntry(Long reqId, String role, String content, int tokens) {}
+}
@@ -8,6 +8,7 @@ import com.iflytek.astron.console.commons.service.data.ChatHistoryService;
 import com.iflytek.astron.console.commons.util.I18nUtil;
 import com.iflytek.astron.console.hub.data.ReqKnowledgeRecordsDataService;
 import com.iflytek.astron.console.hub.entity.ReqKnowledgeRecords;
+import com.iflytek.astron.console.hub.service.chat.TokenCountService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.util.Base64Util;
@@ -31,6 +32,12 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
     @Autowired
     private ReqKnowledgeRecordsDataService reqKnowledgeRecordsDataService;
 
+    @Autowired
+    private TokenCountService tokenCountService;
+
+    /**
+     * Token budget of workflow history
+     */
     public static final int MAX_HISTORY_NUMBERS = 8000;
 
     /**
@@ -129,7 +136,7 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
 
             // Add answer, history records answer first then question
             String answer = respDto.getMessage();
-            int answerLength = answer == null ? 0 : answer.length();
+            int answerLength = tokenCountService.count(answer);
             // If there is data in multimodal content, it means this is a multimodal return, append history in
             // multimodal design format
             if (StringUtils.isNotBlank(respDto.getContent())) {
@@ -160,7 +167,7 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
             }
             /*** Add question ***/
             String ask = reqDto.getMessage();
-            int askLength = ask == null ? 0 : ask.length();
+            int askLength = tokenCountService.count(ask);
             // If the question is an image, set length to 800 to prevent history from exceeding 10 images
             if (StringUtils.isNotBlank(reqDto.getUrl())) {
                 askLength = 800;
@@ -235,10 +242,19 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
             return originalAsk;
         }
 
-        try {
-            // Parse knowledge string (it's stored as a string representation of a list)
-            String knowledgeStr = knowledgeRecord.getKnowledge();
+        return enhanceAskWithKnowledge(originalAsk, knowledgeRecord.getKnowledge(), knowledgeRecord.getReqId());
+    }
 
+    /**
+     * Wrap an ask with the knowledge stored for it, the same way it was sent to the model
+     *
+     * @param originalAsk Original ask message
+     * @param knowledgeStr Stored knowledge string
+     * @param reqId Request ID, used for logging
+     * @return Enhanced ask content, or the original ask if wrapping fails
+     */
+    static String enhanceAskWithKnowledge(String originalAsk, String knowledgeStr, Long reqId) {
+        try {
             // Build enhanced content with knowledge wrapping
             StringBuilder promptBuilder = new StringBuilder();
             promptBuilder.append(I18nUtil.getMessage("loose.prefix.prompt"));
@@ -251,12 +267,12 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
             String enhancedContent = promptBuilder.toString();
 
             log.debug("Enhanced ask with stored knowledge for reqId: {}, original length: {}, enhanced length: {}",
-                    knowledgeRecord.getReqId(), originalAsk.length(), enhancedContent.length());
+                    reqId, originalAsk.length(), enhancedContent.length());
 
             return enhancedContent;
         } catch (Exception e) {
             log.warn("Failed to enhance ask with stored knowledge for reqId: {}, error: {}",
-                    knowledgeRecord.getReqId(), e.getMessage());
+                    reqId, e.getMessage());
             return originalAsk;
         }
     }
@@ -1,6 +1,7 @@
 package com.iflytek.astron.console.hub.service.chat.impl;
 
 import com.iflytek.astron.console.commons.service.data.ChatDataService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
 import com.iflytek.astron.console.hub.service.chat.ChatReqRespService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +17,9 @@ public class ChatReqRespServiceImpl implements ChatReqRespService {
     @Autowired
     private ChatDataService chatDataService;
 
+    @Autowired
+    private ChatContextCacheService chatContextCacheService;
+
     /**
      * Update bot chat context
      *
@@ -26,5 +30,6 @@ public class ChatReqRespServiceImpl implements ChatReqRespService {
     @Override
     public void updateBotChatContext(Long chatId, String uid, Integer botId) {
         chatDataService.updateNewContextByUidAndChatId(uid, chatId);
+        chatContextCacheService.invalidate(uid, chatId);
     }
 }
@@ -0,0 +1,164 @@
+package com.iflytek.astron.console.hub.service.chat.impl;
+
+import cn.hutool.core.thread.ThreadFactoryBuilder;
+import com.alibaba.fastjson2.JSONObject;
+import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.StreamReplayLog;
+import com.iflytek.astron.console.hub.service.chat.StreamResumeService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumes chat streams from their {@link StreamReplayLog}.
+ * <p>
+ * The events after the client's last one are replayed in batches, and the log is then polled for new
+ * events until the end event arrives, so the node generating the stream does not matter. A stream
+ * that has logged nothing for {@code chat.stream.replay.stall-timeout-seconds} without ending, for
+ * instance because its node went down, is closed as interrupted; the answer saved by its last
+ * checkpoint stays in the chat history. All resumed streams share a small poller, no thread waits on
+ * any of them.
+ */
+@Slf4j
+@Service
+public class StreamResumeServiceImpl implements StreamResumeService {
+
+    private static final int BATCH_SIZE = 256;
+
+    @Autowired
+    private StreamReplayLog streamReplayLog;
+
+    @Value("${chat.stream.replay.poll-interval-ms:300}")
+    private long pollIntervalMs = 300;
+    @Value("${chat.stream.replay.stall-timeout-seconds:120}")
+    private long stallTimeoutSeconds = 120;
+
+    private ScheduledThreadPoolExecutor poller;
+
+    @PostConstruct
+    public void init() {
+        poller = new ScheduledThreadPoolExecutor(2, ThreadFactoryBuilder.create().setNamePrefix("sse-resume-").setDaemon(true).build());
+        poller.setRemoveOnCancelPolicy(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        poller.shutdownNow();
+    }
+
+    @Override
+    public SseEmitter resume(String streamId, String lastEventId, String uid) {
+        SseEmitter emitter = SseEmitterUtil.createSseEmitter();
+        String owner;
+        try {
+            owner = streamReplayLog.ownerOf(streamId);
+        } catch (Exception e) {
+            log.warn("Failed to look up replay log, streamId: {}, error: {}", streamId, e.getMessage());
+            owner = null;
+        }
+        if (owner == null || !owner.equals(uid)) {
+            log.warn("Stream cannot be resumed, streamId: {}, uid: {}", streamId, uid);
+            SseEmitterUtil.sendError(emitter, "Stream not found or expired");
+            SseEmitterUtil.sendEndAndComplete(emitter);
+            return emitter;
+        }
+        log.info("Resuming stream, streamId: {}, lastEventId: {}", streamId, lastEventId);
+        follow(streamId, lastEventId, emitter);
+        return emitter;
+    }
+
+    /**
+     * Start sending the logged events of a stream after an event to an emitter
+     */
+    void follow(String streamId, String lastEventId, SseEmitter emitter) {
+        Follower follower = new Follower(streamId, lastEventId, emitter);
+        emitter.onCompletion(follower::stop);
+        emitter.onTimeout(follower::stop);
+        emitter.onError(t -> follower.stop());
+        poller.execute(follower);
+    }
+
+    /**
+     * Sends the log of one stream to one client, one batch per run
+     */
+    private final class Follower implements Runnable {
+
+        private final String streamId;
+        private final SseEmitter emitter;
+        private String lastEventId;
+        /** When the stream last logged an event, as far as this follower knows */
+        private long lastActivityAt;
+        private volatile boolean stopped;
+
+        private Follower(String streamId, String lastEventId, SseEmitter emitter) {
+            this.streamId = streamId;
+            this.lastEventId = lastEventId;
+            this.emitter = emitter;
+            long lastEventAt = StreamReplayLog.timestampOf(lastEventId);
+            this.lastActivityAt = lastEventAt > 0 ? lastEventAt : System.currentTimeMillis();
+        }
+
+        @Override
+        public void run() {
+            if (stopped) {
+                return;
+            }
+            try {
+                List<StreamReplayLog.Entry> entries = streamReplayLog.readAfter(streamId, lastEventId, BATCH_SIZE);
+                for (StreamReplayLog.Entry entry : entries) {
+                    emitter.send(SseEmitter.event().id(entry.id()).name(entry.event()).data(entry.data()));
+                    lastEventId = entry.id();
+                    lastActivityAt = Math.max(lastActivityAt, StreamReplayLog.timestampOf(entry.id()));
+                    if (StreamReplayLog.END_EVENT.equals(entry.event())) {
+                        stop();
+                        emitter.complete();
+                        return;
+                    }
+                }
+                if (entries.size() == BATCH_SIZE) {
+                    poller.execute(this);
+                } else if (System.currentTimeMillis() - lastActivityAt > TimeUnit.SECONDS.toMillis(stallTimeoutSeconds)) {
+                    interrupted();
+                } else {
+                    poller.schedule(this, pollIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.info("Client left resumed stream, streamId: {}, error: {}", streamId, e.getMessage());
+                stop();
+                emitter.complete();
+            } catch (Exception e) {
+                log.warn("Failed to read replay log, streamId: {}, error: {}", streamId, e.getMessage());
+                stop();
+                SseEmitterUtil.sendEndAndComplete(emitter);
+            }
+        }
+
+        private void interrupted() {
+            log.info("Resumed stream stalled without ending, streamId: {}, lastEventId: {}", streamId, lastEventId);
+            stop();
+            JSONObject interruptedData = new JSONObject();
+            interruptedData.put("interrupted", true);
+            interruptedData.put("reason", "Stream ended without completing");
+            interruptedData.put("timestamp", System.currentTimeMillis());
+            try {
+                emitter.send(SseEmitter.event().name("complete").data(interruptedData.toJSONString()));
+            } catch (Exception e) {
+                log.debug("Failed to send interruption, streamId: {}, error: {}", streamId, e.getMessage());
+            }
+            SseEmitterUtil.sendEndAndComplete(emitter);
+        }
+
+        private void stop() {
+            stopped = true;
+        }
+    }
+}
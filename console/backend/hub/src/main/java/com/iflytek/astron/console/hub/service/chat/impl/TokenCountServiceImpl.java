@@ -0,0 +1,89 @@
+package com.iflytek.astron.console.hub.service.chat.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.iflytek.astron.console.hub.service.chat.TokenCountService;
+import com.iflytek.astron.console.hub.util.tokenizer.BpeTokenizer;
+import com.iflytek.astron.console.hub.util.tokenizer.HeuristicTokenizer;
+import com.iflytek.astron.console.hub.util.tokenizer.Tokenizer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts tokens with the BPE vocabulary configured in {@code spark.chat.tokenizer.vocab-path}, falling
+ * back to the character class estimate when none is configured or it cannot be loaded.
+ * <p>
+ * History messages are counted again on every turn of a chat, so counts of longer texts are memoized
+ * by content. The texts are the keys: String hashes and compares them far faster than a content
+ * digest, and the memo is bounded by the characters it holds.
+ *
+ * @author mingsuiyongheng
+ */
+@Slf4j
+@Service
+public class TokenCountServiceImpl implements TokenCountService {
+
+    /**
+     * Shorter texts are counted directly, hashing them costs about as much
+     */
+    static final int MIN_CACHED_LENGTH = 64;
+
+    @Value("${spark.chat.tokenizer.vocab-path:}")
+    private String vocabPath;
+
+    /**
+     * Pre-tokenization pattern of the vocabulary, cl100k_base when empty
+     */
+    @Value("${spark.chat.tokenizer.pattern:}")
+    private String pattern;
+
+    private Tokenizer tokenizer = new HeuristicTokenizer();
+
+    /**
+     * Characters of memoized texts, about 32 MB
+     */
+    static final long MAX_CACHED_CHARS = 16_000_000;
+
+    private final Cache<String, Integer> counts = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_CHARS)
+            .weigher((String text, Integer tokens) -> text.length())
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isBlank(vocabPath)) {
+            log.info("No tokenizer vocabulary configured, using {} token counts", tokenizer.name());
+            return;
+        }
+        try {
+            tokenizer = BpeTokenizer.load(Path.of(vocabPath), StringUtils.defaultIfBlank(pattern, BpeTokenizer.CL100K_PATTERN));
+            log.info("Loaded tokenizer {}", tokenizer.name());
+        } catch (Exception e) {
+            log.error("Failed to load tokenizer vocabulary {}, using {} token counts", vocabPath, tokenizer.name(), e);
+        }
+    }
+
+    @Override
+    public int count(String text) {
+        if (StringUtils.isBlank(text)) {
+            return 0;
+        }
+        if (text.length() < MIN_CACHED_LENGTH) {
+            return tokenizer.count(text);
+        }
+        Integer cached = counts.getIfPresent(text);
+        if (cached != null) {
+            return cached;
+        }
+        int tokens = tokenizer.count(text);
+        counts.put(text, tokens);
+        return tokens;
+    }
+}
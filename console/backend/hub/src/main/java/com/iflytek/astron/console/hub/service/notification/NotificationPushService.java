@@ -0,0 +1,38 @@
+package com.iflytek.astron.console.hub.service.notification;
+
+import com.iflytek.astron.console.hub.entity.notification.Notification;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+
+/**
+ * Pushes notifications and unread counts to connected users
+ *
+ * Users hold an SSE stream on whichever node they reached; every node relays what it is told to
+ * push to its own streams, so pushes are published to all nodes once the writing transaction commits.
+ */
+public interface NotificationPushService {
+
+    /**
+     * Open a stream for the user, starting with the current unread count
+     *
+     * @param uid User ID
+     * @return SSE stream of notification and unread events
+     */
+    SseEmitter subscribe(String uid);
+
+    /**
+     * Push a notification just sent, with the new unread count of its receivers
+     *
+     * @param notification Notification sent
+     * @param receiverUids Receivers, or null for a broadcast to everyone
+     */
+    void pushNotification(Notification notification, Collection<String> receiverUids);
+
+    /**
+     * Push the unread count of users whose count changed
+     *
+     * @param uids User IDs
+     */
+    void pushUnreadCount(Collection<String> uids);
+}
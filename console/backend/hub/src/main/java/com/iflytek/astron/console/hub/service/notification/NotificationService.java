@@ -4,6 +4,7 @@ import com.iflytek.astron.console.hub.dto.notification.MarkReadRequest;
 import com.iflytek.astron.console.hub.dto.notification.NotificationPageResponse;
 import com.iflytek.astron.console.hub.dto.notification.NotificationQueryRequest;
 import com.iflytek.astron.console.hub.dto.notification.SendNotificationRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Notification center business service interface
@@ -42,6 +43,14 @@ public interface NotificationService {
      */
     long getUnreadNotificationCount(String receiverUid);
 
+    /**
+     * Open a stream pushing specified user's new notifications and unread count
+     *
+     * @param receiverUid Receiver user ID
+     * @return SSE stream
+     */
+    SseEmitter subscribeNotifications(String receiverUid);
+
     // ==================== Manage Notification ====================
 
     /**
@@ -0,0 +1,225 @@
+package com.iflytek.astron.console.hub.service.notification.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.hub.data.NotificationDataService;
+import com.iflytek.astron.console.hub.dto.notification.NotificationDto;
+import com.iflytek.astron.console.hub.entity.notification.Notification;
+import com.iflytek.astron.console.hub.enums.NotificationType;
+import com.iflytek.astron.console.hub.event.NotificationCountsChangedEvent;
+import com.iflytek.astron.console.hub.service.notification.NotificationPushService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Relays notifications and unread counts to the SSE streams held on this node. Whatever is pushed is
+ * published on a topic once the transaction commits, and every node, this one included, delivers it
+ * to its own streams. The badge count pushed is read from the notification counters.
+ */
+@Slf4j
+@Service
+public class NotificationPushServiceImpl implements NotificationPushService {
+
+    static final String EVENT_NOTIFICATION = "notification";
+    static final String EVENT_UNREAD = "unread";
+    static final String KIND_NOTIFICATION = "notification";
+    static final String KIND_COUNT = "count";
+
+    @Autowired
+    private RedissonClient redissonClient;
+    @Autowired
+    private NotificationDataService notificationDataService;
+
+    /** Clients reconnect when the stream times out */
+    @Value("${notification.push.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private RTopic pushTopic;
+    private int pushListenerId;
+
+    @PostConstruct
+    public void init() {
+        try {
+            pushTopic = redissonClient.getTopic(RedisKeyConstant.NOTIFICATION_PUSH_TOPIC);
+            pushListenerId = pushTopic.addListener(String.class, (channel, msg) -> onPush(msg));
+        } catch (Exception e) {
+            // Users connected to other nodes then only see changes when they reload
+            pushTopic = null;
+            log.error("Failed to subscribe to notification push topic", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (pushTopic != null) {
+            pushTopic.removeListener(pushListenerId);
+        }
+        emitters.values().forEach(streams -> streams.forEach(SseEmitter::complete));
+        emitters.clear();
+    }
+
+    @Override
+    public SseEmitter subscribe(String uid) {
+        SseEmitter emitter = createEmitter();
+        emitters.computeIfAbsent(uid, key -> new CopyOnWriteArraySet<>()).add(emitter);
+        emitter.onCompletion(() -> remove(uid, emitter));
+        emitter.onTimeout(() -> remove(uid, emitter));
+        emitter.onError(e -> remove(uid, emitter));
+        sendUnread(uid, Set.of(emitter));
+        return emitter;
+    }
+
+    @Override
+    public void pushNotification(Notification notification, Collection<String> receiverUids) {
+        NotificationDto dto = new NotificationDto();
+        BeanUtils.copyProperties(notification, dto, "type");
+        dto.setType(NotificationType.fromCode(notification.getType()));
+        dto.setIsRead(false);
+        dto.setReceivedAt(notification.getCreatedAt());
+        publish(new PushMessage(KIND_NOTIFICATION, receiverUids == null ? null : List.copyOf(receiverUids), dto));
+    }
+
+    @Override
+    public void pushUnreadCount(Collection<String> uids) {
+        if (!uids.isEmpty()) {
+            publish(new PushMessage(KIND_COUNT, List.copyOf(uids), null));
+        }
+    }
+
+    @EventListener
+    public void onCountsChanged(NotificationCountsChangedEvent event) {
+        pushUnreadCount(event.getUids());
+    }
+
+    /**
+     * Keep idle streams from being closed by proxies
+     */
+    @Scheduled(fixedDelayString = "${notification.push.keepalive-ms:25000}")
+    public void keepAlive() {
+        emitters.forEach((uid, streams) -> streams.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (Exception e) {
+                remove(uid, emitter);
+            }
+        }));
+    }
+
+    /**
+     * @return Streams open on this node
+     */
+    public int connectionCount() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /**
+     * Deliver a push published by any node to the streams of this node
+     */
+    void onPush(String message) {
+        PushMessage push;
+        try {
+            push = JSON.parseObject(message, PushMessage.class);
+        } catch (Exception e) {
+            log.warn("Skip malformed notification push: {}", message);
+            return;
+        }
+        if (push == null) {
+            return;
+        }
+        Collection<String> uids = push.uids() == null ? emitters.keySet() : push.uids();
+        for (String uid : uids) {
+            Set<SseEmitter> streams = emitters.get(uid);
+            if (streams == null || streams.isEmpty()) {
+                continue;
+            }
+            if (KIND_NOTIFICATION.equals(push.kind()) && push.notification() != null) {
+                streams.forEach(emitter -> send(uid, emitter, SseEmitter.event().name(EVENT_NOTIFICATION).data(push.notification())));
+            }
+            sendUnread(uid, streams);
+        }
+    }
+
+    private void publish(PushMessage push) {
+        String message = JSON.toJSONString(push);
+        Runnable action = () -> {
+            if (pushTopic == null) {
+                onPush(message);
+                return;
+            }
+            try {
+                pushTopic.publish(message);
+            } catch (Exception e) {
+                log.error("Failed to publish notification push, delivering on this node only", e);
+                onPush(message);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void sendUnread(String uid, Set<SseEmitter> streams) {
+        long unreadCount;
+        try {
+            unreadCount = notificationDataService.countUserUnreadNotifications(uid);
+        } catch (Exception e) {
+            log.warn("Failed to count unread notifications to push for user: {}, error: {}", uid, e.getMessage());
+            return;
+        }
+        Map<String, Long> data = Map.of("unreadCount", unreadCount);
+        streams.forEach(emitter -> send(uid, emitter, SseEmitter.event().name(EVENT_UNREAD).data(data)));
+    }
+
+    private void send(String uid, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (Exception e) {
+            // The client went away; the stream is dropped and it reconnects if still interested
+            remove(uid, emitter);
+        }
+    }
+
+    private void remove(String uid, SseEmitter emitter) {
+        emitters.computeIfPresent(uid, (key, streams) -> {
+            streams.remove(emitter);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    /**
+     * What a node delivers to its streams
+     *
+     * @param kind notification or count
+     * @param uids Users to deliver to, null for everyone connected
+     * @param notification Notification to deliver, for the notification kind
+     */
+    record PushMessage(String kind, List<String> uids, NotificationDto notification) {}
+}
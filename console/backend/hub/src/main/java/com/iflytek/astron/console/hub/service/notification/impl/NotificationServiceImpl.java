@@ -10,6 +10,7 @@ import com.iflytek.astron.console.hub.entity.notification.Notification;
 import com.iflytek.astron.console.hub.entity.notification.UserBroadcastRead;
 import com.iflytek.astron.console.hub.entity.notification.UserNotification;
 import com.iflytek.astron.console.hub.enums.NotificationType;
+import com.iflytek.astron.console.hub.service.notification.NotificationPushService;
 import com.iflytek.astron.console.hub.service.notification.NotificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -28,6 +30,7 @@ import java.util.List;
 public class NotificationServiceImpl implements NotificationService {
 
     private final NotificationDataService notificationDataService;
+    private final NotificationPushService notificationPushService;
 
     // Batch operation limit constants
     private static final int MAX_BATCH_SIZE = 1000;
@@ -71,6 +74,14 @@ public class NotificationServiceImpl implements NotificationService {
         return notificationDataService.countUserUnreadNotifications(receiverUid);
     }
 
+    @Override
+    public SseEmitter subscribeNotifications(String receiverUid) {
+        if (receiverUid == null) {
+            throw new BusinessException(ResponseEnum.PARAMETER_ERROR);
+        }
+        return notificationPushService.subscribe(receiverUid);
+    }
+
     // ==================== Manage Notification ====================
 
     @Override
@@ -94,6 +105,8 @@ public class NotificationServiceImpl implements NotificationService {
                 // Mark specific messages as read
                 markSpecificNotificationsAsRead(receiverUid, request.getNotificationIds());
             }
+            // Refresh the badge on the user's other tabs and devices
+            notificationPushService.pushUnreadCount(List.of(receiverUid));
 
             log.info("Notifications marked as read successfully, receiverUid: {}, markAll: {}, notificationIds: {}",
                     receiverUid, request.getMarkAll(), request.getNotificationIds());
@@ -121,6 +134,7 @@ public class NotificationServiceImpl implements NotificationService {
         try {
             int deleted = notificationDataService.deleteUserNotification(receiverUid, notificationId);
             if (deleted > 0) {
+                notificationPushService.pushUnreadCount(List.of(receiverUid));
                 log.info("Notification deleted successfully, receiverUid: {}, notificationId: {}",
                         receiverUid, notificationId);
                 return true;
@@ -161,6 +175,7 @@ public class NotificationServiceImpl implements NotificationService {
         // Create broadcast notification
         Notification notification = createNotificationEntity(request, NotificationType.BROADCAST);
         notification = notificationDataService.createNotification(notification);
+        notificationPushService.pushNotification(notification, null);
 
         log.info("Broadcast notification sent successfully, notificationId: {}", notification.getId());
         return notification.getId();
@@ -205,6 +220,7 @@ public class NotificationServiceImpl implements NotificationService {
         }
 
         notificationDataService.batchCreateUserNotifications(userNotifications);
+        notificationPushService.pushNotification(notification, receiverUids);
 
         log.info("{} notification sent successfully, notificationId: {}, receiverCount: {}",
                 type.getDescription(), notification.getId(), receiverUids.size());
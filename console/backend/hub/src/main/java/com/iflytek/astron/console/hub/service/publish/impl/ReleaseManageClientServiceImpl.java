@@ -6,6 +6,8 @@ import com.alibaba.fastjson2.JSONObject;
 import com.iflytek.astron.console.commons.enums.bot.ReleaseTypeEnum;
 import com.iflytek.astron.console.commons.service.data.UserLangChainDataService;
 import com.iflytek.astron.console.commons.util.MaasUtil;
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import com.iflytek.astron.console.hub.dto.publish.ReleaseBotReqDto;
 import com.iflytek.astron.console.hub.dto.publish.ReleaseBotRespDto;
 import com.iflytek.astron.console.hub.service.publish.ReleaseManageClientService;
@@ -16,7 +18,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author yun-zhi-ztl
@@ -49,13 +50,6 @@ public class ReleaseManageClientServiceImpl implements ReleaseManageClientServic
 
 
     // OkHttp client instance, configured with connection pool, timeouts and other parameters
-    private static final OkHttpClient HTTP_CLIENT = new OkHttpClient().newBuilder()
-            .connectionPool(new ConnectionPool(100, 5, TimeUnit.MINUTES))
-            .connectTimeout(60, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
-            .build();
-
     @Override
     public String getVersionNameByBotId(Long botId, Long spaceId, HttpServletRequest request) {
         // Query corresponding flow ID based on robot ID
@@ -160,7 +154,7 @@ public class ReleaseManageClientServiceImpl implements ReleaseManageClientServic
      * @return Returns parsed response data object
      */
     private ReleaseBotRespDto executeRequestForReleaseBot(Request request, String flowId) {
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(request).execute()) {
             // Check if HTTP response was successful and has body content
             ResponseBody body = response.body();
             if (!response.isSuccessful() || body == null) {
@@ -195,7 +189,7 @@ public class ReleaseManageClientServiceImpl implements ReleaseManageClientServic
      * @return Returns parsed version name string
      */
     private String executeRequestForVersionName(Request request, String flowId) {
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(request).execute()) {
             // Check if HTTP response was successful and has body content
             ResponseBody body = response.body();
             if (!response.isSuccessful() || body == null) {
@@ -2,6 +2,8 @@ package com.iflytek.astron.console.hub.service.publish.impl;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import com.iflytek.astron.console.hub.dto.user.TenantAuth;
 import com.iflytek.astron.console.hub.service.publish.TenantService;
 import lombok.RequiredArgsConstructor;
@@ -11,7 +13,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author yun-zhi-ztl
@@ -27,13 +28,6 @@ public class TenantServiceImpl implements TenantService {
     @Value("${tenant.get-app-detail}")
     private String getAppDetail;
 
-    private static final OkHttpClient HTTP_CLIENT = new OkHttpClient().newBuilder()
-            .connectionPool(new ConnectionPool(100, 5, TimeUnit.MINUTES))
-            .connectTimeout(60, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
-            .build();
-
     @Override
     public String createApp(String uid, String appName, String appDesc) {
         JSONObject requestBody = new JSONObject();
@@ -50,7 +44,7 @@ public class TenantServiceImpl implements TenantService {
                 .build();
 
         JSONObject reqJson = new JSONObject();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(request).execute()) {
             ResponseBody body = response.body();
             if ((!response.isSuccessful()) || (body == null)) {
                 log.error("tenant-service-create-app error request:  {}, response: {}", requestBody, reqJson);
@@ -78,7 +72,7 @@ public class TenantServiceImpl implements TenantService {
                 .build();
 
         JSONObject reqJson = new JSONObject();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(request).execute()) {
             ResponseBody body = response.body();
             if ((!response.isSuccessful()) || (body == null)) {
                 log.error("tenant-service-get-app-detail  error requestUrl: {}, response: {}", requestUrl, reqJson);
@@ -9,6 +9,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.iflytek.astron.console.commons.constant.ResponseEnum;
 import com.iflytek.astron.console.commons.exception.BusinessException;
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
@@ -39,13 +41,6 @@ public class BotAIServiceClient {
     private static final String IMAGE_GENERATION_DOMAIN = "safecfa46";
     private static final String TEXT_HOST_URL = "https://spark-api.xf-yun.com/v4.0/chat";
     private static final String imageHost = "http://spark-openapi.cn-huabei-1.xf-yun.com/v2.1/tti";
-    private final OkHttpClient httpClient = new OkHttpClient().newBuilder()
-            .connectionPool(new ConnectionPool(100, 5, TimeUnit.MINUTES))
-            .connectTimeout(60, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
-            .build();
-
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${spark.app-id}")
@@ -93,7 +88,7 @@ public class BotAIServiceClient {
                     .post(requestBody)
                     .build();
 
-            try (Response response = httpClient.newCall(request).execute()) {
+            try (Response response = HttpClientRegistry.get(HttpClientProfile.UNARY).newCall(request).execute()) {
                 ResponseBody responseBody = response.body();
                 if (responseBody == null) {
                     throw new IllegalStateException("Image generation service response is empty");
@@ -132,7 +127,7 @@ public class BotAIServiceClient {
             CountDownLatch latch = new CountDownLatch(1);
             StringBuilder totalAnswer = new StringBuilder();
 
-            httpClient.newWebSocket(request, new TextGenerationWebSocketListener(
+            HttpClientRegistry.get(HttpClientProfile.STREAMING).newWebSocket(request, new TextGenerationWebSocketListener(
                     appId, question, domain, latch, totalAnswer));
 
             if (!latch.await(seconds, TimeUnit.SECONDS)) {
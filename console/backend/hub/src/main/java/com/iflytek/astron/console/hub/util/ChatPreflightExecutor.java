@@ -0,0 +1,154 @@
+package com.iflytek.astron.console.hub.util;
+
+import com.iflytek.astron.console.commons.constant.ResponseEnum;
+import com.iflytek.astron.console.commons.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent pre-flight stages of a chat turn (request record, model lookup, knowledge
+ * retrieval, history) concurrently on virtual threads before the LLM call.
+ * <p>
+ * Stages inherit the caller's request attributes, so user and space lookups behave as they do on the
+ * request thread. Every stage is timed as {@code chat.preflight.stage} with its name and outcome, and
+ * stages the turn stopped waiting for are counted as {@code chat.preflight.timeouts}.
+ */
+@Slf4j
+@Component
+public class ChatPreflightExecutor {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-preflight-", 0).factory());
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    public ChatPreflightExecutor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    /**
+     * Start a stage
+     *
+     * @param name Stage name used in logs and metrics
+     * @param task Stage body
+     * @return Future completed with the stage result
+     */
+    public <T> CompletableFuture<T> stage(String name, Supplier<T> task) {
+        return submit(name, task, RequestContextHolder.getRequestAttributes());
+    }
+
+    /**
+     * Wait for a stage the turn cannot go on without
+     *
+     * @param name Stage name
+     * @param future Stage future
+     * @param timeout Maximum time to wait
+     * @return Stage result
+     * @throws BusinessException the stage's own business error, or a timeout
+     */
+    public <T> T await(String name, CompletableFuture<T> future, Duration timeout) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            countTimeout(name);
+            log.warn("Chat pre-flight stage {} timed out after {}ms", name, timeout.toMillis());
+            throw new BusinessException(ResponseEnum.GATEWAY_TIMEOUT);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResponseEnum.SYSTEM_ERROR);
+        }
+    }
+
+    /**
+     * Wait for an optional stage, degrading to a fallback on timeout or failure
+     *
+     * @param name Stage name
+     * @param future Stage future
+     * @param timeout Maximum time to wait
+     * @param fallback Value used when the stage does not deliver in time
+     * @return Stage result or the fallback
+     */
+    public <T> T awaitOrDefault(String name, CompletableFuture<T> future, Duration timeout, T fallback) {
+        try {
+            return await(name, future, timeout);
+        } catch (Exception e) {
+            log.warn("Chat pre-flight stage {} degraded: {}", name, e.getMessage());
+            return fallback;
+        }
+    }
+
+    /**
+     * Run a write nobody on the critical path waits for; failures are only logged
+     *
+     * @param name Stage name
+     * @param task Write to perform
+     */
+    public void writeBehind(String name, Runnable task) {
+        // May outlive the request, so it must not touch request attributes
+        submit(name, () -> {
+            task.run();
+            return null;
+        }, null).exceptionally(e -> {
+            log.error("Chat pre-flight write-behind {} failed", name, e);
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(String name, Supplier<T> task, RequestAttributes attributes) {
+        long start = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            RequestContextHolder.setRequestAttributes(attributes);
+            try {
+                return task.get();
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        }, executor).whenComplete((result, error) -> record(name, error == null ? "success" : "error", start));
+    }
+
+    private void record(String name, String outcome, long startNanos) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        Timer.builder("chat.preflight.stage")
+                .description("Latency of chat pre-flight stages before the LLM call")
+                .tag("stage", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void countTimeout(String name) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        Counter.builder("chat.preflight.timeouts")
+                .description("Chat pre-flight stages the turn stopped waiting for")
+                .tag("stage", name)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,156 @@
+package com.iflytek.astron.console.hub.util.tokenizer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte pair encoding token counter over a tiktoken style vocabulary file, one
+ * {@code <base64 token> <rank>} pair per line.
+ * <p>
+ * Text is split into pieces by the pre-tokenization pattern, and each piece not in the vocabulary as a
+ * whole is merged pairwise by lowest rank, the same way the encoder does, only without materializing
+ * token ids.
+ */
+public class BpeTokenizer implements Tokenizer {
+
+    /**
+     * Pre-tokenization pattern of cl100k_base
+     */
+    public static final String CL100K_PATTERN = "'(?i:[sdmt]|ll|ve|re)|[^\\r\\n\\p{L}\\p{N}]?+\\p{L}+|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]++[\\r\\n]*|\\s*[\\r\\n]|\\s+(?!\\S)|\\s+";
+
+    /**
+     * Ranks keyed by token bytes, each byte held as one ISO-8859-1 char
+     */
+    private final Map<String, Integer> ranks;
+
+    private final Pattern pattern;
+
+    /**
+     * The pattern is cl100k's, split by {@link Cl100kSplitter} rather than the regex
+     */
+    private final boolean cl100k;
+
+    private final String name;
+
+    BpeTokenizer(Map<String, Integer> ranks, String pattern, String name) {
+        this.ranks = ranks;
+        this.pattern = Pattern.compile(pattern, Pattern.UNICODE_CHARACTER_CLASS);
+        this.cl100k = CL100K_PATTERN.equals(pattern);
+        this.name = name;
+    }
+
+    /**
+     * Load a vocabulary file
+     *
+     * @param vocabFile Vocabulary file path
+     * @param pattern Pre-tokenization pattern the vocabulary was trained with
+     * @return Tokenizer over the vocabulary
+     * @throws IOException if the file cannot be read or holds no ranks
+     */
+    public static BpeTokenizer load(Path vocabFile, String pattern) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>(1 << 18);
+        try (BufferedReader reader = Files.newBufferedReader(vocabFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int separator = line.indexOf(' ');
+                if (separator <= 0) {
+                    throw new IOException("Malformed vocabulary line: " + line);
+                }
+                byte[] token = Base64.getDecoder().decode(line.substring(0, separator));
+                ranks.put(new String(token, StandardCharsets.ISO_8859_1), Integer.parseInt(line.substring(separator + 1).trim()));
+            }
+        }
+        if (ranks.isEmpty()) {
+            throw new IOException("Empty vocabulary: " + vocabFile);
+        }
+        return new BpeTokenizer(ranks, pattern, "bpe:" + vocabFile.getFileName());
+    }
+
+    @Override
+    public int count(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        if (cl100k) {
+            for (int start = 0, end; start < text.length(); start = end) {
+                end = Cl100kSplitter.end(text, start);
+                tokens += pieceCount(text, start, end);
+            }
+            return tokens;
+        }
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            tokens += pieceCount(text, matcher.start(), matcher.end());
+        }
+        return tokens;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Number of tokens the piece between {@code start} and {@code end} encodes to
+     */
+    private int pieceCount(String text, int start, int end) {
+        String piece = text.substring(start, end);
+        if (!isAscii(piece)) {
+            piece = new String(piece.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+        }
+        return ranks.containsKey(piece) ? 1 : mergeCount(piece);
+    }
+
+    /**
+     * ASCII text is its own UTF-8 bytes, one ISO-8859-1 char each
+     */
+    private static boolean isAscii(String piece) {
+        for (int i = 0; i < piece.length(); i++) {
+            if (piece.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of tokens a piece merges into
+     */
+    private int mergeCount(String piece) {
+        // Boundaries between the current parts, starting from single bytes
+        int[] bounds = new int[piece.length() + 1];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = i;
+        }
+        int size = bounds.length;
+        while (size > 2) {
+            int minRank = Integer.MAX_VALUE;
+            int minIndex = -1;
+            for (int i = 0; i + 2 < size; i++) {
+                Integer rank = ranks.get(piece.substring(bounds[i], bounds[i + 2]));
+                if (rank != null && rank < minRank) {
+                    minRank = rank;
+                    minIndex = i;
+                }
+            }
+            if (minIndex < 0) {
+                break;
+            }
+            System.arraycopy(bounds, minIndex + 2, bounds, minIndex + 1, size - minIndex - 2);
+            size--;
+        }
+        return size - 1;
+    }
+}
@@ -0,0 +1,200 @@
+package com.iflytek.astron.console.hub.util.tokenizer;
+
+/**
+ * Splits text into the same pieces as {@link BpeTokenizer#CL100K_PATTERN} under
+ * {@code UNICODE_CHARACTER_CLASS}, by one pass over the code points instead of trying each alternative
+ * of the regex at every position.
+ * <p>
+ * The pattern matches every char, so pieces follow each other without gaps and only the end of the
+ * piece starting at a given index is needed.
+ */
+final class Cl100kSplitter {
+
+    private static final int WHITE_SPACE_TYPES =
+            (1 << Character.SPACE_SEPARATOR) | (1 << Character.LINE_SEPARATOR) | (1 << Character.PARAGRAPH_SEPARATOR);
+
+    private static final byte LETTER = 1;
+    private static final byte NUMBER = 2;
+    private static final byte WHITESPACE = 3;
+    private static final byte SYMBOL = 4;
+
+    /**
+     * Classes of the ASCII chars, which make up most text and are looked up rather than asked of
+     * {@link Character}
+     */
+    private static final byte[] ASCII = new byte[0x80];
+
+    static {
+        for (int c = 0; c < ASCII.length; c++) {
+            ASCII[c] = classify(c);
+        }
+    }
+
+    private Cl100kSplitter() {
+    }
+
+    /**
+     * End of the piece starting at {@code start}
+     *
+     * @param text Text being split
+     * @param start Start of the piece, below the text length
+     * @return Index after the last char of the piece
+     */
+    static int end(String text, int start) {
+        int length = text.length();
+        int c = text.codePointAt(start);
+        int next = start + Character.charCount(c);
+
+        // '(?i:[sdmt]|ll|ve|re)
+        if (c == '\'' && next < length) {
+            int contraction = contractionEnd(text, next);
+            if (contraction > 0) {
+                return contraction;
+            }
+        }
+        // [^\r\n\p{L}\p{N}]?+\p{L}+
+        if (isLetter(c)) {
+            return lettersEnd(text, next);
+        }
+        if (c != '\r' && c != '\n' && !isNumber(c) && next < length && isLetter(text.codePointAt(next))) {
+            return lettersEnd(text, next);
+        }
+        // \p{N}{1,3}
+        if (isNumber(c)) {
+            int end = next;
+            for (int i = 1; i < 3 && end < length; i++) {
+                int cp = text.codePointAt(end);
+                if (!isNumber(cp)) {
+                    break;
+                }
+                end += Character.charCount(cp);
+            }
+            return end;
+        }
+        // " ?[^\s\p{L}\p{N}]++[\r\n]*", the space optional
+        int symbols = -1;
+        if (isSymbol(c)) {
+            symbols = start;
+        } else if (c == ' ' && next < length && isSymbol(text.codePointAt(next))) {
+            symbols = next;
+        }
+        if (symbols >= 0) {
+            int end = runEnd(text, symbols, SYMBOL);
+            while (end < length && (text.charAt(end) == '\r' || text.charAt(end) == '\n')) {
+                end++;
+            }
+            return end;
+        }
+        // Only whitespace is left: \s*[\r\n] up to the last line break of the run, else \s+(?!\S), else \s+
+        int runEnd = start;
+        int lineBreak = -1;
+        while (runEnd < length) {
+            int cp = text.codePointAt(runEnd);
+            if (!isWhitespace(cp)) {
+                break;
+            }
+            if (cp == '\r' || cp == '\n') {
+                lineBreak = runEnd;
+            }
+            runEnd += Character.charCount(cp);
+        }
+        if (lineBreak >= 0) {
+            return lineBreak + 1;
+        }
+        if (runEnd == length) {
+            return runEnd;
+        }
+        // The last whitespace goes to the piece after it
+        int last = runEnd - Character.charCount(text.codePointBefore(runEnd));
+        return last > start ? last : runEnd;
+    }
+
+    private static int contractionEnd(String text, int index) {
+        int first = text.codePointAt(index);
+        int second = index + Character.charCount(first);
+        if (folds(first, 's') || folds(first, 'd') || folds(first, 'm') || folds(first, 't')) {
+            return second;
+        }
+        if (second >= text.length()) {
+            return -1;
+        }
+        int cp = text.codePointAt(second);
+        if ((folds(first, 'l') && folds(cp, 'l')) || (folds(first, 'v') && folds(cp, 'e'))
+                || (folds(first, 'r') && folds(cp, 'e'))) {
+            return second + Character.charCount(cp);
+        }
+        return -1;
+    }
+
+    private static int lettersEnd(String text, int index) {
+        return runEnd(text, index, LETTER);
+    }
+
+    /**
+     * End of the run of code points of one class starting at {@code index}
+     */
+    private static int runEnd(String text, int index, byte type) {
+        int end = index;
+        while (end < text.length()) {
+            char c = text.charAt(end);
+            if (c < ASCII.length) {
+                if (ASCII[c] != type) {
+                    break;
+                }
+                end++;
+            } else {
+                int cp = text.codePointAt(end);
+                if (classify(cp) != type) {
+                    break;
+                }
+                end += Character.charCount(cp);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Case-insensitive match of a code point against a lower case ASCII letter, as under UNICODE_CASE
+     */
+    private static boolean folds(int cp, char lower) {
+        return cp == lower || Character.toLowerCase(Character.toUpperCase(cp)) == lower;
+    }
+
+    private static boolean isLetter(int cp) {
+        return classOf(cp) == LETTER;
+    }
+
+    private static boolean isNumber(int cp) {
+        return classOf(cp) == NUMBER;
+    }
+
+    private static boolean isWhitespace(int cp) {
+        return classOf(cp) == WHITESPACE;
+    }
+
+    private static boolean isSymbol(int cp) {
+        return classOf(cp) == SYMBOL;
+    }
+
+    private static byte classOf(int cp) {
+        return cp < ASCII.length ? ASCII[cp] : classify(cp);
+    }
+
+    /**
+     * \p{L}, \p{N}, \s under UNICODE_CHARACTER_CLASS, or none of them
+     */
+    private static byte classify(int cp) {
+        int type = Character.getType(cp);
+        if (type == Character.UPPERCASE_LETTER || type == Character.LOWERCASE_LETTER || type == Character.TITLECASE_LETTER
+                || type == Character.MODIFIER_LETTER || type == Character.OTHER_LETTER) {
+            return LETTER;
+        }
+        if (type == Character.DECIMAL_DIGIT_NUMBER || type == Character.LETTER_NUMBER || type == Character.OTHER_NUMBER) {
+            return NUMBER;
+        }
+        if (((WHITE_SPACE_TYPES >> type) & 1) != 0 || (cp >= 0x9 && cp <= 0xd) || cp == 0x85) {
+            return WHITESPACE;
+        }
+        return SYMBOL;
+    }
+}
@@ -0,0 +1,36 @@
+package com.iflytek.astron.console.hub.util.tokenizer;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Character class estimate used when no vocabulary is configured: Chinese characters * 1.5, English
+ * letters and digits * 1.3
+ */
+public class HeuristicTokenizer implements Tokenizer {
+
+    @Override
+    public int count(String text) {
+        if (StringUtils.isBlank(text)) {
+            return 0;
+        }
+        int chineseChars = 0;
+        int englishChars = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x4e00 && c <= 0x9fff) {
+                // Chinese character range
+                chineseChars++;
+            } else if (Character.isLetterOrDigit(c)) {
+                // English characters and numbers
+                englishChars++;
+            }
+        }
+        // At least 1 token
+        return Math.max((int) (chineseChars * 1.5 + englishChars * 1.3), 1);
+    }
+
+    @Override
+    public String name() {
+        return "heuristic";
+    }
+}
@@ -0,0 +1,20 @@
+package com.iflytek.astron.console.hub.util.tokenizer;
+
+/**
+ * Counts the tokens a model input text occupies
+ */
+public interface Tokenizer {
+
+    /**
+     * Count tokens of a text
+     *
+     * @param text Text content
+     * @return Token count, 0 for empty text
+     */
+    int count(String text);
+
+    /**
+     * Name used in logs
+     */
+    String name();
+}
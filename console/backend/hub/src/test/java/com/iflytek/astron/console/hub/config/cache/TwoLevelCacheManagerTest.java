@@ -0,0 +1,118 @@
+package com.iflytek.astron.console.hub.config.cache;
+
+import com.alibaba.fastjson2.JSON;
+import com.iflytek.astron.console.hub.properties.LocalCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RTopic;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TwoLevelCacheManagerTest {
+
+    @Mock
+    private RTopic topic;
+
+    private ConcurrentMapCacheManager remote;
+
+    private TwoLevelCacheManager cacheManager;
+
+    private MessageListener<String> topicListener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        remote = new ConcurrentMapCacheManager();
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        when(topic.addListener(eq(String.class), listener.capture())).thenReturn(1);
+        LocalCacheProperties properties = new LocalCacheProperties();
+        properties.setNames(Set.of("space:space_user"));
+        cacheManager = new TwoLevelCacheManager("cacheManager5min", remote, Duration.ofMinutes(5), properties, topic, null);
+        cacheManager.afterPropertiesSet();
+        topicListener = listener.getValue();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.destroy();
+    }
+
+    @Test
+    void getCache_wrapsOnlyConfiguredCaches() {
+        assertInstanceOf(TwoLevelCache.class, cacheManager.getCache("space:space_user"));
+        assertSame(cacheManager.getCache("space:space_user"), cacheManager.getCache("space:space_user"));
+        assertInstanceOf(ConcurrentMapCache.class, cacheManager.getCache("space:space_expired"));
+    }
+
+    @Test
+    void getCache_byDefaultWrapsNoCache() {
+        TwoLevelCacheManager defaults = new TwoLevelCacheManager("cacheManager10s", remote, Duration.ofSeconds(10),
+                new LocalCacheProperties(), topic, null);
+
+        assertInstanceOf(ConcurrentMapCache.class, defaults.getCache("space:space_user"));
+        assertInstanceOf(ConcurrentMapCache.class, defaults.getCache("space:enterprise_user"));
+        defaults.destroy();
+    }
+
+    @Test
+    void evict_publishesKeyForOtherNodes() {
+        cacheManager.getCache("space:space_user").evict("uid-1");
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(topic).publish(message.capture());
+        TwoLevelCacheManager.Invalidation invalidation = JSON.parseObject(message.getValue(), TwoLevelCacheManager.Invalidation.class);
+        assertEquals("cacheManager5min", invalidation.manager());
+        assertEquals("space:space_user", invalidation.cache());
+        assertEquals("uid-1", invalidation.key());
+    }
+
+    @Test
+    void remoteInvalidation_dropsLocalCopy() {
+        Cache cache = cacheManager.getCache("space:space_user");
+        remote.getCache("space:space_user").put("uid-1", 3L);
+        cache.get("uid-1");
+        remote.getCache("space:space_user").put("uid-1", 4L);
+        assertEquals(3L, cache.get("uid-1").get());
+
+        topicListener.onMessage("cache_invalidate", JSON.toJSONString(
+                new TwoLevelCacheManager.Invalidation("other-node", "cacheManager5min", "space:space_user", "uid-1")));
+
+        assertEquals(4L, cache.get("uid-1").get());
+    }
+
+    @Test
+    void invalidation_fromOtherManagerOrSelf_isIgnored() {
+        Cache cache = cacheManager.getCache("space:space_user");
+        remote.getCache("space:space_user").put("uid-1", 3L);
+        cache.get("uid-1");
+        remote.getCache("space:space_user").put("uid-1", 4L);
+
+        topicListener.onMessage("cache_invalidate", JSON.toJSONString(
+                new TwoLevelCacheManager.Invalidation("other-node", "cacheManager10s", "space:space_user", "uid-1")));
+        cache.evict("uid-2");
+        ArgumentCaptor<String> own = ArgumentCaptor.forClass(String.class);
+        verify(topic).publish(own.capture());
+        topicListener.onMessage("cache_invalidate", own.getValue().replace("uid-2", "uid-1"));
+        topicListener.onMessage("cache_invalidate", "not json");
+
+        assertEquals(3L, cache.get("uid-1").get());
+    }
+}
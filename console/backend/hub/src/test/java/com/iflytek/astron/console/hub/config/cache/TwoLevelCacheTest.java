@@ -0,0 +1,145 @@
+package com.iflytek.astron.console.hub.config.cache;
+
+import com.google.common.base.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final Ticker ticker = new Ticker() {
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+    };
+
+    private final List<String> broadcasts = new ArrayList<>();
+
+    private Cache remote;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = spy(new ConcurrentMapCache("space:space_user"));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoLevelCache("space:space_user", remote, 100, Duration.ofSeconds(60), Duration.ofSeconds(30),
+                ticker, Runnable::run, broadcasts::add, meterRegistry);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("cache.two_level.gets").tag("tier", tier).tag("result", result).counter().count();
+    }
+
+    @Test
+    void get_servesRepeatedReadsLocally() {
+        remote.put("uid-1", 3L);
+
+        assertEquals(3L, cache.get("uid-1").get());
+        assertEquals(3L, cache.get("uid-1", Long.class));
+
+        verify(remote, times(1)).get("uid-1");
+        assertEquals(1, gets("local", "hit"));
+        assertEquals(1, gets("local", "miss"));
+        assertEquals(1, gets("remote", "hit"));
+    }
+
+    @Test
+    void get_remoteMiss_isNotKeptLocally() {
+        assertNull(cache.get("uid-1"));
+        remote.put("uid-1", 3L);
+
+        assertEquals(3L, cache.get("uid-1").get());
+        assertEquals(1, gets("remote", "miss"));
+    }
+
+    @Test
+    void get_afterTtl_readsRemoteAgain() {
+        remote.put("uid-1", 3L);
+        cache.get("uid-1");
+
+        advance(Duration.ofSeconds(61));
+        cache.get("uid-1");
+
+        verify(remote, times(2)).get("uid-1");
+    }
+
+    @Test
+    void get_pastRefreshAge_reloadsInBackground() {
+        remote.put("uid-1", 3L);
+        cache.get("uid-1");
+        remote.put("uid-1", 4L);
+
+        advance(Duration.ofSeconds(31));
+        // The stale value is served while the refresh runs
+        assertEquals(3L, cache.get("uid-1").get());
+        assertEquals(4L, cache.get("uid-1").get());
+
+        remote.evict("uid-1");
+        advance(Duration.ofSeconds(31));
+        cache.get("uid-1");
+        assertNull(cache.get("uid-1"));
+    }
+
+    @Test
+    void evict_dropsBothTiersAndBroadcasts() {
+        cache.put(42L, 3L);
+        cache.evict(42L);
+
+        assertNull(remote.get(42L));
+        assertNull(cache.get(42L));
+        assertEquals(List.of("42", "42"), broadcasts);
+    }
+
+    @Test
+    void invalidateLocal_keepsRemoteEntry() {
+        remote.put("uid-1", 3L);
+        cache.get("uid-1");
+
+        cache.invalidateLocal("uid-1");
+
+        assertEquals(3L, cache.get("uid-1").get());
+        verify(remote, times(2)).get("uid-1");
+    }
+
+    @Test
+    void clear_dropsEverythingAndBroadcastsWholeCache() {
+        cache.put("uid-1", 3L);
+        cache.put("uid-2", 5L);
+
+        cache.clear();
+
+        assertNull(cache.get("uid-1"));
+        assertNull(cache.get("uid-2"));
+        assertNull(broadcasts.get(broadcasts.size() - 1));
+    }
+
+    @Test
+    void get_withLoader_keepsLoadedValueLocally() {
+        assertEquals(7L, cache.get("uid-1", () -> 7L));
+        assertEquals(7L, cache.get("uid-1", () -> 8L));
+
+        assertEquals(7L, remote.get("uid-1").get());
+        verify(remote, times(1)).get(eq("uid-1"), any(Callable.class));
+    }
+}
@@ -0,0 +1,220 @@
+package com.iflytek.astron.console.hub.data.impl;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * In-memory stand-in for the Redis commands and scripts of {@link NotificationCounters}, following
+ * the semantics of its Lua scripts, each run atomically, with key expiry driven by the given clock.
+ */
+class FakeCounterRedis {
+
+    private final LongSupplier clock;
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, Map<String, Double>> zSets = new HashMap<>();
+    private final Map<String, Long> expiresAt = new HashMap<>();
+    final AtomicLong commands = new AtomicLong();
+
+    FakeCounterRedis(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    StringRedisTemplate template() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class, withSettings().stubOnly());
+        ValueOperations<String, String> value = mock(ValueOperations.class, withSettings().stubOnly());
+        ZSetOperations<String, String> zSet = mock(ZSetOperations.class, withSettings().stubOnly());
+        when(template.opsForValue()).thenReturn(value);
+        when(template.opsForZSet()).thenReturn(zSet);
+        when(template.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            RedisScript<?> script = invocation.getArgument(0);
+            List<String> keys = invocation.getArgument(1);
+            Object[] args = (Object[]) invocation.getRawArguments()[2];
+            synchronized (this) {
+                if (script == NotificationCounters.READ) {
+                    return read(keys);
+                }
+                if (script == NotificationCounters.INIT) {
+                    return init(keys, args);
+                }
+                if (script == NotificationCounters.DELTA) {
+                    return delta(keys, args);
+                }
+                if (script == NotificationCounters.INVALIDATE) {
+                    return invalidate(keys, args);
+                }
+            }
+            throw new IllegalArgumentException("Unknown script");
+        });
+        when(template.hasKey(anyString())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            synchronized (this) {
+                return strings.containsKey(invocation.<String>getArgument(0));
+            }
+        });
+        when(value.get(anyString())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            synchronized (this) {
+                return strings.get(invocation.<String>getArgument(0));
+            }
+        });
+        when(value.increment(anyString())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            synchronized (this) {
+                long next = Long.parseLong(strings.getOrDefault(invocation.<String>getArgument(0), "0")) + 1;
+                strings.put(invocation.getArgument(0), String.valueOf(next));
+                return next;
+            }
+        });
+        when(zSet.add(anyString(), anyString(), anyDouble())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            synchronized (this) {
+                return zSet(invocation.getArgument(0)).put(invocation.getArgument(1), invocation.getArgument(2)) == null;
+            }
+        });
+        when(zSet.add(anyString(), anySet())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            Set<TypedTuple<String>> tuples = invocation.getArgument(1);
+            synchronized (this) {
+                tuples.forEach(tuple -> zSet(invocation.getArgument(0)).put(tuple.getValue(), tuple.getScore()));
+                return (long) tuples.size();
+            }
+        });
+        when(zSet.count(anyString(), anyDouble(), anyDouble())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            double min = invocation.getArgument(1);
+            synchronized (this) {
+                return zSet(invocation.getArgument(0)).values().stream().filter(score -> score >= min).count();
+            }
+        });
+        when(zSet.rangeWithScores(anyString(), eq(0L), eq(-1L))).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            synchronized (this) {
+                Set<TypedTuple<String>> tuples = new LinkedHashSet<>();
+                zSet(invocation.getArgument(0)).forEach((member, score) -> tuples.add(TypedTuple.of(member, score)));
+                return tuples;
+            }
+        });
+        when(zSet.rangeByScore(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            double max = invocation.getArgument(2);
+            long count = invocation.getArgument(4);
+            synchronized (this) {
+                Set<String> range = new LinkedHashSet<>();
+                zSet(invocation.getArgument(0)).entrySet().stream()
+                        .filter(entry -> entry.getValue() <= max)
+                        .sorted(Map.Entry.comparingByValue())
+                        .limit(count)
+                        .forEach(entry -> range.add(entry.getKey()));
+                return range;
+            }
+        });
+        when(zSet.remove(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            Object[] members = (Object[]) invocation.getRawArguments()[1];
+            synchronized (this) {
+                return Arrays.stream(members).filter(member -> zSet(invocation.getArgument(0)).remove(member) != null).count();
+            }
+        });
+        return template;
+    }
+
+    synchronized Map<String, Double> zSet(String key) {
+        return zSets.computeIfAbsent(key, k -> new HashMap<>());
+    }
+
+    /**
+     * @return Cached counter hash of the user, null if absent or expired
+     */
+    synchronized Map<String, String> hash(String uid) {
+        Map<String, String> hash = live(NotificationCounters.counterKey(uid)) ? hashes.get(NotificationCounters.counterKey(uid)) : null;
+        return hash == null ? null : Map.copyOf(hash);
+    }
+
+    private List<Long> read(List<String> keys) {
+        Map<String, String> hash = live(keys.get(0)) ? hashes.get(keys.get(0)) : null;
+        if (hash == null || !hash.containsKey("gen")) {
+            return null;
+        }
+        if (!hash.get("gen").equals(strings.getOrDefault(keys.get(2), "0"))) {
+            return null;
+        }
+        double since = Double.parseDouble(hash.get("since"));
+        long visible = since < 0 ? 0 : zSet(keys.get(1)).values().stream().filter(score -> score >= since).count();
+        return List.of(Long.parseLong(hash.get("unread")), Long.parseLong(hash.get("total")),
+                Long.parseLong(hash.get("broadcast_read")), visible);
+    }
+
+    private long init(List<String> keys, Object[] args) {
+        if (live(keys.get(0)) || live(keys.get(1))) {
+            return 0;
+        }
+        if (!strings.getOrDefault(keys.get(2), "0").equals(args[4])) {
+            return 0;
+        }
+        Map<String, String> hash = new HashMap<>();
+        hash.put("unread", (String) args[0]);
+        hash.put("total", (String) args[1]);
+        hash.put("broadcast_read", (String) args[2]);
+        hash.put("since", (String) args[3]);
+        hash.put("gen", (String) args[4]);
+        hashes.put(keys.get(0), hash);
+        expiresAt.put(keys.get(0), clock.getAsLong() + Long.parseLong((String) args[5]));
+        return 1;
+    }
+
+    private long delta(List<String> keys, Object[] args) {
+        for (int i = 0; i < keys.size(); i += 2) {
+            int a = 1 + i / 2 * 3;
+            if (live(keys.get(i))) {
+                Map<String, String> hash = hashes.get(keys.get(i));
+                increment(hash, "unread", (String) args[a]);
+                increment(hash, "total", (String) args[a + 1]);
+                increment(hash, "broadcast_read", (String) args[a + 2]);
+            } else {
+                mark(keys.get(i + 1), (String) args[0]);
+            }
+        }
+        return keys.size() / 2;
+    }
+
+    private long invalidate(List<String> keys, Object[] args) {
+        for (int i = 0; i < keys.size(); i += 2) {
+            hashes.remove(keys.get(i));
+            expiresAt.remove(keys.get(i));
+            mark(keys.get(i + 1), (String) args[0]);
+        }
+        return keys.size() / 2;
+    }
+
+    private void mark(String key, String ttlMs) {
+        strings.put(key, "1");
+        expiresAt.put(key, clock.getAsLong() + Long.parseLong(ttlMs));
+    }
+
+    private boolean live(String key) {
+        Long expiry = expiresAt.get(key);
+        if (expiry != null && expiry <= clock.getAsLong()) {
+            expiresAt.remove(key);
+            hashes.remove(key);
+            strings.remove(key);
+        }
+        return hashes.containsKey(key) || strings.containsKey(key);
+    }
+
+    private static void increment(Map<String, String> hash, String field, String delta) {
+        hash.put(field, String.valueOf(Long.parseLong(hash.get(field)) + Long.parseLong(delta)));
+    }
+}
@@ -0,0 +1,246 @@
+package com.iflytek.astron.console.hub.data.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.iflytek.astron.console.commons.data.UserInfoDataService;
+import com.iflytek.astron.console.commons.entity.user.UserInfo;
+import com.iflytek.astron.console.hub.entity.notification.Notification;
+import com.iflytek.astron.console.hub.entity.notification.UserBroadcastRead;
+import com.iflytek.astron.console.hub.entity.notification.UserNotification;
+import com.iflytek.astron.console.hub.enums.NotificationType;
+import com.iflytek.astron.console.hub.mapper.notification.NotificationMapper;
+import com.iflytek.astron.console.hub.mapper.notification.UserBroadcastReadMapper;
+import com.iflytek.astron.console.hub.mapper.notification.UserNotificationMapper;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * In-memory notification tables behind mocked mappers, with the transaction behaviour the counters
+ * rely on: writes become visible on commit, and rows a transaction marks read stay locked until it
+ * ends, as InnoDB row locks would.
+ */
+class FakeNotificationDb {
+
+    static final LocalDateTime REGISTERED_AT = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final Map<Long, Notification> notifications = new HashMap<>();
+    private final List<UserNotification> rows = new ArrayList<>();
+    private final Set<String> broadcastReads = new HashSet<>();
+    private final Map<String, ReentrantLock> userLocks = new ConcurrentHashMap<>();
+    private final ThreadLocal<Tx> tx = new ThreadLocal<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final Supplier<LocalDateTime> clock;
+    /** Read queries run */
+    final AtomicLong queries = new AtomicLong();
+
+    final NotificationMapper notificationMapper = mock(NotificationMapper.class, withSettings().stubOnly());
+    final UserNotificationMapper userNotificationMapper = mock(UserNotificationMapper.class, withSettings().stubOnly());
+    final UserBroadcastReadMapper userBroadcastReadMapper = mock(UserBroadcastReadMapper.class, withSettings().stubOnly());
+    final UserInfoDataService userInfoDataService = mock(UserInfoDataService.class, withSettings().stubOnly());
+
+    private static class Tx {
+        final List<Runnable> onCommit = new ArrayList<>();
+        final Set<ReentrantLock> locks = new HashSet<>();
+    }
+
+    FakeNotificationDb(Supplier<LocalDateTime> clock) {
+        this.clock = clock;
+        when(notificationMapper.insert(any(Notification.class))).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            notification.setId(ids.incrementAndGet());
+            write(() -> notifications.put(notification.getId(), notification));
+            return 1;
+        });
+        when(notificationMapper.selectByType(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> query(() -> {
+            int offset = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return notifications.values().stream()
+                    .filter(notification -> notification.getType().equals(invocation.getArgument(0)) && live(notification))
+                    .sorted(Comparator.comparing(Notification::getCreatedAt).reversed())
+                    .skip(offset)
+                    .limit(limit)
+                    .toList();
+        }));
+        when(notificationMapper.countBroadcastMessagesAfter(any())).thenAnswer(invocation -> query(() -> {
+            LocalDateTime after = invocation.getArgument(0);
+            return notifications.values().stream().filter(n -> isBroadcast(n) && live(n) && !n.getCreatedAt().isBefore(after)).count();
+        }));
+        when(userNotificationMapper.batchInsert(anyList())).thenAnswer(invocation -> {
+            List<UserNotification> inserted = invocation.getArgument(0);
+            inserted.forEach(row -> row.setId(ids.incrementAndGet()));
+            write(() -> rows.addAll(inserted));
+            return inserted.size();
+        });
+        when(userNotificationMapper.countUnreadByUid(anyString())).thenAnswer(invocation -> query(
+                () -> (int) rows.stream().filter(row -> unread(row, invocation.getArgument(0))).count()));
+        when(userNotificationMapper.selectCount(any())).thenAnswer(invocation -> query(() -> {
+            Object uid = params(invocation.getArgument(0)).get(0);
+            return rows.stream().filter(row -> row.getReceiverUid().equals(uid)).count();
+        }));
+        when(userNotificationMapper.markAllAsRead(anyString())).thenAnswer(invocation -> markRead(invocation.getArgument(0), null));
+        when(userNotificationMapper.batchMarkAsRead(anyString(), anyList()))
+                .thenAnswer(invocation -> markRead(invocation.getArgument(0), invocation.getArgument(1)));
+        when(userNotificationMapper.delete(any())).thenAnswer(invocation -> {
+            List<Object> params = params(invocation.getArgument(0));
+            List<UserNotification> deleted;
+            synchronized (this) {
+                deleted = rows.stream()
+                        .filter(row -> row.getReceiverUid().equals(params.get(0)) && row.getNotificationId().equals(params.get(1)))
+                        .toList();
+            }
+            write(() -> rows.removeAll(deleted));
+            return deleted.size();
+        });
+        when(userNotificationMapper.selectList(any())).thenAnswer(invocation -> query(() -> {
+            List<Object> notificationIds = params(invocation.getArgument(0));
+            return rows.stream()
+                    .filter(row -> notificationIds.contains(row.getNotificationId()))
+                    .map(UserNotification::getReceiverUid)
+                    .distinct()
+                    .map(uid -> {
+                        UserNotification row = new UserNotification();
+                        row.setReceiverUid(uid);
+                        return row;
+                    })
+                    .toList();
+        }));
+        when(userBroadcastReadMapper.batchInsert(anyList())).thenAnswer(invocation -> {
+            List<UserBroadcastRead> records = invocation.getArgument(0);
+            records.stream().map(UserBroadcastRead::getReceiverUid).distinct().forEach(this::lock);
+            List<String> inserted;
+            synchronized (this) {
+                inserted = records.stream().map(r -> r.getReceiverUid() + ":" + r.getNotificationId())
+                        .filter(key -> !broadcastReads.contains(key)).distinct().toList();
+            }
+            write(() -> broadcastReads.addAll(inserted));
+            return inserted.size();
+        });
+        when(userBroadcastReadMapper.countUserReadBroadcastMessages(anyString())).thenAnswer(invocation -> query(
+                () -> notifications.values().stream()
+                        .filter(n -> isBroadcast(n) && live(n) && broadcastReads.contains(invocation.getArgument(0) + ":" + n.getId()))
+                        .count()));
+        when(userInfoDataService.findByUid(anyString())).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            UserInfo userInfo = new UserInfo();
+            userInfo.setUid(invocation.getArgument(0));
+            userInfo.setCreateTime(REGISTERED_AT);
+            return Optional.of(userInfo);
+        });
+    }
+
+    void begin() {
+        tx.set(new Tx());
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    void commit() {
+        Tx current = tx.get();
+        synchronized (this) {
+            current.onCommit.forEach(Runnable::run);
+        }
+        end(current, TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    void rollback() {
+        end(tx.get(), TransactionSynchronization.STATUS_ROLLED_BACK);
+    }
+
+    /**
+     * Counts of the user as a full recount of the committed tables
+     */
+    synchronized NotificationCounters.Counts recount(String uid) {
+        long unread = rows.stream().filter(row -> unread(row, uid)).count();
+        long total = rows.stream().filter(row -> row.getReceiverUid().equals(uid)).count();
+        long read = notifications.values().stream()
+                .filter(n -> isBroadcast(n) && live(n) && broadcastReads.contains(uid + ":" + n.getId())).count();
+        long visible = notifications.values().stream()
+                .filter(n -> isBroadcast(n) && live(n) && !n.getCreatedAt().isBefore(REGISTERED_AT)).count();
+        return new NotificationCounters.Counts(unread, total, read, visible);
+    }
+
+    synchronized List<Long> notificationIdsOf(String uid) {
+        return rows.stream().filter(row -> row.getReceiverUid().equals(uid)).map(UserNotification::getNotificationId).toList();
+    }
+
+    synchronized List<Long> broadcastIds() {
+        return notifications.values().stream().filter(n -> isBroadcast(n) && live(n)).map(Notification::getId).toList();
+    }
+
+    private int markRead(String uid, List<Long> notificationIds) {
+        lock(uid);
+        List<UserNotification> marked;
+        synchronized (this) {
+            marked = rows.stream()
+                    .filter(row -> unread(row, uid) && (notificationIds == null || notificationIds.contains(row.getNotificationId())))
+                    .toList();
+        }
+        write(() -> marked.forEach(row -> row.setIsRead(true)));
+        return marked.size();
+    }
+
+    private void write(Runnable change) {
+        Tx current = tx.get();
+        if (current == null) {
+            synchronized (this) {
+                change.run();
+            }
+        } else {
+            current.onCommit.add(change);
+        }
+    }
+
+    private void lock(String uid) {
+        Tx current = tx.get();
+        ReentrantLock lock = userLocks.computeIfAbsent(uid, key -> new ReentrantLock());
+        if (current != null && current.locks.add(lock)) {
+            lock.lock();
+        }
+    }
+
+    private void end(Tx current, int status) {
+        current.locks.forEach(ReentrantLock::unlock);
+        tx.remove();
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private synchronized <T> T query(Supplier<T> query) {
+        queries.incrementAndGet();
+        return query.get();
+    }
+
+    private boolean unread(UserNotification row, String uid) {
+        return row.getReceiverUid().equals(uid) && !Boolean.TRUE.equals(row.getIsRead()) && live(notifications.get(row.getNotificationId()));
+    }
+
+    private boolean live(Notification notification) {
+        return notification != null && (notification.getExpireAt() == null || notification.getExpireAt().isAfter(clock.get()));
+    }
+
+    private static boolean isBroadcast(Notification notification) {
+        return NotificationType.BROADCAST.getCode().equals(notification.getType());
+    }
+
+    private static List<Object> params(QueryWrapper<?> wrapper) {
+        // Parameters are bound when the SQL is rendered
+        wrapper.getSqlSegment();
+        List<Object> values = new ArrayList<>();
+        wrapper.getParamNameValuePairs().entrySet().stream()
+                .sorted(Comparator.comparingInt(entry -> Integer.parseInt(entry.getKey().replaceAll("\\D", ""))))
+                .forEach(entry -> values.add(entry.getValue()));
+        return values;
+    }
+}
@@ -0,0 +1,127 @@
+package com.iflytek.astron.console.hub.data.impl;
+
+import com.iflytek.astron.console.hub.entity.notification.Notification;
+import com.iflytek.astron.console.hub.entity.notification.UserNotification;
+import com.iflytek.astron.console.hub.enums.NotificationType;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Replays an hour of 200 active users polling their badge every 30 seconds while receiving about six
+ * notifications and marking all read about twice, and reports the database queries and Redis commands
+ * behind the badge. The previous counts were cached for 5 minutes and evicted by every write; a
+ * recount ran COUNT on the user's notifications, the read broadcasts and the broadcasts since
+ * registration, plus a user lookup, so its cost is estimated from the same event stream.
+ */
+@Slf4j
+class NotificationCountersLoadTest {
+
+    private static final int USERS = 200;
+    private static final long POLL_MS = 30_000;
+    private static final int POLLS = 120;
+    private static final int OLD_CACHE_WINDOWS_PER_HOUR = 12;
+    private static final int OLD_QUERIES_PER_RECOUNT = 4;
+    /** Mark-read only evicted the unread count: personal unread and read broadcasts were counted again */
+    private static final int OLD_QUERIES_AFTER_MARK_READ = 2;
+
+    @Test
+    void badgeQueriesDropAgainstFiveMinuteCache() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        FakeNotificationDb db = new FakeNotificationDb(() -> LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.get()), ZoneId.systemDefault()));
+        FakeCounterRedis redis = new FakeCounterRedis(clock::get);
+        NotificationCounters counters = new NotificationCounters();
+        ReflectionTestUtils.setField(counters, "stringRedisTemplate", redis.template());
+        ReflectionTestUtils.setField(counters, "redissonClient", mock(RedissonClient.class));
+        ReflectionTestUtils.setField(counters, "notificationMapper", db.notificationMapper);
+        ReflectionTestUtils.setField(counters, "userNotificationMapper", db.userNotificationMapper);
+        ReflectionTestUtils.setField(counters, "userBroadcastReadMapper", db.userBroadcastReadMapper);
+        ReflectionTestUtils.setField(counters, "userInfoDataService", db.userInfoDataService);
+        ReflectionTestUtils.setField(counters, "eventPublisher", mock(ApplicationEventPublisher.class));
+        NotificationDataServiceImpl dataService =
+                new NotificationDataServiceImpl(db.notificationMapper, db.userNotificationMapper, db.userBroadcastReadMapper, counters);
+        counters.syncBroadcasts(clock.get());
+
+        Random random = new Random(7);
+        long userQueries = 0;
+        long reconcileQueries = 0;
+        long pollCommands = 0;
+        long writeCommands = 0;
+        long writes = 0;
+        long sends = 0;
+        long markReads = 0;
+        long pollNanos = 0;
+        for (int step = 0; step < POLLS; step++) {
+            if (step % 60 == 0) {
+                Notification broadcast = new Notification();
+                broadcast.setType(NotificationType.BROADCAST.getCode());
+                dataService.createNotification(broadcast);
+            }
+            for (int user = 0; user < USERS; user++) {
+                String uid = "u" + user;
+                long commands = redis.commands.get();
+                if (random.nextInt(20) == 0) {
+                    Notification notification = new Notification();
+                    notification.setType(NotificationType.PERSONAL.getCode());
+                    dataService.createNotification(notification);
+                    UserNotification row = new UserNotification();
+                    row.setNotificationId(notification.getId());
+                    row.setReceiverUid(uid);
+                    row.setIsRead(false);
+                    dataService.batchCreateUserNotifications(List.of(row));
+                    sends++;
+                    writes++;
+                } else if (random.nextInt(60) == 0) {
+                    dataService.markAllUserNotificationsAsRead(uid);
+                    markReads++;
+                    writes++;
+                }
+                writeCommands += redis.commands.get() - commands;
+
+                long queries = db.queries.get();
+                commands = redis.commands.get();
+                long started = System.nanoTime();
+                long unread = dataService.countUserUnreadNotifications(uid);
+                pollNanos += System.nanoTime() - started;
+                pollCommands += redis.commands.get() - commands;
+                userQueries += db.queries.get() - queries;
+                if (step == POLLS - 1) {
+                    assertThat(unread).isEqualTo(db.recount(uid).unread());
+                }
+            }
+            clock.addAndGet(POLL_MS);
+            if (step % 2 == 1) {
+                long queries = db.queries.get();
+                counters.syncBroadcasts(clock.get());
+                counters.expireNotifications(clock.get());
+                reconcileQueries += db.queries.get() - queries;
+            }
+        }
+
+        long polls = (long) USERS * POLLS;
+        double newPerUserHour = (double) userQueries / USERS;
+        double oldPerUserHour = (double) (USERS * OLD_CACHE_WINDOWS_PER_HOUR * OLD_QUERIES_PER_RECOUNT
+                + sends * OLD_QUERIES_PER_RECOUNT + markReads * OLD_QUERIES_AFTER_MARK_READ) / USERS;
+        log.info("{} badge polls: {} Redis commands per poll, {} us per poll against the in-memory Redis",
+                polls, String.format("%.3f", (double) pollCommands / polls), String.format("%.2f", pollNanos / 1000.0 / polls));
+        log.info("{} writes: {} Redis commands per write", writes, String.format("%.2f", (double) writeCommands / writes));
+        log.info("Database queries per active user and hour: {} now, about {} with the 5 minute cache; reconciler {} per node and hour",
+                String.format("%.1f", newPerUserHour), String.format("%.1f", oldPerUserHour), reconcileQueries);
+
+        assertThat(newPerUserHour).isLessThan(oldPerUserHour / 4);
+        assertThat((double) pollCommands / polls).isLessThan(1.2);
+        assertThat((double) writeCommands / writes).isLessThanOrEqualTo(1.0);
+    }
+}
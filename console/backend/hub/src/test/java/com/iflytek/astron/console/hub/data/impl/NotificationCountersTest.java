@@ -0,0 +1,270 @@
+package com.iflytek.astron.console.hub.data.impl;
+
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.hub.entity.notification.Notification;
+import com.iflytek.astron.console.hub.entity.notification.UserBroadcastRead;
+import com.iflytek.astron.console.hub.entity.notification.UserNotification;
+import com.iflytek.astron.console.hub.enums.NotificationType;
+import com.iflytek.astron.console.hub.event.NotificationCountsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class NotificationCountersTest {
+
+    private static final long MARKER_MS = 30_000;
+
+    private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+    private FakeNotificationDb db;
+    private FakeCounterRedis redis;
+    private ApplicationEventPublisher eventPublisher;
+    private NotificationCounters counters;
+    private NotificationDataServiceImpl dataService;
+
+    @BeforeEach
+    void setUp() {
+        db = new FakeNotificationDb(() -> LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.get()), ZoneId.systemDefault()));
+        redis = new FakeCounterRedis(clock::get);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        counters = new NotificationCounters();
+        ReflectionTestUtils.setField(counters, "stringRedisTemplate", redis.template());
+        ReflectionTestUtils.setField(counters, "redissonClient", mock(RedissonClient.class));
+        ReflectionTestUtils.setField(counters, "notificationMapper", db.notificationMapper);
+        ReflectionTestUtils.setField(counters, "userNotificationMapper", db.userNotificationMapper);
+        ReflectionTestUtils.setField(counters, "userBroadcastReadMapper", db.userBroadcastReadMapper);
+        ReflectionTestUtils.setField(counters, "userInfoDataService", db.userInfoDataService);
+        ReflectionTestUtils.setField(counters, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(counters, "staleMarkerMs", MARKER_MS);
+        dataService = new NotificationDataServiceImpl(db.notificationMapper, db.userNotificationMapper, db.userBroadcastReadMapper, counters);
+        counters.syncBroadcasts(clock.get());
+    }
+
+    @Test
+    void get_loadsOnceThenServesWritesFromRedis() {
+        send(null, "u1", "u2");
+        clock.addAndGet(MARKER_MS);
+        assertThat(counters.get("u1")).isEqualTo(db.recount("u1"));
+        long queries = db.queries.get();
+
+        Long second = send(null, "u1");
+        Long broadcast = broadcast(null);
+        dataService.markUserNotificationsAsRead("u1", List.of(second));
+        readBroadcasts("u1", List.of(broadcast));
+        send(null, "u1");
+
+        assertThat(counters.get("u1")).isEqualTo(db.recount("u1")).isEqualTo(new NotificationCounters.Counts(2, 3, 1, 1));
+        assertThat(db.queries.get()).isEqualTo(queries);
+    }
+
+    @Test
+    void markAllTwice_dropsUnreadOnce() {
+        send(null, "u1");
+        send(null, "u1");
+        clock.addAndGet(MARKER_MS);
+        counters.get("u1");
+
+        dataService.markAllUserNotificationsAsRead("u1");
+        dataService.markAllUserNotificationsAsRead("u1");
+
+        assertThat(counters.get("u1")).isEqualTo(db.recount("u1"));
+        assertThat(counters.get("u1").unread()).isZero();
+    }
+
+    @Test
+    void loadRacingUncommittedWrite_isNotCached() {
+        db.begin();
+        send(null, "u1");
+        // Another request loads while the send is not committed yet
+        assertThat(counters.get("u1").personalUnread()).isZero();
+        db.commit();
+
+        assertThat(redis.hash("u1")).isNull();
+        assertThat(counters.get("u1").personalUnread()).isEqualTo(1);
+        clock.addAndGet(MARKER_MS);
+        assertThat(counters.get("u1").personalUnread()).isEqualTo(1);
+        assertThat(redis.hash("u1")).isNotNull();
+    }
+
+    @Test
+    void rollback_undoesCountedWrite() {
+        counters.get("u1");
+
+        db.begin();
+        send(null, "u1");
+        assertThat(counters.get("u1").personalUnread()).isEqualTo(1);
+        db.rollback();
+
+        assertThat(counters.get("u1")).isEqualTo(db.recount("u1")).isEqualTo(new NotificationCounters.Counts(0, 0, 0, 0));
+    }
+
+    @Test
+    void deleteUserNotification_reloadsUser() {
+        Long id = send(null, "u1");
+        clock.addAndGet(MARKER_MS);
+        counters.get("u1");
+        assertThat(redis.hash("u1")).isNotNull();
+
+        dataService.deleteUserNotification("u1", id);
+
+        assertThat(redis.hash("u1")).isNull();
+    }
+
+    @Test
+    void syncBroadcasts_dropsExpiredBroadcastAndRecountsReaders() {
+        Long expiring = broadcast(LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.get() + 60_000), ZoneId.systemDefault()));
+        broadcast(null);
+        readBroadcasts("u1", List.of(expiring));
+        clock.addAndGet(MARKER_MS);
+        assertThat(counters.get("u1")).isEqualTo(new NotificationCounters.Counts(0, 0, 1, 2));
+
+        clock.addAndGet(180_000);
+        assertThat(counters.syncBroadcasts(clock.get())).isEqualTo(1);
+
+        assertThat(redis.zSet(RedisKeyConstant.NOTIFICATION_BROADCASTS)).doesNotContainKey(String.valueOf(expiring));
+        assertThat(counters.get("u1")).isEqualTo(db.recount("u1")).isEqualTo(new NotificationCounters.Counts(0, 0, 0, 1));
+    }
+
+    @Test
+    void syncBroadcasts_keepsBroadcastJustAdded() {
+        redis.zSet(RedisKeyConstant.NOTIFICATION_BROADCASTS).put("999", (double) clock.get());
+
+        assertThat(counters.syncBroadcasts(clock.get())).isZero();
+        assertThat(redis.zSet(RedisKeyConstant.NOTIFICATION_BROADCASTS)).containsKey("999");
+    }
+
+    @Test
+    void expireNotifications_recountsReceiversAndPublishesEvent() {
+        send(LocalDateTime.ofInstant(Instant.ofEpochMilli(clock.get() + 60_000), ZoneId.systemDefault()), "u1", "u2");
+        send(null, "u1");
+        clock.addAndGet(MARKER_MS);
+        counters.get("u1");
+        assertThat(redis.hash("u1")).isNotNull();
+        assertThat(counters.get("u1").unread()).isEqualTo(2);
+
+        clock.addAndGet(120_000);
+        assertThat(counters.expireNotifications(clock.get())).isEqualTo(2);
+
+        assertThat(redis.zSet(RedisKeyConstant.NOTIFICATION_EXPIRY)).isEmpty();
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof NotificationCountsChangedEvent changed
+                && changed.getUids().equals(Set.of("u1", "u2"))));
+        clock.addAndGet(MARKER_MS);
+        assertThat(counters.get("u1")).isEqualTo(db.recount("u1"));
+        assertThat(counters.get("u1").unread()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentWrites_keepCachedCountsEqualToRecount() throws Exception {
+        List<String> users = List.of("u0", "u1", "u2", "u3");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        long cachedChecks = 0;
+        try {
+            for (int round = 0; round < 20; round++) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 8; thread++) {
+                    long seed = round * 31L + thread;
+                    futures.add(executor.submit(() -> randomOperations(new Random(seed), users, 25)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                for (String uid : users) {
+                    if (redis.hash(uid) != null) {
+                        cachedChecks++;
+                        assertThat(counters.get(uid)).as("round %s user %s", round, uid).isEqualTo(db.recount(uid));
+                    }
+                }
+                // Let stale markers lapse so the next round caches again
+                clock.addAndGet(MARKER_MS + 1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cachedChecks).isGreaterThan(20);
+    }
+
+    private void randomOperations(Random random, List<String> users, int operations) {
+        for (int i = 0; i < operations; i++) {
+            String uid = users.get(random.nextInt(users.size()));
+            int operation = random.nextInt(10);
+            if (operation >= 8) {
+                counters.get(uid);
+                continue;
+            }
+            db.begin();
+            switch (operation) {
+                case 0, 1, 2, 3 -> send(null, users.subList(0, 1 + random.nextInt(users.size())).toArray(String[]::new));
+                case 4 -> dataService.markAllUserNotificationsAsRead(uid);
+                case 5 -> {
+                    List<Long> ids = db.notificationIdsOf(uid);
+                    if (!ids.isEmpty()) {
+                        dataService.markUserNotificationsAsRead(uid, List.of(ids.get(random.nextInt(ids.size()))));
+                    }
+                }
+                case 6 -> broadcast(null);
+                default -> {
+                    List<Long> ids = db.broadcastIds();
+                    if (!ids.isEmpty()) {
+                        readBroadcasts(uid, ids.subList(0, 1 + random.nextInt(ids.size())));
+                    }
+                }
+            }
+            if (random.nextInt(10) == 0) {
+                db.rollback();
+            } else {
+                db.commit();
+            }
+        }
+    }
+
+    private Long send(LocalDateTime expireAt, String... receivers) {
+        Notification notification = new Notification();
+        notification.setType(NotificationType.PERSONAL.getCode());
+        notification.setTitle("personal");
+        notification.setExpireAt(expireAt);
+        dataService.createNotification(notification);
+        List<UserNotification> rows = new ArrayList<>();
+        for (String receiver : receivers) {
+            UserNotification row = new UserNotification();
+            row.setNotificationId(notification.getId());
+            row.setReceiverUid(receiver);
+            row.setIsRead(false);
+            rows.add(row);
+        }
+        dataService.batchCreateUserNotifications(rows);
+        return notification.getId();
+    }
+
+    private Long broadcast(LocalDateTime expireAt) {
+        Notification notification = new Notification();
+        notification.setType(NotificationType.BROADCAST.getCode());
+        notification.setTitle("broadcast");
+        notification.setExpireAt(expireAt);
+        return dataService.createNotification(notification).getId();
+    }
+
+    private void readBroadcasts(String uid, List<Long> ids) {
+        dataService.batchCreateBroadcastReadRecords(ids.stream().map(id -> {
+            UserBroadcastRead read = new UserBroadcastRead();
+            read.setReceiverUid(uid);
+            read.setNotificationId(id);
+            return read;
+        }).toList());
+    }
+}
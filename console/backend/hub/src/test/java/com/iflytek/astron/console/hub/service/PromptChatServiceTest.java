@@ -3,6 +3,7 @@ package com.iflytek.astron.console.hub.service;
 import com.alibaba.fastjson2.JSONObject;
 import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
 import com.iflytek.astron.console.commons.service.ChatRecordModelService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
 import com.iflytek.astron.console.commons.service.data.ChatDataService;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
 import okhttp3.*;
@@ -13,10 +14,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -34,6 +39,9 @@ class PromptChatServiceTest {
     @Mock
     private ChatRecordModelService chatRecordModelService;
 
+    @Mock
+    private ChatContextCacheService chatContextCacheService;
+
     @Mock
     private SseEmitter emitter;
 
@@ -57,6 +65,7 @@ class PromptChatServiceTest {
         promptChatService = new PromptChatService(httpClient);
         ReflectionTestUtils.setField(promptChatService, "chatDataService", chatDataService);
         ReflectionTestUtils.setField(promptChatService, "chatRecordModelService", chatRecordModelService);
+        ReflectionTestUtils.setField(promptChatService, "chatContextCacheService", chatContextCacheService);
 
         streamId = "test-stream-id";
         request = new JSONObject();
@@ -72,35 +81,35 @@ class PromptChatServiceTest {
     // ==================== chatStream Tests ====================
 
     @Test
-    void testChatStream_NullChatReqRecords_NotDebugMode() {
+    void testChatStream_NullChatReqRecords_NotDebugMode() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
             promptChatService.chatStream(request, emitter, streamId, null, false, false);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(emitter, "Message is empty"));
+            verifyEndedWithError("Message is empty");
             verifyNoInteractions(httpClient);
         }
     }
 
     @Test
-    void testChatStream_NullUid_NotDebugMode() {
+    void testChatStream_NullUid_NotDebugMode() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
             chatReqRecords.setUid(null);
 
             promptChatService.chatStream(request, emitter, streamId, chatReqRecords, false, false);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(emitter, "Message is empty"));
+            verifyEndedWithError("Message is empty");
             verifyNoInteractions(httpClient);
         }
     }
 
     @Test
-    void testChatStream_NullChatId_NotDebugMode() {
+    void testChatStream_NullChatId_NotDebugMode() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
             chatReqRecords.setChatId(null);
 
             promptChatService.chatStream(request, emitter, streamId, chatReqRecords, false, false);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(emitter, "Message is empty"));
+            verifyEndedWithError("Message is empty");
             verifyNoInteractions(httpClient);
         }
     }
@@ -138,13 +147,13 @@ class PromptChatServiceTest {
     }
 
     @Test
-    void testChatStream_Exception_HandledGracefully() {
+    void testChatStream_Exception_HandledGracefully() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
             when(httpClient.newCall(any(Request.class))).thenThrow(new RuntimeException("HTTP error"));
 
             promptChatService.chatStream(request, emitter, streamId, chatReqRecords, false, false);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(eq(emitter), contains("Failed to create chat stream")));
+            verifyEndedWithError("Failed to create chat stream");
         }
     }
 
@@ -176,7 +185,7 @@ class PromptChatServiceTest {
             IOException testException = new IOException("Connection timeout");
             callback.onFailure(call, testException);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(eq(emitter), contains("Connection failed")));
+            verifyEndedWithError("Connection failed");
         }
     }
 
@@ -196,7 +205,7 @@ class PromptChatServiceTest {
             Callback callback = callbackCaptor.getValue();
             callback.onResponse(call, response);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(eq(emitter), contains("Request failed")));
+            verifyEndedWithError("Request failed");
         }
     }
 
@@ -215,7 +224,7 @@ class PromptChatServiceTest {
             Callback callback = callbackCaptor.getValue();
             callback.onResponse(call, response);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(emitter, "Response body is empty"));
+            verifyEndedWithError("Response body is empty");
         }
     }
 
@@ -374,7 +383,7 @@ class PromptChatServiceTest {
             Callback callback = callbackCaptor.getValue();
             callback.onResponse(call, response);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(eq(emitter), contains("Data reading exception")));
+            verifyEndedWithError("Data reading exception");
         }
     }
 
@@ -549,9 +558,49 @@ class PromptChatServiceTest {
 
             verify(chatRecordModelService).saveChatResponse(eq(chatReqRecords), any(StringBuffer.class), any(StringBuffer.class), eq(false), eq(2));
             verify(chatRecordModelService).saveThinkingResult(eq(chatReqRecords), any(StringBuffer.class), eq(false));
+            verify(chatContextCacheService).appendAnswer(eq(chatReqRecords), anyString());
         }
     }
 
+    @Test
+    void testCheckpoint_StreamLostMidway_KeepsPartialAnswerInOneRecord() throws Exception {
+        try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
+            ReflectionTestUtils.setField(promptChatService, "checkpointIntervalMs", 1L);
+            ArgumentCaptor<Callback> callbackCaptor = ArgumentCaptor.forClass(Callback.class);
+            when(httpClient.newCall(any(Request.class))).thenReturn(call);
+            doNothing().when(call).enqueue(callbackCaptor.capture());
+
+            promptChatService.chatStream(request, emitter, streamId, chatReqRecords, false, false);
+
+            when(response.isSuccessful()).thenReturn(true);
+            when(response.body()).thenReturn(responseBody);
+            BufferedSource source = mock(BufferedSource.class);
+            when(responseBody.source()).thenReturn(source);
+            // Each frame arrives after the checkpoint interval, then the upstream connection drops
+            when(source.readUtf8Line()).thenAnswer(frameAfterInterval("Hel"))
+                    .thenAnswer(frameAfterInterval("lo"))
+                    .thenThrow(new IOException("Connection reset"));
+            List<String> saves = new ArrayList<>();
+            doAnswer(invocation -> saves.add(invocation.getArgument(1) + ":" + invocation.getArgument(3)))
+                    .when(chatRecordModelService)
+                    .saveChatResponse(eq(chatReqRecords), any(StringBuffer.class), any(StringBuffer.class), anyBoolean(), eq(2));
+            sseUtilMock.when(() -> SseEmitterUtil.isStreamStopped(streamId)).thenReturn(false);
+
+            callbackCaptor.getValue().onResponse(call, response);
+
+            // Inserted at the first checkpoint, updated by every later save
+            assertEquals(List.of("Hel:false", "Hello:true", "Hello:true"), saves);
+            verifyEndedWithError("Data reading exception");
+        }
+    }
+
+    private static Answer<String> frameAfterInterval(String content) {
+        return invocation -> {
+            Thread.sleep(5);
+            return "data: {\"id\":\"sid-123\",\"choices\":[{\"delta\":{\"content\":\"" + content + "\"}}]}";
+        };
+    }
+
     @Test
     void testSaveStreamResults_DebugMode_NoSave() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
@@ -720,4 +769,19 @@ class PromptChatServiceTest {
             verify(emitter, atLeastOnce()).send(any(SseEmitter.SseEventBuilder.class));
         }
     }
+
+    /**
+     * The stream ended through the relay: an error event carrying the message, then the end event
+     */
+    private void verifyEndedWithError(String message) throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> events = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, atLeast(2)).send(events.capture());
+        List<String> sent = events.getAllValues()
+                .stream()
+                .map(event -> event.build().stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining()))
+                .toList();
+        assertTrue(sent.stream().anyMatch(event -> event.contains("event:error") && event.contains(message)), sent.toString());
+        assertTrue(sent.get(sent.size() - 1).contains("event:end"), sent.toString());
+        verify(emitter).complete();
+    }
 }
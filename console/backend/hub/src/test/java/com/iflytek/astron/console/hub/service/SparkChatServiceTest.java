@@ -5,6 +5,7 @@ import cn.xfyun.model.sparkmodel.SparkChatParam;
 import com.iflytek.astron.console.commons.dto.llm.SparkChatRequest;
 import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
 import com.iflytek.astron.console.commons.service.ChatRecordModelService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
 import com.iflytek.astron.console.commons.service.data.ChatDataService;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
 import okhttp3.*;
@@ -21,6 +22,7 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -35,6 +37,9 @@ class SparkChatServiceTest {
     @Mock
     private ChatRecordModelService chatRecordModelService;
 
+    @Mock
+    private ChatContextCacheService chatContextCacheService;
+
     @Mock
     private SseEmitter emitter;
 
@@ -59,6 +64,7 @@ class SparkChatServiceTest {
         ReflectionTestUtils.setField(sparkChatService, "apiPassword", "test-api-password");
         ReflectionTestUtils.setField(sparkChatService, "chatDataService", chatDataService);
         ReflectionTestUtils.setField(sparkChatService, "chatRecordModelService", chatRecordModelService);
+        ReflectionTestUtils.setField(sparkChatService, "chatContextCacheService", chatContextCacheService);
 
         streamId = "test-stream-id";
 
@@ -101,33 +107,33 @@ class SparkChatServiceTest {
     }
 
     @Test
-    void testChatStream_NullChatReqRecords_NotDebugMode() {
+    void testChatStream_NullChatReqRecords_NotDebugMode() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
             sparkChatService.chatStream(sparkChatRequest, emitter, streamId, null, false, false);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(emitter, "Message is empty"));
+            verifyEndedWithError("Message is empty");
         }
     }
 
     @Test
-    void testChatStream_NullUid_NotDebugMode() {
+    void testChatStream_NullUid_NotDebugMode() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
             chatReqRecords.setUid(null);
 
             sparkChatService.chatStream(sparkChatRequest, emitter, streamId, chatReqRecords, false, false);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(emitter, "Message is empty"));
+            verifyEndedWithError("Message is empty");
         }
     }
 
     @Test
-    void testChatStream_NullChatId_NotDebugMode() {
+    void testChatStream_NullChatId_NotDebugMode() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class)) {
             chatReqRecords.setChatId(null);
 
             sparkChatService.chatStream(sparkChatRequest, emitter, streamId, chatReqRecords, false, false);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(emitter, "Message is empty"));
+            verifyEndedWithError("Message is empty");
         }
     }
 
@@ -172,7 +178,7 @@ class SparkChatServiceTest {
     }
 
     @Test
-    void testChatStream_Exception_HandledGracefully() {
+    void testChatStream_Exception_HandledGracefully() throws Exception {
         try (MockedStatic<SseEmitterUtil> sseUtilMock = mockStatic(SseEmitterUtil.class);
                 MockedConstruction<SparkChatClient> clientMock = mockConstruction(SparkChatClient.class,
                         (mock, context) -> doThrow(new RuntimeException("Client error"))
@@ -181,7 +187,7 @@ class SparkChatServiceTest {
 
             sparkChatService.chatStream(sparkChatRequest, emitter, streamId, chatReqRecords, false, false);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(eq(emitter), contains("Failed to create chat stream")));
+            verifyEndedWithError("Failed to create chat stream");
         }
     }
 
@@ -238,7 +244,7 @@ class SparkChatServiceTest {
             IOException testException = new IOException("Connection timeout");
             callback.onFailure(call, testException);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(eq(emitter), contains("Connection failed")));
+            verifyEndedWithError("Connection failed");
         }
     }
 
@@ -260,7 +266,7 @@ class SparkChatServiceTest {
             Callback callback = callbackCaptor.getValue();
             callback.onResponse(call, response);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(eq(emitter), contains("Request failed")));
+            verifyEndedWithError("Request failed");
         }
     }
 
@@ -281,7 +287,7 @@ class SparkChatServiceTest {
             Callback callback = callbackCaptor.getValue();
             callback.onResponse(call, response);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(emitter, "Response body is empty"));
+            verifyEndedWithError("Response body is empty");
         }
     }
 
@@ -484,7 +490,7 @@ class SparkChatServiceTest {
             Callback callback = callbackCaptor.getValue();
             callback.onResponse(call, response);
 
-            sseUtilMock.verify(() -> SseEmitterUtil.completeWithError(eq(emitter), contains("Data reading exception")));
+            verifyEndedWithError("Data reading exception");
         }
     }
 
@@ -775,4 +781,19 @@ class SparkChatServiceTest {
             sseUtilMock.verify(() -> SseEmitterUtil.sendData(eq(emitter), any()));
         }
     }
+
+    /**
+     * The stream ended through the relay: an error event carrying the message, then the end event
+     */
+    private void verifyEndedWithError(String message) throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> events = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, atLeast(2)).send(events.capture());
+        List<String> sent = events.getAllValues()
+                .stream()
+                .map(event -> event.build().stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining()))
+                .toList();
+        assertTrue(sent.stream().anyMatch(event -> event.contains("event:error") && event.contains(message)), sent.toString());
+        assertTrue(sent.get(sent.size() - 1).contains("event:end"), sent.toString());
+        verify(emitter).complete();
+    }
 }
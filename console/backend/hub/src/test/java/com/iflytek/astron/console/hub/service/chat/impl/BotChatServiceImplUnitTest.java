@@ -20,8 +20,12 @@ import com.iflytek.astron.console.commons.service.workflow.WorkflowBotChatServic
 import com.iflytek.astron.console.hub.data.ReqKnowledgeRecordsDataService;
 import com.iflytek.astron.console.hub.service.PromptChatService;
 import com.iflytek.astron.console.hub.service.SparkChatService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
 import com.iflytek.astron.console.hub.service.chat.ChatListService;
+import com.iflytek.astron.console.hub.service.chat.TokenCountService;
 import com.iflytek.astron.console.hub.service.knowledge.KnowledgeService;
+import com.iflytek.astron.console.hub.util.ChatPreflightExecutor;
+import com.iflytek.astron.console.hub.util.tokenizer.HeuristicTokenizer;
 import com.iflytek.astron.console.toolkit.entity.vo.CategoryTreeVO;
 import com.iflytek.astron.console.toolkit.entity.vo.LLMInfoVo;
 import com.iflytek.astron.console.toolkit.service.model.ModelService;
@@ -30,7 +34,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
@@ -69,6 +75,12 @@ class BotChatServiceImplUnitTest {
     @Mock
     private ReqKnowledgeRecordsDataService reqKnowledgeRecordsDataService;
     @Mock
+    private ChatContextCacheService chatContextCacheService;
+    @Spy
+    private ChatPreflightExecutor chatPreflightExecutor = new ChatPreflightExecutor(mock(ObjectProvider.class));
+    @Spy
+    private TokenCountService tokenCountService = new TokenCountServiceImpl();
+    @Mock
     private com.iflytek.astron.console.hub.util.BotPermissionUtil botPermissionUtil;
 
     @InjectMocks
@@ -77,6 +89,15 @@ class BotChatServiceImplUnitTest {
     @BeforeEach
     void setUp() {
         ReflectionTestUtils.setField(botChatService, "maxInputTokens", 8000);
+        ReflectionTestUtils.setField(botChatService, "preflightTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(botChatService, "knowledgeTimeoutMs", 3000L);
+        ReflectionTestUtils.setField(botChatService, "historyTimeoutMs", 1000L);
+    }
+
+    private static ChatContextCacheService.ContextWindow window(List<SparkChatRequest.MessageDto> messages) {
+        // Counted outside the spy, these are built while stubbing
+        List<Integer> tokens = messages.stream().map(message -> new HeuristicTokenizer().count(message.getContent())).toList();
+        return new ChatContextCacheService.ContextWindow(messages, tokens);
     }
 
     @Test
@@ -127,7 +148,7 @@ class BotChatServiceImplUnitTest {
         when(chatBotDataService.findMarketBotByBotId(anyInt())).thenReturn(chatBotMarket);
         when(chatDataService.createRequest(any())).thenReturn(createdRecord);
         lenient().when(knowledgeService.getChuncksByBotId(anyInt(), anyString(), anyInt())).thenReturn(knowledgeList);
-        when(chatHistoryService.getSystemBotHistory(anyString(), anyLong(), anyBoolean())).thenReturn(historyMessages);
+        when(chatContextCacheService.getHistory(anyString(), anyLong(), any(), anyBoolean(), anyInt())).thenReturn(window(historyMessages));
         lenient().when(reqKnowledgeRecordsDataService.create(any())).thenReturn(null);
         doNothing().when(sparkChatService).chatStream(any(), any(), any(), any(), anyBoolean(), anyBoolean());
 
@@ -139,6 +160,65 @@ class BotChatServiceImplUnitTest {
         verify(sparkChatService).chatStream(any(SparkChatRequest.class), eq(sseEmitter), eq(sseId), any(), eq(false), eq(false));
     }
 
+    @Test
+    void testChatMessageBot_KnowledgeAndHistoryRunConcurrently() throws Exception {
+        ChatBotReqDto chatBotReqDto = createChatBotReqDto();
+        SseEmitter sseEmitter = new SseEmitter();
+        ChatBotMarket chatBotMarket = createChatBotMarket();
+        chatBotMarket.setSupportDocument(1);
+
+        SparkChatRequest.MessageDto previous = new SparkChatRequest.MessageDto();
+        previous.setRole("user");
+        previous.setContent("previous question");
+        java.util.concurrent.CountDownLatch historyStarted = new java.util.concurrent.CountDownLatch(1);
+
+        when(chatBotDataService.findMarketBotByBotId(anyInt())).thenReturn(chatBotMarket);
+        // Knowledge only returns once history has been requested, which deadlocks a sequential pipeline
+        when(knowledgeService.getChuncksByBotId(anyInt(), anyString(), anyInt())).thenAnswer(inv -> {
+            assertTrue(historyStarted.await(2, java.util.concurrent.TimeUnit.SECONDS));
+            return List.of("knowledge1");
+        });
+        when(chatContextCacheService.getHistory(anyString(), anyLong(), any(), anyBoolean(), anyInt())).thenAnswer(inv -> {
+            historyStarted.countDown();
+            return window(new ArrayList<>(List.of(previous)));
+        });
+
+        botChatService.chatMessageBot(chatBotReqDto, sseEmitter, "sse-id", null, null);
+
+        org.mockito.ArgumentCaptor<SparkChatRequest> captor = org.mockito.ArgumentCaptor.forClass(SparkChatRequest.class);
+        verify(sparkChatService).chatStream(captor.capture(), eq(sseEmitter), eq("sse-id"), any(), eq(false), eq(false));
+        List<SparkChatRequest.MessageDto> messages = captor.getValue().getMessages();
+        assertEquals(3, messages.size());
+        assertEquals("previous question", messages.get(1).getContent());
+        assertTrue(messages.get(2).getContent().contains("knowledge1"));
+        verify(reqKnowledgeRecordsDataService, timeout(1000)).create(argThat(record -> "[knowledge1]".equals(record.getKnowledge())));
+        verify(chatContextCacheService).appendAsk("test-uid", 1L, null, "test question", "[knowledge1]");
+    }
+
+    @Test
+    void testChatMessageBot_SlowKnowledge_DegradesToEmpty() {
+        ReflectionTestUtils.setField(botChatService, "knowledgeTimeoutMs", 100L);
+        ChatBotReqDto chatBotReqDto = createChatBotReqDto();
+        SseEmitter sseEmitter = new SseEmitter();
+        ChatBotMarket chatBotMarket = createChatBotMarket();
+        chatBotMarket.setSupportDocument(1);
+
+        when(chatBotDataService.findMarketBotByBotId(anyInt())).thenReturn(chatBotMarket);
+        when(knowledgeService.getChuncksByBotId(anyInt(), anyString(), anyInt())).thenAnswer(inv -> {
+            Thread.sleep(5000);
+            return List.of("late knowledge");
+        });
+        when(chatContextCacheService.getHistory(anyString(), anyLong(), any(), anyBoolean(), anyInt())).thenReturn(ChatContextCacheService.ContextWindow.empty());
+
+        long start = System.currentTimeMillis();
+        botChatService.chatMessageBot(chatBotReqDto, sseEmitter, "sse-id", null, null);
+
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        org.mockito.ArgumentCaptor<SparkChatRequest> captor = org.mockito.ArgumentCaptor.forClass(SparkChatRequest.class);
+        verify(sparkChatService).chatStream(captor.capture(), any(), any(), any(), eq(false), eq(false));
+        assertFalse(captor.getValue().getMessages().getLast().getContent().contains("late knowledge"));
+    }
+
     @Test
     void testChatMessageBot_PromptChat_Success() {
         // Given
@@ -163,7 +243,7 @@ class BotChatServiceImplUnitTest {
         when(chatBotDataService.findMarketBotByBotId(anyInt())).thenReturn(chatBotMarket);
         when(chatDataService.createRequest(any())).thenReturn(createdRecord);
         lenient().when(knowledgeService.getChuncksByBotId(anyInt(), anyString(), anyInt())).thenReturn(knowledgeList);
-        lenient().when(chatHistoryService.getSystemBotHistory(anyString(), anyLong(), anyBoolean())).thenReturn(historyMessages);
+        lenient().when(chatContextCacheService.getHistory(anyString(), anyLong(), any(), anyBoolean(), anyInt())).thenReturn(window(historyMessages));
         when(modelService.getDetail(anyInt(), anyLong(), any())).thenReturn(new ApiResult<>(0, "success", llmInfoVo, 1L));
         lenient().when(reqKnowledgeRecordsDataService.create(any())).thenReturn(null);
         doNothing().when(promptChatService).chatStream(any(), any(), any(), any(), anyBoolean(), anyBoolean());
@@ -192,9 +272,13 @@ class BotChatServiceImplUnitTest {
         List<SparkChatRequest.MessageDto> historyMessages = new ArrayList<>();
 
         when(chatBotDataService.findMarketBotByBotId(anyInt())).thenReturn(chatBotMarket);
-        when(chatDataService.createRequest(any())).thenReturn(createdRecord);
+        when(chatDataService.createRequest(any())).thenAnswer(inv -> {
+            ChatReqRecords inserted = inv.getArgument(0);
+            inserted.setId(createdRecord.getId());
+            return inserted;
+        });
         lenient().when(knowledgeService.getChuncksByBotId(anyInt(), anyString(), anyInt())).thenReturn(knowledgeList);
-        lenient().when(chatHistoryService.getSystemBotHistory(anyString(), anyLong(), anyBoolean())).thenReturn(historyMessages);
+        lenient().when(chatContextCacheService.getHistory(anyString(), anyLong(), any(), anyBoolean(), anyInt())).thenReturn(window(historyMessages));
         when(modelService.getDetail(anyInt(), anyLong(), any())).thenReturn(new ApiResult<>(0, "success", null, 1L));
         lenient().when(reqKnowledgeRecordsDataService.create(any())).thenReturn(null);
 
@@ -204,6 +288,31 @@ class BotChatServiceImplUnitTest {
         // Then
         verify(modelService).getDetail(eq(0), eq(1L), isNull());
         verify(promptChatService, never()).chatStream(any(), any(), any(), any(), anyBoolean(), anyBoolean());
+        verify(chatDataService).deleteRequest(1L);
+    }
+
+    @Test
+    void testChatMessageBot_RequestInsertOutlivesTimeout_DeletesLateRecord() {
+        ReflectionTestUtils.setField(botChatService, "preflightTimeoutMs", 100L);
+        ChatBotReqDto chatBotReqDto = createChatBotReqDto();
+        SseEmitter sseEmitter = new SseEmitter();
+        ChatBotMarket chatBotMarket = createChatBotMarket();
+        chatBotMarket.setSupportDocument(0);
+
+        when(chatBotDataService.findMarketBotByBotId(anyInt())).thenReturn(chatBotMarket);
+        when(chatDataService.createRequest(any())).thenAnswer(inv -> {
+            Thread.sleep(300);
+            ChatReqRecords inserted = inv.getArgument(0);
+            inserted.setId(1L);
+            return inserted;
+        });
+        lenient().when(chatContextCacheService.getHistory(anyString(), anyLong(), any(), anyBoolean(), anyInt())).thenReturn(ChatContextCacheService.ContextWindow.empty());
+
+        botChatService.chatMessageBot(chatBotReqDto, sseEmitter, "sse-id", null, null);
+
+        // The turn is dropped before the insert lands, which then removes its own record
+        verify(sparkChatService, never()).chatStream(any(), any(), any(), any(), anyBoolean(), anyBoolean());
+        verify(chatDataService, timeout(2000)).deleteRequest(1L);
     }
 
     @Test
@@ -227,7 +336,7 @@ class BotChatServiceImplUnitTest {
         when(chatBotDataService.findById(anyInt())).thenReturn(Optional.of(chatBotBase));
         when(chatDataService.createRequest(any())).thenReturn(createdRecord);
         lenient().when(knowledgeService.getChuncksByBotId(anyInt(), anyString(), anyInt())).thenReturn(knowledgeList);
-        lenient().when(chatHistoryService.getSystemBotHistory(anyString(), anyLong(), anyBoolean())).thenReturn(historyMessages);
+        lenient().when(chatContextCacheService.getHistory(anyString(), anyLong(), any(), anyBoolean(), anyInt())).thenReturn(window(historyMessages));
         lenient().when(reqKnowledgeRecordsDataService.create(any())).thenReturn(null);
         doNothing().when(sparkChatService).chatStream(any(), any(), any(), any(), anyBoolean(), anyBoolean());
 
@@ -282,7 +391,7 @@ class BotChatServiceImplUnitTest {
 
         when(chatDataService.findRequestById(requestId)).thenReturn(chatReqRecords);
         when(chatBotDataService.findMarketBotByBotId(botId)).thenReturn(chatBotMarket);
-        lenient().when(chatHistoryService.getSystemBotHistory(anyString(), anyLong(), anyBoolean())).thenReturn(historyMessages);
+        lenient().when(chatContextCacheService.getHistory(anyString(), anyLong(), any(), anyBoolean(), anyInt())).thenReturn(window(historyMessages));
         lenient().when(knowledgeService.getChuncksByBotId(anyInt(), anyString(), anyInt())).thenReturn(Arrays.asList("knowledge"));
         lenient().when(reqKnowledgeRecordsDataService.create(any())).thenReturn(null);
         doNothing().when(sparkChatService).chatStream(any(), any(), any(), any(), anyBoolean(), anyBoolean());
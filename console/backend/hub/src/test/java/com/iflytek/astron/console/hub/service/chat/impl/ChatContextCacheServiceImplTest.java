@@ -0,0 +1,244 @@
+package com.iflytek.astron.console.hub.service.chat.impl;
+
+import com.iflytek.astron.console.commons.dto.chat.ChatReqModelDto;
+import com.iflytek.astron.console.commons.dto.chat.ChatRespModelDto;
+import com.iflytek.astron.console.commons.dto.llm.SparkChatRequest;
+import com.iflytek.astron.console.commons.entity.chat.ChatReqRecords;
+import com.iflytek.astron.console.commons.service.data.ChatDataService;
+import com.iflytek.astron.console.hub.data.ReqKnowledgeRecordsDataService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
+import com.iflytek.astron.console.hub.service.chat.TokenCountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RDeque;
+import org.redisson.api.RList;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.Codec;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ChatContextCacheServiceImplTest {
+
+    private static final String UID = "user-1";
+    private static final Long CHAT_ID = 100L;
+    private static final String KEY = "chat_context:user-1:100:0";
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private ChatDataService chatDataService;
+
+    @Mock
+    private ReqKnowledgeRecordsDataService reqKnowledgeRecordsDataService;
+
+    private final TokenCountService tokenCountService = new TokenCountServiceImpl();
+
+    private ChatContextCacheServiceImpl cacheService;
+
+    /**
+     * In-memory stand-in for the Redis lists
+     */
+    private final Map<String, List<String>> store = new HashMap<>();
+    private final List<Integer> fetchSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        cacheService = new ChatContextCacheServiceImpl();
+        ReflectionTestUtils.setField(cacheService, "redissonClient", redissonClient);
+        ReflectionTestUtils.setField(cacheService, "chatDataService", chatDataService);
+        ReflectionTestUtils.setField(cacheService, "reqKnowledgeRecordsDataService", reqKnowledgeRecordsDataService);
+        ReflectionTestUtils.setField(cacheService, "tokenCountService", tokenCountService);
+
+        when(redissonClient.getList(anyString(), any(Codec.class))).thenAnswer(inv -> list(inv.getArgument(0)));
+        when(redissonClient.getDeque(anyString(), any(Codec.class))).thenAnswer(inv -> deque(inv.getArgument(0)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private RList<String> list(String key) {
+        RList<String> list = mock(RList.class);
+        when(list.isExists()).thenAnswer(inv -> store.containsKey(key));
+        when(list.addAll(anyCollection())).thenAnswer(inv -> store.computeIfAbsent(key, k -> new ArrayList<>()).addAll(inv.getArgument(0)));
+        when(list.range(anyInt(), anyInt())).thenAnswer(inv -> {
+            List<String> values = store.getOrDefault(key, List.of());
+            int count = -(int) inv.getArgument(0);
+            fetchSizes.add(count);
+            return new ArrayList<>(values.subList(Math.max(0, values.size() - count), values.size()));
+        });
+        doAnswer(inv -> {
+            List<String> values = store.get(key);
+            int count = -(int) inv.getArgument(0);
+            store.put(key, new ArrayList<>(values.subList(Math.max(0, values.size() - count), values.size())));
+            return null;
+        }).when(list).trim(anyInt(), anyInt());
+        when(list.delete()).thenAnswer(inv -> store.remove(key) != null);
+        when(list.expire(any(Duration.class))).thenReturn(true);
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RDeque<String> deque(String key) {
+        RDeque<String> deque = mock(RDeque.class);
+        when(deque.addLastIfExists(any(String[].class))).thenAnswer(inv -> {
+            List<String> values = store.get(key);
+            if (values == null) {
+                return 0;
+            }
+            values.add(inv.getArgument(0));
+            return values.size();
+        });
+        return deque;
+    }
+
+    private void mockDatabase(int turns) {
+        // Newest first, as read from chat_req_records
+        List<ChatReqModelDto> reqList = new ArrayList<>();
+        List<ChatRespModelDto> respList = new ArrayList<>();
+        for (long reqId = turns; reqId >= 1; reqId--) {
+            ChatReqModelDto req = new ChatReqModelDto();
+            req.setId(reqId);
+            req.setMessage("question " + reqId);
+            reqList.add(req);
+            ChatRespModelDto resp = new ChatRespModelDto();
+            resp.setReqId(reqId);
+            resp.setMessage("answer " + reqId);
+            respList.add(resp);
+        }
+        when(chatDataService.getReqModelBotHistoryByChatId(UID, CHAT_ID)).thenReturn(reqList);
+        when(chatDataService.getChatRespModelBotHistoryByChatId(eq(UID), eq(CHAT_ID), anyList())).thenReturn(respList);
+    }
+
+    private static List<String> contents(ChatContextCacheService.ContextWindow window) {
+        return window.messages().stream().map(SparkChatRequest.MessageDto::getContent).toList();
+    }
+
+    private static ChatReqRecords request(long reqId) {
+        ChatReqRecords records = new ChatReqRecords();
+        records.setId(reqId);
+        records.setUid(UID);
+        records.setChatId(CHAT_ID);
+        return records;
+    }
+
+    @Test
+    void getHistory_miss_populatesFromDatabaseAndReturnsEarlierTurns() {
+        mockDatabase(2);
+
+        ChatContextCacheService.ContextWindow window = cacheService.getHistory(UID, CHAT_ID, 2L, false, 1000);
+
+        assertEquals(List.of("question 1", "answer 1"), contents(window));
+        assertEquals("user", window.messages().get(0).getRole());
+        assertEquals("assistant", window.messages().get(1).getRole());
+        assertEquals(tokenCountService.count("question 1") + tokenCountService.count("answer 1"), window.tokens());
+        assertEquals(4, store.get(KEY).size());
+        verify(reqKnowledgeRecordsDataService, never()).findByReqIds(any());
+    }
+
+    @Test
+    void getHistory_hit_servesAppendedTurnsWithoutDatabase() {
+        mockDatabase(1);
+        cacheService.getHistory(UID, CHAT_ID, 2L, false, 1000);
+        clearInvocations(chatDataService);
+
+        cacheService.appendAsk(UID, CHAT_ID, 2L, "question 2", null);
+        cacheService.appendAnswer(request(2L), "answer 2");
+        cacheService.appendAsk(UID, CHAT_ID, 3L, "question 3", null);
+        ChatContextCacheService.ContextWindow window = cacheService.getHistory(UID, CHAT_ID, 3L, false, 1000);
+
+        assertEquals(List.of("question 1", "answer 1", "question 2", "answer 2"), contents(window));
+        verifyNoInteractions(chatDataService);
+    }
+
+    @Test
+    void append_withoutWindow_writesNothing() {
+        cacheService.appendAsk(UID, CHAT_ID, 1L, "question 1", null);
+        cacheService.appendAnswer(request(1L), "answer 1");
+
+        assertTrue(store.isEmpty());
+    }
+
+    @Test
+    void getHistory_regeneratedAnswerReplacesEarlierOne() {
+        mockDatabase(2);
+        cacheService.getHistory(UID, CHAT_ID, 3L, false, 1000);
+
+        cacheService.appendAnswer(request(1L), "answer 1 again");
+        ChatContextCacheService.ContextWindow window = cacheService.getHistory(UID, CHAT_ID, 3L, false, 1000);
+
+        assertEquals(List.of("question 1", "answer 1 again", "question 2", "answer 2"), contents(window));
+    }
+
+    @Test
+    void getHistory_budgetKeepsNewestMessagesAndFetchesOnlyTheTail() {
+        mockDatabase(200);
+        cacheService.getHistory(UID, CHAT_ID, 201L, false, 1);
+        fetchSizes.clear();
+
+        int budget = tokenCountService.count("question 200") + tokenCountService.count("answer 200");
+        ChatContextCacheService.ContextWindow window = cacheService.getHistory(UID, CHAT_ID, 201L, false, budget);
+
+        assertEquals(List.of("question 200", "answer 200"), contents(window));
+        assertEquals(budget, window.tokens());
+        assertEquals(1, fetchSizes.size());
+        assertTrue(fetchSizes.getFirst() < 400);
+    }
+
+    @Test
+    void getHistory_growsFetchUntilBudgetOrStartOfChat() {
+        mockDatabase(50);
+        cacheService.getHistory(UID, CHAT_ID, 51L, false, 1);
+        fetchSizes.clear();
+
+        ChatContextCacheService.ContextWindow window = cacheService.getHistory(UID, CHAT_ID, 51L, false, 100_000);
+
+        assertEquals(100, window.messages().size());
+        assertEquals("question 1", window.messages().getFirst().getContent());
+        assertTrue(fetchSizes.size() > 1);
+    }
+
+    @Test
+    void invalidate_dropsBothVariantsAndNextReadReloads() {
+        mockDatabase(1);
+        cacheService.getHistory(UID, CHAT_ID, 2L, false, 1000);
+
+        cacheService.invalidate(UID, CHAT_ID);
+
+        assertTrue(store.isEmpty());
+        verify(redissonClient).getList(eq("chat_context:user-1:100:1"), any(Codec.class));
+        cacheService.getHistory(UID, CHAT_ID, 2L, false, 1000);
+        verify(chatDataService, times(2)).getReqModelBotHistoryByChatId(UID, CHAT_ID);
+    }
+
+    @Test
+    void getHistory_redisUnavailable_fallsBackToDatabase() {
+        mockDatabase(1);
+        when(redissonClient.getList(anyString(), any(Codec.class))).thenThrow(new RuntimeException("connection refused"));
+
+        ChatContextCacheService.ContextWindow window = cacheService.getHistory(UID, CHAT_ID, 2L, false, 1000);
+
+        assertEquals(List.of("question 1", "answer 1"), contents(window));
+    }
+
+    @Test
+    void append_trimsWindowToMaximumEntries() {
+        store.put(KEY, new ArrayList<>(Collections.nCopies(ChatContextCacheServiceImpl.MAX_ENTRIES, "{}")));
+
+        cacheService.appendAnswer(request(1L), "answer 1");
+
+        assertEquals(ChatContextCacheServiceImpl.MAX_ENTRIES, store.get(KEY).size());
+        assertTrue(store.get(KEY).getLast().contains("answer 1"));
+    }
+}
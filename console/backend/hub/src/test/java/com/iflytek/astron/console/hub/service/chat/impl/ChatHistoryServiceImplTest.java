@@ -9,6 +9,7 @@ import com.iflytek.astron.console.commons.service.data.ChatDataService;
 import com.iflytek.astron.console.commons.util.I18nUtil;
 import com.iflytek.astron.console.hub.data.ReqKnowledgeRecordsDataService;
 import com.iflytek.astron.console.hub.entity.ReqKnowledgeRecords;
+import com.iflytek.astron.console.hub.service.chat.TokenCountService;
 import org.apache.logging.log4j.util.Base64Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -34,6 +36,9 @@ class ChatHistoryServiceImplTest {
     @Mock
     private ReqKnowledgeRecordsDataService reqKnowledgeRecordsDataService;
 
+    @Spy
+    private TokenCountService tokenCountService = new TokenCountServiceImpl();
+
     @InjectMocks
     private ChatHistoryServiceImpl chatHistoryService;
 
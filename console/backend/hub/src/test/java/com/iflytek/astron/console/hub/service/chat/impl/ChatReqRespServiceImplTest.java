@@ -1,6 +1,7 @@
 package com.iflytek.astron.console.hub.service.chat.impl;
 
 import com.iflytek.astron.console.commons.service.data.ChatDataService;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,6 +17,9 @@ class ChatReqRespServiceImplTest {
     @Mock
     private ChatDataService chatDataService;
 
+    @Mock
+    private ChatContextCacheService chatContextCacheService;
+
     @InjectMocks
     private ChatReqRespServiceImpl chatReqRespService;
 
@@ -37,6 +41,7 @@ class ChatReqRespServiceImplTest {
 
         // Then
         verify(chatDataService).updateNewContextByUidAndChatId(uid, chatId);
+        verify(chatContextCacheService).invalidate(uid, chatId);
     }
 
     @Test
@@ -0,0 +1,141 @@
+package com.iflytek.astron.console.hub.service.chat.impl;
+
+import com.iflytek.astron.console.commons.util.StreamReplayLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StreamResumeServiceImplTest {
+
+    @Mock
+    private StreamReplayLog streamReplayLog;
+
+    @Mock
+    private SseEmitter emitter;
+
+    @InjectMocks
+    private StreamResumeServiceImpl streamResumeService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(streamResumeService, "pollIntervalMs", 10L);
+        streamResumeService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamResumeService.destroy();
+    }
+
+    @Test
+    void follow_replaysAfterLastEventIdAndCompletesOnEnd() throws Exception {
+        long now = System.currentTimeMillis();
+        when(streamReplayLog.readAfter("s1", now + "-1", 256)).thenReturn(List.of(
+                new StreamReplayLog.Entry(now + "-2", "data", "{\"a\":2}"),
+                new StreamReplayLog.Entry(now + "-3", "end", "{}")));
+
+        streamResumeService.follow("s1", now + "-1", emitter);
+
+        verify(emitter, timeout(2000).times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        Thread.sleep(50);
+        List<String> sent = sentEvents(2);
+        assertTrue(sent.get(0).contains("id:" + now + "-2\n"));
+        assertTrue(sent.get(0).contains("data:{\"a\":2}"));
+        assertTrue(sent.get(1).contains("event:end\n"));
+        verify(streamReplayLog, times(1)).readAfter(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void follow_pollsLiveStreamWithoutDuplicates() throws Exception {
+        long now = System.currentTimeMillis();
+        String firstId = now + "-0";
+        when(streamReplayLog.readAfter("s1", null, 256)).thenReturn(List.of(new StreamReplayLog.Entry(firstId, "data", "{\"a\":1}")));
+        when(streamReplayLog.readAfter("s1", firstId, 256)).thenReturn(List.of(), List.of(),
+                List.of(new StreamReplayLog.Entry(now + "-1", "end", "{}")));
+
+        streamResumeService.follow("s1", null, emitter);
+
+        verify(emitter, timeout(2000).times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        Thread.sleep(50);
+        sentEvents(2);
+        verify(streamReplayLog, times(1)).readAfter("s1", null, 256);
+        verify(streamReplayLog, times(3)).readAfter("s1", firstId, 256);
+    }
+
+    @Test
+    void follow_closesStreamThatStalledMidGeneration() throws Exception {
+        ReflectionTestUtils.setField(streamResumeService, "stallTimeoutSeconds", 1L);
+        long stalledAt = System.currentTimeMillis() - 60_000;
+        when(streamReplayLog.readAfter("s1", null, 256)).thenReturn(List.of(
+                new StreamReplayLog.Entry(stalledAt + "-0", "data", "{\"a\":1}"),
+                new StreamReplayLog.Entry(stalledAt + "-1", "data", "{\"a\":2}")));
+
+        streamResumeService.follow("s1", null, emitter);
+
+        verify(emitter, timeout(2000).times(4)).send(any(SseEmitter.SseEventBuilder.class));
+        List<String> sent = sentEvents(4);
+        assertTrue(sent.get(1).contains("data:{\"a\":2}"));
+        assertTrue(sent.get(2).contains("event:complete\n"));
+        assertTrue(sent.get(2).contains("\"interrupted\":true"));
+        assertTrue(sent.get(3).contains("event:end\n"));
+    }
+
+    @Test
+    void follow_stopsWhenClientLeaves() throws Exception {
+        long now = System.currentTimeMillis();
+        when(streamReplayLog.readAfter("s1", null, 256)).thenReturn(List.of(new StreamReplayLog.Entry(now + "-0", "data", "{}")));
+        doThrow(new IOException("broken pipe")).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+        streamResumeService.follow("s1", null, emitter);
+
+        verify(emitter, timeout(2000).times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        Thread.sleep(50);
+        verify(streamReplayLog, times(1)).readAfter(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void resume_rejectsStreamOfAnotherUser() {
+        when(streamReplayLog.ownerOf("s1")).thenReturn("u2");
+
+        SseEmitter resumed = streamResumeService.resume("s1", null, "u1");
+
+        assertNotNull(resumed);
+        verify(streamReplayLog, never()).readAfter(anyString(), any(), anyInt());
+    }
+
+    @Test
+    void resume_rejectsExpiredStream() {
+        when(streamReplayLog.ownerOf("s1")).thenReturn(null);
+
+        streamResumeService.resume("s1", "1-0", "u1");
+
+        verify(streamReplayLog, never()).readAfter(anyString(), any(), anyInt());
+    }
+
+    private List<String> sentEvents(int count) throws IOException {
+        ArgumentCaptor<SseEmitter.SseEventBuilder> events = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, times(count)).send(events.capture());
+        return events.getAllValues().stream()
+                .map(event -> event.build().stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining()))
+                .toList();
+    }
+}
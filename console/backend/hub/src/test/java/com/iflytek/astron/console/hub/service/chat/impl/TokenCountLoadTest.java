@@ -0,0 +1,215 @@
+package com.iflytek.astron.console.hub.service.chat.impl;
+
+import com.iflytek.astron.console.commons.dto.llm.SparkChatRequest;
+import com.iflytek.astron.console.hub.service.chat.ChatContextCacheService;
+import com.iflytek.astron.console.hub.util.tokenizer.HeuristicTokenizer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CPU time and heap allocated fitting an 8k-token chat history into the model budget on every turn: the
+ * truncation as it was, estimating each message by character class, prepending kept messages with
+ * addFirst and estimating the kept list again for the total, against the cached context window, whose
+ * entries carry the BPE count taken once when appended, cut by {@link ChatContextCacheService.ContextWindow#fit}.
+ * Each turn adds a question and an answer, so only those two are counted.
+ */
+@Slf4j
+class TokenCountLoadTest {
+
+    private static final int BUDGET = 8_000;
+    /** Messages handed to truncation each turn, more than fit into the budget */
+    private static final int HISTORY = 80;
+    private static final int WARMUP_TURNS = 500;
+    private static final int TURNS = 2_000;
+
+    private static final String[] WORDS = {"the", "model", "answer", "question", "history", "token", "budget", "chat",
+            "workflow", "knowledge", "search", "result", "user", "assistant", "context", "window", "message", "count",
+            "prompt", "system", "request", "response", "stream", "cache", "memory", "vector", "document", "page",
+            "了解", "知识", "模型", "回答", "问题", "历史", "上下文", "工作流"};
+
+    @TempDir
+    Path tempDir;
+
+    private final HeuristicTokenizer estimate = new HeuristicTokenizer();
+    private final Random random = new Random(7);
+    private int turn;
+
+    /** Keeps the JIT from dropping the results */
+    private long sink;
+
+    @Test
+    void countedWindowFit_isNotSlowerThanEstimateAndAddFirst() throws IOException {
+        TokenCountServiceImpl tokenCountService = new TokenCountServiceImpl();
+        ReflectionTestUtils.setField(tokenCountService, "vocabPath", vocab().toString());
+        tokenCountService.init();
+
+        List<SparkChatRequest.MessageDto> history = new ArrayList<>();
+        for (int i = 0; i < HISTORY; i++) {
+            history.add(message());
+        }
+        int historyTokens = history.stream().mapToInt(message -> tokenCountService.count(message.getContent())).sum();
+        assertTrue(historyTokens > BUDGET, "history of " + historyTokens + " tokens does not exceed the budget");
+
+        Window window = new Window(tokenCountService, history);
+        for (int i = 0; i < WARMUP_TURNS; i++) {
+            nextTurn(history);
+            sink += truncateEstimated(history).size();
+            sink += window.next(history).tokens();
+        }
+
+        // Both paths see the same sequence of turns, each read afresh as history loaded from the database is
+        List<List<SparkChatRequest.MessageDto>> turns = new ArrayList<>(TURNS);
+        for (int i = 0; i < TURNS; i++) {
+            nextTurn(history);
+            turns.add(history.stream().map(TokenCountLoadTest::reread).toList());
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long cpu = threads.getCurrentThreadCpuTime();
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        for (List<SparkChatRequest.MessageDto> messages : turns) {
+            sink += truncateEstimated(messages).size();
+        }
+        long estimatedCpu = threads.getCurrentThreadCpuTime() - cpu;
+        long estimatedAllocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+        cpu = threads.getCurrentThreadCpuTime();
+        allocated = threads.getCurrentThreadAllocatedBytes();
+        for (List<SparkChatRequest.MessageDto> messages : turns) {
+            sink += window.next(messages).tokens();
+        }
+        long countedCpu = threads.getCurrentThreadCpuTime() - cpu;
+        long countedAllocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+        log.info("Per {}-token history: estimate and addFirst {} ns, {} bytes; BPE of the turn and fit {} ns, {} bytes",
+                BUDGET, estimatedCpu / TURNS, estimatedAllocated / TURNS, countedCpu / TURNS, countedAllocated / TURNS);
+        assertTrue(sink != 0);
+        assertTrue(countedCpu <= estimatedCpu,
+                "BPE of the turn and fit took " + countedCpu + " ns CPU, estimate and addFirst " + estimatedCpu);
+    }
+
+    /**
+     * The truncation before counts were memoized
+     */
+    private List<SparkChatRequest.MessageDto> truncateEstimated(List<SparkChatRequest.MessageDto> historyMessages) {
+        List<SparkChatRequest.MessageDto> result = new ArrayList<>();
+        int currentTokens = 0;
+        for (int i = historyMessages.size() - 1; i >= 0; i--) {
+            SparkChatRequest.MessageDto message = historyMessages.get(i);
+            int messageTokens = estimate.count(message.getContent());
+            if (currentTokens + messageTokens > BUDGET) {
+                break;
+            }
+            currentTokens += messageTokens;
+            result.addFirst(message);
+        }
+        // The total was estimated again over the kept messages
+        sink += result.stream().mapToInt(message -> estimate.count(message.getContent())).sum();
+        return result;
+    }
+
+    /**
+     * The cached window of a chat: messages with the counts stored when they were appended
+     */
+    private static final class Window {
+
+        private final TokenCountServiceImpl tokenCountService;
+        private final List<SparkChatRequest.MessageDto> messages = new ArrayList<>();
+        private final List<Integer> messageTokens = new ArrayList<>();
+
+        Window(TokenCountServiceImpl tokenCountService, List<SparkChatRequest.MessageDto> history) {
+            this.tokenCountService = tokenCountService;
+            history.forEach(this::append);
+        }
+
+        /**
+         * Append the question and answer of a turn, as appendAsk and appendAnswer do, and fit the window
+         */
+        ChatContextCacheService.ContextWindow next(List<SparkChatRequest.MessageDto> history) {
+            messages.removeFirst();
+            messages.removeFirst();
+            messageTokens.removeFirst();
+            messageTokens.removeFirst();
+            append(history.get(history.size() - 2));
+            append(history.getLast());
+            return new ChatContextCacheService.ContextWindow(messages, messageTokens).fit(BUDGET);
+        }
+
+        private void append(SparkChatRequest.MessageDto message) {
+            messages.add(message);
+            messageTokens.add(tokenCountService.count(message.getContent()));
+        }
+    }
+
+    private static SparkChatRequest.MessageDto reread(SparkChatRequest.MessageDto message) {
+        SparkChatRequest.MessageDto copy = new SparkChatRequest.MessageDto();
+        copy.setRole(message.getRole());
+        copy.setContent(new String(message.getContent().toCharArray()));
+        return copy;
+    }
+
+    /**
+     * A question and its answer join the history, the oldest pair leaves it
+     */
+    private void nextTurn(List<SparkChatRequest.MessageDto> history) {
+        history.removeFirst();
+        history.removeFirst();
+        history.add(message());
+        history.add(message());
+        turn++;
+    }
+
+    /**
+     * About 150 words, most of them single tokens as common words are in a real vocabulary
+     */
+    private SparkChatRequest.MessageDto message() {
+        StringBuilder content = new StringBuilder("Turn ").append(turn).append(':');
+        for (int i = 0; i < 150; i++) {
+            content.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextInt(12) == 0) {
+                content.append(random.nextInt(1000)).append('.');
+            }
+        }
+        SparkChatRequest.MessageDto message = new SparkChatRequest.MessageDto();
+        message.setRole(turn % 2 == 0 ? "user" : "assistant");
+        message.setContent(content.toString());
+        return message;
+    }
+
+    /**
+     * Every byte, then each word alone and after a space, then the prefixes the merges build them from
+     */
+    private Path vocab() throws IOException {
+        LinkedHashSet<String> tokens = new LinkedHashSet<>();
+        for (int b = 0; b < 256; b++) {
+            tokens.add(String.valueOf((char) b));
+        }
+        for (String word : WORDS) {
+            for (String piece : List.of(word, " " + word)) {
+                String bytes = new String(piece.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+                for (int end = 2; end <= bytes.length(); end++) {
+                    tokens.add(bytes.substring(0, end));
+                }
+            }
+        }
+        StringBuilder file = new StringBuilder();
+        int rank = 0;
+        for (String token : tokens) {
+            file.append(Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.ISO_8859_1))).append(' ').append(rank++).append('\n');
+        }
+        Path path = tempDir.resolve("load.tiktoken");
+        Files.writeString(path, file.toString());
+        return path;
+    }
+}
@@ -0,0 +1,94 @@
+package com.iflytek.astron.console.hub.service.chat.impl;
+
+import com.iflytek.astron.console.hub.util.tokenizer.Tokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TokenCountServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TokenCountServiceImpl tokenCountService;
+
+    @BeforeEach
+    void setUp() {
+        tokenCountService = new TokenCountServiceImpl();
+    }
+
+    private Path vocab(List<String> tokens) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int rank = 0; rank < tokens.size(); rank++) {
+            builder.append(Base64.getEncoder().encodeToString(tokens.get(rank).getBytes(StandardCharsets.UTF_8)))
+                    .append(' ').append(rank).append('\n');
+        }
+        Path file = tempDir.resolve("test.tiktoken");
+        Files.writeString(file, builder.toString());
+        return file;
+    }
+
+    private void useVocab(Path file) {
+        ReflectionTestUtils.setField(tokenCountService, "vocabPath", file.toString());
+        tokenCountService.init();
+    }
+
+    @Test
+    void count_withoutVocab_usesCharacterClassEstimate() {
+        tokenCountService.init();
+
+        assertEquals(0, tokenCountService.count(null));
+        assertEquals(0, tokenCountService.count("  "));
+        assertEquals(3, tokenCountService.count("你好"));
+        assertEquals(6, tokenCountService.count("hello"));
+        assertEquals(1, tokenCountService.count("..."));
+    }
+
+    @Test
+    void count_withVocab_mergesPiecesByRank() throws IOException {
+        useVocab(vocab(List.of("a", "b", "c", " ", "ab", "abc", " abc")));
+
+        // "abc" and " abc" are whole vocabulary entries
+        assertEquals(2, tokenCountService.count("abc abc"));
+        // a b c a b -> ab c ab -> abc ab
+        assertEquals(2, tokenCountService.count("abcab"));
+        // Bytes outside the vocabulary stay single tokens, three per CJK character
+        assertEquals(6, tokenCountService.count("你好"));
+    }
+
+    @Test
+    void init_unreadableVocab_fallsBackToEstimate() {
+        useVocab(tempDir.resolve("missing.tiktoken"));
+
+        assertEquals(6, tokenCountService.count("hello"));
+    }
+
+    @Test
+    void count_memoizesLongTextsByContent() {
+        Tokenizer tokenizer = mock(Tokenizer.class);
+        when(tokenizer.count(anyString())).thenReturn(42);
+        ReflectionTestUtils.setField(tokenCountService, "tokenizer", tokenizer);
+        String longText = "history ".repeat(TokenCountServiceImpl.MIN_CACHED_LENGTH);
+        String shortText = "hi";
+
+        assertEquals(42, tokenCountService.count(longText));
+        assertEquals(42, tokenCountService.count(new String(longText)));
+        tokenCountService.count(shortText);
+        tokenCountService.count(shortText);
+
+        verify(tokenizer, times(1)).count(longText);
+        verify(tokenizer, times(2)).count(shortText);
+    }
+}
@@ -0,0 +1,186 @@
+package com.iflytek.astron.console.hub.service.notification.impl;
+
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.hub.data.NotificationDataService;
+import com.iflytek.astron.console.hub.entity.notification.Notification;
+import com.iflytek.astron.console.hub.enums.NotificationType;
+import com.iflytek.astron.console.hub.event.NotificationCountsChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class NotificationPushServiceImplTest {
+
+    @Mock
+    private RedissonClient redissonClient;
+    @Mock
+    private RTopic topic;
+    @Mock
+    private NotificationDataService notificationDataService;
+
+    private final Map<SseEmitter, List<String>> sent = new HashMap<>();
+    private final Set<SseEmitter> broken = new HashSet<>();
+    private NotificationPushServiceImpl service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redissonClient.getTopic(RedisKeyConstant.NOTIFICATION_PUSH_TOPIC)).thenReturn(topic);
+        ArgumentCaptor<MessageListener<String>> listener = ArgumentCaptor.forClass(MessageListener.class);
+        when(topic.addListener(eq(String.class), listener.capture())).thenReturn(1);
+        // Redis hands every message back to the subscribed nodes, this one included
+        when(topic.publish(any())).thenAnswer(invocation -> {
+            listener.getValue().onMessage(RedisKeyConstant.NOTIFICATION_PUSH_TOPIC, invocation.getArgument(0));
+            return 1L;
+        });
+        when(notificationDataService.countUserUnreadNotifications(anyString())).thenReturn(3L);
+
+        service = new NotificationPushServiceImpl() {
+            @Override
+            SseEmitter createEmitter() {
+                SseEmitter emitter = new SseEmitter() {
+                    @Override
+                    public void send(SseEventBuilder event) throws IOException {
+                        if (broken.contains(this)) {
+                            throw new IOException("Broken pipe");
+                        }
+                        sent.get(this).add(event.build().stream().map(part -> String.valueOf(part.getData())).collect(Collectors.joining()));
+                    }
+                };
+                sent.put(emitter, new ArrayList<>());
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(service, "redissonClient", redissonClient);
+        ReflectionTestUtils.setField(service, "notificationDataService", notificationDataService);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void subscribe_startsWithUnreadCount() {
+        SseEmitter emitter = service.subscribe("u1");
+
+        assertThat(sent.get(emitter)).singleElement().asString().contains("event:unread").contains("unreadCount=3");
+        assertThat(service.connectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void pushNotification_reachesReceiversOnly() {
+        SseEmitter first = service.subscribe("u1");
+        SseEmitter second = service.subscribe("u1");
+        SseEmitter other = service.subscribe("u2");
+
+        service.pushNotification(notification(NotificationType.PERSONAL), List.of("u1", "u3"));
+
+        for (SseEmitter emitter : List.of(first, second)) {
+            assertThat(sent.get(emitter)).hasSize(3);
+            assertThat(sent.get(emitter).get(1)).contains("event:notification").contains("title=Hello").contains("type=PERSONAL");
+            assertThat(sent.get(emitter).get(2)).contains("event:unread");
+        }
+        assertThat(sent.get(other)).hasSize(1);
+        verify(topic).publish(anyString());
+    }
+
+    @Test
+    void pushBroadcast_reachesEveryConnectedUser() {
+        SseEmitter first = service.subscribe("u1");
+        SseEmitter second = service.subscribe("u2");
+
+        service.pushNotification(notification(NotificationType.BROADCAST), null);
+
+        assertThat(sent.get(first)).hasSize(3);
+        assertThat(sent.get(second)).hasSize(3);
+    }
+
+    @Test
+    void push_waitsForCommit() {
+        SseEmitter emitter = service.subscribe("u1");
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.pushUnreadCount(List.of("u1"));
+        verify(topic, never()).publish(any());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(sent.get(emitter)).hasSize(2);
+    }
+
+    @Test
+    void countsChangedEvent_pushesUnreadCount() {
+        SseEmitter emitter = service.subscribe("u1");
+
+        service.onCountsChanged(new NotificationCountsChangedEvent(this, Set.of("u1", "u2")));
+
+        assertThat(sent.get(emitter)).hasSize(2);
+    }
+
+    @Test
+    void publishFailure_stillDeliversOnThisNode() {
+        SseEmitter emitter = service.subscribe("u1");
+        doThrow(new RedisConnectionFailureException("down")).when(topic).publish(any());
+
+        service.pushUnreadCount(List.of("u1"));
+
+        assertThat(sent.get(emitter)).hasSize(2);
+    }
+
+    @Test
+    void brokenStream_isDropped() {
+        SseEmitter emitter = service.subscribe("u1");
+        broken.add(emitter);
+
+        service.keepAlive();
+
+        assertThat(service.connectionCount()).isZero();
+    }
+
+    @Test
+    void onPush_skipsMalformedMessage() {
+        service.subscribe("u1");
+
+        service.onPush("not json");
+
+        verify(notificationDataService, times(1)).countUserUnreadNotifications("u1");
+    }
+
+    private static Notification notification(NotificationType type) {
+        Notification notification = new Notification();
+        notification.setId(5L);
+        notification.setType(type.getCode());
+        notification.setTitle("Hello");
+        return notification;
+    }
+}
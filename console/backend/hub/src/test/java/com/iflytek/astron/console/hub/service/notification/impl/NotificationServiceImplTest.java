@@ -4,7 +4,9 @@ import com.iflytek.astron.console.commons.constant.ResponseEnum;
 import com.iflytek.astron.console.commons.exception.BusinessException;
 import com.iflytek.astron.console.hub.data.NotificationDataService;
 import com.iflytek.astron.console.hub.dto.notification.*;
+import com.iflytek.astron.console.hub.entity.notification.Notification;
 import com.iflytek.astron.console.hub.enums.NotificationType;
+import com.iflytek.astron.console.hub.service.notification.NotificationPushService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,6 +31,9 @@ class NotificationServiceImplTest {
     @Mock
     private NotificationDataService notificationDataService;
 
+    @Mock
+    private NotificationPushService notificationPushService;
+
     @InjectMocks
     private NotificationServiceImpl notificationService;
 
@@ -174,6 +179,27 @@ class NotificationServiceImplTest {
 
         assertTrue(result);
         verify(notificationDataService).deleteUserNotification(receiverUid, notificationId);
+        verify(notificationPushService).pushUnreadCount(List.of(receiverUid));
+    }
+
+    @Test
+    void testSendNotification_PushesToReceivers() {
+        SendNotificationRequest request = new SendNotificationRequest();
+        request.setType(NotificationType.PERSONAL);
+        request.setTitle("Personal message");
+        request.setReceiverUids(List.of("user1", "user2"));
+        when(notificationDataService.createNotification(any())).thenAnswer(invocation -> {
+            Notification notification = invocation.getArgument(0);
+            notification.setId(7L);
+            return notification;
+        });
+
+        Long notificationId = notificationService.sendNotification(request);
+
+        assertEquals(7L, notificationId);
+        verify(notificationDataService).batchCreateUserNotifications(argThat(rows -> rows.size() == 2));
+        verify(notificationPushService).pushNotification(argThat(notification -> notification.getId() == 7L),
+                eq(List.of("user1", "user2")));
     }
 
     @Test
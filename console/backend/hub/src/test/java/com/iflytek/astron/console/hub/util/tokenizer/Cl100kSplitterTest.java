@@ -0,0 +1,65 @@
+package com.iflytek.astron.console.hub.util.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Cl100kSplitterTest {
+
+    private static final Pattern CL100K = Pattern.compile(BpeTokenizer.CL100K_PATTERN, Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * Letters, contraction letters in both cases and their Unicode case folds, numbers of each kind,
+     * whitespace of each kind, symbols, a supplementary char and a lone surrogate
+     */
+    private static final String[] ALPHABET = {"a", "s", "S", "t", "d", "m", "l", "L", "v", "e", "E", "r", "ſ",
+            "K", "中", "文", "é", "1", "9", "٣", "Ⅻ", "½", "'", ".", ",", "!", "(", "-", "$", "😀", "\ud800",
+            " ", " ", "  ", "\t", "\n", "\r", "\r\n", " ", " ", "\u0085", "\u000b", "　"};
+
+    @Test
+    void end_splitsLikeThePattern() {
+        for (String text : List.of("", "Hello world", "I'm here, they'll see", "don'T  stop\n\n  now ",
+                "x = 12345;\r\n\tif (y) {}", "你好，世界！ 123", "  leading", "trailing  ", "'", "'ll", "a  \n b")) {
+            assertEquals(regexPieces(text), splitterPieces(text), text);
+        }
+    }
+
+    @Test
+    void end_splitsRandomTextLikeThePattern() {
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int i = 0; i < length; i++) {
+                text.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            String value = text.toString();
+            assertEquals(regexPieces(value), splitterPieces(value), () -> value.codePoints()
+                    .mapToObj(cp -> String.format("U+%04X", cp)).toList().toString());
+        }
+    }
+
+    private static List<String> regexPieces(String text) {
+        List<String> pieces = new ArrayList<>();
+        Matcher matcher = CL100K.matcher(text);
+        while (matcher.find()) {
+            pieces.add(matcher.group());
+        }
+        return pieces;
+    }
+
+    private static List<String> splitterPieces(String text) {
+        List<String> pieces = new ArrayList<>();
+        for (int start = 0, end; start < text.length(); start = end) {
+            end = Cl100kSplitter.end(text, start);
+            pieces.add(text.substring(start, end));
+        }
+        return pieces;
+    }
+}
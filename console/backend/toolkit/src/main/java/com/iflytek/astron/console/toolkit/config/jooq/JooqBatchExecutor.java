@@ -1,10 +1,16 @@
 package com.iflytek.astron.console.toolkit.config.jooq;
 
+import lombok.extern.slf4j.Slf4j;
 import org.jooq.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.function.Function;
 
+@Slf4j
 public class JooqBatchExecutor {
 
     public static class RowError {
@@ -23,57 +29,153 @@ public class JooqBatchExecutor {
         public int success;
         public int failed;
         public final List<RowError> errors = new ArrayList<>();
+
+        /**
+         * Add the counts and errors of a later part of the same import
+         */
+        public void add(ResultSummary other) {
+            success += other.success;
+            failed += other.failed;
+            errors.addAll(other.errors);
+        }
     }
 
     /**
-     * Execute in chunks. Each row independently builds a Query; failures do not block; limited retries
-     * for retryable exceptions.
+     * Execute in chunks with one statement per chunk, e.g. a multi-row INSERT. A chunk whose statement
+     * is rejected is executed again row by row, so only the rows that really fail are counted and
+     * reported. A chunk whose outcome is unknown, e.g. after a timeout, may have been written and is not
+     * replayed: all its rows are reported as failed. With a parallelism above 1 and an executor, up to
+     * that many chunks are sent at once.
+     *
+     * @param rows rows to write
+     * @param offset index of the first row in the whole import, used in the reported errors
+     * @param chunkSize rows per statement
+     * @param maxRetries retries of a statement for retryable exceptions
+     * @param parallelism chunks sent at once
+     * @param executor runs the chunks when sent in parallel; null sends them one after another
+     * @param chunkBuilder builds the statement of a chunk
+     * @param rowBuilder builds the statement of a single row, used when a chunk fails
+     * @param sender sends a statement
+     * @return success/failure summary over all rows
      */
-    // JooqBatchExecutor.java
-    public static ResultSummary executeInChunks(
-            DSLContext dsl,
-            String tableName,
+    public static ResultSummary executeInBatches(
             List<Map<String, Object>> rows,
+            int offset,
             int chunkSize,
             int maxRetries,
-            Function<Map<String, Object>, Query> builder,
-            SqlSender sender // New: Delegate "how to execute SQL" to the caller
-    ) {
+            int parallelism,
+            Executor executor,
+            Function<List<Map<String, Object>>, Query> chunkBuilder,
+            Function<Map<String, Object>, Query> rowBuilder,
+            SqlSender sender) {
         ResultSummary sum = new ResultSummary();
         if (rows == null || rows.isEmpty())
             return sum;
 
-        for (int start = 0; start < rows.size(); start += chunkSize) {
-            int end = Math.min(start + chunkSize, rows.size());
-            List<Map<String, Object>> part = rows.subList(start, end);
-
-            for (int i = 0; i < part.size(); i++) {
-                Map<String, Object> row = part.get(i);
-                int globalIdx = start + i;
-                int attempts = 0;
-                while (true) {
-                    try {
-                        Query q = builder.apply(row);
-                        // No longer q.execute(), but render template + parameters
-                        String sql = q.getSQL(); // Template with ?
-                        List<Object> params = q.getBindValues(); // Bind parameters
-                        // Send to core system
-                        sender.send(sql, params);
-                        sum.success++;
-                        break;
-                    } catch (Throwable ex) {
-                        attempts++;
-                        if (attempts <= maxRetries && JooqRetry.isRetryable(ex)) {
-                            JooqRetry.sleepBackoff(attempts, 50, 1000);
-                            continue;
+        int chunks = (rows.size() + chunkSize - 1) / chunkSize;
+        ResultSummary[] parts = new ResultSummary[chunks];
+        if (parallelism <= 1 || executor == null || chunks == 1) {
+            for (int c = 0; c < chunks; c++) {
+                parts[c] = executeChunk(rows, offset, c, chunkSize, maxRetries, chunkBuilder, rowBuilder, sender);
+            }
+        } else {
+            Semaphore permits = new Semaphore(parallelism);
+            List<CompletableFuture<Void>> futures = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                int chunk = c;
+                permits.acquireUninterruptibly();
+                try {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            parts[chunk] = executeChunk(rows, offset, chunk, chunkSize, maxRetries, chunkBuilder, rowBuilder, sender);
+                        } finally {
+                            permits.release();
                         }
-                        sum.failed++;
-                        sum.errors.add(new RowError(globalIdx, row, JooqRetry.unwrap(ex).getMessage()));
-                        break;
-                    }
+                    }, executor));
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    parts[chunk] = executeChunk(rows, offset, chunk, chunkSize, maxRetries, chunkBuilder, rowBuilder, sender);
                 }
             }
+            futures.forEach(CompletableFuture::join);
+        }
+        // Merge in chunk order so that the errors stay sorted by row
+        for (ResultSummary part : parts) {
+            sum.add(part);
         }
         return sum;
     }
+
+    private static ResultSummary executeChunk(
+            List<Map<String, Object>> rows,
+            int offset,
+            int chunk,
+            int chunkSize,
+            int maxRetries,
+            Function<List<Map<String, Object>>, Query> chunkBuilder,
+            Function<Map<String, Object>, Query> rowBuilder,
+            SqlSender sender) {
+        int start = chunk * chunkSize;
+        List<Map<String, Object>> part = rows.subList(start, Math.min(start + chunkSize, rows.size()));
+        ResultSummary sum = new ResultSummary();
+        try {
+            send(chunkBuilder.apply(part), maxRetries, sender);
+            sum.success += part.size();
+        } catch (Throwable ex) {
+            String message = JooqRetry.unwrap(ex).getMessage();
+            if (JooqRetry.isRejected(ex)) {
+                // The statement is atomic, so none of its rows were written; find the failing ones
+                log.warn("Chunk of {} rows from #{} failed, executing row by row: {}", part.size(), offset + start, message);
+                executeRows(part, offset + start, maxRetries, rowBuilder, sender, sum);
+            } else {
+                // The rows may have been written: replaying them could insert them twice
+                log.warn("Chunk of {} rows from #{} has an unknown outcome, not replayed: {}", part.size(), offset + start, message);
+                for (int i = 0; i < part.size(); i++) {
+                    sum.failed++;
+                    sum.errors.add(new RowError(offset + start + i, part.get(i), "Outcome unknown, check before importing again: " + message));
+                }
+            }
+        }
+        return sum;
+    }
+
+    private static void executeRows(
+            List<Map<String, Object>> part,
+            int start,
+            int maxRetries,
+            Function<Map<String, Object>, Query> builder,
+            SqlSender sender,
+            ResultSummary sum) {
+        for (int i = 0; i < part.size(); i++) {
+            Map<String, Object> row = part.get(i);
+            try {
+                send(builder.apply(row), maxRetries, sender);
+                sum.success++;
+            } catch (Throwable ex) {
+                sum.failed++;
+                sum.errors.add(new RowError(start + i, row, JooqRetry.unwrap(ex).getMessage()));
+            }
+        }
+    }
+
+    private static void send(Query q, int maxRetries, SqlSender sender) throws Exception {
+        int attempts = 0;
+        while (true) {
+            try {
+                // No longer q.execute(), but render template + parameters
+                String sql = q.getSQL(); // Template with ?
+                List<Object> params = q.getBindValues(); // Bind parameters
+                // Send to core system
+                sender.send(sql, params);
+                return;
+            } catch (Exception ex) {
+                attempts++;
+                if (attempts <= maxRetries && JooqRetry.isRetryable(ex)) {
+                    JooqRetry.sleepBackoff(attempts, 50, 1000);
+                    continue;
+                }
+                throw ex;
+            }
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package com.iflytek.astron.console.toolkit.config.jooq;
 
+import com.iflytek.astron.console.commons.exception.BusinessException;
+
 import java.sql.SQLException;
 import java.util.*;
 
@@ -18,6 +20,15 @@ public class JooqRetry {
         return false;
     }
 
+    /**
+     * Whether the statement was answered with a failure, by the database or by core, and so was not
+     * applied. A timeout or broken connection leaves its outcome unknown.
+     */
+    public static boolean isRejected(Throwable t) {
+        Throwable root = unwrap(t);
+        return root instanceof SQLException || root instanceof BusinessException;
+    }
+
     public static Throwable unwrap(Throwable t) {
         Throwable cur = t;
         while (cur.getCause() != null && cur.getCause() != cur)
@@ -0,0 +1,21 @@
+package com.iflytek.astron.console.toolkit.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "knowledge.job")
+public class KnowledgeJobProperties {
+    /** Slicing/embedding tasks run at once on this node */
+    private int workers = 4;
+    /** How often pending tasks are looked for when nothing wakes the engine */
+    private Duration pollInterval = Duration.ofSeconds(3);
+    /** A task whose lease is not renewed within this time is taken over by another node */
+    private Duration leaseTtl = Duration.ofMinutes(2);
+    /** Claims after which a task that keeps failing or crashing its node is marked failed */
+    private int maxAttempts = 3;
+    private String threadNamePrefix = "knowledge-job-";
+    private int awaitTerminationSeconds = 30;
+}
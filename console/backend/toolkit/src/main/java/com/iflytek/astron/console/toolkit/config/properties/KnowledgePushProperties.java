@@ -0,0 +1,31 @@
+package com.iflytek.astron.console.toolkit.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "knowledge.push")
+public class KnowledgePushProperties {
+    /** Chunk batches pushed at once on this node, across all documents and backends */
+    private int concurrency = 6;
+    /** Push requests per second to a backend without an entry in rates */
+    private double defaultRate = 10;
+    /** Push requests per second by backend, keyed by file source (AIUI-RAG2, CBG-RAG, ...) */
+    private Map<String, Double> rates = new HashMap<>();
+    /** Chunks in the first batch sent to a backend */
+    private int initialBatchSize = 200;
+    private int minBatchSize = 20;
+    private int maxBatchSize = 200;
+    /** Batches slower than this make the next batches of the backend smaller */
+    private Duration targetLatency = Duration.ofSeconds(10);
+    /** Attempts of a failing batch, including the first */
+    private int maxAttempts = 3;
+    /** Wait before the first retry of a batch; doubles with each further retry */
+    private Duration retryBackoff = Duration.ofSeconds(1);
+    private String threadNamePrefix = "knowledge-push-";
+    private int awaitTerminationSeconds = 30;
+}
@@ -0,0 +1,37 @@
+package com.iflytek.astron.console.toolkit.config.thread;
+
+import com.iflytek.astron.console.toolkit.config.properties.KnowledgeJobProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Knowledge job pool (fixed size) runs the slicing and embedding tasks claimed by this node
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(KnowledgeJobProperties.class)
+@RequiredArgsConstructor
+public class KnowledgeJobExecutorConfig {
+
+    private final KnowledgeJobProperties props;
+
+    @Bean(name = "knowledgeJobExecutor")
+    public ThreadPoolTaskExecutor knowledgeJobExecutor() {
+        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+        exec.setCorePoolSize(props.getWorkers());
+        exec.setMaxPoolSize(props.getWorkers());
+        // The engine never hands out more tasks than workers; the queue only covers a worker that has
+        // finished its task but not yet returned to the pool
+        exec.setQueueCapacity(props.getWorkers());
+        exec.setThreadNamePrefix(props.getThreadNamePrefix());
+        exec.setAwaitTerminationSeconds(props.getAwaitTerminationSeconds());
+        exec.setWaitForTasksToCompleteOnShutdown(true);
+        exec.initialize();
+        log.info("[knowledge-job] init: workers={}, prefix={}", props.getWorkers(), props.getThreadNamePrefix());
+        return exec;
+    }
+}
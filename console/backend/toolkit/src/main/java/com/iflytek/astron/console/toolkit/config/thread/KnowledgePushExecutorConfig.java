@@ -0,0 +1,37 @@
+package com.iflytek.astron.console.toolkit.config.thread;
+
+import com.iflytek.astron.console.toolkit.config.properties.KnowledgePushProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Knowledge push pool (fixed size) sends chunk batches of all documents to the knowledge backends
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(KnowledgePushProperties.class)
+@RequiredArgsConstructor
+public class KnowledgePushExecutorConfig {
+
+    private final KnowledgePushProperties props;
+
+    @Bean(name = "knowledgePushExecutor")
+    public ThreadPoolTaskExecutor knowledgePushExecutor() {
+        ThreadPoolTaskExecutor exec = new ThreadPoolTaskExecutor();
+        exec.setCorePoolSize(props.getConcurrency());
+        exec.setMaxPoolSize(props.getConcurrency());
+        // The scheduler never submits more batches than the concurrency; the queue only covers a thread
+        // that has finished its batch but not yet returned to the pool
+        exec.setQueueCapacity(props.getConcurrency());
+        exec.setThreadNamePrefix(props.getThreadNamePrefix());
+        exec.setAwaitTerminationSeconds(props.getAwaitTerminationSeconds());
+        exec.setWaitForTasksToCompleteOnShutdown(true);
+        exec.initialize();
+        log.info("[knowledge-push] init: concurrency={}, prefix={}", props.getConcurrency(), props.getThreadNamePrefix());
+        return exec;
+    }
+}
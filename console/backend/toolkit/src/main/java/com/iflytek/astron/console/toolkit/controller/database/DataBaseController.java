@@ -144,6 +144,13 @@ public class DataBaseController {
         return ApiResult.success(databaseService.selectTableData(dbTableSelectDataDto));
     }
 
+    @PostMapping("/select-table-data-cursor")
+    @Operation(summary = "Query table data by cursor")
+    @SpacePreAuth(key = "DataBaseController_selectTableData_POST")
+    public ApiResult<DbTableDataCursorVo> selectTableDataByCursor(@RequestBody DbTableSelectDataDto dbTableSelectDataDto) {
+        return ApiResult.success(databaseService.selectTableDataByCursor(dbTableSelectDataDto));
+    }
+
     @GetMapping("/copy-table")
     @Operation(summary = "Copy table")
     public ApiResult<Void> copyTable(Long tbId) {
@@ -306,6 +306,14 @@ public class WorkflowController {
         return workflowService.sseChatResume(bizReq);
     }
 
+    /**
+     * Stop a running chat/resume stream; routed to the node serving it.
+     */
+    @PostMapping("/chat/stop")
+    public Object stopChat(@RequestParam @NotBlank String sseId) {
+        return workflowService.stopSseChat(sseId);
+    }
+
     // ---------------------- File Upload/Input Information ----------------------
 
     /**
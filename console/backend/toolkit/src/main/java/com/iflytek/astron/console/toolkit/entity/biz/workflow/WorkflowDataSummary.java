@@ -0,0 +1,16 @@
+package com.iflytek.astron.console.toolkit.entity.biz.workflow;
+
+import com.alibaba.fastjson2.JSONObject;
+import lombok.Data;
+
+/**
+ * Summary of a workflow protocol shown in workflow lists, persisted alongside the protocol data so
+ * that listing never has to parse it.
+ */
+@Data
+public class WorkflowDataSummary {
+    // IO inversion of start/end nodes, null when the protocol has no nodes
+    JSONObject ioInversion;
+    // Whether the protocol contains a Q&A node
+    Boolean hasQaNode = false;
+}
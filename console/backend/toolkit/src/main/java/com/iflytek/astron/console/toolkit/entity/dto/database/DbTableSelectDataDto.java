@@ -17,4 +17,10 @@ public class DbTableSelectDataDto implements Serializable {
     private Long pageNum;
 
     private Long pageSize;
+
+    /**
+     * Position after the last row of the previous page, from the nextCursor of the keyset query; empty
+     * for the first page
+     */
+    private String cursor;
 }
@@ -77,8 +77,8 @@ public class ExtractKnowledgeTask implements Serializable {
     /**
      * Parse configuration
      */
-    // @TableField("slice_config")
-    // private String sliceConfig;
+    @TableField("slice_config")
+    private String sliceConfig;
 
     /**
      * 0: Start parsing 1: Parsing completed 2: Start embedding 3: Embedding completed
@@ -86,4 +86,34 @@ public class ExtractKnowledgeTask implements Serializable {
     @TableField("task_status")
     private Integer taskStatus;
 
+    /**
+     * Space the file belongs to, null for personal files
+     */
+    private Long spaceId;
+
+    /**
+     * 1: Queue embedding once parsing succeeds. Only changed through update wrappers, so that saving a
+     * task being parsed cannot undo a request made meanwhile
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer backEmbedding;
+
+    /**
+     * Node running the task
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private String leaseOwner;
+
+    /**
+     * Other nodes may take the task over once the lease has expired
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Timestamp leaseExpireTime;
+
+    /**
+     * Times the task was claimed
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer attempts;
+
 }
@@ -72,6 +72,11 @@ public class FileInfoV2 implements Serializable {
      */
     private Long charCount;
 
+    /**
+     * SHA-256 of the file content, used to recognize re-uploads
+     */
+    private String contentHash;
+
 
     /**
      * File type
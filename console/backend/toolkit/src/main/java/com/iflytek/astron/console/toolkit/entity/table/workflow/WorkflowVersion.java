@@ -1,6 +1,7 @@
 package com.iflytek.astron.console.toolkit.entity.table.workflow;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.util.Date;
@@ -31,6 +32,9 @@ public class WorkflowVersion {
      * 高级配置
      */
     String advancedConfig;
+    // List summary derived from data
+    @JsonIgnore
+    String dataSummary;
     /**
      *
      */
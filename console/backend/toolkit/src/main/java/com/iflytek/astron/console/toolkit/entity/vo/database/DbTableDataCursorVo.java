@@ -0,0 +1,23 @@
+package com.iflytek.astron.console.toolkit.entity.vo.database;
+
+import com.alibaba.fastjson2.JSONObject;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of table rows read by keyset, newest first
+ */
+@Data
+public class DbTableDataCursorVo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<JSONObject> records;
+
+    /** Row count of the table, cached */
+    private Long total;
+
+    /** Cursor of the next page; null on the last page */
+    private String nextCursor;
+}
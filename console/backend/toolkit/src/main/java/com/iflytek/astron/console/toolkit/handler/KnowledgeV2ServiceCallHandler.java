@@ -4,13 +4,12 @@ import com.alibaba.fastjson2.JSON;
 import com.iflytek.astron.console.toolkit.config.properties.RepoAuthorizedConfig;
 import com.iflytek.astron.console.toolkit.config.properties.ApiUrl;
 import com.iflytek.astron.console.toolkit.entity.core.knowledge.*;
+import com.iflytek.astron.console.toolkit.util.InputStreamRequestBody;
 import com.iflytek.astron.console.toolkit.util.OkHttpUtil;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import org.springframework.web.multipart.MultipartFile;
-
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,26 +38,27 @@ public class KnowledgeV2ServiceCallHandler {
     }
 
     /**
-     * Document upload and chunking (multipart/form-data)
+     * Document upload and chunking (multipart/form-data). The file is streamed into the request as it
+     * is sent, so it is never held in memory as a whole.
      *
-     * @param multipartFile multipart file to upload
+     * @param file file content to upload
      * @param lengthRange chunking length range
      * @param separator separator list
      * @param ragType RAG type
      * @param resourceType resource type (0=file, 1=html)
      * @return KnowledgeResponse
      */
-    public KnowledgeResponse documentUpload(MultipartFile multipartFile,
+    public KnowledgeResponse documentUpload(InputStreamRequestBody file,
             List<Integer> lengthRange, List<String> separator,
             String ragType, Integer resourceType) {
         String url = apiUrl.getKnowledgeUrl().concat("/v1/document/upload");
 
         try {
             log.info("documentUpload fileName: {}, fileSize: {} bytes",
-                    multipartFile.getOriginalFilename(), multipartFile.getSize());
+                    file.getFileName(), file.contentLength());
 
             Map<String, Object> params = new HashMap<>();
-            params.put("file", multipartFile);
+            params.put("file", file);
             if (lengthRange != null) {
                 params.put("lengthRange", JSON.toJSONString(lengthRange));
             }
@@ -6,6 +6,9 @@ import com.iflytek.astron.console.toolkit.entity.table.workflow.WorkflowVersion;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
+import java.util.List;
+
 @Mapper
 public interface WorkflowVersionMapper extends BaseMapper<WorkflowVersion> {
     Page<WorkflowVersion> selectPageByCondition(Page<WorkflowVersion> page, @Param("flowId") String flowId);
@@ -13,4 +16,10 @@ public interface WorkflowVersionMapper extends BaseMapper<WorkflowVersion> {
     Page<WorkflowVersion> selectPageLatestByName(Page<?> page, @Param("botId") String botId);
 
     Long countLatestByName(@Param("botId") String botId);
+
+    /**
+     * Latest successfully published version of each flow, without protocol data
+     */
+    List<WorkflowVersion> selectLatestPublishedByFlowIds(@Param("flowIds") Collection<String> flowIds,
+            @Param("publishResult") String publishResult);
 }
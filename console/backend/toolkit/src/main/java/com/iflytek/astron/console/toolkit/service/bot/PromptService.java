@@ -10,6 +10,7 @@ import com.iflytek.astron.console.toolkit.entity.biz.AiGenerate;
 import com.iflytek.astron.console.toolkit.entity.table.ConfigInfo;
 import com.iflytek.astron.console.toolkit.entity.table.bot.SparkBot;
 import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.mapper.bot.SparkBotMapper;
 import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
 import com.iflytek.astron.console.toolkit.tool.spark.SparkApiTool;
@@ -34,6 +35,8 @@ public class PromptService {
 
     @Resource
     ConfigInfoMapper configInfoMapper;
+    @Resource
+    ConfigInfoRegistry configInfoRegistry;
 
     @Resource
     SparkBotMapper sparkBotMapper;
@@ -49,7 +52,7 @@ public class PromptService {
      * @return {@link SseEmitter} for streaming the enhanced prompt response
      */
     public SseEmitter enhance(String name, String prompt) {
-        String template = configInfoMapper.getByCategoryAndCode("TEMPLATE", "prompt-enhance").getValue();
+        String template = configInfoRegistry.getByCategoryAndCode("TEMPLATE", "prompt-enhance").getValue();
         String question = template.replace("{assistant_name}", name).replace("{assistant_description}", prompt);
         return sparkApiTool.onceChatReturnSseByWs(question);
     }
@@ -62,7 +65,7 @@ public class PromptService {
      *         fallback
      */
     public Object nextQuestionAdvice(String question) {
-        String template = configInfoMapper.getByCategoryAndCode("TEMPLATE", "next-question-advice").getValue();
+        String template = configInfoRegistry.getByCategoryAndCode("TEMPLATE", "next-question-advice").getValue();
         String msg = template.replace("{q}", question);
         try {
             String threeAdvice = sparkApiTool.onceChatReturnWholeByWs(msg);
@@ -155,8 +158,8 @@ public class PromptService {
         // Retrieve URL and domain from config, fallback to defaults if not found
         String codeUrl;
         String codeDomain;
-        ConfigInfo url = configInfoMapper.getByCategoryAndCode("AI_CODE", "DS_V3_url");
-        ConfigInfo domain = configInfoMapper.getByCategoryAndCode("AI_CODE", "DS_V3_domain");
+        ConfigInfo url = configInfoRegistry.getByCategoryAndCode("AI_CODE", "DS_V3_url");
+        ConfigInfo domain = configInfoRegistry.getByCategoryAndCode("AI_CODE", "DS_V3_domain");
 
         if (url == null) {
             codeUrl = SparkApiTool.sparkCodeUrl;
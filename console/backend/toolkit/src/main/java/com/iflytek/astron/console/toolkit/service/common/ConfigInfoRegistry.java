@@ -0,0 +1,276 @@
+package com.iflytek.astron.console.toolkit.service.common;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.iflytek.astron.console.toolkit.entity.table.ConfigInfo;
+import com.iflytek.astron.console.toolkit.handler.language.LanguageContext;
+import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory snapshot of the valid rows of config_info, for lookups on request paths and inside loops.
+ * <p>
+ * English requests read config_info_en instead, through the dynamic table name interceptor, so each
+ * table has its own snapshot and version, always read under that table's locale; a lookup picks the
+ * snapshot by the locale of the request.
+ * <p>
+ * The tables are small and only edited by administrators, straight in the database. Each is read in
+ * full on first use, and then every {@code config-info.snapshot.refresh-interval-ms} the row count,
+ * highest id and latest update time are compared with those of the snapshot; only when they moved is
+ * the table read again and a new snapshot swapped in. Lookups follow the mapper queries they replace: valid rows
+ * only, the most recently updated first. Each caller gets its own copy of the rows, so the snapshot
+ * cannot be changed through them.
+ * <p>
+ * Lookups and refreshes are counted as {@code config_info.snapshot.lookups} and
+ * {@code config_info.snapshot.refreshes}, and the number of rows held as
+ * {@code config_info.snapshot.entries}.
+ */
+@Slf4j
+@Component
+public class ConfigInfoRegistry {
+
+    @Autowired
+    private ConfigInfoMapper configInfoMapper;
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final Map<Table, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        hits = lookups(meterRegistry, "hit");
+        misses = lookups(meterRegistry, "miss");
+        Gauge.builder("config_info.snapshot.entries", this, registry -> registry.snapshots.values().stream().mapToInt(snapshot -> snapshot.size).sum())
+                .description("Valid config_info and config_info_en rows held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Most recently updated valid row of the category with the code, null if none; as
+     * {@link ConfigInfoMapper#getByCategoryAndCode}
+     */
+    public ConfigInfo getByCategoryAndCode(String category, String code) {
+        return first(snapshot().byCategoryAndCode.get(key(category, code)));
+    }
+
+    /**
+     * Valid rows of the category, most recently updated first; as {@link ConfigInfoMapper#getListByCategory}
+     */
+    public List<ConfigInfo> getListByCategory(String category) {
+        return all(snapshot().byCategory.get(category));
+    }
+
+    /**
+     * Valid rows of the category with the code, most recently updated first; as
+     * {@link ConfigInfoMapper#getListByCategoryAndCode}
+     */
+    public List<ConfigInfo> getListByCategoryAndCode(String category, String code) {
+        return all(snapshot().byCategoryAndCode.get(key(category, code)));
+    }
+
+    /**
+     * Most recently updated valid row of the category with the name, null if none
+     */
+    public ConfigInfo getByCategoryAndName(String category, String name) {
+        return first(snapshot().byCategoryAndName.get(key(category, name)));
+    }
+
+    /**
+     * Most recently updated valid row of the category, null if none
+     */
+    public ConfigInfo getFirstByCategory(String category) {
+        return first(snapshot().byCategory.get(category));
+    }
+
+    /**
+     * Read each loaded table again if it changed since its snapshot was taken
+     */
+    @Scheduled(fixedDelayString = "${config-info.snapshot.refresh-interval-ms:30000}", initialDelayString = "${config-info.snapshot.refresh-interval-ms:30000}")
+    public void refresh() {
+        // A table nothing asked for yet is loaded by its first lookup
+        snapshots.forEach((table, current) -> {
+            try {
+                String version = inLocale(table, this::version);
+                if (version.equals(current.version)) {
+                    refreshed("unchanged");
+                    return;
+                }
+                Snapshot reloaded = load(table, version);
+                snapshots.put(table, reloaded);
+                refreshed("reloaded");
+                log.info("{} snapshot reloaded, {} valid rows", table.tableName, reloaded.size);
+            } catch (Exception e) {
+                // Keep serving the last snapshot
+                refreshed("failed");
+                log.error("Failed to refresh {} snapshot", table.tableName, e);
+            }
+        });
+    }
+
+    private Snapshot snapshot() {
+        return snapshots.computeIfAbsent(LanguageContext.isEn() ? Table.EN : Table.ZH, table -> load(table, inLocale(table, this::version)));
+    }
+
+    private Snapshot load(Table table, String version) {
+        List<ConfigInfo> rows = inLocale(table,
+                () -> configInfoMapper.selectList(Wrappers.lambdaQuery(ConfigInfo.class).eq(ConfigInfo::getIsValid, 1)));
+        return new Snapshot(version, rows);
+    }
+
+    /**
+     * Run a query under the locale the table name interceptor maps to the table, whatever the locale of
+     * the calling thread; the scheduler thread has none of its own
+     */
+    private static <T> T inLocale(Table table, Supplier<T> query) {
+        List<T> result = new ArrayList<>(1);
+        LanguageContext.runWithLocale(table.locale, () -> result.add(query.get()));
+        return result.getFirst();
+    }
+
+    /**
+     * Row count, highest id and latest update time of the whole table, invalid rows included, so that
+     * inserts, deletes and edits, including turning a row on or off, all change it
+     */
+    private String version() {
+        List<Map<String, Object>> stats = configInfoMapper.selectMaps(new QueryWrapper<ConfigInfo>()
+                .select("COUNT(*) AS total", "MAX(id) AS max_id", "MAX(update_time) AS last_update"));
+        return stats == null || stats.isEmpty() || stats.getFirst() == null ? "" : new TreeMap<>(stats.getFirst()).toString();
+    }
+
+    private ConfigInfo first(List<ConfigInfo> rows) {
+        if (rows == null || rows.isEmpty()) {
+            count(misses);
+            return null;
+        }
+        count(hits);
+        return copy(rows.getFirst());
+    }
+
+    private List<ConfigInfo> all(List<ConfigInfo> rows) {
+        if (rows == null || rows.isEmpty()) {
+            count(misses);
+            return new ArrayList<>();
+        }
+        count(hits);
+        List<ConfigInfo> copies = new ArrayList<>(rows.size());
+        for (ConfigInfo row : rows) {
+            copies.add(copy(row));
+        }
+        return copies;
+    }
+
+    private static void count(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private void refreshed(String result) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return;
+        }
+        Counter.builder("config_info.snapshot.refreshes")
+                .description("Checks of config_info for changes, by whether the snapshot was reloaded")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("config_info.snapshot.lookups")
+                .description("config_info lookups served from memory instead of the database")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String key(String first, String second) {
+        return first + '\u0000' + second;
+    }
+
+    private static ConfigInfo copy(ConfigInfo row) {
+        ConfigInfo copy = new ConfigInfo();
+        copy.setId(row.getId());
+        copy.setCategory(row.getCategory());
+        copy.setCode(row.getCode());
+        copy.setName(row.getName());
+        copy.setValue(row.getValue());
+        copy.setIsValid(row.getIsValid());
+        copy.setRemarks(row.getRemarks());
+        copy.setCreateTime(row.getCreateTime());
+        copy.setUpdateTime(row.getUpdateTime());
+        return copy;
+    }
+
+    /**
+     * Config tables by the locale their rows are shown in
+     */
+    private enum Table {
+        ZH("config_info", Locale.SIMPLIFIED_CHINESE),
+        EN("config_info_en", Locale.ENGLISH);
+
+        private final String tableName;
+        private final Locale locale;
+
+        Table(String tableName, Locale locale) {
+            this.tableName = tableName;
+            this.locale = locale;
+        }
+    }
+
+    /**
+     * Valid rows indexed by category, category and code, and category and name, each list most recently
+     * updated first
+     */
+    private static final class Snapshot {
+
+        // As the mapper's "order by update_time desc": rows never updated last
+        private static final Comparator<ConfigInfo> LATEST_FIRST = Comparator
+                .comparing(ConfigInfo::getUpdateTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .reversed();
+
+        private final String version;
+        private final int size;
+        private final Map<String, List<ConfigInfo>> byCategory;
+        private final Map<String, List<ConfigInfo>> byCategoryAndCode;
+        private final Map<String, List<ConfigInfo>> byCategoryAndName;
+
+        private Snapshot(String version, List<ConfigInfo> rows) {
+            List<ConfigInfo> sorted = rows.stream().filter(Objects::nonNull).sorted(LATEST_FIRST).toList();
+            this.version = version;
+            this.size = sorted.size();
+            this.byCategory = index(sorted, ConfigInfo::getCategory);
+            this.byCategoryAndCode = index(sorted, row -> key(row.getCategory(), row.getCode()));
+            this.byCategoryAndName = index(sorted, row -> key(row.getCategory(), row.getName()));
+        }
+
+        private static Map<String, List<ConfigInfo>> index(List<ConfigInfo> rows, Function<ConfigInfo, String> key) {
+            Map<String, List<ConfigInfo>> index = rows.stream()
+                    .filter(row -> row.getCategory() != null)
+                    .collect(Collectors.groupingBy(key, LinkedHashMap::new, Collectors.toList()));
+            index.replaceAll((k, v) -> List.copyOf(v));
+            return Map.copyOf(index);
+        }
+    }
+}
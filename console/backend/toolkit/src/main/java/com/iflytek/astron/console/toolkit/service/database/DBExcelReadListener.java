@@ -13,12 +13,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Read Excel -> Generate structured row data (each row Map<column name, value>), avoid SQL
  * concatenation. - Validate headers and required fields - Null values fall back to field default
- * values/type default values - Can set maximum row limit
+ * values/type default values - Can set maximum row limit - Can hand rows over in batches while reading
  */
 public class DBExcelReadListener extends AnalysisEventListener<Map<Integer, String>> {
 
@@ -26,23 +27,31 @@ public class DBExcelReadListener extends AnalysisEventListener<Map<Integer, Stri
     private static final DateTimeFormatter TS = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private final List<DbTableField> tableFields;
-    private final List<Map<String, Object>> rowsSink; // Output container
+    private final Consumer<List<Map<String, Object>>> batchSink; // Receives each full batch
+    private final int batchSize;
     private final String uid; // Automatically add uid to each row
     private final int maxRows; // Read limit (prevent explosion)
 
     private List<String> expectedHeaders;
     private List<String> notNullFieldsList;
+    private List<Map<String, Object>> batch = new ArrayList<>();
 
     private int accepted = 0;
     private boolean headerValidated = false;
 
-    /** Recommended usage: load into rowsSink at once */
+    /**
+     * Rows are handed over in batches while reading, so only one batch is held at a time
+     *
+     * @param batchSink receives each batch of batchSize rows, and the last shorter one
+     */
     public DBExcelReadListener(List<DbTableField> tableFields,
-            List<Map<String, Object>> rowsSink,
+            Consumer<List<Map<String, Object>>> batchSink,
+            int batchSize,
             String uid,
             int maxRows) {
         this.tableFields = Objects.requireNonNull(tableFields);
-        this.rowsSink = Objects.requireNonNull(rowsSink);
+        this.batchSink = Objects.requireNonNull(batchSink);
+        this.batchSize = Math.max(1, batchSize);
         this.uid = uid;
         this.maxRows = Math.max(1, maxRows);
     }
@@ -101,8 +110,11 @@ public class DBExcelReadListener extends AnalysisEventListener<Map<Integer, Stri
             out.put(header, v);
         }
 
-        rowsSink.add(out);
+        batch.add(out);
         accepted++;
+        if (batch.size() >= batchSize) {
+            flush();
+        }
     }
 
     @Override
@@ -110,6 +122,16 @@ public class DBExcelReadListener extends AnalysisEventListener<Map<Integer, Stri
         if (accepted == 0) {
             throw new IllegalArgumentException("No valid data in file, please check if excel data is correct!");
         }
+        flush();
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> full = batch;
+        batch = new ArrayList<>();
+        batchSink.accept(full);
     }
 
     // Helper: Parse and default values
@@ -1,6 +1,8 @@
 package com.iflytek.astron.console.toolkit.service.database;
 
 import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
 import com.alibaba.fastjson2.JSONObject;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -13,6 +15,7 @@ import com.iflytek.astron.console.commons.constant.ResponseEnum;
 import com.iflytek.astron.console.commons.exception.BusinessException;
 import com.iflytek.astron.console.toolkit.common.constant.CommonConst;
 import com.iflytek.astron.console.toolkit.config.jooq.JooqBatchExecutor;
+import com.iflytek.astron.console.toolkit.config.jooq.JooqRetry;
 import com.iflytek.astron.console.toolkit.config.properties.CommonConfig;
 import com.iflytek.astron.console.toolkit.entity.dto.database.*;
 import com.iflytek.astron.console.toolkit.entity.enumVo.DBOperateEnum;
@@ -34,14 +37,18 @@ import org.apache.commons.lang3.StringUtils;
 import org.jooq.*;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Comparator;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static org.jooq.impl.DSL.*;
@@ -87,11 +94,27 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
     private DSLContext dslCon;
     @Autowired
     private CommonConfig commonConfig;
+    @Autowired
+    @Qualifier("asyncExecutor")
+    private Executor asyncExecutor;
+    @Autowired
+    private TableRowCountCache tableRowCountCache;
+
+    /** Import chunks sent to the core system at once */
+    @Value("${database.import.parallelism:1}")
+    private int importParallelism = 1;
+    /** Rows read from an import file; further rows are ignored */
+    @Value("${database.import.max-rows:10000}")
+    private int importMaxRows = 10_000;
+    /** Rows written to an export file */
+    @Value("${database.export.max-rows:1000000}")
+    private int exportMaxRows = 1_000_000;
 
     private static final String[] SYSTEM_FIELDS = {"id", "uid", "create_time"};
     // New additions in DatabaseService
     private static final int MAX_PAGE_SIZE = 1000; // Prevent explosion
     private static final int MAX_EXPORT_IDS = 1000; // IN clause limit
+    private static final int OPERATE_BATCH_SIZE = 100; // Rows per statement in operateTableData
 
     @Transactional
     public DbInfo create(DatabaseDto databaseDto) {
@@ -806,6 +829,7 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
             // Delete table fields
             dbTableFieldMapper.delete(new UpdateWrapper<DbTableField>().lambda()
                     .eq(DbTableField::getTbId, tbId));
+            tableRowCountCache.evict(tbId);
         } catch (BusinessException ex) {
             log.error("Failed to delete table, tbId={}", tbId);
             throw ex;
@@ -823,28 +847,31 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
                     .eq(DbTableField::getTbId, dbTable.getId()));
             DbInfo dbInfo = dbInfoMapper.selectById(dbTable.getDbId());
 
-            // Validate and execute one by one (can be batched to improve availability)
-            final int BATCH = 100; // Adjustable
+            // Consecutive rows of the same operation go out as one statement per batch
+            String uid = UserInfoManagerHandler.getUserId();
             List<DbTableDataDto> rows = dbTableOperateDto.getData();
-            for (int i = 0; i < rows.size(); i++) {
-                DbTableDataDto data = rows.get(i);
+            for (DbTableDataDto data : rows) {
                 validateParams(data.getTableData(), fields, data.getOperateType());
-
-                String single = buildDml(dbTable.getName(), data.getTableData(), data.getOperateType());
-                SqlRenderer.denyMultiStmtOrComment(single);
-
-                coreSystemService.execDML(
-                        single,
-                        UserInfoManagerHandler.getUserId(),
-                        SpaceInfoUtil.getSpaceId(),
-                        dbInfo.getDbId(),
-                        DBOperateEnum.UPDATE.getCode(),
-                        dbTableOperateDto.getExecDev());
-
-                // Simple batch yielding can be done here (e.g., sleep 1ms every BATCH items) to prevent
-                // overwhelming the core system
-                if ((i + 1) % BATCH == 0) {
-                    // Thread.yield(); // Optional
+            }
+            Integer execDev = dbTableOperateDto.getExecDev();
+            for (List<DbTableDataDto> batch : splitOperateBatches(rows)) {
+                Integer operateType = batch.getFirst().getOperateType();
+                List<Map<String, Object>> batchData = batch.stream().map(DbTableDataDto::getTableData).toList();
+                try {
+                    execOperateDml(buildBatchDml(dbTable.getName(), batchData, operateType, uid), dbInfo, execDev);
+                    tableRowCountCache.adjust(dbTable.getId(), execDev, rowCountDelta(operateType) * batchData.size());
+                } catch (Exception ex) {
+                    if (!JooqRetry.isRejected(ex)) {
+                        // A timed out statement may have been applied: replaying its inserts could duplicate rows
+                        throw ex;
+                    }
+                    // Nothing of the rejected statement was applied; run its rows one by one to find the bad one
+                    log.warn("Batch table operation of {} rows failed, falling back to row by row, tbId={}: {}",
+                            batch.size(), dbTable.getId(), ex.getMessage());
+                    for (Map<String, Object> tableData : batchData) {
+                        execOperateDml(buildDml(dbTable.getName(), tableData, operateType), dbInfo, execDev);
+                        tableRowCountCache.adjust(dbTable.getId(), execDev, rowCountDelta(operateType));
+                    }
                 }
             }
         } catch (Exception ex) {
@@ -885,6 +912,162 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
         }
     }
 
+    /**
+     * Split table operations into batches of consecutive rows with the same operation type, keeping
+     * their order; an update or delete of an id already in the batch starts a new batch
+     */
+    private List<List<DbTableDataDto>> splitOperateBatches(List<DbTableDataDto> rows) {
+        List<List<DbTableDataDto>> batches = new ArrayList<>();
+        List<DbTableDataDto> current = new ArrayList<>();
+        Set<Long> ids = new HashSet<>();
+        for (DbTableDataDto data : rows) {
+            boolean byId = !DBOperateEnum.INSERT.getCode().equals(data.getOperateType());
+            Long id = byId ? SqlRenderer.requireLong(data.getTableData().get("id"), "id") : null;
+            if (!current.isEmpty() && (current.size() >= OPERATE_BATCH_SIZE
+                    || !current.getFirst().getOperateType().equals(data.getOperateType())
+                    || (byId && ids.contains(id)))) {
+                batches.add(current);
+                current = new ArrayList<>();
+                ids.clear();
+            }
+            current.add(data);
+            if (byId) {
+                ids.add(id);
+            }
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    /**
+     * Rows one row of the operation adds to the table: 1 for an insert, -1 for a delete by id
+     */
+    private static long rowCountDelta(Integer operateType) {
+        if (DBOperateEnum.INSERT.getCode().equals(operateType)) {
+            return 1;
+        }
+        return DBOperateEnum.DELETE.getCode().equals(operateType) ? -1 : 0;
+    }
+
+    private void execOperateDml(String dml, DbInfo dbInfo, Integer execDev) {
+        SqlRenderer.denyMultiStmtOrComment(dml);
+        coreSystemService.execDML(
+                dml,
+                UserInfoManagerHandler.getUserId(),
+                SpaceInfoUtil.getSpaceId(),
+                dbInfo.getDbId(),
+                DBOperateEnum.UPDATE.getCode(),
+                execDev);
+    }
+
+    /**
+     * Build one statement for a batch of rows of the same operation: a multi-row INSERT, an UPDATE
+     * setting each column through CASE on id, or a DELETE on an id list
+     */
+    private String buildBatchDml(String tableName, List<Map<String, Object>> rows, Integer operateType, String uid) {
+        if (rows.size() == 1) {
+            return buildDml(tableName, rows.getFirst(), operateType);
+        }
+        StringBuilder sql = new StringBuilder();
+        String table = SqlRenderer.quoteIdent(tableName);
+
+        if (DBOperateEnum.INSERT.getCode().equals(operateType)) {
+            // Columns set by any row; a row without a value for one gets the column default, as a single
+            // insert that leaves it out would
+            LinkedHashSet<String> columns = new LinkedHashSet<>();
+            for (Map<String, Object> row : rows) {
+                row.forEach((k, v) -> {
+                    if (v != null) {
+                        columns.add(k);
+                    }
+                });
+            }
+            List<String> cols = new ArrayList<>();
+            cols.add(SqlRenderer.quoteIdent("uid"));
+            for (String column : columns) {
+                cols.add(SqlRenderer.quoteIdent(column));
+            }
+            String uidValue = SqlRenderer.renderValue(uid);
+            String values = rows.stream()
+                    .map(row -> {
+                        List<String> vals = new ArrayList<>();
+                        vals.add(uidValue);
+                        for (String column : columns) {
+                            Object v = row.get(column);
+                            vals.add(v == null ? "DEFAULT" : SqlRenderer.renderValue(v));
+                        }
+                        return "(" + String.join(", ", vals) + ")";
+                    })
+                    .collect(Collectors.joining(", "));
+            sql.append("INSERT INTO ")
+                    .append(table)
+                    .append(" (")
+                    .append(String.join(", ", cols))
+                    .append(")")
+                    .append(" VALUES ")
+                    .append(values)
+                    .append(";");
+
+        } else if (DBOperateEnum.UPDATE.getCode().equals(operateType)) {
+            String idCol = SqlRenderer.quoteIdent("id");
+            // column -> "WHEN id THEN value" of the rows that set it
+            Map<String, StringBuilder> cases = new LinkedHashMap<>();
+            List<String> ids = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                long id = SqlRenderer.requireLong(row.get("id"), "id");
+                ids.add(String.valueOf(id));
+                boolean any = false;
+                for (Map.Entry<String, Object> e : row.entrySet()) {
+                    if ("id".equals(e.getKey())) {
+                        continue;
+                    }
+                    any = true;
+                    cases.computeIfAbsent(e.getKey(), k -> new StringBuilder())
+                            .append(" WHEN ")
+                            .append(id)
+                            .append(" THEN ")
+                            .append(SqlRenderer.renderValue(e.getValue()));
+                }
+                if (!any) {
+                    throw new IllegalArgumentException("No update columns");
+                }
+            }
+            String sets = cases.entrySet()
+                    .stream()
+                    .map(e -> {
+                        String col = SqlRenderer.quoteIdent(e.getKey());
+                        return col + " = CASE " + idCol + e.getValue() + " ELSE " + col + " END";
+                    })
+                    .collect(Collectors.joining(", "));
+            sql.append("UPDATE ")
+                    .append(table)
+                    .append(" SET ")
+                    .append(sets)
+                    .append(" WHERE ")
+                    .append(idCol)
+                    .append(" IN (")
+                    .append(String.join(", ", ids))
+                    .append(");");
+
+        } else if (DBOperateEnum.DELETE.getCode().equals(operateType)) {
+            String ids = rows.stream()
+                    .map(row -> String.valueOf(SqlRenderer.requireLong(row.get("id"), "id")))
+                    .collect(Collectors.joining(", "));
+            sql.append("DELETE FROM ")
+                    .append(table)
+                    .append(" WHERE ")
+                    .append(SqlRenderer.quoteIdent("id"))
+                    .append(" IN (")
+                    .append(ids)
+                    .append(");");
+        }
+
+        SqlRenderer.denyMultiStmtOrComment(sql.toString());
+        return sql.toString();
+    }
+
     private String buildDml(String tableName, Map<String, Object> params, Integer operateType) {
         StringBuilder sql = new StringBuilder();
         String table = SqlRenderer.quoteIdent(tableName);
@@ -1034,26 +1217,9 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
             String dml = "SELECT * FROM " + table + " ORDER BY " +
                     SqlRenderer.quoteIdent("create_time") + " DESC, " + SqlRenderer.quoteIdent("id") + " DESC" +
                     " LIMIT " + limit + " OFFSET " + offset;
-            SqlRenderer.denyMultiStmtOrComment(dml);
-
-            List<JSONObject> maps = (List<JSONObject>) coreSystemService.execDML(
-                    dml,
-                    UserInfoManagerHandler.getUserId(),
-                    SpaceInfoUtil.getSpaceId(),
-                    dbInfo.getDbId(),
-                    DBOperateEnum.SELECT.getCode(),
-                    dto.getExecDev());
-
-            String countDml = "SELECT COUNT(*) FROM " + table;
-            Long total = (Long) coreSystemService.execDML(
-                    countDml,
-                    UserInfoManagerHandler.getUserId(),
-                    SpaceInfoUtil.getSpaceId(),
-                    dbInfo.getDbId(),
-                    DBOperateEnum.SELECT_TOTAL_COUNT.getCode(),
-                    dto.getExecDev());
-
-            page.setTotal(total == null ? 0 : total);
+            List<JSONObject> maps = selectRows(dml, dbInfo, dto.getExecDev());
+
+            page.setTotal(countTableRows(dbTable, dbInfo, dto.getExecDev()));
             page.setRecords(maps);
             return page;
         } catch (Exception ex) {
@@ -1062,6 +1228,89 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
         }
     }
 
+    /**
+     * Page through table data by keyset on id, newest first. Each page is a range read of the primary key
+     * and costs the same however deep it is, unlike the OFFSET paging of {@link #selectTableData}; pageNum
+     * is not used, the page after is asked for with the nextCursor of the page before.
+     * <p>
+     * The id is a BIGSERIAL, so it follows insertion order as create_time does; create_time is not part
+     * of the key, no index serves it and core returns it cut to whole seconds.
+     */
+    public DbTableDataCursorVo selectTableDataByCursor(DbTableSelectDataDto dto) {
+        dataPermissionCheckTool.checkTbBelong(dto.getTbId());
+        try {
+            long limit = dto.getPageSize() == null ? 10 : Math.min(dto.getPageSize(), MAX_PAGE_SIZE);
+            if (limit <= 0)
+                throw new IllegalArgumentException("Bad paging");
+
+            DbTable dbTable = dbTableMapper.selectById(dto.getTbId());
+            DbInfo dbInfo = dbInfoMapper.selectById(dbTable.getDbId());
+
+            String id = SqlRenderer.quoteIdent("id");
+            StringBuilder dml = new StringBuilder("SELECT * FROM ").append(SqlRenderer.quoteIdent(dbTable.getName()));
+            if (StringUtils.isNotBlank(dto.getCursor())) {
+                dml.append(" WHERE ").append(id).append(" < ").append(decodeCursor(dto.getCursor()));
+            }
+            // One row more than asked for tells whether there is a next page
+            dml.append(" ORDER BY ").append(id).append(" DESC LIMIT ").append(limit + 1);
+            List<JSONObject> rows = selectRows(dml.toString(), dbInfo, dto.getExecDev());
+
+            DbTableDataCursorVo vo = new DbTableDataCursorVo();
+            if (rows.size() > limit) {
+                rows = new ArrayList<>(rows.subList(0, (int) limit));
+                vo.setNextCursor(encodeCursor(rows.getLast()));
+            }
+            vo.setRecords(rows);
+            vo.setTotal(countTableRows(dbTable, dbInfo, dto.getExecDev()));
+            return vo;
+        } catch (Exception ex) {
+            log.error("Failed to query table data by cursor, params={}", JSONObject.toJSONString(dto), ex);
+            throw new BusinessException(ResponseEnum.DATABASE_TABLE_QUERY_DATA_FAILED);
+        }
+    }
+
+    static String encodeCursor(JSONObject row) {
+        JSONObject position = new JSONObject();
+        position.put("id", SqlRenderer.requireLong(row.get("id"), "id"));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Id of the last row of the previous page; cursors that also carry a createTime are still accepted
+     */
+    static long decodeCursor(String cursor) {
+        JSONObject position = JSONObject.parseObject(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        if (position == null || position.get("id") == null) {
+            throw new IllegalArgumentException("Bad cursor");
+        }
+        return SqlRenderer.requireLong(position.get("id"), "id");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<JSONObject> selectRows(String dml, DbInfo dbInfo, Integer execDev) {
+        SqlRenderer.denyMultiStmtOrComment(dml);
+        return (List<JSONObject>) coreSystemService.execDML(
+                dml,
+                UserInfoManagerHandler.getUserId(),
+                SpaceInfoUtil.getSpaceId(),
+                dbInfo.getDbId(),
+                DBOperateEnum.SELECT.getCode(),
+                execDev);
+    }
+
+    /**
+     * Row count of the table from the cache; the table is only counted when the count is not cached
+     */
+    private long countTableRows(DbTable dbTable, DbInfo dbInfo, Integer execDev) {
+        return tableRowCountCache.get(dbTable.getId(), execDev, () -> (Long) coreSystemService.execDML(
+                "SELECT COUNT(*) FROM " + SqlRenderer.quoteIdent(dbTable.getName()),
+                UserInfoManagerHandler.getUserId(),
+                SpaceInfoUtil.getSpaceId(),
+                dbInfo.getDbId(),
+                DBOperateEnum.SELECT_TOTAL_COUNT.getCode(),
+                execDev));
+    }
+
 
     public void importTableData(Long tbId, Integer execDev, MultipartFile file) {
         dataPermissionCheckTool.checkTbBelong(tbId);
@@ -1073,46 +1322,47 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
                     .eq(DbTableField::getTbId, tbId)
                     .orderByDesc(DbTableField::getCreateTime));
 
-            // 1) read Excel -> rows
-            List<Map<String, Object>> rows = new ArrayList<>();
+            // 1) read Excel and write each batch as soon as the listener fills it: multi-row INSERTs (one
+            // per chunk), shard execution + retry + row-level fallback + error collection
+            final int CHUNK = 200, MAX_RETRIES = 3;
+            // Chunks may run on other threads: resolve the request context here
+            String uid = UserInfoManagerHandler.getUserId();
+            Long spaceId = SpaceInfoUtil.getSpaceId();
+            Table<org.jooq.Record> t = table(name(dbTable.getName()));
+            JooqBatchExecutor.ResultSummary summary = new JooqBatchExecutor.ResultSummary();
+            // Enough rows per batch to keep every parallel sender busy
+            int batchSize = CHUNK * Math.max(1, importParallelism);
             DBExcelReadListener listener = new DBExcelReadListener(
                     dbTableFields,
-                    rows,
-                    UserInfoManagerHandler.getUserId(),
-                    10_000);
-            EasyExcel.read(file.getInputStream(), listener).sheet().doRead();
-
-            // 2) build INSERT (Bind parameters), shard execution + retry + error collection
-            final int CHUNK = 200, MAX_RETRIES = 3;
-            JooqBatchExecutor.ResultSummary summary = JooqBatchExecutor.executeInChunks(
-                    dslCon,
-                    dbTable.getName(),
-                    rows,
-                    CHUNK,
-                    MAX_RETRIES,
-                    row -> {
-                        Table<?> t = table(name(dbTable.getName()));
-                        InsertSetMoreStep<?> step = dslCon.insertInto(t).set(field(name("uid")), row.get("uid"));
-                        for (Map.Entry<String, Object> e : row.entrySet()) {
-                            if ("uid".equals(e.getKey()))
-                                continue;
-                            step = ((InsertSetStep<?>) step).set(field(name(e.getKey())), e.getValue());
-                        }
-                        return (Query) step;
+                    batch -> {
+                        JooqBatchExecutor.ResultSummary part = JooqBatchExecutor.executeInBatches(
+                                batch,
+                                summary.success + summary.failed,
+                                CHUNK,
+                                MAX_RETRIES,
+                                importParallelism,
+                                asyncExecutor,
+                                chunk -> buildInsert(t, chunk),
+                                row -> buildInsert(t, List.of(row)),
+                                (sql, paramsIgnored) -> {
+                                    // Single statement security check (semicolons at the end are allowed, but multiple
+                                    // internal statements are rejected)
+                                    SqlRenderer.denyMultiStmtOrComment(sql);
+                                    coreSystemService.execDML(
+                                            sql,
+                                            uid,
+                                            spaceId,
+                                            dbInfo.getDbId(),
+                                            DBOperateEnum.INSERT.getCode(),
+                                            execDev);
+                                });
+                        tableRowCountCache.adjust(tbId, execDev, part.success);
+                        summary.add(part);
                     },
-
-                    (sql, paramsIgnored) -> {
-                        // Single statement security check (semicolons at the end are allowed, but multiple internal
-                        // statements are rejected)
-                        SqlRenderer.denyMultiStmtOrComment(sql);
-                        coreSystemService.execDML(
-                                sql,
-                                UserInfoManagerHandler.getUserId(),
-                                SpaceInfoUtil.getSpaceId(),
-                                dbInfo.getDbId(),
-                                DBOperateEnum.INSERT.getCode(),
-                                execDev);
-                    });
+                    batchSize,
+                    uid,
+                    importMaxRows);
+            EasyExcel.read(file.getInputStream(), listener).sheet().doRead();
 
             // 3) Summary
             if (!summary.errors.isEmpty()) {
@@ -1133,6 +1383,26 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
         }
     }
 
+    /**
+     * Multi-row INSERT of the rows; a row without one of the columns of the others gets its default
+     */
+    private Query buildInsert(Table<org.jooq.Record> t, List<Map<String, Object>> rows) {
+        LinkedHashSet<String> columns = new LinkedHashSet<>();
+        for (Map<String, Object> row : rows) {
+            columns.addAll(row.keySet());
+        }
+        List<Field<Object>> fields = columns.stream().map(c -> field(name(c))).toList();
+        InsertValuesStepN<org.jooq.Record> step = dslCon.insertInto(t, fields);
+        for (Map<String, Object> row : rows) {
+            List<Field<?>> values = new ArrayList<>(fields.size());
+            for (Field<Object> f : fields) {
+                values.add(row.containsKey(f.getName()) ? val(row.get(f.getName())) : defaultValue(f));
+            }
+            step = step.values(values);
+        }
+        return step;
+    }
+
     @Transactional
     public void copyTable(Long tbId) {
         try {
@@ -1188,8 +1458,8 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
             DbInfo dbInfo = dbInfoMapper.selectById(dbTable.getDbId());
 
             String table = SqlRenderer.quoteIdent(dbTable.getName());
-            String dml = "SELECT * FROM " + table + " LIMIT 1000 OFFSET 0";
-
+            String idCol = SqlRenderer.quoteIdent("id");
+            String selectedDml = null;
             if (dto.getDataIds() != null && !dto.getDataIds().isEmpty()) {
                 if (dto.getDataIds().size() > MAX_EXPORT_IDS) {
                     throw new BusinessException(ResponseEnum.DATABASE_TOO_MANY_EXPORT_IDS);
@@ -1200,17 +1470,8 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
                         .map(x -> SqlRenderer.requireLong(x, "id"))
                         .collect(Collectors.toList());
                 String in = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
-                dml = "SELECT * FROM " + table + " WHERE " + SqlRenderer.quoteIdent("id") + " IN (" + in + ")";
+                selectedDml = "SELECT * FROM " + table + " WHERE " + idCol + " IN (" + in + ")";
             }
-            SqlRenderer.denyMultiStmtOrComment(dml);
-
-            List<JSONObject> data = (List<JSONObject>) coreSystemService.execDML(
-                    dml,
-                    UserInfoManagerHandler.getUserId(),
-                    SpaceInfoUtil.getSpaceId(),
-                    dbInfo.getDbId(),
-                    DBOperateEnum.SELECT.getCode(),
-                    dto.getExecDev());
 
             List<List<String>> headList = new ArrayList<>();
             Map<String, String> fieldTypeMap = new HashMap<>(); // Store field name to type mapping
@@ -1221,49 +1482,89 @@ public class DatabaseService extends ServiceImpl<DbInfoMapper, DbInfo> {
                         fieldTypeMap.put(field.getName(), field.getType());
                     });
 
-            List<List<Object>> dataList = new ArrayList<>();
-            for (JSONObject row : data) {
-                List<Object> line = new ArrayList<>();
-                for (List<String> h : headList) {
-                    String fieldName = h.get(0);
-                    Object val = row.get(fieldName);
-
-                    // Convert boolean values to lowercase for consistency
-                    if (val != null && CommonConst.DBFieldType.BOOLEAN.equalsIgnoreCase(fieldTypeMap.get(fieldName))) {
-                        if (val instanceof Boolean) {
-                            line.add(val.toString().toLowerCase());
-                        } else if (val instanceof String) {
-                            String strVal = ((String) val).trim();
-                            if ("TRUE".equalsIgnoreCase(strVal) || "FALSE".equalsIgnoreCase(strVal)) {
-                                line.add(strVal.toLowerCase());
-                            } else {
-                                line.add(val);
-                            }
-                        } else {
-                            line.add(val);
-                        }
-                    } else {
-                        line.add(val != null ? val : "");
-                    }
-                }
-                dataList.add(line);
-            }
-
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setCharacterEncoding("utf-8");
             String fileName = URLEncoder.encode(dbTable.getName(), "UTF-8").replaceAll("\\+", "%20");
             response.setHeader("Content-disposition", "attachment;filename=" + fileName + ".xlsx");
 
-            EasyExcel.write(response.getOutputStream())
-                    .head(headList)
-                    .sheet("data")
-                    .doWrite(dataList);
+            // Rows are written page by page, so only one page is held at a time
+            try (ExcelWriter writer = EasyExcel.write(response.getOutputStream()).head(headList).build()) {
+                WriteSheet sheet = EasyExcel.writerSheet("data").build();
+                if (selectedDml != null) {
+                    writer.write(toExportLines(queryExportPage(selectedDml, dbInfo, dto.getExecDev()), headList, fieldTypeMap), sheet);
+                    return;
+                }
+                // Keyset pagination on id: each page starts after the last id of the previous one
+                Long lastId = null;
+                int exported = 0;
+                while (exported < exportMaxRows) {
+                    int limit = Math.min(MAX_PAGE_SIZE, exportMaxRows - exported);
+                    String dml = "SELECT * FROM " + table
+                            + (lastId == null ? "" : " WHERE " + idCol + " > " + lastId)
+                            + " ORDER BY " + idCol + " LIMIT " + limit;
+                    List<JSONObject> page = queryExportPage(dml, dbInfo, dto.getExecDev());
+                    if (!page.isEmpty()) {
+                        writer.write(toExportLines(page, headList, fieldTypeMap), sheet);
+                        exported += page.size();
+                        lastId = SqlRenderer.requireLong(page.getLast().get("id"), "id");
+                    }
+                    if (page.size() < limit) {
+                        break;
+                    }
+                }
+                if (exported >= exportMaxRows) {
+                    log.warn("export data stopped at {} rows, tbId={}", exported, dto.getTbId());
+                }
+            }
         } catch (Exception ex) {
             log.error("export data failed, params:{}", dto, ex);
             throw new BusinessException(ResponseEnum.DATABASE_TABLE_EXPORT_FAILED);
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private List<JSONObject> queryExportPage(String dml, DbInfo dbInfo, Integer execDev) {
+        SqlRenderer.denyMultiStmtOrComment(dml);
+        return (List<JSONObject>) coreSystemService.execDML(
+                dml,
+                UserInfoManagerHandler.getUserId(),
+                SpaceInfoUtil.getSpaceId(),
+                dbInfo.getDbId(),
+                DBOperateEnum.SELECT.getCode(),
+                execDev);
+    }
+
+    private List<List<Object>> toExportLines(List<JSONObject> data, List<List<String>> headList, Map<String, String> fieldTypeMap) {
+        List<List<Object>> dataList = new ArrayList<>(data.size());
+        for (JSONObject row : data) {
+            List<Object> line = new ArrayList<>();
+            for (List<String> h : headList) {
+                String fieldName = h.get(0);
+                Object val = row.get(fieldName);
+
+                // Convert boolean values to lowercase for consistency
+                if (val != null && CommonConst.DBFieldType.BOOLEAN.equalsIgnoreCase(fieldTypeMap.get(fieldName))) {
+                    if (val instanceof Boolean) {
+                        line.add(val.toString().toLowerCase());
+                    } else if (val instanceof String) {
+                        String strVal = ((String) val).trim();
+                        if ("TRUE".equalsIgnoreCase(strVal) || "FALSE".equalsIgnoreCase(strVal)) {
+                            line.add(strVal.toLowerCase());
+                        } else {
+                            line.add(val);
+                        }
+                    } else {
+                        line.add(val);
+                    }
+                } else {
+                    line.add(val != null ? val : "");
+                }
+            }
+            dataList.add(line);
+        }
+        return dataList;
+    }
+
     public List<DbTableInfoVo> getDbTableInfoList() {
         List<DbTableInfoVo> result = new ArrayList<>();
         dbInfoMapper.selectList(new QueryWrapper<DbInfo>().lambda()
@@ -0,0 +1,108 @@
+package com.iflytek.astron.console.toolkit.service.database;
+
+import cn.hutool.core.util.StrUtil;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * Row counts of user database tables kept in Redis, so that paging through a table does not count
+ * all of its rows on every page.
+ * <p>
+ * A count is loaded with the given counter on first use and then moved by the rows the console
+ * inserts and deletes itself. Writes made elsewhere, such as workflow database nodes, are not seen, so
+ * an entry expires after {@code database.row-count.ttl-seconds} and is counted again.
+ */
+@Slf4j
+@Component
+public class TableRowCountCache {
+
+    // Move the count only while it is cached; a count that would go negative has drifted and is dropped
+    private static final DefaultRedisScript<Long> LUA_ADJUST =
+            new DefaultRedisScript<>(
+                    "if redis.call('exists', KEYS[1]) == 0 then return -1 end " +
+                            "local v = redis.call('incrby', KEYS[1], ARGV[1]) " +
+                            "if v < 0 then redis.call('del', KEYS[1]) end " +
+                            "return v",
+                    Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${database.row-count.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    /**
+     * Cached row count of the table, counted and cached when missing
+     *
+     * @param tbId table id
+     * @param execDev environment code
+     * @param counter counts the rows of the table
+     * @return row count
+     */
+    public long get(Long tbId, Integer execDev, Supplier<Long> counter) {
+        String key = key(tbId, execDev);
+        try {
+            String cached = stringRedisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return Long.parseLong(cached);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read cached row count, key={}: {}", key, e.getMessage());
+        }
+        Long counted = counter.get();
+        long count = counted == null ? 0 : counted;
+        try {
+            stringRedisTemplate.opsForValue().set(key, String.valueOf(count), Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            log.warn("Failed to cache row count, key={}: {}", key, e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * Move the cached count by rows inserted (positive) or deleted (negative); nothing happens when the
+     * count is not cached
+     */
+    public void adjust(Long tbId, Integer execDev, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        String key = key(tbId, execDev);
+        try {
+            stringRedisTemplate.execute(LUA_ADJUST, Collections.singletonList(key), String.valueOf(delta));
+        } catch (Exception e) {
+            log.warn("Failed to adjust cached row count, key={}, delta={}: {}", key, delta, e.getMessage());
+            evict(key);
+        }
+    }
+
+    /**
+     * Drop the cached counts of the table in every environment
+     */
+    public void evict(Long tbId) {
+        evict(key(tbId, 1));
+        evict(key(tbId, 2));
+        evict(key(tbId, null));
+    }
+
+    private void evict(String key) {
+        try {
+            stringRedisTemplate.delete(key);
+        } catch (Exception e) {
+            log.warn("Failed to evict cached row count, key={}: {}", key, e.getMessage());
+        }
+    }
+
+    private static String key(Long tbId, Integer execDev) {
+        return StrUtil.format(RedisKeyConstant.DB_TABLE_ROW_COUNT, tbId, execDev);
+    }
+}
@@ -448,11 +448,14 @@ public class CoreSystemService {
         }
         String body = params.toString();
         requestHeader.put(X_CONSUMER_USERNAME, apiUrl.getTenantId());
-        log.info("exec dml, url = {}, body = {}, header={}", url, body, requestHeader);
+        // Batched statements carry thousands of rows: only their size is logged at INFO
+        log.info("exec dml, url = {}, databaseId = {}, dml length = {}", url, databaseId, dml.length());
+        log.debug("exec dml, body = {}, header={}", body, requestHeader);
         String response = OkHttpUtil.post(url, requestHeader, body);
-        log.info("exec dml, response = {}", response);
+        log.debug("exec dml, response = {}", response);
         ApiResult<?> result = JSON.parseObject(response, ApiResult.class);
         if (result.code() != 0) {
+            log.warn("exec dml failed, databaseId = {}, response = {}", databaseId, response);
             throw new BusinessException(ResponseEnum.RESPONSE_FAILED, result.message());
         }
         try {
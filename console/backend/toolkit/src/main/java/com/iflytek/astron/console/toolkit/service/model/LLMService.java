@@ -27,6 +27,7 @@ import com.iflytek.astron.console.toolkit.entity.table.model.ModelCommon;
 import com.iflytek.astron.console.toolkit.entity.vo.LLMInfoVo;
 import com.iflytek.astron.console.toolkit.handler.UserInfoManagerHandler;
 import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.mapper.model.ModelMapper;
 import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
 import com.iflytek.astron.console.toolkit.tool.DataPermissionCheckTool;
@@ -60,6 +61,8 @@ public class LLMService {
 
     @Resource
     ConfigInfoMapper configInfoMapper;
+    @Resource
+    ConfigInfoRegistry configInfoRegistry;
 
 
     @Resource
@@ -115,7 +118,7 @@ public class LLMService {
         String userId = UserInfoManagerHandler.getUserId();
 
         // 3) Custom models (my models/custom models)
-        ConfigInfo selfModelConfig = configInfoMapper.getByCategoryAndCode("LLM_WORKFLOW_FILTER", "self-model");
+        ConfigInfo selfModelConfig = configInfoRegistry.getByCategoryAndCode("LLM_WORKFLOW_FILTER", "self-model");
         dealWithSelfModel(nodeType, selfModelConfig, userId, personalList);
         sceneFt.put("categoryName", "My Models");
         sceneFt.put("modelList", sceneFineTuneList);
@@ -163,13 +166,13 @@ public class LLMService {
                 if ("pre".equals(env)) {
                     lqw.eq(ConfigInfo::getCategory, "LLM_WORKFLOW_FILTER_PRE");
                     if ("agent".equals(nodeType)) {
-                        ConfigInfo summaryFilterCfg = configInfoMapper.getByCategoryAndCode("LLM_FILTER_PRE", "summary_agent");
+                        ConfigInfo summaryFilterCfg = configInfoRegistry.getByCategoryAndCode("LLM_FILTER_PRE", "summary_agent");
                         r.mcpModelFilter = StrUtil.split(summaryFilterCfg.getValue(), ",");
                     }
                 } else {
                     lqw.eq(ConfigInfo::getCategory, "LLM_WORKFLOW_FILTER");
                     if ("agent".equals(nodeType)) {
-                        ConfigInfo summaryFilterCfg = configInfoMapper.getByCategoryAndCode("LLM_FILTER", "summary_agent");
+                        ConfigInfo summaryFilterCfg = configInfoRegistry.getByCategoryAndCode("LLM_FILTER", "summary_agent");
                         r.mcpModelFilter = StrUtil.split(summaryFilterCfg.getValue(), ",");
                     }
                 }
@@ -180,8 +183,8 @@ public class LLMService {
             }
         } else {
             // Non-scene mode maintains original validation: plan/summary configuration must exist
-            ConfigInfo planFilterCfg = configInfoMapper.getByCategoryAndCode("LLM_FILTER", "plan");
-            ConfigInfo summaryFilterCfg = configInfoMapper.getByCategoryAndCode("LLM_FILTER", "summary");
+            ConfigInfo planFilterCfg = configInfoRegistry.getByCategoryAndCode("LLM_FILTER", "plan");
+            ConfigInfo summaryFilterCfg = configInfoRegistry.getByCategoryAndCode("LLM_FILTER", "summary");
             if (planFilterCfg == null || summaryFilterCfg == null) {
                 r.error = ApiResult.error(ResultStatus.FILTER_CONF_MISS.getCode(), ResultStatus.FILTER_CONF_MISS.getMessage());
                 return r;
@@ -345,10 +348,7 @@ public class LLMService {
                 vo.setCreateTime(modelCommon.getCreateTime());
                 vo.setUpdateTime(modelCommon.getUpdateTime());
                 vo.setUserName(modelCommon.getUserName());
-                ConfigInfo llmTag = configInfoMapper.selectOne(Wrappers.lambdaQuery(ConfigInfo.class)
-                        .eq(ConfigInfo::getCategory, "LLM_TAG")
-                        .eq(ConfigInfo::getCode, vo.getServiceId())
-                        .eq(ConfigInfo::getIsValid, 1));
+                ConfigInfo llmTag = configInfoRegistry.getByCategoryAndCode("LLM_TAG", vo.getServiceId());
                 if (llmTag != null) {
                     vo.setTag(JSON.parseArray(llmTag.getValue(), String.class));
                 }
@@ -356,7 +356,7 @@ public class LLMService {
                 vo.setUrl(modelCommon.getUrl());
                 // Temporary handling for gemma model
                 if (vo.getName().startsWith("gemma")) {
-                    ConfigInfo gemmaUrl = configInfoMapper.getByCategoryAndCode("gemma", "url");
+                    ConfigInfo gemmaUrl = configInfoRegistry.getByCategoryAndCode("gemma", "url");
                     if (gemmaUrl != null) {
                         vo.setUrl(gemmaUrl.getValue());
                     }
@@ -374,7 +374,7 @@ public class LLMService {
     }
 
     private void personalModel(List<LLMInfoVo> sceneSquareList, List<String> sceneFilter) {
-        List<ConfigInfo> specialModelCfgs = configInfoMapper.getListByCategory("PERSONAL_MODEL");
+        List<ConfigInfo> specialModelCfgs = configInfoRegistry.getListByCategory("PERSONAL_MODEL");
         for (ConfigInfo cfg : specialModelCfgs) {
             String specialModelInfo = cfg.getValue();
             LLMInfoVo llmInfoVo = JSON.parseObject(specialModelInfo, LLMInfoVo.class);
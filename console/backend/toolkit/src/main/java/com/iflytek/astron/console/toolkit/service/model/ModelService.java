@@ -37,6 +37,7 @@ import com.iflytek.astron.console.toolkit.entity.vo.model.ModelFileVo;
 import com.iflytek.astron.console.toolkit.handler.LocalModelHandler;
 import com.iflytek.astron.console.toolkit.handler.UserInfoManagerHandler;
 import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.mapper.bot.SparkBotMapper;
 import com.iflytek.astron.console.toolkit.mapper.model.ModelMapper;
 import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
@@ -111,6 +112,7 @@ public class ModelService extends ServiceImpl<ModelMapper, Model> {
     private final ModelMapper mapper;
     private final LLMService llmService;
     private final ConfigInfoMapper configInfoMapper;
+    private final ConfigInfoRegistry configInfoRegistry;
     private final RestTemplate restTemplate;
     private final S3Util s3UtilClient;
     private final WorkflowMapper workflowMapper;
@@ -213,7 +215,7 @@ public class ModelService extends ServiceImpl<ModelMapper, Model> {
     private String buildModelApiUrlNew(String baseUrl) {
         try {
             // Read IP blacklist from database
-            List<ConfigInfo> list = configInfoMapper.getListByCategory(CAT_IP_BLACKLIST);
+            List<ConfigInfo> list = configInfoRegistry.getListByCategory(CAT_IP_BLACKLIST);
             String rawBlacklist = (list != null && !list.isEmpty()) ? list.getFirst().getValue() : "";
             List<String> databaseBlacklist =
                     StrUtil.isBlank(rawBlacklist)
@@ -442,7 +444,7 @@ public class ModelService extends ServiceImpl<ModelMapper, Model> {
                                 .eq(Workflow::getDeleted, false));
 
         ConfigInfo selfModelConfig =
-                configInfoMapper.getByCategoryAndCode(CAT_LLM_WORKFLOW_FILTER, CODE_SELF_MODEL);
+                configInfoRegistry.getByCategoryAndCode(CAT_LLM_WORKFLOW_FILTER, CODE_SELF_MODEL);
         List<String> prefixAllowList =
                 Arrays.asList(Optional.ofNullable(selfModelConfig)
                         .map(ConfigInfo::getValue)
@@ -516,7 +518,7 @@ public class ModelService extends ServiceImpl<ModelMapper, Model> {
                                 .eq(Workflow::getDeleted, false));
 
         ConfigInfo selfModelConfig =
-                configInfoMapper.getByCategoryAndCode(CAT_LLM_WORKFLOW_FILTER, CODE_SELF_MODEL);
+                configInfoRegistry.getByCategoryAndCode(CAT_LLM_WORKFLOW_FILTER, CODE_SELF_MODEL);
         List<String> prefixAllowList =
                 Arrays.asList(Optional.ofNullable(selfModelConfig)
                         .map(ConfigInfo::getValue)
@@ -599,9 +601,9 @@ public class ModelService extends ServiceImpl<ModelMapper, Model> {
         List<String> summaryFilter;
         List<String> sceneFilter;
 
-        ConfigInfo planFilterCfg = configInfoMapper.getByCategoryAndCode(CAT_LLM_FILTER, CODE_FILTER_PLAN);
+        ConfigInfo planFilterCfg = configInfoRegistry.getByCategoryAndCode(CAT_LLM_FILTER, CODE_FILTER_PLAN);
         ConfigInfo summaryFilterCfg =
-                configInfoMapper.getByCategoryAndCode(CAT_LLM_FILTER, CODE_FILTER_SUMMARY);
+                configInfoRegistry.getByCategoryAndCode(CAT_LLM_FILTER, CODE_FILTER_SUMMARY);
         if (planFilterCfg == null || summaryFilterCfg == null) {
             return ApiResult.error(ResponseEnum.FILTER_CONF_MISS);
         }
@@ -634,7 +636,7 @@ public class ModelService extends ServiceImpl<ModelMapper, Model> {
         llmService.getDataFromModelShelfList(sceneSquareList, sceneFilter, dto.getUid(), null);
 
         // Special models
-        List<ConfigInfo> specialModelCfgs = configInfoMapper.getListByCategory(CAT_SPECIAL_MODEL);
+        List<ConfigInfo> specialModelCfgs = configInfoRegistry.getListByCategory(CAT_SPECIAL_MODEL);
         for (ConfigInfo cfg : specialModelCfgs) {
             LLMInfoVo vo = JSON.parseObject(cfg.getValue(), LLMInfoVo.class);
             if (vo == null) {
@@ -921,7 +923,7 @@ public class ModelService extends ServiceImpl<ModelMapper, Model> {
         List<Workflow> workflows = workflowMapper.selectList(lqw);
 
         ConfigInfo selfModelConfig =
-                configInfoMapper.getByCategoryAndCode(CAT_LLM_WORKFLOW_FILTER, CODE_SELF_MODEL);
+                configInfoRegistry.getByCategoryAndCode(CAT_LLM_WORKFLOW_FILTER, CODE_SELF_MODEL);
         List<String> prefixAllowList =
                 Arrays.asList(Optional.ofNullable(selfModelConfig)
                         .map(ConfigInfo::getValue)
@@ -1103,7 +1105,7 @@ public class ModelService extends ServiceImpl<ModelMapper, Model> {
             throw new BusinessException(ResponseEnum.RESPONSE_FAILED, "Flow list data is empty");
         }
 
-        ConfigInfo configInfo = configInfoMapper.getByCategoryAndCode("NODE_PREFIX_MODEL", "switch");
+        ConfigInfo configInfo = configInfoRegistry.getByCategoryAndCode("NODE_PREFIX_MODEL", "switch");
         String value = configInfo.getValue();
 
         // 2) Node prefix whitelist (prioritize configuration read, fallback to built-in)
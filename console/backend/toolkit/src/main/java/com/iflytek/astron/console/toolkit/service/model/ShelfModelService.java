@@ -11,7 +11,7 @@ import com.iflytek.astron.console.commons.response.ApiResult;
 import com.iflytek.astron.console.toolkit.entity.biz.workflow.BizWorkflowData;
 import com.iflytek.astron.console.toolkit.entity.biz.workflow.BizWorkflowNode;
 import com.iflytek.astron.console.toolkit.entity.table.ConfigInfo;
-import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.service.workflow.WorkflowService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -32,7 +32,7 @@ import java.util.*;
 @Slf4j
 public class ShelfModelService {
     @Autowired
-    private ConfigInfoMapper configInfoMapper;
+    private ConfigInfoRegistry configInfoRegistry;
     @Resource
     private WorkflowService workflowService;
 
@@ -67,7 +67,7 @@ public class ShelfModelService {
             throw new BusinessException(ResponseEnum.RESPONSE_FAILED, "Flow list data is empty");
         }
 
-        ConfigInfo configInfo = configInfoMapper.getByCategoryAndCode("NODE_PREFIX_MODEL", "switch");
+        ConfigInfo configInfo = configInfoRegistry.getByCategoryAndCode("NODE_PREFIX_MODEL", "switch");
         String value = configInfo.getValue();
 
         // 2) Node prefix whitelist (read from config first, fallback to built-in)
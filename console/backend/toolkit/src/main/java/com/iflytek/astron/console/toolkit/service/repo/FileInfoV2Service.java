@@ -32,10 +32,9 @@ import com.iflytek.astron.console.toolkit.entity.vo.repo.*;
 import com.iflytek.astron.console.toolkit.handler.UserInfoManagerHandler;
 import com.iflytek.astron.console.toolkit.mapper.repo.FileDirectoryTreeMapper;
 import com.iflytek.astron.console.toolkit.mapper.repo.FileInfoV2Mapper;
-import com.iflytek.astron.console.toolkit.service.common.ConfigInfoService;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.service.task.ExtractKnowledgeTaskService;
-import com.iflytek.astron.console.toolkit.task.EmbeddingFileTask;
-import com.iflytek.astron.console.toolkit.task.SliceFileTask;
+import com.iflytek.astron.console.toolkit.task.KnowledgeJobEngine;
 import com.iflytek.astron.console.toolkit.tool.DataPermissionCheckTool;
 import com.iflytek.astron.console.toolkit.tool.FileUploadTool;
 import com.iflytek.astron.console.toolkit.util.*;
@@ -65,7 +64,6 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -94,7 +92,7 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
     @Resource
     private FileInfoV2Mapper fileInfoV2Mapper;
     @Resource
-    private ConfigInfoService configInfoService;
+    private ConfigInfoRegistry configInfoRegistry;
     @Resource
     private S3Util s3UtilClient;
     @Resource
@@ -110,6 +108,8 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
     @Resource
     private ExtractKnowledgeTaskService extractKnowledgeTaskService;
     @Resource
+    private KnowledgeJobEngine knowledgeJobEngine;
+    @Resource
     private KnowledgeMapper knowledgeMapper;
     @Resource
     private PreviewKnowledgeMapper previewKnowledgeMapper;
@@ -173,18 +173,24 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
         Repo repo = repoService.getById(repoId);
         dataPermissionCheckTool.checkRepoBelong(repo);
 
-        // 4. Calculate character count
-        int charCount = countChars(file);
-
-        // 5. Source-specific validation
+        // 4. Size validation
         if (ProjectContent.isCbgRagCompatible(tag)) {
-            validateCbgFile(file, originalFilename, charCount);
+            validateCbgFileSize(file, originalFilename);
         } else if (ProjectContent.isAiuiRagCompatible(tag)) {
             validateAiuiFile(file, fileType, originalFilename);
         }
 
-        // 6. Upload & save
-        JSONObject uploadRes = fileUploadTool.uploadFile(file, tag);
+        // 5. Upload, counting characters and hashing the content in the same pass
+        JSONObject uploadRes;
+        ContentDigestInputStream content;
+        try (InputStream in = file.getInputStream()) {
+            content = new ContentDigestInputStream(in);
+            uploadRes = fileUploadTool.uploadFile(file, content, tag);
+            content.finish();
+        } catch (IOException e) {
+            log.error("uploadFile failed: reading upload failed, tag={}", tag, e);
+            throw new BusinessException(ResponseEnum.REPO_FILE_UPLOAD_FAILED);
+        }
         if (uploadRes == null) {
             log.error("uploadFile failed: uploadRes is null, tag={}", tag);
             throw new BusinessException(ResponseEnum.REPO_FILE_UPLOAD_FAILED);
@@ -194,16 +200,68 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
             log.error("uploadFile failed: s3Key missing in uploadRes, tag={}, uploadRes={}", tag, uploadRes);
             throw new BusinessException(ResponseEnum.REPO_FILE_UPLOAD_FAILED);
         }
+
+        // 6. Character count validation, possible only once the content has been read
+        if (ProjectContent.isCbgRagCompatible(tag) && exceedsCbgCharCount(originalFilename, content.getCharCount())) {
+            s3UtilClient.deleteObject(s3Key);
+            throw new BusinessException(ResponseEnum.REPO_FILE_UPLOAD_FAILED_WORDS_100W);
+        }
+
+        // 7. The same content already listed in this directory is reused, with its parse results
+        FileInfoV2 existing = findSameContent(repoId, parentId, tag, content.getContentHash());
+        if (existing != null) {
+            log.info("uploadFile: content of {} already in directory {} of repo {} as file {}, reusing it",
+                    originalFilename, parentId, repoId, existing.getId());
+            s3UtilClient.deleteObject(s3Key);
+            return existing;
+        }
+
         return createFile(
                 repoId,
                 UUID.randomUUID().toString().replace("-", ""),
                 originalFilename,
                 parentId,
                 s3Key,
-                file.getSize(),
-                (long) charCount,
+                content.getSize(),
+                content.getCharCount(),
                 0,
-                tag);
+                tag,
+                content.getContentHash());
+    }
+
+    /**
+     * Find a live file of the directory with the given content. Only files still listed in the
+     * directory tree count: a deleted file keeps its record but not its tree entry or knowledge, and a
+     * file only gets its tree entry once sliced, so concurrent uploads of the same content each get a
+     * record of their own rather than sharing one. Files being parsed are skipped, as slicing them
+     * again is refused.
+     *
+     * @param repoId repository ID
+     * @param parentId parent directory ID
+     * @param tag file source tag
+     * @param contentHash SHA-256 of the content
+     * @return the oldest such file, or null if there is none
+     */
+    private FileInfoV2 findSameContent(Long repoId, Long parentId, String tag, String contentHash) {
+        List<FileInfoV2> candidates = list(new QueryWrapper<FileInfoV2>()
+                .eq("repo_id", repoId)
+                .eq("source", tag)
+                .eq("content_hash", contentHash)
+                .eq("pid", parentId)
+                .ne("status", ProjectContent.FILE_PARSE_DOING)
+                .orderByAsc("id"));
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Set<Long> listed = fileDirectoryTreeService.list(Wrappers.lambdaQuery(FileDirectoryTree.class)
+                .eq(FileDirectoryTree::getAppId, repoId.toString())
+                .eq(FileDirectoryTree::getParentId, parentId)
+                .eq(FileDirectoryTree::getIsFile, 1)
+                .in(FileDirectoryTree::getFileId, candidates.stream().map(FileInfoV2::getId).toList()))
+                .stream()
+                .map(FileDirectoryTree::getFileId)
+                .collect(Collectors.toSet());
+        return candidates.stream().filter(file -> listed.contains(file.getId())).findFirst().orElse(null);
     }
 
 
@@ -253,34 +311,13 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
     }
 
     /**
-     * Count characters in uploaded file
-     *
-     * @param file the uploaded file to count characters
-     * @return total character count including newlines
-     */
-    private int countChars(MultipartFile file) {
-        int charCount = 0;
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                charCount += line.length() + 1; // including newlines
-            }
-        } catch (IOException e) {
-            log.error("Failed to get file character count", e);
-        }
-        return charCount;
-    }
-
-    /**
-     * Validate CBG file constraints
+     * Validate CBG file size constraints
      *
      * @param file uploaded file
      * @param originalFilename original filename
-     * @param charCount character count
-     * @throws BusinessException if file size or character count exceeds limits
+     * @throws BusinessException if file size exceeds limits
      */
-    private void validateCbgFile(MultipartFile file, String originalFilename, int charCount) {
+    private void validateCbgFileSize(MultipartFile file, String originalFilename) {
         long size = file.getSize();
         if (checkIsPic(originalFilename)) {
             if (size > 5 * 1024 * 1024) {
@@ -291,11 +328,19 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                 throw new BusinessException(ResponseEnum.REPO_FILE_UPLOAD_FAILED_FILE_20MB);
             }
         }
-        if (cbgRagMaxCharCount < charCount
+    }
+
+    /**
+     * Check the CBG character limit, which applies to text files
+     *
+     * @param originalFilename original filename
+     * @param charCount character count
+     * @return true if the file has more characters than allowed
+     */
+    private boolean exceedsCbgCharCount(String originalFilename, long charCount) {
+        return cbgRagMaxCharCount < charCount
                 && originalFilename != null
-                && getFileFormat(originalFilename).equalsIgnoreCase(ProjectContent.TXT_FILE_TYPE)) {
-            throw new BusinessException(ResponseEnum.REPO_FILE_UPLOAD_FAILED_WORDS_100W);
-        }
+                && getFileFormat(originalFilename).equalsIgnoreCase(ProjectContent.TXT_FILE_TYPE);
     }
 
     /**
@@ -386,7 +431,20 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
      */
     public FileInfoV2 createFile(Long repoId, String sourceId, String originalFilename, Long parentId, String s3Key,
             Long size, Long charCount, Integer enable, String tag) {
+        return createFile(repoId, sourceId, originalFilename, parentId, s3Key, size, charCount, enable, tag, null);
+    }
+
+    /**
+     * Create file record in database, recording the hash of its content
+     *
+     * @param contentHash SHA-256 of the file content; may be null
+     * @return created FileInfoV2 object
+     * @see #createFile(Long, String, String, Long, String, Long, Long, Integer, String)
+     */
+    public FileInfoV2 createFile(Long repoId, String sourceId, String originalFilename, Long parentId, String s3Key,
+            Long size, Long charCount, Integer enable, String tag, String contentHash) {
         FileInfoV2 fileInfoV2 = new FileInfoV2();
+        fileInfoV2.setContentHash(contentHash);
         fileInfoV2.setUuid(sourceId);
         fileInfoV2.setUid(UserInfoManagerHandler.getUserId());
         fileInfoV2.setRepoId(repoId);
@@ -481,7 +539,8 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
      * @return Result indicating success or failure of slicing operation
      * @throws InterruptedException if thread execution is interrupted
      * @throws ExecutionException if execution fails
-     * @throws BusinessException if files are currently being parsed or slice range is invalid
+     * @throws BusinessException if files are currently being parsed, slice range is invalid or no file
+     *         could be queued
      */
     public Result<Boolean> sliceFiles(DealFileVO sliceFileVO) throws InterruptedException, ExecutionException {
         Long spaceId = SpaceInfoUtil.getSpaceId();
@@ -521,9 +580,8 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                     .map(Long::valueOf)
                     .collect(Collectors.toList());
             if (!CollectionUtils.isEmpty(fileIds)) {
-                ExecutorService executorService = Executors.newFixedThreadPool(fileIds.size());
                 List<FileInfoV2> fileInfoV2List = fileInfoV2Mapper.listByIds(fileIds);
-                List<Future<Boolean>> futures = new ArrayList<>();
+                boolean allFailed = true;
                 for (FileInfoV2 fileInfoV2 : fileInfoV2List) {
                     if (null == spaceId) {
                         dataPermissionCheckTool.checkFileBelong(fileInfoV2);
@@ -563,15 +621,7 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                     fileInfoV2.setCurrentSliceConfig(JSON.toJSONString(sliceConfig));
                     fileInfoV2.setStatus(ProjectContent.FILE_PARSE_DOING);
                     fileInfoV2Mapper.updateById(fileInfoV2);
-                    Future<Boolean> future = executorService.submit(new SliceFileTask(this, fileInfoV2.getId(), sliceConfig, 0));
-                    futures.add(future);
-                }
-                executorService.shutdown();
-                boolean ignoreVar = executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-                boolean allFailed = true;
-                for (Future<Boolean> future : futures) {
-                    Boolean result = future.get();
-                    if (result) {
+                    if (sliceFile(fileInfoV2.getId(), sliceConfig, 0).isParseSuccess()) {
                         allFailed = false;
                     }
                 }
@@ -585,12 +635,13 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
 
 
     /**
-     * Slice a single file into knowledge chunks
+     * Queue a single file for slicing into knowledge chunks; the slicing itself is run by
+     * {@link KnowledgeJobEngine}
      *
      * @param fileId ID of the file to be sliced
      * @param sliceConfig configuration for slicing operation
      * @param backEmbedding flag indicating whether to trigger embedding after slicing (0=no, 1=yes)
-     * @return DealFileResult containing processing result and task information
+     * @return DealFileResult telling whether the file was queued, with task information
      * @throws BusinessException if file type is not supported
      */
     @Transactional
@@ -599,22 +650,7 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
         boolean parseSuccess = false;
         FileInfoV2 fileInfoV2 = this.getById(fileId);
         if (fileInfoV2 != null) {
-            // Type mapping
-            LambdaQueryWrapper<ConfigInfo> wrapper = Wrappers.lambdaQuery(ConfigInfo.class).eq(ConfigInfo::getCategory, "FILE_TYPE_MAPPING").eq(ConfigInfo::getIsValid, 1);
-            String type = fileInfoV2.getType();
-            if (!StringUtils.isEmpty(type)) {
-                wrapper.eq(ConfigInfo::getName, type);
-            }
-
-            ConfigInfo configInfo = configInfoService.getOnly(wrapper);
-            if (configInfo != null) {
-                type = configInfo.getValue();
-            }
-            // Asynchronous knowledge extraction
-            String address = fileInfoV2.getAddress();
-            if (!ProjectContent.HTML_FILE_TYPE.equals(type) && address.startsWith("sparkBot")) {
-                address = s3UtilClient.getS3Url(address);
-            }
+            String type = resolveFileType(fileInfoV2);
             // CBG-RAG file type validation failed
             String source = fileInfoV2.getSource();
             if (ProjectContent.isCbgRagCompatible(source)) {
@@ -631,17 +667,15 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                 extractKnowledgeTask.setFileId(fileId);
                 extractKnowledgeTask.setStatus(0);
                 extractKnowledgeTask.setUserId(fileInfoV2.getUid());
-                // extractKnowledgeTask.setSliceConfig(JSON.toJSONString(sliceConfig));
+                extractKnowledgeTask.setSpaceId(fileInfoV2.getSpaceId());
+                extractKnowledgeTask.setSliceConfig(JSON.toJSONString(sliceConfig));
+                extractKnowledgeTask.setBackEmbedding(backEmbedding);
                 extractKnowledgeTask.setTaskStatus(0);
                 Timestamp timestamp = new Timestamp(System.currentTimeMillis());
                 extractKnowledgeTask.setCreateTime(timestamp);
                 extractKnowledgeTask.setUpdateTime(timestamp);
                 extractKnowledgeTaskService.save(extractKnowledgeTask);
-                if (backEmbedding == 0) {
-                    knowledgeService.knowledgeExtractAsync(type, address, sliceConfig, fileInfoV2, extractKnowledgeTask);
-                } else {
-                    knowledgeService.knowledgeEmbeddingExtractAsync(type, address, sliceConfig, fileInfoV2, extractKnowledgeTask, this);
-                }
+                knowledgeJobEngine.wakeUp();
                 fileInfoV2.setStatus(ProjectContent.FILE_PARSE_DOING);
                 parseSuccess = true;
             } catch (Exception e) {
@@ -658,6 +692,77 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
         return dealFileResult;
     }
 
+    /**
+     * Parse a file for a task claimed by {@link KnowledgeJobEngine}
+     *
+     * @param task parsing task
+     * @return true if parsing succeeded and the file is to be embedded next
+     */
+    public boolean runSliceTask(ExtractKnowledgeTask task) {
+        FileInfoV2 fileInfoV2 = this.getById(task.getFileId());
+        if (fileInfoV2 == null || !Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_PARSE_DOING)) {
+            closeStaleTask(task);
+            return false;
+        }
+        String type = resolveFileType(fileInfoV2);
+        SliceConfig sliceConfig = JSON.parseObject(StringUtils.defaultIfEmpty(task.getSliceConfig(), fileInfoV2.getSliceConfig()), SliceConfig.class);
+        if (!knowledgeService.knowledgeExtract(type, resolveFileAddress(fileInfoV2, type), sliceConfig, fileInfoV2, task)) {
+            return false;
+        }
+        // Embedding may have been asked for while the file was being parsed
+        ExtractKnowledgeTask latest = extractKnowledgeTaskService.getById(task.getId());
+        return latest != null && Objects.equals(latest.getBackEmbedding(), 1);
+    }
+
+    /**
+     * Embed a file for a task claimed by {@link KnowledgeJobEngine}
+     *
+     * @param task embedding task
+     */
+    @Transactional
+    public void runEmbeddingTask(ExtractKnowledgeTask task) {
+        FileInfoV2 fileInfoV2 = this.getById(task.getFileId());
+        if (fileInfoV2 == null || !Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_EMBEDDING_DOING)) {
+            closeStaleTask(task);
+            return;
+        }
+        embeddingFile(fileInfoV2.getId(), fileInfoV2.getSpaceId());
+    }
+
+    /**
+     * Close a task left behind by a crash whose file has since moved on
+     */
+    private void closeStaleTask(ExtractKnowledgeTask task) {
+        log.info("Closing stale knowledge task {}, file {} is no longer waiting for it", task.getId(), task.getFileId());
+        task.setStatus(2);
+        task.setTaskStatus(task.getTaskStatus() + 1);
+        task.setReason("Superseded");
+        task.setUpdateTime(new Timestamp(System.currentTimeMillis()));
+        extractKnowledgeTaskService.updateById(task);
+    }
+
+    /**
+     * Resolve the content type used for extraction through the FILE_TYPE_MAPPING configuration
+     */
+    private String resolveFileType(FileInfoV2 fileInfoV2) {
+        String type = fileInfoV2.getType();
+        ConfigInfo configInfo = StringUtils.isEmpty(type)
+                ? configInfoRegistry.getFirstByCategory("FILE_TYPE_MAPPING")
+                : configInfoRegistry.getByCategoryAndName("FILE_TYPE_MAPPING", type);
+        if (configInfo != null) {
+            type = configInfo.getValue();
+        }
+        return type;
+    }
+
+    private String resolveFileAddress(FileInfoV2 fileInfoV2, String type) {
+        String address = fileInfoV2.getAddress();
+        if (!ProjectContent.HTML_FILE_TYPE.equals(type) && address.startsWith("sparkBot")) {
+            address = s3UtilClient.getS3Url(address);
+        }
+        return address;
+    }
+
 
     /**
      * List preview knowledge by page with pagination support
@@ -1051,7 +1156,6 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                     .map(Long::valueOf) // Convert String to Long
                     .collect(Collectors.toList());
             if (!CollectionUtils.isEmpty(fileIds)) {
-                ExecutorService executorService = Executors.newFixedThreadPool(fileIds.size());
                 for (Long fileId : fileIds) {
                     FileInfoV2 fileInfo = this.getById(fileId);
                     if (fileInfo == null) {
@@ -1080,28 +1184,40 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                     }
                     fileDirectoryTree.setStatus(1);
                     fileDirectoryTreeMapper.updateById(fileDirectoryTree);
-                    executorService.execute(() -> {
-                        int count = 0;
-                        while (true) {
-                            FileInfoV2 fileInfoV2 = fileInfoV2Mapper.selectById(fileId);
-                            if (Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_PARSE_FAILED)) {
-                                break;
-                            }
-                            if (Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_PARSE_SUCCESSED)
-                                    || Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_EMBEDDING_DOING)
-                                    || Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_EMBEDDING_FAILED)
-                                    || Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_EMBEDDING_SUCCESSED)) {
-                                saveTaskAndUpdateFileStatus(fileId);
-                                new EmbeddingFileTask(this, fileId, fileInfoV2.getSpaceId()).run();
-                                break;
-                            }
-                        }
-                    });
+                    queueEmbedding(fileInfo);
                 }
             }
         }
     }
 
+    /**
+     * Queue the embedding of a file: right away if it is parsed, or once its pending parsing task
+     * succeeds
+     *
+     * @param fileInfo file to embed
+     */
+    private void queueEmbedding(FileInfoV2 fileInfo) {
+        Long fileId = fileInfo.getId();
+        Integer status = fileInfo.getStatus();
+        if (Objects.equals(status, ProjectContent.FILE_PARSE_DOING) && extractKnowledgeTaskService.requestBackEmbedding(fileId)) {
+            return;
+        }
+        if (!isParsed(status)) {
+            // The parsing task may have finished in between
+            FileInfoV2 latest = this.getById(fileId);
+            status = latest == null ? null : latest.getStatus();
+        }
+        if (isParsed(status)) {
+            saveTaskAndUpdateFileStatus(fileId);
+        } else {
+            log.info("Embedding of file {} not queued, file status is {}", fileId, status);
+        }
+    }
+
+    private static boolean isParsed(Integer status) {
+        return status != null && status >= ProjectContent.FILE_PARSE_SUCCESSED;
+    }
+
     /**
      * Extract cookies from HTTP request and format them as cookie string
      *
@@ -1210,7 +1326,6 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                     .map(Long::valueOf) // Convert String to Long
                     .collect(Collectors.toList());
             if (!CollectionUtils.isEmpty(fileIds)) {
-                ExecutorService executorService = Executors.newFixedThreadPool(fileIds.size());
                 for (Long fileId : fileIds) {
                     FileInfoV2 fileInfo = this.getById(fileId);
                     if (fileInfo == null) {
@@ -1239,36 +1354,7 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                     }
                     fileDirectoryTree.setStatus(1);
                     fileDirectoryTreeMapper.updateById(fileDirectoryTree);
-                    executorService.execute(() -> {
-                        int count = 0;
-                        while (true) {
-                            FileInfoV2 fileInfoV2 = fileInfoV2Mapper.selectById(fileId);
-                            // if(Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_EMBEDDING_SUCCESSED)){
-                            // if (count > 10) {
-                            // break;
-                            // }
-                            // count++;
-                            // // Wait 3 seconds before checking again
-                            // try {
-                            // Thread.sleep(3000);
-                            // } catch (InterruptedException e) {
-                            // throw new RuntimeException(e);
-                            // }
-                            // continue;
-                            // }
-                            if (Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_PARSE_FAILED)) {
-                                break;
-                            }
-                            if (Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_PARSE_SUCCESSED)
-                                    || Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_EMBEDDING_DOING)
-                                    || Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_EMBEDDING_FAILED)
-                                    || Objects.equals(fileInfoV2.getStatus(), ProjectContent.FILE_EMBEDDING_SUCCESSED)) {
-                                saveTaskAndUpdateFileStatus(fileId);
-                                new EmbeddingFileTask(this, fileId, fileInfoV2.getSpaceId()).run();
-                                break;
-                            }
-                        }
-                    });
+                    queueEmbedding(fileInfo);
                 }
             }
         }
@@ -1298,17 +1384,15 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
         if (CollectionUtils.isEmpty(fileIds))
             return;
 
-        ExecutorService pool = Executors.newFixedThreadPool(fileIds.size());
         List<FileInfoV2> files = fileInfoV2Mapper.listByIds(fileIds);
         for (FileInfoV2 f : files) {
             if (Objects.equals(f.getStatus(), ProjectContent.FILE_PARSE_FAILED)) {
-                handleParseFailedRetry(f, sliceFileVO, spaceId, pool);
+                handleParseFailedRetry(f, sliceFileVO, spaceId);
             } else if (Objects.equals(f.getStatus(), ProjectContent.FILE_EMBEDDING_FAILED)) {
-                handleEmbeddingFailedRetry(f, sliceFileVO, spaceId, pool);
+                handleEmbeddingFailedRetry(f, sliceFileVO, spaceId);
             }
             // Other statuses: No processing (consistent with original logic)
         }
-        pool.shutdown();
     }
     /* ======================== Private Methods ======================== */
 
@@ -1351,15 +1435,14 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
 
     /**
      * Parse failure retry: Reset/write directory tree → Validate range/separators → Set status to
-     * parsing → Execute slicing asynchronously (auto-trigger subsequent embedding)
+     * parsing → Queue slicing (auto-trigger subsequent embedding)
      *
      * @param file file information object
      * @param vo deal file parameters
      * @param spaceId space ID for permission checking
-     * @param pool thread pool for async execution
      * @throws BusinessException if file is currently being parsed or range is invalid
      */
-    private void handleParseFailedRetry(FileInfoV2 file, DealFileVO vo, Long spaceId, ExecutorService pool) {
+    private void handleParseFailedRetry(FileInfoV2 file, DealFileVO vo, Long spaceId) {
         // Auto separator fallback
         ensureSeparatorDefault(vo.getSliceConfig());
 
@@ -1385,20 +1468,19 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
         file.setStatus(ProjectContent.FILE_PARSE_DOING);
         fileInfoV2Mapper.updateById(file);
 
-        // Execute slicing task asynchronously (with backEmbedding flag set to 1)
-        pool.execute(() -> new SliceFileTask(this, file.getId(), sc, 1).call());
+        // Queue slicing task (with backEmbedding flag set to 1)
+        sliceFile(file.getId(), sc, 1);
     }
 
     /**
-     * Embedding failure retry: Set to parse success → Wait for embeddable → Save task/make directory
-     * visible → Trigger embedding task
+     * Embedding failure retry: Set to parse success → Save task/make directory visible → Queue
+     * embedding task
      *
      * @param file file information object
      * @param vo deal file parameters
      * @param spaceId space ID for permission checking
-     * @param pool thread pool for async execution
      */
-    private void handleEmbeddingFailedRetry(FileInfoV2 file, DealFileVO vo, Long spaceId, ExecutorService pool) {
+    private void handleEmbeddingFailedRetry(FileInfoV2 file, DealFileVO vo, Long spaceId) {
         // Only validate file ownership during foreground retry (consistent with original logic)
         if (vo.getIsBackTask() == null && spaceId == null) {
             dataPermissionCheckTool.checkFileBelong(file);
@@ -1408,29 +1490,17 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
         file.setStatus(ProjectContent.FILE_PARSE_SUCCESSED);
         fileInfoV2Mapper.updateById(file);
 
-        pool.execute(() -> {
-            while (true) {
-                FileInfoV2 latest = fileInfoV2Mapper.selectById(file.getId());
-                if (Objects.equals(latest.getStatus(), ProjectContent.FILE_PARSE_FAILED))
-                    break;
-                if (Objects.equals(latest.getStatus(), ProjectContent.FILE_PARSE_SUCCESSED)) {
-                    // Save task and update file status to embedding_doing
-                    saveTaskAndUpdateFileStatus(file.getId());
-                    // Make directory visible
-                    FileDirectoryTree tree = fileDirectoryTreeService.getOnly(
-                            Wrappers.lambdaQuery(FileDirectoryTree.class)
-                                    .eq(FileDirectoryTree::getAppId, file.getRepoId())
-                                    .eq(FileDirectoryTree::getFileId, file.getId()));
-                    if (tree != null) {
-                        tree.setStatus(1);
-                        fileDirectoryTreeMapper.updateById(tree);
-                    }
-                    // Trigger embedding
-                    new EmbeddingFileTask(this, file.getId(), file.getSpaceId()).run();
-                    break;
-                }
-            }
-        });
+        // Make directory visible
+        FileDirectoryTree tree = fileDirectoryTreeService.getOnly(
+                Wrappers.lambdaQuery(FileDirectoryTree.class)
+                        .eq(FileDirectoryTree::getAppId, file.getRepoId())
+                        .eq(FileDirectoryTree::getFileId, file.getId()));
+        if (tree != null) {
+            tree.setStatus(1);
+            fileDirectoryTreeMapper.updateById(tree);
+        }
+        // Save task and update file status to embedding_doing
+        saveTaskAndUpdateFileStatus(file.getId());
     }
 
     /**
@@ -1489,7 +1559,8 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
     }
 
     /**
-     * Save extraction task and update file status to embedding in progress
+     * Save extraction task and update file status to embedding in progress; the embedding itself is
+     * run by {@link KnowledgeJobEngine}
      *
      * @param fileId ID of the file to process
      */
@@ -1514,12 +1585,14 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
                 extractKnowledgeTask.setFileId(fileId);
                 extractKnowledgeTask.setStatus(0);
                 extractKnowledgeTask.setUserId(fileInfoV2.getUid());
+                extractKnowledgeTask.setSpaceId(fileInfoV2.getSpaceId());
                 extractKnowledgeTask.setTaskStatus(2);
                 Timestamp timestamp = new Timestamp(System.currentTimeMillis());
                 extractKnowledgeTask.setCreateTime(timestamp);
                 extractKnowledgeTask.setUpdateTime(timestamp);
                 extractKnowledgeTaskService.save(extractKnowledgeTask);
             }
+            knowledgeJobEngine.wakeUp();
         }
     }
 
@@ -1532,52 +1605,6 @@ public class FileInfoV2Service extends ServiceImpl<FileInfoV2Mapper, FileInfoV2>
     }
 
 
-    @Transactional
-    public void continueSliceOrEmbeddingFile() {
-        log.info("Starting to rerun knowledge base embedding tasks");
-        List<ExtractKnowledgeTask> tasks = extractKnowledgeTaskService.list(
-                Wrappers.lambdaQuery(ExtractKnowledgeTask.class).eq(ExtractKnowledgeTask::getStatus, 0).isNotNull(ExtractKnowledgeTask::getTaskStatus));
-        if (CollectionUtils.isEmpty(tasks)) {
-            return;
-        }
-        // Get tasks that need to be rerun
-        List<ExtractKnowledgeTask> distinctTasks = tasks.stream()
-                .collect(Collectors.toMap(
-                        ExtractKnowledgeTask::getFileId,
-                        Function.identity(),
-                        (existing, replacement) -> existing.getCreateTime().after(replacement.getCreateTime()) ? existing : replacement))
-                .values()
-                .stream()
-                .collect(Collectors.toList());
-        // Rerun parsing and embedding tasks
-        // List<ExtractKnowledgeTask> spliceTask = distinctTasks.stream().filter(item -> item.getTag() ==
-        // 1).collect(Collectors.toList());
-        // if(!CollectionUtils.isEmpty(spliceTask)){
-        // ObjectMapper objectMapper = new ObjectMapper();
-        // for (ExtractKnowledgeTask extractKnowledgeTask : spliceTask) {
-        // String sliceConfigJson = extractKnowledgeTask.getSliceConfig();
-        // SliceConfig sliceConfig = objectMapper.readValue(sliceConfigJson, SliceConfig.class);
-        // sliceFile(extractKnowledgeTask.getFileId(),sliceConfig);
-        // }
-        // }
-        // Rerun embedding tasks
-        List<ExtractKnowledgeTask> embeddingTask = distinctTasks.stream().filter(item -> item.getTaskStatus() == 2).collect(Collectors.toList());
-        log.info("Number of knowledge base tasks that need to be rerun: {}", embeddingTask.size());
-        if (!CollectionUtils.isEmpty(embeddingTask)) {
-            for (ExtractKnowledgeTask extractKnowledgeTask : embeddingTask) {
-                FileInfoV2 fileInfoV2 = this.getById(extractKnowledgeTask.getFileId());
-                DealFileVO dealFileVO = new DealFileVO();
-                dealFileVO.setFileIds(Arrays.asList(extractKnowledgeTask.getFileId().toString()));
-                dealFileVO.setTag(fileInfoV2.getSource());
-                dealFileVO.setRepoId(fileInfoV2.getRepoId());
-                dealFileVO.setIsBackTask(1);
-                embeddingFiles(dealFileVO, null);
-            }
-        }
-        log.info("Knowledge base embedding task rerun completed");
-
-    }
-
     /**
      * Get indexing status of files
      *
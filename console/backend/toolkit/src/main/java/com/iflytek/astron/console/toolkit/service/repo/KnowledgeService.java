@@ -1,9 +1,10 @@
 package com.iflytek.astron.console.toolkit.service.repo;
 
-import cn.hutool.core.thread.ThreadFactoryBuilder;
 import com.alibaba.fastjson2.*;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.collect.Lists;
 import com.iflytek.astron.console.commons.constant.ResponseEnum;
 import com.iflytek.astron.console.commons.exception.BusinessException;
 import com.iflytek.astron.console.toolkit.common.constant.ProjectContent;
@@ -22,33 +23,30 @@ import com.iflytek.astron.console.toolkit.entity.vo.repo.KnowledgeVO;
 import com.iflytek.astron.console.toolkit.handler.KnowledgeV2ServiceCallHandler;
 import com.iflytek.astron.console.toolkit.mapper.repo.FileInfoV2Mapper;
 import com.iflytek.astron.console.toolkit.service.task.ExtractKnowledgeTaskService;
+import com.iflytek.astron.console.toolkit.task.KnowledgePushScheduler;
 import com.iflytek.astron.console.toolkit.tool.DataPermissionCheckTool;
+import com.iflytek.astron.console.toolkit.util.InputStreamRequestBody;
 import com.iflytek.astron.console.toolkit.util.S3Util;
+import io.minio.GetObjectResponse;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -56,6 +54,11 @@ import java.util.stream.Collectors;
 @Service
 @Slf4j
 public class KnowledgeService {
+    /** Rows per multi-row insert when saving knowledge chunks */
+    private static final int BULK_WRITE_BATCH_SIZE = 500;
+    /** Ids per delete statement when removing knowledge chunks */
+    private static final int BULK_DELETE_BATCH_SIZE = 1000;
+
     @Resource
     private KnowledgeV2ServiceCallHandler knowledgeV2ServiceCallHandler;
     @Resource
@@ -80,6 +83,8 @@ public class KnowledgeService {
     private KnowledgeMapper knowledgeMapper;
     @Resource
     private PreviewKnowledgeMapper previewKnowledgeMapper;
+    @Resource
+    private KnowledgePushScheduler knowledgePushScheduler;
 
 
     /**
@@ -430,7 +435,7 @@ public class KnowledgeService {
 
 
     /**
-     * Asynchronously extract knowledge from document content.
+     * Extract knowledge from document content; run by the knowledge job workers.
      * <p>
      * Behavior keeps parity with original implementation:
      * <ul>
@@ -447,9 +452,9 @@ public class KnowledgeService {
      * @param sliceConfig chunking configuration
      * @param fileInfoV2 file info
      * @param extractKnowledgeTask task status carrier
+     * @return true if the document was chunked and the chunks saved
      */
-    @Async
-    public void knowledgeExtractAsync(String contentType, String url,
+    public boolean knowledgeExtract(String contentType, String url,
             SliceConfig sliceConfig,
             FileInfoV2 fileInfoV2,
             ExtractKnowledgeTask extractKnowledgeTask) {
@@ -461,7 +466,7 @@ public class KnowledgeService {
         if (ProjectContent.isCbgRagCompatible(source)) {
             response = doCbgUploadSplit(sliceConfig, fileInfoV2, extractKnowledgeTask);
             if (response == null)
-                return; // already updated status on failure
+                return false; // already updated status on failure
         } else {
             response = doUrlSplit(url, sliceConfig, fileInfoV2);
         }
@@ -472,13 +477,13 @@ public class KnowledgeService {
             log.error("Document chunking failed : {}", errMsg);
             updateTaskAndFileStatus(fileInfoV2, extractKnowledgeTask,
                     "Document chunking failed, " + errMsg, false);
-            return;
+            return false;
         }
 
         // 3) Parse data -> List<ChunkInfo>
         final List<ChunkInfo> chunkInfos = parseChunkInfosOrFail(response, fileInfoV2, extractKnowledgeTask);
         if (chunkInfos == null)
-            return; // status updated inside on failure
+            return false; // status updated inside on failure
 
         // 4) Empty result guard with image-specific hint
         if (chunkInfos.isEmpty()) {
@@ -486,7 +491,7 @@ public class KnowledgeService {
                     ? "Document cannot be chunked, please check if the image contains text"
                     : "Document cannot be chunked, please check if the file meets upload requirements";
             updateTaskAndFileStatus(fileInfoV2, extractKnowledgeTask, reason, false);
-            return;
+            return false;
         }
 
         // 5) Persist preview chunks
@@ -503,20 +508,20 @@ public class KnowledgeService {
 
         // 8) Final success status
         updateTaskAndFileStatus(fileInfoV2, extractKnowledgeTask, null, true);
+        return true;
     }
 
-    /** CBG: upload S3 stream and call documentUpload; on failure update status & return null. */
+    /** CBG: stream the S3 object into documentUpload; on failure update status & return null. */
     private KnowledgeResponse doCbgUploadSplit(SliceConfig sliceConfig,
             FileInfoV2 fileInfoV2,
             ExtractKnowledgeTask extractKnowledgeTask) {
-        try (InputStream fileStream = s3Util.getObject(fileInfoV2.getAddress())) {
+        try (GetObjectResponse fileStream = s3Util.openObject(fileInfoV2.getAddress())) {
             if (fileStream == null) {
                 updateTaskAndFileStatus(fileInfoV2, extractKnowledgeTask, "Failed to get file from S3", false);
                 return null;
             }
-            byte[] fileBytes = inputStreamToByteArray(fileStream);
-            MultipartFile multipartFile = new MockMultipartFile(
-                    "file", fileInfoV2.getName(), "application/octet-stream", fileBytes);
+            InputStreamRequestBody file = new InputStreamRequestBody(fileStream, S3Util.contentLength(fileStream),
+                    MediaType.parse("application/octet-stream"), fileInfoV2.getName());
 
             List<String> sliceConf = sliceConfig.getSeperator();
             List<String> separator = (sliceConf != null && !sliceConf.isEmpty())
@@ -526,7 +531,7 @@ public class KnowledgeService {
             Integer resourceType = ProjectContent.HTML_FILE_TYPE.equals(fileInfoV2.getType()) ? 1 : 0;
 
             return knowledgeV2ServiceCallHandler.documentUpload(
-                    multipartFile, sliceConfig.getLengthRange(), separator,
+                    file, sliceConfig.getLengthRange(), separator,
                     fileInfoV2.getSource(), resourceType);
 
         } catch (Exception e) {
@@ -608,87 +613,6 @@ public class KnowledgeService {
         }
     }
 
-    /**
-     * Asynchronously extract and embed knowledge from document content.
-     * <p>
-     * Behavior parity with the original:
-     * </p>
-     * <ul>
-     * <li>CBG source ⇒ upload file stream from S3; others ⇒ split by URL.</li>
-     * <li>On non-zero response code, when code==11111 extract the inner message.</li>
-     * <li>On empty chunks, set image/non-image specific friendly reason.</li>
-     * <li>Persist preview chunks, update charCount & lastUuid, then update statuses.</li>
-     * <li>On success, call {@code saveTaskAndUpdateFileStatus} and {@code embeddingFile}.</li>
-     * </ul>
-     *
-     * @param contentType MIME type of the document content
-     * @param url the URL of the document to be processed
-     * @param sliceConfig configuration for document slicing/chunking
-     * @param fileInfoV2 file information object containing metadata
-     * @param extractKnowledgeTask task object to track extraction progress
-     * @param fileInfoV2Service service for file information operations
-     */
-    @Async
-    public void knowledgeEmbeddingExtractAsync(String contentType, String url,
-            SliceConfig sliceConfig,
-            FileInfoV2 fileInfoV2,
-            ExtractKnowledgeTask extractKnowledgeTask,
-            FileInfoV2Service fileInfoV2Service) {
-        final String source = fileInfoV2.getSource();
-        KnowledgeResponse response;
-
-        // 1) Split: CBG=upload, others=URL split
-        if (ProjectContent.isCbgRagCompatible(source)) {
-            response = doCbgUploadSplit(sliceConfig, fileInfoV2, extractKnowledgeTask);
-            if (response == null) {
-                return; // already updated status on failure
-            }
-        } else {
-            response = doUrlSplit(url, sliceConfig, fileInfoV2);
-        }
-
-        // 2) Check response code & normalize message for code==11111
-        if (response.getCode() != 0) {
-            String errMsg = normalizeErrMsgIfParenthesized(response.getCode(), response.getMessage());
-            log.error("Document chunking failed : {}", errMsg);
-            updateTaskAndFileStatus(fileInfoV2, extractKnowledgeTask,
-                    "Document chunking failed, " + errMsg, false);
-            return;
-        }
-
-        // 3) Parse data -> List<ChunkInfo>
-        final List<ChunkInfo> chunkInfos = parseChunkInfosOrFail(response, fileInfoV2, extractKnowledgeTask);
-        if (chunkInfos == null) {
-            return; // status updated inside on failure
-        }
-
-        // 4) Empty result guard with image-specific hint
-        if (chunkInfos.isEmpty()) {
-            String reason = isImage(contentType)
-                    ? "Document cannot be chunked, please check if the image contains text"
-                    : "Document cannot be chunked, please check if the file meets upload requirements";
-            updateTaskAndFileStatus(fileInfoV2, extractKnowledgeTask, reason, false);
-            return;
-        }
-
-        // 5) Persist preview chunks
-        storagePreviewKnowledge(fileInfoV2.getUuid(), fileInfoV2.getId(), chunkInfos);
-
-        // 6) Update char count
-        int charCount = countTotalChars(chunkInfos);
-        if (charCount > 0) {
-            fileInfoV2.setCharCount((long) charCount);
-        }
-
-        // 7) Update lastUuid rule (CBG uses chunk's docId)
-        updateLastUuidBySource(fileInfoV2, chunkInfos);
-
-        // 8) Final success status + embedding-trigger
-        updateTaskAndFileStatus(fileInfoV2, extractKnowledgeTask, null, true);
-        fileInfoV2Service.saveTaskAndUpdateFileStatus(fileInfoV2.getId());
-        fileInfoV2Service.embeddingFile(fileInfoV2.getId(), fileInfoV2.getSpaceId());
-    }
-
     /**
      * Update the status of extraction task and file information
      *
@@ -808,9 +732,14 @@ public class KnowledgeService {
         for (PreviewKnowledge preview : previewKnowledgeList) {
             MysqlPreviewKnowledge mysql = new MysqlPreviewKnowledge();
             BeanUtils.copyProperties(preview, mysql);
+            if (mysql.getId() == null) {
+                mysql.setId(IdWorker.get32UUID());
+            }
             mysqlPreviewList.add(mysql);
         }
-        previewKnowledgeMapper.insertBatch(mysqlPreviewList);
+        for (List<MysqlPreviewKnowledge> batch : Lists.partition(mysqlPreviewList, BULK_WRITE_BATCH_SIZE)) {
+            previewKnowledgeMapper.insertBatch(batch);
+        }
     }
 
     /**
@@ -846,19 +775,12 @@ public class KnowledgeService {
             // Delete old auto-embedded
             if (!oldAuto.isEmpty()) {
                 List<String> oldAutoIds = oldAuto.stream().map(Knowledge::getId).collect(Collectors.toList());
-                knowledgeMapper.deleteBatchIds(oldAutoIds);
-            }
-            // Write new knowledge points
-            if (!build.knowledgeList.isEmpty()) {
-                List<MysqlKnowledge> mysqlKnowledgeList = build.knowledgeList.stream().map(knowledge -> {
-                    MysqlKnowledge mysqlKnowledge = new MysqlKnowledge();
-                    BeanUtils.copyProperties(knowledge, mysqlKnowledge);
-                    return mysqlKnowledge;
-                }).collect(Collectors.toList());
-                for (MysqlKnowledge mysqlKnowledge : mysqlKnowledgeList) {
-                    knowledgeMapper.insert(mysqlKnowledge);
+                for (List<String> batch : Lists.partition(oldAutoIds, BULK_DELETE_BATCH_SIZE)) {
+                    knowledgeMapper.deleteBatchIds(batch);
                 }
             }
+            // Write new knowledge points
+            saveKnowledgeBulk(build.knowledgeList);
             restoreManualKnowledge(uuid.get(0), uuid.get(2));
         } catch (Exception e) {
             log.error("Embedding failed", e);
@@ -955,60 +877,31 @@ public class KnowledgeService {
         FileInfoV2 fileInfoV2 = fileInfoV2Service.getById(fileId);
         r.source = fileInfoV2.getSource();
 
-        final int maxSaveCount = 200;
-        final int maxThreadCount = 3;
-
         if (ProjectContent.isAiuiRagCompatible(r.source)) {
-            // Synchronous batch push
-            for (int i = 0; i < jsonArray.size(); i += maxSaveCount) {
-                int end = Math.min(i + maxSaveCount, jsonArray.size());
-                JSONArray batch = new JSONArray();
-                List<String> presetFail = new ArrayList<>();
-                for (Object o : jsonArray.subList(i, end)) {
-                    JSONObject obj = (JSONObject) o;
-                    batch.add(obj);
-                    presetFail.add(obj.getString("chunkId"));
+            KnowledgePushScheduler.PushOutcome<List<String>> outcome = knowledgePushScheduler.push(r.source, jsonArray,
+                    batch -> this.addKnowledge4AIUI(uuid.get(0), uuid.get(1), batch, r.source));
+            for (List<String> childFailed : outcome.getResults()) {
+                if (!CollectionUtils.isEmpty(childFailed)) {
+                    r.failedKnowledge.addAll(childFailed);
                 }
-                try {
-                    List<String> childFailed = this.addKnowledge4AIUI(uuid.get(0), uuid.get(1), batch, r.source);
-                    if (!CollectionUtils.isEmpty(childFailed)) {
-                        r.failedKnowledge.addAll(childFailed);
-                    }
-                } catch (Exception e) {
-                    log.error("Batch insert knowledge points failed (AIUI)", e);
-                    r.failedKnowledge.addAll(presetFail);
+            }
+            for (JSONArray batch : outcome.getFailedBatches()) {
+                log.error("Batch insert knowledge points failed (AIUI), fileId:{}, size:{}", fileId, batch.size());
+                for (Object o : batch) {
+                    r.failedKnowledge.add(((JSONObject) o).getString("chunkId"));
                 }
             }
             return r;
         }
 
         if (ProjectContent.isCbgRagCompatible(r.source)) {
-            // Concurrent batch push
-            ExecutorService pool = new ThreadPoolExecutor(
-                    maxThreadCount, maxThreadCount, 0L, TimeUnit.MILLISECONDS,
-                    new LinkedBlockingQueue<>(),
-                    ThreadFactoryBuilder.create().setNamePrefix("addKnowledge4CBG-").build());
-            List<Future<Map<String, String>>> futures = new ArrayList<>();
-            try {
-                for (int i = 0; i < jsonArray.size(); i += maxSaveCount) {
-                    int end = Math.min(i + maxSaveCount, jsonArray.size());
-                    JSONArray batch = new JSONArray();
-                    for (Object o : jsonArray.subList(i, end)) {
-                        batch.add((JSONObject) o);
-                    }
-                    futures.add(pool.submit(() -> this.addKnowledge4CBG(uuid.get(0), uuid.get(1), batch, r.source)));
-                }
-                for (Future<Map<String, String>> f : futures) {
-                    try {
-                        Map<String, String> m = f.get();
-                        if (!m.isEmpty())
-                            r.cbgKnowledgeMap.putAll(m);
-                    } catch (Exception e) {
-                        log.error("Failed to get CBG task result", e);
-                    }
-                }
-            } finally {
-                pool.shutdown();
+            KnowledgePushScheduler.PushOutcome<Map<String, String>> outcome = knowledgePushScheduler.push(r.source, jsonArray,
+                    batch -> this.addKnowledge4CBG(uuid.get(0), uuid.get(1), batch, r.source));
+            for (Map<String, String> m : outcome.getResults()) {
+                r.cbgKnowledgeMap.putAll(m);
+            }
+            for (JSONArray batch : outcome.getFailedBatches()) {
+                log.error("Batch insert knowledge points failed (CBG), fileId:{}, size:{}", fileId, batch.size());
             }
             return r;
         }
@@ -1025,8 +918,9 @@ public class KnowledgeService {
                 throw new BusinessException(ResponseEnum.REPO_KNOWLEDGE_ALL_EMBEDDING_FAILED);
             }
             if (!CollectionUtils.isEmpty(push.failedKnowledge)) {
+                Set<String> failed = new HashSet<>(push.failedKnowledge);
                 for (Knowledge k : knowledgeList) {
-                    if (push.failedKnowledge.contains(k.getId())) {
+                    if (failed.contains(k.getId())) {
                         k.setEnabled(0);
                     }
                 }
@@ -1061,13 +955,33 @@ public class KnowledgeService {
         for (Knowledge k : manualList) {
             k.setFileId(lastUuid);
             k.setEnabled(1);
-            // knowledgeRepository.save(k);
+            // Original logic commented out updateChunk, keep not updating external library
+        }
+        saveKnowledgeBulk(manualList);
+    }
 
-            // Save using MySQL
+    /**
+     * Write knowledge points with multi-row upserts of {@link #BULK_WRITE_BATCH_SIZE} rows, instead of
+     * one statement per row; existing rows with the same id are replaced
+     *
+     * @param knowledgeList knowledge points to save; missing ids are assigned
+     */
+    private void saveKnowledgeBulk(List<Knowledge> knowledgeList) {
+        if (knowledgeList.isEmpty()) {
+            return;
+        }
+        List<MysqlKnowledge> mysqlKnowledgeList = new ArrayList<>(knowledgeList.size());
+        for (Knowledge knowledge : knowledgeList) {
             MysqlKnowledge mysqlKnowledge = new MysqlKnowledge();
-            BeanUtils.copyProperties(k, mysqlKnowledge);
-            knowledgeMapper.insert(mysqlKnowledge);
-            // Original logic commented out updateChunk, keep not updating external library
+            BeanUtils.copyProperties(knowledge, mysqlKnowledge);
+            if (mysqlKnowledge.getId() == null) {
+                mysqlKnowledge.setId(IdWorker.get32UUID());
+                knowledge.setId(mysqlKnowledge.getId());
+            }
+            mysqlKnowledgeList.add(mysqlKnowledge);
+        }
+        for (List<MysqlKnowledge> batch : Lists.partition(mysqlKnowledgeList, BULK_WRITE_BATCH_SIZE)) {
+            knowledgeMapper.upsertBatch(batch);
         }
     }
 
@@ -1534,22 +1448,4 @@ public class KnowledgeService {
         }
         return jsonArray;
     }
-
-    /**
-     * Convert InputStream to byte array
-     *
-     * @param inputStream input stream
-     * @return byte array
-     * @throws IOException if read fails
-     */
-    private byte[] inputStreamToByteArray(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        int nRead;
-        byte[] data = new byte[8192];
-        while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-            buffer.write(data, 0, nRead);
-        }
-        buffer.flush();
-        return buffer.toByteArray();
-    }
 }
@@ -26,7 +26,7 @@ import com.iflytek.astron.console.toolkit.entity.table.relation.FlowRepoRel;
 import com.iflytek.astron.console.toolkit.entity.table.repo.*;
 import com.iflytek.astron.console.toolkit.entity.vo.knowledge.RepoVO;
 import com.iflytek.astron.console.toolkit.handler.*;
-import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.mapper.bot.SparkBotMapper;
 import com.iflytek.astron.console.toolkit.mapper.relation.FlowRepoRelMapper;
 import com.iflytek.astron.console.toolkit.mapper.repo.FileInfoV2Mapper;
@@ -95,7 +95,7 @@ public class RepoService extends ServiceImpl<RepoMapper, Repo> {
     RepoMapper repoMapper;
 
     @Resource
-    ConfigInfoMapper configInfoMapper;
+    ConfigInfoRegistry configInfoRegistry;
     @Resource
     RepoAuthorizedConfig repoAuthorizedConfig;
     @Resource
@@ -309,7 +309,7 @@ public class RepoService extends ServiceImpl<RepoMapper, Repo> {
         // PageHelper.startPage(pageNo, pageSize);
         List<RepoDto> xc_result = repoMapper.list(UserInfoManagerHandler.getUserId(), spaceId, repoIdList, content, orderBy);
         // Get corner badges
-        List<ConfigInfo> ragIconInfos = configInfoMapper.getListByCategoryAndCode("ICON", "rag");
+        List<ConfigInfo> ragIconInfos = configInfoRegistry.getListByCategoryAndCode("ICON", "rag");
         Map<String, String> ragIconMap = ragIconInfos.stream()
                 .filter(c -> c.getIsValid() != null && c.getIsValid() == 1) // Only keep valid ones
                 .collect(Collectors.toMap(
@@ -539,7 +539,7 @@ public class RepoService extends ServiceImpl<RepoMapper, Repo> {
 
     /** Build ICON/rag badge mapping (only take isValid=1) */
     private Map<String, String> buildRagIconMap() {
-        List<ConfigInfo> ragIconInfos = configInfoMapper.getListByCategoryAndCode("ICON", "rag");
+        List<ConfigInfo> ragIconInfos = configInfoRegistry.getListByCategoryAndCode("ICON", "rag");
         if (CollectionUtils.isEmpty(ragIconInfos))
             return Collections.emptyMap();
         return ragIconInfos.stream()
@@ -2,6 +2,7 @@ package com.iflytek.astron.console.toolkit.service.task;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.iflytek.astron.console.toolkit.config.properties.RepoAuthorizedConfig;
 import com.iflytek.astron.console.toolkit.entity.table.repo.ExtractKnowledgeTask;
@@ -11,6 +12,10 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
 
 /**
  * Service implementation for managing knowledge extraction tasks Provides functionality for
@@ -48,4 +53,104 @@ public class ExtractKnowledgeTaskService extends ServiceImpl<ExtractKnowledgeTas
         return this.getOne(wrapper);
     }
 
+    /**
+     * List the spaces and users that have tasks waiting for a worker
+     *
+     * @param now current time, leases expired before it are free
+     * @return one record per space (or per user for personal files) with only spaceId and userId set
+     */
+    public List<ExtractKnowledgeTask> listPendingTenants(Timestamp now) {
+        QueryWrapper<ExtractKnowledgeTask> wrapper = pending(now).select("space_id", "user_id");
+        wrapper.groupBy("space_id", "user_id");
+        return this.list(wrapper);
+    }
+
+    /**
+     * Get the oldest task of a space or user waiting for a worker
+     *
+     * @param spaceId space ID, null for personal files
+     * @param userId user ID, used when spaceId is null
+     * @param now current time, leases expired before it are free
+     * @return the task or null if there is none
+     */
+    public ExtractKnowledgeTask nextPending(Long spaceId, String userId, Timestamp now) {
+        QueryWrapper<ExtractKnowledgeTask> wrapper = pending(now);
+        if (spaceId != null) {
+            wrapper.eq("space_id", spaceId);
+        } else {
+            wrapper.isNull("space_id").eq(userId != null, "user_id", userId).isNull(userId == null, "user_id");
+        }
+        wrapper.orderByAsc("id");
+        return this.getOnly(wrapper);
+    }
+
+    /**
+     * Take the lease of a waiting task
+     *
+     * @param id task ID
+     * @param owner node taking the task
+     * @param now current time
+     * @param expireAt lease expiry
+     * @return false if another node took the task first
+     */
+    public boolean claim(Long id, String owner, Timestamp now, Timestamp expireAt) {
+        return this.update(new UpdateWrapper<ExtractKnowledgeTask>()
+                .set("lease_owner", owner)
+                .set("lease_expire_time", expireAt)
+                .setSql("attempts = IFNULL(attempts, 0) + 1")
+                .eq("id", id)
+                .eq("`status`", 0)
+                .and(w -> w.isNull("lease_expire_time").or().lt("lease_expire_time", now)));
+    }
+
+    /**
+     * Extend the leases a node holds
+     *
+     * @param ids task IDs
+     * @param owner node holding the leases
+     * @param expireAt new lease expiry
+     */
+    public void renew(Collection<Long> ids, String owner, Timestamp expireAt) {
+        this.update(new UpdateWrapper<ExtractKnowledgeTask>()
+                .set("lease_expire_time", expireAt)
+                .in("id", ids)
+                .eq("lease_owner", owner));
+    }
+
+    /**
+     * Give up the lease of a task, so that an unfinished one can be claimed again right away
+     *
+     * @param id task ID
+     * @param owner node holding the lease
+     */
+    public void release(Long id, String owner) {
+        this.update(new UpdateWrapper<ExtractKnowledgeTask>()
+                .set("lease_owner", null)
+                .set("lease_expire_time", null)
+                .eq("id", id)
+                .eq("lease_owner", owner));
+    }
+
+    /**
+     * Ask for the file to be embedded once its pending parsing task succeeds
+     *
+     * @param fileId file ID
+     * @return false if the file has no parsing task left to finish
+     */
+    public boolean requestBackEmbedding(Long fileId) {
+        return this.update(new UpdateWrapper<ExtractKnowledgeTask>()
+                .set("back_embedding", 1)
+                .eq("file_id", fileId)
+                .eq("task_status", 0)
+                .eq("`status`", 0));
+    }
+
+    private QueryWrapper<ExtractKnowledgeTask> pending(Timestamp now) {
+        QueryWrapper<ExtractKnowledgeTask> wrapper = new QueryWrapper<>();
+        wrapper.eq("`status`", 0)
+                .in("task_status", 0, 2)
+                .and(w -> w.isNull("lease_expire_time").or().lt("lease_expire_time", now));
+        return wrapper;
+    }
+
 }
@@ -48,7 +48,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -140,11 +143,18 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
     WorkflowService workflowService;
     @Autowired
     private CommonConfig commonConfig;
+    @Resource
+    ToolSquareRankIndex toolSquareRankIndex;
+    @Resource
+    RedisUtil redisUtil;
 
     private static final String FAVORITE_KEY_PREFIX = "new:user:favorite:tool:";
 
     private static final String CONFIG_KEY_PREFIX = "spark_bot:tool_config:";
     private static final String TOOL_HEAT_VALUE_PREFIX = "spark_bot:tool:heat_value:";
+    private static final String TOOL_HEAT_VALUE_LOCK_KEY = "cron:tool:heatValue:lock";
+    // Refresh runs every 5 minutes, the lock expires before the next run
+    private static final long TOOL_HEAT_VALUE_LOCK_TTL_SEC = 240;
 
 
 
@@ -445,6 +455,7 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
         String paramStr = "?app_id=" + commonConfig.getAppId() + "&tool_ids=" + toolBox.getToolId();
         ToolResp toolDelResp = toolServiceCallHandler.toolDelete(paramStr);
         toolServiceCallHandler.dealResult(toolDelResp);
+        toolSquareRankIndex.remove(toolBox.getToolId());
         return ApiResult.success();
     }
 
@@ -725,6 +736,15 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
         String uid = "3";
         String content = dealHtmlXss(dto.getContent());
 
+        // Heat ranking without search or favorite filter is served from the ranked index
+        String rankSegment = rankSegment(content, dto);
+        if (rankSegment != null) {
+            PageData<ToolBoxVo> pageData = listToolSquareFromRank(uid, rankSegment, dto);
+            if (pageData != null) {
+                return pageData;
+            }
+        }
+
         // Handle favorite filtering
         Set<String> favorites = handleFavoriteFilter(uid, dto.getFavoriteFlag());
         if (dto.getFavoriteFlag() != null && dto.getFavoriteFlag() == 1 && CollUtil.isEmpty(favorites)) {
@@ -749,6 +769,67 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
         return buildPageData(sortedAndPagedList, dto.getPage(), dto.getPageSize(), totalSize);
     }
 
+    /**
+     * Segment of the ranked index answering the query, null if the query needs the database
+     */
+    private String rankSegment(String content, ToolSquareDto dto) {
+        if (!Objects.equals(dto.getOrderFlag(), 0) || StringUtils.isNotBlank(content)
+                || Objects.equals(dto.getFavoriteFlag(), 1) || dto.getAuthorized() != null) {
+            return null;
+        }
+        boolean withMcp = shouldIncludeMcpTools(dto);
+        if (dto.getTags() == null) {
+            return withMcp ? ToolSquareRankIndex.ALL : ToolSquareRankIndex.PLUGINS;
+        }
+        return withMcp ? null : ToolSquareRankIndex.tagSegment(dto.getTags());
+    }
+
+    /**
+     * Serve a page of the tool square from the ranked index
+     *
+     * @return Page data, null if the index is not built yet or cannot be read
+     */
+    private PageData<ToolBoxVo> listToolSquareFromRank(String uid, String segment, ToolSquareDto dto) {
+        ToolSquareRankIndex.Page page = toolSquareRankIndex.page(segment, (long) (dto.getPage() - 1) * dto.getPageSize(), dto.getPageSize());
+        if (page == null || page.total() == 0) {
+            return null;
+        }
+        List<String> pluginIds = page.tools().stream()
+                .filter(tool -> !tool.mcp())
+                .map(ToolSquareRankIndex.RankedTool::id)
+                .collect(Collectors.toList());
+        Map<String, ToolBox> plugins = pluginIds.isEmpty() ? Collections.emptyMap()
+                : toolBoxMapper.getToolsLastVersion(pluginIds).stream()
+                        .collect(Collectors.toMap(ToolBox::getToolId, toolBox -> toolBox, (first, second) -> first));
+        Map<String, ToolBoxVo> mcpTools = page.tools().stream().noneMatch(ToolSquareRankIndex.RankedTool::mcp) ? Collections.emptyMap()
+                : getMcpTools(new ToolSquareDto()).stream()
+                        .collect(Collectors.toMap(ToolBoxVo::getMcpTooId, toolBoxVo -> toolBoxVo, (first, second) -> first));
+
+        List<ToolBoxVo> toolBoxVoList = new ArrayList<>(page.tools().size());
+        for (ToolSquareRankIndex.RankedTool tool : page.tools()) {
+            ToolBoxVo toolBoxVo;
+            if (tool.mcp()) {
+                toolBoxVo = mcpTools.get(tool.id());
+            } else {
+                ToolBox toolBox = plugins.get(tool.id());
+                toolBoxVo = toolBox == null ? null : convert2ToolBoxVo(toolBox);
+            }
+            // Deleted since the last sync
+            if (toolBoxVo == null) {
+                continue;
+            }
+            toolBoxVo.setHeatValue(tool.heatValue());
+            toolBoxVoList.add(toolBoxVo);
+        }
+
+        Set<String> favoritesId = getFavoritesAmong(uid, toolBoxVoList.stream().map(ToolBoxService::toolKey).filter(Objects::nonNull).toList());
+        List<ConfigInfo> configInfoList = getTagConfigList();
+        for (ToolBoxVo toolBoxVo : toolBoxVoList) {
+            fillSingleToolMetadata(toolBoxVo, favoritesId.contains(toolKey(toolBoxVo)), configInfoList);
+        }
+        return buildPageData(toolBoxVoList, dto.getPage(), dto.getPageSize(), page.total());
+    }
+
     /**
      * Handle favorite filter logic
      */
@@ -829,11 +910,20 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
         Set<String> favoritesId = getFavoritesId(uid);
         List<ConfigInfo> configInfoList = getTagConfigList();
 
+        // Set heat values from Redis
+        fillHeatValues(toolBoxVoList);
         for (ToolBoxVo toolBoxVo : toolBoxVoList) {
-            fillSingleToolMetadata(toolBoxVo, favoritesId, configInfoList);
+            fillSingleToolMetadata(toolBoxVo, favoritesId.contains(toolKey(toolBoxVo)), configInfoList);
         }
     }
 
+    /**
+     * Key of a tool in heat values and favorites: MCP tool ID for MCP tools, tool ID otherwise
+     */
+    private static String toolKey(ToolBoxVo toolBoxVo) {
+        return toolBoxVo.getIsMcp() ? toolBoxVo.getMcpTooId() : toolBoxVo.getToolId();
+    }
+
     /**
      * Get tag configuration list
      */
@@ -847,43 +937,37 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
     /**
      * Fill metadata for a single tool
      */
-    private void fillSingleToolMetadata(ToolBoxVo toolBoxVo, Set<String> favoritesId, List<ConfigInfo> configInfoList) {
+    private void fillSingleToolMetadata(ToolBoxVo toolBoxVo, boolean isFavorite, List<ConfigInfo> configInfoList) {
         // Set address prefix
         if (!toolBoxVo.getIsMcp()) {
             toolBoxVo.setAddress(s3UtilClient.getS3Prefix());
         }
 
         // Set favorite status
-        boolean isFavorite = toolBoxVo.getIsMcp() ? favoritesId.contains(toolBoxVo.getMcpTooId()) : favoritesId.contains(toolBoxVo.getToolId());
         toolBoxVo.setIsFavorite(isFavorite);
 
-        // Set heat value from Redis
-        fillHeatValue(toolBoxVo);
-
         // Set tags
         fillToolTags(toolBoxVo, configInfoList);
 
     }
 
     /**
-     * Fill heat value from Redis
+     * Fill heat values from Redis with a single MGET
      */
-    private void fillHeatValue(ToolBoxVo toolBoxVo) {
-        Long heatValue = 0L;
-        String toolKey = toolBoxVo.getIsMcp() ? toolBoxVo.getMcpTooId() : toolBoxVo.getToolId();
-
-        if (toolKey != null) {
-            try {
-                Object redisValue = redisTemplate.opsForValue().get(TOOL_HEAT_VALUE_PREFIX + toolKey);
-                heatValue = parseToLong(redisValue, toolKey);
-            } catch (Exception e) {
-                // Log the exception and use default value
-                log.warn("Failed to get heat value for tool: {}, error: {}", toolKey, e.getMessage());
-                heatValue = 0L;
-            }
+    private void fillHeatValues(List<ToolBoxVo> toolBoxVoList) {
+        List<String> toolKeys = toolBoxVoList.stream().map(ToolBoxService::toolKey).toList();
+        List<Object> redisValues = null;
+        try {
+            redisValues = redisTemplate.opsForValue().multiGet(toolKeys.stream().map(toolKey -> TOOL_HEAT_VALUE_PREFIX + toolKey).toList());
+        } catch (Exception e) {
+            // Log the exception and use default value
+            log.warn("Failed to get heat values for {} tools, error: {}", toolKeys.size(), e.getMessage());
+        }
+        for (int i = 0; i < toolBoxVoList.size(); i++) {
+            String toolKey = toolKeys.get(i);
+            Object redisValue = toolKey == null || redisValues == null || i >= redisValues.size() ? null : redisValues.get(i);
+            toolBoxVoList.get(i).setHeatValue(parseToLong(redisValue, toolKey));
         }
-
-        toolBoxVo.setHeatValue(heatValue);
     }
 
     /**
@@ -1025,28 +1109,44 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
     // Execute every 5 minutes
     @Scheduled(fixedRate = 300000, initialDelay = 600000)
     public void executeToolHeatValueSelect() {
+        // A single node refreshes heat values and the ranked index at a time
+        final String token = UUID.randomUUID().toString();
+        if (!redisUtil.tryLock(TOOL_HEAT_VALUE_LOCK_KEY, TOOL_HEAT_VALUE_LOCK_TTL_SEC, token)) {
+            log.debug("tool heat value select - another instance is running, skip.");
+            return;
+        }
+        try {
+            refreshToolHeatValues();
+        } finally {
+            redisUtil.unlock(TOOL_HEAT_VALUE_LOCK_KEY, token);
+        }
+        log.info("tool heat value select - Current Time: " + LocalDateTime.now());
+    }
+
+    private void refreshToolHeatValues() {
         LambdaQueryWrapper<ToolBox> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(ToolBox::getDeleted, 0) // delete = 1
                 .and(wrapper -> wrapper.eq(ToolBox::getIsPublic, 1)
                         .or()
                         .eq(ToolBox::getUserId, bizConfig.getAdminUid()));
         List<ToolBox> toolBoxes = toolBoxMapper.selectList(queryWrapper);
-        List<String> tooIds = toolBoxes.stream().map(ToolBox::getToolId).collect(Collectors.toList());
+        List<String> tooIds = toolBoxes.stream().map(ToolBox::getToolId).distinct().collect(Collectors.toList());
         List<ToolUseDto> flowToolUseList = chatInfoMapper.selectWorkflowUseCount(tooIds);
         List<ToolUseDto> botToolUseList = chatInfoMapper.selectBotUseCount(tooIds);
         // Number of favorites
         List<UserFavoriteTool> userFavoriteTools = userFavoriteToolMapper.selectAllList();
-        for (ToolBox toolBox : toolBoxes) {
+        Map<String, Long> heatValues = new LinkedHashMap<>();
+        for (String toolId : tooIds) {
             Long workflowUseCount = flowToolUseList.stream()
-                    .filter(tool -> tool.getToolId() != null && tool.getToolId().contains(toolBox.getToolId()))
+                    .filter(tool -> tool.getToolId() != null && tool.getToolId().contains(toolId))
                     .mapToLong(ToolUseDto::getUseCount)
                     .sum();
             Long botUseCount = botToolUseList.stream()
-                    .filter(tool -> tool.getToolId() != null && tool.getToolId().contains(toolBox.getToolId()))
+                    .filter(tool -> tool.getToolId() != null && tool.getToolId().contains(toolId))
                     .mapToLong(ToolUseDto::getUseCount)
                     .sum();
             List<UserFavoriteTool> favoriteTools = userFavoriteTools.stream()
-                    .filter(tool -> tool.getPluginToolId() != null && tool.getPluginToolId().equals(toolBox.getToolId()))
+                    .filter(tool -> tool.getPluginToolId() != null && tool.getPluginToolId().equals(toolId))
                     .collect(Collectors.toList());
             // Number of favorites
             long favoriteToolCount = favoriteTools.size();
@@ -1054,41 +1154,57 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
                     .filter(tool -> !tool.getDeleted() && tool.getUseFlag() == 1)
                     .count();
             long heatValue = (workflowUseCount + botUseCount - 1) * 3 + (favoriteUserCount - 1) * 10 + favoriteToolCount * 10 + workflowUseCount + botUseCount;
-            if (heatValue < 0) {
-                heatValue = 0L;
-            }
-            redisTemplate.opsForValue().set(TOOL_HEAT_VALUE_PREFIX + toolBox.getToolId(), heatValue);
+            heatValues.put(toolId, Math.max(heatValue, 0L));
         }
         // MCP tool heat value
+        Map<String, Long> mcpHeatValues = new LinkedHashMap<>();
         List<ToolBoxVo> mcpTools = getMcpTools(new ToolSquareDto());
         for (ToolBoxVo mcpTool : mcpTools) {
-            // Query plugins with same name
+            // Plugins with same name, matched on the tools already loaded
             // Process string: ignore case match "-mcp" and remove it
-            String mcpName = mcpTool.getName().replaceAll("(?i)-mcp", "");
-            LambdaQueryWrapper<ToolBox> newQueryWrapper = new LambdaQueryWrapper<>();
-            newQueryWrapper.eq(ToolBox::getDeleted, 0)
-                    .like(ToolBox::getName, mcpName)
-                    .and(wrapper -> wrapper.eq(ToolBox::getIsPublic, 1)
-                            .or()
-                            .eq(ToolBox::getUserId, bizConfig.getAdminUid()));
-            List<ToolBox> toolBoxList = toolBoxMapper.selectList(newQueryWrapper);
-            if (!toolBoxList.isEmpty()) {
-                // Query heat value of plugins with same name
-                Long heatValue = (Long) redisTemplate.opsForValue().get(TOOL_HEAT_VALUE_PREFIX + toolBoxList.get(0).getToolId());
-                if (heatValue == null) {
-                    heatValue = 0L;
-                }
-                redisTemplate.opsForValue().set(TOOL_HEAT_VALUE_PREFIX + mcpTool.getMcpTooId(), heatValue);
+            String mcpName = mcpTool.getName().replaceAll("(?i)-mcp", "").toLowerCase();
+            Optional<ToolBox> sameNameTool = toolBoxes.stream()
+                    .filter(toolBox -> toolBox.getName() != null && toolBox.getName().toLowerCase().contains(mcpName))
+                    .findFirst();
+            Long heatValue;
+            if (sameNameTool.isPresent()) {
+                // Heat value of plugins with same name
+                heatValue = heatValues.getOrDefault(sameNameTool.get().getToolId(), 0L);
             } else {
                 // Query table - query MCP tool heat value
-                Long mcpHeatValue = toolBoxMapper.getMcpHeatValueByName(mcpTool.getName());
-                if (mcpHeatValue == null) {
-                    mcpHeatValue = 0L;
-                }
-                redisTemplate.opsForValue().set(TOOL_HEAT_VALUE_PREFIX + mcpTool.getMcpTooId(), mcpHeatValue);
+                heatValue = toolBoxMapper.getMcpHeatValueByName(mcpTool.getName());
             }
+            mcpHeatValues.put(mcpTool.getMcpTooId(), heatValue == null ? 0L : heatValue);
         }
-        log.info("tool heat value select - Current Time: " + LocalDateTime.now());
+
+        Map<String, Object> heatValueEntries = new HashMap<>();
+        heatValues.forEach((toolId, heatValue) -> heatValueEntries.put(TOOL_HEAT_VALUE_PREFIX + toolId, heatValue));
+        mcpHeatValues.forEach((mcpToolId, heatValue) -> heatValueEntries.put(TOOL_HEAT_VALUE_PREFIX + mcpToolId, heatValue));
+        if (!heatValueEntries.isEmpty()) {
+            redisTemplate.opsForValue().multiSet(heatValueEntries);
+        }
+
+        // Ranked index of the tool square, on the same tools the square query returns
+        List<ToolBox> squareTools = toolBoxMapper.getModelListSquareByCondition(null, null, null, null, null, null,
+                null, null, bizConfig.getAdminUid(), String.valueOf(CommonConst.PlatformCode.COMMON));
+        Map<String, ToolSquareRankIndex.RankedTool> rankedTools = new LinkedHashMap<>();
+        for (ToolBox toolBox : squareTools) {
+            rankedTools.putIfAbsent(toolBox.getToolId(), ToolSquareRankIndex.RankedTool.plugin(toolBox.getToolId(),
+                    tagIdsOf(toolBox), toolBox.getTop() != null && toolBox.getTop() > 0, heatValues.getOrDefault(toolBox.getToolId(), 0L)));
+        }
+        List<ToolSquareRankIndex.RankedTool> ranked = new ArrayList<>(rankedTools.values());
+        mcpHeatValues.forEach((mcpToolId, heatValue) -> ranked.add(ToolSquareRankIndex.RankedTool.mcp(mcpToolId, heatValue)));
+        toolSquareRankIndex.sync(ranked);
+    }
+
+    private static List<String> tagIdsOf(ToolBox toolBox) {
+        if (StringUtils.isBlank(toolBox.getToolTag())) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(toolBox.getToolTag().split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toList());
     }
 
     private List<ToolBoxVo> getMcpTools(ToolSquareDto dto) {
@@ -1176,6 +1292,44 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
     }
 
 
+    /**
+     * Which of the given tools the user has favorited, checked with one pipelined SMISMEMBER; falls
+     * back to loading the favorites when they are not cached
+     *
+     * @param userId
+     * @param toolKeys
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> getFavoritesAmong(String userId, List<String> toolKeys) {
+        if (toolKeys.isEmpty()) {
+            return new HashSet<>();
+        }
+        String redisKey = FAVORITE_KEY_PREFIX + userId;
+        try {
+            List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    operations.hasKey(redisKey);
+                    operations.opsForSet().isMember(redisKey, toolKeys.toArray());
+                    return null;
+                }
+            });
+            if (Boolean.TRUE.equals(results.get(0)) && results.get(1) instanceof List<?> membership) {
+                Set<String> favorites = new HashSet<>();
+                for (int i = 0; i < toolKeys.size() && i < membership.size(); i++) {
+                    if (Boolean.TRUE.equals(membership.get(i))) {
+                        favorites.add(toolKeys.get(i));
+                    }
+                }
+                return favorites;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to check favorite tools, userId: {}, error: {}", userId, e.getMessage());
+        }
+        return getFavoritesId(userId);
+    }
+
     /**
      * Favorite tool
      *
@@ -2161,6 +2315,10 @@ public class ToolBoxService extends ServiceImpl<ToolBoxMapper, ToolBox> {
         toolBox.setToolTag(toolTagId.toString());
         toolBox.setUpdateTime(new Timestamp(System.currentTimeMillis()));
         toolBoxMapper.updateById(toolBox);
+        // Listed on the square only when shown on the common platform
+        if (StringUtils.contains(toolBox.getDisplaySource(), String.valueOf(CommonConst.PlatformCode.COMMON))) {
+            toolSquareRankIndex.add(toolBox.getToolId(), tagIdsOf(toolBox));
+        }
 
     }
 
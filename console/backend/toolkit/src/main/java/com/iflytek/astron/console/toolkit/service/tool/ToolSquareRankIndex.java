@@ -0,0 +1,314 @@
+package com.iflytek.astron.console.toolkit.service.tool;
+
+import cn.hutool.core.util.StrUtil;
+import com.google.common.collect.Lists;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Tools of the tool square ranked by heat value, kept in Redis sorted sets so that a page of the
+ * square is read with one round trip instead of loading, scoring and sorting every tool.
+ * <p>
+ * There is one sorted set per segment: every tool, plugins only, MCP tools only, and the plugins of
+ * each tag. {@link #sync} is called by the single node refreshing heat values; it reads the current
+ * sets and writes only the scores that changed, all in pipelines. Between two syncs, published and
+ * deleted plugins are added and removed with {@link #add} and {@link #remove}.
+ */
+@Slf4j
+@Component
+public class ToolSquareRankIndex {
+
+    /** Segment holding every tool of the square */
+    public static final String ALL = "all";
+    /** Segment holding the plugins of the square */
+    public static final String PLUGINS = "plugin";
+    /** Segment holding the MCP tools of the square */
+    public static final String MCP = "mcp";
+
+    private static final String TAG_SEGMENT = "tag:";
+    private static final String PLUGIN_MEMBER = "p:";
+    private static final String MCP_MEMBER = "m:";
+    private static final int BATCH_SIZE = 500;
+    /**
+     * Added to the heat value of pinned plugins, so that of tools with equal heat the pinned ones come
+     * first as in the square query; below 1 so the heat value is the integer part of the score
+     */
+    private static final double TOP_BONUS = 0.5;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * Segment holding the plugins of a tag
+     */
+    public static String tagSegment(Object tagId) {
+        return TAG_SEGMENT + tagId;
+    }
+
+    /**
+     * A page of a segment, highest heat value first, then pinned plugins first. Tools still tied come
+     * in descending member order, which puts plugins before MCP tools.
+     *
+     * @param segment Segment to read
+     * @param offset Number of tools to skip
+     * @param limit Maximum number of tools to return
+     * @return The page and the size of the segment, null if Redis failed
+     */
+    public Page page(String segment, long offset, int limit) {
+        String key = key(segment);
+        try {
+            List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    operations.opsForZSet().reverseRangeWithScores(key, offset, offset + limit - 1);
+                    operations.opsForZSet().zCard(key);
+                    return null;
+                }
+            });
+            List<RankedTool> tools = new ArrayList<>(limit);
+            if (results.get(0) instanceof Collection<?> range) {
+                for (Object item : range) {
+                    if (item instanceof TypedTuple<?> tuple && tuple.getValue() != null) {
+                        RankedTool tool = RankedTool.of(String.valueOf(tuple.getValue()), tuple.getScore());
+                        if (tool != null) {
+                            tools.add(tool);
+                        }
+                    }
+                }
+            }
+            long total = results.get(1) instanceof Number count ? count.longValue() : 0L;
+            return new Page(tools, total);
+        } catch (Exception e) {
+            log.warn("Failed to read tool square rank, segment={}: {}", segment, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Bring the index in line with the tools of the square, writing only what changed
+     *
+     * @param tools Every tool of the square with its heat value
+     * @return Number of tools added, moved or removed across all segments
+     */
+    public int sync(Collection<RankedTool> tools) {
+        Map<String, Map<String, Double>> desired = segmentsOf(tools);
+        Set<String> previous = stringRedisTemplate.opsForSet().members(RedisKeyConstant.TOOL_SQUARE_RANK_SEGMENTS);
+        List<String> segments = new ArrayList<>(desired.keySet());
+        if (previous != null) {
+            previous.stream().filter(segment -> !desired.containsKey(segment)).forEach(segments::add);
+        }
+
+        List<Object> current = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                segments.forEach(segment -> operations.opsForZSet().rangeWithScores(key(segment), 0, -1));
+                return null;
+            }
+        });
+
+        Map<String, Set<TypedTuple<String>>> upserts = new LinkedHashMap<>();
+        Map<String, List<String>> removals = new LinkedHashMap<>();
+        List<String> dropped = new ArrayList<>();
+        int changes = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            Map<String, Double> wanted = desired.get(segment);
+            Map<String, Double> existing = scoresOf(i < current.size() ? current.get(i) : null);
+            if (wanted == null) {
+                dropped.add(segment);
+                changes += existing.size();
+                continue;
+            }
+            Set<TypedTuple<String>> changed = new LinkedHashSet<>();
+            wanted.forEach((member, score) -> {
+                if (!score.equals(existing.get(member))) {
+                    changed.add(TypedTuple.of(member, score));
+                }
+            });
+            List<String> gone = existing.keySet().stream().filter(member -> !wanted.containsKey(member)).toList();
+            if (!changed.isEmpty()) {
+                upserts.put(segment, changed);
+            }
+            if (!gone.isEmpty()) {
+                removals.put(segment, gone);
+            }
+            changes += changed.size() + gone.size();
+        }
+
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                upserts.forEach((segment, tuples) -> Lists.partition(new ArrayList<>(tuples), BATCH_SIZE)
+                        .forEach(batch -> operations.opsForZSet().add(key(segment), new LinkedHashSet<>(batch))));
+                removals.forEach((segment, members) -> Lists.partition(members, BATCH_SIZE)
+                        .forEach(batch -> operations.opsForZSet().remove(key(segment), batch.toArray())));
+                dropped.forEach(segment -> operations.delete(key(segment)));
+                if (!dropped.isEmpty()) {
+                    operations.opsForSet().remove(RedisKeyConstant.TOOL_SQUARE_RANK_SEGMENTS, dropped.toArray());
+                }
+                if (!desired.isEmpty()) {
+                    operations.opsForSet().add(RedisKeyConstant.TOOL_SQUARE_RANK_SEGMENTS, desired.keySet().toArray());
+                }
+                return null;
+            }
+        });
+        log.info("Tool square rank synced, tools={}, segments={}, changes={}", tools.size(), desired.size(), changes);
+        return changes;
+    }
+
+    /**
+     * Add a plugin that was just published; its heat value is set by the next sync
+     *
+     * @param toolId Tool ID of the plugin
+     * @param tagIds Tags of the plugin
+     */
+    public void add(String toolId, Collection<String> tagIds) {
+        if (StrUtil.isBlank(toolId)) {
+            return;
+        }
+        String member = PLUGIN_MEMBER + toolId;
+        List<String> segments = new ArrayList<>(List.of(ALL, PLUGINS));
+        tagIds.stream().filter(StrUtil::isNotBlank).map(ToolSquareRankIndex::tagSegment).forEach(segments::add);
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    segments.forEach(segment -> operations.opsForZSet().addIfAbsent(key(segment), member, 0));
+                    operations.opsForSet().add(RedisKeyConstant.TOOL_SQUARE_RANK_SEGMENTS, segments.toArray());
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to add tool to square rank, toolId={}: {}", toolId, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove a plugin that was deleted from every segment
+     *
+     * @param toolId Tool ID of the plugin
+     */
+    public void remove(String toolId) {
+        if (StrUtil.isBlank(toolId)) {
+            return;
+        }
+        String member = PLUGIN_MEMBER + toolId;
+        try {
+            Set<String> segments = stringRedisTemplate.opsForSet().members(RedisKeyConstant.TOOL_SQUARE_RANK_SEGMENTS);
+            if (segments == null || segments.isEmpty()) {
+                return;
+            }
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    segments.forEach(segment -> operations.opsForZSet().remove(key(segment), member));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to remove tool from square rank, toolId={}: {}", toolId, e.getMessage());
+        }
+    }
+
+    private static Map<String, Map<String, Double>> segmentsOf(Collection<RankedTool> tools) {
+        Map<String, Map<String, Double>> segments = new LinkedHashMap<>();
+        for (RankedTool tool : tools) {
+            String member = tool.member();
+            double score = tool.score();
+            segments.computeIfAbsent(ALL, k -> new HashMap<>()).put(member, score);
+            if (tool.mcp()) {
+                segments.computeIfAbsent(MCP, k -> new HashMap<>()).put(member, score);
+                continue;
+            }
+            segments.computeIfAbsent(PLUGINS, k -> new HashMap<>()).put(member, score);
+            for (String tagId : tool.tagIds()) {
+                if (StrUtil.isNotBlank(tagId)) {
+                    segments.computeIfAbsent(tagSegment(tagId.trim()), k -> new HashMap<>()).put(member, score);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, Double> scoresOf(Object range) {
+        Map<String, Double> scores = new HashMap<>();
+        if (range instanceof Collection<?> tuples) {
+            for (Object item : tuples) {
+                if (item instanceof TypedTuple<?> tuple && tuple.getValue() != null) {
+                    scores.put(String.valueOf(tuple.getValue()), tuple.getScore());
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static String key(String segment) {
+        return StrUtil.format(RedisKeyConstant.TOOL_SQUARE_RANK, segment);
+    }
+
+    /**
+     * A tool of the square with its heat value
+     *
+     * @param id Tool ID of a plugin, or ID of an MCP tool
+     * @param mcp Whether the tool is an MCP tool
+     * @param top Whether the plugin is pinned
+     * @param tagIds Tags of a plugin
+     * @param heatValue Heat value
+     */
+    public record RankedTool(String id, boolean mcp, boolean top, Collection<String> tagIds, long heatValue) {
+
+        public static RankedTool plugin(String toolId, Collection<String> tagIds, long heatValue) {
+            return plugin(toolId, tagIds, false, heatValue);
+        }
+
+        public static RankedTool plugin(String toolId, Collection<String> tagIds, boolean top, long heatValue) {
+            return new RankedTool(toolId, false, top, tagIds, heatValue);
+        }
+
+        public static RankedTool mcp(String mcpToolId, long heatValue) {
+            return new RankedTool(mcpToolId, true, false, List.of(), heatValue);
+        }
+
+        String member() {
+            return (mcp ? MCP_MEMBER : PLUGIN_MEMBER) + id;
+        }
+
+        double score() {
+            return top ? heatValue + TOP_BONUS : heatValue;
+        }
+
+        static RankedTool of(String member, Double score) {
+            long heatValue = score == null ? 0L : (long) Math.floor(score);
+            boolean top = score != null && score - heatValue >= TOP_BONUS;
+            if (member.startsWith(PLUGIN_MEMBER)) {
+                return plugin(member.substring(PLUGIN_MEMBER.length()), List.of(), top, heatValue);
+            }
+            if (member.startsWith(MCP_MEMBER)) {
+                return mcp(member.substring(MCP_MEMBER.length()), heatValue);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A page of a segment
+     *
+     * @param tools Tools of the page, highest heat value first
+     * @param total Number of tools in the segment
+     */
+    public record Page(List<RankedTool> tools, long total) {}
+}
@@ -0,0 +1,304 @@
+package com.iflytek.astron.console.toolkit.service.workflow;
+
+import cn.hutool.core.util.StrUtil;
+import com.google.common.collect.Lists;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.toolkit.util.RedisUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * Who has the canvas of a workflow open, shared by every node.
+ * <p>
+ * Each workflow has a sorted set of its canvas sessions scored by their last heartbeat, and a single
+ * index holds the workflows with open sessions scored by their oldest heartbeat. A heartbeat is one
+ * script call; expiring sessions reads only the workflows of the index whose oldest heartbeat is
+ * stale, so its cost follows the sessions that expire rather than the size of the keyspace. The sweep
+ * runs on one node per interval, elected with a Redis lock.
+ * <p>
+ * Whenever the sessions of a workflow change, the new count is published on a Redis topic and every
+ * node hands it to its {@link #addListener listeners}, which push it to their own co-editors.
+ */
+@Slf4j
+@Component
+public class FlowCanvasPresenceService {
+
+    private static final String SWEEP_LOCK_KEY = "cron:workflow:canvasPresence:sweep:lock";
+    private static final int SWEEP_BATCH_SIZE = 500;
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final char COUNT_SEPARATOR = '=';
+    private static final char LINE_SEPARATOR = '\n';
+
+    /**
+     * KEYS: flow sessions, active flows. ARGV: sessionId, now, flowId, expiredBefore, key TTL in ms.
+     * Returns whether the session was new and the number of live sessions.
+     */
+    @SuppressWarnings("rawtypes")
+    static final DefaultRedisScript<List> HEARTBEAT = new DefaultRedisScript<>(
+            "local added = redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) "
+                    + "local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES') "
+                    + "redis.call('ZADD', KEYS[2], oldest[2], ARGV[3]) "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[5]) "
+                    + "return {added, redis.call('ZCOUNT', KEYS[1], ARGV[4], '+inf')}",
+            List.class);
+
+    /**
+     * KEYS: flow sessions, active flows. ARGV: sessionId, flowId, expiredBefore. Returns whether the
+     * session was there and the number of live sessions.
+     */
+    @SuppressWarnings("rawtypes")
+    static final DefaultRedisScript<List> LEAVE = new DefaultRedisScript<>(
+            "local removed = redis.call('ZREM', KEYS[1], ARGV[1]) "
+                    + "local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES') "
+                    + "if #oldest == 0 then redis.call('ZREM', KEYS[2], ARGV[2]) "
+                    + "else redis.call('ZADD', KEYS[2], oldest[2], ARGV[2]) end "
+                    + "return {removed, redis.call('ZCOUNT', KEYS[1], ARGV[3], '+inf')}",
+            List.class);
+
+    /**
+     * KEYS: active flows, then the sessions of each flow. ARGV: expiredBefore, then each flowId.
+     * Returns flowId and number of live sessions for every flow that lost sessions.
+     */
+    @SuppressWarnings("rawtypes")
+    static final DefaultRedisScript<List> EXPIRE = new DefaultRedisScript<>(
+            "local changed = {} "
+                    + "for i = 2, #KEYS do "
+                    + "  local removed = redis.call('ZREMRANGEBYSCORE', KEYS[i], '-inf', '(' .. ARGV[1]) "
+                    + "  local oldest = redis.call('ZRANGE', KEYS[i], 0, 0, 'WITHSCORES') "
+                    + "  if #oldest == 0 then redis.call('ZREM', KEYS[1], ARGV[i]) "
+                    + "  else redis.call('ZADD', KEYS[1], oldest[2], ARGV[i]) end "
+                    + "  if removed > 0 then "
+                    + "    table.insert(changed, ARGV[i]) "
+                    + "    table.insert(changed, redis.call('ZCARD', KEYS[i])) "
+                    + "  end "
+                    + "end "
+                    + "return changed",
+            List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private RedisUtil redisUtil;
+    @Autowired
+    private RedissonClient redissonClient;
+
+    /** How long a session stays counted after its last heartbeat */
+    @Value("${workflow.canvas-presence.heartbeat-expire-ms:30000}")
+    private long heartbeatExpireMs = 30_000;
+    @Value("${workflow.canvas-presence.sweep-interval-ms:10000}")
+    private long sweepIntervalMs = 10_000;
+
+    private final List<BiConsumer<String, Long>> listeners = new CopyOnWriteArrayList<>();
+    private RTopic changedTopic;
+    private int changedListenerId;
+
+    @PostConstruct
+    public void init() {
+        try {
+            changedTopic = redissonClient.getTopic(RedisKeyConstant.FLOW_CANVAS_PRESENCE_TOPIC, StringCodec.INSTANCE);
+            changedListenerId = changedTopic.addListener(String.class, (channel, msg) -> onChanged(msg));
+        } catch (Exception e) {
+            // Co-editors on other nodes then only see the count when they send a message
+            log.error("Failed to subscribe to canvas presence topic", e);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (changedTopic != null) {
+            changedTopic.removeListener(changedListenerId);
+        }
+    }
+
+    /**
+     * Register a callback receiving flowId and its number of live sessions whenever they change
+     */
+    public void addListener(BiConsumer<String, Long> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Record a heartbeat of a canvas session, adding the session if it is new
+     *
+     * @return Number of live sessions of the workflow, null if Redis failed
+     */
+    public Long heartbeat(String flowId, String sessionId) {
+        return heartbeat(flowId, sessionId, System.currentTimeMillis());
+    }
+
+    Long heartbeat(String flowId, String sessionId, long now) {
+        try {
+            List<?> result = stringRedisTemplate.execute(HEARTBEAT,
+                    List.of(flowKey(flowId), RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS),
+                    sessionId, String.valueOf(now), flowId, String.valueOf(now - heartbeatExpireMs),
+                    String.valueOf(heartbeatExpireMs * 4));
+            long count = longAt(result, 1);
+            if (longAt(result, 0) > 0) {
+                publish(Map.of(flowId, count));
+            }
+            return count;
+        } catch (Exception e) {
+            log.warn("Failed to record canvas heartbeat, flowId: {}, sessionId: {}, error: {}", flowId, sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Remove a closed canvas session
+     */
+    public void leave(String flowId, String sessionId) {
+        leave(flowId, sessionId, System.currentTimeMillis());
+    }
+
+    void leave(String flowId, String sessionId, long now) {
+        try {
+            List<?> result = stringRedisTemplate.execute(LEAVE,
+                    List.of(flowKey(flowId), RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS),
+                    sessionId, flowId, String.valueOf(now - heartbeatExpireMs));
+            if (longAt(result, 0) > 0) {
+                publish(Map.of(flowId, longAt(result, 1)));
+            }
+        } catch (Exception e) {
+            log.warn("Failed to remove canvas session, flowId: {}, sessionId: {}, error: {}", flowId, sessionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Expire stale sessions on the node holding the sweep lock. The lock is left to lapse rather than
+     * released, so the sweep runs about once per interval however many nodes there are.
+     */
+    @Scheduled(fixedDelayString = "${workflow.canvas-presence.sweep-interval-ms:10000}")
+    public void sweep() {
+        Duration lockTtl = Duration.ofMillis(Math.max(1000, sweepIntervalMs * 9 / 10));
+        if (!redisUtil.tryLock(SWEEP_LOCK_KEY, lockTtl, UUID.randomUUID().toString())) {
+            return;
+        }
+        try {
+            int changed = expireStale(System.currentTimeMillis());
+            if (changed > 0) {
+                log.debug("Expired canvas sessions, flows changed: {}", changed);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to expire canvas sessions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Remove the sessions whose last heartbeat is older than the expiry and publish the new counts
+     *
+     * @return Number of workflows that lost sessions
+     */
+    int expireStale(long now) {
+        long expiredBefore = now - heartbeatExpireMs;
+        Map<String, Long> changed = new LinkedHashMap<>();
+        Set<String> examined = new HashSet<>();
+        while (true) {
+            Set<String> flows = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS, Double.NEGATIVE_INFINITY, expiredBefore - 1, 0, SWEEP_BATCH_SIZE);
+            if (flows == null || flows.isEmpty() || !examined.addAll(flows)) {
+                break;
+            }
+            List<String> keys = new ArrayList<>(flows.size() + 1);
+            List<String> args = new ArrayList<>(flows.size() + 1);
+            keys.add(RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS);
+            args.add(String.valueOf(expiredBefore));
+            for (String flowId : flows) {
+                keys.add(flowKey(flowId));
+                args.add(flowId);
+            }
+            List<?> result = stringRedisTemplate.execute(EXPIRE, keys, args.toArray());
+            for (int i = 0; result != null && i + 1 < result.size(); i += 2) {
+                changed.put(String.valueOf(result.get(i)), longAt(result, i + 1));
+            }
+            if (flows.size() < SWEEP_BATCH_SIZE) {
+                break;
+            }
+        }
+        publish(changed);
+        return changed.size();
+    }
+
+    /**
+     * Forget every canvas session of every workflow
+     *
+     * @return Number of workflows that had sessions
+     */
+    public long clear() {
+        Set<String> flows = stringRedisTemplate.opsForZSet().range(RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS, 0, -1);
+        if (flows != null) {
+            Lists.partition(new ArrayList<>(flows), DELETE_BATCH_SIZE)
+                    .forEach(batch -> stringRedisTemplate.delete(batch.stream().map(FlowCanvasPresenceService::flowKey).toList()));
+        }
+        stringRedisTemplate.delete(RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS);
+        return flows == null ? 0 : flows.size();
+    }
+
+    private void publish(Map<String, Long> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder();
+        counts.forEach((flowId, count) -> message.append(flowId).append(COUNT_SEPARATOR).append(count).append(LINE_SEPARATOR));
+        if (changedTopic != null) {
+            try {
+                changedTopic.publish(message.toString());
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to publish canvas presence change: {}", e.getMessage());
+            }
+        }
+        // Co-editors on this node are still told
+        counts.forEach(this::notifyListeners);
+    }
+
+    /**
+     * Handle lines of {@code flowId=count}
+     */
+    void onChanged(String message) {
+        for (String line : StrUtil.split(message, LINE_SEPARATOR, true, true)) {
+            int separator = line.lastIndexOf(COUNT_SEPARATOR);
+            if (separator <= 0) {
+                log.warn("Ignoring malformed canvas presence change {}", line);
+                continue;
+            }
+            try {
+                notifyListeners(line.substring(0, separator), Long.parseLong(line.substring(separator + 1)));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring malformed canvas presence change {}", line);
+            }
+        }
+    }
+
+    private void notifyListeners(String flowId, Long count) {
+        for (BiConsumer<String, Long> listener : listeners) {
+            try {
+                listener.accept(flowId, count);
+            } catch (Exception e) {
+                log.warn("Canvas presence listener failed, flowId: {}, error: {}", flowId, e.getMessage());
+            }
+        }
+    }
+
+    private static long longAt(List<?> result, int index) {
+        return result != null && result.size() > index && result.get(index) instanceof Number number ? number.longValue() : 0L;
+    }
+
+    static String flowKey(String flowId) {
+        return StrUtil.format(RedisKeyConstant.FLOW_CANVAS_PRESENCE, flowId);
+    }
+}
@@ -58,6 +58,9 @@ public class VersionService {
     @Autowired
     private WorkflowConfigMapper workflowConfigMapper;
 
+    @Autowired
+    private WorkflowRuntimeCache workflowRuntimeCache;
+
 
     @Value("${spring.profiles.active}")
     String env;
@@ -180,6 +183,7 @@ public class VersionService {
             workflowVersion.setVersionNum(versionNum);
             workflowVersion.setName(createDto.getName());
             workflowVersion.setData(workflow.getData());
+            workflowVersion.setDataSummary(workflow.getDataSummary());
             workflowVersion.setSysData(JSONObject.toJSONString(flowProtocol));
             workflowVersion.setPublishChannel(createDto.getPublishChannel());
             workflowVersion.setPublishResult(createDto.getPublishResult());
@@ -436,7 +440,7 @@ public class VersionService {
             WorkflowVersion workflowVersion = workflowVersionMapper.selectOne(Wrappers.lambdaQuery(WorkflowVersion.class).eq(WorkflowVersion::getId, createDto.getId()));
             String data = workflowVersion.getData();
             // Update workflow table protocol data
-            updateFlowIdWorkflow(createDto.getFlowId(), data);
+            updateFlowIdWorkflow(createDto.getFlowId(), data, workflowVersion.getDataSummary());
 
             LambdaUpdateWrapper<WorkflowVersion> updateWrapper1 = new LambdaUpdateWrapper<>();
             // Update flowId corresponding records, set isVersion to 2
@@ -465,15 +469,21 @@ public class VersionService {
      *
      * @param flowId Flow ID to update
      * @param data New workflow data
+     * @param dataSummary Summary of the new data; built from the data when blank
      */
-    public void updateFlowIdWorkflow(String flowId, String data) {
+    public void updateFlowIdWorkflow(String flowId, String data, String dataSummary) {
+        if (StringUtils.isBlank(dataSummary)) {
+            dataSummary = workflowService.buildDataSummary(data);
+        }
         // Build update conditions
         LambdaUpdateWrapper<Workflow> updateWrapper = new LambdaUpdateWrapper<>();
         updateWrapper.eq(Workflow::getFlowId, flowId)
                 .set(Workflow::getData, data)
+                .set(Workflow::getDataSummary, dataSummary)
                 .set(Workflow::getCanPublish, false);
         // Execute update
         workflowMapper.update(null, updateWrapper);
+        workflowRuntimeCache.invalidate(flowId);
     }
 
     /**
@@ -0,0 +1,217 @@
+package com.iflytek.astron.console.toolkit.service.workflow;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.StrUtil;
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.commons.entity.workflow.Workflow;
+import com.iflytek.astron.console.toolkit.entity.biz.external.app.AkSk;
+import com.iflytek.astron.console.toolkit.entity.biz.workflow.BizWorkflowData;
+import com.iflytek.astron.console.toolkit.entity.biz.workflow.BizWorkflowNode;
+import com.iflytek.astron.console.toolkit.entity.table.ConfigInfo;
+import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
+import com.iflytek.astron.console.toolkit.service.extra.AppService;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Node-local cache of what a debug chat needs to know about a workflow before calling the core: its
+ * credentials and whether, and over how many rounds, it keeps chat history.
+ * <p>
+ * Each descriptor is built once from the workflow row and remembers the version stamp it was built
+ * at. Writers of the workflow call {@link #invalidate}, which bumps the stamp in Redis, so every node
+ * rebuilds its descriptor on the next chat; a chat only reads the stamp. The TTL bounds how long a
+ * change that bypasses {@link #invalidate}, or a rotated app secret, can go unnoticed. Without Redis
+ * the descriptor is built for every chat, as before.
+ */
+@Slf4j
+@Component
+public class WorkflowRuntimeCache {
+
+    private static final String MULTI_ROUNDS_ALIAS_NAME = "MULTI_ROUNDS_ALIAS_NAME";
+
+    @Autowired
+    private WorkflowMapper workflowMapper;
+    @Autowired
+    private AppService appService;
+    @Autowired
+    private ConfigInfoRegistry configInfoRegistry;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${workflow.runtime-cache.max-size:10000}")
+    private long maxSize = 10_000;
+    @Value("${workflow.runtime-cache.ttl-seconds:600}")
+    private long ttlSeconds = 600;
+    /** How long a version stamp outlives the last change of its workflow */
+    @Value("${workflow.runtime-cache.version-ttl-days:7}")
+    private long versionTtlDays = 7;
+
+    private Cache<String, Descriptor> descriptors;
+
+    @PostConstruct
+    public void init() {
+        descriptors = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).build();
+    }
+
+    /**
+     * @return descriptor of the current draft of the workflow
+     */
+    public Descriptor get(String flowId) {
+        String stamp = readStamp(flowId);
+        if (stamp == null) {
+            return build(flowId, null);
+        }
+        Descriptor cached = descriptors.getIfPresent(flowId);
+        if (cached != null && stamp.equals(cached.getStamp())) {
+            return cached;
+        }
+        // Stamp read before the row: a change racing this build leaves a newer stamp behind it
+        Descriptor built = build(flowId, stamp);
+        descriptors.put(flowId, built);
+        return built;
+    }
+
+    /**
+     * Drop the descriptor of the workflow on every node; call after changing the workflow row. Inside a
+     * transaction the stamp is bumped once it commits: bumped earlier, a chat in between would rebuild
+     * from the old row under the new stamp and keep it until the TTL.
+     */
+    public void invalidate(String flowId) {
+        if (StringUtils.isBlank(flowId)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpStamp(flowId);
+                }
+            });
+        } else {
+            bumpStamp(flowId);
+        }
+    }
+
+    private void bumpStamp(String flowId) {
+        descriptors.invalidate(flowId);
+        String key = StrUtil.format(RedisKeyConstant.WORKFLOW_RUNTIME_VERSION, flowId);
+        try {
+            stringRedisTemplate.opsForValue().increment(key);
+            stringRedisTemplate.expire(key, versionTtlDays, TimeUnit.DAYS);
+        } catch (Exception e) {
+            log.warn("Failed to bump workflow runtime version, flowId={}: {}", flowId, e.getMessage());
+        }
+    }
+
+    private String readStamp(String flowId) {
+        try {
+            String stamp = stringRedisTemplate.opsForValue().get(StrUtil.format(RedisKeyConstant.WORKFLOW_RUNTIME_VERSION, flowId));
+            return stamp == null ? "0" : stamp;
+        } catch (Exception e) {
+            log.warn("Failed to read workflow runtime version, flowId={}: {}", flowId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Descriptor build(String flowId, String stamp) {
+        Workflow workflow = workflowMapper.selectOne(Wrappers.lambdaQuery(Workflow.class).eq(Workflow::getFlowId, flowId));
+        Assert.notNull(workflow);
+        AkSk akSk = appService.remoteCallAkSk(workflow.getAppId());
+        Assert.notNull(akSk);
+        Assert.notEmpty(akSk.getApiKey());
+        Assert.notEmpty(akSk.getApiSecret());
+
+        // Multi-round conversation validation
+        boolean isEnabled = false;
+        int maxRounds = 0;
+        if (StringUtils.isNotBlank(workflow.getData())) {
+            List<String> multiRoundNodeTypes = multiRoundNodeTypes();
+            BizWorkflowData bizWorkflowData = JSON.parseObject(workflow.getData(), BizWorkflowData.class);
+            for (BizWorkflowNode node : bizWorkflowData.getNodes()) {
+                if (isMultiRoundEnabled(node, multiRoundNodeTypes)) {
+                    isEnabled = true;
+                    maxRounds = Math.max(maxRounds, getMaxRounds(node));
+                }
+            }
+        }
+        return new Descriptor(workflow.getId(), workflow.getAppId(), akSk.getApiKey() + ":" + akSk.getApiSecret(),
+                isEnabled, maxRounds, stamp);
+    }
+
+    /**
+     * Node types that support multi-round conversation; currently decision nodes and large model nodes
+     */
+    private List<String> multiRoundNodeTypes() {
+        ConfigInfo configInfo = configInfoRegistry.getFirstByCategory(MULTI_ROUNDS_ALIAS_NAME);
+        if (configInfo == null || StringUtils.isBlank(configInfo.getValue())) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(configInfo.getValue().split(","));
+    }
+
+    /**
+     * Whether multi-round conversation is enabled on the node
+     */
+    static boolean isMultiRoundEnabled(BizWorkflowNode node, List<String> multiRoundNodeTypes) {
+        String prefix = node.getId().split("::")[0];
+        if (!CollUtil.contains(multiRoundNodeTypes, prefix)) {
+            return false;
+        }
+        JSONObject enableChatHistoryV2 = chatHistoryConfig(node);
+        // Whether multi-round conversation is enabled
+        return enableChatHistoryV2 != null && Boolean.TRUE.equals(enableChatHistoryV2.getBoolean("isEnabled"));
+    }
+
+    /**
+     * Number of rounds of history the node keeps
+     */
+    static int getMaxRounds(BizWorkflowNode node) {
+        JSONObject enableChatHistoryV2 = chatHistoryConfig(node);
+        if (enableChatHistoryV2 == null) {
+            return 0;
+        }
+        Integer rounds = enableChatHistoryV2.getInteger("rounds");
+        return rounds == null ? 0 : rounds;
+    }
+
+    private static JSONObject chatHistoryConfig(BizWorkflowNode node) {
+        JSONObject nodeParam = node.getData() == null ? null : node.getData().getNodeParam();
+        return nodeParam == null ? null : nodeParam.getJSONObject("enableChatHistoryV2");
+    }
+
+    /**
+     * Workflow facts a debug chat needs, as of one version stamp
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Descriptor {
+        private final Long workflowId;
+        private final String appId;
+        /** Authorization header value for the core, apiKey:apiSecret of the app */
+        private final String authorization;
+        private final boolean multiRoundEnabled;
+        private final int maxRounds;
+        private final String stamp;
+    }
+}
@@ -10,6 +10,7 @@ import cn.hutool.core.util.StrUtil;
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
 import com.alibaba.fastjson2.TypeReference;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
@@ -34,6 +35,8 @@ import com.iflytek.astron.console.commons.response.ApiResult;
 import com.iflytek.astron.console.commons.service.bot.BotMarketDataService;
 import com.iflytek.astron.console.commons.util.RequestContextUtil;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.SseSessionRegistry;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import com.iflytek.astron.console.commons.util.space.SpaceInfoUtil;
 import com.iflytek.astron.console.toolkit.common.Result;
 import com.iflytek.astron.console.toolkit.common.constant.CommonConst;
@@ -74,6 +77,7 @@ import com.iflytek.astron.console.toolkit.entity.vo.*;
 import com.iflytek.astron.console.toolkit.entity.vo.eval.EvalSetVerDataVo;
 import com.iflytek.astron.console.toolkit.handler.*;
 import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.mapper.database.DbTableMapper;
 import com.iflytek.astron.console.toolkit.mapper.eval.EvalSetMapper;
 import com.iflytek.astron.console.toolkit.mapper.eval.EvalSetVerDataMapper;
@@ -110,7 +114,6 @@ import net.sf.jsqlparser.util.TablesNamesFinder;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.internal.Util;
-import okhttp3.internal.sse.RealEventSource;
 import okhttp3.sse.EventSource;
 import okhttp3.sse.EventSourceListener;
 import org.apache.commons.collections4.CollectionUtils;
@@ -168,6 +171,8 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
 
     private static final String JSON_KEY_BOT_ID = "botId";
     private static final String PUBLISH_SUCCESS = "成功";
+    // Large columns never needed to render the workflow list
+    private static final Set<String> LIST_EXCLUDED_COLUMNS = Set.of("data", "published_data", "advanced_config", "eval_page_first_time");
     private static final int DEFAULT_ORDER = 0;
     private static final String NP_PROJECT_ID = "projectId";
     private static final String NP_ASSISTANT_ID = "assistantId";
@@ -207,6 +212,8 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
     @Autowired
     ConfigInfoMapper configInfoMapper;
     @Autowired
+    ConfigInfoRegistry configInfoRegistry;
+    @Autowired
     EvalSetVerDataMapper evalSetVerDataMapper;
     @Autowired
     EvalSetVerMapper evalSetVerMapper;
@@ -274,10 +281,18 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
     private RpaHandler rpaHandler;
     @Autowired
     private WorkflowConfigMapper workflowConfigMapper;
+    @Autowired
+    private SseSessionRegistry sseSessionRegistry;
+    @Autowired
+    private WorkflowRuntimeCache workflowRuntimeCache;
+    @Autowired
+    private FlowCanvasPresenceService flowCanvasPresenceService;
 
     /**
-     * Query workflow list with pagination (in-memory pagination, can be replaced with database
-     * pagination if needed).
+     * Query workflow list with pagination. Pages are cut in the database with a projection that
+     * skips protocol data; publish status and list summaries are resolved in batch for the page only.
+     * A status filter depends on the resolved status, so in that case the projected rows of the whole
+     * space are resolved first and the page is cut afterwards.
      *
      * @param apiSpaceId Space ID from API parameter
      * @param current Current page number
@@ -301,7 +316,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
 
         // 2) Special user whitelist, whether can view all workflows
         boolean specFlag = false;
-        final ConfigInfo specialUser = configInfoMapper.getByCategoryAndCode("SPECIAL_USER", "workflow-all-view");
+        final ConfigInfo specialUser = configInfoRegistry.getByCategoryAndCode("SPECIAL_USER", "workflow-all-view");
         if (specialUser != null && Objects.equals(specialUser.getValue(), UserInfoManagerHandler.getUserId())) {
             specFlag = true;
         }
@@ -323,6 +338,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
                     .orderByDesc(Workflow::getOrder)
                     .orderByDesc(Workflow::getUpdateTime);
         }
+        wrapper.select(Workflow.class, f -> !LIST_EXCLUDED_COLUMNS.contains(f.getColumn()));
         if (!specFlag && spaceId == null) {
             wrapper.eq(Workflow::getUid, uid);
         }
@@ -337,23 +353,35 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             }
         }
 
-        final List<Workflow> list = this.list(wrapper);
-        final List<WorkflowVo> workflowVos = new ArrayList<>(list.size());
-
-        final Map<String, String> workflowVersionMap = new HashMap<>();
-        fixOnStatusList(list, workflowVersionMap);
-
-        // Filter/mapping
-        delwithResultList(status, list, workflowVos, flowId, workflowVersionMap);
-
         final int safeCurrent = Math.max(1, Optional.ofNullable(current).orElse(1));
         final int safeSize = Math.max(1, Optional.ofNullable(pageSize).orElse(10));
-        final int start = Math.min((safeCurrent - 1) * safeSize, workflowVos.size());
-        final int end = Math.min(start + safeSize, workflowVos.size());
+
+        final List<Workflow> records;
+        final long total;
+        final Map<String, WorkflowVersion> publishedVersions;
+        if (status != null && status != -1) {
+            final List<Workflow> list = this.list(wrapper);
+            final Map<String, WorkflowVersion> allPublished = fixOnStatusList(list);
+            final List<Workflow> filtered = list.stream()
+                    .filter(w -> Objects.equals(status, w.getStatus()) && !w.getFlowId().equals(flowId))
+                    .collect(Collectors.toList());
+            final int start = Math.min((safeCurrent - 1) * safeSize, filtered.size());
+            final int end = Math.min(start + safeSize, filtered.size());
+            records = filtered.subList(start, end);
+            total = filtered.size();
+            publishedVersions = allPublished;
+        } else {
+            final Page<Workflow> page = this.page(new Page<>(safeCurrent, safeSize), wrapper);
+            records = page.getRecords();
+            total = page.getTotal();
+            publishedVersions = fixOnStatusList(records);
+        }
+
+        final List<WorkflowVo> workflowVos = delwithResultList(records, publishedVersions);
 
         final PageData<WorkflowVo> pageData = new PageData<>();
-        pageData.setPageData(workflowVos.subList(start, end));
-        pageData.setTotalCount((long) workflowVos.size());
+        pageData.setPageData(workflowVos);
+        pageData.setTotalCount(total);
         return pageData;
     }
 
@@ -376,87 +404,185 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
     }
 
     /**
-     * Filter status and map to VO.
+     * Map a page of workflows to VO, taking IO inversion and Q&A flag from the persisted summary of
+     * the latest published version, or of the draft when the flow has not been published.
      */
-    private void delwithResultList(Integer status,
-            List<Workflow> list,
-            List<WorkflowVo> workflowVos,
-            String flowId,
-            Map<String, String> workflowVersionMap) {
-        for (Workflow w : list) {
+    private List<WorkflowVo> delwithResultList(List<Workflow> records, Map<String, WorkflowVersion> publishedVersions) {
+        final Map<String, WorkflowDataSummary> summaries = loadDataSummaries(records, publishedVersions);
+        final List<WorkflowVo> workflowVos = new ArrayList<>(records.size());
+        for (Workflow w : records) {
             WorkflowVo vo = new WorkflowVo();
-            org.springframework.beans.BeanUtils.copyProperties(w, vo, "data", "publishedData");
+            BeanUtils.copyProperties(w, vo, "data", "publishedData", "dataSummary");
             vo.setAddress(s3Util.getS3Prefix());
             vo.setColor(w.getAvatarColor());
-            vo.setHaQaNode(checkFlowHasQaNode(w)); // Project tool method (not shown), keep original implementation if none
-            if (StringUtils.isNotBlank(w.getData())) {
-                vo.setIoInversion(getIoTrans(JSON.parseObject(w.getData(), BizWorkflowData.class).getNodes()));
+            WorkflowDataSummary summary = summaries.get(w.getFlowId());
+            if (summary != null) {
+                vo.setHaQaNode(Boolean.TRUE.equals(summary.getHasQaNode()));
+                vo.setIoInversion(summary.getIoInversion());
             }
             vo.setSourceCode(String.valueOf(CommonConst.PlatformCode.COMMON));
-            vo.setVersion(workflowVersionMap.get(w.getFlowId()));
-
-            if (status != null && status != -1) {
-                if (Objects.equals(status, w.getStatus()) && !w.getFlowId().equals(flowId)) {
-                    workflowVos.add(vo);
-                }
-            } else {
-                workflowVos.add(vo);
-            }
+            WorkflowVersion published = publishedVersions.get(w.getFlowId());
+            vo.setVersion(published == null ? null : published.getName());
+            workflowVos.add(vo);
         }
+        return workflowVos;
     }
 
     /**
-     * Correct publish status, refresh to "latest published version" data and version number when
-     * necessary.
+     * Correct publish status in batch: a flow bound to an agent counts as published when it has a
+     * successful publish record, otherwise it falls back to the agent's market status and shows the
+     * agent's name, description and avatar.
+     *
+     * @return Latest successfully published version of each published flow, keyed by flowId
      */
-    private void fixOnStatusList(List<Workflow> list, Map<String, String> workflowVersionMap) {
+    private Map<String, WorkflowVersion> fixOnStatusList(List<Workflow> list) {
+        if (list.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // 1) Bound agent: from ext, or from the assistant protocol for flows created before ext existed
+        final Map<String, Integer> botIds = new HashMap<>(list.size() * 2);
+        final List<String> legacyFlowIds = new ArrayList<>();
         for (Workflow workflow : list) {
-            JSONObject extObj = JSON.parseObject(workflow.getExt());
-            int statusFlag = 0;
-            Integer botId;
             if (StringUtils.isBlank(workflow.getExt())) {
-                UserLangChainInfo userLangChainInfo = userLangChainInfoDao.selectOne(new LambdaQueryWrapper<UserLangChainInfo>().eq(UserLangChainInfo::getFlowId, workflow.getFlowId()));
-                if (userLangChainInfo != null) {
-                    botId = userLangChainInfo.getBotId();
-                } else {
-                    botId = -1;
-                }
+                legacyFlowIds.add(workflow.getFlowId());
             } else {
-                botId = extObj.getInteger(JSON_KEY_BOT_ID);
+                Integer botId = JSON.parseObject(workflow.getExt()).getInteger(JSON_KEY_BOT_ID);
+                botIds.put(workflow.getFlowId(), botId == null ? -1 : botId);
             }
+        }
+        if (!legacyFlowIds.isEmpty()) {
+            userLangChainInfoDao.selectList(Wrappers.lambdaQuery(UserLangChainInfo.class)
+                    .select(UserLangChainInfo::getFlowId, UserLangChainInfo::getBotId)
+                    .in(UserLangChainInfo::getFlowId, legacyFlowIds))
+                    .forEach(info -> botIds.putIfAbsent(info.getFlowId(), info.getBotId()));
+        }
 
-            if (botId != -1) {
-                // Get publish records from publish management (success means published)
-                Long count = workflowVersionMapper.selectCount(
-                        Wrappers.lambdaQuery(WorkflowVersion.class)
-                                .eq(WorkflowVersion::getFlowId, workflow.getFlowId())
-                                .eq(WorkflowVersion::getPublishResult, PUBLISH_SUCCESS));
-                if (count > 0) {
-                    statusFlag = 1;
-                    final WorkflowVo maxVersionByFlowId = getMaxVersionByFlowId(workflow.getFlowId());
-                    if (maxVersionByFlowId != null) {
-                        workflowVersionMap.put(workflow.getFlowId(), maxVersionByFlowId.getVersion());
-                        workflow.setData(maxVersionByFlowId.getData());
-                    }
-                }
-                // No publish record, fallback to bot status
-                if (statusFlag != 1) {
-                    BotDetail result = chatBotBaseMapper.botDetail(botId);
-                    if (result != null) {
-                        Integer botStatus = result.getBotStatus();
-                        if (Objects.equals(2, botStatus)) {
-                            statusFlag = 1;
-                        }
-                        workflow.setName(result.getBotName());
-                        workflow.setDescription(result.getBotDesc());
-                        workflow.setAvatarIcon(result.getAvatar());
+        // 2) Publish records from publish management (success means published)
+        final List<String> boundFlowIds = list.stream()
+                .map(Workflow::getFlowId)
+                .filter(id -> botIds.getOrDefault(id, -1) != -1)
+                .distinct()
+                .collect(Collectors.toList());
+        if (boundFlowIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        final Map<String, WorkflowVersion> published = workflowVersionMapper
+                .selectLatestPublishedByFlowIds(boundFlowIds, PUBLISH_SUCCESS)
+                .stream()
+                .collect(Collectors.toMap(WorkflowVersion::getFlowId, v -> v, (a, b) -> a));
+
+        // 3) No publish record, fallback to bot status
+        final Set<Integer> fallbackBotIds = boundFlowIds.stream()
+                .filter(id -> !published.containsKey(id))
+                .map(botIds::get)
+                .collect(Collectors.toSet());
+        final Map<Integer, BotDetail> bots = fallbackBotIds.isEmpty()
+                ? Collections.emptyMap()
+                : chatBotBaseMapper.botSummaries(fallbackBotIds)
+                        .stream()
+                        .collect(Collectors.toMap(BotDetail::getId, b -> b, (a, b) -> a));
+
+        for (Workflow workflow : list) {
+            Integer botId = botIds.getOrDefault(workflow.getFlowId(), -1);
+            if (botId == -1) {
+                continue;
+            }
+            int statusFlag = 0;
+            if (published.containsKey(workflow.getFlowId())) {
+                statusFlag = 1;
+            } else {
+                BotDetail result = bots.get(botId);
+                if (result != null) {
+                    if (Objects.equals(2, result.getBotStatus())) {
+                        statusFlag = 1;
                     }
+                    workflow.setName(result.getBotName());
+                    workflow.setDescription(result.getBotDesc());
+                    workflow.setAvatarIcon(result.getAvatar());
                 }
-            } else {
-                statusFlag = workflow.getStatus();
             }
             workflow.setStatus(statusFlag);
         }
+        return published;
+    }
+
+    /**
+     * Get the list summary of each flow, from its latest published version when there is one. Rows
+     * saved before summaries existed are computed once from their data and written back.
+     *
+     * @return Summaries keyed by flowId
+     */
+    private Map<String, WorkflowDataSummary> loadDataSummaries(List<Workflow> records, Map<String, WorkflowVersion> publishedVersions) {
+        final Map<String, WorkflowDataSummary> summaries = new HashMap<>(records.size() * 2);
+        final Map<Long, String> staleFlows = new HashMap<>();
+        final Map<Long, String> staleVersions = new HashMap<>();
+        for (Workflow w : records) {
+            WorkflowVersion published = publishedVersions.get(w.getFlowId());
+            String summary = published != null ? published.getDataSummary() : w.getDataSummary();
+            if (summary != null) {
+                summaries.put(w.getFlowId(), JSON.parseObject(summary, WorkflowDataSummary.class));
+            } else if (published != null) {
+                staleVersions.put(published.getId(), w.getFlowId());
+            } else {
+                staleFlows.put(w.getId(), w.getFlowId());
+            }
+        }
+        if (!staleFlows.isEmpty()) {
+            for (Workflow w : this.list(Wrappers.lambdaQuery(Workflow.class)
+                    .select(Workflow::getId, Workflow::getData, Workflow::getUpdateTime)
+                    .in(Workflow::getId, staleFlows.keySet()))) {
+                String summary = buildDataSummary(w.getData());
+                // Keep update_time as is, it drives list ordering
+                this.update(Wrappers.lambdaUpdate(Workflow.class)
+                        .set(Workflow::getDataSummary, summary)
+                        .set(Workflow::getUpdateTime, w.getUpdateTime())
+                        .eq(Workflow::getId, w.getId()));
+                summaries.put(staleFlows.get(w.getId()), JSON.parseObject(summary, WorkflowDataSummary.class));
+            }
+        }
+        if (!staleVersions.isEmpty()) {
+            for (WorkflowVersion v : workflowVersionMapper.selectList(Wrappers.lambdaQuery(WorkflowVersion.class)
+                    .select(WorkflowVersion::getId, WorkflowVersion::getData)
+                    .in(WorkflowVersion::getId, staleVersions.keySet()))) {
+                String summary = buildDataSummary(v.getData());
+                workflowVersionMapper.update(Wrappers.lambdaUpdate(WorkflowVersion.class)
+                        .set(WorkflowVersion::getDataSummary, summary)
+                        .eq(WorkflowVersion::getId, v.getId()));
+                summaries.put(staleVersions.get(v.getId()), JSON.parseObject(summary, WorkflowDataSummary.class));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Build the list summary persisted next to a workflow protocol
+     *
+     * @param data Workflow protocol JSON
+     * @return Summary JSON, never null so that empty protocols are not recomputed
+     */
+    public String buildDataSummary(String data) {
+        BizWorkflowData bizWorkflowData = null;
+        if (StringUtils.isNotBlank(data)) {
+            try {
+                bizWorkflowData = JSON.parseObject(data, BizWorkflowData.class);
+            } catch (Exception e) {
+                log.warn("Failed to parse workflow data for summary: {}", e.getMessage());
+            }
+        }
+        return buildDataSummary(bizWorkflowData);
+    }
+
+    private String buildDataSummary(BizWorkflowData bizWorkflowData) {
+        WorkflowDataSummary summary = new WorkflowDataSummary();
+        if (bizWorkflowData != null && bizWorkflowData.getNodes() != null) {
+            try {
+                summary.setHasQaNode(containsQaNode(bizWorkflowData.getNodes()));
+                summary.setIoInversion(getIoTrans(bizWorkflowData.getNodes()));
+            } catch (Exception e) {
+                log.warn("Failed to build workflow data summary: {}", e.getMessage());
+            }
+        }
+        return JSON.toJSONString(summary, JSONWriter.Feature.WriteNulls);
     }
 
     /**
@@ -467,7 +593,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         final Long spaceId = headSpaceId != null ? (apiSpaceId == null ? headSpaceId : apiSpaceId) : apiSpaceId;
 
         boolean specFlag = false;
-        ConfigInfo specialUser = configInfoMapper.getByCategoryAndCode("SPECIAL_USER", "workflow-all-view");
+        ConfigInfo specialUser = configInfoRegistry.getByCategoryAndCode("SPECIAL_USER", "workflow-all-view");
         if (specialUser != null && Objects.equals(specialUser.getValue(), UserInfoManagerHandler.getUserId())) {
             specFlag = true;
         }
@@ -1053,7 +1179,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         if (createReq.getExt() != null && !createReq.getExt().isEmpty()) {
             workflow.setExt(new JSONObject(createReq.getExt()).toJSONString());
         }
-        ConfigInfo init = configInfoMapper.getByCategoryAndCode("WORKFLOW_INIT_DATA", "workflow");
+        ConfigInfo init = configInfoRegistry.getByCategoryAndCode("WORKFLOW_INIT_DATA", "workflow");
         if (StringUtils.isBlank(workflow.getData()) && init != null) {
             workflow.setData(init.getValue());
         }
@@ -1067,16 +1193,17 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             config.setConfig(JSON.toJSONString(createReq.getFlowConfig()));
             workflowConfigMapper.insert(config);
         }
-        ConfigInfo initDataConfig = configInfoMapper.getByCategoryAndCode("WORKFLOW_INIT_DATA", "workflow");
+        ConfigInfo initDataConfig = configInfoRegistry.getByCategoryAndCode("WORKFLOW_INIT_DATA", "workflow");
         if (StringUtils.isBlank(workflow.getData()) && initDataConfig != null) {
             workflow.setData(initDataConfig.getValue());
         }
         // Default Advanced Configuration
-        ConfigInfo initAdvanceConfig = configInfoMapper.getByCategoryAndCode("WORKFLOW_INIT_DATA", "config");
+        ConfigInfo initAdvanceConfig = configInfoRegistry.getByCategoryAndCode("WORKFLOW_INIT_DATA", "config");
         if (initAdvanceConfig != null) {
             workflow.setAdvancedConfig(initAdvanceConfig.getValue());
         }
         workflow.setType(createReq.getFlowType());
+        workflow.setDataSummary(buildDataSummary(workflow.getData()));
         save(workflow);
 
         // Sync to Spark database
@@ -1141,6 +1268,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         }
         replica.setAppUpdatable(false);
         replica.setOrder(DEFAULT_ORDER);
+        replica.setDataSummary(buildDataSummary(replica.getData()));
         replica.setExt(null);
         save(replica);
         Integer botId = openPlatformService.syncWorkflowClone(uid, src.getId(), replica.getId(), replica.getFlowId(), spaceId);
@@ -1222,6 +1350,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         }
         replica.setAppUpdatable(false);
         replica.setOrder(DEFAULT_ORDER);
+        replica.setDataSummary(buildDataSummary(replica.getData()));
         JSONObject jsonData = new JSONObject();
         jsonData.put("botId", botId);
         // Update botId
@@ -1319,7 +1448,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         CountDownLatch latch = new CountDownLatch(1);
         JSONObject wholeRespJson = new JSONObject();
 
-        RealEventSource realEventSource = new RealEventSource(request, new EventSourceListener() {
+        EventSource realEventSource = HttpClientRegistry.newEventSource(OkHttpUtil.getStreamingHttpClient(), request, new EventSourceListener() {
             @Override
             public void onOpen(@NotNull EventSource eventSource, @NotNull Response response) {
                 log.info("build onOpen, response = {}", response);
@@ -1353,7 +1482,6 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             }
         });
         try {
-            realEventSource.connect(OkHttpUtil.getHttpClient());
             latch.await();
             String message = wholeRespJson.getString("message");
             if (StringUtils.isNotBlank(message)) {
@@ -1386,7 +1514,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         // Fill app/ak/sk
         String appId = bizNodeData.getNodeParam().getString("appId");
         AkSk aksk = appService.remoteCallAkSk(appId);
-        ConfigInfo configInfo = configInfoMapper.getByCategoryAndCode("NODE_API_K_S", "NODE");
+        ConfigInfo configInfo = configInfoRegistry.getByCategoryAndCode("NODE_API_K_S", "NODE");
         List<String> configs = new ArrayList<>();
         if (configInfo != null) {
             configs = Arrays.asList(configInfo.getValue().split(","));
@@ -1472,6 +1600,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
 
         workflow.setDeleted(true);
         updateById(workflow);
+        workflowRuntimeCache.invalidate(workflow.getFlowId());
 
         String flowId = workflow.getFlowId();
         if (flowId != null) {
@@ -1840,6 +1969,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         } else {
             workflow.setData(dataString);
         }
+        workflow.setDataSummary(buildDataSummary(bizWorkflowData));
     }
 
     // ========== 5. SSRF/URL validation ==========
@@ -1878,7 +2008,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
     }
 
     private List<String> loadIpBlacklist() {
-        List<ConfigInfo> cfgList = configInfoMapper.getListByCategory("NETWORK_SEGMENT_BLACK_LIST");
+        List<ConfigInfo> cfgList = configInfoRegistry.getListByCategory("NETWORK_SEGMENT_BLACK_LIST");
         if (cfgList == null || cfgList.isEmpty() || StringUtils.isBlank(cfgList.get(0).getValue())) {
             return Collections.emptyList();
         }
@@ -1903,6 +2033,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         workflow.setAppUpdatable(false);
         workflow.setEditing(true);
         updateById(workflow);
+        workflowRuntimeCache.invalidate(workflow.getFlowId());
     }
 
     // ========== 7. Conditional sync prologue ==========
@@ -2185,7 +2316,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             protocol = new FlowProtocol();
             // Fill app elements
             List<BizWorkflowNode> nodes = bizWorkflowData.getNodes();
-            ConfigInfo configInfo = configInfoMapper.getByCategoryAndCode("NODE_API_K_S", "NODE");
+            ConfigInfo configInfo = configInfoRegistry.getByCategoryAndCode("NODE_API_K_S", "NODE");
             List<String> configs = new ArrayList<>();
             if (configInfo != null) {
                 configs = Arrays.asList(configInfo.getValue().split(","));
@@ -2281,9 +2412,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         if (WorkflowConst.NodeType.KNOWLEDGE_PRO.equals(prefix)) {
             // Change model address
             String serviceId = bizNodeData.getNodeParam().getString("serviceId");
-            List<ConfigInfo> configInfos = configInfoMapper.selectList(new LambdaQueryWrapper<ConfigInfo>()
-                    .eq(ConfigInfo::getCategory, "MCP_MODEL_API_REFLECT")
-                    .eq(ConfigInfo::getCode, "mcp"));
+            List<ConfigInfo> configInfos = configInfoRegistry.getListByCategoryAndCode("MCP_MODEL_API_REFLECT", "mcp");
             Optional<ConfigInfo> first = configInfos.stream().filter(s -> Objects.equals(serviceId, s.getName())).findFirst();
             if (first.isPresent()) {
                 String apiUrl = first.get().getValue();
@@ -2435,9 +2564,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
 
     private void dealWithUrl(JSONObject modelConfig, String serviceId) {
         if (modelConfig != null) {
-            List<ConfigInfo> configInfos = configInfoMapper.selectList(new LambdaQueryWrapper<ConfigInfo>()
-                    .eq(ConfigInfo::getCategory, "MCP_MODEL_API_REFLECT")
-                    .eq(ConfigInfo::getCode, "mcp"));
+            List<ConfigInfo> configInfos = configInfoRegistry.getListByCategoryAndCode("MCP_MODEL_API_REFLECT", "mcp");
             String api = modelConfig.getString("api");
             Optional<ConfigInfo> first = configInfos.stream().filter(s -> Objects.equals(serviceId, s.getName())).findFirst();
             if (first.isPresent()) {
@@ -2665,6 +2792,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         replica.setAppUpdatable(false);
         replica.setOrder(0);
         replica.setIsPublic(false);
+        replica.setDataSummary(buildDataSummary(bizWorkflowData));
         save(replica);
 
         WorkflowVo vo = new WorkflowVo();
@@ -2849,7 +2977,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         if (StringUtils.isNotEmpty(patchId)) {
             String domain = nodeParam.getString("domain");
             // Some models patch id = 0 fallback
-            ConfigInfo patchId0Cfg = configInfoMapper.getByCategoryAndCode("PATCH_ID", "0");
+            ConfigInfo patchId0Cfg = configInfoRegistry.getByCategoryAndCode("PATCH_ID", "0");
             List<String> pathId0 = StrUtil.split(patchId0Cfg.getValue(), ",");
             if (!pathId0.contains(domain) && "0".equals(patchId)) {
                 nodeParam.put("patch_id", new ArrayList<>());
@@ -3064,26 +3192,10 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             // return SseEmitterUtil.newSseAndSendMessageClose("Too fast request! Please try again later");
             // }
 
-            Workflow workflow = getOne(Wrappers.lambdaQuery(Workflow.class).eq(Workflow::getFlowId, flowId));
-            Assert.notNull(workflow);
-            AkSk akSk = appService.remoteCallAkSk(workflow.getAppId());
-            Assert.notNull(akSk);
-            Assert.notEmpty(akSk.getApiKey());
-            Assert.notEmpty(akSk.getApiSecret());
-
-            // Multi-round conversation validation
-            BizWorkflowData bizWorkflowData = JSON.parseObject(workflow.getData(), BizWorkflowData.class);
-            List<BizWorkflowNode> nodes = bizWorkflowData.getNodes();
-            boolean isEnabled = false;
-            int maxRounds = 0;
-            for (BizWorkflowNode node : nodes) {
-                if (isMultiRoundEnabled(node)) {
-                    isEnabled = true;
-                    maxRounds = Math.max(maxRounds, getMaxRounds(node));
-                }
-            }
+            // Credentials and multi-round settings, built once per version of the workflow
+            WorkflowRuntimeCache.Descriptor workflow = workflowRuntimeCache.get(flowId);
             Map<String, String> headerMap = new HashMap<>();
-            headerMap.put(HttpHeaders.AUTHORIZATION, akSk.getApiKey() + ":" + akSk.getApiSecret());
+            headerMap.put(HttpHeaders.AUTHORIZATION, workflow.getAuthorization());
             headerMap.put("X-Consumer-Username", workflow.getAppId());
 
             ChatSysReq sysReq = new ChatSysReq();
@@ -3092,8 +3204,8 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             sysReq.setUid(uid);
             sysReq.setVersion(bizReq.getVersion());
             // Support multi-round conversation, construct params
-            if (isEnabled) {
-                buildParams(bizReq, maxRounds, sysReq);
+            if (workflow.isMultiRoundEnabled()) {
+                buildParams(bizReq, workflow.getMaxRounds(), sysReq);
             }
             String url = apiUrl.getWorkflow().concat("/workflow/v1/debug/chat/completions");
             String reqBody = JacksonUtil.toJSONString(sysReq, JacksonUtil.NON_NULL_OBJECT_MAPPER);
@@ -3104,7 +3216,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             OkHttpUtil.connectRealEventSource(url, headerMap, reqBody, listener);
 
             if (Boolean.TRUE.equals(bizReq.getRegen())) {
-                WorkflowDialog latestDialog = workflowDialogMapper.selectOne(Wrappers.lambdaQuery(WorkflowDialog.class).eq(WorkflowDialog::getWorkflowId, workflow.getId()).orderByDesc(WorkflowDialog::getCreateTime).last("limit 1"));
+                WorkflowDialog latestDialog = workflowDialogMapper.selectOne(Wrappers.lambdaQuery(WorkflowDialog.class).eq(WorkflowDialog::getWorkflowId, workflow.getWorkflowId()).orderByDesc(WorkflowDialog::getCreateTime).last("limit 1"));
                 workflowDialogMapper.delete(Wrappers.lambdaQuery(WorkflowDialog.class).eq(WorkflowDialog::getId, latestDialog.getId()));
             }
 
@@ -3132,15 +3244,10 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             // return SseEmitterUtil.newSseAndSendMessageClose("Too fast request! Please try again later");
             // }
             String flowId = bizReq.getFlowId();
-            Workflow workflow = getOne(Wrappers.lambdaQuery(Workflow.class).eq(Workflow::getFlowId, flowId));
-            Assert.notNull(workflow);
-            AkSk akSk = appService.remoteCallAkSk(workflow.getAppId());
-            Assert.notNull(akSk);
-            Assert.notEmpty(akSk.getApiKey());
-            Assert.notEmpty(akSk.getApiSecret());
+            WorkflowRuntimeCache.Descriptor workflow = workflowRuntimeCache.get(flowId);
 
             Map<String, String> headerMap = new HashMap<>();
-            headerMap.put(HttpHeaders.AUTHORIZATION, akSk.getApiKey() + ":" + akSk.getApiSecret());
+            headerMap.put(HttpHeaders.AUTHORIZATION, workflow.getAuthorization());
             headerMap.put("X-Consumer-Username", workflow.getAppId());
 
             JSONObject sysReq = new JSONObject();
@@ -3157,7 +3264,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
             OkHttpUtil.connectRealEventSource(url, headerMap, reqBody, listener);
 
             if (Boolean.TRUE.equals(bizReq.getRegen())) {
-                WorkflowDialog latestDialog = workflowDialogMapper.selectOne(Wrappers.lambdaQuery(WorkflowDialog.class).eq(WorkflowDialog::getWorkflowId, workflow.getId()).orderByDesc(WorkflowDialog::getCreateTime).last("limit 1"));
+                WorkflowDialog latestDialog = workflowDialogMapper.selectOne(Wrappers.lambdaQuery(WorkflowDialog.class).eq(WorkflowDialog::getWorkflowId, workflow.getWorkflowId()).orderByDesc(WorkflowDialog::getCreateTime).last("limit 1"));
                 workflowDialogMapper.delete(Wrappers.lambdaQuery(WorkflowDialog.class).eq(WorkflowDialog::getId, latestDialog.getId()));
             }
             return sseEmitter;
@@ -3167,6 +3274,17 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         }
     }
 
+    /**
+     * Stop a debug chat stream, wherever in the cluster it is being served.
+     *
+     * @param sseId chatId of a chat stream or eventId of a resumed stream
+     * @return true if the owning node received the stop command
+     */
+    public boolean stopSseChat(String sseId) {
+        Assert.notEmpty(sseId);
+        return sseSessionRegistry.close(sseId);
+    }
+
     /**
      * Construct multi-round conversation parameters
      *
@@ -3217,56 +3335,6 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         sysReq.setChatId(bizReq.getChatId());
     }
 
-    /**
-     * Whether multi-round conversation is supported
-     *
-     * @param node
-     * @return
-     */
-    private boolean isMultiRoundEnabled(BizWorkflowNode node) {
-        BizNodeData data = node.getData();
-        String prefix = node.getId().split("::")[0];
-        ConfigInfo configInfo = configInfoMapper.selectOne(new LambdaQueryWrapper<ConfigInfo>()
-                .eq(ConfigInfo::getCategory, "MULTI_ROUNDS_ALIAS_NAME")
-                .eq(ConfigInfo::getIsValid, 1));
-        List<String> list = Arrays.asList(configInfo.getValue().split(","));
-        // Currently only decision nodes and large model nodes support enabling multi-round conversation
-        if (!CollUtil.contains(list, prefix)) {
-            return false;
-        }
-        JSONObject nodeParam = data.getNodeParam();
-        if (nodeParam == null) {
-            return false;
-        }
-        JSONObject enableChatHistoryV2 = nodeParam.getJSONObject("enableChatHistoryV2");
-        if (enableChatHistoryV2 != null) {
-            // Whether multi-round conversation is enabled
-            Boolean enable = enableChatHistoryV2.getBoolean("isEnabled");
-            return Boolean.TRUE.equals(enable);
-        }
-        return false;
-    }
-
-    /**
-     * Get number of rounds
-     *
-     * @param node
-     * @return
-     */
-    private int getMaxRounds(BizWorkflowNode node) {
-        BizNodeData data = node.getData();
-        JSONObject nodeParam = data.getNodeParam();
-        if (nodeParam == null) {
-            return 0;
-        }
-        JSONObject enableChatHistoryV2 = nodeParam.getJSONObject("enableChatHistoryV2");
-        if (enableChatHistoryV2 == null) {
-            return 0;
-        }
-        Integer rounds = enableChatHistoryV2.getInteger("rounds");
-        return rounds == null ? 0 : rounds;
-    }
-
     public Object trainableNodes(Long id) {
         Workflow workflow = getById(id);
         if (workflow == null) {
@@ -3673,7 +3741,9 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
 
         one.setAppId(appId);
 
-        return ApiResult.success(this.updateById(one));
+        boolean updated = this.updateById(one);
+        workflowRuntimeCache.invalidate(flowId);
+        return ApiResult.success(updated);
     }
 
     public Object hasQaNode(Integer botId) {
@@ -3697,8 +3767,11 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         if (bizWorkflowData == null) {
             return false;
         }
-        List<BizWorkflowNode> nodes = bizWorkflowData.getNodes();
-        Boolean flag = false;
+        return containsQaNode(bizWorkflowData.getNodes());
+    }
+
+    private static boolean containsQaNode(List<BizWorkflowNode> nodes) {
+        boolean flag = false;
         for (BizWorkflowNode node : nodes) {
             // Check if it contains Q&A nodes
             if (node.getId().startsWith("question-answer")) {
@@ -3953,8 +4026,10 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
         if (sourceFlow != null && targetFlow != null) {
             log.info("Start copying flow, sourceFlowId{}, targetFlowId{}, targetFlow source data {}", sourceFlowId, targetFlowId, targetFlow.getData());
             targetFlow.setData(sourceFlow.getData());
+            targetFlow.setDataSummary(sourceFlow.getDataSummary());
             targetFlow.setUpdateTime(new Date());
             this.updateById(targetFlow);
+            workflowRuntimeCache.invalidate(targetFlowId);
             return true;
         } else {
             return false;
@@ -4213,8 +4288,7 @@ public class WorkflowService extends ServiceImpl<WorkflowMapper, Workflow> {
 
     public void removeAllCanvasHold() {
         // Clear canvas multi-open count
-        Long wc = count(Wrappers.lambdaQuery(Workflow.class).eq(Workflow::getDeleted, false));
-        Long l = redisUtil.removeScan("spark_bot:workflow:canvas_heartbeat:*", Math.toIntExact(wc));
+        long l = flowCanvasPresenceService.clear();
         log.info("remove all canvas count {}", l);
     }
 }
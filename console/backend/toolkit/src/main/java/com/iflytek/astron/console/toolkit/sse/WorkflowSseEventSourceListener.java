@@ -1,18 +1,19 @@
 package com.iflytek.astron.console.toolkit.sse;
 
-import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.core.thread.ThreadUtil;
 import cn.hutool.core.util.ArrayUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.StrUtil;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.iflytek.astron.console.commons.entity.workflow.Workflow;
 import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.TypewriterPacer;
 import com.iflytek.astron.console.toolkit.common.constant.WorkflowConst;
 import com.iflytek.astron.console.toolkit.entity.core.workflow.sse.ChatResponse;
 import com.iflytek.astron.console.toolkit.entity.core.workflow.sse.Choice;
+import com.iflytek.astron.console.toolkit.entity.core.workflow.sse.Delta;
 import com.iflytek.astron.console.toolkit.entity.core.workflow.sse.Node;
 import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
 import com.iflytek.astron.console.toolkit.service.extra.CoreSystemService;
@@ -29,6 +30,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.net.SocketTimeoutException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Getter
@@ -39,6 +41,11 @@ public class WorkflowSseEventSourceListener extends EventSourceListener {
     private volatile long sessionStartTime;
 
     private static final ObjectMapper UTF8_MAPPER = new ObjectMapper();
+    private static final JsonStringEncoder JSON_ENCODER = JsonStringEncoder.getInstance();
+    /**
+     * Marks where the per-character content goes in a pre-serialized typewriter frame
+     */
+    private static final String CONTENT_PLACEHOLDER = "\uE000typewriter\uE000";
     static {
         UTF8_MAPPER.getFactory().configure(JsonGenerator.Feature.ESCAPE_NON_ASCII, false);
     }
@@ -56,6 +63,13 @@ public class WorkflowSseEventSourceListener extends EventSourceListener {
     int outputType = 1;
     String version;
 
+    /**
+     * can_publish outcome of the latest frame; written to the workflow row once when the run ends
+     */
+    private volatile Boolean canPublish;
+    private final AtomicBoolean canPublishFlushed = new AtomicBoolean(false);
+    private long frameCount;
+
     // Message ordering related
     final LinkedList<String> nodeIdQueue = new LinkedList<>();
     final Map<String, Queue<ChatResponse>> nodeToMsgQueueMap = new HashMap<>();
@@ -110,7 +124,10 @@ public class WorkflowSseEventSourceListener extends EventSourceListener {
     @Override
     public void onEvent(@NotNull EventSource eventSource, String id, String type, @NotNull String data) {
         ensureBeans();
-        log.info("WorkflowSseEventSourceListener[{}] onEvent data = {}", sseId, data);
+        frameCount++;
+        if (log.isDebugEnabled()) {
+            log.debug("WorkflowSseEventSourceListener[{}] onEvent data = {}", sseId, data);
+        }
         ChatResponse chatResponse = JacksonUtil.parseObject(data, ChatResponse.class);
         if (chatResponse == null) {
             log.warn("WorkflowSseEventSourceListener[{}] received null ChatResponse after parse.", sseId);
@@ -118,27 +135,8 @@ public class WorkflowSseEventSourceListener extends EventSourceListener {
         }
 
         if (!promptDebugger) {
-            if (chatResponse.getCode() != 0) {
-                if (workflowMapper != null) {
-                    workflowMapper.update(Wrappers.lambdaUpdate(Workflow.class)
-                            .eq(Workflow::getFlowId, flowId)
-                            .set(Workflow::getCanPublish, false));
-                }
-            } else {
-                if (StringUtils.isBlank(version)) {
-                    if (workflowMapper != null) {
-                        workflowMapper.update(Wrappers.lambdaUpdate(Workflow.class)
-                                .eq(Workflow::getFlowId, flowId)
-                                .set(Workflow::getCanPublish, true));
-                    }
-                } else {
-                    if (workflowMapper != null) {
-                        workflowMapper.update(Wrappers.lambdaUpdate(Workflow.class)
-                                .eq(Workflow::getFlowId, flowId)
-                                .set(Workflow::getCanPublish, false));
-                    }
-                }
-            }
+            // Only a successful debug run of the draft (no version) makes the workflow publishable
+            canPublish = chatResponse.getCode() == 0 && StringUtils.isBlank(version);
         } else {
             // Check if this is the last frame
             if (chatResponse.getWorkflowStep() != null
@@ -162,8 +160,26 @@ public class WorkflowSseEventSourceListener extends EventSourceListener {
 
     @Override
     public void onClosed(@NotNull EventSource eventSource) {
-        log.info("WorkflowSseEventSourceListener[{}] onClosed", sseId);
-        SseEmitterUtil.close(sseId);
+        log.info("WorkflowSseEventSourceListener[{}] onClosed, frames = {}", sseId, frameCount);
+        flushCanPublish();
+        afterPacedOutput(() -> SseEmitterUtil.close(sseId));
+    }
+
+    /**
+     * Persist the final can_publish outcome of this run with a single UPDATE, at most once.
+     */
+    void flushCanPublish() {
+        Boolean outcome = canPublish;
+        if (outcome == null || workflowMapper == null || !canPublishFlushed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            workflowMapper.update(Wrappers.lambdaUpdate(Workflow.class)
+                    .eq(Workflow::getFlowId, flowId)
+                    .set(Workflow::getCanPublish, outcome));
+        } catch (Exception e) {
+            log.error("WorkflowSseEventSourceListener[{}] failed to update canPublish of flow {}", sseId, flowId, e);
+        }
     }
 
     private void sendMessage(ChatResponse chatResponse) {
@@ -250,52 +266,63 @@ public class WorkflowSseEventSourceListener extends EventSourceListener {
             log.error("WorkflowSseEventSourceListener[{}] onFailure, response = {}, error = <null Throwable>", sseId, response);
         }
 
+        flushCanPublish();
         ChatResponse errorResponse = new ChatResponse(errorMsg);
-        SseEmitterUtil.sendAndCompleteWithError(sseId, errorResponse);
+        afterPacedOutput(() -> SseEmitterUtil.sendAndCompleteWithError(sseId, errorResponse));
     }
 
     private void sendFrameLikeTypeWriter(ChatResponse chatResponse, long interval) {
+        String content = null;
         if (chatResponse.getWorkflowStep() != null
                 && chatResponse.getWorkflowStep().getNode() != null
                 && StrUtil.startWithAny(chatResponse.getWorkflowStep().getNode().getId(),
-                        WorkflowConst.NodeType.MESSAGE, WorkflowConst.NodeType.END)) {
+                        WorkflowConst.NodeType.MESSAGE, WorkflowConst.NodeType.END)
+                && chatResponse.getChoices() != null && !chatResponse.getChoices().isEmpty()
+                && chatResponse.getChoices().get(0).getDelta() != null) {
+            content = chatResponse.getChoices().get(0).getDelta().getContent();
+        }
 
-            String content = null;
-            if (chatResponse.getChoices() != null && !chatResponse.getChoices().isEmpty()
-                    && chatResponse.getChoices().get(0).getDelta() != null) {
-                content = chatResponse.getChoices().get(0).getDelta().getContent();
-            }
+        // Every frame of a typewriter session goes through the pacer so that frames stay in order
+        if (StrUtil.isEmpty(content)) {
+            TypewriterPacer.send(sseId, chatResponse, 0L);
+            return;
+        }
 
-            if (StrUtil.isEmpty(content)) {
-                SseEmitterUtil.sendMessage(sseId, chatResponse);
-            } else {
-                try {
-                    for (int j = 0; j < content.length(); j++) {
-                        ChatResponse oneWordResponse = new ChatResponse();
-                        BeanUtil.copyProperties(chatResponse, oneWordResponse);
-                        oneWordResponse.getChoices().get(0).getDelta().setContent(String.valueOf(content.charAt(j)));
-                        try {
-                            String json = UTF8_MAPPER.writeValueAsString(oneWordResponse);
-                            SseEmitterUtil.sendMessage(sseId, json);
-                        } catch (Exception e) {
-                            log.error("JSON serialization failed", e);
-                        }
-                        char codePoint = content.charAt(j);
-                        if ((codePoint >= 65 && codePoint <= 90) // A-Z
-                                || (codePoint >= 97 && codePoint <= 122)) {
-                            ThreadUtil.sleep(1);
-                        } else if (interval > 0) {
-                            ThreadUtil.sleep(interval);
-                        }
-                    }
-                } catch (IllegalStateException e) {
-                    log.error("Expired content to send, SSE already closed");
-                } catch (Exception e) {
-                    log.error("SSE sending exception", e);
-                }
-            }
+        // Serialize the frame once and splice each character into it, instead of copying and
+        // serializing the whole response per character
+        Delta delta = chatResponse.getChoices().get(0).getDelta();
+        String json;
+        try {
+            delta.setContent(CONTENT_PLACEHOLDER);
+            json = UTF8_MAPPER.writeValueAsString(chatResponse);
+        } catch (Exception e) {
+            log.error("JSON serialization failed", e);
+            return;
+        } finally {
+            delta.setContent(content);
+        }
+        int idx = json.indexOf(CONTENT_PLACEHOLDER);
+        String prefix = json.substring(0, idx);
+        String suffix = json.substring(idx + CONTENT_PLACEHOLDER.length());
+
+        int offset = 0;
+        while (offset < content.length()) {
+            int next = content.offsetByCodePoints(offset, 1);
+            char first = content.charAt(offset);
+            String piece = new String(JSON_ENCODER.quoteAsString(content.substring(offset, next)));
+            TypewriterPacer.send(sseId, prefix + piece + suffix, SseEmitterUtil.typewriterPause(first, interval));
+            offset = next;
+        }
+    }
+
+    /**
+     * Run an end-of-stream action after any typewriter output still being paced for this session.
+     */
+    private void afterPacedOutput(Runnable action) {
+        if (outputType == 2) {
+            TypewriterPacer.then(sseId, action);
         } else {
-            SseEmitterUtil.sendMessage(sseId, chatResponse);
+            action.run();
         }
     }
 }
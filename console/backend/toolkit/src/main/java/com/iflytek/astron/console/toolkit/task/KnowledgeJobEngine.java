@@ -0,0 +1,239 @@
+package com.iflytek.astron.console.toolkit.task;
+
+import com.iflytek.astron.console.toolkit.common.constant.ProjectContent;
+import com.iflytek.astron.console.toolkit.config.properties.KnowledgeJobProperties;
+import com.iflytek.astron.console.toolkit.entity.table.repo.ExtractKnowledgeTask;
+import com.iflytek.astron.console.toolkit.entity.table.repo.FileInfoV2;
+import com.iflytek.astron.console.toolkit.service.repo.FileInfoV2Service;
+import com.iflytek.astron.console.toolkit.service.task.ExtractKnowledgeTaskService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the slicing and embedding tasks queued in extract_knowledge_task.
+ * <p>
+ * A task waits with status 0 and task_status 0 (parse) or 2 (embed). Each node runs at most
+ * {@code knowledge.job.workers} tasks at once, handing free workers to spaces in turn, least recently
+ * served first, so one space queuing hundreds of files does not hold up the others. A node takes a
+ * task by writing a lease on its row and renews the leases of its running tasks; when a node dies its
+ * leases expire and the tasks are picked up by the other nodes. Progress is written to the file and
+ * task rows as each step finishes, which is where the indexing status is read from.
+ */
+@Slf4j
+@Component
+public class KnowledgeJobEngine {
+
+    @Resource
+    private ExtractKnowledgeTaskService extractKnowledgeTaskService;
+    @Resource
+    @Lazy
+    private FileInfoV2Service fileInfoV2Service;
+    @Resource
+    private KnowledgeJobProperties knowledgeJobProperties;
+    @Resource(name = "knowledgeJobExecutor")
+    private TaskExecutor knowledgeJobExecutor;
+    @Resource
+    private TaskScheduler taskScheduler;
+
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    private final Map<Long, ExtractKnowledgeTask> running = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastServed = new ConcurrentHashMap<>();
+    private final AtomicLong serveSequence = new AtomicLong();
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+    private final List<ScheduledFuture<?>> schedules = new ArrayList<>();
+    private Semaphore workers;
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void start() {
+        workers = new Semaphore(knowledgeJobProperties.getWorkers());
+        schedules.add(taskScheduler.scheduleWithFixedDelay(this::dispatch, knowledgeJobProperties.getPollInterval()));
+        schedules.add(taskScheduler.scheduleAtFixedRate(this::renewLeases, knowledgeJobProperties.getLeaseTtl().dividedBy(3)));
+        log.info("[knowledge-job] started: node={}, workers={}", nodeId, knowledgeJobProperties.getWorkers());
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        schedules.forEach(schedule -> schedule.cancel(false));
+    }
+
+    /**
+     * Look for tasks right away instead of at the next poll; called inside a transaction, the lookup
+     * waits for the commit so that it sees the task just saved
+     */
+    public void wakeUp() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    scheduleDispatch();
+                }
+            });
+        } else {
+            scheduleDispatch();
+        }
+    }
+
+    private void scheduleDispatch() {
+        taskScheduler.schedule(this::dispatch, Instant.now());
+    }
+
+    /**
+     * Claim waiting tasks for the free workers. Concurrent calls are folded into the one running.
+     */
+    void dispatch() {
+        wakeRequested.set(true);
+        while (wakeRequested.get() && dispatchLock.tryLock()) {
+            try {
+                wakeRequested.set(false);
+                if (!stopped && workers.availablePermits() > 0) {
+                    dispatchOnce();
+                }
+            } catch (Exception e) {
+                log.error("[knowledge-job] dispatch failed: {}", e.getMessage(), e);
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+    }
+
+    private void dispatchOnce() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Map<String, ExtractKnowledgeTask> tenants = new LinkedHashMap<>();
+        for (ExtractKnowledgeTask tenant : extractKnowledgeTaskService.listPendingTenants(now)) {
+            tenants.putIfAbsent(tenantKey(tenant), tenant);
+        }
+        lastServed.keySet().retainAll(tenants.keySet());
+        List<String> order = new ArrayList<>(tenants.keySet());
+        order.sort(Comparator.comparingLong(key -> lastServed.getOrDefault(key, 0L)));
+
+        // One task per tenant and round, until the workers or the tasks run out
+        boolean launched = true;
+        while (launched && workers.availablePermits() > 0) {
+            launched = false;
+            Iterator<String> it = order.iterator();
+            while (it.hasNext() && workers.availablePermits() > 0) {
+                String key = it.next();
+                ExtractKnowledgeTask tenant = tenants.get(key);
+                ExtractKnowledgeTask task = extractKnowledgeTaskService.nextPending(tenant.getSpaceId(), tenant.getUserId(), now);
+                if (task == null) {
+                    it.remove();
+                    continue;
+                }
+                if (launch(task, now)) {
+                    lastServed.put(key, serveSequence.incrementAndGet());
+                }
+                // A task claimed by another node is no longer pending, so the next round looks past it
+                launched = true;
+            }
+        }
+    }
+
+    private boolean launch(ExtractKnowledgeTask task, Timestamp now) {
+        if (!workers.tryAcquire()) {
+            return false;
+        }
+        Timestamp expireAt = new Timestamp(now.getTime() + knowledgeJobProperties.getLeaseTtl().toMillis());
+        if (!extractKnowledgeTaskService.claim(task.getId(), nodeId, now, expireAt)) {
+            workers.release();
+            return false;
+        }
+        running.put(task.getId(), task);
+        try {
+            knowledgeJobExecutor.execute(() -> run(task));
+        } catch (RuntimeException e) {
+            running.remove(task.getId());
+            extractKnowledgeTaskService.release(task.getId(), nodeId);
+            workers.release();
+            throw e;
+        }
+        return true;
+    }
+
+    private void run(ExtractKnowledgeTask task) {
+        int attempt = Optional.ofNullable(task.getAttempts()).orElse(0) + 1;
+        try {
+            if (attempt > knowledgeJobProperties.getMaxAttempts()) {
+                fail(task, "Task abandoned after " + knowledgeJobProperties.getMaxAttempts() + " attempts");
+            } else if (Objects.equals(task.getTaskStatus(), 0)) {
+                if (fileInfoV2Service.runSliceTask(task)) {
+                    fileInfoV2Service.saveTaskAndUpdateFileStatus(task.getFileId());
+                }
+            } else {
+                fileInfoV2Service.runEmbeddingTask(task);
+            }
+        } catch (Exception e) {
+            log.error("[knowledge-job] task {} of file {} failed, attempt {}: {}", task.getId(), task.getFileId(), attempt, e.getMessage(), e);
+            if (attempt >= knowledgeJobProperties.getMaxAttempts()) {
+                fail(task, e.getMessage());
+            }
+        } finally {
+            try {
+                extractKnowledgeTaskService.release(task.getId(), nodeId);
+            } catch (Exception e) {
+                log.warn("[knowledge-job] release of task {} failed: {}", task.getId(), e.getMessage());
+            }
+            running.remove(task.getId());
+            workers.release();
+            scheduleDispatch();
+        }
+    }
+
+    /**
+     * Close a task that cannot succeed and mark its file failed
+     */
+    private void fail(ExtractKnowledgeTask task, String reason) {
+        boolean parsing = Objects.equals(task.getTaskStatus(), 0);
+        ExtractKnowledgeTask update = new ExtractKnowledgeTask();
+        update.setId(task.getId());
+        update.setStatus(2);
+        update.setTaskStatus(parsing ? 1 : 3);
+        update.setReason(reason);
+        update.setUpdateTime(new Timestamp(System.currentTimeMillis()));
+        extractKnowledgeTaskService.updateById(update);
+
+        FileInfoV2 file = new FileInfoV2();
+        file.setId(task.getFileId());
+        file.setStatus(parsing ? ProjectContent.FILE_PARSE_FAILED : ProjectContent.FILE_EMBEDDING_FAILED);
+        file.setReason(reason);
+        file.setUpdateTime(new Timestamp(System.currentTimeMillis()));
+        fileInfoV2Service.updateById(file);
+    }
+
+    void renewLeases() {
+        if (running.isEmpty()) {
+            return;
+        }
+        try {
+            Timestamp expireAt = new Timestamp(System.currentTimeMillis() + knowledgeJobProperties.getLeaseTtl().toMillis());
+            extractKnowledgeTaskService.renew(new ArrayList<>(running.keySet()), nodeId, expireAt);
+        } catch (Exception e) {
+            log.warn("[knowledge-job] lease renewal failed: {}", e.getMessage());
+        }
+    }
+
+    private static String tenantKey(ExtractKnowledgeTask task) {
+        return task.getSpaceId() != null ? "space:" + task.getSpaceId() : "user:" + task.getUserId();
+    }
+}
@@ -0,0 +1,261 @@
+package com.iflytek.astron.console.toolkit.task;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.google.common.util.concurrent.RateLimiter;
+import com.iflytek.astron.console.toolkit.config.properties.KnowledgePushProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pushes knowledge chunks to the external knowledge backends for every document embedded on this
+ * node.
+ * <p>
+ * At most {@code knowledge.push.concurrency} batches are in flight on the node, and each backend,
+ * keyed by file source, has its own token bucket of {@code knowledge.push.rates} requests per second.
+ * The batch size of a backend follows how it copes: it grows while batches succeed within the target
+ * latency, shrinks by a quarter on a slow batch and by half on a failed one. A failed batch is retried
+ * on its own, without pushing the rest of the document again. Chunks pushed and failed, batch
+ * latency, retries and the current batch size are published per backend as
+ * {@code knowledge.push.*} metrics.
+ */
+@Slf4j
+@Component
+public class KnowledgePushScheduler {
+
+    @Resource
+    private KnowledgePushProperties knowledgePushProperties;
+    @Resource(name = "knowledgePushExecutor")
+    private TaskExecutor knowledgePushExecutor;
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final Map<String, Backend> backends = new ConcurrentHashMap<>();
+    private Semaphore inFlight;
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(knowledgePushProperties.getConcurrency());
+    }
+
+    /**
+     * Push chunks in batches and wait until every batch is done
+     *
+     * @param backend backend the chunks go to, the file source
+     * @param chunks chunks to push
+     * @param call pushes one batch; an exception fails the batch
+     * @return results of the batches pushed and the batches that still failed after their retries
+     */
+    public <R> PushOutcome<R> push(String backend, JSONArray chunks, Function<JSONArray, R> call) {
+        Backend state = backend(backend);
+        PushOutcome<R> outcome = new PushOutcome<>();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        int from = 0;
+        try {
+            while (from < chunks.size()) {
+                inFlight.acquire();
+                // Cut each batch when it can start, so that it has the size learnt from the batches before
+                int to = Math.min(from + state.batchSize.get(), chunks.size());
+                JSONArray batch = new JSONArray(chunks.subList(from, to));
+                from = to;
+                pending.add(submit(state, batch, call, outcome));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            JSONArray rest = new JSONArray(chunks.subList(from, chunks.size()));
+            state.count("failed", rest.size());
+            outcome.failedBatches.add(rest);
+        }
+        pending.forEach(CompletableFuture::join);
+        return outcome;
+    }
+
+    /**
+     * @return current batch size of the backend
+     */
+    public int batchSize(String backend) {
+        return backend(backend).batchSize.get();
+    }
+
+    private <R> CompletableFuture<Void> submit(Backend state, JSONArray batch, Function<JSONArray, R> call, PushOutcome<R> outcome) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    pushBatch(state, batch, call, outcome);
+                } finally {
+                    inFlight.release();
+                }
+            }, knowledgePushExecutor);
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            log.error("[knowledge-push] batch of {} chunks to {} rejected", batch.size(), state.name, e);
+            state.count("failed", batch.size());
+            outcome.failedBatches.add(batch);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private <R> void pushBatch(Backend state, JSONArray batch, Function<JSONArray, R> call, PushOutcome<R> outcome) {
+        int maxAttempts = Math.max(1, knowledgePushProperties.getMaxAttempts());
+        for (int attempt = 1;; attempt++) {
+            state.rateLimiter.acquire();
+            long start = System.nanoTime();
+            try {
+                R result = call.apply(batch);
+                state.succeeded(batch.size(), System.nanoTime() - start);
+                outcome.results.add(result);
+                return;
+            } catch (Exception e) {
+                state.failed(System.nanoTime() - start);
+                if (attempt >= maxAttempts) {
+                    log.error("[knowledge-push] batch of {} chunks to {} failed after {} attempts", batch.size(), state.name, attempt, e);
+                    state.count("failed", batch.size());
+                    outcome.failedBatches.add(batch);
+                    return;
+                }
+                log.warn("[knowledge-push] batch of {} chunks to {} failed, attempt {}: {}", batch.size(), state.name, attempt, e.getMessage());
+                state.retried();
+                if (!backOff(attempt)) {
+                    state.count("failed", batch.size());
+                    outcome.failedBatches.add(batch);
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(knowledgePushProperties.getRetryBackoff().toMillis() << (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Backend backend(String name) {
+        return backends.computeIfAbsent(String.valueOf(name), Backend::new);
+    }
+
+    private double rateOf(String backend) {
+        return knowledgePushProperties.getRates()
+                .entrySet()
+                .stream()
+                // Map keys may come back lower-cased from the property binding
+                .filter(entry -> entry.getKey().equalsIgnoreCase(backend))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(knowledgePushProperties.getDefaultRate());
+    }
+
+    /**
+     * Batch results in the order the batches finished, and the chunks of the batches that failed
+     */
+    @Getter
+    public static final class PushOutcome<R> {
+        private final List<R> results = Collections.synchronizedList(new ArrayList<>());
+        private final List<JSONArray> failedBatches = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    private final class Backend {
+        private final String name;
+        private final RateLimiter rateLimiter;
+        private final AtomicInteger batchSize;
+
+        private Backend(String name) {
+            this.name = name;
+            this.rateLimiter = RateLimiter.create(rateOf(name));
+            int initial = Math.min(Math.max(knowledgePushProperties.getInitialBatchSize(), minBatchSize()), maxBatchSize());
+            this.batchSize = new AtomicInteger(initial);
+            MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+            if (meterRegistry != null) {
+                Gauge.builder("knowledge.push.batch_size", batchSize, AtomicInteger::get)
+                        .description("Chunks in the next batch pushed to a knowledge backend")
+                        .tag("backend", name)
+                        .register(meterRegistry);
+            }
+        }
+
+        private void succeeded(int chunks, long nanos) {
+            record("success", nanos);
+            count("success", chunks);
+            boolean slow = nanos > knowledgePushProperties.getTargetLatency().toNanos();
+            batchSize.updateAndGet(size -> slow
+                    ? Math.max(minBatchSize(), size - size / 4)
+                    : Math.min(maxBatchSize(), size + Math.max(1, size / 4)));
+        }
+
+        private void failed(long nanos) {
+            record("error", nanos);
+            batchSize.updateAndGet(size -> Math.max(minBatchSize(), size / 2));
+        }
+
+        private void record(String outcome, long nanos) {
+            MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+            if (meterRegistry == null) {
+                return;
+            }
+            Timer.builder("knowledge.push.batch")
+                    .description("Latency of chunk batches pushed to a knowledge backend")
+                    .tag("backend", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void count(String outcome, int chunks) {
+            MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+            if (meterRegistry == null) {
+                return;
+            }
+            Counter.builder("knowledge.push.chunks")
+                    .description("Chunks pushed to a knowledge backend, or given up on")
+                    .tag("backend", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment(chunks);
+        }
+
+        private void retried() {
+            MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+            if (meterRegistry == null) {
+                return;
+            }
+            Counter.builder("knowledge.push.retries")
+                    .description("Chunk batches retried after a failed push")
+                    .tag("backend", name)
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        private int minBatchSize() {
+            return Math.max(1, knowledgePushProperties.getMinBatchSize());
+        }
+
+        private int maxBatchSize() {
+            return Math.max(minBatchSize(), knowledgePushProperties.getMaxBatchSize());
+        }
+    }
+}
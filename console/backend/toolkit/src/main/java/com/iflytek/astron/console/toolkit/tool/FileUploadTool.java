@@ -1,6 +1,7 @@
 package com.iflytek.astron.console.toolkit.tool;
 
 import com.alibaba.fastjson2.JSONObject;
+import com.iflytek.astron.console.commons.util.S3ClientUtil;
 import com.iflytek.astron.console.toolkit.common.constant.ProjectContent;
 import com.iflytek.astron.console.toolkit.util.S3Util;
 import org.springframework.stereotype.Component;
@@ -8,6 +9,9 @@ import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.annotation.Resource;
 
+import java.io.InputStream;
+import java.util.Optional;
+
 /**
  * File upload utility tool for handling file uploads to S3 storage
  */
@@ -20,14 +24,21 @@ public class FileUploadTool {
     @Resource
     S3Util s3UtilClient;
 
+    /**
+     * Client used for the upload itself, which MinIO splits into a multipart upload for large files
+     */
+    @Resource
+    S3ClientUtil s3ClientUtil;
+
     /**
      * Upload file to S3 storage with tag-based naming
      *
      * @param file The multipart file to upload
+     * @param content The stream to upload the content from, of {@code file.getSize()} bytes; not closed
      * @param tag The tag to determine file naming strategy
      * @return JSONObject containing s3Key and downloadLink
      */
-    public JSONObject uploadFile(MultipartFile file, String tag) {
+    public JSONObject uploadFile(MultipartFile file, InputStream content, String tag) {
         JSONObject res = new JSONObject();
         String originalFilename = file.getOriginalFilename();
         if (originalFilename == null) {
@@ -46,9 +57,10 @@ public class FileUploadTool {
         // Set file path and name in S3 bucket
         String s3Key = "sparkBot/" + fileName;
         try {
-            long size = file.getSize();
-            String contentType = file.getContentType(); // May be null, can fallback as needed
-            s3UtilClient.putObject(s3Key, file.getInputStream(), size, contentType);
+            String contentType = Optional.ofNullable(file.getContentType())
+                    .filter(ct -> !ct.isBlank())
+                    .orElse("application/octet-stream");
+            s3ClientUtil.uploadObject(s3Key, contentType, content, file.getSize(), -1);
         } catch (Exception e) {
             throw new RuntimeException("File upload failed! e: " + e);
         }
@@ -1,6 +1,8 @@
 package com.iflytek.astron.console.toolkit.tool.http;
 
 import com.alibaba.fastjson2.JSON;
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 
@@ -52,7 +54,7 @@ public class HeaderAuthHttpTool {
                 addHeader("Host", headMap.get("host"));
         build.addHeader("Authorization", headMap.get("authorization"));
         Request request = build.put(requestBody).build();
-        OkHttpClient client = new OkHttpClient.Builder().build();
+        OkHttpClient client = HttpClientRegistry.get(HttpClientProfile.UNARY);
         String res;
         try (Response resp = client.newCall(request).execute()) {
             res = JSON.parse(Objects.requireNonNull(resp.body()).bytes()).toString();
@@ -89,7 +91,7 @@ public class HeaderAuthHttpTool {
                 addHeader("Host", headMap.get("host"));
         build.addHeader("Authorization", headMap.get("authorization"));
         Request request = build.delete(requestBody).build();
-        OkHttpClient client = new OkHttpClient.Builder().build();
+        OkHttpClient client = HttpClientRegistry.get(HttpClientProfile.UNARY);
         String res;
         try (Response resp = client.newCall(request).execute()) {
             res = JSON.parse(Objects.requireNonNull(resp.body()).bytes()).toString();
@@ -122,7 +124,7 @@ public class HeaderAuthHttpTool {
                 addHeader("Host", headMap.get("host"));
         build.addHeader("Authorization", headMap.get("authorization"));
         Request request = build.get().build();
-        OkHttpClient client = new OkHttpClient.Builder().build();
+        OkHttpClient client = HttpClientRegistry.get(HttpClientProfile.UNARY);
         String res;
         try (Response resp = client.newCall(request).execute()) {
             log.info("HeaderAuthHttpTool get resp = {}", resp);
@@ -162,7 +164,7 @@ public class HeaderAuthHttpTool {
                 addHeader("Host", headMap.get("host"));
         build.addHeader("Authorization", headMap.get("authorization"));
         Request request = build.post(requestBody).build();
-        OkHttpClient client = new OkHttpClient.Builder().build();
+        OkHttpClient client = HttpClientRegistry.get(HttpClientProfile.UNARY);
         String res;
         try (Response resp = client.newCall(request).execute()) {
             res = JSON.parse(Objects.requireNonNull(resp.body()).bytes()).toString();
@@ -200,7 +202,7 @@ public class HeaderAuthHttpTool {
                 addHeader("Host", headMap.get("host"));
         build.addHeader("Authorization", headMap.get("authorization"));
         Request request = build.patch(requestBody).build();
-        OkHttpClient client = new OkHttpClient.Builder().build();
+        OkHttpClient client = HttpClientRegistry.get(HttpClientProfile.UNARY);
         String res;
         try (Response resp = client.newCall(request).execute()) {
             res = JSON.parse(Objects.requireNonNull(resp.body()).bytes()).toString();
@@ -66,7 +66,7 @@ public class SparkApiTool {
         // Authentication and encryption
         String signedSparkUrl = HttpAuthTool.assembleRequestUrl(sparkMaxUrl, HttpMethod.GET.name(), apiKey, apiSecret);
         Request request = (new Request.Builder()).url(signedSparkUrl).build();
-        WebSocket webSocket = OkHttpUtil.getHttpClient().newWebSocket(request, new WebSocketListener() {
+        WebSocket webSocket = OkHttpUtil.getStreamingHttpClient().newWebSocket(request, new WebSocketListener() {
             @Override
             public void onOpen(@NotNull WebSocket webSocket, @NotNull Response response) {
                 log.info("onceChatReturnWholeByWs spark api link open");
@@ -157,7 +157,7 @@ public class SparkApiTool {
         signedSparkUrl = HttpAuthTool.assembleRequestUrl(url, HttpMethod.GET.name(), apiKey, apiSecret);
 
         Request request = (new Request.Builder()).url(signedSparkUrl).build();
-        WebSocket webSocket = OkHttpUtil.getHttpClient().newWebSocket(request, new WebSocketListener() {
+        WebSocket webSocket = OkHttpUtil.getStreamingHttpClient().newWebSocket(request, new WebSocketListener() {
             @Override
             public void onOpen(@NotNull WebSocket webSocket, @NotNull Response response) {
                 log.info("onceChatReturnSseByWs onOpen");
@@ -235,7 +235,7 @@ public class SparkApiTool {
         // Authentication and encryption
         String signedSparkUrl = HttpAuthTool.assembleRequestUrl(sparkMaxUrl, HttpMethod.GET.name(), apiKey, apiSecret);
         Request request = (new Request.Builder()).url(signedSparkUrl).build();
-        WebSocket webSocket = OkHttpUtil.getHttpClient().newWebSocket(request, new WebSocketListener() {
+        WebSocket webSocket = OkHttpUtil.getStreamingHttpClient().newWebSocket(request, new WebSocketListener() {
             @Override
             public void onOpen(@NotNull WebSocket webSocket, @NotNull Response response) {
                 log.info("onceChatReturnStream spark api link open");
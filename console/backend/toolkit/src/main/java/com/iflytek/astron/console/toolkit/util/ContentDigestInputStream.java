@@ -0,0 +1,180 @@
+package com.iflytek.astron.console.toolkit.util;
+
+import cn.hutool.core.util.HexUtil;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Input stream that measures the bytes read through it, so that a file can be stored and described
+ * in one pass.
+ *
+ * <p>
+ * While the wrapped stream is read it keeps the size, the SHA-256 of the content and its character
+ * count as UTF-8 text. Characters are counted like reading the text line by line: every line counts
+ * its characters plus one for the line end, whether the line ends with {@code \n}, {@code \r\n} or
+ * {@code \r}. Malformed input is counted as replacement characters.
+ * </p>
+ *
+ * <p>
+ * Call {@link #finish()} once the consumer is done; it reads whatever the consumer left so that the
+ * results cover the whole content.
+ * </p>
+ */
+public class ContentDigestInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer pending = ByteBuffer.allocate(8192);
+    private final CharBuffer chars = CharBuffer.allocate(8192);
+
+    private long size;
+    private long charCount;
+    private boolean lineOpen;
+    private boolean afterCarriageReturn;
+    private String contentHash;
+
+    public ContentDigestInputStream(InputStream in) {
+        super(in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            update(new byte[] {(byte) b}, 0, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes have to be measured too, so they are read
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {}
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Read the rest of the content and complete the measurements
+     */
+    public void finish() throws IOException {
+        if (contentHash != null) {
+            return;
+        }
+        byte[] buffer = new byte[8192];
+        while (read(buffer, 0, buffer.length) != -1) {
+            // measured by read
+        }
+        pending.flip();
+        decode(pending, true);
+        decoder.flush(chars);
+        countChars();
+        if (lineOpen) {
+            charCount++;
+        }
+        contentHash = HexUtil.encodeHexStr(digest.digest());
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return character count; complete after {@link #finish()}
+     */
+    public long getCharCount() {
+        return charCount;
+    }
+
+    /**
+     * @return lower-case hex SHA-256 of the content, or null before {@link #finish()}
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    private void update(byte[] b, int off, int len) {
+        size += len;
+        digest.update(b, off, len);
+        while (len > 0) {
+            int n = Math.min(len, pending.remaining());
+            pending.put(b, off, n);
+            off += n;
+            len -= n;
+            pending.flip();
+            decode(pending, false);
+            pending.compact();
+        }
+    }
+
+    private void decode(ByteBuffer bytes, boolean endOfInput) {
+        while (true) {
+            boolean overflow = decoder.decode(bytes, chars, endOfInput).isOverflow();
+            countChars();
+            if (!overflow) {
+                return;
+            }
+        }
+    }
+
+    private void countChars() {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (c == '\n' && afterCarriageReturn) {
+                afterCarriageReturn = false;
+                continue;
+            }
+            afterCarriageReturn = c == '\r';
+            // A line end counts as one character, like the characters of the line
+            charCount++;
+            lineOpen = c != '\n' && c != '\r';
+        }
+        chars.clear();
+    }
+}
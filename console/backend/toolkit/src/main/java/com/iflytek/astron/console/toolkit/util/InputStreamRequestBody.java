@@ -0,0 +1,73 @@
+package com.iflytek.astron.console.toolkit.util;
+
+import lombok.Getter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request body that copies an {@link InputStream} to the connection as the request is written.
+ *
+ * <p>
+ * Only one segment of the stream is held in memory at a time, and reading waits while the socket
+ * cannot take more, so a slow upstream slows the download instead of filling the heap. The stream is
+ * read once: the body is one-shot and is not retried by OkHttp. When the content length is known it
+ * is sent as {@code Content-Length}, and a stream ending early or late fails the call.
+ * </p>
+ *
+ * <p>
+ * Passed as a form field value to the multipart helpers of {@link OkHttpUtil}, it is sent as a file
+ * part named {@link #getFileName()}. The caller keeps ownership of the stream and closes it.
+ * </p>
+ */
+public class InputStreamRequestBody extends RequestBody {
+
+    private final InputStream inputStream;
+    private final long contentLength;
+    private final MediaType contentType;
+    @Getter
+    private final String fileName;
+
+    /**
+     * @param inputStream stream to send; not closed by this body
+     * @param contentLength exact number of bytes in the stream, or -1 when unknown (sent chunked)
+     * @param contentType media type of the part; may be null
+     * @param fileName file name of the multipart part
+     */
+    public InputStreamRequestBody(InputStream inputStream, long contentLength, MediaType contentType, String fileName) {
+        this.inputStream = inputStream;
+        this.contentLength = contentLength;
+        this.contentType = contentType;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public boolean isOneShot() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // Not closed: closing the source would close the caller's stream
+        Source source = Okio.source(inputStream);
+        long written = sink.writeAll(source);
+        if (contentLength >= 0 && written != contentLength) {
+            throw new IOException("Stream of " + fileName + " had " + written + " bytes, expected " + contentLength);
+        }
+    }
+}
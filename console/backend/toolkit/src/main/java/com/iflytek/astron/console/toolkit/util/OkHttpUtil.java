@@ -1,10 +1,11 @@
 package com.iflytek.astron.console.toolkit.util;
 
 import cn.hutool.core.util.ArrayUtil;
+import com.iflytek.astron.console.commons.util.http.HttpClientProfile;
+import com.iflytek.astron.console.commons.util.http.HttpClientRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.Cookie;
 import okhttp3.*;
-import okhttp3.internal.sse.RealEventSource;
 import okhttp3.sse.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,8 +28,8 @@ import java.util.concurrent.TimeUnit;
  * </p>
  *
  * <p>
- * <b>Thread-safety:</b> The underlying {@link OkHttpClient} is a singleton configured with a shared
- * {@link ConnectionPool} and {@link Dispatcher}.
+ * <b>Thread-safety:</b> Calls go through the shared clients of {@link HttpClientRegistry}, which
+ * share one {@link ConnectionPool} and keep a {@link Dispatcher} per profile.
  * </p>
  *
  * <p>
@@ -40,61 +41,40 @@ import java.util.concurrent.TimeUnit;
 public class OkHttpUtil {
     private static final Logger logger = LoggerFactory.getLogger(OkHttpUtil.class);
 
-    /** HTTP connect timeout (seconds). */
-    private static final int CONNECT_TIMEOUT = 600;
-    /** HTTP write timeout (seconds). */
-    private static final int WRITE_TIMEOUT = 600;
-    /** HTTP read timeout (seconds). */
-    private static final int READ_TIMEOUT = 600;
-    /** HTTP async call timeout (seconds). */
-    private static final int CALL_TIMEOUT = 600;
-    /** HTTP connection pool max idle connections. */
-    private static final int CONNECTION_POOL_SIZE = 256;
+    /** Read and whole-call limit of SSE connections (seconds). */
+    private static final int STREAM_TIMEOUT = 600;
 
-    /** Static shared connection pool. */
-    private static final ConnectionPool CONNECTION_POOL = new ConnectionPool(CONNECTION_POOL_SIZE, 10, TimeUnit.MINUTES);
-
-    private static final OkHttpClient HTTP_CLIENT;
-
-    static {
-        HTTP_CLIENT = initHttpClient();
+    /**
+     * Client for request/response calls: the shared {@link HttpClientProfile#LONG_RUNNING} client.
+     */
+    private static OkHttpClient client() {
+        return HttpClientRegistry.get(HttpClientProfile.LONG_RUNNING);
     }
 
     /**
-     * Initialize the shared {@link OkHttpClient}.
-     *
-     * <p>
-     * Dispatcher limits:
-     * </p>
-     * <ul>
-     * <li>Global concurrency cap: 100</li>
-     * <li>Per-host concurrency cap: 50</li>
-     * </ul>
-     *
-     * @return configured {@link OkHttpClient} instance
+     * Client for SSE connections: the shared {@link HttpClientProfile#STREAMING} client, so that open
+     * streams do not take the dispatcher slots of other asynchronous calls.
      */
-    private static OkHttpClient initHttpClient() {
-        Dispatcher dispatcher = new Dispatcher();
-        dispatcher.setMaxRequests(100); // Global concurrency cap
-        dispatcher.setMaxRequestsPerHost(50); // Per-host concurrency cap
-
-        return new OkHttpClient.Builder()
-                .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
-                .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
-                .writeTimeout(WRITE_TIMEOUT, TimeUnit.SECONDS)
-                .callTimeout(CALL_TIMEOUT, TimeUnit.SECONDS)
-                .dispatcher(dispatcher)
-                .connectionPool(CONNECTION_POOL)
+    private static OkHttpClient streamingClient() {
+        return HttpClientRegistry.get(HttpClientProfile.STREAMING).newBuilder()
+                .readTimeout(STREAM_TIMEOUT, TimeUnit.SECONDS)
+                .callTimeout(STREAM_TIMEOUT, TimeUnit.SECONDS)
                 .build();
     }
 
-
     /**
-     * Returns a facade client cloned from the shared singleton. It shares Dispatcher and ConnectionPool
+     * Returns a facade client cloned from the shared client. It shares Dispatcher and ConnectionPool
      * but is a distinct instance to avoid exposing the internal reference.
      */
     public static OkHttpClient getHttpClient() {
-        return HTTP_CLIENT.newBuilder().build();
+        return client().newBuilder().build();
+    }
+
+    /**
+     * Returns the client for SSE and WebSocket connections.
+     */
+    public static OkHttpClient getStreamingHttpClient() {
+        return streamingClient();
     }
 
     // ============================== HEAD ==============================
@@ -112,7 +92,7 @@ public class OkHttpUtil {
                 .head()
                 .build();
         try {
-            try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+            try (Response response = client().newCall(request).execute()) {
                 return Objects.requireNonNull(response.body()).bytes();
             }
         } catch (IOException e) {
@@ -146,7 +126,7 @@ public class OkHttpUtil {
                 .url(url)
                 .get()
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -171,7 +151,7 @@ public class OkHttpUtil {
                 .get()
                 .build();
         try {
-            try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+            try (Response response = client().newCall(request).execute()) {
                 return Objects.requireNonNull(response.body()).byteStream();
             }
         } catch (IOException e) {
@@ -195,7 +175,7 @@ public class OkHttpUtil {
                 .url(url)
                 .get()
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -220,7 +200,7 @@ public class OkHttpUtil {
                 .url(url)
                 .get()
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -285,7 +265,7 @@ public class OkHttpUtil {
                 .post(requestBody)
                 .url(url)
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -315,7 +295,7 @@ public class OkHttpUtil {
                 .post(requestBody)
                 .url(url)
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -358,7 +338,7 @@ public class OkHttpUtil {
                     .build();
         }
 
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -492,7 +472,7 @@ public class OkHttpUtil {
                 .put(requestBody)
                 .url(url)
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -520,7 +500,7 @@ public class OkHttpUtil {
                 .put(requestBody)
                 .url(url)
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -572,7 +552,7 @@ public class OkHttpUtil {
                 .patch(requestBody)
                 .url(url)
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -600,7 +580,7 @@ public class OkHttpUtil {
                 .patch(requestBody)
                 .url(url)
                 .build();
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -658,7 +638,7 @@ public class OkHttpUtil {
                     .build();
         }
 
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -692,7 +672,7 @@ public class OkHttpUtil {
                     .url(url)
                     .build();
         }
-        try (Response response = HTTP_CLIENT.newCall(request).execute()) {
+        try (Response response = client().newCall(request).execute()) {
             return Objects.requireNonNull(response.body()).bytes();
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
@@ -802,7 +782,9 @@ public class OkHttpUtil {
                 if (object == null) {
                     continue;
                 }
-                if (object instanceof MultipartFile) {
+                if (object instanceof InputStreamRequestBody streamBody) {
+                    builder.addFormDataPart(key, streamBody.getFileName(), streamBody);
+                } else if (object instanceof MultipartFile) {
                     MultipartFile multipartFile = (MultipartFile) object;
                     builder.addFormDataPart(key, multipartFile.getOriginalFilename(),
                             RequestBody.create(multipartFile.getBytes(), MediaType.parse("multipart/form-data")));
@@ -873,9 +855,8 @@ public class OkHttpUtil {
                     .build();
         }
 
-        // Instantiate EventSource and register the listener
-        RealEventSource realEventSource = new RealEventSource(request, listener);
-        realEventSource.connect(HTTP_CLIENT); // The actual start of the request
+        // Instantiate EventSource, register the listener and start the request
+        HttpClientRegistry.newEventSource(streamingClient(), request, listener);
     }
 
     public static EventSource connectRealEventSourceReturn(
@@ -897,8 +878,7 @@ public class OkHttpUtil {
             });
 
         Request req = rb.post(body).build();
-        EventSource.Factory factory = EventSources.createFactory(HTTP_CLIENT);
-        return factory.newEventSource(req, listener);
+        return HttpClientRegistry.newEventSource(streamingClient(), req, listener);
     }
 
 
@@ -928,9 +908,8 @@ public class OkHttpUtil {
                     .build();
         }
 
-        // Instantiate EventSource and register the listener
-        RealEventSource realEventSource = new RealEventSource(request, listener);
-        realEventSource.connect(HTTP_CLIENT); // The actual start of the request
+        // Instantiate EventSource, register the listener and start the request
+        HttpClientRegistry.newEventSource(streamingClient(), request, listener);
     }
 
     // ============================== RequestBody helpers ==============================
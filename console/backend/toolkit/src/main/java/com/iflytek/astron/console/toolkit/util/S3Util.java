@@ -2,6 +2,8 @@ package com.iflytek.astron.console.toolkit.util;
 
 import com.iflytek.astron.console.commons.constant.ResponseEnum;
 import com.iflytek.astron.console.commons.exception.BusinessException;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
 import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
@@ -213,6 +215,34 @@ public class S3Util {
         }
     }
 
+    /**
+     * Open an object for streaming; unlike {@link #getObject(String)} the content is not read into
+     * memory. The caller must close the returned stream, which holds an HTTP connection until then.
+     *
+     * @param key object key
+     * @return the object stream, whose headers carry {@code Content-Length}, or {@code null} when any
+     *         error occurs
+     */
+    public GetObjectResponse openObject(String key) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder().bucket(bucketName).object(key).build());
+        } catch (Exception e) {
+            log.error("S3 openObject error: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Length of an object opened with {@link #openObject(String)}.
+     *
+     * @param object opened object
+     * @return length in bytes, or -1 when the response does not declare it
+     */
+    public static long contentLength(GetObjectResponse object) {
+        String length = object.headers().get("Content-Length");
+        return length != null ? Long.parseLong(length) : -1;
+    }
+
     /* -------------------- Deletion -------------------- */
 
     /**
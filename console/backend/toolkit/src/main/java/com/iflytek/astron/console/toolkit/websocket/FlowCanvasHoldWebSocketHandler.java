@@ -1,24 +1,24 @@
 package com.iflytek.astron.console.toolkit.websocket;
 
-import com.iflytek.astron.console.toolkit.util.*;
+import com.iflytek.astron.console.toolkit.service.workflow.FlowCanvasPresenceService;
+import com.iflytek.astron.console.toolkit.util.URIUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * WebSocket handler for maintaining flow canvas real-time connections.
  * <p>
  * This handler keeps track of active WebSocket sessions associated with workflow canvases. Each
- * session corresponds to a specific flowId and sends periodic heartbeat messages to Redis to
- * indicate the connection's liveness.
+ * session corresponds to a specific flowId and sends periodic heartbeat messages, recorded by
+ * {@link FlowCanvasPresenceService} to indicate the connection's liveness.
  * </p>
  *
  * <p>
@@ -26,10 +26,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * </p>
  * <ul>
  * <li>Track session-to-flowId mapping.</li>
- * <li>Record heartbeat timestamps in Redis for each session.</li>
+ * <li>Record heartbeat timestamps for each session.</li>
  * <li>Respond to ping messages with "pong".</li>
- * <li>Count and return the number of alive sessions for each flow.</li>
- * <li>Automatically clean up expired heartbeats every 10 seconds.</li>
+ * <li>Return the number of alive sessions for each flow, and push it to the flow's sessions on this
+ * node whenever it changes.</li>
  * </ul>
  *
  * @author
@@ -38,23 +38,28 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class FlowCanvasHoldWebSocketHandler extends TextWebSocketHandler {
 
-    /** Redis key prefix used to store heartbeat timestamps. */
-    private static final String REDIS_HEARTBEAT_PREFIX = "spark_bot:workflow:canvas_heartbeat:";
+    /** Time limit and buffer size for sending to a session, which pushes may reach concurrently. */
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+    private static final int SEND_BUFFER_SIZE_LIMIT = 64 * 1024;
 
-    /** Redis utility bean for interacting with Redis. */
-    private static final RedisUtil redisUtil = SpringUtils.getBean(RedisUtil.class);
+    private final FlowCanvasPresenceService presenceService;
 
     /** Mapping between WebSocket sessionId and flowId. */
-    private static final Map<String, String> flowIdMap = new ConcurrentHashMap<>();
+    private final Map<String, String> flowIdMap = new ConcurrentHashMap<>();
 
-    /** Heartbeat expiration time in milliseconds. */
-    private static final long HEARTBEAT_EXPIRE_MS = 30_000;
+    /** Sessions of this node by flowId, with the last known number of alive sessions. */
+    private final Map<String, FlowSessions> flows = new ConcurrentHashMap<>();
+
+    public FlowCanvasHoldWebSocketHandler(FlowCanvasPresenceService presenceService) {
+        this.presenceService = presenceService;
+        presenceService.addListener(this::onPresenceChanged);
+    }
 
     /**
      * Called when a new WebSocket connection is established.
      * <p>
-     * Retrieves the flowId from query parameters, validates it, and records the session heartbeat
-     * timestamp in Redis. Returns the number of alive sessions.
+     * Retrieves the flowId from query parameters, validates it, and records the session heartbeat.
+     * Returns the number of alive sessions.
      * </p>
      *
      * @param session the {@link WebSocketSession} that has been established
@@ -70,21 +75,26 @@ public class FlowCanvasHoldWebSocketHandler extends TextWebSocketHandler {
             return;
         }
 
-        String redisKey = REDIS_HEARTBEAT_PREFIX + flowId;
-        long now = System.currentTimeMillis();
-        redisUtil.hset(redisKey, session.getId(), String.valueOf(now));
-
+        WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_SIZE_LIMIT);
+        FlowSessions flowSessions = flows.compute(flowId, (id, existing) -> {
+            FlowSessions sessions = existing == null ? new FlowSessions() : existing;
+            sessions.sessions.put(session.getId(), concurrentSession);
+            return sessions;
+        });
         flowIdMap.put(session.getId(), flowId);
 
-        int aliveCount = countAliveSessions(redisKey, now);
-        session.sendMessage(new TextMessage(String.valueOf(aliveCount)));
+        Long aliveCount = presenceService.heartbeat(flowId, session.getId());
+        if (aliveCount != null) {
+            flowSessions.aliveCount = aliveCount;
+        }
+        concurrentSession.sendMessage(new TextMessage(String.valueOf(flowSessions.aliveCount)));
     }
 
     /**
      * Handles text messages received from the WebSocket client.
      * <p>
      * If the message is a "ping", updates the heartbeat timestamp and replies with "pong". Otherwise,
-     * calculates and sends the number of alive sessions.
+     * sends the last known number of alive sessions.
      * </p>
      *
      * @param session the {@link WebSocketSession} associated with this message
@@ -96,18 +106,21 @@ public class FlowCanvasHoldWebSocketHandler extends TextWebSocketHandler {
         String flowId = flowIdMap.get(session.getId());
         if (flowId == null)
             return;
-
-        String redisKey = REDIS_HEARTBEAT_PREFIX + flowId;
-        long now = System.currentTimeMillis();
+        FlowSessions flowSessions = flows.get(flowId);
+        WebSocketSession concurrentSession = flowSessions == null ? null : flowSessions.sessions.get(session.getId());
+        if (concurrentSession == null)
+            return;
 
         if ("ping".equals(message.getPayload())) {
-            redisUtil.hset(redisKey, session.getId(), String.valueOf(now));
-            session.sendMessage(new TextMessage("pong"));
+            Long aliveCount = presenceService.heartbeat(flowId, session.getId());
+            if (aliveCount != null) {
+                flowSessions.aliveCount = aliveCount;
+            }
+            concurrentSession.sendMessage(new TextMessage("pong"));
             return;
         }
 
-        int aliveCount = countAliveSessions(redisKey, now);
-        session.sendMessage(new TextMessage(String.valueOf(aliveCount)));
+        concurrentSession.sendMessage(new TextMessage(String.valueOf(flowSessions.aliveCount)));
     }
 
     /**
@@ -132,7 +145,7 @@ public class FlowCanvasHoldWebSocketHandler extends TextWebSocketHandler {
     /**
      * Called when a WebSocket connection is closed.
      * <p>
-     * Removes the session from the flowId map and deletes its heartbeat record from Redis.
+     * Removes the session from the flowId map and deletes its heartbeat record.
      * </p>
      *
      * @param session the {@link WebSocketSession} that was closed
@@ -144,64 +157,44 @@ public class FlowCanvasHoldWebSocketHandler extends TextWebSocketHandler {
         if (flowId == null)
             return;
 
-        String redisKey = REDIS_HEARTBEAT_PREFIX + flowId;
-        redisUtil.hdel(redisKey, session.getId());
+        flows.computeIfPresent(flowId, (id, sessions) -> {
+            sessions.sessions.remove(session.getId());
+            return sessions.sessions.isEmpty() ? null : sessions;
+        });
+        presenceService.leave(flowId, session.getId());
     }
 
     /**
-     * Counts the number of active (non-expired) heartbeat sessions.
-     * <p>
-     * Iterates through all heartbeat timestamps in Redis and counts sessions whose heartbeat time is
-     * within the expiration window.
-     * </p>
+     * Pushes the new number of alive sessions of a flow to its sessions on this node.
      *
-     * @param redisKey the Redis hash key storing heartbeat data
-     * @param now the current timestamp in milliseconds
-     * @return the number of alive sessions
+     * @param flowId the flow whose sessions changed
+     * @param aliveCount the number of alive sessions across all nodes
      */
-    private int countAliveSessions(String redisKey, long now) {
-        Map<Object, Object> allHeartbeats = redisUtil.hgetAll(redisKey);
-        int count = 0;
-        for (Map.Entry<Object, Object> entry : allHeartbeats.entrySet()) {
+    void onPresenceChanged(String flowId, Long aliveCount) {
+        FlowSessions flowSessions = flows.get(flowId);
+        if (flowSessions == null)
+            return;
+
+        flowSessions.aliveCount = aliveCount;
+        TextMessage message = new TextMessage(String.valueOf(aliveCount));
+        for (WebSocketSession session : flowSessions.sessions.values()) {
+            if (!session.isOpen())
+                continue;
             try {
-                long ts = Long.parseLong(entry.getValue().toString());
-                if (now - ts <= HEARTBEAT_EXPIRE_MS) {
-                    count++;
-                }
-            } catch (Exception e) {
-                log.warn("Invalid heartbeat timestamp format: {}", entry, e);
+                session.sendMessage(message);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("session[{}] failed to push alive count, e = {}", session.getId(), e.getMessage());
             }
         }
-        return count;
     }
 
     /**
-     * Periodically clears expired session heartbeats.
-     * <p>
-     * This method runs every 10 seconds and removes entries older than {@link #HEARTBEAT_EXPIRE_MS}
-     * from Redis.
-     * </p>
-     *
-     * @implNote The scheduling interval is defined via {@code @Scheduled(fixedDelay = 10000)}.
+     * Sessions of one flow on this node.
      */
-    @Scheduled(fixedDelay = 10000)
-    public void clearExpiredHeartbeats() {
-        long now = System.currentTimeMillis();
-        long expireTime = now - HEARTBEAT_EXPIRE_MS;
-
-        Set<String> keys = redisUtil.scan(REDIS_HEARTBEAT_PREFIX + "*");
-        for (String key : keys) {
-            Map<Object, Object> all = redisUtil.hgetAll(key);
-            for (Map.Entry<Object, Object> entry : all.entrySet()) {
-                try {
-                    long ts = Long.parseLong(entry.getValue().toString());
-                    if (ts < expireTime) {
-                        redisUtil.hdel(key, entry.getKey().toString());
-                    }
-                } catch (Exception e) {
-                    log.warn("Exception occurred while cleaning heartbeat: {} => {}", entry.getKey(), entry.getValue());
-                }
-            }
-        }
+    private static final class FlowSessions {
+
+        private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+        private volatile long aliveCount;
     }
 }
@@ -1,5 +1,7 @@
 package com.iflytek.astron.console.toolkit.websocket;
 
+import com.iflytek.astron.console.toolkit.service.workflow.FlowCanvasPresenceService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.WebSocketHandler;
@@ -25,6 +27,9 @@ import org.springframework.web.socket.config.annotation.*;
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
+    @Autowired
+    private FlowCanvasPresenceService flowCanvasPresenceService;
+
     /**
      * Registers WebSocket handlers for the application.
      * <p>
@@ -55,6 +60,6 @@ public class WebSocketConfig implements WebSocketConfigurer {
      */
     @Bean
     public WebSocketHandler flowCanvasHoldWebSocketHandler() {
-        return new FlowCanvasHoldWebSocketHandler();
+        return new FlowCanvasHoldWebSocketHandler(flowCanvasPresenceService);
     }
 }
@@ -0,0 +1,134 @@
+package com.iflytek.astron.console.toolkit.config.jooq;
+
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jooq.impl.DSL.*;
+
+/**
+ * Unit tests for JooqBatchExecutor chunked statements and row-level fallback.
+ */
+class JooqBatchExecutorTest {
+
+    private final DSLContext dsl = new JooqConfig().dslContext();
+    private final Table<org.jooq.Record> table = table(name("orders"));
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private Query insert(List<Map<String, Object>> rows) {
+        LinkedHashSet<String> columns = new LinkedHashSet<>();
+        rows.forEach(row -> columns.addAll(row.keySet()));
+        List<Field<Object>> fields = columns.stream().map(c -> field(name(c))).toList();
+        InsertValuesStepN<org.jooq.Record> step = dsl.insertInto(table, fields);
+        for (Map<String, Object> row : rows) {
+            List<Field<?>> values = new ArrayList<>();
+            for (Field<Object> f : fields) {
+                values.add(row.containsKey(f.getName()) ? val(row.get(f.getName())) : DSL.defaultValue(f));
+            }
+            step = step.values(values);
+        }
+        return step;
+    }
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("uid", "u1");
+            row.put("amount", i);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Test
+    void executeInBatches_sendsOneStatementPerChunk() {
+        JooqBatchExecutor.ResultSummary summary = JooqBatchExecutor.executeInBatches(rows(5), 0, 2, 0, 1, null,
+                this::insert, row -> insert(List.of(row)), (sql, params) -> sent.add(sql));
+
+        assertThat(summary.success).isEqualTo(5);
+        assertThat(summary.failed).isZero();
+        assertThat(sent).hasSize(3);
+        assertThat(sent.getFirst()).isEqualTo("insert into orders (uid, amount) values ('u1', 0), ('u1', 1)");
+    }
+
+    @Test
+    void executeInBatches_rendersDefaultForMissingColumns() {
+        Map<String, Object> partial = new LinkedHashMap<>();
+        partial.put("uid", "u2");
+        List<Map<String, Object>> rows = new ArrayList<>(rows(1));
+        rows.add(partial);
+
+        JooqBatchExecutor.executeInBatches(rows, 0, 10, 0, 1, null,
+                this::insert, row -> insert(List.of(row)), (sql, params) -> sent.add(sql));
+
+        assertThat(sent).containsExactly("insert into orders (uid, amount) values ('u1', 0), ('u2', default)");
+    }
+
+    @Test
+    void executeInBatches_fallsBackToRowsOfFailedChunkOnly() {
+        JooqBatchExecutor.ResultSummary summary = JooqBatchExecutor.executeInBatches(rows(6), 100, 3, 0, 1, null,
+                this::insert, row -> insert(List.of(row)), (sql, params) -> {
+                    sent.add(sql);
+                    if (sql.contains("'u1', 4)")) {
+                        throw new SQLException("value out of range", "22003");
+                    }
+                });
+
+        assertThat(summary.success).isEqualTo(5);
+        assertThat(summary.failed).isEqualTo(1);
+        assertThat(summary.errors).singleElement().satisfies(error -> {
+            assertThat(error.index).isEqualTo(104);
+            assertThat(error.message).isEqualTo("value out of range");
+        });
+        // First chunk in one statement, second chunk once as a whole and then row by row
+        assertThat(sent).hasSize(5);
+    }
+
+    @Test
+    void executeInBatches_doesNotReplayChunkOfUnknownOutcome() {
+        JooqBatchExecutor.ResultSummary summary = JooqBatchExecutor.executeInBatches(rows(6), 0, 3, 0, 1, null,
+                this::insert, row -> insert(List.of(row)), (sql, params) -> {
+                    sent.add(sql);
+                    if (sql.contains("'u1', 4)")) {
+                        // Core may have written the chunk before the response was lost
+                        throw new RuntimeException(new SocketTimeoutException("timeout"));
+                    }
+                });
+
+        assertThat(summary.success).isEqualTo(3);
+        assertThat(summary.failed).isEqualTo(3);
+        assertThat(summary.errors).extracting(error -> error.index).containsExactly(3, 4, 5);
+        assertThat(sent).hasSize(2);
+    }
+
+    @Test
+    void executeInBatches_runsChunksInParallelAndKeepsErrorOrder() {
+        JooqBatchExecutor.ResultSummary summary = JooqBatchExecutor.executeInBatches(rows(100), 0, 10, 0, 4, pool,
+                this::insert, row -> insert(List.of(row)), (sql, params) -> {
+                    sent.add(sql);
+                    if (sql.contains("'u1', 15)") || sql.contains("'u1', 85)")) {
+                        throw new SQLException("bad row", "23502");
+                    }
+                });
+
+        assertThat(summary.success).isEqualTo(98);
+        assertThat(summary.failed).isEqualTo(2);
+        assertThat(summary.errors).extracting(error -> error.index).containsExactly(15, 85);
+        assertThat(sent).hasSize(10 + 20);
+    }
+}
@@ -0,0 +1,137 @@
+package com.iflytek.astron.console.toolkit.mapper.knowledge;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import com.google.common.collect.Lists;
+import com.iflytek.astron.console.toolkit.entity.table.knowledge.MysqlKnowledge;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.logging.nologging.NoLoggingImpl;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the knowledge statements of KnowledgeMapper.xml against H2 in MySQL mode and reports the
+ * throughput of per-row inserts and of the multi-row upserts used when embedding a document.
+ */
+@Slf4j
+class KnowledgeBulkWriteBenchmarkTest {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:knowledge_bulk;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE knowledge (id varchar(64) NOT NULL PRIMARY KEY, file_id varchar(64), content text,"
+                    + " char_count varchar(255), name varchar(255), description varchar(512), enabled int DEFAULT 0,"
+                    + " source int DEFAULT 1, test_hit_count bigint, dialog_hit_count bigint, core_repo_name text,"
+                    + " deleted int NOT NULL DEFAULT 0, created_at datetime NOT NULL, updated_at datetime)");
+        }
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setLogImpl(NoLoggingImpl.class);
+        configuration.setEnvironment(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        String resource = "mybatis/mapper/mysql/KnowledgeMapper.xml";
+        try (InputStream in = KnowledgeBulkWriteBenchmarkTest.class.getClassLoader().getResourceAsStream(resource)) {
+            new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+        sqlSessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @BeforeEach
+    void clearTable() {
+        inSession(mapper -> mapper.delete(null));
+    }
+
+    @Test
+    void upsertBatch_insertsNewRowsAndReplacesExistingOnes() {
+        List<MysqlKnowledge> rows = knowledge("doc-1", 3);
+        inSession(mapper -> mapper.upsertBatch(rows));
+
+        MysqlKnowledge restored = rows.get(1);
+        restored.setFileId("doc-2");
+        restored.setEnabled(0);
+        inSession(mapper -> mapper.upsertBatch(List.of(restored)));
+
+        inSession(mapper -> {
+            assertEquals(3, mapper.selectCount(null));
+            MysqlKnowledge stored = mapper.selectById(restored.getId());
+            assertEquals("doc-2", stored.getFileId());
+            assertEquals(0, stored.getEnabled());
+            assertEquals(2, mapper.countByFileId("doc-1"));
+        });
+    }
+
+    @Test
+    void benchmark_rowsPerSecond() {
+        for (int chunks : new int[] {1_000, 10_000}) {
+            double perRow = rowsPerSecond(chunks, rows -> inSession(mapper -> rows.forEach(mapper::insert)));
+            double bulk = rowsPerSecond(chunks, rows -> inSession(mapper -> Lists.partition(rows, BATCH_SIZE).forEach(mapper::upsertBatch)));
+            log.info("knowledge write of {} chunks: per-row insert {} rows/s, multi-row upsert {} rows/s", chunks, (long) perRow, (long) bulk);
+        }
+        double bulk = rowsPerSecond(100_000, rows -> inSession(mapper -> Lists.partition(rows, BATCH_SIZE).forEach(mapper::upsertBatch)));
+        log.info("knowledge write of 100000 chunks: multi-row upsert {} rows/s", (long) bulk);
+    }
+
+    private double rowsPerSecond(int chunks, Consumer<List<MysqlKnowledge>> write) {
+        clearTable();
+        List<MysqlKnowledge> rows = knowledge("doc-" + chunks, chunks);
+        long start = System.nanoTime();
+        write.accept(rows);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        inSession(mapper -> assertEquals(chunks, mapper.selectCount(null)));
+        return chunks / seconds;
+    }
+
+    private static void inSession(Consumer<KnowledgeMapper> work) {
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.SIMPLE, false)) {
+            work.accept(session.getMapper(KnowledgeMapper.class));
+            session.commit();
+        }
+    }
+
+    private static List<MysqlKnowledge> knowledge(String fileId, int count) {
+        List<MysqlKnowledge> rows = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            MysqlKnowledge knowledge = new MysqlKnowledge();
+            knowledge.setId(fileId + "-" + i);
+            knowledge.setFileId(fileId);
+            JSONObject content = new JSONObject();
+            content.put("content", "Chunk " + i + " of the benchmark document, long enough to resemble a real paragraph.");
+            content.put("dataIndex", String.valueOf(i));
+            knowledge.setContent(content);
+            knowledge.setCharCount(80L);
+            knowledge.setEnabled(1);
+            knowledge.setSource(0);
+            knowledge.setTestHitCount(0L);
+            knowledge.setDialogHitCount(0L);
+            knowledge.setCreatedAt(now);
+            knowledge.setUpdatedAt(now);
+            rows.add(knowledge);
+        }
+        return rows;
+    }
+}
@@ -8,6 +8,7 @@ import com.iflytek.astron.console.toolkit.entity.biz.AiGenerate;
 import com.iflytek.astron.console.toolkit.entity.table.ConfigInfo;
 import com.iflytek.astron.console.toolkit.entity.table.bot.SparkBot;
 import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.mapper.bot.SparkBotMapper;
 import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
 import com.iflytek.astron.console.toolkit.tool.spark.SparkApiTool;
@@ -37,6 +38,8 @@ class PromptServiceTest {
     @Mock
     private ConfigInfoMapper configInfoMapper;
     @Mock
+    private ConfigInfoRegistry configInfoRegistry;
+    @Mock
     private SparkBotMapper sparkBotMapper;
     @Mock
     private WorkflowMapper workflowMapper;
@@ -51,7 +54,7 @@ class PromptServiceTest {
     void enhance_shouldFillTemplate_andCallSpark() {
         ConfigInfo cfg = new ConfigInfo();
         cfg.setValue("Hi {assistant_name} - {assistant_description}");
-        when(configInfoMapper.getByCategoryAndCode("TEMPLATE", "prompt-enhance")).thenReturn(cfg);
+        when(configInfoRegistry.getByCategoryAndCode("TEMPLATE", "prompt-enhance")).thenReturn(cfg);
 
         SseEmitter expected = new SseEmitter();
         ArgumentCaptor<String> msgCap = ArgumentCaptor.forClass(String.class);
@@ -70,7 +73,7 @@ class PromptServiceTest {
     void nqa_shouldParseValidJsonArray() throws InterruptedException {
         ConfigInfo cfg = new ConfigInfo();
         cfg.setValue("Q: {q}");
-        when(configInfoMapper.getByCategoryAndCode("TEMPLATE", "next-question-advice")).thenReturn(cfg);
+        when(configInfoRegistry.getByCategoryAndCode("TEMPLATE", "next-question-advice")).thenReturn(cfg);
 
         when(sparkApiTool.onceChatReturnWholeByWs("Q: hello"))
                 .thenReturn("[\"a\",\"b\",\"c\"]");
@@ -87,7 +90,7 @@ class PromptServiceTest {
     void nqa_shouldExtractBracketContent_whenNotJson() throws InterruptedException {
         ConfigInfo cfg = new ConfigInfo();
         cfg.setValue("MSG:{q}");
-        when(configInfoMapper.getByCategoryAndCode("TEMPLATE", "next-question-advice")).thenReturn(cfg);
+        when(configInfoRegistry.getByCategoryAndCode("TEMPLATE", "next-question-advice")).thenReturn(cfg);
 
         when(sparkApiTool.onceChatReturnWholeByWs("MSG:hi"))
                 .thenReturn("prefix blah [\"x\",\"y\",\"z\"] tail");
@@ -104,7 +107,7 @@ class PromptServiceTest {
     void nqa_shouldFallbackOnException() throws InterruptedException {
         ConfigInfo cfg = new ConfigInfo();
         cfg.setValue("X:{q}");
-        when(configInfoMapper.getByCategoryAndCode("TEMPLATE", "next-question-advice")).thenReturn(cfg);
+        when(configInfoRegistry.getByCategoryAndCode("TEMPLATE", "next-question-advice")).thenReturn(cfg);
 
         when(sparkApiTool.onceChatReturnWholeByWs(anyString()))
                 .thenThrow(new RuntimeException("ws err"));
@@ -248,8 +251,8 @@ class PromptServiceTest {
             url.setValue("http://code.url");
             ConfigInfo domain = new ConfigInfo();
             domain.setValue("code.domain");
-            when(configInfoMapper.getByCategoryAndCode("AI_CODE", "DS_V3_url")).thenReturn(url);
-            when(configInfoMapper.getByCategoryAndCode("AI_CODE", "DS_V3_domain")).thenReturn(domain);
+            when(configInfoRegistry.getByCategoryAndCode("AI_CODE", "DS_V3_url")).thenReturn(url);
+            when(configInfoRegistry.getByCategoryAndCode("AI_CODE", "DS_V3_domain")).thenReturn(domain);
 
             SseEmitter expected = new SseEmitter();
             ArgumentCaptor<String> urlCap = ArgumentCaptor.forClass(String.class);
@@ -280,8 +283,8 @@ class PromptServiceTest {
             when(configInfoMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(cfg);
 
             // URL/domain missing use SparkApiTool default constants
-            when(configInfoMapper.getByCategoryAndCode("AI_CODE", "DS_V3_url")).thenReturn(null);
-            when(configInfoMapper.getByCategoryAndCode("AI_CODE", "DS_V3_domain")).thenReturn(null);
+            when(configInfoRegistry.getByCategoryAndCode("AI_CODE", "DS_V3_url")).thenReturn(null);
+            when(configInfoRegistry.getByCategoryAndCode("AI_CODE", "DS_V3_domain")).thenReturn(null);
 
             SseEmitter expected = new SseEmitter();
             ArgumentCaptor<String> urlCap = ArgumentCaptor.forClass(String.class);
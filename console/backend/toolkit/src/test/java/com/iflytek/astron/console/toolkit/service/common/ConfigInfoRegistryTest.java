@@ -0,0 +1,191 @@
+package com.iflytek.astron.console.toolkit.service.common;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.iflytek.astron.console.toolkit.entity.table.ConfigInfo;
+import com.iflytek.astron.console.toolkit.handler.language.LanguageContext;
+import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ConfigInfoRegistry lookups and change-driven refresh.
+ */
+class ConfigInfoRegistryTest {
+
+    private ConfigInfoRegistry registry;
+    private ConfigInfoMapper configInfoMapper;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, ConfigInfo.class);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        configInfoMapper = mock(ConfigInfoMapper.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> meterRegistryProvider = mock(ObjectProvider.class);
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+
+        when(configInfoMapper.selectMaps(any())).thenReturn(List.of(Map.of("total", 3L, "max_id", 3L)));
+        when(configInfoMapper.selectList(any())).thenReturn(new ArrayList<>(List.of(
+                row(1L, "LLM", "code-a", "first", 100L),
+                row(2L, "LLM", "code-a", "second", 300L),
+                row(3L, "LLM", "code-b", "third", null))));
+
+        registry = new ConfigInfoRegistry();
+        ReflectionTestUtils.setField(registry, "configInfoMapper", configInfoMapper);
+        ReflectionTestUtils.setField(registry, "meterRegistryProvider", meterRegistryProvider);
+        registry.init();
+    }
+
+    @Test
+    void lookups_returnLatestUpdatedFirstAndNeverUpdatedLast() {
+        assertThat(registry.getListByCategory("LLM")).extracting(ConfigInfo::getId).containsExactly(2L, 1L, 3L);
+        assertThat(registry.getByCategoryAndCode("LLM", "code-a").getId()).isEqualTo(2L);
+        assertThat(registry.getListByCategoryAndCode("LLM", "code-a")).extracting(ConfigInfo::getId).containsExactly(2L, 1L);
+        assertThat(registry.getByCategoryAndName("LLM", "third").getId()).isEqualTo(3L);
+        assertThat(registry.getFirstByCategory("LLM").getId()).isEqualTo(2L);
+        verify(configInfoMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void lookups_missReturnNullOrEmptyMutableList() {
+        assertThat(registry.getByCategoryAndCode("LLM", "missing")).isNull();
+        List<ConfigInfo> rows = registry.getListByCategory("MISSING");
+        assertThat(rows).isEmpty();
+        rows.add(new ConfigInfo());
+
+        assertThat(meterRegistry.counter("config_info.snapshot.lookups", "result", "miss").count()).isEqualTo(2);
+    }
+
+    @Test
+    void lookups_returnCopiesThatCannotChangeTheSnapshot() {
+        ConfigInfo row = registry.getByCategoryAndCode("LLM", "code-a");
+        row.setValue("changed");
+        registry.getListByCategory("LLM").clear();
+
+        assertThat(registry.getByCategoryAndCode("LLM", "code-a").getValue()).isEqualTo("second");
+        assertThat(registry.getListByCategory("LLM")).hasSize(3);
+        assertThat(meterRegistry.counter("config_info.snapshot.lookups", "result", "hit").count()).isEqualTo(4);
+        assertThat(meterRegistry.get("config_info.snapshot.entries").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void refresh_keepsSnapshotWhileTableIsUnchanged() {
+        registry.getListByCategory("LLM");
+
+        registry.refresh();
+
+        verify(configInfoMapper, times(1)).selectList(any());
+        assertThat(meterRegistry.counter("config_info.snapshot.refreshes", "result", "unchanged").count()).isEqualTo(1);
+    }
+
+    @Test
+    void refresh_reloadsWhenTableChanged() {
+        registry.getListByCategory("LLM");
+        when(configInfoMapper.selectMaps(any())).thenReturn(List.of(Map.of("total", 4L, "max_id", 4L)));
+        when(configInfoMapper.selectList(any())).thenReturn(List.of(row(4L, "LLM", "code-c", "fourth", 500L)));
+
+        registry.refresh();
+
+        assertThat(registry.getListByCategory("LLM")).extracting(ConfigInfo::getId).containsExactly(4L);
+        assertThat(meterRegistry.counter("config_info.snapshot.refreshes", "result", "reloaded").count()).isEqualTo(1);
+    }
+
+    @Test
+    void refresh_keepsLastSnapshotWhenDatabaseFails() {
+        registry.getListByCategory("LLM");
+        when(configInfoMapper.selectMaps(any())).thenThrow(new RuntimeException("db down"));
+
+        registry.refresh();
+
+        assertThat(registry.getListByCategory("LLM")).hasSize(3);
+        assertThat(meterRegistry.counter("config_info.snapshot.refreshes", "result", "failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void refresh_beforeFirstLookupDoesNotLoad() {
+        registry.refresh();
+
+        verify(configInfoMapper, never()).selectList(any());
+        verify(configInfoMapper, never()).selectMaps(any());
+    }
+
+    @Test
+    void lookups_readTableOfRequestLocale() {
+        tablePerLocale();
+
+        assertThat(lookupIn(Locale.ENGLISH)).isEqualTo("english");
+        assertThat(lookupIn(Locale.SIMPLIFIED_CHINESE)).isEqualTo("chinese");
+        assertThat(lookupIn(Locale.ENGLISH)).isEqualTo("english");
+        verify(configInfoMapper, times(2)).selectList(any());
+    }
+
+    @Test
+    void refresh_reloadsEachTableUnderItsOwnLocale() {
+        tablePerLocale();
+        lookupIn(Locale.ENGLISH);
+        lookupIn(Locale.SIMPLIFIED_CHINESE);
+        when(configInfoMapper.selectMaps(any())).thenAnswer(invocation -> List.of(Map.of("total", 4L, "table", table())));
+
+        // The scheduler thread carries a locale of neither table
+        LanguageContext.runWithLocale(Locale.GERMAN, registry::refresh);
+
+        assertThat(lookupIn(Locale.ENGLISH)).isEqualTo("english");
+        assertThat(lookupIn(Locale.SIMPLIFIED_CHINESE)).isEqualTo("chinese");
+        assertThat(meterRegistry.counter("config_info.snapshot.refreshes", "result", "reloaded").count()).isEqualTo(2);
+    }
+
+    /**
+     * Answers as the dynamic table name interceptor routes: config_info_en for English, else config_info
+     */
+    private void tablePerLocale() {
+        when(configInfoMapper.selectMaps(any())).thenAnswer(invocation -> List.of(Map.of("total", 3L, "table", table())));
+        when(configInfoMapper.selectList(any())).thenAnswer(invocation -> List.of(
+                row(1L, "LLM", "code-a", table().equals("config_info_en") ? "english" : "chinese", 100L)));
+    }
+
+    private static String table() {
+        return LanguageContext.isEn() ? "config_info_en" : "config_info";
+    }
+
+    private String lookupIn(Locale locale) {
+        AtomicReference<String> value = new AtomicReference<>();
+        LanguageContext.runWithLocale(locale, () -> value.set(registry.getByCategoryAndCode("LLM", "code-a").getValue()));
+        return value.get();
+    }
+
+    private static ConfigInfo row(Long id, String category, String code, String name, Long updatedAt) {
+        ConfigInfo row = new ConfigInfo();
+        row.setId(id);
+        row.setCategory(category);
+        row.setCode(code);
+        row.setName(name);
+        row.setValue(name);
+        row.setIsValid(1);
+        row.setUpdateTime(updatedAt == null ? null : LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(updatedAt));
+        return row;
+    }
+}
@@ -0,0 +1,75 @@
+package com.iflytek.astron.console.toolkit.service.database;
+
+import com.alibaba.excel.EasyExcel;
+import com.iflytek.astron.console.toolkit.entity.table.database.DbTableField;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for DBExcelReadListener batch hand-over.
+ */
+class DBExcelReadListenerTest {
+
+    private static final List<DbTableField> FIELDS = List.of(field("id", "integer"), field("name", "string"), field("amount", "integer"));
+
+    private static DbTableField field(String name, String type) {
+        DbTableField field = new DbTableField();
+        field.setName(name);
+        field.setType(type);
+        field.setIsRequired(false);
+        return field;
+    }
+
+    private static byte[] excel(int rows) {
+        List<List<Object>> data = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            data.add(List.of("name-" + i, String.valueOf(i)));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EasyExcel.write(out).head(List.of(List.of("name"), List.of("amount"))).sheet("data").doWrite(data);
+        return out.toByteArray();
+    }
+
+    @Test
+    void invoke_handsOverFullBatchesWhileReading() {
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Map<String, Object>> last = new ArrayList<>();
+        DBExcelReadListener listener = new DBExcelReadListener(FIELDS, batch -> {
+            batchSizes.add(batch.size());
+            last.clear();
+            last.addAll(batch);
+        }, 200, "u1", 10_000);
+
+        EasyExcel.read(new ByteArrayInputStream(excel(450)), listener).sheet().doRead();
+
+        assertThat(batchSizes).containsExactly(200, 200, 50);
+        assertThat(last.getLast()).containsEntry("uid", "u1").containsEntry("name", "name-449").containsEntry("amount", 449L);
+    }
+
+    @Test
+    void invoke_stopsAtMaxRows() {
+        List<Integer> batchSizes = new ArrayList<>();
+        DBExcelReadListener listener = new DBExcelReadListener(FIELDS, batch -> batchSizes.add(batch.size()), 100, "u1", 250);
+
+        EasyExcel.read(new ByteArrayInputStream(excel(400)), listener).sheet().doRead();
+
+        assertThat(batchSizes).containsExactly(100, 100, 50);
+    }
+
+    @Test
+    void doAfterAllAnalysed_rejectsFileWithoutRows() {
+        DBExcelReadListener listener = new DBExcelReadListener(FIELDS, batch -> {
+        }, 100, "u1", 10_000);
+
+        assertThatThrownBy(() -> EasyExcel.read(new ByteArrayInputStream(excel(0)), listener).sheet().doRead())
+                .hasStackTraceContaining("No valid data");
+    }
+}
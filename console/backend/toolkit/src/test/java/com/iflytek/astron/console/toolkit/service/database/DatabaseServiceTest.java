@@ -0,0 +1,266 @@
+package com.iflytek.astron.console.toolkit.service.database;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.iflytek.astron.console.commons.config.JwtClaimsFilter;
+import com.iflytek.astron.console.commons.constant.ResponseEnum;
+import com.iflytek.astron.console.commons.exception.BusinessException;
+import com.iflytek.astron.console.toolkit.entity.dto.database.DbTableDataDto;
+import com.iflytek.astron.console.toolkit.entity.dto.database.DbTableOperateDto;
+import com.iflytek.astron.console.toolkit.entity.dto.database.DbTableSelectDataDto;
+import com.iflytek.astron.console.toolkit.entity.enumVo.DBOperateEnum;
+import com.iflytek.astron.console.toolkit.entity.table.database.DbInfo;
+import com.iflytek.astron.console.toolkit.entity.table.database.DbTable;
+import com.iflytek.astron.console.toolkit.entity.table.database.DbTableField;
+import com.iflytek.astron.console.toolkit.entity.vo.database.DbTableDataCursorVo;
+import com.iflytek.astron.console.toolkit.mapper.database.DbInfoMapper;
+import com.iflytek.astron.console.toolkit.mapper.database.DbTableFieldMapper;
+import com.iflytek.astron.console.toolkit.mapper.database.DbTableMapper;
+import com.iflytek.astron.console.toolkit.service.extra.CoreSystemService;
+import com.iflytek.astron.console.toolkit.tool.DataPermissionCheckTool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DatabaseService.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DatabaseServiceTest {
+
+    private static final DateTimeFormatter CORE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern AFTER = Pattern.compile("WHERE \"id\" < (\\d+)");
+    private static final Pattern LIMIT = Pattern.compile("LIMIT (\\d+)");
+
+    @Mock
+    private DataPermissionCheckTool dataPermissionCheckTool;
+    @Mock
+    private DbTableMapper dbTableMapper;
+    @Mock
+    private DbTableFieldMapper dbTableFieldMapper;
+    @Mock
+    private DbInfoMapper dbInfoMapper;
+    @Mock
+    private CoreSystemService coreSystemService;
+    @Mock
+    private TableRowCountCache tableRowCountCache;
+    @InjectMocks
+    private DatabaseService databaseService;
+
+    /** Rows of the user table, create_time with the microseconds CURRENT_TIMESTAMP keeps */
+    private final Map<Long, LocalDateTime> table = new LinkedHashMap<>();
+    /** Statements sent by operateTableData */
+    private final List<String> sent = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(JwtClaimsFilter.USER_ID_ATTRIBUTE, "user-001");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        DbTable dbTable = new DbTable();
+        dbTable.setId(3L);
+        dbTable.setDbId(2L);
+        dbTable.setName("orders");
+        DbInfo dbInfo = new DbInfo();
+        dbInfo.setId(2L);
+        dbInfo.setDbId(20L);
+        when(dbTableMapper.selectById(3L)).thenReturn(dbTable);
+        when(dbInfoMapper.selectById(2L)).thenReturn(dbInfo);
+        when(tableRowCountCache.get(eq(3L), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+        when(coreSystemService.execDML(anyString(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> execDml(invocation.getArgument(0)));
+        when(dbTableFieldMapper.selectList(any())).thenReturn(Stream.of("id", "uid", "create_time", "name", "amount").map(name -> {
+            DbTableField field = new DbTableField();
+            field.setName(name);
+            return field;
+        }).toList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void selectTableDataByCursor_returnsEveryRowOnceNewestFirst() {
+        LocalDateTime second = LocalDateTime.of(2025, 3, 1, 10, 0, 5);
+        // Several rows in the same second, as core shows create_time
+        table.put(9L, second.minusSeconds(1).plusNanos(200_000_000));
+        table.put(10L, second.minusSeconds(1).plusNanos(600_000_000));
+        table.put(11L, second.plusNanos(5_000));
+        table.put(12L, second.plusNanos(100_000));
+        table.put(13L, second.plusNanos(250_000_000));
+        table.put(14L, second.plusNanos(750_000_000));
+        table.put(15L, second.plusNanos(900_000_000));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            DbTableSelectDataDto dto = new DbTableSelectDataDto();
+            dto.setTbId(3L);
+            dto.setExecDev(1);
+            dto.setPageSize(2L);
+            dto.setCursor(cursor);
+            DbTableDataCursorVo vo = databaseService.selectTableDataByCursor(dto);
+            vo.getRecords().forEach(row -> seen.add(row.getLong("id")));
+            assertThat(vo.getTotal()).isEqualTo(table.size());
+            cursor = vo.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(seen).containsExactly(15L, 14L, 13L, 12L, 11L, 10L, 9L);
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void decodeCursor_readsIdAndAcceptsOlderCursors() {
+        JSONObject row = new JSONObject();
+        row.put("create_time", "2025-03-01 10:00:05");
+        row.put("id", 7L);
+        JSONObject older = new JSONObject();
+        older.put("createTime", "2025-03-01 10:00:05");
+        older.put("id", 8L);
+
+        assertThat(DatabaseService.decodeCursor(DatabaseService.encodeCursor(row))).isEqualTo(7L);
+        assertThat(DatabaseService.decodeCursor(Base64.getUrlEncoder().encodeToString(older.toJSONString().getBytes(StandardCharsets.UTF_8)))).isEqualTo(8L);
+    }
+
+    @Test
+    void operateTableData_mergesUpdatesIntoOneCaseStatement() {
+        recordStatements(null);
+
+        databaseService.operateTableData(operate(row(DBOperateEnum.UPDATE, 1L, "a", null), row(DBOperateEnum.UPDATE, 2L, "b", 5)));
+
+        assertThat(sent).containsExactly("UPDATE \"orders\" SET \"name\" = CASE \"id\" WHEN 1 THEN 'a' WHEN 2 THEN 'b' ELSE \"name\" END, "
+                + "\"amount\" = CASE \"id\" WHEN 2 THEN 5 ELSE \"amount\" END WHERE \"id\" IN (1, 2);");
+    }
+
+    @Test
+    void operateTableData_repeatedIdStartsNewBatch() {
+        recordStatements(null);
+
+        databaseService.operateTableData(operate(row(DBOperateEnum.UPDATE, 1L, "a", null), row(DBOperateEnum.UPDATE, 2L, "b", null),
+                row(DBOperateEnum.UPDATE, 1L, "c", null), row(DBOperateEnum.DELETE, 2L, null, null), row(DBOperateEnum.DELETE, 3L, null, null)));
+
+        // The second update of id 1 must run after the first, not be merged into the same CASE
+        assertThat(sent).hasSize(3);
+        assertThat(sent.get(0)).contains("WHEN 1 THEN 'a' WHEN 2 THEN 'b'");
+        assertThat(sent.get(1)).startsWith("UPDATE").contains("'c'").doesNotContain("'a'");
+        assertThat(sent.get(2)).isEqualTo("DELETE FROM \"orders\" WHERE \"id\" IN (2, 3);");
+    }
+
+    @Test
+    void operateTableData_rejectedBatchFallsBackToRows() {
+        recordStatements(new BusinessException(ResponseEnum.RESPONSE_FAILED, "duplicate key"));
+
+        databaseService.operateTableData(operate(row(DBOperateEnum.INSERT, null, "a", 1), row(DBOperateEnum.INSERT, null, "b", 2)));
+
+        assertThat(sent).hasSize(3);
+        verify(tableRowCountCache, times(2)).adjust(3L, 1, 1L);
+    }
+
+    @Test
+    void operateTableData_timedOutBatchIsNotReplayed() {
+        recordStatements(new RuntimeException(new SocketTimeoutException("timeout")));
+
+        assertThatThrownBy(() -> databaseService.operateTableData(operate(row(DBOperateEnum.INSERT, null, "a", 1), row(DBOperateEnum.INSERT, null, "b", 2))))
+                .isInstanceOf(BusinessException.class);
+        // The inserts may have been applied: sending them again row by row could duplicate them
+        assertThat(sent).singleElement().asString().startsWith("INSERT");
+    }
+
+    /**
+     * Records the operateTableData statements; a multi-row statement fails with the given exception
+     */
+    private void recordStatements(RuntimeException batchFailure) {
+        doAnswer(invocation -> {
+            String dml = invocation.getArgument(0);
+            sent.add(dml);
+            if (batchFailure != null && (dml.contains("), (") || dml.contains(" IN ("))) {
+                throw batchFailure;
+            }
+            return null;
+        }).when(coreSystemService).execDML(anyString(), any(), any(), any(), any(), any());
+    }
+
+    private static DbTableOperateDto operate(DbTableDataDto... rows) {
+        DbTableOperateDto dto = new DbTableOperateDto();
+        dto.setTbId(3L);
+        dto.setExecDev(1);
+        dto.setData(List.of(rows));
+        return dto;
+    }
+
+    private static DbTableDataDto row(DBOperateEnum operation, Long id, String name, Integer amount) {
+        Map<String, Object> tableData = new LinkedHashMap<>();
+        if (id != null) {
+            tableData.put("id", id);
+        }
+        if (name != null) {
+            tableData.put("name", name);
+        }
+        if (amount != null) {
+            tableData.put("amount", amount);
+        }
+        DbTableDataDto data = new DbTableDataDto();
+        data.setTableData(tableData);
+        data.setOperateType(operation.getCode());
+        return data;
+    }
+
+    /**
+     * Runs the statement as PostgreSQL would and returns rows as core does, create_time cut to whole
+     * seconds. Only a keyset on the primary key is accepted, the one order an index serves.
+     */
+    private Object execDml(String dml) {
+        if (dml.startsWith("SELECT COUNT(*)")) {
+            return (long) table.size();
+        }
+        assertThat(dml).doesNotContain("create_time").doesNotContain("OFFSET").contains("ORDER BY \"id\" DESC LIMIT");
+        Stream<Map.Entry<Long, LocalDateTime>> rows = table.entrySet().stream();
+        Matcher after = AFTER.matcher(dml);
+        if (after.find()) {
+            long id = Long.parseLong(after.group(1));
+            rows = rows.filter(row -> row.getKey() < id);
+        }
+        Matcher limit = LIMIT.matcher(dml);
+        assertThat(limit.find()).isTrue();
+        return rows.sorted(Map.Entry.<Long, LocalDateTime>comparingByKey().reversed()).limit(Long.parseLong(limit.group(1))).map(row -> {
+            JSONObject json = new JSONObject();
+            json.put("id", row.getKey());
+            json.put("create_time", CORE_FORMAT.format(seconds(row.getValue())));
+            return json;
+        }).toList();
+    }
+
+    private static LocalDateTime seconds(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.SECONDS);
+    }
+}
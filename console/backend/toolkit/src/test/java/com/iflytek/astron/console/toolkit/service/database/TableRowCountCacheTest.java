@@ -0,0 +1,97 @@
+package com.iflytek.astron.console.toolkit.service.database;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TableRowCountCache.
+ */
+@ExtendWith(MockitoExtension.class)
+class TableRowCountCacheTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private TableRowCountCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TableRowCountCache();
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", stringRedisTemplate);
+    }
+
+    @Test
+    void get_returnsCachedCountWithoutCounting() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("db_table_row_count:7:1")).thenReturn("42");
+        AtomicInteger counted = new AtomicInteger();
+
+        long count = cache.get(7L, 1, () -> {
+            counted.incrementAndGet();
+            return 0L;
+        });
+
+        assertThat(count).isEqualTo(42);
+        assertThat(counted.get()).isZero();
+    }
+
+    @Test
+    void get_countsAndCachesOnMiss() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        long count = cache.get(7L, 2, () -> 15L);
+
+        assertThat(count).isEqualTo(15);
+        verify(valueOperations).set("db_table_row_count:7:2", "15", Duration.ofSeconds(300));
+    }
+
+    @Test
+    void get_countsWhenRedisIsDown() {
+        when(stringRedisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertThat(cache.get(7L, 1, () -> 3L)).isEqualTo(3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void adjust_movesCachedCountByDelta() {
+        cache.adjust(7L, 1, -2);
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of("db_table_row_count:7:1")), eq("-2"));
+    }
+
+    @Test
+    void adjust_skipsZeroDelta() {
+        cache.adjust(7L, 1, 0);
+
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void adjust_evictsWhenScriptFails() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any())).thenThrow(new RedisConnectionFailureException("down"));
+
+        cache.adjust(7L, 1, 5);
+
+        verify(stringRedisTemplate).delete("db_table_row_count:7:1");
+    }
+}
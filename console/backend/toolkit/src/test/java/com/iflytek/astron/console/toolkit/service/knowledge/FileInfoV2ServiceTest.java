@@ -1,5 +1,6 @@
 package com.iflytek.astron.console.toolkit.service.knowledge;
 
+import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
@@ -33,9 +34,10 @@ import com.iflytek.astron.console.toolkit.mapper.knowledge.KnowledgeMapper;
 import com.iflytek.astron.console.toolkit.mapper.knowledge.PreviewKnowledgeMapper;
 import com.iflytek.astron.console.toolkit.mapper.repo.FileDirectoryTreeMapper;
 import com.iflytek.astron.console.toolkit.mapper.repo.FileInfoV2Mapper;
-import com.iflytek.astron.console.toolkit.service.common.ConfigInfoService;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.service.repo.*;
 import com.iflytek.astron.console.toolkit.service.task.ExtractKnowledgeTaskService;
+import com.iflytek.astron.console.toolkit.task.KnowledgeJobEngine;
 import com.iflytek.astron.console.toolkit.tool.DataPermissionCheckTool;
 import com.iflytek.astron.console.toolkit.tool.FileUploadTool;
 import com.iflytek.astron.console.toolkit.util.S3Util;
@@ -46,6 +48,7 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.ByteArrayOutputStream;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -96,7 +99,7 @@ class FileInfoV2ServiceTest {
     private FileInfoV2Mapper fileInfoV2Mapper;
 
     @Mock
-    private ConfigInfoService configInfoService;
+    private ConfigInfoRegistry configInfoRegistry;
 
     @Mock
     private S3Util s3UtilClient;
@@ -116,6 +119,9 @@ class FileInfoV2ServiceTest {
     @Mock
     private ExtractKnowledgeTaskService extractKnowledgeTaskService;
 
+    @Mock
+    private KnowledgeJobEngine knowledgeJobEngine;
+
     @Mock
     private KnowledgeMapper knowledgeMapper;
 
@@ -257,7 +263,7 @@ class FileInfoV2ServiceTest {
 
             JSONObject uploadRes = new JSONObject();
             uploadRes.put("s3Key", "s3://bucket/test-file.txt");
-            when(fileUploadTool.uploadFile(any(MultipartFile.class), anyString())).thenReturn(uploadRes);
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
 
             // Mock save to avoid MyBatis-Plus dependency
             doReturn(true).when(fileInfoV2Service).save(any(FileInfoV2.class));
@@ -268,7 +274,7 @@ class FileInfoV2ServiceTest {
             // Then
             assertThat(result).isNotNull();
             assertThat(result.getName()).isEqualTo("test-file.txt");
-            verify(fileUploadTool, times(1)).uploadFile(any(MultipartFile.class), eq(tag));
+            verify(fileUploadTool, times(1)).uploadFile(any(MultipartFile.class), any(), eq(tag));
             verify(fileInfoV2Service, times(1)).save(any(FileInfoV2.class));
         }
 
@@ -289,7 +295,7 @@ class FileInfoV2ServiceTest {
 
             JSONObject uploadRes = new JSONObject();
             uploadRes.put("s3Key", "s3://bucket/test-file.txt");
-            when(fileUploadTool.uploadFile(any(MultipartFile.class), anyString())).thenReturn(uploadRes);
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
 
             // Mock save to avoid MyBatis-Plus dependency
             doReturn(true).when(fileInfoV2Service).save(any(FileInfoV2.class));
@@ -299,7 +305,7 @@ class FileInfoV2ServiceTest {
 
             // Then
             assertThat(result).isNotNull();
-            verify(fileUploadTool, times(1)).uploadFile(any(MultipartFile.class), eq(tag));
+            verify(fileUploadTool, times(1)).uploadFile(any(MultipartFile.class), any(), eq(tag));
             verify(fileInfoV2Service, times(1)).save(any(FileInfoV2.class));
         }
 
@@ -326,7 +332,7 @@ class FileInfoV2ServiceTest {
                     .extracting("responseEnum")
                     .isEqualTo(ResponseEnum.REPO_FILE_UPLOAD_TYPE_NOT_EXIST);
 
-            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), anyString());
+            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), any(), anyString());
         }
 
         /**
@@ -352,7 +358,7 @@ class FileInfoV2ServiceTest {
                     .extracting("responseEnum")
                     .isEqualTo(ResponseEnum.REPO_FILE_UPLOAD_TYPE_NOT_EXIST);
 
-            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), anyString());
+            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), any(), anyString());
         }
 
         /**
@@ -378,7 +384,7 @@ class FileInfoV2ServiceTest {
                     .extracting("responseEnum")
                     .isEqualTo(ResponseEnum.REPO_NOT_EXIST);
 
-            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), anyString());
+            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), any(), anyString());
         }
 
         /**
@@ -394,7 +400,7 @@ class FileInfoV2ServiceTest {
 
             when(repoService.getById(anyLong())).thenReturn(mockRepo);
             doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(Repo.class));
-            when(fileUploadTool.uploadFile(any(MultipartFile.class), anyString())).thenReturn(null);
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(null);
 
             // When & Then
             assertThatThrownBy(() -> fileInfoV2Service.uploadFile(mockFile, parentId, repoId, tag, request))
@@ -421,7 +427,7 @@ class FileInfoV2ServiceTest {
 
             JSONObject uploadRes = new JSONObject();
             uploadRes.put("otherKey", "otherValue");
-            when(fileUploadTool.uploadFile(any(MultipartFile.class), anyString())).thenReturn(uploadRes);
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
 
             // When & Then
             assertThatThrownBy(() -> fileInfoV2Service.uploadFile(mockFile, parentId, repoId, tag, request))
@@ -432,6 +438,111 @@ class FileInfoV2ServiceTest {
             verify(fileInfoV2Mapper, never()).insert(any(FileInfoV2.class));
         }
 
+        /**
+         * Test file upload records size, character count and content hash read in the upload pass.
+         */
+        @Test
+        @DisplayName("Upload file - measures content while uploading")
+        void testUploadFile_RecordsContentMeasures() {
+            // Given
+            when(repoService.getById(anyLong())).thenReturn(mockRepo);
+            doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(Repo.class));
+
+            JSONObject uploadRes = new JSONObject();
+            uploadRes.put("s3Key", "sparkBot/test-file.txt");
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
+            doReturn(true).when(fileInfoV2Service).save(any(FileInfoV2.class));
+
+            // When
+            FileInfoV2 result = fileInfoV2Service.uploadFile(mockFile, 0L, 100L, "AIUI-RAG2", request);
+
+            // Then
+            assertThat(result.getSize()).isEqualTo(34L);
+            assertThat(result.getCharCount()).isEqualTo(35L);
+            assertThat(result.getContentHash()).isEqualTo(DigestUtils.sha256Hex("Test file content for unit testing"));
+        }
+
+        /**
+         * Test re-upload of content listed in the same directory returns the existing file.
+         */
+        @Test
+        @DisplayName("Upload file - same content reuses existing file")
+        void testUploadFile_SameContentReusesExistingFile() {
+            // Given
+            when(repoService.getById(anyLong())).thenReturn(mockRepo);
+            doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(Repo.class));
+
+            JSONObject uploadRes = new JSONObject();
+            uploadRes.put("s3Key", "sparkBot/test-file-2.txt");
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
+            doReturn(List.of(mockFileInfo)).when(fileInfoV2Service).list(any(QueryWrapper.class));
+            FileDirectoryTree treeEntry = new FileDirectoryTree();
+            treeEntry.setFileId(mockFileInfo.getId());
+            treeEntry.setParentId(0L);
+            when(fileDirectoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(List.of(treeEntry));
+
+            // When
+            FileInfoV2 result = fileInfoV2Service.uploadFile(mockFile, 0L, 100L, "AIUI-RAG2", request);
+
+            // Then
+            assertThat(result).isSameAs(mockFileInfo);
+            verify(s3UtilClient).deleteObject("sparkBot/test-file-2.txt");
+            verify(fileInfoV2Service, never()).save(any(FileInfoV2.class));
+        }
+
+        /**
+         * Test re-upload of content whose file was deleted from the directory creates a new file.
+         */
+        @Test
+        @DisplayName("Upload file - same content of deleted file creates new file")
+        void testUploadFile_SameContentOfDeletedFileCreatesNewFile() {
+            // Given
+            when(repoService.getById(anyLong())).thenReturn(mockRepo);
+            doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(Repo.class));
+
+            JSONObject uploadRes = new JSONObject();
+            uploadRes.put("s3Key", "sparkBot/test-file-2.txt");
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
+            // deleteFile removes the tree entry but keeps the record
+            doReturn(List.of(mockFileInfo)).when(fileInfoV2Service).list(any(QueryWrapper.class));
+            when(fileDirectoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(List.of());
+            doReturn(true).when(fileInfoV2Service).save(any(FileInfoV2.class));
+
+            // When
+            FileInfoV2 result = fileInfoV2Service.uploadFile(mockFile, 0L, 100L, "AIUI-RAG2", request);
+
+            // Then
+            assertThat(result).isNotSameAs(mockFileInfo);
+            assertThat(result.getAddress()).isEqualTo("sparkBot/test-file-2.txt");
+            assertThat(result.getPid()).isEqualTo(0L);
+            verify(s3UtilClient, never()).deleteObject(anyString());
+            verify(fileInfoV2Service).save(any(FileInfoV2.class));
+        }
+
+        /**
+         * Test CBG text file over the character limit is removed from storage again.
+         */
+        @Test
+        @DisplayName("Upload file - CBG text over character limit")
+        void testUploadFile_CbgCharCountExceeded() {
+            // Given
+            mockRepo.setTag("CBG-RAG");
+            ReflectionTestUtils.setField(fileInfoV2Service, "cbgRagMaxCharCount", 10L);
+            when(repoService.getById(anyLong())).thenReturn(mockRepo);
+            doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(Repo.class));
+
+            JSONObject uploadRes = new JSONObject();
+            uploadRes.put("s3Key", "sparkBot/test-file.txt");
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
+
+            // When & Then
+            assertThatThrownBy(() -> fileInfoV2Service.uploadFile(mockFile, 0L, 100L, "CBG-RAG", request))
+                    .isInstanceOf(BusinessException.class)
+                    .extracting("responseEnum")
+                    .isEqualTo(ResponseEnum.REPO_FILE_UPLOAD_FAILED_WORDS_100W);
+            verify(s3UtilClient).deleteObject("sparkBot/test-file.txt");
+        }
+
         /**
          * Test file upload with empty filename - should throw exception for AIUI-RAG2.
          */
@@ -458,7 +569,7 @@ class FileInfoV2ServiceTest {
                     .extracting("responseEnum")
                     .isEqualTo(ResponseEnum.REPO_FILE_TYPE_EMPTY_XINGCHEN);
 
-            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), anyString());
+            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), any(), anyString());
         }
 
         /**
@@ -487,7 +598,7 @@ class FileInfoV2ServiceTest {
                     .extracting("responseEnum")
                     .isEqualTo(ResponseEnum.REPO_FILE_TYPE_EMPTY_XINGCHEN);
 
-            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), anyString());
+            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), any(), anyString());
         }
     }
 
@@ -1036,7 +1147,7 @@ class FileInfoV2ServiceTest {
                     .extracting("responseEnum")
                     .isEqualTo(ResponseEnum.REPO_FILE_UPLOAD_FAILED_FILE_20MB);
 
-            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), anyString());
+            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), any(), anyString());
         }
 
         /**
@@ -1068,7 +1179,7 @@ class FileInfoV2ServiceTest {
                     .extracting("responseEnum")
                     .isEqualTo(ResponseEnum.REPO_FILE_UPLOAD_FAILED_PIC_5MB);
 
-            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), anyString());
+            verify(fileUploadTool, never()).uploadFile(any(MultipartFile.class), any(), anyString());
         }
 
         /**
@@ -1093,7 +1204,7 @@ class FileInfoV2ServiceTest {
 
             JSONObject uploadRes = new JSONObject();
             uploadRes.put("s3Key", "s3://bucket/test-file.txt");
-            when(fileUploadTool.uploadFile(any(MultipartFile.class), anyString())).thenReturn(uploadRes);
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
 
             // Mock save to avoid MyBatis-Plus dependency
             doReturn(true).when(fileInfoV2Service).save(any(FileInfoV2.class));
@@ -1103,7 +1214,7 @@ class FileInfoV2ServiceTest {
 
             // Then
             assertThat(result).isNotNull();
-            verify(fileUploadTool, times(1)).uploadFile(any(MultipartFile.class), eq(tag));
+            verify(fileUploadTool, times(1)).uploadFile(any(MultipartFile.class), any(), eq(tag));
             verify(fileInfoV2Service, times(1)).save(any(FileInfoV2.class));
         }
     }
@@ -1131,7 +1242,7 @@ class FileInfoV2ServiceTest {
 
             JSONObject uploadRes = new JSONObject();
             uploadRes.put("s3Key", "s3://bucket/test-file.txt");
-            when(fileUploadTool.uploadFile(any(MultipartFile.class), anyString())).thenReturn(uploadRes);
+            when(fileUploadTool.uploadFile(any(MultipartFile.class), any(), anyString())).thenReturn(uploadRes);
 
             // Mock save to throw exception
             doThrow(new RuntimeException("Database error")).when(fileInfoV2Service).save(any(FileInfoV2.class));
@@ -1141,7 +1252,7 @@ class FileInfoV2ServiceTest {
                     .isInstanceOf(RuntimeException.class)
                     .hasMessageContaining("Database error");
 
-            verify(fileUploadTool, times(1)).uploadFile(any(MultipartFile.class), eq(tag));
+            verify(fileUploadTool, times(1)).uploadFile(any(MultipartFile.class), any(), eq(tag));
             verify(fileInfoV2Service, times(1)).save(any(FileInfoV2.class));
         }
 
@@ -2243,7 +2354,7 @@ class FileInfoV2ServiceTest {
         private ExtractKnowledgeTaskService extractKnowledgeTaskService;
 
         @Mock
-        private ConfigInfoService configInfoService;
+        private ConfigInfoRegistry configInfoRegistry;
 
         /**
          * Test sliceFile - success without back embedding.
@@ -2263,12 +2374,10 @@ class FileInfoV2ServiceTest {
 
             // Inject mocks
             ReflectionTestUtils.setField(fileInfoV2Service, "extractKnowledgeTaskService", extractKnowledgeTaskService);
-            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoService", configInfoService);
+            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoRegistry", configInfoRegistry);
 
             when(fileInfoV2Mapper.selectById(fileId)).thenReturn(mockFileInfo);
-            when(configInfoService.getOnly(any(LambdaQueryWrapper.class))).thenReturn(null);
             when(extractKnowledgeTaskService.save(any(ExtractKnowledgeTask.class))).thenReturn(true);
-            doNothing().when(knowledgeService).knowledgeExtractAsync(anyString(), anyString(), any(SliceConfig.class), any(FileInfoV2.class), any(ExtractKnowledgeTask.class));
             doReturn(true).when(fileInfoV2Service).updateById(any(FileInfoV2.class));
 
             // When
@@ -2278,8 +2387,10 @@ class FileInfoV2ServiceTest {
             assertThat(result).isNotNull();
             assertThat(result.isParseSuccess()).isTrue();
             assertThat(result.getTaskId()).isEqualTo(mockFileInfo.getUuid());
-            verify(extractKnowledgeTaskService, times(1)).save(any(ExtractKnowledgeTask.class));
-            verify(knowledgeService, times(1)).knowledgeExtractAsync(anyString(), anyString(), any(SliceConfig.class), any(FileInfoV2.class), any(ExtractKnowledgeTask.class));
+            verify(extractKnowledgeTaskService, times(1)).save(argThat((ExtractKnowledgeTask task) -> task.getTaskStatus() == 0
+                    && task.getBackEmbedding() == 0 && JSON.toJSONString(sliceConfig).equals(task.getSliceConfig())));
+            verify(knowledgeJobEngine, times(1)).wakeUp();
+            verify(knowledgeService, never()).knowledgeExtract(anyString(), anyString(), any(SliceConfig.class), any(FileInfoV2.class), any(ExtractKnowledgeTask.class));
         }
 
         /**
@@ -2317,10 +2428,9 @@ class FileInfoV2ServiceTest {
             mockFileInfo.setType("xyz"); // Unsupported type
             mockFileInfo.setSource("CBG-RAG");
 
-            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoService", configInfoService);
+            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoRegistry", configInfoRegistry);
 
             when(fileInfoV2Mapper.selectById(fileId)).thenReturn(mockFileInfo);
-            when(configInfoService.getOnly(any(LambdaQueryWrapper.class))).thenReturn(null);
 
             // When
             DealFileResult result = fileInfoV2Service.sliceFile(fileId, sliceConfig, backEmbedding);
@@ -2347,10 +2457,9 @@ class FileInfoV2ServiceTest {
 
             // Inject mocks
             ReflectionTestUtils.setField(fileInfoV2Service, "extractKnowledgeTaskService", extractKnowledgeTaskService);
-            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoService", configInfoService);
+            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoRegistry", configInfoRegistry);
 
             when(fileInfoV2Mapper.selectById(fileId)).thenReturn(mockFileInfo);
-            when(configInfoService.getOnly(any(LambdaQueryWrapper.class))).thenReturn(null);
             when(extractKnowledgeTaskService.save(any(ExtractKnowledgeTask.class))).thenThrow(new RuntimeException("Database error"));
             doReturn(true).when(fileInfoV2Service).updateById(any(FileInfoV2.class));
 
@@ -2486,64 +2595,144 @@ class FileInfoV2ServiceTest {
     }
 
     /**
-     * Test cases for continueSliceOrEmbeddingFile method.
+     * Test cases for the runSliceTask and runEmbeddingTask methods run by the knowledge job engine.
      */
     @Nested
-    @DisplayName("continueSliceOrEmbeddingFile Tests")
-    class ContinueSliceOrEmbeddingFileTests {
+    @DisplayName("Knowledge job task Tests")
+    class KnowledgeJobTaskTests {
 
-        @Mock
-        private ExtractKnowledgeTaskService extractKnowledgeTaskService;
+        private ExtractKnowledgeTask task(int taskStatus) {
+            ExtractKnowledgeTask task = new ExtractKnowledgeTask();
+            task.setId(10L);
+            task.setFileId(1L);
+            task.setStatus(0);
+            task.setTaskStatus(taskStatus);
+            task.setSliceConfig("{\"type\":0,\"lengthRange\":[16,512],\"seperator\":[\"\\n\"]}");
+            return task;
+        }
 
         /**
-         * Test continueSliceOrEmbeddingFile - no pending tasks.
+         * Test runSliceTask - parsed file queued for embedding when asked meanwhile.
          */
         @Test
-        @DisplayName("Continue slice or embedding - no pending tasks")
-        void testContinueSliceOrEmbeddingFile_NoPendingTasks() {
+        @DisplayName("Run slice task - parsed, embedding requested")
+        void testRunSliceTask_EmbeddingRequested() {
             // Given
-            ReflectionTestUtils.setField(fileInfoV2Service, "extractKnowledgeTaskService", extractKnowledgeTaskService);
+            ExtractKnowledgeTask task = task(0);
+            ExtractKnowledgeTask latest = task(1);
+            latest.setBackEmbedding(1);
+            mockFileInfo.setStatus(ProjectContent.FILE_PARSE_DOING);
+            mockFileInfo.setType("txt");
 
-            when(extractKnowledgeTaskService.list(any(LambdaQueryWrapper.class))).thenReturn(Collections.emptyList());
+            when(fileInfoV2Mapper.selectById(1L)).thenReturn(mockFileInfo);
+            when(knowledgeService.knowledgeExtract(any(), anyString(), any(SliceConfig.class), eq(mockFileInfo), eq(task))).thenReturn(true);
+            when(extractKnowledgeTaskService.getById(10L)).thenReturn(latest);
 
             // When
-            fileInfoV2Service.continueSliceOrEmbeddingFile();
+            boolean embedNext = fileInfoV2Service.runSliceTask(task);
 
-            // Then - method completes without processing any tasks
-            verify(extractKnowledgeTaskService, times(1)).list(any(LambdaQueryWrapper.class));
+            // Then
+            assertThat(embedNext).isTrue();
+            verify(knowledgeService).knowledgeExtract(any(), eq(mockFileInfo.getAddress()),
+                    argThat((SliceConfig sc) -> sc.getLengthRange().equals(Arrays.asList(16, 512))), eq(mockFileInfo), eq(task));
         }
 
         /**
-         * Test continueSliceOrEmbeddingFile - with pending tasks.
+         * Test runSliceTask - task left behind for a file that has moved on is closed.
          */
         @Test
-        @DisplayName("Continue slice or embedding - with pending tasks")
-        void testContinueSliceOrEmbeddingFile_WithPendingTasks() {
+        @DisplayName("Run slice task - stale task closed")
+        void testRunSliceTask_Stale() {
             // Given
-            ExtractKnowledgeTask task1 = new ExtractKnowledgeTask();
-            task1.setId(1L);
-            task1.setFileId(1L);
-            task1.setStatus(0);
-            task1.setTaskStatus(0);
+            ExtractKnowledgeTask task = task(0);
+            mockFileInfo.setStatus(ProjectContent.FILE_EMBEDDING_SUCCESSED);
+            when(fileInfoV2Mapper.selectById(1L)).thenReturn(mockFileInfo);
 
-            ExtractKnowledgeTask task2 = new ExtractKnowledgeTask();
-            task2.setId(2L);
-            task2.setFileId(2L);
-            task2.setStatus(0);
-            task2.setTaskStatus(2);
+            // When
+            boolean embedNext = fileInfoV2Service.runSliceTask(task);
 
-            List<ExtractKnowledgeTask> tasks = Arrays.asList(task1, task2);
+            // Then
+            assertThat(embedNext).isFalse();
+            verify(knowledgeService, never()).knowledgeExtract(any(), any(), any(), any(), any());
+            verify(extractKnowledgeTaskService).updateById(argThat((ExtractKnowledgeTask t) -> t.getStatus() == 2 && t.getTaskStatus() == 1));
+        }
 
-            ReflectionTestUtils.setField(fileInfoV2Service, "extractKnowledgeTaskService", extractKnowledgeTaskService);
+        /**
+         * Test runEmbeddingTask - embeds a file waiting for it.
+         */
+        @Test
+        @DisplayName("Run embedding task - file embedded")
+        void testRunEmbeddingTask() {
+            // Given
+            ExtractKnowledgeTask task = task(2);
+            mockFileInfo.setStatus(ProjectContent.FILE_EMBEDDING_DOING);
+            mockFileInfo.setSpaceId(7L);
+            when(fileInfoV2Mapper.selectById(1L)).thenReturn(mockFileInfo);
+            doReturn(new DealFileResult()).when(fileInfoV2Service).embeddingFile(1L, 7L);
+
+            // When
+            fileInfoV2Service.runEmbeddingTask(task);
 
-            when(extractKnowledgeTaskService.list(any(LambdaQueryWrapper.class))).thenReturn(tasks);
-            when(fileInfoV2Mapper.selectById(anyLong())).thenReturn(mockFileInfo);
+            // Then
+            verify(fileInfoV2Service).embeddingFile(1L, 7L);
+            verify(extractKnowledgeTaskService, never()).updateById(any(ExtractKnowledgeTask.class));
+        }
+
+        /**
+         * Test embeddingFiles - file still being parsed gets embedded after its parsing task.
+         */
+        @Test
+        @DisplayName("Embedding files - file being parsed")
+        void testEmbeddingFiles_WhileParsing() {
+            // Given
+            DealFileVO dealFileVO = new DealFileVO();
+            dealFileVO.setFileIds(Arrays.asList("1"));
+            dealFileVO.setTag("AIUI-RAG2");
+            dealFileVO.setIsBackTask(1);
+            mockFileInfo.setStatus(ProjectContent.FILE_PARSE_DOING);
+
+            FileDirectoryTree tree = new FileDirectoryTree();
+            tree.setId(1L);
+
+            when(fileInfoV2Mapper.selectById(1L)).thenReturn(mockFileInfo);
+            when(fileDirectoryTreeService.getOnly(any(LambdaQueryWrapper.class))).thenReturn(tree);
+            when(extractKnowledgeTaskService.requestBackEmbedding(1L)).thenReturn(true);
+
+            // When
+            fileInfoV2Service.embeddingFiles(dealFileVO, mockRequest);
+
+            // Then
+            verify(extractKnowledgeTaskService).requestBackEmbedding(1L);
+            verify(extractKnowledgeTaskService, never()).save(any(ExtractKnowledgeTask.class));
+        }
+
+        /**
+         * Test embeddingFiles - parsed file gets an embedding task.
+         */
+        @Test
+        @DisplayName("Embedding files - parsed file queued")
+        void testEmbeddingFiles_Parsed() {
+            // Given
+            DealFileVO dealFileVO = new DealFileVO();
+            dealFileVO.setFileIds(Arrays.asList("1"));
+            dealFileVO.setTag("AIUI-RAG2");
+            dealFileVO.setIsBackTask(1);
+            mockFileInfo.setStatus(ProjectContent.FILE_PARSE_SUCCESSED);
+            mockFileInfo.setSpaceId(7L);
+
+            FileDirectoryTree tree = new FileDirectoryTree();
+            tree.setId(1L);
+
+            when(fileInfoV2Mapper.selectById(1L)).thenReturn(mockFileInfo);
+            when(fileDirectoryTreeService.getOnly(any(LambdaQueryWrapper.class))).thenReturn(tree);
 
             // When
-            fileInfoV2Service.continueSliceOrEmbeddingFile();
+            fileInfoV2Service.embeddingFiles(dealFileVO, mockRequest);
 
             // Then
-            verify(extractKnowledgeTaskService, times(1)).list(any(LambdaQueryWrapper.class));
+            verify(extractKnowledgeTaskService).save(argThat((ExtractKnowledgeTask t) -> t.getTaskStatus() == 2 && t.getSpaceId() == 7L));
+            verify(knowledgeJobEngine).wakeUp();
+            assertThat(mockFileInfo.getStatus()).isEqualTo(ProjectContent.FILE_EMBEDDING_DOING);
         }
     }
 
@@ -2670,7 +2859,7 @@ class FileInfoV2ServiceTest {
     class SliceFilesTests {
 
         @Mock
-        private ConfigInfoService configInfoService;
+        private ConfigInfoRegistry configInfoRegistry;
 
         @Mock
         private ExtractKnowledgeTaskService extractKnowledgeTaskService;
@@ -2705,7 +2894,7 @@ class FileInfoV2ServiceTest {
             successResult.setParseSuccess(true);
             successResult.setTaskId("task-001");
 
-            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoService", configInfoService);
+            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoRegistry", configInfoRegistry);
             ReflectionTestUtils.setField(fileInfoV2Service, "extractKnowledgeTaskService", extractKnowledgeTaskService);
 
             when(fileInfoV2Mapper.listByIds(anyList())).thenReturn(Arrays.asList(mockFileInfo));
@@ -2811,7 +3000,7 @@ class FileInfoV2ServiceTest {
 
             // Ensure apiUrl is set to avoid SpringUtils.getBean call
             ReflectionTestUtils.setField(fileInfoV2Service, "apiUrl", apiUrl);
-            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoService", configInfoService);
+            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoRegistry", configInfoRegistry);
             ReflectionTestUtils.setField(fileInfoV2Service, "extractKnowledgeTaskService", extractKnowledgeTaskService);
 
             when(fileInfoV2Mapper.listByIds(anyList())).thenReturn(Arrays.asList(mockFileInfo));
@@ -2951,7 +3140,7 @@ class FileInfoV2ServiceTest {
     class RetryTests {
 
         @Mock
-        private ConfigInfoService configInfoService;
+        private ConfigInfoRegistry configInfoRegistry;
 
         @Mock
         private ExtractKnowledgeTaskService extractKnowledgeTaskService;
@@ -2981,7 +3170,7 @@ class FileInfoV2ServiceTest {
             tree.setId(1L);
             tree.setFileId(1L);
 
-            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoService", configInfoService);
+            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoRegistry", configInfoRegistry);
             ReflectionTestUtils.setField(fileInfoV2Service, "extractKnowledgeTaskService", extractKnowledgeTaskService);
 
             when(fileInfoV2Mapper.listByIds(anyList())).thenReturn(Arrays.asList(mockFileInfo));
@@ -3076,7 +3265,7 @@ class FileInfoV2ServiceTest {
             FileDirectoryTree tree = new FileDirectoryTree();
             tree.setId(1L);
 
-            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoService", configInfoService);
+            ReflectionTestUtils.setField(fileInfoV2Service, "configInfoRegistry", configInfoRegistry);
             ReflectionTestUtils.setField(fileInfoV2Service, "extractKnowledgeTaskService", extractKnowledgeTaskService);
 
             when(fileInfoV2Mapper.listByIds(anyList())).thenReturn(Arrays.asList(mockFileInfo));
@@ -9,6 +9,7 @@ import com.iflytek.astron.console.commons.constant.ResponseEnum;
 import com.iflytek.astron.console.commons.exception.BusinessException;
 import com.iflytek.astron.console.toolkit.common.constant.ProjectContent;
 import com.iflytek.astron.console.toolkit.config.properties.ApiUrl;
+import com.iflytek.astron.console.toolkit.config.properties.KnowledgePushProperties;
 import com.iflytek.astron.console.toolkit.entity.core.knowledge.*;
 import com.iflytek.astron.console.toolkit.entity.mongo.Knowledge;
 import com.iflytek.astron.console.toolkit.entity.pojo.DealFileResult;
@@ -25,15 +26,23 @@ import com.iflytek.astron.console.toolkit.service.repo.FileInfoV2Service;
 import com.iflytek.astron.console.toolkit.service.repo.KnowledgeService;
 import com.iflytek.astron.console.toolkit.service.repo.RepoService;
 import com.iflytek.astron.console.toolkit.service.task.ExtractKnowledgeTaskService;
+import com.iflytek.astron.console.toolkit.task.KnowledgePushScheduler;
 import com.iflytek.astron.console.toolkit.tool.DataPermissionCheckTool;
+import com.iflytek.astron.console.toolkit.util.InputStreamRequestBody;
 import com.iflytek.astron.console.toolkit.util.S3Util;
+import io.minio.GetObjectResponse;
+import okhttp3.Headers;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -185,7 +194,15 @@ class KnowledgeServiceTest {
         mockExtractTask.setCreateTime(new Timestamp(System.currentTimeMillis()));
         mockExtractTask.setUpdateTime(new Timestamp(System.currentTimeMillis()));
 
-        // Setup common mocks
+        // Push batches on the calling thread, retrying without waiting
+        KnowledgePushProperties pushProperties = new KnowledgePushProperties();
+        pushProperties.setRetryBackoff(Duration.ZERO);
+        KnowledgePushScheduler knowledgePushScheduler = new KnowledgePushScheduler();
+        ReflectionTestUtils.setField(knowledgePushScheduler, "knowledgePushProperties", pushProperties);
+        ReflectionTestUtils.setField(knowledgePushScheduler, "knowledgePushExecutor", (TaskExecutor) Runnable::run);
+        ReflectionTestUtils.setField(knowledgePushScheduler, "meterRegistryProvider", mock(ObjectProvider.class));
+        knowledgePushScheduler.init();
+        ReflectionTestUtils.setField(knowledgeService, "knowledgePushScheduler", knowledgePushScheduler);
     }
 
     /**
@@ -1083,14 +1100,14 @@ class KnowledgeServiceTest {
             knowledgeResponse.setData(data);
 
             when(knowledgeV2ServiceCallHandler.saveChunk(any())).thenReturn(knowledgeResponse);
-            when(knowledgeMapper.insert(any(MysqlKnowledge.class))).thenReturn(1);
+            when(knowledgeMapper.upsertBatch(anyList())).thenReturn(1);
 
             // When
             Integer result = knowledgeService.embeddingKnowledgeAndStorage(fileId);
 
             // Then
             assertThat(result).isEqualTo(0);
-            verify(knowledgeMapper, atLeastOnce()).insert(any(MysqlKnowledge.class));
+            verify(knowledgeMapper, times(1)).upsertBatch(argThat(list -> list.size() == 1 && list.get(0).getId() != null));
         }
 
         /**
@@ -1130,7 +1147,7 @@ class KnowledgeServiceTest {
             knowledgeResponse.setData(dataArray);
 
             when(knowledgeV2ServiceCallHandler.saveChunk(any())).thenReturn(knowledgeResponse);
-            when(knowledgeMapper.insert(any(MysqlKnowledge.class))).thenReturn(1);
+            when(knowledgeMapper.upsertBatch(anyList())).thenReturn(1);
             when(knowledgeMapper.findByFileIdAndSource(anyString(), eq(1))).thenReturn(new ArrayList<>());
 
             // When
@@ -1138,7 +1155,106 @@ class KnowledgeServiceTest {
 
             // Then
             assertThat(result).isEqualTo(0);
-            verify(knowledgeMapper, atLeastOnce()).insert(any(MysqlKnowledge.class));
+            verify(knowledgeMapper, times(1)).upsertBatch(argThat(list -> list.size() == 1 && list.get(0).getId() != null));
+        }
+
+        /**
+         * Test a failed AIUI batch is pushed again on its own.
+         */
+        @Test
+        @DisplayName("Embed knowledge retries a failed AIUI batch")
+        void testEmbeddingKnowledgeAndStorage_RetriesFailedBatch() {
+            // Given
+            when(fileInfoV2Service.getById(anyLong())).thenReturn(mockFileInfo);
+            when(repoService.getById(anyLong())).thenReturn(mockRepo);
+
+            List<MysqlPreviewKnowledge> previewList = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                MysqlPreviewKnowledge preview = new MysqlPreviewKnowledge();
+                preview.setId("chunk-" + i);
+                preview.setFileId("file-uuid-001");
+                JSONObject content = new JSONObject();
+                content.put("content", "Preview content " + i);
+                content.put("dataIndex", String.valueOf(i));
+                preview.setContent(content);
+                preview.setCharCount(100L);
+                previewList.add(preview);
+            }
+            when(previewKnowledgeMapper.findByFileId(anyString())).thenReturn(previewList);
+            when(knowledgeMapper.findByFileIdAndSource(anyString(), anyInt())).thenReturn(new ArrayList<>());
+
+            KnowledgeResponse knowledgeResponse = new KnowledgeResponse();
+            knowledgeResponse.setCode(0);
+            knowledgeResponse.setData(new JSONObject());
+            List<Integer> pushedSizes = new ArrayList<>();
+            when(knowledgeV2ServiceCallHandler.saveChunk(any())).thenAnswer(invocation -> {
+                int size = invocation.<KnowledgeRequest>getArgument(0).getChunks().length;
+                pushedSizes.add(size);
+                if (pushedSizes.size() == 2) {
+                    throw new IllegalStateException("upstream timeout");
+                }
+                return knowledgeResponse;
+            });
+            when(knowledgeMapper.upsertBatch(anyList())).thenReturn(1);
+
+            // When
+            Integer result = knowledgeService.embeddingKnowledgeAndStorage(1L);
+
+            // Then: only the failed batch of the last 100 chunks is pushed again
+            assertThat(result).isEqualTo(0);
+            assertThat(pushedSizes).containsExactly(200, 100, 100);
+            verify(knowledgeMapper).upsertBatch(argThat(list -> list.size() == 300 && list.stream().allMatch(k -> k.getEnabled() == 1)));
+        }
+
+        /**
+         * Test large documents are written in multi-row batches.
+         */
+        @Test
+        @DisplayName("Embed knowledge writes chunks in batches")
+        void testEmbeddingKnowledgeAndStorage_BatchesLargeDocument() {
+            // Given
+            when(fileInfoV2Service.getById(anyLong())).thenReturn(mockFileInfo);
+            when(repoService.getById(anyLong())).thenReturn(mockRepo);
+
+            List<MysqlPreviewKnowledge> previewList = new ArrayList<>();
+            for (int i = 0; i < 1201; i++) {
+                MysqlPreviewKnowledge preview = new MysqlPreviewKnowledge();
+                preview.setId("chunk-" + i);
+                preview.setFileId("file-uuid-001");
+                JSONObject content = new JSONObject();
+                content.put("content", "Preview content " + i);
+                content.put("dataIndex", String.valueOf(i));
+                preview.setContent(content);
+                preview.setCharCount(100L);
+                previewList.add(preview);
+            }
+            MysqlKnowledge manual = new MysqlKnowledge();
+            manual.setId("manual-001");
+            manual.setFileId("file-uuid-001");
+            manual.setSource(1);
+
+            when(previewKnowledgeMapper.findByFileId(anyString())).thenReturn(previewList);
+            when(knowledgeMapper.findByFileIdAndSource(anyString(), eq(0))).thenReturn(new ArrayList<>());
+            when(knowledgeMapper.findByFileIdAndSource(anyString(), eq(1))).thenReturn(List.of(manual));
+
+            KnowledgeResponse knowledgeResponse = new KnowledgeResponse();
+            knowledgeResponse.setCode(0);
+            knowledgeResponse.setData(new JSONObject());
+            when(knowledgeV2ServiceCallHandler.saveChunk(any())).thenReturn(knowledgeResponse);
+
+            List<Integer> batchSizes = new ArrayList<>();
+            when(knowledgeMapper.upsertBatch(anyList())).thenAnswer(invocation -> {
+                batchSizes.add(invocation.<List<MysqlKnowledge>>getArgument(0).size());
+                return 1;
+            });
+
+            // When
+            Integer result = knowledgeService.embeddingKnowledgeAndStorage(1L);
+
+            // Then
+            assertThat(result).isEqualTo(0);
+            assertThat(batchSizes).containsExactly(500, 500, 201, 1);
+            verify(knowledgeMapper, never()).insert(any(MysqlKnowledge.class));
         }
 
         /**
@@ -1759,12 +1875,11 @@ class KnowledgeServiceTest {
     }
 
     /**
-     * Test cases for the knowledgeExtractAsync method. Validates asynchronous knowledge extraction
-     * functionality.
+     * Test cases for the knowledgeExtract method. Validates knowledge extraction functionality.
      */
     @Nested
-    @DisplayName("knowledgeExtractAsync Tests")
-    class KnowledgeExtractAsyncTests {
+    @DisplayName("knowledgeExtract Tests")
+    class KnowledgeExtractTests {
 
         private SliceConfig mockSliceConfig;
 
@@ -1780,7 +1895,7 @@ class KnowledgeServiceTest {
          */
         @Test
         @DisplayName("Extract knowledge successfully with AIUI source")
-        void testKnowledgeExtractAsync_Success_AIUI() {
+        void testKnowledgeExtract_Success_AIUI() {
             // Given
             String contentType = "text/plain";
             String url = "http://example.com/document.txt";
@@ -1804,9 +1919,10 @@ class KnowledgeServiceTest {
             when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
 
             // When
-            knowledgeService.knowledgeExtractAsync(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
+            boolean extracted = knowledgeService.knowledgeExtract(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
 
             // Then
+            assertThat(extracted).isTrue();
             verify(knowledgeV2ServiceCallHandler, times(1)).documentSplit(any());
             verify(previewKnowledgeMapper, times(1)).insertBatch(anyList());
             verify(fileInfoV2Service, times(1)).updateById(any(FileInfoV2.class));
@@ -1817,7 +1933,7 @@ class KnowledgeServiceTest {
          */
         @Test
         @DisplayName("Extract knowledge with CBG source")
-        void testKnowledgeExtractAsync_CBG() {
+        void testKnowledgeExtract_CBG() {
             // Given
             String contentType = "text/plain";
             String url = "http://example.com/document.txt";
@@ -1834,7 +1950,8 @@ class KnowledgeServiceTest {
             dataArray.add(JSON.parseObject(JSON.toJSONString(chunk)));
             response.setData(dataArray);
 
-            when(s3Util.getObject(anyString())).thenReturn(new java.io.ByteArrayInputStream("test".getBytes()));
+            when(s3Util.openObject(anyString())).thenReturn(new GetObjectResponse(Headers.of("Content-Length", "4"), "bucket", null,
+                    "key", new java.io.ByteArrayInputStream("test".getBytes())));
             when(knowledgeV2ServiceCallHandler.documentUpload(any(), any(), any(), any(), any())).thenReturn(response);
             when(fileInfoV2Service.getById(anyLong())).thenReturn(mockFileInfo);
             when(previewKnowledgeMapper.countByFileId(anyString())).thenReturn(0L);
@@ -1843,11 +1960,12 @@ class KnowledgeServiceTest {
             when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
 
             // When
-            knowledgeService.knowledgeExtractAsync(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
+            knowledgeService.knowledgeExtract(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
 
             // Then
-            verify(s3Util, times(1)).getObject(anyString());
-            verify(knowledgeV2ServiceCallHandler, times(1)).documentUpload(any(), any(), any(), any(), any());
+            verify(s3Util, times(1)).openObject(anyString());
+            verify(knowledgeV2ServiceCallHandler, times(1)).documentUpload(
+                    argThat((InputStreamRequestBody file) -> file.contentLength() == 4), any(), any(), any(), any());
         }
 
         /**
@@ -1855,7 +1973,7 @@ class KnowledgeServiceTest {
          */
         @Test
         @DisplayName("Extract knowledge fails with non-zero response code")
-        void testKnowledgeExtractAsync_NonZeroResponseCode() {
+        void testKnowledgeExtract_NonZeroResponseCode() {
             // Given
             String contentType = "text/plain";
             String url = "http://example.com/document.txt";
@@ -1870,9 +1988,10 @@ class KnowledgeServiceTest {
             when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
 
             // When
-            knowledgeService.knowledgeExtractAsync(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
+            boolean extracted = knowledgeService.knowledgeExtract(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
 
             // Then
+            assertThat(extracted).isFalse();
             verify(fileInfoV2Service, times(1)).updateById(any(FileInfoV2.class));
             assertThat(mockExtractTask.getStatus()).isEqualTo(2);
         }
@@ -1882,7 +2001,7 @@ class KnowledgeServiceTest {
          */
         @Test
         @DisplayName("Extract knowledge with error code 11111")
-        void testKnowledgeExtractAsync_ErrorCode11111() {
+        void testKnowledgeExtract_ErrorCode11111() {
             // Given
             String contentType = "text/plain";
             String url = "http://example.com/document.txt";
@@ -1897,7 +2016,7 @@ class KnowledgeServiceTest {
             when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
 
             // When
-            knowledgeService.knowledgeExtractAsync(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
+            knowledgeService.knowledgeExtract(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
 
             // Then
             verify(fileInfoV2Service, times(1)).updateById(any(FileInfoV2.class));
@@ -1908,7 +2027,7 @@ class KnowledgeServiceTest {
          */
         @Test
         @DisplayName("Extract knowledge with empty chunks for image")
-        void testKnowledgeExtractAsync_EmptyChunks_Image() {
+        void testKnowledgeExtract_EmptyChunks_Image() {
             // Given
             String contentType = "jpeg"; // Using file extension, not MIME type
             String url = "http://example.com/image.jpg";
@@ -1923,7 +2042,7 @@ class KnowledgeServiceTest {
             when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
 
             // When
-            knowledgeService.knowledgeExtractAsync(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
+            knowledgeService.knowledgeExtract(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
 
             // Then
             verify(fileInfoV2Service, times(1)).updateById(any(FileInfoV2.class));
@@ -1935,7 +2054,7 @@ class KnowledgeServiceTest {
          */
         @Test
         @DisplayName("Extract knowledge with empty chunks for non-image")
-        void testKnowledgeExtractAsync_EmptyChunks_NonImage() {
+        void testKnowledgeExtract_EmptyChunks_NonImage() {
             // Given
             String contentType = "text/plain";
             String url = "http://example.com/document.txt";
@@ -1950,7 +2069,7 @@ class KnowledgeServiceTest {
             when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
 
             // When
-            knowledgeService.knowledgeExtractAsync(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
+            knowledgeService.knowledgeExtract(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
 
             // Then
             verify(fileInfoV2Service, times(1)).updateById(any(FileInfoV2.class));
@@ -1962,21 +2081,21 @@ class KnowledgeServiceTest {
          */
         @Test
         @DisplayName("CBG extraction fails when S3 file not found")
-        void testKnowledgeExtractAsync_CBG_S3FileNotFound() {
+        void testKnowledgeExtract_CBG_S3FileNotFound() {
             // Given
             String contentType = "text/plain";
             String url = "http://example.com/document.txt";
             mockFileInfo.setSource("CBG-RAG");
 
-            when(s3Util.getObject(anyString())).thenReturn(null);
+            when(s3Util.openObject(anyString())).thenReturn(null);
             when(fileInfoV2Service.updateById(any(FileInfoV2.class))).thenReturn(true);
             when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
 
             // When
-            knowledgeService.knowledgeExtractAsync(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
+            knowledgeService.knowledgeExtract(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
 
             // Then
-            verify(s3Util, times(1)).getObject(anyString());
+            verify(s3Util, times(1)).openObject(anyString());
             assertThat(mockFileInfo.getReason()).contains("Failed to get file from S3");
         }
 
@@ -1985,7 +2104,7 @@ class KnowledgeServiceTest {
          */
         @Test
         @DisplayName("Extract knowledge with HTML file type")
-        void testKnowledgeExtractAsync_HTMLFile() {
+        void testKnowledgeExtract_HTMLFile() {
             // Given
             String contentType = "text/html";
             String url = "http://example.com/document.html";
@@ -2010,178 +2129,10 @@ class KnowledgeServiceTest {
             when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
 
             // When
-            knowledgeService.knowledgeExtractAsync(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
+            knowledgeService.knowledgeExtract(contentType, url, mockSliceConfig, mockFileInfo, mockExtractTask);
 
             // Then
             verify(knowledgeV2ServiceCallHandler, times(1)).documentSplit(any());
         }
     }
-
-    /**
-     * Test cases for the knowledgeEmbeddingExtractAsync method. Validates asynchronous knowledge
-     * extraction with embedding.
-     */
-    @Nested
-    @DisplayName("knowledgeEmbeddingExtractAsync Tests")
-    class KnowledgeEmbeddingExtractAsyncTests {
-
-        private SliceConfig mockSliceConfig;
-        private FileInfoV2Service mockFileService;
-
-        @BeforeEach
-        void setUp() {
-            mockSliceConfig = new SliceConfig();
-            mockSliceConfig.setLengthRange(Arrays.asList(300, 800));
-            mockSliceConfig.setSeperator(Arrays.asList("\n"));
-            mockFileService = mock(FileInfoV2Service.class);
-        }
-
-        /**
-         * Test successful extraction with embedding trigger.
-         */
-        @Test
-        @DisplayName("Extract and embed knowledge successfully")
-        void testKnowledgeEmbeddingExtractAsync_Success() {
-            // Given
-            String contentType = "text/plain";
-            String url = "http://example.com/document.txt";
-            mockFileInfo.setSource("AIUI-RAG2");
-            mockFileInfo.setSpaceId(1L);
-
-            KnowledgeResponse response = new KnowledgeResponse();
-            response.setCode(0);
-            JSONArray dataArray = new JSONArray();
-
-            ChunkInfo chunk = new ChunkInfo();
-            chunk.setContent("Test chunk content");
-            chunk.setDocId("file-uuid-001");
-            dataArray.add(JSON.parseObject(JSON.toJSONString(chunk)));
-            response.setData(dataArray);
-
-            DealFileResult dealFileResult = new DealFileResult();
-            dealFileResult.setParseSuccess(true);
-            dealFileResult.setTaskId("task-001");
-
-            when(knowledgeV2ServiceCallHandler.documentSplit(any())).thenReturn(response);
-            when(fileInfoV2Service.getById(anyLong())).thenReturn(mockFileInfo);
-            when(previewKnowledgeMapper.countByFileId(anyString())).thenReturn(0L);
-            when(previewKnowledgeMapper.insertBatch(anyList())).thenReturn(1);
-            when(fileInfoV2Service.updateById(any(FileInfoV2.class))).thenReturn(true);
-            when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
-            doNothing().when(mockFileService).saveTaskAndUpdateFileStatus(anyLong());
-            when(mockFileService.embeddingFile(anyLong(), anyLong())).thenReturn(dealFileResult);
-
-            // When
-            knowledgeService.knowledgeEmbeddingExtractAsync(contentType, url, mockSliceConfig,
-                    mockFileInfo, mockExtractTask, mockFileService);
-
-            // Then
-            verify(knowledgeV2ServiceCallHandler, times(1)).documentSplit(any());
-            verify(mockFileService, times(1)).saveTaskAndUpdateFileStatus(mockFileInfo.getId());
-            verify(mockFileService, times(1)).embeddingFile(mockFileInfo.getId(), mockFileInfo.getSpaceId());
-        }
-
-        /**
-         * Test extraction with embedding when extraction fails.
-         */
-        @Test
-        @DisplayName("Extract and embed fails when extraction returns error")
-        void testKnowledgeEmbeddingExtractAsync_ExtractionFails() {
-            // Given
-            String contentType = "text/plain";
-            String url = "http://example.com/document.txt";
-            mockFileInfo.setSource("AIUI-RAG2");
-
-            KnowledgeResponse response = new KnowledgeResponse();
-            response.setCode(1);
-            response.setMessage("Extraction failed");
-
-            when(knowledgeV2ServiceCallHandler.documentSplit(any())).thenReturn(response);
-            when(fileInfoV2Service.updateById(any(FileInfoV2.class))).thenReturn(true);
-            when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
-
-            // When
-            knowledgeService.knowledgeEmbeddingExtractAsync(contentType, url, mockSliceConfig,
-                    mockFileInfo, mockExtractTask, mockFileService);
-
-            // Then
-            verify(mockFileService, never()).saveTaskAndUpdateFileStatus(anyLong());
-            verify(mockFileService, never()).embeddingFile(anyLong(), anyLong());
-        }
-
-        /**
-         * Test CBG extraction with embedding.
-         */
-        @Test
-        @DisplayName("Extract and embed with CBG source")
-        void testKnowledgeEmbeddingExtractAsync_CBG() {
-            // Given
-            String contentType = "text/plain";
-            String url = "http://example.com/document.txt";
-            mockFileInfo.setSource("CBG-RAG");
-            mockFileInfo.setType("text/plain");
-            mockFileInfo.setSpaceId(1L);
-
-            KnowledgeResponse response = new KnowledgeResponse();
-            response.setCode(0);
-            JSONArray dataArray = new JSONArray();
-
-            ChunkInfo chunk = new ChunkInfo();
-            chunk.setContent("Test chunk content");
-            chunk.setDocId("cbg-doc-001");
-            dataArray.add(JSON.parseObject(JSON.toJSONString(chunk)));
-            response.setData(dataArray);
-
-            DealFileResult dealFileResult = new DealFileResult();
-            dealFileResult.setParseSuccess(true);
-            dealFileResult.setTaskId("task-001");
-
-            when(s3Util.getObject(anyString())).thenReturn(new java.io.ByteArrayInputStream("test".getBytes()));
-            when(knowledgeV2ServiceCallHandler.documentUpload(any(), any(), any(), any(), any())).thenReturn(response);
-            when(fileInfoV2Service.getById(anyLong())).thenReturn(mockFileInfo);
-            when(previewKnowledgeMapper.countByFileId(anyString())).thenReturn(0L);
-            when(previewKnowledgeMapper.insertBatch(anyList())).thenReturn(1);
-            when(fileInfoV2Service.updateById(any(FileInfoV2.class))).thenReturn(true);
-            when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
-            doNothing().when(mockFileService).saveTaskAndUpdateFileStatus(anyLong());
-            when(mockFileService.embeddingFile(anyLong(), anyLong())).thenReturn(dealFileResult);
-
-            // When
-            knowledgeService.knowledgeEmbeddingExtractAsync(contentType, url, mockSliceConfig,
-                    mockFileInfo, mockExtractTask, mockFileService);
-
-            // Then
-            verify(s3Util, times(1)).getObject(anyString());
-            verify(mockFileService, times(1)).saveTaskAndUpdateFileStatus(mockFileInfo.getId());
-            verify(mockFileService, times(1)).embeddingFile(mockFileInfo.getId(), mockFileInfo.getSpaceId());
-        }
-
-        /**
-         * Test embedding with empty chunks.
-         */
-        @Test
-        @DisplayName("Extract and embed with empty chunks")
-        void testKnowledgeEmbeddingExtractAsync_EmptyChunks() {
-            // Given
-            String contentType = "text/plain";
-            String url = "http://example.com/document.txt";
-            mockFileInfo.setSource("AIUI-RAG2");
-
-            KnowledgeResponse response = new KnowledgeResponse();
-            response.setCode(0);
-            response.setData(new JSONArray());
-
-            when(knowledgeV2ServiceCallHandler.documentSplit(any())).thenReturn(response);
-            when(fileInfoV2Service.updateById(any(FileInfoV2.class))).thenReturn(true);
-            when(extractKnowledgeTaskService.updateById(any(ExtractKnowledgeTask.class))).thenReturn(true);
-
-            // When
-            knowledgeService.knowledgeEmbeddingExtractAsync(contentType, url, mockSliceConfig,
-                    mockFileInfo, mockExtractTask, mockFileService);
-
-            // Then
-            verify(mockFileService, never()).saveTaskAndUpdateFileStatus(anyLong());
-            verify(mockFileService, never()).embeddingFile(anyLong(), anyLong());
-        }
-    }
 }
@@ -30,7 +30,6 @@ import com.iflytek.astron.console.toolkit.entity.vo.knowledge.RepoVO;
 import com.iflytek.astron.console.toolkit.handler.KnowledgeV2ServiceCallHandler;
 import com.iflytek.astron.console.toolkit.handler.UserInfoManagerHandler;
 import com.iflytek.astron.console.commons.util.space.SpaceInfoUtil;
-import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
 import com.iflytek.astron.console.toolkit.mapper.bot.SparkBotMapper;
 import com.iflytek.astron.console.toolkit.mapper.knowledge.KnowledgeMapper;
 import com.iflytek.astron.console.toolkit.mapper.relation.FlowRepoRelMapper;
@@ -42,6 +41,7 @@ import com.iflytek.astron.console.toolkit.service.extra.OpenPlatformService;
 import com.iflytek.astron.console.toolkit.service.group.GroupVisibilityService;
 import com.iflytek.astron.console.toolkit.service.repo.FileDirectoryTreeService;
 import com.iflytek.astron.console.toolkit.service.repo.FileInfoV2Service;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.service.repo.HitTestHistoryService;
 import com.iflytek.astron.console.toolkit.service.repo.RepoService;
 import com.iflytek.astron.console.toolkit.tool.DataPermissionCheckTool;
@@ -100,7 +100,7 @@ class RepoServiceTest {
     private RepoMapper repoMapper;
 
     @Mock
-    private ConfigInfoMapper configInfoMapper;
+    private ConfigInfoRegistry configInfoRegistry;
 
     @Mock
     private RepoAuthorizedConfig repoAuthorizedConfig;
@@ -1425,7 +1425,7 @@ class RepoServiceTest {
                 List<RepoDto> mockRepos = createMockRepoDtoList();
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(new ArrayList<>());
                 when(repoMapper.list(anyString(), any(), anyList(), any(), any())).thenReturn(mockRepos);
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 when(directoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(new ArrayList<>());
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
                 doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(RepoDto.class));
@@ -1460,7 +1460,7 @@ class RepoServiceTest {
                 List<RepoDto> mockRepos = createMockRepoDtoList();
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(new ArrayList<>());
                 when(repoMapper.list(anyString(), any(), anyList(), eq("test"), any())).thenReturn(mockRepos);
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 when(directoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(new ArrayList<>());
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
                 doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(RepoDto.class));
@@ -1493,7 +1493,7 @@ class RepoServiceTest {
                 List<RepoDto> mockRepos = createMockRepoDtoList();
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(new ArrayList<>());
                 when(repoMapper.list(anyString(), any(), anyList(), any(), any())).thenReturn(mockRepos);
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 when(directoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(new ArrayList<>());
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
                 doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(RepoDto.class));
@@ -1532,7 +1532,7 @@ class RepoServiceTest {
                 List<RepoDto> mockRepos = createMockRepoDtoList();
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(visibilityList);
                 when(repoMapper.list(anyString(), any(), anyList(), any(), any())).thenReturn(mockRepos);
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 when(directoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(new ArrayList<>());
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
                 doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(RepoDto.class));
@@ -1560,7 +1560,7 @@ class RepoServiceTest {
                 List<RepoDto> mockRepos = createMockRepoDtoList();
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(new ArrayList<>());
                 when(repoMapper.list(anyString(), eq(100L), anyList(), any(), any())).thenReturn(mockRepos);
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 when(directoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(new ArrayList<>());
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
                 doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(RepoDto.class));
@@ -2003,7 +2003,7 @@ class RepoServiceTest {
 
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(new ArrayList<>());
                 when(repoMapper.getModelListByCondition(anyString(), any(), anyList(), any())).thenReturn(mockPage);
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 when(directoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(new ArrayList<>());
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
                 when(sparkBotMapper.listSparkBotByRepoId(anyLong(), anyString())).thenReturn(new ArrayList<>());
@@ -2043,7 +2043,7 @@ class RepoServiceTest {
 
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(new ArrayList<>());
                 when(repoMapper.getModelListByCondition(anyString(), eq(100L), anyList(), any())).thenReturn(mockPage);
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 when(directoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(new ArrayList<>());
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
                 when(sparkBotMapper.listSparkBotByRepoId(anyLong(), anyString())).thenReturn(new ArrayList<>());
@@ -2087,7 +2087,7 @@ class RepoServiceTest {
 
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(new ArrayList<>());
                 when(repoMapper.getModelListByCondition(anyString(), any(), anyList(), eq("test"))).thenReturn(mockPage);
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 when(directoryTreeService.list(any(LambdaQueryWrapper.class))).thenReturn(new ArrayList<>());
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
                 when(sparkBotMapper.listSparkBotByRepoId(anyLong(), anyString())).thenReturn(new ArrayList<>());
@@ -2709,7 +2709,7 @@ class RepoServiceTest {
 
                 when(groupVisibilityService.getRepoVisibilityList()).thenReturn(new ArrayList<>());
                 when(repoMapper.list(anyString(), any(), anyList(), any(), any())).thenReturn(Arrays.asList(repo));
-                when(configInfoMapper.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
+                when(configInfoRegistry.getListByCategoryAndCode("ICON", "rag")).thenReturn(createMockConfigInfos());
                 doNothing().when(dataPermissionCheckTool).checkRepoBelong(any(RepoDto.class));
                 when(s3UtilClient.getS3Prefix()).thenReturn("https://s3.example.com/");
 
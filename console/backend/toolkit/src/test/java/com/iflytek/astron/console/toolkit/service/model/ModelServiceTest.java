@@ -13,6 +13,7 @@ import com.iflytek.astron.console.toolkit.entity.vo.CategoryTreeVO;
 import com.iflytek.astron.console.toolkit.entity.vo.LLMInfoVo;
 import com.iflytek.astron.console.toolkit.entity.vo.ModelCategoryReq;
 import com.iflytek.astron.console.toolkit.mapper.ConfigInfoMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
 import com.iflytek.astron.console.toolkit.mapper.bot.SparkBotMapper;
 import com.iflytek.astron.console.toolkit.mapper.model.ModelMapper;
 import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
@@ -59,6 +60,8 @@ class ModelServiceTest {
     @Mock
     private ConfigInfoMapper configInfoMapper;
     @Mock
+    private ConfigInfoRegistry configInfoRegistry;
+    @Mock
     private RestTemplate restTemplate;
     @Mock
     private S3Util s3UtilClient;
@@ -130,7 +133,7 @@ class ModelServiceTest {
         doReturn(dbModel).when(modelService).getById(100L);
 
         // SSRF blacklist configuration (empty)
-        when(configInfoMapper.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
+        when(configInfoRegistry.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
                 .thenReturn(Collections.singletonList(new ConfigInfo()));
 
         // saveOrUpdateModel(update):
@@ -186,7 +189,7 @@ class ModelServiceTest {
         dbModel.setApiKey("DB_KEY");
         dbModel.setIsDeleted(false);
         doReturn(dbModel).when(modelService).getById(101L);
-        when(configInfoMapper.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
+        when(configInfoRegistry.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
                 .thenReturn(Collections.emptyList());
 
         // HTTP response missing "usage"
@@ -228,7 +231,7 @@ class ModelServiceTest {
         doReturn(dbModel).when(modelService).getById(102L);
 
         // Minimal necessary stubs
-        when(configInfoMapper.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
+        when(configInfoRegistry.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
                 .thenReturn(Collections.emptyList());
 
         when(restTemplate.exchange(
@@ -452,7 +455,7 @@ class ModelServiceTest {
         req.setConfig(Collections.emptyList());
 
         // SSRF blacklist
-        when(configInfoMapper.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
+        when(configInfoRegistry.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
                 .thenReturn(Collections.emptyList());
 
         // 1) private key exists
@@ -524,7 +527,7 @@ class ModelServiceTest {
         m.setIsDeleted(false);
         doReturn(m).when(modelService).getById(1L);
 
-        when(configInfoMapper.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
+        when(configInfoRegistry.getListByCategory("NETWORK_SEGMENT_BLACK_LIST"))
                 .thenReturn(Collections.emptyList());
 
         BusinessException ex = assertThrows(BusinessException.class, () -> modelService.validateModel(req));
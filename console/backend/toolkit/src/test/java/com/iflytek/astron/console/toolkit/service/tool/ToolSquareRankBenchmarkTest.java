@@ -0,0 +1,220 @@
+package com.iflytek.astron.console.toolkit.service.tool;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.iflytek.astron.console.toolkit.config.properties.BizConfig;
+import com.iflytek.astron.console.toolkit.entity.common.PageData;
+import com.iflytek.astron.console.toolkit.entity.dto.ToolBoxVo;
+import com.iflytek.astron.console.toolkit.entity.dto.ToolSquareDto;
+import com.iflytek.astron.console.toolkit.entity.table.tool.ToolBox;
+import com.iflytek.astron.console.toolkit.mapper.tool.ToolBoxMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoService;
+import com.iflytek.astron.console.toolkit.service.workflow.WorkflowService;
+import com.iflytek.astron.console.toolkit.util.S3Util;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Serves the tool square heat ranking over 10k tools from the database path and from the ranked
+ * index, with Redis and the database mocked, and reports the p99 page latency, the Redis round trips
+ * and the Redis keys read per request. Before the index, the database path also read the heat value of
+ * every tool with its own GET, one round trip per tool.
+ */
+@Slf4j
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ToolSquareRankBenchmarkTest {
+
+    private static final int TOOLS = 10_000;
+    private static final int PAGE_SIZE = 10;
+    private static final String WEB_SCHEMA = "{\"toolRequestInput\":[{\"name\":\"query\",\"open\":true},{\"name\":\"hidden\",\"open\":false}],"
+            + "\"toolRequestOutput\":[{\"name\":\"result\"}]}";
+
+    @Mock(stubOnly = true)
+    private ToolBoxMapper toolBoxMapper;
+    @Mock
+    private BizConfig bizConfig;
+    @Mock
+    private ConfigInfoService configInfoService;
+    @Mock(stubOnly = true)
+    private S3Util s3UtilClient;
+    @Mock
+    private WorkflowService workflowService;
+    @Mock(stubOnly = true)
+    private RedisTemplate<String, Object> redisTemplate;
+    @Mock(stubOnly = true)
+    private ValueOperations<String, Object> valueOperations;
+    @Mock(stubOnly = true)
+    private SetOperations<String, Object> setOperations;
+    @Mock(stubOnly = true)
+    private StringRedisTemplate stringRedisTemplate;
+
+    @InjectMocks
+    private ToolBoxService toolBoxService;
+
+    private final List<ToolBox> tools = new ArrayList<>(TOOLS);
+    private final Map<String, ToolBox> toolsById = new HashMap<>();
+    private final Map<String, Long> heatValues = new HashMap<>();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final AtomicLong keysRead = new AtomicLong();
+    private String favoriteToolId;
+    private boolean indexBuilt;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < TOOLS; i++) {
+            ToolBox tool = new ToolBox();
+            tool.setId((long) i);
+            tool.setToolId("tool-" + i);
+            tool.setName("Tool " + i);
+            tool.setWebSchema(WEB_SCHEMA);
+            tool.setToolTag("7");
+            tools.add(tool);
+            toolsById.put(tool.getToolId(), tool);
+            // Distinct heat values, so both paths have a single correct order
+            heatValues.put(tool.getToolId(), (long) (i * 7919 % 10_007));
+        }
+        favoriteToolId = tools.stream().max(Comparator.comparing(tool -> heatValues.get(tool.getToolId()))).orElseThrow().getToolId();
+        Set<TypedTuple<String>> firstPage = new LinkedHashSet<>();
+        tools.stream()
+                .sorted(Comparator.comparing((ToolBox tool) -> heatValues.get(tool.getToolId())).reversed())
+                .limit(PAGE_SIZE)
+                .forEach(tool -> firstPage.add(TypedTuple.of("p:" + tool.getToolId(), heatValues.get(tool.getToolId()).doubleValue())));
+
+        ToolSquareRankIndex index = new ToolSquareRankIndex();
+        ReflectionTestUtils.setField(index, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(toolBoxService, "toolSquareRankIndex", index);
+
+        when(bizConfig.getAdminUid()).thenReturn("1");
+        when(s3UtilClient.getS3Prefix()).thenReturn("https://s3/bucket/");
+        when(configInfoService.list(any(Wrapper.class))).thenReturn(List.of());
+        when(workflowService.getMcpServerListLocally(any(), anyInt(), anyInt(), any(), any())).thenReturn(List.of());
+        when(toolBoxMapper.getModelListSquareByCondition(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> new ArrayList<>(tools));
+        when(toolBoxMapper.getToolsLastVersion(anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            return ids.stream().map(toolsById::get).toList();
+        });
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(valueOperations.multiGet(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            roundTrips.incrementAndGet();
+            keysRead.addAndGet(keys.size());
+            return keys.stream().map(key -> (Object) heatValues.get(key.substring(key.lastIndexOf(':') + 1))).toList();
+        });
+        when(setOperations.members(anyString())).thenAnswer(invocation -> {
+            roundTrips.incrementAndGet();
+            keysRead.incrementAndGet();
+            return Set.of(favoriteToolId);
+        });
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            roundTrips.incrementAndGet();
+            keysRead.incrementAndGet();
+            SessionCallback<?> callback = invocation.getArgument(0);
+            RedisOperations<String, Object> operations = mock(RedisOperations.class);
+            SetOperations<String, Object> set = mock(SetOperations.class);
+            List<Object> membership = new ArrayList<>();
+            when(operations.opsForSet()).thenReturn(set);
+            when(set.isMember(anyString(), any(Object[].class))).thenAnswer(check -> {
+                Object[] members = (Object[]) check.getRawArguments()[1];
+                Arrays.stream(members).forEach(member -> membership.add(favoriteToolId.equals(member)));
+                return null;
+            });
+            callback.execute(operations);
+            return List.of(true, membership);
+        });
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            roundTrips.incrementAndGet();
+            keysRead.incrementAndGet();
+            if (!indexBuilt) {
+                return List.of(Set.of(), 0L);
+            }
+            return List.of(firstPage, (long) TOOLS);
+        });
+    }
+
+    @Test
+    void rankedIndex_servesSamePageAsDatabasePath() {
+        indexBuilt = false;
+        PageData<ToolBoxVo> fromDatabase = toolBoxService.listToolSquare(heatRankQuery());
+        indexBuilt = true;
+        PageData<ToolBoxVo> fromIndex = toolBoxService.listToolSquare(heatRankQuery());
+
+        assertEquals(TOOLS, fromDatabase.getTotalCount());
+        assertEquals(fromDatabase.getTotalCount(), fromIndex.getTotalCount());
+        assertEquals(summary(fromDatabase), summary(fromIndex));
+        assertTrue(fromIndex.getPageData().getFirst().getIsFavorite());
+        assertEquals("https://s3/bucket/", fromIndex.getPageData().getFirst().getAddress());
+    }
+
+    @Test
+    void benchmark_pageLatencyAndRoundTrips() {
+        indexBuilt = false;
+        Result database = measure(() -> toolBoxService.listToolSquare(heatRankQuery()));
+        indexBuilt = true;
+        Result index = measure(() -> toolBoxService.listToolSquare(heatRankQuery()));
+
+        log.info("tool square page over {} tools: database path p99 {} ms, {} Redis round trips, {} keys read per request"
+                + " (one round trip per tool before heat values were read with MGET)",
+                TOOLS, String.format("%.3f", database.p99Millis()), database.roundTrips(), database.keysRead());
+        log.info("tool square page over {} tools: ranked index p99 {} ms, {} Redis round trips, {} keys read per request",
+                TOOLS, String.format("%.3f", index.p99Millis()), index.roundTrips(), index.keysRead());
+
+        assertEquals(2, index.roundTrips());
+        assertTrue(index.keysRead() < database.keysRead());
+    }
+
+    private Result measure(Supplier<PageData<ToolBoxVo>> request) {
+        for (int i = 0; i < 10; i++) {
+            request.get();
+        }
+        int runs = 100;
+        long[] nanos = new long[runs];
+        roundTrips.set(0);
+        keysRead.set(0);
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            request.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return new Result(nanos[(int) Math.ceil(runs * 0.99) - 1] / 1e6, roundTrips.get() / runs, keysRead.get() / runs);
+    }
+
+    private static ToolSquareDto heatRankQuery() {
+        ToolSquareDto dto = new ToolSquareDto();
+        dto.setPage(1);
+        dto.setPageSize(PAGE_SIZE);
+        dto.setOrderFlag(0);
+        dto.setTagFlag(0);
+        return dto;
+    }
+
+    private static List<String> summary(PageData<ToolBoxVo> pageData) {
+        return pageData.getPageData().stream()
+                .map(tool -> tool.getToolId() + ":" + tool.getHeatValue() + ":" + tool.getIsFavorite())
+                .toList();
+    }
+
+    private record Result(double p99Millis, int roundTrips, long keysRead) {}
+}
@@ -0,0 +1,169 @@
+package com.iflytek.astron.console.toolkit.service.tool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ToolSquareRankIndexTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private RedisOperations<String, String> pipeline;
+
+    @Mock
+    private ZSetOperations<String, String> pipelineZSet;
+
+    @Mock
+    private SetOperations<String, String> pipelineSet;
+
+    @InjectMocks
+    private ToolSquareRankIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+        when(pipeline.opsForZSet()).thenReturn(pipelineZSet);
+        when(pipeline.opsForSet()).thenReturn(pipelineSet);
+    }
+
+    @Test
+    void page_readsRangeAndSizeInOnePipeline() {
+        Set<TypedTuple<String>> range = new LinkedHashSet<>(List.of(
+                TypedTuple.of("p:tool-a", 30.0),
+                TypedTuple.of("m:mcp-b", 20.0),
+                TypedTuple.of("unknown", 10.0)));
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(range, 42L));
+
+        ToolSquareRankIndex.Page page = index.page(ToolSquareRankIndex.ALL, 20, 10);
+
+        assertEquals(42L, page.total());
+        assertEquals(List.of(ToolSquareRankIndex.RankedTool.plugin("tool-a", List.of(), 30),
+                ToolSquareRankIndex.RankedTool.mcp("mcp-b", 20)), page.tools());
+        runPipeline(0);
+        verify(pipelineZSet).reverseRangeWithScores("tool_square_rank:all", 20, 29);
+        verify(pipelineZSet).zCard("tool_square_rank:all");
+        verify(stringRedisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    void page_returnsNullWhenRedisFails() {
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNull(index.page(ToolSquareRankIndex.PLUGINS, 0, 10));
+    }
+
+    @Test
+    void sync_writesOnlyChangedScoresAndDropsVanishedSegments() {
+        when(setOperations.members("tool_square_rank_segments")).thenReturn(Set.of("all", "plugin", "tag:7", "tag:9"));
+        Map<String, Set<TypedTuple<String>>> current = Map.of(
+                "all", Set.of(TypedTuple.of("p:a", 5.0), TypedTuple.of("p:gone", 1.0)),
+                "plugin", Set.of(TypedTuple.of("p:a", 5.0), TypedTuple.of("p:gone", 1.0)),
+                "tag:7", Set.of(TypedTuple.of("p:a", 5.0)),
+                "tag:9", Set.of(TypedTuple.of("p:gone", 1.0)));
+        List<String> readOrder = new ArrayList<>();
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<?> callback = invocation.getArgument(0);
+            RedisOperations<String, String> reader = mock(RedisOperations.class);
+            ZSetOperations<String, String> zSet = mock(ZSetOperations.class);
+            when(reader.opsForZSet()).thenReturn(zSet);
+            when(reader.opsForSet()).thenReturn(mock(SetOperations.class));
+            when(zSet.rangeWithScores(anyString(), eq(0L), eq(-1L))).thenAnswer(read -> {
+                readOrder.add(read.getArgument(0));
+                return null;
+            });
+            callback.execute(reader);
+            List<Object> results = new ArrayList<>();
+            readOrder.forEach(key -> results.add(current.getOrDefault(key.substring("tool_square_rank:".length()), Set.of())));
+            return results;
+        });
+
+        int changes = index.sync(List.of(
+                ToolSquareRankIndex.RankedTool.plugin("a", List.of("7"), 5),
+                ToolSquareRankIndex.RankedTool.plugin("b", List.of("7"), 8),
+                ToolSquareRankIndex.RankedTool.mcp("m1", 3)));
+
+        // b added to all, plugin and tag:7; m1 added to all and mcp; gone removed from all and plugin; tag:9 dropped
+        assertEquals(3 + 2 + 2 + 1, changes);
+        ArgumentCaptor<SessionCallback> callbacks = ArgumentCaptor.forClass(SessionCallback.class);
+        verify(stringRedisTemplate, times(2)).executePipelined(callbacks.capture());
+        callbacks.getAllValues().get(1).execute(pipeline);
+        verify(pipelineZSet).add("tool_square_rank:all", Set.of(TypedTuple.of("p:b", 8.0), TypedTuple.of("m:m1", 3.0)));
+        verify(pipelineZSet).add("tool_square_rank:plugin", Set.of(TypedTuple.of("p:b", 8.0)));
+        verify(pipelineZSet).add("tool_square_rank:tag:7", Set.of(TypedTuple.of("p:b", 8.0)));
+        verify(pipelineZSet).add("tool_square_rank:mcp", Set.of(TypedTuple.of("m:m1", 3.0)));
+        verify(pipelineZSet).remove("tool_square_rank:all", "p:gone");
+        verify(pipelineZSet).remove("tool_square_rank:plugin", "p:gone");
+        verify(pipeline).delete("tool_square_rank:tag:9");
+        verify(pipelineSet).remove("tool_square_rank_segments", "tag:9");
+        verify(pipelineZSet, never()).add(eq("tool_square_rank:all"), argThat((Set<TypedTuple<String>> tuples) -> tuples.contains(TypedTuple.of("p:a", 5.0))));
+    }
+
+    @Test
+    void pinnedPlugin_ranksAheadOfEqualHeatAndKeepsHeatValue() {
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of());
+
+        index.sync(List.of(
+                ToolSquareRankIndex.RankedTool.plugin("a", List.of(), false, 5),
+                ToolSquareRankIndex.RankedTool.plugin("pinned", List.of(), true, 5)));
+
+        runPipeline(1);
+        verify(pipelineZSet).add("tool_square_rank:plugin", Set.of(TypedTuple.of("p:a", 5.0), TypedTuple.of("p:pinned", 5.5)));
+
+        Set<TypedTuple<String>> range = new LinkedHashSet<>(List.of(TypedTuple.of("p:pinned", 5.5), TypedTuple.of("p:a", 5.0)));
+        when(stringRedisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(range, 2L));
+        assertEquals(List.of(ToolSquareRankIndex.RankedTool.plugin("pinned", List.of(), true, 5),
+                ToolSquareRankIndex.RankedTool.plugin("a", List.of(), false, 5)), index.page(ToolSquareRankIndex.PLUGINS, 0, 10).tools());
+    }
+
+    @Test
+    void add_insertsPublishedPluginWithoutTouchingExistingScores() {
+        index.add("tool-a", List.of("7"));
+
+        runPipeline(0);
+        verify(pipelineZSet).addIfAbsent("tool_square_rank:all", "p:tool-a", 0);
+        verify(pipelineZSet).addIfAbsent("tool_square_rank:plugin", "p:tool-a", 0);
+        verify(pipelineZSet).addIfAbsent("tool_square_rank:tag:7", "p:tool-a", 0);
+        verify(pipelineSet).add("tool_square_rank_segments", "all", "plugin", "tag:7");
+    }
+
+    @Test
+    void remove_removesPluginFromEverySegment() {
+        when(setOperations.members("tool_square_rank_segments")).thenReturn(new LinkedHashSet<>(List.of("all", "plugin", "tag:7")));
+
+        index.remove("tool-a");
+
+        runPipeline(0);
+        verify(pipelineZSet).remove("tool_square_rank:all", "p:tool-a");
+        verify(pipelineZSet).remove("tool_square_rank:plugin", "p:tool-a");
+        verify(pipelineZSet).remove("tool_square_rank:tag:7", "p:tool-a");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runPipeline(int call) {
+        ArgumentCaptor<SessionCallback> callbacks = ArgumentCaptor.forClass(SessionCallback.class);
+        verify(stringRedisTemplate, atLeastOnce()).executePipelined(callbacks.capture());
+        callbacks.getAllValues().get(call).execute(pipeline);
+    }
+}
@@ -0,0 +1,157 @@
+package com.iflytek.astron.console.toolkit.service.workflow;
+
+import org.redisson.api.RTopic;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * In-memory stand-in for the Redis commands and scripts of {@link FlowCanvasPresenceService}, following
+ * the semantics of its Lua scripts and counting the commands sent and the sorted set entries read.
+ */
+class FakePresenceRedis {
+
+    private final Map<String, Map<String, Double>> zSets = new HashMap<>();
+    final AtomicLong commands = new AtomicLong();
+    final AtomicLong entriesRead = new AtomicLong();
+    final List<String> published = Collections.synchronizedList(new ArrayList<>());
+
+    @SuppressWarnings("unchecked")
+    StringRedisTemplate template() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class, withSettings().stubOnly());
+        ZSetOperations<String, String> zSet = mock(ZSetOperations.class, withSettings().stubOnly());
+        when(template.opsForZSet()).thenReturn(zSet);
+        when(template.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            RedisScript<?> script = invocation.getArgument(0);
+            List<String> keys = invocation.getArgument(1);
+            Object[] args = (Object[]) invocation.getRawArguments()[2];
+            synchronized (this) {
+                if (script == FlowCanvasPresenceService.HEARTBEAT) {
+                    return heartbeat(keys, args);
+                }
+                if (script == FlowCanvasPresenceService.LEAVE) {
+                    return leave(keys, args);
+                }
+                if (script == FlowCanvasPresenceService.EXPIRE) {
+                    return expire(keys, args);
+                }
+            }
+            throw new IllegalArgumentException("Unknown script");
+        });
+        when(zSet.rangeByScore(anyString(), anyDouble(), anyDouble(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            double max = invocation.getArgument(2);
+            long count = invocation.getArgument(4);
+            synchronized (this) {
+                Set<String> range = new LinkedHashSet<>();
+                zSet(invocation.getArgument(0)).entrySet().stream()
+                        .filter(entry -> entry.getValue() <= max)
+                        .sorted(Map.Entry.comparingByValue())
+                        .limit(count)
+                        .forEach(entry -> range.add(entry.getKey()));
+                entriesRead.addAndGet(range.size());
+                return range;
+            }
+        });
+        when(zSet.range(anyString(), eq(0L), eq(-1L))).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            synchronized (this) {
+                Set<String> members = new LinkedHashSet<>(zSet(invocation.getArgument(0)).keySet());
+                entriesRead.addAndGet(members.size());
+                return members;
+            }
+        });
+        when(template.delete(anyCollection())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            Collection<String> keys = invocation.getArgument(0);
+            synchronized (this) {
+                return keys.stream().filter(key -> zSets.remove(key) != null).count();
+            }
+        });
+        when(template.delete(anyString())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            synchronized (this) {
+                return zSets.remove(invocation.<String>getArgument(0)) != null;
+            }
+        });
+        return template;
+    }
+
+    /**
+     * A topic recording what is published and handing it to a subscriber, as Redis would
+     */
+    RTopic topic(Consumer<String> subscriber) {
+        RTopic topic = mock(RTopic.class, withSettings().stubOnly());
+        when(topic.publish(any())).thenAnswer(invocation -> {
+            commands.incrementAndGet();
+            String message = invocation.getArgument(0);
+            published.add(message);
+            subscriber.accept(message);
+            return 1L;
+        });
+        return topic;
+    }
+
+    synchronized Map<String, Double> zSet(String key) {
+        return zSets.computeIfAbsent(key, k -> new HashMap<>());
+    }
+
+    synchronized int keyCount() {
+        zSets.values().removeIf(Map::isEmpty);
+        return zSets.size();
+    }
+
+    private List<Object> heartbeat(List<String> keys, Object[] args) {
+        Map<String, Double> sessions = zSet(keys.get(0));
+        long added = sessions.put((String) args[0], Double.parseDouble((String) args[1])) == null ? 1 : 0;
+        zSet(keys.get(1)).put((String) args[2], oldest(sessions));
+        return List.of(added, countFrom(sessions, Double.parseDouble((String) args[3])));
+    }
+
+    private List<Object> leave(List<String> keys, Object[] args) {
+        Map<String, Double> sessions = zSet(keys.get(0));
+        long removed = sessions.remove((String) args[0]) == null ? 0 : 1;
+        reindex(keys.get(1), (String) args[1], sessions);
+        return List.of(removed, countFrom(sessions, Double.parseDouble((String) args[2])));
+    }
+
+    private List<Object> expire(List<String> keys, Object[] args) {
+        double expiredBefore = Double.parseDouble((String) args[0]);
+        List<Object> changed = new ArrayList<>();
+        for (int i = 1; i < keys.size(); i++) {
+            Map<String, Double> sessions = zSet(keys.get(i));
+            entriesRead.addAndGet(sessions.size());
+            boolean removed = sessions.values().removeIf(score -> score < expiredBefore);
+            reindex(keys.get(0), (String) args[i], sessions);
+            if (removed) {
+                changed.add(args[i]);
+                changed.add((long) sessions.size());
+            }
+        }
+        return changed;
+    }
+
+    private void reindex(String indexKey, String flowId, Map<String, Double> sessions) {
+        if (sessions.isEmpty()) {
+            zSet(indexKey).remove(flowId);
+        } else {
+            zSet(indexKey).put(flowId, oldest(sessions));
+        }
+    }
+
+    private static double oldest(Map<String, Double> sessions) {
+        return sessions.values().stream().min(Double::compare).orElseThrow();
+    }
+
+    private static long countFrom(Map<String, Double> sessions, double min) {
+        return sessions.values().stream().filter(score -> score >= min).count();
+    }
+}
@@ -0,0 +1,101 @@
+package com.iflytek.astron.console.toolkit.service.workflow;
+
+import com.iflytek.astron.console.toolkit.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Keeps up to 5k canvases open, two sessions each, against an in-memory Redis and reports the Redis
+ * commands per heartbeat and the cost of a sweep. The previous sweep SCANned the whole keyspace every
+ * 10 seconds on every node and read the heartbeat hash of every canvas, so its cost grew with the keys
+ * in Redis and the number of nodes.
+ */
+@Slf4j
+class FlowCanvasPresenceLoadTest {
+
+    private static final long START = 1_700_000_000_000L;
+    private static final int SESSIONS_PER_CANVAS = 2;
+    private static final int STALE_CANVASES = 50;
+    /** Keys visited per SCAN call of RedisUtil */
+    private static final int SCAN_COUNT = 1000;
+
+    @Test
+    void sweepCostFollowsExpiringSessionsNotOpenCanvases() {
+        Result small = run(500);
+        Result large = run(5_000);
+
+        for (Result result : new Result[] {small, large}) {
+            log.info("{} canvases: {} Redis commands per heartbeat, idle sweep {} commands reading {} entries, "
+                    + "sweep expiring {} sessions {} commands reading {} entries, {} pushes",
+                    result.canvases, String.format("%.2f", result.commandsPerHeartbeat), result.idleSweepCommands,
+                    result.idleSweepEntries, STALE_CANVASES, result.sweepCommands, result.sweepEntries, result.sweepPublishes);
+            log.info("{} canvases: previous sweep needed at least {} commands reading {} heartbeats per node",
+                    result.canvases, result.canvases / SCAN_COUNT + 1 + result.canvases, result.canvases * SESSIONS_PER_CANVAS);
+        }
+
+        assertThat(large.commandsPerHeartbeat).isEqualTo(1.0);
+        assertThat(large.idleSweepCommands).isEqualTo(small.idleSweepCommands).isEqualTo(1);
+        assertThat(large.idleSweepEntries).isZero();
+        assertThat(large.sweepCommands).isEqualTo(small.sweepCommands);
+        assertThat(large.sweepEntries).isEqualTo(small.sweepEntries);
+        assertThat(large.sweepPublishes).isEqualTo(1);
+    }
+
+    private Result run(int canvases) {
+        FakePresenceRedis redis = new FakePresenceRedis();
+        FlowCanvasPresenceService service = new FlowCanvasPresenceService();
+        AtomicLong pushes = new AtomicLong();
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", redis.template());
+        ReflectionTestUtils.setField(service, "redisUtil", mock(RedisUtil.class));
+        ReflectionTestUtils.setField(service, "changedTopic", redis.topic(service::onChanged));
+        service.addListener((flowId, count) -> pushes.incrementAndGet());
+
+        for (int canvas = 0; canvas < canvases; canvas++) {
+            for (int session = 0; session < SESSIONS_PER_CANVAS; session++) {
+                service.heartbeat("flow-" + canvas, "session-" + canvas + "-" + session, START);
+            }
+        }
+
+        // Every session pings each 10 seconds, except one session of a few canvases that went away
+        redis.commands.set(0);
+        int heartbeats = 0;
+        for (long now = START + 10_000; now <= START + 20_000; now += 10_000) {
+            for (int canvas = 0; canvas < canvases; canvas++) {
+                for (int session = 0; session < SESSIONS_PER_CANVAS; session++) {
+                    if (canvas < STALE_CANVASES && session == 0) {
+                        continue;
+                    }
+                    service.heartbeat("flow-" + canvas, "session-" + canvas + "-" + session, now);
+                    heartbeats++;
+                }
+            }
+        }
+        double commandsPerHeartbeat = (double) redis.commands.get() / heartbeats;
+
+        redis.commands.set(0);
+        redis.entriesRead.set(0);
+        service.expireStale(START + 25_000);
+        long idleSweepCommands = redis.commands.get();
+        long idleSweepEntries = redis.entriesRead.get();
+
+        redis.commands.set(0);
+        redis.entriesRead.set(0);
+        redis.published.clear();
+        service.expireStale(START + 35_000);
+        long sweepCommands = redis.commands.get();
+        long sweepEntries = redis.entriesRead.get();
+
+        assertThat(pushes.get()).isEqualTo((long) canvases * SESSIONS_PER_CANVAS + STALE_CANVASES);
+        return new Result(canvases, commandsPerHeartbeat, idleSweepCommands, idleSweepEntries, sweepCommands, sweepEntries,
+                redis.published.size());
+    }
+
+    private record Result(int canvases, double commandsPerHeartbeat, long idleSweepCommands, long idleSweepEntries,
+            long sweepCommands, long sweepEntries, int sweepPublishes) {}
+}
@@ -0,0 +1,123 @@
+package com.iflytek.astron.console.toolkit.service.workflow;
+
+import com.iflytek.astron.console.commons.constant.RedisKeyConstant;
+import com.iflytek.astron.console.toolkit.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FlowCanvasPresenceServiceTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private FakePresenceRedis redis;
+    private RedisUtil redisUtil;
+    private FlowCanvasPresenceService service;
+    private final List<String> pushed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakePresenceRedis();
+        redisUtil = mock(RedisUtil.class);
+        service = new FlowCanvasPresenceService();
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", redis.template());
+        ReflectionTestUtils.setField(service, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(service, "changedTopic", redis.topic(service::onChanged));
+        service.addListener((flowId, count) -> pushed.add(flowId + "=" + count));
+    }
+
+    @Test
+    void heartbeat_newSessionPublishesCountAndKnownSessionDoesNot() {
+        assertThat(service.heartbeat("f1", "s1", NOW)).isEqualTo(1L);
+        assertThat(service.heartbeat("f1", "s2", NOW + 1)).isEqualTo(2L);
+        assertThat(service.heartbeat("f1", "s1", NOW + 5_000)).isEqualTo(2L);
+
+        assertThat(pushed).containsExactly("f1=1", "f1=2");
+        // The index keeps the oldest heartbeat of the flow
+        assertThat(redis.zSet(RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS)).containsEntry("f1", (double) NOW + 1);
+    }
+
+    @Test
+    void heartbeat_countsOnlyLiveSessionsBeforeTheSweep() {
+        service.heartbeat("f1", "stale", NOW);
+
+        assertThat(service.heartbeat("f1", "s1", NOW + 31_000)).isEqualTo(1L);
+    }
+
+    @Test
+    void leave_lastSessionDropsFlowFromIndex() {
+        service.heartbeat("f1", "s1", NOW);
+        service.heartbeat("f1", "s2", NOW);
+
+        service.leave("f1", "s1", NOW + 1_000);
+        service.leave("f1", "s1", NOW + 1_000);
+        service.leave("f1", "s2", NOW + 1_000);
+
+        assertThat(pushed).containsExactly("f1=1", "f1=2", "f1=1", "f1=0");
+        assertThat(redis.zSet(RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS)).isEmpty();
+    }
+
+    @Test
+    void expireStale_removesStaleSessionsAndPublishesNewCountsOnce() {
+        service.heartbeat("f1", "s1", NOW);
+        service.heartbeat("f1", "s2", NOW + 20_000);
+        service.heartbeat("f2", "s3", NOW);
+        service.heartbeat("f3", "s4", NOW + 20_000);
+        redis.published.clear();
+        pushed.clear();
+
+        int changed = service.expireStale(NOW + 40_000);
+
+        assertThat(changed).isEqualTo(2);
+        assertThat(redis.published).containsExactly("f1=1\nf2=0\n");
+        assertThat(pushed).containsExactly("f1=1", "f2=0");
+        assertThat(redis.zSet(RedisKeyConstant.FLOW_CANVAS_ACTIVE_FLOWS))
+                .containsOnly(Map.entry("f1", (double) NOW + 20_000), Map.entry("f3", (double) NOW + 20_000));
+        assertThat(redis.zSet(FlowCanvasPresenceService.flowKey("f2"))).isEmpty();
+    }
+
+    @Test
+    void sweep_skipsWhenAnotherNodeHoldsTheLock() {
+        when(redisUtil.tryLock(anyString(), any(Duration.class), anyString())).thenReturn(false);
+
+        service.sweep();
+
+        assertThat(redis.commands.get()).isZero();
+    }
+
+    @Test
+    void publishFailure_stillNotifiesThisNode() {
+        RTopic topic = mock(RTopic.class);
+        when(topic.publish(any())).thenThrow(new RedisConnectionFailureException("down"));
+        ReflectionTestUtils.setField(service, "changedTopic", topic);
+
+        service.heartbeat("f1", "s1", NOW);
+
+        assertThat(pushed).containsExactly("f1=1");
+    }
+
+    @Test
+    void onChanged_skipsMalformedLines() {
+        service.onChanged("f1=3\nbroken\nf:2=x\nflow=with=4\n");
+
+        assertThat(pushed).containsExactly("f1=3", "flow=with=4");
+    }
+
+    @Test
+    void clear_deletesEveryIndexedFlow() {
+        service.heartbeat("f1", "s1", NOW);
+        service.heartbeat("f2", "s2", NOW);
+
+        assertThat(service.clear()).isEqualTo(2);
+        assertThat(redis.keyCount()).isZero();
+    }
+}
@@ -0,0 +1,178 @@
+package com.iflytek.astron.console.toolkit.service.workflow;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.iflytek.astron.console.commons.entity.workflow.Workflow;
+import com.iflytek.astron.console.toolkit.entity.biz.external.app.AkSk;
+import com.iflytek.astron.console.toolkit.entity.table.ConfigInfo;
+import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
+import com.iflytek.astron.console.toolkit.service.extra.AppService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WorkflowRuntimeCache descriptor building and version stamp invalidation.
+ */
+class WorkflowRuntimeCacheTest {
+
+    private static final String DATA = "{\"nodes\":["
+            + "{\"id\":\"spark-llm::1\",\"data\":{\"nodeParam\":{\"enableChatHistoryV2\":{\"isEnabled\":true,\"rounds\":3}}}},"
+            + "{\"id\":\"decision-making::2\",\"data\":{\"nodeParam\":{\"enableChatHistoryV2\":{\"isEnabled\":true,\"rounds\":8}}}},"
+            + "{\"id\":\"agent::3\",\"data\":{\"nodeParam\":{\"enableChatHistoryV2\":{\"isEnabled\":true,\"rounds\":20}}}},"
+            + "{\"id\":\"node-start::4\",\"data\":{}}]}";
+
+    private WorkflowRuntimeCache cache;
+    private WorkflowMapper workflowMapper;
+    private AppService appService;
+    private ConfigInfoRegistry configInfoRegistry;
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, String> valueOperations;
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Workflow.class);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        workflowMapper = mock(WorkflowMapper.class);
+        appService = mock(AppService.class);
+        configInfoRegistry = mock(ConfigInfoRegistry.class);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        Workflow workflow = new Workflow();
+        workflow.setId(11L);
+        workflow.setFlowId("flow-1");
+        workflow.setAppId("app-1");
+        workflow.setData(DATA);
+        when(workflowMapper.selectOne(any())).thenReturn(workflow);
+        when(appService.remoteCallAkSk("app-1")).thenReturn(new AkSk("key", "secret"));
+        ConfigInfo multiRounds = new ConfigInfo();
+        multiRounds.setValue("spark-llm,decision-making");
+        when(configInfoRegistry.getFirstByCategory("MULTI_ROUNDS_ALIAS_NAME")).thenReturn(multiRounds);
+
+        cache = new WorkflowRuntimeCache();
+        ReflectionTestUtils.setField(cache, "workflowMapper", workflowMapper);
+        ReflectionTestUtils.setField(cache, "appService", appService);
+        ReflectionTestUtils.setField(cache, "configInfoRegistry", configInfoRegistry);
+        ReflectionTestUtils.setField(cache, "stringRedisTemplate", stringRedisTemplate);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_buildsDescriptorFromWorkflow() {
+        WorkflowRuntimeCache.Descriptor descriptor = cache.get("flow-1");
+
+        assertThat(descriptor.getWorkflowId()).isEqualTo(11L);
+        assertThat(descriptor.getAppId()).isEqualTo("app-1");
+        assertThat(descriptor.getAuthorization()).isEqualTo("key:secret");
+        assertThat(descriptor.isMultiRoundEnabled()).isTrue();
+        // The agent node keeps more rounds but does not support multi-round conversation
+        assertThat(descriptor.getMaxRounds()).isEqualTo(8);
+    }
+
+    @Test
+    void get_reusesDescriptorWhileStampIsUnchanged() {
+        when(valueOperations.get("workflow_runtime_version:flow-1")).thenReturn("4");
+
+        WorkflowRuntimeCache.Descriptor first = cache.get("flow-1");
+        WorkflowRuntimeCache.Descriptor second = cache.get("flow-1");
+
+        assertThat(second).isSameAs(first);
+        verify(workflowMapper, times(1)).selectOne(any());
+        verify(appService, times(1)).remoteCallAkSk("app-1");
+        verify(configInfoRegistry, times(1)).getFirstByCategory("MULTI_ROUNDS_ALIAS_NAME");
+    }
+
+    @Test
+    void get_rebuildsWhenAnotherNodeBumpedTheStamp() {
+        when(valueOperations.get("workflow_runtime_version:flow-1")).thenReturn("4", "5");
+
+        WorkflowRuntimeCache.Descriptor first = cache.get("flow-1");
+        WorkflowRuntimeCache.Descriptor second = cache.get("flow-1");
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getStamp()).isEqualTo("5");
+        verify(workflowMapper, times(2)).selectOne(any());
+    }
+
+    @Test
+    void get_buildsEveryTimeWithoutRedis() {
+        when(valueOperations.get(anyString())).thenThrow(new RedisConnectionFailureException("down"));
+
+        cache.get("flow-1");
+        cache.get("flow-1");
+
+        verify(workflowMapper, times(2)).selectOne(any());
+    }
+
+    @Test
+    void invalidate_bumpsStampAndDropsLocalDescriptor() {
+        cache.get("flow-1");
+
+        cache.invalidate("flow-1");
+        cache.get("flow-1");
+
+        verify(valueOperations).increment("workflow_runtime_version:flow-1");
+        verify(stringRedisTemplate).expire("workflow_runtime_version:flow-1", 7L, TimeUnit.DAYS);
+        verify(workflowMapper, times(2)).selectOne(any());
+    }
+
+    @Test
+    void invalidate_inTransactionBumpsStampOnlyAfterCommit() {
+        cache.get("flow-1");
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate("flow-1");
+        // Until the commit other nodes and this one keep the descriptor of the committed row
+        cache.get("flow-1");
+        verify(valueOperations, never()).increment(anyString());
+        verify(workflowMapper, times(1)).selectOne(any());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(valueOperations).increment("workflow_runtime_version:flow-1");
+    }
+
+    @Test
+    void invalidate_inRolledBackTransactionKeepsStamp() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate("flow-1");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(valueOperations, never()).increment(anyString());
+    }
+}
@@ -0,0 +1,218 @@
+package com.iflytek.astron.console.toolkit.service.workflow;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.iflytek.astron.console.commons.dto.bot.BotDetail;
+import com.iflytek.astron.console.commons.entity.bot.UserLangChainInfo;
+import com.iflytek.astron.console.commons.entity.user.UserInfo;
+import com.iflytek.astron.console.commons.entity.workflow.Workflow;
+import com.iflytek.astron.console.commons.mapper.UserLangChainInfoMapper;
+import com.iflytek.astron.console.commons.mapper.bot.ChatBotBaseMapper;
+import com.iflytek.astron.console.commons.util.space.SpaceInfoUtil;
+import com.iflytek.astron.console.toolkit.entity.biz.workflow.WorkflowDataSummary;
+import com.iflytek.astron.console.toolkit.entity.common.PageData;
+import com.iflytek.astron.console.toolkit.entity.table.workflow.WorkflowVersion;
+import com.iflytek.astron.console.toolkit.entity.vo.WorkflowVo;
+import com.iflytek.astron.console.toolkit.handler.UserInfoManagerHandler;
+import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
+import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowVersionMapper;
+import com.iflytek.astron.console.toolkit.service.common.ConfigInfoRegistry;
+import com.iflytek.astron.console.toolkit.util.S3Util;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WorkflowService#listPage database pagination and batched status resolution.
+ */
+class WorkflowServiceListPageTest {
+
+    private static final String QA_SUMMARY = "{\"hasQaNode\":true,\"ioInversion\":{\"inputs\":[],\"outputs\":[]}}";
+
+    private WorkflowService workflowService;
+    private WorkflowMapper workflowMapper;
+    private WorkflowVersionMapper workflowVersionMapper;
+    private ChatBotBaseMapper chatBotBaseMapper;
+    private UserLangChainInfoMapper userLangChainInfoMapper;
+    private MockedStatic<UserInfoManagerHandler> userMock;
+    private MockedStatic<SpaceInfoUtil> spaceMock;
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Workflow.class);
+        TableInfoHelper.initTableInfo(assistant, WorkflowVersion.class);
+        TableInfoHelper.initTableInfo(assistant, UserLangChainInfo.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        workflowMapper = mock(WorkflowMapper.class);
+        workflowVersionMapper = mock(WorkflowVersionMapper.class);
+        chatBotBaseMapper = mock(ChatBotBaseMapper.class);
+        userLangChainInfoMapper = mock(UserLangChainInfoMapper.class);
+
+        workflowService = new WorkflowService();
+        ReflectionTestUtils.setField(workflowService, "baseMapper", workflowMapper);
+        ReflectionTestUtils.setField(workflowService, "workflowVersionMapper", workflowVersionMapper);
+        ReflectionTestUtils.setField(workflowService, "chatBotBaseMapper", chatBotBaseMapper);
+        ReflectionTestUtils.setField(workflowService, "userLangChainInfoDao", userLangChainInfoMapper);
+        ReflectionTestUtils.setField(workflowService, "configInfoRegistry", mock(ConfigInfoRegistry.class));
+        ReflectionTestUtils.setField(workflowService, "s3Util", mock(S3Util.class));
+
+        UserInfo userInfo = new UserInfo();
+        userInfo.setUid("user-1");
+        userMock = mockStatic(UserInfoManagerHandler.class);
+        userMock.when(UserInfoManagerHandler::get).thenReturn(userInfo);
+        userMock.when(UserInfoManagerHandler::getUserId).thenReturn("user-1");
+        spaceMock = mockStatic(SpaceInfoUtil.class);
+        spaceMock.when(SpaceInfoUtil::getSpaceId).thenReturn(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userMock.close();
+        spaceMock.close();
+    }
+
+    private static Workflow flow(long id, String flowId, Integer botId, String summary) {
+        Workflow w = new Workflow();
+        w.setId(id);
+        w.setFlowId(flowId);
+        w.setName("flow-" + id);
+        w.setStatus(0);
+        w.setDataSummary(summary);
+        if (botId != null) {
+            JSONObject ext = new JSONObject();
+            ext.put("botId", botId);
+            w.setExt(ext.toJSONString());
+        }
+        return w;
+    }
+
+    private static WorkflowVersion version(long id, String flowId, String name, String summary) {
+        WorkflowVersion v = new WorkflowVersion();
+        v.setId(id);
+        v.setFlowId(flowId);
+        v.setName(name);
+        v.setDataSummary(summary);
+        return v;
+    }
+
+    private void mockPage(List<Workflow> records, long total) {
+        when(workflowMapper.selectPage(any(), any())).thenAnswer(inv -> {
+            Page<Workflow> page = inv.getArgument(0);
+            page.setRecords(records);
+            page.setTotal(total);
+            return page;
+        });
+    }
+
+    @Test
+    void listPage_cutsPageInDatabaseAndResolvesStatusInBatch() {
+        String noQa = new WorkflowService().buildDataSummary(null);
+        mockPage(new ArrayList<>(List.of(
+                flow(1L, "f1", 11, noQa),
+                flow(2L, "f2", 12, noQa),
+                flow(3L, "f3", null, QA_SUMMARY))), 120L);
+        UserLangChainInfo legacy = new UserLangChainInfo();
+        legacy.setFlowId("f3");
+        legacy.setBotId(-1);
+        when(userLangChainInfoMapper.selectList(any())).thenReturn(List.of(legacy));
+        when(workflowVersionMapper.selectLatestPublishedByFlowIds(any(), anyString()))
+                .thenReturn(List.of(version(100L, "f1", "v2", QA_SUMMARY)));
+        BotDetail bot = new BotDetail();
+        bot.setId(12);
+        bot.setBotName("bot name");
+        bot.setBotStatus(2);
+        when(chatBotBaseMapper.botSummaries(any())).thenReturn(List.of(bot));
+
+        PageData<WorkflowVo> page = workflowService.listPage(null, 2, 3, null, null, null, null);
+
+        assertThat(page.getTotalCount()).isEqualTo(120L);
+        List<WorkflowVo> vos = page.getPageData();
+        assertThat(vos).extracting(WorkflowVo::getFlowId).containsExactly("f1", "f2", "f3");
+        // Published through publish management, summary taken from the version
+        assertThat(vos.get(0).getStatus()).isEqualTo(1);
+        assertThat(vos.get(0).getVersion()).isEqualTo("v2");
+        assertThat(vos.get(0).getHaQaNode()).isTrue();
+        assertThat(vos.get(0).getIoInversion()).containsKeys("inputs", "outputs");
+        // Falls back to the agent's market status and profile
+        assertThat(vos.get(1).getStatus()).isEqualTo(1);
+        assertThat(vos.get(1).getName()).isEqualTo("bot name");
+        assertThat(vos.get(1).getHaQaNode()).isFalse();
+        // Not bound to an agent, stored status kept
+        assertThat(vos.get(2).getStatus()).isZero();
+        assertThat(vos.get(2).getHaQaNode()).isTrue();
+
+        verify(workflowMapper, never()).selectList(any());
+        verify(workflowVersionMapper, times(1)).selectLatestPublishedByFlowIds(argThat(ids -> ids.size() == 2), anyString());
+        verify(chatBotBaseMapper, times(1)).botSummaries(argThat((Collection<Integer> ids) -> ids.equals(Set.of(12))));
+        verify(chatBotBaseMapper, never()).botDetail(any());
+    }
+
+    @Test
+    void listPage_backfillsMissingSummaryOnce() {
+        mockPage(new ArrayList<>(List.of(flow(1L, "f1", -1, null))), 1L);
+        Workflow stored = new Workflow();
+        stored.setId(1L);
+        stored.setData("{\"nodes\":[{\"id\":\"question-answer::1\",\"data\":{}}],\"edges\":[]}");
+        when(workflowMapper.selectList(any())).thenReturn(List.of(stored));
+
+        PageData<WorkflowVo> page = workflowService.listPage(null, 1, 10, null, null, null, null);
+
+        assertThat(page.getPageData().get(0).getHaQaNode()).isTrue();
+        verify(workflowMapper, times(1)).update(isNull(), any());
+        verifyNoInteractions(workflowVersionMapper, chatBotBaseMapper);
+    }
+
+    @Test
+    void listPage_statusFilterAppliedBeforeSlicing() {
+        String summary = new WorkflowService().buildDataSummary(null);
+        List<Workflow> all = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Workflow w = flow(i, "f" + i, null, summary);
+            w.setExt("{}");
+            w.setStatus(i % 2);
+            all.add(w);
+        }
+        when(workflowMapper.selectList(any())).thenReturn(all);
+
+        PageData<WorkflowVo> page = workflowService.listPage(null, 2, 2, null, 1, null, "f1");
+
+        // f1 is excluded, f3 and f5 remain published; the second page of size 2 holds nothing
+        assertThat(page.getTotalCount()).isEqualTo(2L);
+        assertThat(page.getPageData()).isEmpty();
+        verify(workflowMapper, never()).selectPage(any(), any());
+    }
+
+    @Test
+    void buildDataSummary_roundTripsIoInversion() {
+        String data = "{\"nodes\":["
+                + "{\"id\":\"node-start::1\",\"data\":{\"outputs\":[{\"name\":\"AGENT_USER_INPUT\",\"schema\":{\"type\":\"string\"}}]}},"
+                + "{\"id\":\"node-end::1\",\"data\":{\"nodeParam\":{\"outputMode\":1},\"inputs\":[]}}"
+                + "],\"edges\":[]}";
+
+        WorkflowDataSummary summary = JSON.parseObject(new WorkflowService().buildDataSummary(data), WorkflowDataSummary.class);
+
+        assertThat(summary.getHasQaNode()).isFalse();
+        assertThat(summary.getIoInversion().getJSONArray("inputs")).hasSize(1);
+        assertThat(summary.getIoInversion().getJSONArray("outputs")).hasSize(2);
+    }
+}
@@ -0,0 +1,172 @@
+package com.iflytek.astron.console.toolkit.sse;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.iflytek.astron.console.commons.entity.workflow.Workflow;
+import com.iflytek.astron.console.commons.util.SseEmitterUtil;
+import com.iflytek.astron.console.commons.util.TypewriterPacer;
+import com.iflytek.astron.console.toolkit.entity.core.workflow.sse.ChatResponse;
+import com.iflytek.astron.console.toolkit.mapper.workflow.WorkflowMapper;
+import com.iflytek.astron.console.toolkit.service.extra.CoreSystemService;
+import com.iflytek.astron.console.toolkit.util.JacksonUtil;
+import okhttp3.sse.EventSource;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WorkflowSseEventSourceListener can_publish write coalescing and typewriter output.
+ */
+class WorkflowSseEventSourceListenerTest {
+
+    private static final String OK_FRAME = "{\"code\":0,\"message\":\"Success\"}";
+    private static final String ERROR_FRAME = "{\"code\":20001,\"message\":\"node failed\"}";
+
+    private WorkflowMapper workflowMapper;
+    private EventSource eventSource;
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Workflow.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        workflowMapper = mock(WorkflowMapper.class);
+        eventSource = mock(EventSource.class);
+    }
+
+    private WorkflowSseEventSourceListener newListener(String version) {
+        WorkflowSseEventSourceListener listener = new WorkflowSseEventSourceListener("flow-1", "sse-1", 1, false, version);
+        ReflectionTestUtils.setField(listener, "workflowMapper", workflowMapper);
+        ReflectionTestUtils.setField(listener, "coreSystemService", mock(CoreSystemService.class));
+        return listener;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object capturedCanPublish() {
+        ArgumentCaptor<Wrapper<Workflow>> captor = ArgumentCaptor.forClass(Wrapper.class);
+        verify(workflowMapper, times(1)).update(captor.capture());
+        LambdaUpdateWrapper<Workflow> wrapper = (LambdaUpdateWrapper<Workflow>) captor.getValue();
+        wrapper.getSqlSet();
+        return wrapper.getParamNameValuePairs().values().stream()
+                .filter(Boolean.class::isInstance)
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Test
+    void manyFrames_singleUpdateOnClose() {
+        WorkflowSseEventSourceListener listener = newListener(null);
+        for (int i = 0; i < 2000; i++) {
+            listener.onEvent(eventSource, null, null, OK_FRAME);
+        }
+        verify(workflowMapper, never()).update(any());
+
+        listener.onClosed(eventSource);
+        listener.onClosed(eventSource);
+
+        assertThat(capturedCanPublish()).isEqualTo(true);
+    }
+
+    @Test
+    void lastFrameError_flushesFalse() {
+        WorkflowSseEventSourceListener listener = newListener(null);
+        listener.onEvent(eventSource, null, null, OK_FRAME);
+        listener.onEvent(eventSource, null, null, ERROR_FRAME);
+
+        listener.onClosed(eventSource);
+
+        assertThat(capturedCanPublish()).isEqualTo(false);
+    }
+
+    @Test
+    void versionedRun_flushesFalse() {
+        WorkflowSseEventSourceListener listener = newListener("v1");
+        listener.onEvent(eventSource, null, null, OK_FRAME);
+
+        listener.onClosed(eventSource);
+
+        assertThat(capturedCanPublish()).isEqualTo(false);
+    }
+
+    @Test
+    void failureAfterFrames_flushesOnce() {
+        WorkflowSseEventSourceListener listener = newListener(null);
+        listener.onEvent(eventSource, null, null, OK_FRAME);
+
+        listener.onFailure(eventSource, new SocketTimeoutException("timeout"), null);
+        listener.onClosed(eventSource);
+
+        assertThat(capturedCanPublish()).isEqualTo(true);
+    }
+
+    @Test
+    void noFrames_noUpdate() {
+        WorkflowSseEventSourceListener listener = newListener(null);
+
+        listener.onFailure(eventSource, null, null);
+
+        verify(workflowMapper, never()).update(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void typewriterOutput_splicesEachCharacterIntoPreSerializedFrame() throws Exception {
+        List<Object> sent = new CopyOnWriteArrayList<>();
+        SseEmitter emitter = mock(SseEmitter.class);
+        doAnswer(inv -> sent.add(inv.getArgument(0))).when(emitter).send(any(Object.class));
+        Map<String, SseEmitter> sessions = (Map<String, SseEmitter>) ReflectionTestUtils.getField(SseEmitterUtil.class, "SESSION_MAP");
+        sessions.put("sse-tw", emitter);
+        try {
+            WorkflowSseEventSourceListener listener = new WorkflowSseEventSourceListener("flow-1", "sse-tw", 2, true, null);
+            ReflectionTestUtils.setField(listener, "coreSystemService", mock(CoreSystemService.class));
+            listener.onEvent(eventSource, null, null,
+                    "{\"code\":0,\"workflow_step\":{\"node\":{\"id\":\"message::1\"}},"
+                            + "\"choices\":[{\"delta\":{\"content\":\"a\\\"你\"}}]}");
+            CountDownLatch done = new CountDownLatch(1);
+            TypewriterPacer.then("sse-tw", done::countDown);
+
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(sent).hasSize(3);
+            List<String> contents = new ArrayList<>();
+            for (Object frame : sent) {
+                ChatResponse parsed = JacksonUtil.parseObject((String) frame, ChatResponse.class);
+                assertThat(parsed.getCode()).isZero();
+                contents.add(parsed.getChoices().get(0).getDelta().getContent());
+            }
+            assertThat(contents).containsExactly("a", "\"", "你");
+        } finally {
+            sessions.remove("sse-tw");
+        }
+    }
+
+    @Test
+    void promptDebugger_neverUpdatesCanPublish() {
+        WorkflowSseEventSourceListener listener = new WorkflowSseEventSourceListener("flow-1", "sse-1", 1, true, "v1");
+        ReflectionTestUtils.setField(listener, "workflowMapper", workflowMapper);
+        listener.onEvent(eventSource, null, null, OK_FRAME);
+
+        listener.onClosed(eventSource);
+
+        verify(workflowMapper, never()).update(any());
+    }
+}
@@ -0,0 +1,170 @@
+package com.iflytek.astron.console.toolkit.task;
+
+import com.iflytek.astron.console.toolkit.common.constant.ProjectContent;
+import com.iflytek.astron.console.toolkit.config.properties.KnowledgeJobProperties;
+import com.iflytek.astron.console.toolkit.entity.table.repo.ExtractKnowledgeTask;
+import com.iflytek.astron.console.toolkit.entity.table.repo.FileInfoV2;
+import com.iflytek.astron.console.toolkit.service.repo.FileInfoV2Service;
+import com.iflytek.astron.console.toolkit.service.task.ExtractKnowledgeTaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for KnowledgeJobEngine scheduling, leases and failure handling.
+ */
+class KnowledgeJobEngineTest {
+
+    private ExtractKnowledgeTaskService taskService;
+    private FileInfoV2Service fileInfoV2Service;
+    private KnowledgeJobProperties properties;
+    private final List<Runnable> submitted = new ArrayList<>();
+    private KnowledgeJobEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        taskService = mock(ExtractKnowledgeTaskService.class);
+        fileInfoV2Service = mock(FileInfoV2Service.class);
+        properties = new KnowledgeJobProperties();
+        properties.setWorkers(2);
+        properties.setMaxAttempts(2);
+        when(taskService.claim(anyLong(), anyString(), any(), any())).thenReturn(true);
+
+        engine = new KnowledgeJobEngine();
+        ReflectionTestUtils.setField(engine, "extractKnowledgeTaskService", taskService);
+        ReflectionTestUtils.setField(engine, "fileInfoV2Service", fileInfoV2Service);
+        ReflectionTestUtils.setField(engine, "knowledgeJobProperties", properties);
+        ReflectionTestUtils.setField(engine, "knowledgeJobExecutor", (org.springframework.core.task.TaskExecutor) submitted::add);
+        ReflectionTestUtils.setField(engine, "taskScheduler", mock(TaskScheduler.class));
+        engine.start();
+    }
+
+    private static ExtractKnowledgeTask tenant(Long spaceId) {
+        ExtractKnowledgeTask tenant = new ExtractKnowledgeTask();
+        tenant.setSpaceId(spaceId);
+        tenant.setUserId("user-" + spaceId);
+        return tenant;
+    }
+
+    private static ExtractKnowledgeTask task(long id, Long spaceId, int taskStatus) {
+        ExtractKnowledgeTask task = tenant(spaceId);
+        task.setId(id);
+        task.setFileId(id * 100);
+        task.setStatus(0);
+        task.setTaskStatus(taskStatus);
+        task.setAttempts(0);
+        return task;
+    }
+
+    @Test
+    void dispatch_givesEachSpaceAWorkerBeforeAnySpaceGetsTwo() {
+        when(taskService.listPendingTenants(any())).thenReturn(List.of(tenant(1L), tenant(2L)));
+        when(taskService.nextPending(eq(1L), anyString(), any())).thenReturn(task(11, 1L, 0), task(12, 1L, 0));
+        when(taskService.nextPending(eq(2L), anyString(), any())).thenReturn(task(21, 2L, 0));
+
+        engine.dispatch();
+
+        assertThat(submitted).hasSize(2);
+        verify(taskService).claim(eq(11L), anyString(), any(), any());
+        verify(taskService).claim(eq(21L), anyString(), any(), any());
+        verify(taskService, never()).claim(eq(12L), anyString(), any(), any());
+    }
+
+    @Test
+    void dispatch_servesLeastRecentlyServedSpaceFirst() {
+        properties.setWorkers(1);
+        engine.start();
+        when(taskService.listPendingTenants(any())).thenReturn(List.of(tenant(1L), tenant(2L)));
+        when(taskService.nextPending(eq(1L), anyString(), any())).thenReturn(task(11, 1L, 0), task(12, 1L, 0));
+        when(taskService.nextPending(eq(2L), anyString(), any())).thenReturn(task(21, 2L, 0));
+        when(fileInfoV2Service.runSliceTask(any())).thenReturn(false);
+
+        engine.dispatch();
+        submitted.remove(0).run();
+        engine.dispatch();
+
+        verify(taskService).claim(eq(11L), anyString(), any(), any());
+        verify(taskService).claim(eq(21L), anyString(), any(), any());
+        verify(taskService, never()).claim(eq(12L), anyString(), any(), any());
+    }
+
+    @Test
+    void dispatch_returnsWorkerWhenAnotherNodeClaimedFirst() {
+        when(taskService.listPendingTenants(any())).thenReturn(List.of(tenant(1L)));
+        when(taskService.nextPending(eq(1L), anyString(), any())).thenReturn(task(11, 1L, 0), task(12, 1L, 0), (ExtractKnowledgeTask) null);
+        when(taskService.claim(eq(11L), anyString(), any(), any())).thenReturn(false);
+
+        engine.dispatch();
+
+        assertThat(submitted).hasSize(1);
+        verify(taskService).claim(eq(12L), anyString(), any(), any());
+    }
+
+    @Test
+    void run_queuesEmbeddingWhenParsingAskedForIt() {
+        ExtractKnowledgeTask task = task(11, 1L, 0);
+        when(taskService.listPendingTenants(any())).thenReturn(List.of(tenant(1L)));
+        when(taskService.nextPending(eq(1L), anyString(), any())).thenReturn(task, (ExtractKnowledgeTask) null);
+        when(fileInfoV2Service.runSliceTask(task)).thenReturn(true);
+
+        engine.dispatch();
+        submitted.remove(0).run();
+
+        verify(fileInfoV2Service).saveTaskAndUpdateFileStatus(1100L);
+        verify(taskService).release(eq(11L), anyString());
+    }
+
+    @Test
+    void run_marksTaskAndFileFailedOnLastAttempt() {
+        ExtractKnowledgeTask task = task(21, 2L, 2);
+        task.setAttempts(1);
+        when(taskService.listPendingTenants(any())).thenReturn(List.of(tenant(2L)));
+        when(taskService.nextPending(eq(2L), anyString(), any())).thenReturn(task, (ExtractKnowledgeTask) null);
+        doThrow(new IllegalStateException("embedding service down")).when(fileInfoV2Service).runEmbeddingTask(task);
+
+        engine.dispatch();
+        submitted.remove(0).run();
+
+        verify(taskService).updateById(argThat((ExtractKnowledgeTask t) -> t.getId() == 21L && t.getStatus() == 2
+                && t.getTaskStatus() == 3 && "embedding service down".equals(t.getReason())));
+        verify(fileInfoV2Service).updateById(argThat((FileInfoV2 f) -> f.getId() == 2100L
+                && ProjectContent.FILE_EMBEDDING_FAILED.equals(f.getStatus())));
+        verify(taskService).release(eq(21L), anyString());
+    }
+
+    @Test
+    void run_leavesTaskForRetryBeforeLastAttempt() {
+        ExtractKnowledgeTask task = task(21, 2L, 2);
+        when(taskService.listPendingTenants(any())).thenReturn(List.of(tenant(2L)));
+        when(taskService.nextPending(eq(2L), anyString(), any())).thenReturn(task, (ExtractKnowledgeTask) null);
+        doThrow(new IllegalStateException("embedding service down")).when(fileInfoV2Service).runEmbeddingTask(task);
+
+        engine.dispatch();
+        submitted.remove(0).run();
+
+        verify(taskService, never()).updateById(any(ExtractKnowledgeTask.class));
+        verify(taskService).release(eq(21L), anyString());
+    }
+
+    @Test
+    void renewLeases_extendsOnlyRunningTasks() {
+        when(taskService.listPendingTenants(any())).thenReturn(List.of(tenant(1L)));
+        when(taskService.nextPending(eq(1L), anyString(), any())).thenReturn(task(11, 1L, 0), (ExtractKnowledgeTask) null);
+
+        engine.renewLeases();
+        verify(taskService, never()).renew(any(), anyString(), any());
+
+        engine.dispatch();
+        engine.renewLeases();
+
+        verify(taskService).renew(eq(List.of(11L)), anyString(), any());
+    }
+}
@@ -0,0 +1,207 @@
+package com.iflytek.astron.console.toolkit.task;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.iflytek.astron.console.toolkit.config.properties.KnowledgePushProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for KnowledgePushScheduler concurrency, rate limits, retries and batch sizing.
+ */
+class KnowledgePushSchedulerTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+    private KnowledgePushProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KnowledgePushProperties();
+        properties.setDefaultRate(1000);
+        properties.setRetryBackoff(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private KnowledgePushScheduler scheduler() {
+        ObjectProvider<MeterRegistry> meterRegistryProvider = mock(ObjectProvider.class);
+        when(meterRegistryProvider.getIfAvailable()).thenReturn(meterRegistry);
+        KnowledgePushScheduler scheduler = new KnowledgePushScheduler();
+        ReflectionTestUtils.setField(scheduler, "knowledgePushProperties", properties);
+        ReflectionTestUtils.setField(scheduler, "knowledgePushExecutor", (TaskExecutor) pool::execute);
+        ReflectionTestUtils.setField(scheduler, "meterRegistryProvider", meterRegistryProvider);
+        scheduler.init();
+        return scheduler;
+    }
+
+    private static JSONArray chunks(int count) {
+        JSONArray chunks = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            chunks.add(JSONObject.of("chunkId", "chunk-" + i));
+        }
+        return chunks;
+    }
+
+    private double chunkCount(String backend, String outcome) {
+        return meterRegistry.get("knowledge.push.chunks").tag("backend", backend).tag("outcome", outcome).counter().count();
+    }
+
+    @Test
+    void push_sendsEveryChunkWithinNodeConcurrency() {
+        properties.setConcurrency(2);
+        properties.setInitialBatchSize(10);
+        properties.setMinBatchSize(10);
+        properties.setMaxBatchSize(10);
+        KnowledgePushScheduler scheduler = scheduler();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Object> pushed = Collections.synchronizedList(new ArrayList<>());
+
+        KnowledgePushScheduler.PushOutcome<Integer> outcome = scheduler.push("AIUI-RAG2", chunks(95), batch -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            pushed.addAll(batch);
+            inFlight.decrementAndGet();
+            return batch.size();
+        });
+
+        assertThat(outcome.getFailedBatches()).isEmpty();
+        assertThat(outcome.getResults()).hasSize(10);
+        assertThat(pushed).hasSize(95).doesNotHaveDuplicates();
+        assertThat(maxInFlight.get()).isEqualTo(2);
+        assertThat(chunkCount("AIUI-RAG2", "success")).isEqualTo(95);
+    }
+
+    @Test
+    void push_retriesOnlyTheFailedBatch() {
+        properties.setInitialBatchSize(10);
+        properties.setMinBatchSize(10);
+        properties.setMaxBatchSize(10);
+        KnowledgePushScheduler scheduler = scheduler();
+        Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+        KnowledgePushScheduler.PushOutcome<String> outcome = scheduler.push("CBG-RAG", chunks(30), batch -> {
+            String first = batch.getJSONObject(0).getString("chunkId");
+            int attempt = attempts.computeIfAbsent(first, key -> new AtomicInteger()).incrementAndGet();
+            if ("chunk-10".equals(first) && attempt == 1) {
+                throw new IllegalStateException("upstream timeout");
+            }
+            return first;
+        });
+
+        assertThat(outcome.getFailedBatches()).isEmpty();
+        assertThat(outcome.getResults()).containsExactlyInAnyOrder("chunk-0", "chunk-10", "chunk-20");
+        assertThat(attempts.get("chunk-0").get()).isEqualTo(1);
+        assertThat(attempts.get("chunk-10").get()).isEqualTo(2);
+        assertThat(attempts.get("chunk-20").get()).isEqualTo(1);
+        assertThat(meterRegistry.get("knowledge.push.retries").tag("backend", "CBG-RAG").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void push_reportsBatchThatKeepsFailing() {
+        properties.setInitialBatchSize(10);
+        properties.setMinBatchSize(10);
+        properties.setMaxBatchSize(10);
+        properties.setMaxAttempts(3);
+        KnowledgePushScheduler scheduler = scheduler();
+        AtomicInteger calls = new AtomicInteger();
+
+        KnowledgePushScheduler.PushOutcome<String> outcome = scheduler.push("AIUI-RAG2", chunks(20), batch -> {
+            calls.incrementAndGet();
+            String first = batch.getJSONObject(0).getString("chunkId");
+            if ("chunk-0".equals(first)) {
+                throw new IllegalStateException("rejected");
+            }
+            return first;
+        });
+
+        assertThat(calls.get()).isEqualTo(4);
+        assertThat(outcome.getResults()).containsExactly("chunk-10");
+        assertThat(outcome.getFailedBatches()).hasSize(1);
+        assertThat(outcome.getFailedBatches().get(0).getJSONObject(0).getString("chunkId")).isEqualTo("chunk-0");
+        assertThat(chunkCount("AIUI-RAG2", "failed")).isEqualTo(10);
+        assertThat(chunkCount("AIUI-RAG2", "success")).isEqualTo(10);
+    }
+
+    @Test
+    void batchSize_shrinksOnErrorsAndGrowsBackOnFastBatches() {
+        properties.setConcurrency(1);
+        properties.setInitialBatchSize(100);
+        properties.setMinBatchSize(10);
+        properties.setMaxBatchSize(100);
+        properties.setMaxAttempts(1);
+        KnowledgePushScheduler scheduler = scheduler();
+
+        scheduler.push("AIUI-RAG2", chunks(300), batch -> {
+            throw new IllegalStateException("overloaded");
+        });
+        assertThat(scheduler.batchSize("AIUI-RAG2")).isEqualTo(10);
+
+        scheduler.push("AIUI-RAG2", chunks(1000), JSONArray::size);
+        assertThat(scheduler.batchSize("AIUI-RAG2")).isEqualTo(100);
+        assertThat(meterRegistry.get("knowledge.push.batch_size").tag("backend", "AIUI-RAG2").gauge().value()).isEqualTo(100);
+    }
+
+    @Test
+    void batchSize_shrinksOnSlowBatches() {
+        properties.setConcurrency(1);
+        properties.setInitialBatchSize(100);
+        properties.setMinBatchSize(10);
+        properties.setTargetLatency(Duration.ZERO);
+        KnowledgePushScheduler scheduler = scheduler();
+
+        scheduler.push("CBG-RAG", chunks(100), JSONArray::size);
+
+        assertThat(scheduler.batchSize("CBG-RAG")).isEqualTo(75);
+    }
+
+    @Test
+    void push_respectsBackendRate() {
+        properties.setInitialBatchSize(1);
+        properties.setMinBatchSize(1);
+        properties.setMaxBatchSize(1);
+        properties.setRates(Map.of("cbg-rag", 20.0));
+        KnowledgePushScheduler scheduler = scheduler();
+
+        long start = System.nanoTime();
+        scheduler.push("CBG-RAG", chunks(11), JSONArray::size);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // 20 requests per second: the first goes at once, the other ten 50ms apart
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(450);
+
+        start = System.nanoTime();
+        scheduler.push("AIUI-RAG2", chunks(11), JSONArray::size);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(450);
+    }
+}
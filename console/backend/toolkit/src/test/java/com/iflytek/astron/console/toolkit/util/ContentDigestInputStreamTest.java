@@ -0,0 +1,77 @@
+package com.iflytek.astron.console.toolkit.util;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentDigestInputStreamTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "abc", "abc\n", "a\nb", "a\r\nb\r\n", "a\rb\r", "\n\n\n", "a\r\r\nb", "中文内容\n第二行"})
+    void charCount_matchesLineByLineCount(String text) throws IOException {
+        ContentDigestInputStream in = new ContentDigestInputStream(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+
+        in.finish();
+
+        assertEquals(lineByLineCount(text.getBytes(StandardCharsets.UTF_8)), in.getCharCount());
+    }
+
+    @Test
+    void charCount_handlesCharactersSplitAcrossReads() throws IOException {
+        byte[] content = "汉字".repeat(5000).getBytes(StandardCharsets.UTF_8);
+        ContentDigestInputStream in = new ContentDigestInputStream(new ByteArrayInputStream(content));
+
+        byte[] buffer = new byte[7];
+        while (in.read(buffer) != -1) {
+            // read in chunks that split the three byte characters
+        }
+        in.finish();
+
+        assertEquals(10001, in.getCharCount());
+        assertEquals(content.length, in.getSize());
+    }
+
+    @Test
+    void finish_readsWhatTheConsumerLeft() throws IOException {
+        byte[] content = "partly consumed content".getBytes(StandardCharsets.UTF_8);
+        ContentDigestInputStream in = new ContentDigestInputStream(new ByteArrayInputStream(content));
+
+        assertEquals(6, in.read(new byte[6]));
+        assertNull(in.getContentHash());
+        in.finish();
+
+        assertEquals(content.length, in.getSize());
+        assertEquals(DigestUtils.sha256Hex(content), in.getContentHash());
+    }
+
+    @Test
+    void malformedInput_isCountedAsReplacementCharacters() throws IOException {
+        byte[] content = {'a', (byte) 0xff, 'b'};
+        ContentDigestInputStream in = new ContentDigestInputStream(new ByteArrayInputStream(content));
+
+        in.finish();
+
+        assertEquals(lineByLineCount(content), in.getCharCount());
+    }
+
+    /** The count the upload used before reading the file once: line lengths plus one per line. */
+    private static long lineByLineCount(byte[] content) throws IOException {
+        long count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                count += line.length() + 1;
+            }
+        }
+        return count;
+    }
+}
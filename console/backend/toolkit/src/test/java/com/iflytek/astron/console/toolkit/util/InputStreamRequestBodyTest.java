@@ -0,0 +1,154 @@
+package com.iflytek.astron.console.toolkit.util;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.MediaType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputStreamRequestBodyTest {
+
+    private static final int LARGE_FILE = 32 * 1024 * 1024;
+
+    private HttpServer server;
+
+    private String url;
+
+    private final AtomicReference<String> receivedLength = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/upload", exchange -> {
+            receivedLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+            long read = 0;
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = exchange.getRequestBody()) {
+                for (int n; (n = in.read(buffer)) != -1;) {
+                    read += n;
+                }
+            }
+            byte[] body = String.valueOf(read).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void postMultipart_streamsFilePartWithKnownLength() throws IOException {
+        InputStreamRequestBody file = new InputStreamRequestBody(new GeneratedInputStream(1000), 1000,
+                MediaType.parse("application/octet-stream"), "a.txt");
+        Map<String, Object> params = new HashMap<>();
+        params.put("file", file);
+        params.put("ragType", "CBG-RAG");
+
+        long serverRead = Long.parseLong(OkHttpUtil.postMultipart(url, null, null, params));
+
+        assertTrue(file.isOneShot());
+        assertTrue(serverRead > 1000);
+        assertEquals(String.valueOf(serverRead), receivedLength.get());
+    }
+
+    @Test
+    void postMultipart_failsWhenStreamIsShorterThanDeclared() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("file", new InputStreamRequestBody(new GeneratedInputStream(10), 1000, null, "a.txt"));
+
+        assertThrows(IOException.class, () -> OkHttpUtil.postMultipart(url, null, null, params));
+    }
+
+    /**
+     * Heap comparison of the two upload paths on a large file: buffering the whole object the way the
+     * S3 upload used to (read into a byte array, wrapped in a multipart file) against streaming it.
+     */
+    @Test
+    void streamingUpload_allocatesFractionOfBufferedUpload() throws IOException {
+        // Warm up the client so that connection setup is not counted
+        uploadStreaming(1024);
+        uploadBuffered(1024);
+
+        long buffered = allocatedBy(() -> uploadBuffered(LARGE_FILE));
+        long streaming = allocatedBy(() -> uploadStreaming(LARGE_FILE));
+
+        assertTrue(buffered >= LARGE_FILE, "buffered upload allocated " + buffered + " bytes");
+        assertTrue(streaming < LARGE_FILE / 8, "streaming upload allocated " + streaming + " bytes, buffered " + buffered);
+    }
+
+    private void uploadBuffered(int size) throws IOException {
+        byte[] bytes = new GeneratedInputStream(size).readAllBytes();
+        Map<String, Object> params = new HashMap<>();
+        params.put("file", new MockMultipartFile("file", "large.bin", "application/octet-stream", bytes));
+        assertTrue(Long.parseLong(OkHttpUtil.postMultipart(url, null, null, params)) > size);
+    }
+
+    private void uploadStreaming(int size) throws IOException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("file", new InputStreamRequestBody(new GeneratedInputStream(size), size,
+                MediaType.parse("application/octet-stream"), "large.bin"));
+        assertTrue(Long.parseLong(OkHttpUtil.postMultipart(url, null, null, params)) > size);
+    }
+
+    private static long allocatedBy(IoAction action) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        action.run();
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    /** Stream of the given length that produces its bytes without holding them. */
+    private static final class GeneratedInputStream extends InputStream {
+
+        private long remaining;
+
+        GeneratedInputStream(long length) {
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() {
+            if (remaining <= 0) {
+                return -1;
+            }
+            remaining--;
+            return 'a';
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = (int) Math.min(len, remaining);
+            Arrays.fill(b, off, off + n, (byte) 'a');
+            remaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.iflytek.astron.console.toolkit.websocket;
+
+import com.iflytek.astron.console.toolkit.service.workflow.FlowCanvasPresenceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class FlowCanvasHoldWebSocketHandlerTest {
+
+    @Mock
+    private FlowCanvasPresenceService presenceService;
+
+    private FlowCanvasHoldWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new FlowCanvasHoldWebSocketHandler(presenceService);
+    }
+
+    @Test
+    void connect_recordsHeartbeatAndSendsAliveCount() throws Exception {
+        WebSocketSession session = session("s1", "f1");
+        when(presenceService.heartbeat("f1", "s1")).thenReturn(3L);
+
+        handler.afterConnectionEstablished(session);
+
+        assertThat(sent(session)).containsExactly("3");
+    }
+
+    @Test
+    void message_repliesWithKnownCountWithoutRedis() throws Exception {
+        WebSocketSession session = session("s1", "f1");
+        when(presenceService.heartbeat("f1", "s1")).thenReturn(2L);
+        handler.afterConnectionEstablished(session);
+
+        handler.handleTextMessage(session, new TextMessage("count"));
+        handler.handleTextMessage(session, new TextMessage("ping"));
+
+        assertThat(sent(session)).containsExactly("2", "2", "pong");
+        verify(presenceService, times(2)).heartbeat("f1", "s1");
+    }
+
+    @Test
+    void presenceChange_isPushedToSessionsOfTheFlowOnly() throws Exception {
+        WebSocketSession first = session("s1", "f1");
+        WebSocketSession second = session("s2", "f1");
+        WebSocketSession other = session("s3", "f2");
+        when(presenceService.heartbeat(anyString(), anyString())).thenReturn(1L);
+        handler.afterConnectionEstablished(first);
+        handler.afterConnectionEstablished(second);
+        handler.afterConnectionEstablished(other);
+
+        handler.onPresenceChanged("f1", 2L);
+        handler.afterConnectionClosed(second, CloseStatus.NORMAL);
+        handler.onPresenceChanged("f1", 1L);
+
+        assertThat(sent(first)).containsExactly("1", "2", "1");
+        assertThat(sent(second)).containsExactly("1", "2");
+        assertThat(sent(other)).containsExactly("1");
+        verify(presenceService).leave("f1", "s2");
+    }
+
+    @Test
+    void connect_withoutFlowIdIsClosed() throws Exception {
+        WebSocketSession session = session("s1", null);
+
+        handler.afterConnectionEstablished(session);
+
+        verify(session).close();
+        verify(presenceService, never()).heartbeat(anyString(), anyString());
+    }
+
+    private static WebSocketSession session(String id, String flowId) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/flow-canvas-hold" + (flowId == null ? "" : "?flowId=" + flowId)));
+        return session;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> sent(WebSocketSession session) throws Exception {
+        ArgumentCaptor<WebSocketMessage<?>> messages = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, atLeast(0)).sendMessage(messages.capture());
+        return messages.getAllValues().stream().map(message -> String.valueOf(message.getPayload())).toList();
+    }
+}
@@ -14238,7 +14238,15 @@ CREATE TABLE `extract_knowledge_task`
     `create_time` timestamp NULL DEFAULT NULL COMMENT 'Creation time',
     `update_time` timestamp NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'Update time',
     `task_status` int          DEFAULT NULL COMMENT 'Task execution status: 0 start parsing, 1 parsing completed, 2 start embedding, 3 embedding completed',
-    PRIMARY KEY (`id`)
+    `slice_config`      text COMMENT 'Slice configuration of a parsing task',
+    `space_id`          bigint       DEFAULT NULL COMMENT 'Space ID',
+    `back_embedding`    int          DEFAULT '0' COMMENT '1: embed once parsing succeeds',
+    `lease_owner`       varchar(128) DEFAULT NULL COMMENT 'Node running the task',
+    `lease_expire_time` timestamp NULL DEFAULT NULL COMMENT 'Lease expiry, after which another node may take the task over',
+    `attempts`          int          DEFAULT '0' COMMENT 'Times the task was claimed',
+    PRIMARY KEY (`id`),
+    KEY `idx_status_task_status` (`status`, `task_status`),
+    KEY `idx_file_id` (`file_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- ----------------------------
@@ -14321,6 +14329,7 @@ CREATE TABLE `file_info_v2`
     `address`              varchar(255)         DEFAULT NULL COMMENT 'File storage address',
     `size`                 bigint               DEFAULT NULL COMMENT 'File size',
     `char_count`           bigint               DEFAULT NULL COMMENT 'File character length',
+    `content_hash`         varchar(64)          DEFAULT NULL COMMENT 'SHA-256 of the file content',
     `type`                 varchar(64)          DEFAULT NULL COMMENT 'File type',
     `status`               int                  DEFAULT NULL COMMENT 'File build status: -1 uploaded, 0 parsing, 1 parse failed, 2 parse success, 3 embedding, 4 embed failed, 5 embed success',
     `enabled`              int                  DEFAULT '0' COMMENT '0: disabled, 1: enabled',
@@ -14333,7 +14342,8 @@ CREATE TABLE `file_info_v2`
     `source`               varchar(64) NOT NULL DEFAULT 'AIUI-RAG2' COMMENT 'Data source',
     `space_id`             bigint               DEFAULT NULL COMMENT 'Team space ID',
     `last_uuid`            varchar(100)         DEFAULT NULL COMMENT 'UUID generated by CBG parsing, used for preview, updated to uuid after embedding',
-    PRIMARY KEY (`id`)
+    PRIMARY KEY (`id`),
+    KEY `idx_repo_content_hash` (`repo_id`, `content_hash`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- ----------------------------
@@ -15581,8 +15591,10 @@ CREATE TABLE `workflow`
     `ext`                  text,
     `category`             int                   DEFAULT NULL COMMENT 'Category',
     `space_id`             bigint                DEFAULT NULL COMMENT 'Space ID',
+    `data_summary`         text COMMENT 'List summary derived from data: ioInversion, hasQaNode',
     PRIMARY KEY (`id`) USING BTREE,
-    KEY                    `flow_id` (`flow_id`)
+    KEY                    `flow_id` (`flow_id`),
+    KEY                    `idx_space_id` (`space_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
 
 -- ----------------------------
@@ -15724,7 +15736,9 @@ CREATE TABLE `workflow_version`
     `publish_channel`  int                   DEFAULT NULL COMMENT 'Publishing channel: 1: WeChat official account, 2: Spark desk, 3: API, 4: MCP',
     `publish_result`   text COMMENT 'Publish result',
     `bot_id`           varchar(100)          DEFAULT NULL,
-    PRIMARY KEY (`id`)
+    `data_summary`     text COMMENT 'List summary derived from data: ioInversion, hasQaNode',
+    PRIMARY KEY (`id`),
+    KEY                `idx_flow_id` (`flow_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
 
 -- ----------------------------